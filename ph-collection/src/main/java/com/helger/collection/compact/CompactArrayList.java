@@ -0,0 +1,278 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.compact;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.ArrayHelper;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.lang.GenericReflection;
+
+/**
+ * A memory compact {@link ICommonsList} implementation that is optimized for
+ * very small lists. An empty list and a list with a single element require no
+ * backing array at all - the single element is stored inline. Only when a
+ * second element is added, a backing array is created that grows by 50% if
+ * required.<br>
+ * Compared to {@link com.helger.commons.collection.impl.CommonsArrayList} this
+ * saves the array and the default capacity of 10 for each list, which makes a
+ * difference when millions of small lists are used, e.g. as values of multi
+ * maps.
+ *
+ * @author Philip Helger
+ * @param <ELEMENTTYPE>
+ *        The type of the element in the list
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class CompactArrayList <ELEMENTTYPE> extends AbstractList <ELEMENTTYPE> implements
+                              ICommonsList <ELEMENTTYPE>,
+                              RandomAccess,
+                              Serializable
+{
+  private static final int FIRST_ARRAY_CAPACITY = 2;
+
+  /**
+   * <code>null</code> for size 0, the element itself for size 1 and an
+   * <code>Object[]</code> for all larger sizes.
+   */
+  private Object m_aData;
+  private int m_nSize;
+
+  public CompactArrayList ()
+  {}
+
+  public CompactArrayList (@Nullable final ELEMENTTYPE aElement)
+  {
+    m_aData = aElement;
+    m_nSize = 1;
+  }
+
+  public CompactArrayList (@Nullable final Collection <? extends ELEMENTTYPE> aElements)
+  {
+    if (aElements != null)
+      addAll (aElements);
+  }
+
+  @Override
+  @Nonnull
+  @ReturnsMutableCopy
+  public <T> CompactArrayList <T> createInstance ()
+  {
+    return new CompactArrayList <> ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public CompactArrayList <ELEMENTTYPE> getClone ()
+  {
+    final CompactArrayList <ELEMENTTYPE> ret = new CompactArrayList <> ();
+    ret.m_nSize = m_nSize;
+    ret.m_aData = m_nSize > 1 ? Arrays.copyOf ((Object []) m_aData, m_nSize) : m_aData;
+    return ret;
+  }
+
+  private void _checkIndex (final int nIndex)
+  {
+    if (nIndex < 0 || nIndex >= m_nSize)
+      throw new IndexOutOfBoundsException ("Index: " + nIndex + ", Size: " + m_nSize);
+  }
+
+  @Nonnull
+  private Object [] _array ()
+  {
+    return (Object []) m_aData;
+  }
+
+  @Nonnegative
+  @Override
+  public int size ()
+  {
+    return m_nSize;
+  }
+
+  @Override
+  public ELEMENTTYPE get (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    final Object ret = m_nSize == 1 ? m_aData : _array ()[nIndex];
+    return GenericReflection.uncheckedCast (ret);
+  }
+
+  @Override
+  public ELEMENTTYPE set (final int nIndex, @Nullable final ELEMENTTYPE aElement)
+  {
+    _checkIndex (nIndex);
+    final Object ret;
+    if (m_nSize == 1)
+    {
+      ret = m_aData;
+      m_aData = aElement;
+    }
+    else
+    {
+      final Object [] aArray = _array ();
+      ret = aArray[nIndex];
+      aArray[nIndex] = aElement;
+    }
+    return GenericReflection.uncheckedCast (ret);
+  }
+
+  @Override
+  public void add (final int nIndex, @Nullable final ELEMENTTYPE aElement)
+  {
+    if (nIndex < 0 || nIndex > m_nSize)
+      throw new IndexOutOfBoundsException ("Index: " + nIndex + ", Size: " + m_nSize);
+
+    modCount++;
+    switch (m_nSize)
+    {
+      case 0:
+        // Inline
+        m_aData = aElement;
+        break;
+      case 1:
+      {
+        // Switch from inline to array
+        final Object [] aArray = new Object [FIRST_ARRAY_CAPACITY];
+        aArray[nIndex] = aElement;
+        aArray[1 - nIndex] = m_aData;
+        m_aData = aArray;
+        break;
+      }
+      default:
+      {
+        Object [] aArray = _array ();
+        if (m_nSize == aArray.length)
+        {
+          aArray = Arrays.copyOf (aArray, m_nSize + (m_nSize >> 1));
+          m_aData = aArray;
+        }
+        if (nIndex < m_nSize)
+          System.arraycopy (aArray, nIndex, aArray, nIndex + 1, m_nSize - nIndex);
+        aArray[nIndex] = aElement;
+        break;
+      }
+    }
+    m_nSize++;
+  }
+
+  @Override
+  public ELEMENTTYPE remove (final int nIndex)
+  {
+    _checkIndex (nIndex);
+
+    modCount++;
+    final Object ret;
+    if (m_nSize == 1)
+    {
+      ret = m_aData;
+      m_aData = null;
+    }
+    else
+    {
+      final Object [] aArray = _array ();
+      ret = aArray[nIndex];
+      final int nMoved = m_nSize - nIndex - 1;
+      if (nMoved > 0)
+        System.arraycopy (aArray, nIndex + 1, aArray, nIndex, nMoved);
+      aArray[m_nSize - 1] = null;
+      if (m_nSize == 2)
+      {
+        // Switch back to inline
+        m_aData = aArray[0];
+      }
+    }
+    m_nSize--;
+    return GenericReflection.uncheckedCast (ret);
+  }
+
+  @Override
+  public void clear ()
+  {
+    modCount++;
+    m_aData = null;
+    m_nSize = 0;
+  }
+
+  /**
+   * Ensure that at least the specified number of elements can be stored
+   * without further growing of the backing array.
+   *
+   * @param nMinCapacity
+   *        The minimum capacity. Must be &ge; 0.
+   */
+  public void ensureCapacity (@Nonnegative final int nMinCapacity)
+  {
+    ValueEnforcer.isGE0 (nMinCapacity, "MinCapacity");
+    if (nMinCapacity > 1 && m_nSize > 1)
+    {
+      final Object [] aArray = _array ();
+      if (aArray.length < nMinCapacity)
+        m_aData = Arrays.copyOf (aArray, nMinCapacity);
+    }
+  }
+
+  /**
+   * Shrink the backing array to the number of contained elements, to use as
+   * little memory as possible.
+   */
+  public void trimToSize ()
+  {
+    if (m_nSize > 1)
+    {
+      final Object [] aArray = _array ();
+      if (aArray.length > m_nSize)
+        m_aData = Arrays.copyOf (aArray, m_nSize);
+    }
+  }
+
+  @Override
+  public boolean addAll (@Nonnull final Collection <? extends ELEMENTTYPE> aElements)
+  {
+    final int nCount = aElements.size ();
+    if (nCount > 1 && m_nSize > 0)
+      ensureCapacity (m_nSize + nCount);
+    return super.addAll (aElements);
+  }
+
+  @Override
+  @Nonnull
+  public Object [] toArray ()
+  {
+    switch (m_nSize)
+    {
+      case 0:
+        return ArrayHelper.EMPTY_OBJECT_ARRAY;
+      case 1:
+        return new Object [] { m_aData };
+      default:
+        return Arrays.copyOf (_array (), m_nSize);
+    }
+  }
+}
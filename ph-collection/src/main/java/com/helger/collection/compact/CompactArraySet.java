@@ -0,0 +1,310 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.compact;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsLinkedHashSet;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.lang.GenericReflection;
+
+/**
+ * A memory compact {@link ICommonsSet} implementation that is optimized for
+ * very small sets. An empty set and a set with a single element require no
+ * backing storage at all - the single element is stored inline. Up to
+ * {@link #HASH_THRESHOLD} elements are stored in a growing array and looked up
+ * linearly. Only larger sets switch to a {@link CommonsLinkedHashSet}.<br>
+ * The iteration order is the insertion order in all cases.
+ *
+ * @author Philip Helger
+ * @param <ELEMENTTYPE>
+ *        The type of the element in the set
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class CompactArraySet <ELEMENTTYPE> extends AbstractSet <ELEMENTTYPE> implements
+                             ICommonsSet <ELEMENTTYPE>,
+                             Serializable
+{
+  /** The maximum number of elements stored in a plain array */
+  public static final int HASH_THRESHOLD = 8;
+  private static final int FIRST_ARRAY_CAPACITY = 2;
+
+  /**
+   * <code>null</code> for size 0, the element itself for size 1, an
+   * <code>Object[]</code> for sizes up to {@link #HASH_THRESHOLD} and a
+   * {@link CommonsLinkedHashSet} if hashed.
+   */
+  private Object m_aData;
+  /** Only used if not hashed */
+  private int m_nSize;
+  private boolean m_bHashed;
+
+  public CompactArraySet ()
+  {}
+
+  public CompactArraySet (@Nullable final ELEMENTTYPE aElement)
+  {
+    m_aData = aElement;
+    m_nSize = 1;
+  }
+
+  public CompactArraySet (@Nullable final Collection <? extends ELEMENTTYPE> aElements)
+  {
+    if (aElements != null)
+      addAll (aElements);
+  }
+
+  @Override
+  @Nonnull
+  @ReturnsMutableCopy
+  public <T> CompactArraySet <T> createInstance ()
+  {
+    return new CompactArraySet <> ();
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public CompactArraySet <ELEMENTTYPE> getClone ()
+  {
+    final CompactArraySet <ELEMENTTYPE> ret = new CompactArraySet <> ();
+    ret.m_bHashed = m_bHashed;
+    ret.m_nSize = m_nSize;
+    if (m_bHashed)
+      ret.m_aData = _hashed ().getClone ();
+    else
+      ret.m_aData = m_nSize > 1 ? Arrays.copyOf (_array (), m_nSize) : m_aData;
+    return ret;
+  }
+
+  /**
+   * @return <code>true</code> if this set switched to a hash based storage.
+   */
+  public boolean isHashed ()
+  {
+    return m_bHashed;
+  }
+
+  @Nonnull
+  private Object [] _array ()
+  {
+    return (Object []) m_aData;
+  }
+
+  @Nonnull
+  private CommonsLinkedHashSet <ELEMENTTYPE> _hashed ()
+  {
+    return GenericReflection.uncheckedCast (m_aData);
+  }
+
+  private int _indexOf (@Nullable final Object aElement)
+  {
+    final Object [] aArray = _array ();
+    for (int i = 0; i < m_nSize; ++i)
+      if (Objects.equals (aArray[i], aElement))
+        return i;
+    return -1;
+  }
+
+  @Nonnegative
+  @Override
+  public int size ()
+  {
+    return m_bHashed ? _hashed ().size () : m_nSize;
+  }
+
+  @Override
+  public boolean isEmpty ()
+  {
+    return size () == 0;
+  }
+
+  @Override
+  public boolean contains (@Nullable final Object aElement)
+  {
+    if (m_bHashed)
+      return _hashed ().contains (aElement);
+    switch (m_nSize)
+    {
+      case 0:
+        return false;
+      case 1:
+        return Objects.equals (m_aData, aElement);
+      default:
+        return _indexOf (aElement) >= 0;
+    }
+  }
+
+  @Override
+  public boolean add (@Nullable final ELEMENTTYPE aElement)
+  {
+    if (m_bHashed)
+      return _hashed ().add (aElement);
+
+    switch (m_nSize)
+    {
+      case 0:
+        // Inline
+        m_aData = aElement;
+        break;
+      case 1:
+      {
+        if (Objects.equals (m_aData, aElement))
+          return false;
+        // Switch from inline to array
+        final Object [] aArray = new Object [FIRST_ARRAY_CAPACITY];
+        aArray[0] = m_aData;
+        aArray[1] = aElement;
+        m_aData = aArray;
+        break;
+      }
+      default:
+      {
+        if (_indexOf (aElement) >= 0)
+          return false;
+
+        Object [] aArray = _array ();
+        if (m_nSize == HASH_THRESHOLD)
+        {
+          // Switch from array to hash
+          final CommonsLinkedHashSet <ELEMENTTYPE> aSet = new CommonsLinkedHashSet <> (HASH_THRESHOLD * 2);
+          for (int i = 0; i < m_nSize; ++i)
+            aSet.add (GenericReflection.uncheckedCast (aArray[i]));
+          aSet.add (aElement);
+          m_aData = aSet;
+          m_bHashed = true;
+          m_nSize = 0;
+          return true;
+        }
+        if (m_nSize == aArray.length)
+        {
+          aArray = Arrays.copyOf (aArray, Math.min (m_nSize + (m_nSize >> 1), HASH_THRESHOLD));
+          m_aData = aArray;
+        }
+        aArray[m_nSize] = aElement;
+        break;
+      }
+    }
+    m_nSize++;
+    return true;
+  }
+
+  private void _removeAt (final int nIndex)
+  {
+    if (m_nSize == 1)
+    {
+      m_aData = null;
+    }
+    else
+    {
+      final Object [] aArray = _array ();
+      final int nMoved = m_nSize - nIndex - 1;
+      if (nMoved > 0)
+        System.arraycopy (aArray, nIndex + 1, aArray, nIndex, nMoved);
+      aArray[m_nSize - 1] = null;
+      if (m_nSize == 2)
+      {
+        // Switch back to inline
+        m_aData = aArray[0];
+      }
+    }
+    m_nSize--;
+  }
+
+  @Override
+  public boolean remove (@Nullable final Object aElement)
+  {
+    if (m_bHashed)
+      return _hashed ().remove (aElement);
+
+    switch (m_nSize)
+    {
+      case 0:
+        return false;
+      case 1:
+        if (!Objects.equals (m_aData, aElement))
+          return false;
+        _removeAt (0);
+        return true;
+      default:
+      {
+        final int nIndex = _indexOf (aElement);
+        if (nIndex < 0)
+          return false;
+        _removeAt (nIndex);
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public void clear ()
+  {
+    m_aData = null;
+    m_nSize = 0;
+    m_bHashed = false;
+  }
+
+  @Override
+  @Nonnull
+  public Iterator <ELEMENTTYPE> iterator ()
+  {
+    if (m_bHashed)
+      return _hashed ().iterator ();
+
+    return new Iterator <ELEMENTTYPE> ()
+    {
+      private int m_nNext = 0;
+      private int m_nLast = -1;
+
+      public boolean hasNext ()
+      {
+        return m_nNext < m_nSize;
+      }
+
+      public ELEMENTTYPE next ()
+      {
+        if (m_nNext >= m_nSize)
+          throw new NoSuchElementException ();
+        m_nLast = m_nNext++;
+        return GenericReflection.uncheckedCast (m_nSize == 1 ? m_aData : _array ()[m_nLast]);
+      }
+
+      @Override
+      public void remove ()
+      {
+        if (m_nLast < 0)
+          throw new IllegalStateException ();
+        _removeAt (m_nLast);
+        m_nNext = m_nLast;
+        m_nLast = -1;
+      }
+    };
+  }
+}
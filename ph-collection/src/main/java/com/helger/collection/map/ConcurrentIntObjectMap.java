@@ -0,0 +1,263 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import java.io.Serializable;
+import java.util.function.IntFunction;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.concurrent.SimpleReadWriteLock;
+import com.helger.commons.lang.GenericReflection;
+import com.helger.commons.lang.IHasSize;
+
+/**
+ * Thread-safe int-Object map. The key space is split into a fixed number of
+ * stripes, each of them being an {@link IntObjectMap} with its own read-write
+ * lock. Operations on keys of different stripes therefore don't block each
+ * other.<br>
+ * Methods spanning multiple stripes (like {@link #size()} or
+ * {@link #forEach(IntObjectMap.IConsumer)}) lock one stripe after the other
+ * and therefore don't create an atomic snapshot of the whole map.
+ *
+ * @author Philip Helger
+ * @param <T>
+ *        Element type
+ * @since 9.4.3
+ */
+@ThreadSafe
+public class ConcurrentIntObjectMap <T> implements IHasSize, Serializable
+{
+  public static final int DEFAULT_STRIPE_COUNT = 16;
+
+  private final IntObjectMap <T> [] m_aStripes;
+  private final SimpleReadWriteLock [] m_aLocks;
+  private final int m_nStripeMask;
+
+  public ConcurrentIntObjectMap ()
+  {
+    this (16);
+  }
+
+  public ConcurrentIntObjectMap (final int nSize)
+  {
+    this (nSize, 0.75f, DEFAULT_STRIPE_COUNT);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param nSize
+   *        The expected total number of elements. Must be &gt; 0.
+   * @param fFillFactor
+   *        The fill factor of each stripe. Must be between 0 and 1.
+   * @param nStripeCount
+   *        The number of stripes to use. Is rounded up to the next power of
+   *        two. Must be &gt; 0.
+   */
+  public ConcurrentIntObjectMap (final int nSize, final float fFillFactor, final int nStripeCount)
+  {
+    ValueEnforcer.isGT0 (nSize, "Size");
+    ValueEnforcer.isBetweenInclusive (nStripeCount, "StripeCount", 1, 1 << 16);
+    final int nStripes = (int) MapHelper.nextPowerOfTwo (nStripeCount);
+    final int nSizePerStripe = Math.max (1, nSize / nStripes);
+    m_aStripes = GenericReflection.uncheckedCast (new IntObjectMap <?> [nStripes]);
+    m_aLocks = new SimpleReadWriteLock [nStripes];
+    for (int i = 0; i < nStripes; ++i)
+    {
+      m_aStripes[i] = new IntObjectMap <> (nSizePerStripe, fFillFactor);
+      m_aLocks[i] = new SimpleReadWriteLock ();
+    }
+    m_nStripeMask = nStripes - 1;
+  }
+
+  /**
+   * @return The number of stripes used. Always a power of two and &gt; 0.
+   */
+  @Nonnegative
+  public int getStripeCount ()
+  {
+    return m_aStripes.length;
+  }
+
+  private int _getStripeIndex (final int key)
+  {
+    // The stripe maps use the low bits of the mixed hash, so use the high bits
+    // here to avoid clustering inside a stripe
+    return (MapHelper.phiMix (key) >>> 16) & m_nStripeMask;
+  }
+
+  @Nullable
+  public T get (final int key)
+  {
+    return get (key, null);
+  }
+
+  @Nullable
+  public T get (final int key, final T aDefault)
+  {
+    final int nStripe = _getStripeIndex (key);
+    return m_aLocks[nStripe].readLockedGet ( () -> m_aStripes[nStripe].get (key, aDefault));
+  }
+
+  public boolean containsKey (final int key)
+  {
+    final int nStripe = _getStripeIndex (key);
+    return m_aLocks[nStripe].readLockedBoolean ( () -> m_aStripes[nStripe].containsKey (key));
+  }
+
+  /**
+   * Get the value of the passed key or create it. The provider is invoked at
+   * most once per key, while holding the write lock of the respective stripe.
+   *
+   * @param key
+   *        The key to be used.
+   * @param aProvider
+   *        The value provider. May not be <code>null</code>.
+   * @return The existing or newly created value. May be <code>null</code> if
+   *         the provider returned <code>null</code>.
+   */
+  @Nullable
+  public T computeIfAbsent (final int key, @Nonnull final IntFunction <? extends T> aProvider)
+  {
+    final int nStripe = _getStripeIndex (key);
+    final IntObjectMap <T> aStripe = m_aStripes[nStripe];
+
+    // Try in read-lock first
+    final T ret = m_aLocks[nStripe].readLockedGet ( () -> aStripe.get (key));
+    if (ret != null)
+      return ret;
+
+    // computeIfAbsent re-checks inside the write lock
+    return m_aLocks[nStripe].writeLockedGet ( () -> aStripe.computeIfAbsent (key, aProvider));
+  }
+
+  @Nullable
+  public T put (final int key, final T aValue)
+  {
+    final int nStripe = _getStripeIndex (key);
+    return m_aLocks[nStripe].writeLockedGet ( () -> m_aStripes[nStripe].put (key, aValue));
+  }
+
+  @Nullable
+  public T remove (final int key)
+  {
+    final int nStripe = _getStripeIndex (key);
+    return m_aLocks[nStripe].writeLockedGet ( () -> m_aStripes[nStripe].remove (key));
+  }
+
+  @Nonnegative
+  public int size ()
+  {
+    int ret = 0;
+    for (int i = 0; i < m_aStripes.length; ++i)
+    {
+      final IntObjectMap <T> aStripe = m_aStripes[i];
+      ret += m_aLocks[i].readLockedInt (aStripe::size);
+    }
+    return ret;
+  }
+
+  public boolean isEmpty ()
+  {
+    for (int i = 0; i < m_aStripes.length; ++i)
+    {
+      final IntObjectMap <T> aStripe = m_aStripes[i];
+      if (!m_aLocks[i].readLockedBoolean (aStripe::isEmpty))
+        return false;
+    }
+    return true;
+  }
+
+  public void clear ()
+  {
+    for (int i = 0; i < m_aStripes.length; ++i)
+      m_aLocks[i].writeLocked (m_aStripes[i]::clear);
+  }
+
+  /**
+   * Put all entries of the passed map into this map.
+   *
+   * @param aOther
+   *        The map to copy from. May not be <code>null</code>.
+   */
+  public void putAll (@Nonnull final IntObjectMap <? extends T> aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    aOther.forEach (this::put);
+  }
+
+  /**
+   * Iterate all entries. Each stripe is iterated in its read lock, so the
+   * consumer must not modify this map.
+   *
+   * @param aConsumer
+   *        The consumer to be invoked. May not be <code>null</code>.
+   */
+  public void forEach (@Nonnull final IntObjectMap.IConsumer <T> aConsumer)
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    for (int i = 0; i < m_aStripes.length; ++i)
+    {
+      final IntObjectMap <T> aStripe = m_aStripes[i];
+      m_aLocks[i].readLocked ( () -> aStripe.forEach (aConsumer));
+    }
+  }
+
+  /**
+   * Remove all entries matching the passed filter. Each stripe is filtered in
+   * its write lock, so the filter must not access this map.
+   *
+   * @param aFilter
+   *        The filter to be applied. May not be <code>null</code>.
+   * @return <code>true</code> if at least one entry was removed.
+   */
+  public boolean removeIf (@Nonnull final IntObjectMap.IPredicate <? super T> aFilter)
+  {
+    ValueEnforcer.notNull (aFilter, "Filter");
+    boolean bChanged = false;
+    for (int i = 0; i < m_aStripes.length; ++i)
+    {
+      final IntObjectMap <T> aStripe = m_aStripes[i];
+      if (m_aLocks[i].writeLockedBoolean ( () -> aStripe.removeIf (aFilter)))
+        bChanged = true;
+    }
+    return bChanged;
+  }
+
+  /**
+   * @return A non thread-safe copy of all entries of this map. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public IntObjectMap <T> getAsIntObjectMap ()
+  {
+    final IntObjectMap <T> ret = new IntObjectMap <> (Math.max (1, size ()));
+    for (int i = 0; i < m_aStripes.length; ++i)
+    {
+      final IntObjectMap <T> aStripe = m_aStripes[i];
+      m_aLocks[i].readLocked ( () -> ret.putAll (aStripe));
+    }
+    return ret;
+  }
+}
@@ -26,6 +26,7 @@ import javax.annotation.concurrent.NotThreadSafe;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.lang.ICloneable;
 import com.helger.commons.lang.IHasSize;
 
 /**
@@ -36,7 +37,7 @@ import com.helger.commons.lang.IHasSize;
  * @author Philip Helger
  */
 @NotThreadSafe
-public class IntFloatMap implements IHasSize, Serializable
+public class IntFloatMap implements IHasSize, ICloneable <IntFloatMap>, Serializable
 {
   /**
    * Represents a function that accepts an key-type argument and produces a
@@ -104,6 +105,26 @@ public class IntFloatMap implements IHasSize, Serializable
     m_nThreshold = (int) (nCapacity * fFillFactor);
   }
 
+  /**
+   * Copy constructor. The backing arrays are copied in bulk without rehashing.
+   *
+   * @param aOther
+   *        The map to copy from. May not be <code>null</code>.
+   * @since 9.4.3
+   */
+  public IntFloatMap (@Nonnull final IntFloatMap aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_fFillFactor = aOther.m_fFillFactor;
+    m_nThreshold = aOther.m_nThreshold;
+    m_nSize = aOther.m_nSize;
+    m_nMask = aOther.m_nMask;
+    m_aKeys = aOther.m_aKeys.clone ();
+    m_aValues = aOther.m_aValues.clone ();
+    m_bHasFreeKey = aOther.m_bHasFreeKey;
+    m_fFreeValue = aOther.m_fFreeValue;
+  }
+
   @Nonnull
   @ReturnsMutableCopy
   private static float [] _createValueArray (@Nonnegative final int nSize)
@@ -214,6 +235,47 @@ public class IntFloatMap implements IHasSize, Serializable
     return m_nSize == 0;
   }
 
+  /**
+   * Check if the passed key is contained in this map.
+   *
+   * @param key
+   *        The key to check.
+   * @return <code>true</code> if the key is contained, <code>false</code> if
+   *         not.
+   * @since 9.4.3
+   */
+  public boolean containsKey (final int key)
+  {
+    if (key == FREE_KEY)
+      return m_bHasFreeKey;
+    return _getReadIndex (key) != -1;
+  }
+
+  /**
+   * Remove all entries from this map. The capacity is not changed.
+   *
+   * @since 9.4.3
+   */
+  public void clear ()
+  {
+    Arrays.fill (m_aKeys, FREE_KEY);
+    Arrays.fill (m_aValues, NO_VALUE);
+    m_bHasFreeKey = false;
+    m_fFreeValue = NO_VALUE;
+    m_nSize = 0;
+  }
+
+  private void _ensureCapacity (final int nExpectedSize)
+  {
+    if (nExpectedSize >= m_nThreshold)
+    {
+      // Plus one so that the last insertion does not trigger another rehash
+      final int nNewCapacity = MapHelper.arraySize (nExpectedSize + 1, m_fFillFactor);
+      if (nNewCapacity > m_aKeys.length)
+        _rehash (nNewCapacity);
+    }
+  }
+
   private void _rehash (final int nNewCapacity)
   {
     m_nThreshold = (int) (nNewCapacity * m_fFillFactor);
@@ -352,4 +414,91 @@ public class IntFloatMap implements IHasSize, Serializable
       }
     }
   }
+
+  public static interface IPredicate
+  {
+    boolean test (int nKey, float fValue);
+  }
+
+  /**
+   * Remove all entries matching the passed filter. No boxing is performed and
+   * no temporary objects are created.
+   *
+   * @param aFilter
+   *        The filter to be applied. May not be <code>null</code>.
+   * @return <code>true</code> if at least one entry was removed,
+   *         <code>false</code> otherwise.
+   * @since 9.4.3
+   */
+  public boolean removeIf (@Nonnull final IPredicate aFilter)
+  {
+    ValueEnforcer.notNull (aFilter, "Filter");
+
+    final int nOldSize = m_nSize;
+    if (m_bHasFreeKey && aFilter.test (FREE_KEY, m_fFreeValue))
+    {
+      m_bHasFreeKey = false;
+      m_fFreeValue = NO_VALUE;
+      --m_nSize;
+    }
+
+    // Start right after a free cell. As no chain spans a free cell, the key
+    // shifting after a removal only moves cells that were not yet visited.
+    final int [] aKeys = m_aKeys;
+    final int nCapacity = aKeys.length;
+    int nStart = 0;
+    while (aKeys[nStart] != FREE_KEY)
+      nStart++;
+
+    int nVisited = 0;
+    while (nVisited < nCapacity)
+    {
+      final int idx = (nStart + 1 + nVisited) & m_nMask;
+      final int nKey = aKeys[idx];
+      if (nKey != FREE_KEY && aFilter.test (nKey, m_aValues[idx]))
+      {
+        // The cell may now contain a shifted entry - check it again
+        _shiftKeys (idx);
+        --m_nSize;
+      }
+      else
+        ++nVisited;
+    }
+    return m_nSize != nOldSize;
+  }
+
+  /**
+   * Put all entries of the passed map into this map. The capacity is ensured
+   * upfront, so that at most one rehash takes place.
+   *
+   * @param aOther
+   *        The map to copy from. May not be <code>null</code>.
+   * @since 9.4.3
+   */
+  public void putAll (@Nonnull final IntFloatMap aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    if (aOther.m_nSize == 0)
+      return;
+
+    _ensureCapacity (m_nSize + aOther.m_nSize);
+    if (aOther.m_bHasFreeKey)
+      put (FREE_KEY, aOther.m_fFreeValue);
+    final int [] aOtherKeys = aOther.m_aKeys;
+    final float [] aOtherValues = aOther.m_aValues;
+    final int nLen = aOtherKeys.length;
+    for (int i = 0; i < nLen; ++i)
+    {
+      final int nKey = aOtherKeys[i];
+      if (nKey != FREE_KEY)
+        put (nKey, aOtherValues[i]);
+    }
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public IntFloatMap getClone ()
+  {
+    return new IntFloatMap (this);
+  }
 }
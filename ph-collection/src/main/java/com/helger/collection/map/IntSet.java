@@ -18,10 +18,14 @@ package com.helger.collection.map;
 
 import java.io.Serializable;
 import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.NotThreadSafe;
 
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.lang.ICloneable;
 import com.helger.commons.lang.IHasSize;
 
 /**
@@ -31,7 +35,7 @@ import com.helger.commons.lang.IHasSize;
  * @since 9.0.0
  */
 @NotThreadSafe
-public class IntSet implements IHasSize, Serializable
+public class IntSet implements IHasSize, ICloneable <IntSet>, Serializable
 {
   private final IntObjectMap <Boolean> m_aMap;
 
@@ -50,6 +54,19 @@ public class IntSet implements IHasSize, Serializable
     m_aMap = new IntObjectMap <> (nSize, fFillFactor);
   }
 
+  /**
+   * Copy constructor.
+   *
+   * @param aOther
+   *        The set to copy from. May not be <code>null</code>.
+   * @since 9.4.3
+   */
+  public IntSet (@Nonnull final IntSet aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_aMap = aOther.m_aMap.getClone ();
+  }
+
   public int size ()
   {
     return m_aMap.size ();
@@ -70,8 +87,60 @@ public class IntSet implements IHasSize, Serializable
     return m_aMap.put (key, Boolean.TRUE) == null;
   }
 
+  /**
+   * @param aOther
+   *        The set to add all elements from. May not be <code>null</code>.
+   * @since 9.4.3
+   */
+  public void addAll (@Nonnull final IntSet aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_aMap.putAll (aOther.m_aMap);
+  }
+
+  /**
+   * @param key
+   *        The key to remove
+   * @return <code>true</code> if the key was contained and was removed,
+   *         <code>false</code> if the key was not contained.
+   * @since 9.4.3
+   */
+  public boolean remove (final int key)
+  {
+    return m_aMap.remove (key) != null;
+  }
+
+  /**
+   * @param aFilter
+   *        The filter to be applied. May not be <code>null</code>.
+   * @return <code>true</code> if at least one element was removed.
+   * @since 9.4.3
+   */
+  public boolean removeIf (@Nonnull final IntPredicate aFilter)
+  {
+    ValueEnforcer.notNull (aFilter, "Filter");
+    return m_aMap.removeIf ( (k, v) -> aFilter.test (k));
+  }
+
+  /**
+   * Remove all elements.
+   *
+   * @since 9.4.3
+   */
+  public void clear ()
+  {
+    m_aMap.clear ();
+  }
+
   public void forEach (@Nonnull final IntConsumer aConsumer)
   {
     m_aMap.forEach ( (k, v) -> aConsumer.accept (k));
   }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public IntSet getClone ()
+  {
+    return new IntSet (this);
+  }
 }
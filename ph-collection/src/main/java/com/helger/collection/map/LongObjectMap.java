@@ -0,0 +1,498 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.equals.EqualsHelper;
+import com.helger.commons.lang.GenericReflection;
+import com.helger.commons.lang.ICloneable;
+import com.helger.commons.lang.IHasSize;
+
+/**
+ * Special long-Object map. Based on: https://github.com/mikvor/hashmapTest
+ *
+ * @author Mikhail Vorontsov
+ * @author Philip Helger
+ * @param <T>
+ *        Element type
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class LongObjectMap <T> implements IHasSize, ICloneable <LongObjectMap <T>>, Serializable
+{
+  private static final long FREE_KEY = 0;
+
+  public static final Object NO_VALUE = new Object ();
+
+  private final T m_aNoValue = GenericReflection.uncheckedCast (NO_VALUE);
+
+  /** Keys */
+  private long [] m_aKeys;
+  /** Values */
+  private T [] m_aValues;
+
+  /** Do we have 'free' key in the map? */
+  private boolean m_bHasFreeKey;
+  /** Value of 'free' key */
+  private T m_aFreeValue = m_aNoValue;
+
+  /** Fill factor, must be between (0 and 1) */
+  private final float m_fFillFactor;
+  /** We will resize a map once it reaches this size */
+  private int m_nThreshold;
+  /** Current map size */
+  private int m_nSize;
+  /** Mask to calculate the original position */
+  private int m_nMask;
+
+  public LongObjectMap ()
+  {
+    this (16);
+  }
+
+  public LongObjectMap (final int nSize)
+  {
+    this (nSize, 0.75f);
+  }
+
+  public LongObjectMap (final int nSize, final float fFillFactor)
+  {
+    ValueEnforcer.isBetweenInclusive (fFillFactor, "FillFactor", 0f, 1f);
+    ValueEnforcer.isGT0 (nSize, "Size");
+    final int nCapacity = MapHelper.arraySize (nSize, fFillFactor);
+    m_nMask = nCapacity - 1;
+    m_fFillFactor = fFillFactor;
+
+    m_aKeys = new long [nCapacity];
+    m_aValues = _createValueArray (nCapacity);
+    m_nThreshold = (int) (nCapacity * fFillFactor);
+  }
+
+  /**
+   * Copy constructor. The backing arrays are copied in bulk without rehashing.
+   *
+   * @param aOther
+   *        The map to copy from. May not be <code>null</code>.
+   */
+  public LongObjectMap (@Nonnull final LongObjectMap <T> aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_fFillFactor = aOther.m_fFillFactor;
+    m_nThreshold = aOther.m_nThreshold;
+    m_nSize = aOther.m_nSize;
+    m_nMask = aOther.m_nMask;
+    m_aKeys = aOther.m_aKeys.clone ();
+    m_aValues = aOther.m_aValues.clone ();
+    m_bHasFreeKey = aOther.m_bHasFreeKey;
+    m_aFreeValue = aOther.m_aFreeValue;
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  private static <T> T [] _createValueArray (@Nonnegative final int nSize)
+  {
+    final Object [] ret = new Object [nSize];
+    Arrays.fill (ret, NO_VALUE);
+    return GenericReflection.uncheckedCast (ret);
+  }
+
+  @Nullable
+  public T get (final long key)
+  {
+    return get (key, null);
+  }
+
+  @Nullable
+  public T get (final long key, final T aDefault)
+  {
+    if (key == FREE_KEY)
+      return m_bHasFreeKey ? m_aFreeValue : aDefault;
+
+    final int idx = _getReadIndex (key);
+    return idx != -1 ? m_aValues[idx] : aDefault;
+  }
+
+  @Nullable
+  public T computeIfAbsent (final long key, @Nonnull final LongFunction <? extends T> aProvider)
+  {
+    T ret = get (key);
+    if (ret == null)
+    {
+      ret = aProvider.apply (key);
+      if (ret != null)
+        put (key, ret);
+    }
+    return ret;
+  }
+
+  @Nullable
+  private T _getOld (final T aValue)
+  {
+    return EqualsHelper.identityEqual (aValue, m_aNoValue) ? null : aValue;
+  }
+
+  @Nullable
+  public T put (final long key, final T value)
+  {
+    if (key == FREE_KEY)
+    {
+      final T ret = m_aFreeValue;
+      if (!m_bHasFreeKey)
+      {
+        ++m_nSize;
+        m_bHasFreeKey = true;
+      }
+      m_aFreeValue = value;
+      return _getOld (ret);
+    }
+
+    int idx = _getPutIndex (key);
+    if (idx < 0)
+    {
+      // no insertion point? Should not happen...
+      _rehash (m_aKeys.length * 2);
+      idx = _getPutIndex (key);
+    }
+    final T prev = m_aValues[idx];
+    if (m_aKeys[idx] != key)
+    {
+      m_aKeys[idx] = key;
+      m_aValues[idx] = value;
+      ++m_nSize;
+      if (m_nSize >= m_nThreshold)
+        _rehash (m_aKeys.length * 2);
+    }
+    else
+    {
+      // it means used cell with our key
+      if (m_aKeys[idx] != key)
+        throw new IllegalStateException ();
+      m_aValues[idx] = value;
+    }
+    return _getOld (prev);
+  }
+
+  @Nullable
+  public T remove (final long key)
+  {
+    if (key == FREE_KEY)
+    {
+      if (!m_bHasFreeKey)
+        return null;
+
+      m_bHasFreeKey = false;
+      final T ret = m_aFreeValue;
+      m_aFreeValue = m_aNoValue;
+      --m_nSize;
+      return _getOld (ret);
+    }
+
+    final int idx = _getReadIndex (key);
+    if (idx == -1)
+      return null;
+
+    final T res = m_aValues[idx];
+    m_aValues[idx] = m_aNoValue;
+    _shiftKeys (idx);
+    --m_nSize;
+    return _getOld (res);
+  }
+
+  @Nonnegative
+  public int size ()
+  {
+    return m_nSize;
+  }
+
+  public boolean isEmpty ()
+  {
+    return m_nSize == 0;
+  }
+
+  /**
+   * Check if the passed key is contained in this map.
+   *
+   * @param key
+   *        The key to check.
+   * @return <code>true</code> if the key is contained, <code>false</code> if
+   *         not.
+   */
+  public boolean containsKey (final long key)
+  {
+    if (key == FREE_KEY)
+      return m_bHasFreeKey;
+    return _getReadIndex (key) != -1;
+  }
+
+  /**
+   * Remove all entries from this map. The capacity is not changed.
+   */
+  public void clear ()
+  {
+    Arrays.fill (m_aKeys, FREE_KEY);
+    Arrays.fill (m_aValues, m_aNoValue);
+    m_bHasFreeKey = false;
+    m_aFreeValue = m_aNoValue;
+    m_nSize = 0;
+  }
+
+  private void _ensureCapacity (final int nExpectedSize)
+  {
+    if (nExpectedSize >= m_nThreshold)
+    {
+      // Plus one so that the last insertion does not trigger another rehash
+      final int nNewCapacity = MapHelper.arraySize (nExpectedSize + 1, m_fFillFactor);
+      if (nNewCapacity > m_aKeys.length)
+        _rehash (nNewCapacity);
+    }
+  }
+
+  private void _rehash (final int nNewCapacity)
+  {
+    m_nThreshold = (int) (nNewCapacity * m_fFillFactor);
+    m_nMask = nNewCapacity - 1;
+
+    final int nOldCapacity = m_aKeys.length;
+    final long [] aOldKeys = m_aKeys;
+    final T [] aOldValues = m_aValues;
+
+    m_aKeys = new long [nNewCapacity];
+    m_aValues = _createValueArray (nNewCapacity);
+    m_nSize = m_bHasFreeKey ? 1 : 0;
+
+    int i = nOldCapacity;
+    while (i > 0)
+    {
+      i--;
+      if (aOldKeys[i] != FREE_KEY)
+        put (aOldKeys[i], aOldValues[i]);
+    }
+  }
+
+  private int _getNextIndex (final int currentIndex)
+  {
+    return (currentIndex + 1) & m_nMask;
+  }
+
+  private int _shiftKeys (final int nPos)
+  {
+    // Shift entries with the same hash.
+    int pos = nPos;
+    final long [] keys = m_aKeys;
+    while (true)
+    {
+      final int last = pos;
+      pos = _getNextIndex (pos);
+      long k;
+      while (true)
+      {
+        k = keys[pos];
+        if (k == FREE_KEY)
+        {
+          keys[last] = FREE_KEY;
+          m_aValues[last] = m_aNoValue;
+          return last;
+        }
+        // calculate the starting slot for the current key
+        final int slot = MapHelper.phiMix (k) & m_nMask;
+        if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+          break;
+        pos = _getNextIndex (pos);
+      }
+      keys[last] = k;
+      m_aValues[last] = m_aValues[pos];
+    }
+  }
+
+  /**
+   * Find key position in the map.
+   *
+   * @param key
+   *        Key to look for
+   * @return Key position or -1 if not found
+   */
+  @CheckForSigned
+  private int _getReadIndex (final long key)
+  {
+    int idx = MapHelper.phiMix (key) & m_nMask;
+    if (m_aKeys[idx] == key)
+    {
+      // we check FREE prior to this call
+      return idx;
+    }
+    if (m_aKeys[idx] == FREE_KEY)
+    {
+      // end of chain already
+      return -1;
+    }
+    final int startIdx = idx;
+    while ((idx = _getNextIndex (idx)) != startIdx)
+    {
+      if (m_aKeys[idx] == FREE_KEY)
+        return -1;
+      if (m_aKeys[idx] == key)
+        return idx;
+    }
+    return -1;
+  }
+
+  /**
+   * Find an index of a cell which should be updated by 'put' operation. It can
+   * be: 1) a cell with a given key 2) first free cell in the chain
+   *
+   * @param key
+   *        Key to look for
+   * @return Index of a cell to be updated by a 'put' operation
+   */
+  @CheckForSigned
+  private int _getPutIndex (final long key)
+  {
+    final int readIdx = _getReadIndex (key);
+    if (readIdx >= 0)
+      return readIdx;
+    // key not found, find insertion point
+    final int startIdx = MapHelper.phiMix (key) & m_nMask;
+    if (m_aKeys[startIdx] == FREE_KEY)
+      return startIdx;
+    int idx = startIdx;
+    while (m_aKeys[idx] != FREE_KEY)
+    {
+      idx = _getNextIndex (idx);
+      if (idx == startIdx)
+        return -1;
+    }
+    return idx;
+  }
+
+  public static interface IConsumer <T>
+  {
+    void accept (long nKey, T aValue);
+  }
+
+  public void forEach (@Nonnull final IConsumer <T> aConsumer)
+  {
+    if (m_bHasFreeKey)
+      aConsumer.accept (FREE_KEY, m_aFreeValue);
+    final int nLen = m_aKeys.length;
+    for (int i = 0; i < nLen; ++i)
+    {
+      final long nKey = m_aKeys[i];
+      if (nKey != FREE_KEY)
+      {
+        final T aValue = m_aValues[i];
+        if (!EqualsHelper.identityEqual (aValue, m_aNoValue))
+          aConsumer.accept (nKey, aValue);
+      }
+    }
+  }
+
+  public static interface IPredicate <T>
+  {
+    boolean test (long nKey, T aValue);
+  }
+
+  /**
+   * Remove all entries matching the passed filter. No boxing is performed and
+   * no temporary objects are created.
+   *
+   * @param aFilter
+   *        The filter to be applied. May not be <code>null</code>.
+   * @return <code>true</code> if at least one entry was removed,
+   *         <code>false</code> otherwise.
+   */
+  public boolean removeIf (@Nonnull final IPredicate <? super T> aFilter)
+  {
+    ValueEnforcer.notNull (aFilter, "Filter");
+
+    final int nOldSize = m_nSize;
+    if (m_bHasFreeKey && aFilter.test (FREE_KEY, m_aFreeValue))
+    {
+      m_bHasFreeKey = false;
+      m_aFreeValue = m_aNoValue;
+      --m_nSize;
+    }
+
+    // Start right after a free cell. As no chain spans a free cell, the key
+    // shifting after a removal only moves cells that were not yet visited.
+    final long [] aKeys = m_aKeys;
+    final int nCapacity = aKeys.length;
+    int nStart = 0;
+    while (aKeys[nStart] != FREE_KEY)
+      nStart++;
+
+    int nVisited = 0;
+    while (nVisited < nCapacity)
+    {
+      final int idx = (nStart + 1 + nVisited) & m_nMask;
+      final long nKey = aKeys[idx];
+      if (nKey != FREE_KEY && aFilter.test (nKey, m_aValues[idx]))
+      {
+        // The cell may now contain a shifted entry - check it again
+        _shiftKeys (idx);
+        --m_nSize;
+      }
+      else
+        ++nVisited;
+    }
+    return m_nSize != nOldSize;
+  }
+
+  /**
+   * Put all entries of the passed map into this map. The capacity is ensured
+   * upfront, so that at most one rehash takes place.
+   *
+   * @param aOther
+   *        The map to copy from. May not be <code>null</code>.
+   */
+  public void putAll (@Nonnull final LongObjectMap <? extends T> aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    if (aOther.m_nSize == 0)
+      return;
+
+    _ensureCapacity (m_nSize + aOther.m_nSize);
+    if (aOther.m_bHasFreeKey)
+      put (FREE_KEY, aOther.m_aFreeValue);
+    final long [] aOtherKeys = aOther.m_aKeys;
+    final T [] aOtherValues = aOther.m_aValues;
+    final int nLen = aOtherKeys.length;
+    for (int i = 0; i < nLen; ++i)
+    {
+      final long nKey = aOtherKeys[i];
+      if (nKey != FREE_KEY)
+        put (nKey, aOtherValues[i]);
+    }
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public LongObjectMap <T> getClone ()
+  {
+    return new LongObjectMap <> (this);
+  }
+}
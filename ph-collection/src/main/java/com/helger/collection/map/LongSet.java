@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import java.io.Serializable;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.lang.ICloneable;
+import com.helger.commons.lang.IHasSize;
+
+/**
+ * Special long-Set. Uses {@link LongObjectMap} internally.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class LongSet implements IHasSize, ICloneable <LongSet>, Serializable
+{
+  private final LongObjectMap <Boolean> m_aMap;
+
+  public LongSet ()
+  {
+    this (16);
+  }
+
+  public LongSet (final int nSize)
+  {
+    this (nSize, 0.75f);
+  }
+
+  public LongSet (final int nSize, final float fFillFactor)
+  {
+    m_aMap = new LongObjectMap <> (nSize, fFillFactor);
+  }
+
+  /**
+   * Copy constructor.
+   *
+   * @param aOther
+   *        The set to copy from. May not be <code>null</code>.
+   */
+  public LongSet (@Nonnull final LongSet aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_aMap = aOther.m_aMap.getClone ();
+  }
+
+  public int size ()
+  {
+    return m_aMap.size ();
+  }
+
+  public boolean isEmpty ()
+  {
+    return m_aMap.isEmpty ();
+  }
+
+  public boolean contains (final long key)
+  {
+    return m_aMap.get (key) != null;
+  }
+
+  public boolean add (final long key)
+  {
+    return m_aMap.put (key, Boolean.TRUE) == null;
+  }
+
+  /**
+   * @param aOther
+   *        The set to add all elements from. May not be <code>null</code>.
+   */
+  public void addAll (@Nonnull final LongSet aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_aMap.putAll (aOther.m_aMap);
+  }
+
+  /**
+   * @param key
+   *        The key to remove
+   * @return <code>true</code> if the key was contained and was removed,
+   *         <code>false</code> if the key was not contained.
+   */
+  public boolean remove (final long key)
+  {
+    return m_aMap.remove (key) != null;
+  }
+
+  /**
+   * @param aFilter
+   *        The filter to be applied. May not be <code>null</code>.
+   * @return <code>true</code> if at least one element was removed.
+   */
+  public boolean removeIf (@Nonnull final LongPredicate aFilter)
+  {
+    ValueEnforcer.notNull (aFilter, "Filter");
+    return m_aMap.removeIf ( (k, v) -> aFilter.test (k));
+  }
+
+  /**
+   * Remove all elements.
+   */
+  public void clear ()
+  {
+    m_aMap.clear ();
+  }
+
+  public void forEach (@Nonnull final LongConsumer aConsumer)
+  {
+    m_aMap.forEach ( (k, v) -> aConsumer.accept (k));
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public LongSet getClone ()
+  {
+    return new LongSet (this);
+  }
+}
@@ -87,4 +87,14 @@ final class MapHelper
     final int h = n * INT_PHI;
     return h ^ (h >> 16);
   }
+
+  // taken from FastUtil
+  private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+  public static int phiMix (final long n)
+  {
+    long h = n * LONG_PHI;
+    h ^= h >>> 32;
+    return (int) (h ^ (h >>> 16));
+  }
 }
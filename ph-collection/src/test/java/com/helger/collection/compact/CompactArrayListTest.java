@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.compact;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+
+/**
+ * Test class for class {@link CompactArrayList}.
+ *
+ * @author Philip Helger
+ */
+public final class CompactArrayListTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final CompactArrayList <String> aList = new CompactArrayList <> ();
+    assertTrue (aList.isEmpty ());
+    assertEquals (0, aList.toArray ().length);
+
+    assertTrue (aList.add ("a"));
+    assertEquals (1, aList.size ());
+    assertEquals ("a", aList.get (0));
+    assertArrayEquals (new Object [] { "a" }, aList.toArray ());
+
+    aList.add (0, "b");
+    assertEquals (new CommonsArrayList <> ("b", "a"), aList);
+    aList.add (1, "c");
+    aList.add ("d");
+    aList.add (null);
+    assertEquals (new CommonsArrayList <> ("b", "c", "a", "d", null), aList);
+    assertEquals (4, aList.indexOf (null));
+
+    assertEquals ("c", aList.set (1, "x"));
+    assertEquals ("x", aList.remove (1));
+    assertNull (aList.remove (3));
+    assertEquals (new CommonsArrayList <> ("b", "a", "d"), aList);
+    assertTrue (aList.remove ("d"));
+    assertFalse (aList.remove ("d"));
+    assertEquals ("b", aList.remove (0));
+    assertEquals (1, aList.size ());
+    assertEquals ("a", aList.get (0));
+    assertEquals ("a", aList.set (0, "z"));
+    assertEquals ("z", aList.getFirst ());
+    aList.clear ();
+    assertTrue (aList.isEmpty ());
+  }
+
+  @Test
+  public void testManyAndIterator ()
+  {
+    final CompactArrayList <Integer> aList = new CompactArrayList <> ();
+    for (int i = 0; i < 1000; ++i)
+      aList.add (Integer.valueOf (i));
+    assertEquals (1000, aList.size ());
+    for (int i = 0; i < 1000; ++i)
+      assertEquals (i, aList.get (i).intValue ());
+
+    final Iterator <Integer> it = aList.iterator ();
+    while (it.hasNext ())
+      if ((it.next ().intValue () & 1) != 0)
+        it.remove ();
+    assertEquals (500, aList.size ());
+    aList.trimToSize ();
+    assertEquals (998, aList.getLast ().intValue ());
+
+    aList.removeIf (x -> x.intValue () > 0);
+    assertEquals (1, aList.size ());
+    assertEquals (0, aList.getFirst ().intValue ());
+  }
+
+  @Test
+  public void testCloneAndEquals ()
+  {
+    final CompactArrayList <String> aList = new CompactArrayList <> (new CommonsArrayList <> ("a", "b", "c"));
+    final ICommonsList <String> aClone = aList.getClone ();
+    assertEquals (aList, aClone);
+    assertEquals (aList.hashCode (), aClone.hashCode ());
+    aClone.add ("d");
+    assertEquals (3, aList.size ());
+    assertEquals (new CommonsArrayList <> ("a", "b", "c"), aList);
+
+    assertEquals (new CompactArrayList <> ("x"), new CommonsArrayList <> ("x"));
+  }
+
+  @Test (expected = IndexOutOfBoundsException.class)
+  public void testInvalidIndex ()
+  {
+    new CompactArrayList <> ("a").get (1);
+  }
+}
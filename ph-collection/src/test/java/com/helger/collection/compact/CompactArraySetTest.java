@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.compact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsSet;
+
+/**
+ * Test class for class {@link CompactArraySet}.
+ *
+ * @author Philip Helger
+ */
+public final class CompactArraySetTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final CompactArraySet <String> aSet = new CompactArraySet <> ();
+    assertTrue (aSet.isEmpty ());
+    assertFalse (aSet.contains ("a"));
+
+    assertTrue (aSet.add ("a"));
+    assertFalse (aSet.add ("a"));
+    assertEquals (1, aSet.size ());
+    assertTrue (aSet.contains ("a"));
+
+    assertTrue (aSet.add ("b"));
+    assertTrue (aSet.add (null));
+    assertFalse (aSet.add (null));
+    assertEquals (3, aSet.size ());
+    assertTrue (aSet.contains (null));
+    assertEquals (new CommonsHashSet <> ("a", "b", null), aSet);
+    assertEquals (new CommonsArrayList <> ("a", "b", null), new CommonsArrayList <> (aSet));
+
+    assertTrue (aSet.remove ("a"));
+    assertFalse (aSet.remove ("a"));
+    assertTrue (aSet.remove (null));
+    assertEquals (1, aSet.size ());
+    assertTrue (aSet.contains ("b"));
+    assertTrue (aSet.remove ("b"));
+    assertTrue (aSet.isEmpty ());
+  }
+
+  @Test
+  public void testHashed ()
+  {
+    final CompactArraySet <Integer> aSet = new CompactArraySet <> ();
+    for (int i = 0; i < CompactArraySet.HASH_THRESHOLD; ++i)
+      assertTrue (aSet.add (Integer.valueOf (i)));
+    assertFalse (aSet.isHashed ());
+    assertTrue (aSet.add (Integer.valueOf (-1)));
+    assertTrue (aSet.isHashed ());
+    assertFalse (aSet.add (Integer.valueOf (3)));
+    assertEquals (CompactArraySet.HASH_THRESHOLD + 1, aSet.size ());
+
+    // Insertion order is kept
+    final Iterator <Integer> it = aSet.iterator ();
+    for (int i = 0; i < CompactArraySet.HASH_THRESHOLD; ++i)
+      assertEquals (i, it.next ().intValue ());
+    assertEquals (-1, it.next ().intValue ());
+    assertFalse (it.hasNext ());
+
+    final ICommonsSet <Integer> aClone = aSet.getClone ();
+    assertEquals (aSet, aClone);
+    aSet.removeIf (x -> x.intValue () != 5);
+    assertEquals (1, aSet.size ());
+    assertEquals (CompactArraySet.HASH_THRESHOLD + 1, aClone.size ());
+
+    aSet.clear ();
+    assertFalse (aSet.isHashed ());
+    assertTrue (aSet.isEmpty ());
+  }
+
+  @Test
+  public void testIteratorRemove ()
+  {
+    final CompactArraySet <String> aSet = new CompactArraySet <> (new CommonsArrayList <> ("a", "b", "c", "d"));
+    final Iterator <String> it = aSet.iterator ();
+    while (it.hasNext ())
+      if (!it.next ().equals ("c"))
+        it.remove ();
+    assertEquals (1, aSet.size ());
+    assertTrue (aSet.contains ("c"));
+
+    final Iterator <String> it2 = aSet.iterator ();
+    assertEquals ("c", it2.next ());
+    it2.remove ();
+    assertFalse (it2.hasNext ());
+    assertTrue (aSet.isEmpty ());
+  }
+
+  @Test
+  public void testElementEquality ()
+  {
+    // Elements are compared with equals, like in a HashSet
+    final CompactArraySet <BigDecimal> aSet = new CompactArraySet <> ();
+    assertTrue (aSet.add (new BigDecimal ("1.0")));
+    assertTrue (aSet.add (new BigDecimal ("1.00")));
+    assertEquals (2, aSet.size ());
+    assertEquals (new CommonsHashSet <> (new BigDecimal ("1.0"), new BigDecimal ("1.00")), aSet);
+    assertTrue (aSet.remove (new BigDecimal ("1.00")));
+    assertFalse (aSet.contains (new BigDecimal ("1.00")));
+    assertTrue (aSet.contains (new BigDecimal ("1.0")));
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+
+/**
+ * Test class for class {@link ConcurrentIntObjectMap}.
+ *
+ * @author Philip Helger
+ */
+public final class ConcurrentIntObjectMapTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final ConcurrentIntObjectMap <String> map = new ConcurrentIntObjectMap <> ();
+    assertEquals (16, map.getStripeCount ());
+    assertTrue (map.isEmpty ());
+    assertNull (map.put (0, "0"));
+    assertNull (map.put (-1, "-1"));
+    assertNull (map.put (4711, "4711"));
+    assertEquals ("4711", map.put (4711, "x"));
+    assertEquals (3, map.size ());
+    assertTrue (map.containsKey (0));
+    assertEquals ("x", map.get (4711));
+    assertEquals ("def", map.get (4712, "def"));
+    assertEquals ("-1", map.remove (-1));
+    assertNull (map.remove (-1));
+    assertEquals (2, map.size ());
+
+    final IntObjectMap <String> aCopy = map.getAsIntObjectMap ();
+    assertEquals (2, aCopy.size ());
+    assertEquals ("0", aCopy.get (0));
+
+    assertTrue (map.removeIf ( (k, v) -> k == 0));
+    assertFalse (map.removeIf ( (k, v) -> k == 0));
+    assertEquals (1, map.size ());
+
+    map.clear ();
+    assertTrue (map.isEmpty ());
+
+    assertEquals (1, new ConcurrentIntObjectMap <> (10, 0.75f, 1).getStripeCount ());
+    assertEquals (8, new ConcurrentIntObjectMap <> (10, 0.75f, 5).getStripeCount ());
+  }
+
+  @Test
+  public void testConcurrentComputeIfAbsent ()
+  {
+    final int nThreads = 8;
+    final int nKeys = 10_000;
+    final ConcurrentIntObjectMap <Object> map = new ConcurrentIntObjectMap <> ();
+    final AtomicInteger aCreated = new AtomicInteger ();
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    for (int t = 0; t < nThreads; ++t)
+      aES.submit ( () -> {
+        for (int i = 0; i < nKeys; ++i)
+          map.computeIfAbsent (i, k -> {
+            aCreated.incrementAndGet ();
+            return new Object ();
+          });
+      });
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+
+    // Each value must be created exactly once
+    assertEquals (nKeys, aCreated.get ());
+    assertEquals (nKeys, map.size ());
+    final Object o = map.get (17);
+    assertSame (o, map.computeIfAbsent (17, k -> new Object ()));
+  }
+}
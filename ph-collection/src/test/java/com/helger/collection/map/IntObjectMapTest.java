@@ -17,6 +17,7 @@
 package com.helger.collection.map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -172,4 +173,62 @@ public final class IntObjectMapTest
     for (final float ff : FILL_FACTORS)
       _testForEachHelper (ff);
   }
+
+  private void _testRemoveIfHelper (final float fillFactor)
+  {
+    final IntObjectMap <String> map = _makeMap (100, fillFactor);
+    for (int i = -5000; i < 5000; ++i)
+      assertNull (map.put (i, _make (i)));
+    assertEquals (10000, map.size ());
+
+    // Remove all odd keys
+    assertTrue (map.removeIf ( (k, v) -> (k & 1) != 0));
+    assertEquals (5000, map.size ());
+    assertFalse (map.removeIf ( (k, v) -> (k & 1) != 0));
+    for (int i = -5000; i < 5000; ++i)
+      if ((i & 1) != 0)
+        assertFalse (map.containsKey (i));
+      else
+        assertEquals (_make (i), map.get (i));
+
+    // Remove everything
+    assertTrue (map.removeIf ( (k, v) -> true));
+    assertEquals (0, map.size ());
+    assertTrue (map.isEmpty ());
+    assertFalse (map.containsKey (0));
+  }
+
+  @Test
+  public void testRemoveIf ()
+  {
+    for (final float ff : FILL_FACTORS)
+      _testRemoveIfHelper (ff);
+  }
+
+  @Test
+  public void testPutAllAndClone ()
+  {
+    final IntObjectMap <String> map = _makeMap (10, 0.75f);
+    for (int i = 0; i < 1000; ++i)
+      map.put (i, _make (i));
+
+    final IntObjectMap <String> map2 = _makeMap (10, 0.75f);
+    map2.put (-1, _make (-1));
+    map2.putAll (map);
+    assertEquals (1001, map2.size ());
+    for (int i = -1; i < 1000; ++i)
+      assertEquals (_make (i), map2.get (i));
+
+    final IntObjectMap <String> aClone = map2.getClone ();
+    assertEquals (1001, aClone.size ());
+    aClone.remove (0);
+    assertEquals (1000, aClone.size ());
+    assertNull (aClone.get (0));
+    assertEquals (_make (0), map2.get (0));
+
+    aClone.clear ();
+    assertTrue (aClone.isEmpty ());
+    assertNull (aClone.get (5));
+    assertEquals (1001, map2.size ());
+  }
 }
@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsSet;
+
+public final class LongLongMapTest
+{
+  private static final float [] FILL_FACTORS = { 0.25f, 0.5f, 0.75f, 0.9f, 0.99f };
+
+  private static LongLongMap _makeMap (final int size, final float fillFactor)
+  {
+    return new LongLongMap (size, fillFactor);
+  }
+
+  @Test
+  public void testPut ()
+  {
+    for (final float ff : FILL_FACTORS)
+      _testPutHelper (ff);
+  }
+
+  private void _testPutHelper (final float fillFactor)
+  {
+    final LongLongMap map = _makeMap (100, fillFactor);
+    for (int i = 0; i < 100000; ++i)
+    {
+      assertEquals (0, map.put (i, i));
+      assertEquals (i + 1, map.size ());
+      assertEquals (i, map.get (i));
+    }
+    // now check the final state
+    for (int i = 0; i < 100000; ++i)
+      assertEquals (i, map.get (i));
+  }
+
+  @Test
+  public void testPutNegative ()
+  {
+    for (final float ff : FILL_FACTORS)
+      _testPutNegative (ff);
+  }
+
+  private void _testPutNegative (final float fillFactor)
+  {
+    final LongLongMap map = _makeMap (100, fillFactor);
+    for (int i = 0; i < 100000; ++i)
+    {
+      map.put (-i, -i);
+      assertEquals (i + 1, map.size ());
+      assertEquals (-i, map.get (-i));
+    }
+    // now check the final state
+    for (int i = 0; i < 100000; ++i)
+      assertEquals (-i, map.get (-i));
+  }
+
+  @Test
+  public void testPutRandom ()
+  {
+    for (final float ff : FILL_FACTORS)
+      _testPutRandom (ff);
+  }
+
+  private void _testPutRandom (final float fillFactor)
+  {
+    final Random aRandom = new Random ();
+    final int SIZE = 100 * 1000;
+    final ICommonsSet <Long> set = new CommonsHashSet <> (SIZE);
+    final long [] vals = new long [SIZE];
+    while (set.size () < SIZE)
+      set.add (Long.valueOf (aRandom.nextLong ()));
+    int i = 0;
+    for (final Long v : set)
+      vals[i++] = v.longValue ();
+
+    final LongLongMap map = _makeMap (100, fillFactor);
+    for (i = 0; i < vals.length; ++i)
+    {
+      assertEquals (0, map.put (vals[i], vals[i]));
+      assertEquals (i + 1, map.size ());
+      assertEquals (vals[i], map.get (vals[i]));
+    }
+    // now check the final state
+    for (i = 0; i < vals.length; ++i)
+      assertEquals (vals[i], map.get (vals[i]));
+  }
+
+  @Test
+  public void testRemove ()
+  {
+    for (final float ff : FILL_FACTORS)
+      _testRemoveHelper (ff);
+  }
+
+  private void _testRemoveHelper (final float fillFactor)
+  {
+    final LongLongMap map = _makeMap (100, fillFactor);
+    int addCnt = 0;
+    int removeCnt = 0;
+    for (int i = 0; i < 100000; ++i)
+    {
+      assertEquals (0, map.put (addCnt, addCnt));
+      addCnt++;
+      assertEquals ("Failed for addCnt = " + addCnt + ", ff = " + fillFactor,
+                    LongLongMap.NO_VALUE,
+                    map.put (addCnt, addCnt));
+      addCnt++;
+      assertEquals (removeCnt, map.remove (removeCnt));
+      removeCnt++;
+
+      // map grows by one element on each iteration
+      assertEquals (i + 1, map.size ());
+    }
+    for (int i = removeCnt; i < addCnt; ++i)
+      assertEquals (i, map.get (i));
+  }
+
+  @Test
+  public void testRemoveIf ()
+  {
+    for (final float ff : FILL_FACTORS)
+    {
+      final LongLongMap map = _makeMap (100, ff);
+      for (long i = -5000; i < 5000; ++i)
+        map.put (i * Integer.MAX_VALUE, i);
+      assertEquals (10000, map.size ());
+
+      // Remove all negative values
+      assertTrue (map.removeIf ( (k, v) -> v < 0));
+      assertEquals (5000, map.size ());
+      assertFalse (map.removeIf ( (k, v) -> v < 0));
+      for (long i = -5000; i < 5000; ++i)
+        if (i < 0)
+          assertFalse (map.containsKey (i * Integer.MAX_VALUE));
+        else
+          assertEquals (i, map.get (i * Integer.MAX_VALUE));
+    }
+  }
+
+  @Test
+  public void testPutAllAndClone ()
+  {
+    final LongLongMap map = _makeMap (10, 0.75f);
+    for (long i = 0; i < 1000; ++i)
+      map.put (i << 33, i);
+
+    final LongLongMap map2 = map.getClone ();
+    assertEquals (1000, map2.size ());
+    map2.putAll (map);
+    assertEquals (1000, map2.size ());
+    map2.remove (1L << 33);
+    assertFalse (map2.containsKey (1L << 33));
+    assertTrue (map.containsKey (1L << 33));
+
+    map.putAll (map2);
+    assertEquals (1000, map.size ());
+    map2.clear ();
+    assertEquals (0, map2.size ());
+    assertEquals (LongLongMap.NO_VALUE, map2.get (2L << 33));
+  }
+}
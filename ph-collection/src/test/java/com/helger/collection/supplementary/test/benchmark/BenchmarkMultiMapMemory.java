@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.supplementary.test.benchmark;
+
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.collection.multimap.IMultiMap;
+import com.helger.collection.multimap.MultiHashMapArrayListBased;
+import com.helger.collection.multimap.MultiHashMapCompactListBased;
+import com.helger.collection.multimap.MultiHashMapCompactSetBased;
+import com.helger.collection.multimap.MultiHashMapHashSetBased;
+import com.helger.commons.system.SystemProperties;
+
+/**
+ * Compare the memory footprint of the compact multi maps with the classic
+ * ones.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkMultiMapMemory
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (BenchmarkMultiMapMemory.class);
+  private static final int KEYS = 1_000_000;
+
+  private BenchmarkMultiMapMemory ()
+  {}
+
+  private static long _getUsedMemory ()
+  {
+    final Runtime aRuntime = Runtime.getRuntime ();
+    for (int i = 0; i < 5; ++i)
+      System.gc ();
+    return aRuntime.totalMemory () - aRuntime.freeMemory ();
+  }
+
+  private static void _measure (final String sName,
+                                final Supplier <? extends IMultiMap <Integer, Integer, ?>> aFactory,
+                                final int nValuesPerKey)
+  {
+    // Pre-create the boxed values so that they are not counted
+    final Integer [] aInts = new Integer [KEYS + nValuesPerKey];
+    for (int i = 0; i < aInts.length; ++i)
+      aInts[i] = Integer.valueOf (i);
+
+    final long nBefore = _getUsedMemory ();
+    final IMultiMap <Integer, Integer, ?> aMap = aFactory.get ();
+    for (int i = 0; i < KEYS; ++i)
+      for (int j = 0; j < nValuesPerKey; ++j)
+        aMap.putSingle (aInts[i], aInts[i + j]);
+    final long nAfter = _getUsedMemory ();
+
+    LOGGER.info (sName +
+                 " with " +
+                 nValuesPerKey +
+                 " value(s) per key: " +
+                 ((nAfter - nBefore) / KEYS) +
+                 " bytes/key (total values " +
+                 aMap.getTotalValueCount () +
+                 ")");
+  }
+
+  public static void main (final String [] aArgs)
+  {
+    LOGGER.info ("Runtime: Java=" + SystemProperties.getJavaVersion ());
+
+    for (final int nValuesPerKey : new int [] { 1, 2, 5, 20 })
+    {
+      _measure ("MultiHashMapArrayListBased  ", MultiHashMapArrayListBased::new, nValuesPerKey);
+      _measure ("MultiHashMapCompactListBased", MultiHashMapCompactListBased::new, nValuesPerKey);
+      _measure ("MultiHashMapHashSetBased    ", MultiHashMapHashSetBased::new, nValuesPerKey);
+      _measure ("MultiHashMapCompactSetBased ", MultiHashMapCompactSetBased::new, nValuesPerKey);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.collection.supplementary.test.benchmark;
+
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.collection.map.ConcurrentIntObjectMap;
+import com.helger.collection.map.IntObjectMap;
+import com.helger.collection.map.LongObjectMap;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.system.SystemProperties;
+import com.helger.commons.timing.StopWatch;
+
+/**
+ * Compare the primitive maps with {@link CommonsHashMap} using boxed keys.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkPrimitiveMap
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (BenchmarkPrimitiveMap.class);
+  private static final int SIZE = 1_000_000;
+  private static final int RUNS = 10;
+
+  private BenchmarkPrimitiveMap ()
+  {}
+
+  private static double _benchmark (final Runnable aTask)
+  {
+    // Warm up
+    for (int i = 0; i < 3; ++i)
+      aTask.run ();
+
+    System.gc ();
+    final StopWatch aSW = StopWatch.createdStarted ();
+    for (int i = 0; i < RUNS; ++i)
+      aTask.run ();
+    return aSW.stopAndGetNanos () / (double) RUNS / SIZE;
+  }
+
+  public static void main (final String [] aArgs)
+  {
+    LOGGER.info ("Runtime: Java=" + SystemProperties.getJavaVersion ());
+
+    final Random aRandom = new Random (4711);
+    final int [] aKeys = new int [SIZE];
+    for (int i = 0; i < SIZE; ++i)
+      aKeys[i] = aRandom.nextInt ();
+    final String sValue = "value";
+
+    double dTime = _benchmark ( () -> {
+      final ICommonsMap <Integer, String> aMap = new CommonsHashMap <> ();
+      for (final int nKey : aKeys)
+        aMap.put (Integer.valueOf (nKey), sValue);
+      int nFound = 0;
+      for (final int nKey : aKeys)
+        if (aMap.get (Integer.valueOf (nKey)) != null)
+          nFound++;
+      aMap.entrySet ().removeIf (e -> (e.getKey ().intValue () & 1) != 0);
+      if (nFound != SIZE)
+        throw new IllegalStateException ();
+    });
+    LOGGER.info ("CommonsHashMap<Integer,String>:  " + dTime + " ns/key");
+
+    dTime = _benchmark ( () -> {
+      final IntObjectMap <String> aMap = new IntObjectMap <> ();
+      for (final int nKey : aKeys)
+        aMap.put (nKey, sValue);
+      int nFound = 0;
+      for (final int nKey : aKeys)
+        if (aMap.get (nKey) != null)
+          nFound++;
+      aMap.removeIf ( (k, v) -> (k & 1) != 0);
+      if (nFound != SIZE)
+        throw new IllegalStateException ();
+    });
+    LOGGER.info ("IntObjectMap<String>:            " + dTime + " ns/key");
+
+    dTime = _benchmark ( () -> {
+      final LongObjectMap <String> aMap = new LongObjectMap <> ();
+      for (final int nKey : aKeys)
+        aMap.put (nKey, sValue);
+      int nFound = 0;
+      for (final int nKey : aKeys)
+        if (aMap.get (nKey) != null)
+          nFound++;
+      aMap.removeIf ( (k, v) -> (k & 1) != 0);
+      if (nFound != SIZE)
+        throw new IllegalStateException ();
+    });
+    LOGGER.info ("LongObjectMap<String>:           " + dTime + " ns/key");
+
+    dTime = _benchmark ( () -> {
+      final ConcurrentIntObjectMap <String> aMap = new ConcurrentIntObjectMap <> ();
+      for (final int nKey : aKeys)
+        aMap.put (nKey, sValue);
+      int nFound = 0;
+      for (final int nKey : aKeys)
+        if (aMap.get (nKey) != null)
+          nFound++;
+      aMap.removeIf ( (k, v) -> (k & 1) != 0);
+      if (nFound != SIZE)
+        throw new IllegalStateException ();
+    });
+    LOGGER.info ("ConcurrentIntObjectMap<String>:  " + dTime + " ns/key");
+  }
+}
@@ -267,7 +267,7 @@ public final class Base64
   // Indicates white space in encoding
   static final byte WHITE_SPACE_ENC = -5;
 
-  private static final byte EQUALS_SIGN_ENC = -1;
+  static final byte EQUALS_SIGN_ENC = -1;
   // Indicates equals sign in encoding
 
   /* ******** S T A N D A R D B A S E 6 4 A L P H A B E T ******** */
@@ -1343,7 +1343,7 @@ public final class Base64
    */
   @Nonnull
   @ReturnsMutableObject
-  private static byte [] _getAlphabet (final int nOptions)
+  static byte [] _getAlphabet (final int nOptions)
   {
     if ((nOptions & URL_SAFE) == URL_SAFE)
       return _URL_SAFE_ALPHABET;
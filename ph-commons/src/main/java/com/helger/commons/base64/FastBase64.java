@@ -0,0 +1,522 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.base64;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.ArrayHelper;
+
+/**
+ * A Base64 encoder and decoder for byte arrays that works on multiple bytes at
+ * once instead of byte by byte. The encoder translates 12 bits at a time into
+ * two characters and the decoder validates two complete 4 character groups
+ * with a single comparison. The result is byte identical to the respective
+ * {@link Base64} methods with the same options. Supported options are
+ * {@link Base64#URL_SAFE}, {@link Base64#ORDERED},
+ * {@link Base64#DO_BREAK_LINES} (MIME style lines with
+ * {@link Base64#MAX_LINE_LENGTH} characters) and
+ * {@link Base64#DO_NEWLINE_CRLF}. For {@link Base64#GZIP} encoding
+ * {@link Base64} is used.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@Immutable
+public final class FastBase64
+{
+  private static final int GROUPS_PER_LINE = Base64.MAX_LINE_LENGTH / 4;
+  private static final byte [] NEW_LINE_LF = { Base64.NEW_LINE };
+  private static final byte [] NEW_LINE_CRLF = { '\r', Base64.NEW_LINE };
+  private static final int INVALID = Integer.MIN_VALUE;
+
+  /**
+   * The precomputed lookup tables of a single alphabet.
+   *
+   * @author Philip Helger
+   */
+  private static final class Tables
+  {
+    // 4096 entries with the two characters for 12 bits each
+    private final char [] m_aEnc12 = new char [4096];
+    // 256 entries each with the pre-shifted 6 bit value or INVALID
+    private final int [] m_aDec0 = new int [256];
+    private final int [] m_aDec1 = new int [256];
+    private final int [] m_aDec2 = new int [256];
+    private final int [] m_aDec3 = new int [256];
+
+    Tables (@Nonnull final byte [] aAlphabet)
+    {
+      for (int i = 0; i < m_aEnc12.length; ++i)
+        m_aEnc12[i] = (char) ((aAlphabet[i >>> 6] << 8) | aAlphabet[i & 0x3f]);
+      Arrays.fill (m_aDec0, INVALID);
+      Arrays.fill (m_aDec1, INVALID);
+      Arrays.fill (m_aDec2, INVALID);
+      Arrays.fill (m_aDec3, INVALID);
+      for (int i = 0; i < aAlphabet.length; ++i)
+      {
+        final int nChar = aAlphabet[i] & 0xff;
+        m_aDec0[nChar] = i << 18;
+        m_aDec1[nChar] = i << 12;
+        m_aDec2[nChar] = i << 6;
+        m_aDec3[nChar] = i;
+      }
+    }
+  }
+
+  private static final Tables STANDARD = new Tables (Base64._getAlphabet (Base64.NO_OPTIONS));
+  private static final Tables URL_SAFE = new Tables (Base64._getAlphabet (Base64.URL_SAFE));
+  private static final Tables ORDERED = new Tables (Base64._getAlphabet (Base64.ORDERED));
+
+  private FastBase64 ()
+  {}
+
+  @Nonnull
+  private static Tables _getTables (final int nOptions)
+  {
+    // Same precedence as in Base64
+    if ((nOptions & Base64.URL_SAFE) == Base64.URL_SAFE)
+      return URL_SAFE;
+    if ((nOptions & Base64.ORDERED) == Base64.ORDERED)
+      return ORDERED;
+    return STANDARD;
+  }
+
+  /**
+   * Get the exact number of bytes created by
+   * {@link #encode(byte[], int, int, byte[], int, int)}.
+   *
+   * @param nLen
+   *        Number of bytes to encode. Must be &ge; 0.
+   * @param nOptions
+   *        The encoding options to use.
+   * @return The encoded length in bytes.
+   * @throws IllegalArgumentException
+   *         if the encoded length exceeds the maximum array size
+   */
+  @Nonnegative
+  public static int getEncodedLength (@Nonnegative final int nLen, final int nOptions)
+  {
+    ValueEnforcer.isGE0 (nLen, "Len");
+    long nEncLen = ((nLen + 2L) / 3) * 4;
+    if ((nOptions & Base64.DO_BREAK_LINES) != 0)
+    {
+      final int nNewLineLen = (nOptions & Base64.DO_NEWLINE_CRLF) != 0 ? NEW_LINE_CRLF.length : NEW_LINE_LF.length;
+      nEncLen += (nLen / 3 / GROUPS_PER_LINE) * (long) nNewLineLen;
+    }
+    if (nEncLen > Integer.MAX_VALUE)
+      throw new IllegalArgumentException ("Encoded length of " + nLen + " bytes is too large: " + nEncLen);
+    return (int) nEncLen;
+  }
+
+  private static int _encodeGroups (@Nonnull final char [] aEnc12,
+                                    @Nonnull final byte [] aSrc,
+                                    final int nSrcOfs,
+                                    final int nGroups,
+                                    @Nonnull final byte [] aDst,
+                                    final int nDstOfs)
+  {
+    int d = nDstOfs;
+    final int nSrcEnd = nSrcOfs + nGroups * 3;
+    for (int s = nSrcOfs; s < nSrcEnd; s += 3)
+    {
+      // 24 bits are two table lookups
+      final int nBits = ((aSrc[s] & 0xff) << 16) | ((aSrc[s + 1] & 0xff) << 8) | (aSrc[s + 2] & 0xff);
+      final char c0 = aEnc12[nBits >>> 12];
+      final char c1 = aEnc12[nBits & 0xfff];
+      // Write the last byte first so that only one bounds check is needed
+      aDst[d + 3] = (byte) c1;
+      aDst[d] = (byte) (c0 >> 8);
+      aDst[d + 1] = (byte) c0;
+      aDst[d + 2] = (byte) (c1 >> 8);
+      d += 4;
+    }
+    return d;
+  }
+
+  /**
+   * Base64 encode a byte array into another byte array.
+   *
+   * @param aSrc
+   *        The source bytes. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into the source. Must be &ge; 0.
+   * @param nLen
+   *        Number of bytes to encode. Must be &ge; 0.
+   * @param aDst
+   *        The destination array. It must have room for at least
+   *        {@link #getEncodedLength(int, int)} bytes starting at
+   *        <code>nDstOfs</code>. May not be <code>null</code>.
+   * @param nDstOfs
+   *        Offset into the destination. Must be &ge; 0.
+   * @param nOptions
+   *        The encoding options to use. {@link Base64#GZIP} is not supported.
+   * @return The number of bytes written to the destination.
+   */
+  @Nonnegative
+  public static int encode (@Nonnull final byte [] aSrc,
+                            @Nonnegative final int nOfs,
+                            @Nonnegative final int nLen,
+                            @Nonnull final byte [] aDst,
+                            @Nonnegative final int nDstOfs,
+                            final int nOptions)
+  {
+    ValueEnforcer.isArrayOfsLen (aSrc, nOfs, nLen);
+    ValueEnforcer.isArrayOfsLen (aDst, nDstOfs, getEncodedLength (nLen, nOptions));
+    ValueEnforcer.isFalse ((nOptions & Base64.GZIP) != 0, "GZIP is not supported");
+
+    final Tables aTables = _getTables (nOptions);
+    final char [] aEnc12 = aTables.m_aEnc12;
+    final boolean bBreakLines = (nOptions & Base64.DO_BREAK_LINES) != 0;
+    final byte [] aNewLine = (nOptions & Base64.DO_NEWLINE_CRLF) != 0 ? NEW_LINE_CRLF : NEW_LINE_LF;
+
+    int s = nOfs;
+    int d = nDstOfs;
+    int nGroupsLeft = nLen / 3;
+    while (nGroupsLeft > 0)
+    {
+      final int nGroups = bBreakLines ? Math.min (nGroupsLeft, GROUPS_PER_LINE) : nGroupsLeft;
+      d = _encodeGroups (aEnc12, aSrc, s, nGroups, aDst, d);
+      s += nGroups * 3;
+      nGroupsLeft -= nGroups;
+      if (bBreakLines && nGroups == GROUPS_PER_LINE)
+      {
+        // Like Base64 a complete line is always terminated
+        for (final byte b : aNewLine)
+          aDst[d++] = b;
+      }
+    }
+
+    // Padding
+    switch (nOfs + nLen - s)
+    {
+      case 1:
+      {
+        final char c0 = aEnc12[(aSrc[s] & 0xff) << 4];
+        aDst[d++] = (byte) (c0 >> 8);
+        aDst[d++] = (byte) c0;
+        aDst[d++] = Base64.EQUALS_SIGN;
+        aDst[d++] = Base64.EQUALS_SIGN;
+        break;
+      }
+      case 2:
+      {
+        final int nBits = ((aSrc[s] & 0xff) << 10) | ((aSrc[s + 1] & 0xff) << 2);
+        final char c0 = aEnc12[nBits >>> 6];
+        aDst[d++] = (byte) (c0 >> 8);
+        aDst[d++] = (byte) c0;
+        aDst[d++] = (byte) aEnc12[nBits & 0x3f];
+        aDst[d++] = Base64.EQUALS_SIGN;
+        break;
+      }
+      default:
+        break;
+    }
+    return d - nDstOfs;
+  }
+
+  /**
+   * Base64 encode a byte array. This is identical to
+   * {@link Base64#encodeBytesToBytes(byte[], int, int, int)}.
+   *
+   * @param aSrc
+   *        The source bytes. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into the source. Must be &ge; 0.
+   * @param nLen
+   *        Number of bytes to encode. Must be &ge; 0.
+   * @param nOptions
+   *        The encoding options to use.
+   * @return The encoded bytes. Never <code>null</code>.
+   * @throws IOException
+   *         In case GZIP compression fails
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static byte [] encodeBytesToBytes (@Nonnull final byte [] aSrc,
+                                            @Nonnegative final int nOfs,
+                                            @Nonnegative final int nLen,
+                                            final int nOptions) throws IOException
+  {
+    if ((nOptions & Base64.GZIP) != 0)
+      return Base64.encodeBytesToBytes (aSrc, nOfs, nLen, nOptions);
+
+    ValueEnforcer.isArrayOfsLen (aSrc, nOfs, nLen);
+    final byte [] ret = new byte [getEncodedLength (nLen, nOptions)];
+    encode (aSrc, nOfs, nLen, ret, 0, nOptions);
+    return ret;
+  }
+
+  /**
+   * Base64 encode a byte array without options.
+   *
+   * @param aSrc
+   *        The source bytes. May not be <code>null</code>.
+   * @return The encoded bytes. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static byte [] encodeBytesToBytes (@Nonnull final byte [] aSrc)
+  {
+    ValueEnforcer.notNull (aSrc, "Src");
+    final byte [] ret = new byte [getEncodedLength (aSrc.length, Base64.NO_OPTIONS)];
+    encode (aSrc, 0, aSrc.length, ret, 0, Base64.NO_OPTIONS);
+    return ret;
+  }
+
+  /**
+   * Base64 encode a byte array to a String. This is identical to
+   * {@link Base64#encodeBytes(byte[], int, int, int)}.
+   *
+   * @param aSrc
+   *        The source bytes. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into the source. Must be &ge; 0.
+   * @param nLen
+   *        Number of bytes to encode. Must be &ge; 0.
+   * @param nOptions
+   *        The encoding options to use.
+   * @return The encoded String. Never <code>null</code>.
+   * @throws IOException
+   *         In case GZIP compression fails
+   */
+  @Nonnull
+  public static String encodeBytes (@Nonnull final byte [] aSrc,
+                                    @Nonnegative final int nOfs,
+                                    @Nonnegative final int nLen,
+                                    final int nOptions) throws IOException
+  {
+    return new String (encodeBytesToBytes (aSrc, nOfs, nLen, nOptions), Base64.PREFERRED_ENCODING);
+  }
+
+  /**
+   * Base64 encode a byte array to a String without options.
+   *
+   * @param aSrc
+   *        The source bytes. May not be <code>null</code>.
+   * @return The encoded String. Never <code>null</code>.
+   */
+  @Nonnull
+  public static String encodeBytes (@Nonnull final byte [] aSrc)
+  {
+    return new String (encodeBytesToBytes (aSrc), Base64.PREFERRED_ENCODING);
+  }
+
+  /**
+   * Get the maximum number of bytes created by
+   * {@link #decode(byte[], int, int, byte[], int, int)}.
+   *
+   * @param nLen
+   *        Number of bytes to decode. Must be &ge; 0.
+   * @return The maximum decoded length in bytes.
+   */
+  @Nonnegative
+  public static int getMaxDecodedLength (@Nonnegative final int nLen)
+  {
+    ValueEnforcer.isGE0 (nLen, "Len");
+    return (int) (nLen * 3L / 4);
+  }
+
+  /**
+   * Decode Base64 encoded bytes into a byte array. Whitespace characters are
+   * ignored and decoding stops after the first group that ends with a padding
+   * character. An incomplete last group is ignored.
+   *
+   * @param aSrc
+   *        The Base64 encoded bytes. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into the source. Must be &ge; 0.
+   * @param nLen
+   *        Number of bytes to decode. Must be &ge; 0.
+   * @param aDst
+   *        The destination array. It must have room for at least
+   *        {@link #getMaxDecodedLength(int)} bytes starting at
+   *        <code>nDstOfs</code>. May not be <code>null</code>.
+   * @param nDstOfs
+   *        Offset into the destination. Must be &ge; 0.
+   * @param nOptions
+   *        The decoding options to use, to select the alphabet.
+   * @return The number of bytes written to the destination.
+   * @throws IOException
+   *         If the source contains an invalid character
+   */
+  @Nonnegative
+  public static int decode (@Nonnull final byte [] aSrc,
+                            @Nonnegative final int nOfs,
+                            @Nonnegative final int nLen,
+                            @Nonnull final byte [] aDst,
+                            @Nonnegative final int nDstOfs,
+                            final int nOptions) throws IOException
+  {
+    ValueEnforcer.isArrayOfsLen (aSrc, nOfs, nLen);
+    ValueEnforcer.isArrayOfsLen (aDst, nDstOfs, getMaxDecodedLength (nLen));
+
+    final Tables aTables = _getTables (nOptions);
+    final int [] aDec0 = aTables.m_aDec0;
+    final int [] aDec1 = aTables.m_aDec1;
+    final int [] aDec2 = aTables.m_aDec2;
+    final int [] aDec3 = aTables.m_aDec3;
+    final byte [] aDecodabet = Base64._getDecodabet (nOptions);
+
+    final int nEnd = nOfs + nLen;
+    final byte [] aGroup = new byte [4];
+    int nGroupLen = 0;
+    int s = nOfs;
+    int d = nDstOfs;
+    while (s < nEnd)
+    {
+      if (nGroupLen == 0)
+      {
+        // Fast path: two complete groups without whitespace or padding
+        while (s + 8 <= nEnd)
+        {
+          final int n0 = aDec0[aSrc[s] & 0xff] |
+                         aDec1[aSrc[s + 1] & 0xff] |
+                         aDec2[aSrc[s + 2] & 0xff] |
+                         aDec3[aSrc[s + 3] & 0xff];
+          final int n1 = aDec0[aSrc[s + 4] & 0xff] |
+                         aDec1[aSrc[s + 5] & 0xff] |
+                         aDec2[aSrc[s + 6] & 0xff] |
+                         aDec3[aSrc[s + 7] & 0xff];
+          if ((n0 | n1) < 0)
+            break;
+          aDst[d] = (byte) (n0 >> 16);
+          aDst[d + 1] = (byte) (n0 >> 8);
+          aDst[d + 2] = (byte) n0;
+          aDst[d + 3] = (byte) (n1 >> 16);
+          aDst[d + 4] = (byte) (n1 >> 8);
+          aDst[d + 5] = (byte) n1;
+          s += 8;
+          d += 6;
+        }
+        if (s + 4 <= nEnd)
+        {
+          final int n0 = aDec0[aSrc[s] & 0xff] |
+                         aDec1[aSrc[s + 1] & 0xff] |
+                         aDec2[aSrc[s + 2] & 0xff] |
+                         aDec3[aSrc[s + 3] & 0xff];
+          if (n0 >= 0)
+          {
+            aDst[d] = (byte) (n0 >> 16);
+            aDst[d + 1] = (byte) (n0 >> 8);
+            aDst[d + 2] = (byte) n0;
+            s += 4;
+            d += 3;
+            continue;
+          }
+        }
+        if (s == nEnd)
+          break;
+      }
+
+      // Slow path, byte by byte, exactly as in Base64.decode
+      final byte nByte = aSrc[s];
+      final byte nDecoded = aDecodabet[nByte & 0xff];
+      if (nDecoded < Base64.WHITE_SPACE_ENC)
+        throw new IOException ("Bad Base64 input character decimal " + (nByte & 0xff) + " in array position " + s);
+      s++;
+      if (nDecoded >= Base64.EQUALS_SIGN_ENC)
+      {
+        aGroup[nGroupLen++] = nByte;
+        if (nGroupLen == 4)
+        {
+          d += Base64._decode4to3 (aGroup, 0, aDst, d, nOptions);
+          nGroupLen = 0;
+          if (nByte == Base64.EQUALS_SIGN)
+            break;
+        }
+      }
+    }
+    return d - nDstOfs;
+  }
+
+  /**
+   * Decode Base64 encoded bytes. This is identical to
+   * {@link Base64#decode(byte[], int, int, int)}.
+   *
+   * @param aSrc
+   *        The Base64 encoded bytes. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into the source. Must be &ge; 0.
+   * @param nLen
+   *        Number of bytes to decode. Must be 0 or &ge; 4.
+   * @param nOptions
+   *        The decoding options to use, to select the alphabet.
+   * @return The decoded bytes. Never <code>null</code>.
+   * @throws IOException
+   *         If the source contains an invalid character
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static byte [] decode (@Nonnull final byte [] aSrc,
+                                @Nonnegative final int nOfs,
+                                @Nonnegative final int nLen,
+                                final int nOptions) throws IOException
+  {
+    ValueEnforcer.isArrayOfsLen (aSrc, nOfs, nLen);
+    if (nLen == 0)
+      return ArrayHelper.EMPTY_BYTE_ARRAY;
+    ValueEnforcer.isTrue (nLen >= 4,
+                          () -> "Base64-encoded string must have at least four characters, but length specified was " +
+                                nLen);
+
+    final byte [] aDst = new byte [getMaxDecodedLength (nLen)];
+    final int nDecoded = decode (aSrc, nOfs, nLen, aDst, 0, nOptions);
+    return nDecoded == aDst.length ? aDst : Arrays.copyOf (aDst, nDecoded);
+  }
+
+  /**
+   * Decode Base64 encoded bytes without options.
+   *
+   * @param aSrc
+   *        The Base64 encoded bytes. May not be <code>null</code>.
+   * @return The decoded bytes. Never <code>null</code>.
+   * @throws IOException
+   *         If the source contains an invalid character
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static byte [] decode (@Nonnull final byte [] aSrc) throws IOException
+  {
+    ValueEnforcer.notNull (aSrc, "Src");
+    return decode (aSrc, 0, aSrc.length, Base64.NO_OPTIONS);
+  }
+
+  /**
+   * Decode a Base64 encoded String without options. In contrast to
+   * {@link Base64#decode(String)} no automatic GZIP decompression takes place.
+   *
+   * @param sEncoded
+   *        The Base64 encoded String. May not be <code>null</code>.
+   * @return The decoded bytes. Never <code>null</code>.
+   * @throws IOException
+   *         If the source contains an invalid character
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static byte [] decode (@Nonnull final String sEncoded) throws IOException
+  {
+    ValueEnforcer.notNull (sEncoded, "Encoded");
+    return decode (sEncoded.getBytes (Base64.PREFERRED_ENCODING));
+  }
+}
@@ -18,6 +18,7 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -31,7 +32,7 @@ import com.helger.commons.ValueEnforcer;
  *
  * @author Philip Helger
  */
-public class ASCII85Codec implements IByteArrayStreamDecoder
+public class ASCII85Codec implements IByteArrayStreamDecoder, IByteBufferDecoderProvider
 {
   private static final int BIT1 = 8;
   private static final int BIT2 = 16;
@@ -145,4 +146,162 @@ public class ASCII85Codec implements IByteArrayStreamDecoder
       throw new DecodeException ("Failed to decode ASCII85", ex);
     }
   }
+
+  /**
+   * Incremental ASCII85 decoder.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferDecoder extends AbstractByteBufferTranscoder implements IByteBufferDecoder
+  {
+    private final byte [] m_aBuffer = new byte [5];
+    private int m_nEncodedCount = 0;
+    // 0 = nothing read; 1 = '<' read as first char; 2 = data; 3 = end of
+    // data found
+    private int m_nState = 0;
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    private void _decodeByte (final byte nEncByte)
+    {
+      // end of data with "~>"
+      if (nEncByte == '~')
+      {
+        m_nState = 3;
+        return;
+      }
+
+      // skip all whitespaces
+      if (Character.isWhitespace (nEncByte))
+        return;
+
+      if (nEncByte == 'z' && m_nEncodedCount == 0)
+      {
+        write (0);
+        write (0);
+        write (0);
+        write (0);
+      }
+      else
+      {
+        if (nEncByte < ENCODED_MIN || nEncByte > ENCODED_MAX)
+          throw new DecodeException ("Illegal character in ASCII85Decode: " + nEncByte);
+
+        m_aBuffer[m_nEncodedCount] = (byte) (nEncByte - ENCODED_MIN);
+        ++m_nEncodedCount;
+        if (m_nEncodedCount == 5)
+        {
+          m_nEncodedCount = 0;
+          int r = 0;
+          for (int j = 0; j < 5; ++j)
+            r = r * EIGHTY_FIVE + m_aBuffer[j];
+          write (r >> BIT3);
+          write (r >> BIT2);
+          write (r >> BIT1);
+          write (r);
+        }
+      }
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        final byte nEncByte = aIn.get ();
+        switch (m_nState)
+        {
+          case 0:
+            // Special start sequence "<~" ??
+            if (nEncByte == '<')
+              m_nState = 1;
+            else
+            {
+              m_nState = 2;
+              _decodeByte (nEncByte);
+            }
+            break;
+          case 1:
+            m_nState = 2;
+            if (nEncByte != '~')
+            {
+              _decodeByte ((byte) '<');
+              if (m_nState == 2)
+                _decodeByte (nEncByte);
+            }
+            break;
+          case 2:
+            _decodeByte (nEncByte);
+            break;
+          default:
+            // Ignore everything after the end
+            aIn.position (aIn.limit ());
+            break;
+        }
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (m_nState == 1)
+        _decodeByte ((byte) '<');
+
+      final byte [] aBuffer = m_aBuffer;
+      int nRest;
+      switch (m_nEncodedCount)
+      {
+        case 1:
+          throw new IllegalStateException ("Unexpected end of ASCII85 encoded data!");
+        case 2:
+          nRest = (aBuffer[0] * EIGHTY_FIVE * EIGHTY_FIVE * EIGHTY_FIVE * EIGHTY_FIVE) +
+                  (aBuffer[1] * EIGHTY_FIVE * EIGHTY_FIVE * EIGHTY_FIVE) +
+                  (EIGHTY_FIVE * EIGHTY_FIVE * EIGHTY_FIVE) +
+                  (EIGHTY_FIVE * EIGHTY_FIVE) +
+                  EIGHTY_FIVE;
+          write (nRest >> BIT3);
+          break;
+        case 3:
+          nRest = (aBuffer[0] * EIGHTY_FIVE * EIGHTY_FIVE * EIGHTY_FIVE * EIGHTY_FIVE) +
+                  (aBuffer[1] * EIGHTY_FIVE * EIGHTY_FIVE * EIGHTY_FIVE) +
+                  (aBuffer[2] * EIGHTY_FIVE * EIGHTY_FIVE) +
+                  (EIGHTY_FIVE * EIGHTY_FIVE) +
+                  EIGHTY_FIVE;
+          write (nRest >> BIT3);
+          write (nRest >> BIT2);
+          break;
+        case 4:
+          nRest = (aBuffer[0] * EIGHTY_FIVE * EIGHTY_FIVE * EIGHTY_FIVE * EIGHTY_FIVE) +
+                  (aBuffer[1] * EIGHTY_FIVE * EIGHTY_FIVE * EIGHTY_FIVE) +
+                  (aBuffer[2] * EIGHTY_FIVE * EIGHTY_FIVE) +
+                  (aBuffer[3] * EIGHTY_FIVE) +
+                  EIGHTY_FIVE;
+          write (nRest >> BIT3);
+          write (nRest >> BIT2);
+          write (nRest >> BIT1);
+          break;
+        default:
+          break;
+      }
+      m_nEncodedCount = 0;
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_nEncodedCount = 0;
+      m_nState = 0;
+    }
+  }
+
+  @Nonnull
+  public IByteBufferDecoder createByteBufferDecoder ()
+  {
+    return new ByteBufferDecoder ();
+  }
 }
@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+
+/**
+ * Abstract base class for incremental {@link IByteBufferEncoder} and
+ * {@link IByteBufferDecoder} implementations. It takes care of output that
+ * does not fit into the current output buffer, so that implementations can
+ * always write a complete unit of output.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public abstract class AbstractByteBufferTranscoder
+{
+  // The output buffer of the current call
+  private ByteBuffer m_aOut;
+  // Output that did not fit into the output buffer
+  private byte [] m_aPending = new byte [16];
+  private int m_nPendingOfs = 0;
+  private int m_nPendingLen = 0;
+  private boolean m_bFinished = false;
+
+  protected AbstractByteBufferTranscoder ()
+  {}
+
+  /**
+   * @return <code>true</code> if no more output should be written in this call,
+   *         because the output buffer is full.
+   */
+  protected final boolean isOutputFull ()
+  {
+    return m_nPendingLen > 0 || !m_aOut.hasRemaining ();
+  }
+
+  /**
+   * Write a single byte to the output.
+   *
+   * @param nByte
+   *        The byte to write. Only the lower 8 bits are used.
+   */
+  protected final void write (final int nByte)
+  {
+    if (m_nPendingLen == 0 && m_aOut.hasRemaining ())
+      m_aOut.put ((byte) nByte);
+    else
+    {
+      _ensurePendingCapacity (1);
+      m_aPending[m_nPendingOfs + m_nPendingLen++] = (byte) nByte;
+    }
+  }
+
+  /**
+   * Write a byte array to the output.
+   *
+   * @param aBuf
+   *        The buffer to write from. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset to start at. Must be &ge; 0.
+   * @param nLen
+   *        Number of bytes to write. Must be &ge; 0.
+   */
+  protected final void write (@Nonnull final byte [] aBuf, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+  {
+    int nDirect = 0;
+    if (m_nPendingLen == 0)
+    {
+      nDirect = Math.min (nLen, m_aOut.remaining ());
+      m_aOut.put (aBuf, nOfs, nDirect);
+    }
+    final int nRest = nLen - nDirect;
+    if (nRest > 0)
+    {
+      _ensurePendingCapacity (nRest);
+      System.arraycopy (aBuf, nOfs + nDirect, m_aPending, m_nPendingOfs + m_nPendingLen, nRest);
+      m_nPendingLen += nRest;
+    }
+  }
+
+  private void _ensurePendingCapacity (final int nAdditional)
+  {
+    if (m_nPendingOfs + m_nPendingLen + nAdditional > m_aPending.length)
+    {
+      if (m_nPendingLen + nAdditional <= m_aPending.length)
+      {
+        // Compact
+        System.arraycopy (m_aPending, m_nPendingOfs, m_aPending, 0, m_nPendingLen);
+      }
+      else
+        m_aPending = Arrays.copyOfRange (m_aPending,
+                                         m_nPendingOfs,
+                                         m_nPendingOfs + Math.max (m_aPending.length * 2, m_nPendingLen + nAdditional));
+      m_nPendingOfs = 0;
+    }
+  }
+
+  private void _drainPending ()
+  {
+    final int nCount = Math.min (m_nPendingLen, m_aOut.remaining ());
+    m_aOut.put (m_aPending, m_nPendingOfs, nCount);
+    m_nPendingOfs += nCount;
+    m_nPendingLen -= nCount;
+    if (m_nPendingLen == 0)
+      m_nPendingOfs = 0;
+  }
+
+  /**
+   * Process the available input. Implementations must consume at least one
+   * byte and should stop as soon as {@link #isOutputFull()} returns
+   * <code>true</code>. Partial units of input must be stored internally.
+   *
+   * @param aIn
+   *        The input buffer with at least one remaining byte. Never
+   *        <code>null</code>.
+   */
+  protected abstract void processInput (@Nonnull ByteBuffer aIn);
+
+  /**
+   * @return <code>true</code> if output is buffered internally (e.g. by a
+   *         {@link java.util.zip.Inflater}) that can be written without
+   *         further input. {@link #processInput(ByteBuffer)} is then called
+   *         with an empty input buffer. The default returns
+   *         <code>false</code>.
+   */
+  protected boolean hasInternalOutput ()
+  {
+    return false;
+  }
+
+  /**
+   * Called after all input was processed to write the remaining output.
+   * Called repeatedly until <code>true</code> is returned.
+   *
+   * @return <code>true</code> if everything is written, <code>false</code> if
+   *         more output needs to be written.
+   */
+  protected abstract boolean processEndOfInput ();
+
+  /**
+   * Called once after {@link #processEndOfInput()} returned <code>true</code>.
+   * Resources that are no longer needed, e.g. pooled objects, should be
+   * released here, because a finished instance is usually just dropped. This
+   * implementation does nothing.
+   */
+  protected void onFinished ()
+  {}
+
+  /**
+   * @return <code>true</code> if the end of input was fully processed and the
+   *         instance must be reset before it can be used again.
+   */
+  protected final boolean isFinished ()
+  {
+    return m_bFinished;
+  }
+
+  /**
+   * Reset the implementation specific state.
+   */
+  protected abstract void onReset ();
+
+  /**
+   * The main transcoding method, used to implement
+   * {@link IByteBufferEncoder#encode(ByteBuffer, ByteBuffer, boolean)} and
+   * {@link IByteBufferDecoder#decode(ByteBuffer, ByteBuffer, boolean)}.
+   *
+   * @param aIn
+   *        Input buffer. May not be <code>null</code>.
+   * @param aOut
+   *        Output buffer. May not be <code>null</code>.
+   * @param bEndOfInput
+   *        <code>true</code> if no more input follows.
+   * @return {@link ECodecResult#UNDERFLOW} or {@link ECodecResult#OVERFLOW}
+   */
+  @Nonnull
+  protected final ECodecResult transcode (@Nonnull final ByteBuffer aIn,
+                                          @Nonnull final ByteBuffer aOut,
+                                          final boolean bEndOfInput)
+  {
+    ValueEnforcer.notNull (aIn, "In");
+    ValueEnforcer.notNull (aOut, "Out");
+
+    m_aOut = aOut;
+    try
+    {
+      _drainPending ();
+      if (m_bFinished)
+      {
+        if (aIn.hasRemaining ())
+          throw new IllegalStateException ("Already finished - reset before providing new input");
+      }
+      else
+      {
+        while ((aIn.hasRemaining () || hasInternalOutput ()) && !isOutputFull ())
+          processInput (aIn);
+        if (aIn.hasRemaining () || hasInternalOutput ())
+          return ECodecResult.OVERFLOW;
+
+        if (bEndOfInput)
+        {
+          while (!m_bFinished && !isOutputFull ())
+            m_bFinished = processEndOfInput ();
+          if (!m_bFinished)
+            return ECodecResult.OVERFLOW;
+          onFinished ();
+        }
+      }
+      return m_nPendingLen > 0 ? ECodecResult.OVERFLOW : ECodecResult.UNDERFLOW;
+    }
+    finally
+    {
+      m_aOut = null;
+    }
+  }
+
+  public final void reset ()
+  {
+    m_nPendingOfs = 0;
+    m_nPendingLen = 0;
+    m_bFinished = false;
+    onReset ();
+  }
+}
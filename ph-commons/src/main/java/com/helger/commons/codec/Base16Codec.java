@@ -19,6 +19,7 @@ package com.helger.commons.codec;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -34,7 +35,7 @@ import com.helger.commons.string.StringHelper;
  *
  * @author Philip Helger
  */
-public class Base16Codec implements IByteArrayCodec
+public class Base16Codec implements IByteArrayCodec, IByteBufferEncoderProvider, IByteBufferDecoderProvider
 {
   /**
    * Creates a Base16 codec used for decoding and encoding.
@@ -156,4 +157,112 @@ public class Base16Codec implements IByteArrayCodec
       decode (aIS, aOS);
     }
   }
+
+  /**
+   * Incremental Base16 encoder.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferEncoder extends AbstractByteBufferTranscoder implements IByteBufferEncoder
+  {
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        final int nByte = aIn.get () & 0xff;
+        write (StringHelper.getHexChar ((nByte & 0xf0) >> 4));
+        write (StringHelper.getHexChar (nByte & 0x0f));
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {}
+  }
+
+  /**
+   * Incremental Base16 decoder.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferDecoder extends AbstractByteBufferTranscoder implements IByteBufferDecoder
+  {
+    // The high nibble char or -1
+    private int m_nHigh = -1;
+    private long m_nBytesRead = 0;
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        final int nByte = aIn.get () & 0xff;
+        m_nBytesRead++;
+        if (m_nHigh < 0)
+          m_nHigh = nByte;
+        else
+        {
+          final char cHigh = (char) m_nHigh;
+          final char cLow = (char) nByte;
+          m_nHigh = -1;
+          final int nDecodedValue = StringHelper.getHexByte (cHigh, cLow);
+          if (nDecodedValue < 0)
+            throw new DecodeException ("Invalid Base16 encoding for " +
+                                       (int) cHigh +
+                                       " and " +
+                                       (int) cLow +
+                                       " after " +
+                                       m_nBytesRead +
+                                       " byte(s)");
+          write (nDecodedValue);
+        }
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (m_nHigh >= 0)
+        throw new DecodeException ("Invalid Base16 encoding. Premature end of input after " + m_nBytesRead + " byte(s)");
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_nHigh = -1;
+      m_nBytesRead = 0;
+    }
+  }
+
+  @Nonnull
+  public IByteBufferEncoder createByteBufferEncoder ()
+  {
+    return new ByteBufferEncoder ();
+  }
+
+  @Nonnull
+  public IByteBufferDecoder createByteBufferDecoder ()
+  {
+    return new ByteBufferDecoder ();
+  }
 }
@@ -18,6 +18,7 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -40,7 +41,7 @@ import com.helger.commons.math.MathHelper;
  *
  * @author Philip Helger
  */
-public class Base32Codec implements IByteArrayCodec
+public class Base32Codec implements IByteArrayCodec, IByteBufferEncoderProvider, IByteBufferDecoderProvider
 {
   /**
    * This array is a lookup table that translates Unicode characters drawn from
@@ -673,4 +674,212 @@ public class Base32Codec implements IByteArrayCodec
       }
     }
   }
+
+  /**
+   * Incremental Base32 encoder.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferEncoder extends AbstractByteBufferTranscoder implements IByteBufferEncoder
+  {
+    private final byte [] m_aEncodeTable;
+    private final byte m_nPad;
+    private final boolean m_bAddPadding;
+    private long m_nGroup = 0;
+    private int m_nGroupLen = 0;
+
+    ByteBufferEncoder (@Nonnull final byte [] aEncodeTable, final byte nPad, final boolean bAddPadding)
+    {
+      m_aEncodeTable = aEncodeTable;
+      m_nPad = nPad;
+      m_bAddPadding = bAddPadding;
+    }
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      final byte [] aEncodeTable = m_aEncodeTable;
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        m_nGroup = (m_nGroup << 8) | (aIn.get () & 0xff);
+        if (++m_nGroupLen == 5)
+        {
+          // 40 bits = 8 encoded bytes
+          for (int nShift = 35; nShift >= 0; nShift -= 5)
+            write (aEncodeTable[(int) (m_nGroup >> nShift) & MASK_5BITS]);
+          m_nGroup = 0;
+          m_nGroupLen = 0;
+        }
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (m_nGroupLen > 0)
+      {
+        // Same as in the byte array version
+        final int nEncodedCount;
+        switch (m_nGroupLen)
+        {
+          case 1:
+            nEncodedCount = 2;
+            break;
+          case 2:
+            nEncodedCount = 4;
+            break;
+          case 3:
+            nEncodedCount = 5;
+            break;
+          default:
+            nEncodedCount = 7;
+            break;
+        }
+        // Left align the remaining bits to 40 bits
+        final long nBits = m_nGroup << ((5 - m_nGroupLen) * 8);
+        for (int i = 0; i < nEncodedCount; ++i)
+          write (m_aEncodeTable[(int) (nBits >> (35 - i * 5)) & MASK_5BITS]);
+        if (m_bAddPadding)
+          for (int i = nEncodedCount; i < 8; ++i)
+            write (m_nPad);
+        m_nGroup = 0;
+        m_nGroupLen = 0;
+      }
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_nGroup = 0;
+      m_nGroupLen = 0;
+    }
+  }
+
+  /**
+   * Incremental Base32 decoder.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferDecoder extends AbstractByteBufferTranscoder implements IByteBufferDecoder
+  {
+    private final byte [] m_aDecodeTable;
+    private final byte m_nPad;
+    private final byte [] m_aDecodeBuf = new byte [8];
+    private int m_nDecodeLen = 0;
+    // Number of chars to skip after a padding char
+    private int m_nSkip = 0;
+
+    ByteBufferDecoder (@Nonnull final byte [] aDecodeTable, final byte nPad)
+    {
+      m_aDecodeTable = aDecodeTable;
+      m_nPad = nPad;
+    }
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    private void _writeDecoded ()
+    {
+      final byte [] aDecodeBuf = m_aDecodeBuf;
+      switch (m_nDecodeLen)
+      {
+        case 0:
+          break;
+        case 2:
+          write (aDecodeBuf[0] << 3 | aDecodeBuf[1] >> 2);
+          break;
+        case 4:
+          write (aDecodeBuf[0] << 3 | aDecodeBuf[1] >> 2);
+          write (aDecodeBuf[1] << 6 | aDecodeBuf[2] << 1 | aDecodeBuf[3] >> 4);
+          break;
+        case 5:
+          write (aDecodeBuf[0] << 3 | aDecodeBuf[1] >> 2);
+          write (aDecodeBuf[1] << 6 | aDecodeBuf[2] << 1 | aDecodeBuf[3] >> 4);
+          write (aDecodeBuf[3] << 4 | aDecodeBuf[4] >> 1);
+          break;
+        case 7:
+          write (aDecodeBuf[0] << 3 | aDecodeBuf[1] >> 2);
+          write (aDecodeBuf[1] << 6 | aDecodeBuf[2] << 1 | aDecodeBuf[3] >> 4);
+          write (aDecodeBuf[3] << 4 | aDecodeBuf[4] >> 1);
+          write (aDecodeBuf[4] << 7 | aDecodeBuf[5] << 2 | aDecodeBuf[6] >> 3);
+          break;
+        case 8:
+          write (aDecodeBuf[0] << 3 | aDecodeBuf[1] >> 2);
+          write (aDecodeBuf[1] << 6 | aDecodeBuf[2] << 1 | aDecodeBuf[3] >> 4);
+          write (aDecodeBuf[3] << 4 | aDecodeBuf[4] >> 1);
+          write (aDecodeBuf[4] << 7 | aDecodeBuf[5] << 2 | aDecodeBuf[6] >> 3);
+          write (aDecodeBuf[6] << 5 | aDecodeBuf[7] & 0xff);
+          break;
+        default:
+          throw new DecodeException ("Unexpected number of Base32 bytes left: " + m_nDecodeLen);
+      }
+      m_nDecodeLen = 0;
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      final byte [] aDecodeTable = m_aDecodeTable;
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        final int n = aIn.get () & 0xff;
+        if (m_nSkip > 0)
+        {
+          // Skip the rest of a padded group
+          m_nSkip--;
+          continue;
+        }
+        if (n == m_nPad)
+        {
+          // Padding means end of data of this group
+          m_nSkip = 7 - m_nDecodeLen;
+          _writeDecoded ();
+          continue;
+        }
+
+        final byte b = n >= aDecodeTable.length ? -1 : aDecodeTable[n];
+        if (b < 0)
+          throw new DecodeException ("Cannot Base32 decode char " + n);
+        m_aDecodeBuf[m_nDecodeLen++] = b;
+        if (m_nDecodeLen == 8)
+          _writeDecoded ();
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      _writeDecoded ();
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_nDecodeLen = 0;
+      m_nSkip = 0;
+    }
+  }
+
+  @Nonnull
+  public IByteBufferEncoder createByteBufferEncoder ()
+  {
+    return new ByteBufferEncoder (m_aEncodeTable, m_nPad, m_bAddPadding);
+  }
+
+  @Nonnull
+  public IByteBufferDecoder createByteBufferDecoder ()
+  {
+    return new ByteBufferDecoder (m_aDecodeTable, m_nPad);
+  }
 }
@@ -18,6 +18,9 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -39,8 +42,26 @@ import com.helger.commons.math.MathHelper;
  *
  * @author Philip Helger
  */
-public class Base64Codec implements IByteArrayCodec
+public class Base64Codec implements IByteArrayCodec, IByteBufferEncoderProvider, IByteBufferDecoderProvider
 {
+  private static final byte [] ENCODE_TABLE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes (StandardCharsets.US_ASCII);
+  // Same values as in the Base64 decodabet
+  private static final byte WHITE_SPACE_ENC = -5;
+  private static final byte EQUALS_SIGN_ENC = -1;
+  private static final byte INVALID_ENC = -9;
+  private static final byte [] DECODE_TABLE = new byte [256];
+  static
+  {
+    Arrays.fill (DECODE_TABLE, INVALID_ENC);
+    DECODE_TABLE['\t'] = WHITE_SPACE_ENC;
+    DECODE_TABLE['\n'] = WHITE_SPACE_ENC;
+    DECODE_TABLE['\r'] = WHITE_SPACE_ENC;
+    DECODE_TABLE[' '] = WHITE_SPACE_ENC;
+    DECODE_TABLE[Base64.EQUALS_SIGN] = EQUALS_SIGN_ENC;
+    for (int i = 0; i < ENCODE_TABLE.length; ++i)
+      DECODE_TABLE[ENCODE_TABLE[i]] = (byte) i;
+  }
+
   public Base64Codec ()
   {}
 
@@ -128,4 +149,181 @@ public class Base64Codec implements IByteArrayCodec
   {
     return Base64.safeDecode (aEncodedBuffer, nOfs, nLen);
   }
+
+  /**
+   * Incremental Base64 encoder using the standard alphabet without line
+   * breaks.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferEncoder extends AbstractByteBufferTranscoder implements IByteBufferEncoder
+  {
+    private int m_nGroup = 0;
+    private int m_nGroupLen = 0;
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        m_nGroup = (m_nGroup << 8) | (aIn.get () & 0xff);
+        if (++m_nGroupLen == 3)
+        {
+          write (ENCODE_TABLE[(m_nGroup >>> 18) & 0x3f]);
+          write (ENCODE_TABLE[(m_nGroup >>> 12) & 0x3f]);
+          write (ENCODE_TABLE[(m_nGroup >>> 6) & 0x3f]);
+          write (ENCODE_TABLE[m_nGroup & 0x3f]);
+          m_nGroup = 0;
+          m_nGroupLen = 0;
+        }
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (m_nGroupLen == 1)
+      {
+        write (ENCODE_TABLE[(m_nGroup >>> 2) & 0x3f]);
+        write (ENCODE_TABLE[(m_nGroup << 4) & 0x3f]);
+        write (Base64.EQUALS_SIGN);
+        write (Base64.EQUALS_SIGN);
+      }
+      else
+        if (m_nGroupLen == 2)
+        {
+          write (ENCODE_TABLE[(m_nGroup >>> 10) & 0x3f]);
+          write (ENCODE_TABLE[(m_nGroup >>> 4) & 0x3f]);
+          write (ENCODE_TABLE[(m_nGroup << 2) & 0x3f]);
+          write (Base64.EQUALS_SIGN);
+        }
+      m_nGroup = 0;
+      m_nGroupLen = 0;
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_nGroup = 0;
+      m_nGroupLen = 0;
+    }
+  }
+
+  /**
+   * Incremental Base64 decoder for the standard alphabet. White spaces are
+   * ignored and everything after the padding is ignored.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferDecoder extends AbstractByteBufferTranscoder implements IByteBufferDecoder
+  {
+    private final byte [] m_aGroup = new byte [4];
+    private int m_nGroupLen = 0;
+    private boolean m_bPaddingFound = false;
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    private static int _dec (final byte n)
+    {
+      return DECODE_TABLE[n & 0xff] & 0xff;
+    }
+
+    private void _writeDecoded ()
+    {
+      final byte [] aGroup = m_aGroup;
+      if (aGroup[2] == Base64.EQUALS_SIGN)
+      {
+        // Example: Dk==
+        final int nBits = _dec (aGroup[0]) << 18 | _dec (aGroup[1]) << 12;
+        write (nBits >>> 16);
+      }
+      else
+        if (aGroup[3] == Base64.EQUALS_SIGN)
+        {
+          // Example: DkL=
+          final int nBits = _dec (aGroup[0]) << 18 | _dec (aGroup[1]) << 12 | _dec (aGroup[2]) << 6;
+          write (nBits >>> 16);
+          write (nBits >>> 8);
+        }
+        else
+        {
+          // Example: DkLE
+          final int nBits = _dec (aGroup[0]) << 18 | _dec (aGroup[1]) << 12 | _dec (aGroup[2]) << 6 | _dec (aGroup[3]);
+          write (nBits >> 16);
+          write (nBits >> 8);
+          write (nBits);
+        }
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      if (m_bPaddingFound)
+      {
+        // Ignore everything after the padding
+        aIn.position (aIn.limit ());
+        return;
+      }
+
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        final byte nByte = aIn.get ();
+        final byte nDecoded = DECODE_TABLE[nByte & 0xff];
+        if (nDecoded >= EQUALS_SIGN_ENC)
+        {
+          m_aGroup[m_nGroupLen++] = nByte;
+          if (m_nGroupLen == 4)
+          {
+            _writeDecoded ();
+            m_nGroupLen = 0;
+            if (nByte == Base64.EQUALS_SIGN)
+            {
+              m_bPaddingFound = true;
+              aIn.position (aIn.limit ());
+            }
+          }
+        }
+        else
+          if (nDecoded != WHITE_SPACE_ENC)
+            throw new DecodeException ("Bad Base64 input character decimal " + (nByte & 0xff));
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      // An incomplete group is ignored
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_nGroupLen = 0;
+      m_bPaddingFound = false;
+    }
+  }
+
+  @Nonnull
+  public IByteBufferEncoder createByteBufferEncoder ()
+  {
+    return new ByteBufferEncoder ();
+  }
+
+  @Nonnull
+  public IByteBufferDecoder createByteBufferDecoder ()
+  {
+    return new ByteBufferDecoder ();
+  }
 }
@@ -0,0 +1,241 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.WillNotClose;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.io.stream.StreamHelper;
+
+/**
+ * Helper methods to drive {@link IByteBufferEncoder} and
+ * {@link IByteBufferDecoder} instances.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@Immutable
+public final class ByteBufferCodecHelper
+{
+  /**
+   * The generic transcoding function of encoders and decoders.
+   *
+   * @author Philip Helger
+   */
+  @FunctionalInterface
+  public interface ITranscoder
+  {
+    @Nonnull
+    ECodecResult transcode (@Nonnull ByteBuffer aIn, @Nonnull ByteBuffer aOut, boolean bEndOfInput);
+  }
+
+  public static final int DEFAULT_BUFFER_SIZE = StreamHelper.DEFAULT_BUFSIZE;
+
+  private ByteBufferCodecHelper ()
+  {}
+
+  /**
+   * Transcode all content of the input stream to the output stream.
+   *
+   * @param aTranscoder
+   *        The encode or decode function. May not be <code>null</code>.
+   * @param aResetter
+   *        The reset function that is called afterwards. May not be
+   *        <code>null</code>.
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         In case of read or write error
+   */
+  public static void transcode (@Nonnull final ITranscoder aTranscoder,
+                                @Nonnull final Runnable aResetter,
+                                @Nonnull @WillNotClose final InputStream aIS,
+                                @Nonnull @WillNotClose final OutputStream aOS) throws IOException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    transcode (aTranscoder,
+               aResetter,
+               Channels.newChannel (aIS),
+               Channels.newChannel (aOS),
+               ByteBuffer.allocate (DEFAULT_BUFFER_SIZE),
+               ByteBuffer.allocate (DEFAULT_BUFFER_SIZE));
+  }
+
+  /**
+   * Transcode all content of the input channel to the output channel. The
+   * channels must be blocking.
+   *
+   * @param aTranscoder
+   *        The encode or decode function. May not be <code>null</code>.
+   * @param aResetter
+   *        The reset function that is called afterwards. May not be
+   *        <code>null</code>.
+   * @param aInChannel
+   *        The channel to read from. May not be <code>null</code>.
+   * @param aOutChannel
+   *        The channel to write to. May not be <code>null</code>.
+   * @param aInBuffer
+   *        The input buffer to use. May be a direct buffer. May not be
+   *        <code>null</code> and must have a capacity &gt; 0.
+   * @param aOutBuffer
+   *        The output buffer to use. May be a direct buffer. May not be
+   *        <code>null</code> and must have a capacity &gt; 0.
+   * @throws IOException
+   *         In case of read or write error
+   */
+  public static void transcode (@Nonnull final ITranscoder aTranscoder,
+                                @Nonnull final Runnable aResetter,
+                                @Nonnull @WillNotClose final ReadableByteChannel aInChannel,
+                                @Nonnull @WillNotClose final WritableByteChannel aOutChannel,
+                                @Nonnull final ByteBuffer aInBuffer,
+                                @Nonnull final ByteBuffer aOutBuffer) throws IOException
+  {
+    ValueEnforcer.notNull (aTranscoder, "Transcoder");
+    ValueEnforcer.notNull (aResetter, "Resetter");
+    ValueEnforcer.notNull (aInChannel, "InChannel");
+    ValueEnforcer.notNull (aOutChannel, "OutChannel");
+    ValueEnforcer.isGT0 (aInBuffer.capacity (), "InBuffer.Capacity");
+    ValueEnforcer.isGT0 (aOutBuffer.capacity (), "OutBuffer.Capacity");
+
+    try
+    {
+      aInBuffer.clear ();
+      aOutBuffer.clear ();
+      boolean bEndOfInput = false;
+      while (true)
+      {
+        if (!bEndOfInput && aInBuffer.hasRemaining ())
+          bEndOfInput = aInChannel.read (aInBuffer) < 0;
+        aInBuffer.flip ();
+        final ECodecResult eResult = aTranscoder.transcode (aInBuffer, aOutBuffer, bEndOfInput);
+        aInBuffer.compact ();
+
+        aOutBuffer.flip ();
+        _writeFully (aOutChannel, aOutBuffer);
+        aOutBuffer.clear ();
+
+        if (bEndOfInput && eResult.isUnderflow ())
+          break;
+      }
+    }
+    finally
+    {
+      aResetter.run ();
+    }
+  }
+
+  private static void _writeFully (@Nonnull final WritableByteChannel aChannel,
+                                   @Nonnull final ByteBuffer aBuffer) throws IOException
+  {
+    while (aBuffer.hasRemaining ())
+      aChannel.write (aBuffer);
+  }
+
+  /**
+   * Transcode the complete remaining content of a buffer to an output stream.
+   *
+   * @param aTranscoder
+   *        The encode or decode function. May not be <code>null</code>.
+   * @param aResetter
+   *        The reset function that is called afterwards. May not be
+   *        <code>null</code>.
+   * @param aIn
+   *        The input buffer. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>.
+   * @param nOutBufferSize
+   *        The size of the intermediate output buffer. Must be &gt; 0.
+   * @throws IOException
+   *         In case of write error
+   * @since 9.4.3
+   */
+  public static void transcode (@Nonnull final ITranscoder aTranscoder,
+                                @Nonnull final Runnable aResetter,
+                                @Nonnull final ByteBuffer aIn,
+                                @Nonnull @WillNotClose final OutputStream aOS,
+                                @Nonnegative final int nOutBufferSize) throws IOException
+  {
+    ValueEnforcer.notNull (aTranscoder, "Transcoder");
+    ValueEnforcer.notNull (aResetter, "Resetter");
+    ValueEnforcer.notNull (aIn, "In");
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    ValueEnforcer.isGT0 (nOutBufferSize, "OutBufferSize");
+
+    try
+    {
+      final ByteBuffer aOut = ByteBuffer.allocate (nOutBufferSize);
+      ECodecResult eResult;
+      do
+      {
+        eResult = aTranscoder.transcode (aIn, aOut, true);
+        aOS.write (aOut.array (), 0, aOut.position ());
+        aOut.clear ();
+      } while (eResult.isOverflow ());
+    }
+    finally
+    {
+      aResetter.run ();
+    }
+  }
+
+  /**
+   * Transcode a complete byte array. This is mainly a convenience method for
+   * testing.
+   *
+   * @param aTranscoder
+   *        The encode or decode function. May not be <code>null</code>.
+   * @param aInput
+   *        The input bytes. May not be <code>null</code>.
+   * @param nOutBufferSize
+   *        The size of the intermediate output buffer. Must be &gt; 0.
+   * @return The transcoded bytes. Never <code>null</code>.
+   */
+  @Nonnull
+  public static byte [] getTranscoded (@Nonnull final ITranscoder aTranscoder,
+                                       @Nonnull final byte [] aInput,
+                                       @Nonnegative final int nOutBufferSize)
+  {
+    ValueEnforcer.notNull (aInput, "Input");
+
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+    {
+      transcode (aTranscoder, () -> {}, ByteBuffer.wrap (aInput), aBAOS, nOutBufferSize);
+      return aBAOS.toByteArray ();
+    }
+    catch (final IOException ex)
+    {
+      // Cannot happen for a byte array output stream
+      throw new UncheckedIOException (ex);
+    }
+  }
+}
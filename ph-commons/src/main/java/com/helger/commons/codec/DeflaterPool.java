@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.util.zip.Deflater;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.pool.AbstractBoundedPool;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A pool of {@link Deflater} objects to avoid the costly creation and
+ * destruction of the native zlib state for every compression.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public final class DeflaterPool extends AbstractBoundedPool <Deflater>
+{
+  private static final DeflaterPool DEFAULT_ZLIB = new DeflaterPool (false, DEFAULT_MAX_SIZE);
+  private static final DeflaterPool DEFAULT_NOWRAP = new DeflaterPool (true, DEFAULT_MAX_SIZE);
+
+  private final boolean m_bNoWrap;
+
+  /**
+   * Constructor
+   *
+   * @param bNoWrap
+   *        <code>true</code> to create raw deflate data (e.g. for GZIP),
+   *        <code>false</code> to use the ZLIB format.
+   * @param nMaxSize
+   *        The maximum number of pooled objects. Must be &ge; 0.
+   */
+  public DeflaterPool (final boolean bNoWrap, @Nonnegative final int nMaxSize)
+  {
+    super (DeflaterPool.class.getName () + (bNoWrap ? "$nowrap" : "$zlib"), nMaxSize);
+    m_bNoWrap = bNoWrap;
+  }
+
+  /**
+   * @return <code>true</code> if raw deflate data is created,
+   *         <code>false</code> if the ZLIB format is used.
+   */
+  public boolean isNoWrap ()
+  {
+    return m_bNoWrap;
+  }
+
+  @Override
+  @Nonnull
+  protected Deflater createObject ()
+  {
+    return new Deflater (Deflater.DEFAULT_COMPRESSION, m_bNoWrap);
+  }
+
+  @Override
+  protected boolean resetObject (@Nonnull final Deflater aDeflater)
+  {
+    aDeflater.reset ();
+    return true;
+  }
+
+  @Override
+  protected void discardObject (@Nonnull final Deflater aDeflater)
+  {
+    aDeflater.end ();
+  }
+
+  /**
+   * Check if the provided compression level is valid.
+   *
+   * @param nLevel
+   *        The level to check.
+   * @return <code>true</code> if it is {@link Deflater#DEFAULT_COMPRESSION} or
+   *         between {@link Deflater#NO_COMPRESSION} and
+   *         {@link Deflater#BEST_COMPRESSION}.
+   */
+  public static boolean isValidLevel (final int nLevel)
+  {
+    return nLevel == Deflater.DEFAULT_COMPRESSION ||
+           (nLevel >= Deflater.NO_COMPRESSION && nLevel <= Deflater.BEST_COMPRESSION);
+  }
+
+  /**
+   * Check if the provided compression strategy is valid.
+   *
+   * @param nStrategy
+   *        The strategy to check.
+   * @return <code>true</code> if it is one of
+   *         {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED} or
+   *         {@link Deflater#HUFFMAN_ONLY}.
+   */
+  public static boolean isValidStrategy (final int nStrategy)
+  {
+    return nStrategy == Deflater.DEFAULT_STRATEGY ||
+           nStrategy == Deflater.FILTERED ||
+           nStrategy == Deflater.HUFFMAN_ONLY;
+  }
+
+  /**
+   * Borrow a {@link Deflater} from the pool. It must be returned with
+   * {@link #returnObject(Object)} after usage.
+   *
+   * @param nLevel
+   *        The compression level to use.
+   * @param nStrategy
+   *        The compression strategy to use.
+   * @return A reset deflater with the provided settings. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public Deflater borrowDeflater (final int nLevel, final int nStrategy)
+  {
+    ValueEnforcer.isTrue (isValidLevel (nLevel), () -> "Invalid compression level " + nLevel);
+    ValueEnforcer.isTrue (isValidStrategy (nStrategy), () -> "Invalid compression strategy " + nStrategy);
+
+    final Deflater ret = borrowObject ();
+    ret.setLevel (nLevel);
+    ret.setStrategy (nStrategy);
+    return ret;
+  }
+
+  /**
+   * Get the shared default pool.
+   *
+   * @param bNoWrap
+   *        <code>true</code> for the pool of raw deflaters, <code>false</code>
+   *        for the pool of ZLIB deflaters.
+   * @return The default pool. Never <code>null</code>.
+   */
+  @Nonnull
+  public static DeflaterPool getDefaultInstance (final boolean bNoWrap)
+  {
+    return bNoWrap ? DEFAULT_NOWRAP : DEFAULT_ZLIB;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return ToStringGenerator.getDerived (super.toString ()).append ("NoWrap", m_bNoWrap).getToString ();
+  }
+}
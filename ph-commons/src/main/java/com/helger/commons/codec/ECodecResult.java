@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+/**
+ * The result of an incremental {@link IByteBufferEncoder} or
+ * {@link IByteBufferDecoder} call.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+public enum ECodecResult
+{
+  /**
+   * All input was consumed and all available output was written. If the end of
+   * input was indicated, the operation is complete.
+   */
+  UNDERFLOW,
+  /**
+   * The output buffer is full. It must be drained and the method must be
+   * called again with the remaining input.
+   */
+  OVERFLOW;
+
+  public boolean isUnderflow ()
+  {
+    return this == UNDERFLOW;
+  }
+
+  public boolean isOverflow ()
+  {
+    return this == OVERFLOW;
+  }
+}
@@ -18,8 +18,10 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -29,22 +31,105 @@ import javax.annotation.WillNotClose;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
-import com.helger.commons.io.stream.NonClosingOutputStream;
-import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.ValueEnforcer;
 
 /**
- * Encoder and decoder for flate compression
+ * Encoder and decoder for flate compression. The native zlib resources are
+ * taken from the default {@link DeflaterPool} and {@link InflaterPool}.
  *
  * @author Philip Helger
  */
-public class FlateCodec implements IByteArrayCodec
+public class FlateCodec implements IByteArrayCodec, IByteBufferEncoderProvider, IByteBufferDecoderProvider
 {
+  /** The default buffer size */
+  public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
   private static final Logger LOGGER = LoggerFactory.getLogger (FlateCodec.class);
 
+  private int m_nLevel = Deflater.DEFAULT_COMPRESSION;
+  private int m_nStrategy = Deflater.DEFAULT_STRATEGY;
+  private int m_nBufferSize = DEFAULT_BUFFER_SIZE;
+
   public FlateCodec ()
   {}
 
+  /**
+   * @return The compression level. Defaults to
+   *         {@link Deflater#DEFAULT_COMPRESSION}.
+   * @since 9.4.3
+   */
+  public final int getLevel ()
+  {
+    return m_nLevel;
+  }
+
+  /**
+   * @param nLevel
+   *        The compression level to use. Must be
+   *        {@link Deflater#DEFAULT_COMPRESSION} or between
+   *        {@link Deflater#NO_COMPRESSION} and {@link Deflater#BEST_COMPRESSION}.
+   * @return this for chaining
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final FlateCodec setLevel (final int nLevel)
+  {
+    ValueEnforcer.isTrue (DeflaterPool.isValidLevel (nLevel), () -> "Invalid compression level " + nLevel);
+    m_nLevel = nLevel;
+    return this;
+  }
+
+  /**
+   * @return The compression strategy. Defaults to
+   *         {@link Deflater#DEFAULT_STRATEGY}.
+   * @since 9.4.3
+   */
+  public final int getStrategy ()
+  {
+    return m_nStrategy;
+  }
+
+  /**
+   * @param nStrategy
+   *        The compression strategy to use. Must be one of
+   *        {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED} or
+   *        {@link Deflater#HUFFMAN_ONLY}.
+   * @return this for chaining
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final FlateCodec setStrategy (final int nStrategy)
+  {
+    ValueEnforcer.isTrue (DeflaterPool.isValidStrategy (nStrategy), () -> "Invalid compression strategy " + nStrategy);
+    m_nStrategy = nStrategy;
+    return this;
+  }
+
+  /**
+   * @return The maximum size of the internal buffers. Defaults to
+   *         {@link #DEFAULT_BUFFER_SIZE}.
+   * @since 9.4.3
+   */
+  @Nonnegative
+  public final int getBufferSize ()
+  {
+    return m_nBufferSize;
+  }
+
+  /**
+   * @param nBufferSize
+   *        The maximum size of the internal buffers. Must be &gt; 0.
+   * @return this for chaining
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final FlateCodec setBufferSize (@Nonnegative final int nBufferSize)
+  {
+    ValueEnforcer.isGT0 (nBufferSize, "BufferSize");
+    m_nBufferSize = nBufferSize;
+    return this;
+  }
+
   public static boolean isZlibHead (@Nonnull final byte [] buf,
                                     @Nonnegative final int nOfs,
                                     @Nonnegative final int nLen)
@@ -73,18 +158,36 @@ public class FlateCodec implements IByteArrayCodec
     if (!isZlibHead (aEncodedBuffer, nOfs, nLen))
       LOGGER.warn ("ZLib header not found");
 
-    try (
-        final InflaterInputStream aDecodeIS = new InflaterInputStream (new NonBlockingByteArrayInputStream (aEncodedBuffer,
-                                                                                                            nOfs,
-                                                                                                            nLen)))
+    final InflaterPool aPool = InflaterPool.getDefaultInstance (false);
+    final Inflater aInflater = aPool.borrowInflater ();
+    try
     {
-      if (StreamHelper.copyInputStreamToOutputStream (aDecodeIS, aOS).isFailure ())
-        throw new DecodeException ("Failed to flate decode!");
+      aInflater.setInput (aEncodedBuffer, nOfs, nLen);
+      // Decompressed data is usually larger
+      final byte [] aBuf = new byte [(int) Math.min (m_nBufferSize, nLen * 4L)];
+      while (!aInflater.finished ())
+      {
+        final int nInflated = aInflater.inflate (aBuf);
+        if (nInflated > 0)
+          aOS.write (aBuf, 0, nInflated);
+        else
+        {
+          // Same as InflaterInputStream
+          if (aInflater.needsDictionary ())
+            break;
+          if (aInflater.needsInput ())
+            throw new DecodeException ("Failed to flate decode: unexpected end of ZLIB input stream");
+        }
+      }
     }
-    catch (final IOException ex)
+    catch (final DataFormatException | IOException ex)
     {
       throw new DecodeException ("Failed to flate decode", ex);
     }
+    finally
+    {
+      aPool.returnObject (aInflater);
+    }
   }
 
   public void encode (@Nullable final byte [] aDecodedBuffer,
@@ -95,16 +198,224 @@ public class FlateCodec implements IByteArrayCodec
     if (aDecodedBuffer == null || nLen == 0)
       return;
 
-    try (final DeflaterOutputStream aEncodeOS = new DeflaterOutputStream (new NonClosingOutputStream (aOS)))
+    final DeflaterPool aPool = DeflaterPool.getDefaultInstance (false);
+    final Deflater aDeflater = aPool.borrowDeflater (m_nLevel, m_nStrategy);
+    try
     {
-      if (StreamHelper.copyInputStreamToOutputStream (new NonBlockingByteArrayInputStream (aDecodedBuffer, nOfs, nLen),
-                                                      aEncodeOS)
-                      .isFailure ())
-        throw new EncodeException ("Failed to flate encode!");
+      aDeflater.setInput (aDecodedBuffer, nOfs, nLen);
+      aDeflater.finish ();
+      // Compressed data is usually smaller
+      final byte [] aBuf = new byte [(int) Math.min (m_nBufferSize, nLen + 64L)];
+      while (!aDeflater.finished ())
+      {
+        final int nDeflated = aDeflater.deflate (aBuf);
+        aOS.write (aBuf, 0, nDeflated);
+      }
     }
     catch (final IOException ex)
     {
       throw new EncodeException ("Failed to flate encode", ex);
     }
+    finally
+    {
+      aPool.returnObject (aDeflater);
+    }
+  }
+
+  /**
+   * Incremental flate encoder. Like
+   * {@link #encode(byte[], int, int, OutputStream)} nothing is written for an
+   * empty input. The deflater is borrowed from the pool on first usage and
+   * returned as soon as the end of input was processed or upon
+   * {@link #reset()}.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferEncoder extends AbstractByteBufferTranscoder implements IByteBufferEncoder
+  {
+    private final int m_nLevel;
+    private final int m_nStrategy;
+    private final byte [] m_aInBuf;
+    private final byte [] m_aOutBuf;
+    private Deflater m_aDeflater;
+    private boolean m_bAnyInput = false;
+    private boolean m_bFinishCalled = false;
+
+    ByteBufferEncoder (final int nLevel, final int nStrategy, @Nonnegative final int nBufferSize)
+    {
+      m_nLevel = nLevel;
+      m_nStrategy = nStrategy;
+      m_aInBuf = new byte [nBufferSize];
+      m_aOutBuf = new byte [nBufferSize];
+    }
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      if (m_aDeflater == null && !isFinished ())
+        m_aDeflater = DeflaterPool.getDefaultInstance (false).borrowDeflater (m_nLevel, m_nStrategy);
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected boolean hasInternalOutput ()
+    {
+      return !m_aDeflater.needsInput ();
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      if (m_aDeflater.needsInput ())
+      {
+        final int nCount = Math.min (aIn.remaining (), m_aInBuf.length);
+        aIn.get (m_aInBuf, 0, nCount);
+        m_aDeflater.setInput (m_aInBuf, 0, nCount);
+        m_bAnyInput = true;
+      }
+      final int nDeflated = m_aDeflater.deflate (m_aOutBuf);
+      write (m_aOutBuf, 0, nDeflated);
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (!m_bAnyInput)
+        return true;
+      if (!m_bFinishCalled)
+      {
+        m_aDeflater.finish ();
+        m_bFinishCalled = true;
+      }
+      final int nDeflated = m_aDeflater.deflate (m_aOutBuf);
+      write (m_aOutBuf, 0, nDeflated);
+      return m_aDeflater.finished ();
+    }
+
+    private void _returnDeflater ()
+    {
+      DeflaterPool.getDefaultInstance (false).returnObject (m_aDeflater);
+      m_aDeflater = null;
+    }
+
+    @Override
+    protected void onFinished ()
+    {
+      _returnDeflater ();
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      _returnDeflater ();
+      m_bAnyInput = false;
+      m_bFinishCalled = false;
+    }
+  }
+
+  /**
+   * Incremental flate decoder. Data after the end of the compressed stream is
+   * ignored. The inflater is borrowed from the pool on first usage and
+   * returned as soon as the end of input was processed or upon
+   * {@link #reset()}.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferDecoder extends AbstractByteBufferTranscoder implements IByteBufferDecoder
+  {
+    private final byte [] m_aInBuf;
+    private final byte [] m_aOutBuf;
+    private Inflater m_aInflater;
+    private boolean m_bAnyInput = false;
+
+    ByteBufferDecoder (@Nonnegative final int nBufferSize)
+    {
+      m_aInBuf = new byte [nBufferSize];
+      m_aOutBuf = new byte [nBufferSize];
+    }
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      if (m_aInflater == null && !isFinished ())
+        m_aInflater = InflaterPool.getDefaultInstance (false).borrowInflater ();
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected boolean hasInternalOutput ()
+    {
+      return !m_aInflater.finished () && !m_aInflater.needsInput ();
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      if (m_aInflater.finished ())
+      {
+        // Ignore everything after the end
+        aIn.position (aIn.limit ());
+        return;
+      }
+
+      if (m_aInflater.needsInput ())
+      {
+        final int nCount = Math.min (aIn.remaining (), m_aInBuf.length);
+        aIn.get (m_aInBuf, 0, nCount);
+        m_aInflater.setInput (m_aInBuf, 0, nCount);
+        m_bAnyInput = true;
+      }
+
+      try
+      {
+        final int nInflated = m_aInflater.inflate (m_aOutBuf);
+        if (nInflated == 0 && m_aInflater.needsDictionary ())
+          throw new DecodeException ("Failed to flate decode: preset dictionaries are not supported");
+        write (m_aOutBuf, 0, nInflated);
+      }
+      catch (final DataFormatException ex)
+      {
+        throw new DecodeException ("Failed to flate decode", ex);
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (m_bAnyInput && !m_aInflater.finished ())
+        throw new DecodeException ("Failed to flate decode: unexpected end of input");
+      return true;
+    }
+
+    private void _returnInflater ()
+    {
+      InflaterPool.getDefaultInstance (false).returnObject (m_aInflater);
+      m_aInflater = null;
+    }
+
+    @Override
+    protected void onFinished ()
+    {
+      _returnInflater ();
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      _returnInflater ();
+      m_bAnyInput = false;
+    }
+  }
+
+  @Nonnull
+  public IByteBufferEncoder createByteBufferEncoder ()
+  {
+    return new ByteBufferEncoder (m_nLevel, m_nStrategy, m_nBufferSize);
+  }
+
+  @Nonnull
+  public IByteBufferDecoder createByteBufferDecoder ()
+  {
+    return new ByteBufferDecoder (m_nBufferSize);
   }
 }
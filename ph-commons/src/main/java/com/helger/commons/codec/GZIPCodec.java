@@ -18,28 +18,131 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.WillNotClose;
 
-import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
-import com.helger.commons.io.stream.NonClosingOutputStream;
-import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.ValueEnforcer;
 
 /**
- * Encoder and decoder for GZip compression
+ * Encoder and decoder for GZip compression. The native zlib resources are
+ * taken from the default {@link DeflaterPool} and {@link InflaterPool}.
  *
  * @author Philip Helger
  */
-public class GZIPCodec implements IByteArrayCodec
+public class GZIPCodec implements IByteArrayCodec, IByteBufferEncoderProvider, IByteBufferDecoderProvider
 {
+  /** The default buffer size */
+  public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int GZIP_FHCRC = 2;
+  private static final int GZIP_FEXTRA = 4;
+  private static final int GZIP_FNAME = 8;
+  private static final int GZIP_FCOMMENT = 16;
+  // Same header as written by GZIPOutputStream
+  private static final byte [] GZIP_HEADER = { (byte) GZIP_MAGIC,
+                                               (byte) (GZIP_MAGIC >> 8),
+                                               Deflater.DEFLATED,
+                                               0,
+                                               0,
+                                               0,
+                                               0,
+                                               0,
+                                               0,
+                                               0 };
+
+  private int m_nLevel = Deflater.DEFAULT_COMPRESSION;
+  private int m_nStrategy = Deflater.DEFAULT_STRATEGY;
+  private int m_nBufferSize = DEFAULT_BUFFER_SIZE;
+
   public GZIPCodec ()
   {}
 
+  /**
+   * @return The compression level. Defaults to
+   *         {@link Deflater#DEFAULT_COMPRESSION}.
+   * @since 9.4.3
+   */
+  public final int getLevel ()
+  {
+    return m_nLevel;
+  }
+
+  /**
+   * @param nLevel
+   *        The compression level to use. Must be
+   *        {@link Deflater#DEFAULT_COMPRESSION} or between
+   *        {@link Deflater#NO_COMPRESSION} and {@link Deflater#BEST_COMPRESSION}.
+   * @return this for chaining
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final GZIPCodec setLevel (final int nLevel)
+  {
+    ValueEnforcer.isTrue (DeflaterPool.isValidLevel (nLevel), () -> "Invalid compression level " + nLevel);
+    m_nLevel = nLevel;
+    return this;
+  }
+
+  /**
+   * @return The compression strategy. Defaults to
+   *         {@link Deflater#DEFAULT_STRATEGY}.
+   * @since 9.4.3
+   */
+  public final int getStrategy ()
+  {
+    return m_nStrategy;
+  }
+
+  /**
+   * @param nStrategy
+   *        The compression strategy to use. Must be one of
+   *        {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED} or
+   *        {@link Deflater#HUFFMAN_ONLY}.
+   * @return this for chaining
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final GZIPCodec setStrategy (final int nStrategy)
+  {
+    ValueEnforcer.isTrue (DeflaterPool.isValidStrategy (nStrategy), () -> "Invalid compression strategy " + nStrategy);
+    m_nStrategy = nStrategy;
+    return this;
+  }
+
+  /**
+   * @return The maximum size of the internal buffers. Defaults to
+   *         {@link #DEFAULT_BUFFER_SIZE}.
+   * @since 9.4.3
+   */
+  @Nonnegative
+  public final int getBufferSize ()
+  {
+    return m_nBufferSize;
+  }
+
+  /**
+   * @param nBufferSize
+   *        The maximum size of the internal buffers. Must be &gt; 0.
+   * @return this for chaining
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final GZIPCodec setBufferSize (@Nonnegative final int nBufferSize)
+  {
+    ValueEnforcer.isGT0 (nBufferSize, "BufferSize");
+    m_nBufferSize = nBufferSize;
+    return this;
+  }
+
   public void decode (@Nullable final byte [] aEncodedBuffer,
                       @Nonnegative final int nOfs,
                       @Nonnegative final int nLen,
@@ -48,19 +151,30 @@ public class GZIPCodec implements IByteArrayCodec
     if (aEncodedBuffer == null || nLen == 0)
       return;
 
-    try (final GZIPInputStream aDecodeIS = new GZIPInputStream (new NonBlockingByteArrayInputStream (aEncodedBuffer,
-                                                                                                     nOfs,
-                                                                                                     nLen)))
+    final int nBufferSize = Math.min (m_nBufferSize, nLen);
+    final ByteBufferDecoder aDecoder = new ByteBufferDecoder (nBufferSize);
+    try
     {
-      if (StreamHelper.copyInputStreamToOutputStream (aDecodeIS, aOS).isFailure ())
-        throw new DecodeException ("Failed to GZIP decode!");
+      ByteBufferCodecHelper.transcode (aDecoder::decode,
+                                       aDecoder::reset,
+                                       ByteBuffer.wrap (aEncodedBuffer, nOfs, nLen),
+                                       aOS,
+                                       (int) Math.min (m_nBufferSize, nLen * 4L));
     }
     catch (final IOException ex)
     {
-      throw new DecodeException ("Failed to GZIP encode", ex);
+      throw new DecodeException ("Failed to GZIP decode", ex);
     }
   }
 
+  private static void _writeIntLE (@Nonnull final OutputStream aOS, final long nValue) throws IOException
+  {
+    aOS.write ((int) nValue);
+    aOS.write ((int) (nValue >> 8));
+    aOS.write ((int) (nValue >> 16));
+    aOS.write ((int) (nValue >> 24));
+  }
+
   public void encode (@Nullable final byte [] aDecodedBuffer,
                       @Nonnegative final int nOfs,
                       @Nonnegative final int nLen,
@@ -69,16 +183,426 @@ public class GZIPCodec implements IByteArrayCodec
     if (aDecodedBuffer == null || nLen == 0)
       return;
 
-    try (final GZIPOutputStream aEncodeOS = new GZIPOutputStream (new NonClosingOutputStream (aOS)))
+    final DeflaterPool aPool = DeflaterPool.getDefaultInstance (true);
+    final Deflater aDeflater = aPool.borrowDeflater (m_nLevel, m_nStrategy);
+    try
     {
-      if (StreamHelper.copyInputStreamToOutputStream (new NonBlockingByteArrayInputStream (aDecodedBuffer, nOfs, nLen),
-                                                      aEncodeOS)
-                      .isFailure ())
-        throw new EncodeException ("Failed to GZIP encode!");
+      aOS.write (GZIP_HEADER);
+
+      aDeflater.setInput (aDecodedBuffer, nOfs, nLen);
+      aDeflater.finish ();
+      // Compressed data is usually smaller
+      final byte [] aBuf = new byte [(int) Math.min (m_nBufferSize, nLen + 64L)];
+      while (!aDeflater.finished ())
+      {
+        final int nDeflated = aDeflater.deflate (aBuf);
+        aOS.write (aBuf, 0, nDeflated);
+      }
+
+      // Trailer
+      final CRC32 aCRC = new CRC32 ();
+      aCRC.update (aDecodedBuffer, nOfs, nLen);
+      _writeIntLE (aOS, aCRC.getValue ());
+      _writeIntLE (aOS, nLen);
     }
     catch (final IOException ex)
     {
       throw new EncodeException ("Failed to GZIP encode", ex);
     }
+    finally
+    {
+      aPool.returnObject (aDeflater);
+    }
+  }
+
+  /**
+   * Incremental GZIP encoder. Like
+   * {@link #encode(byte[], int, int, OutputStream)} nothing is written for an
+   * empty input. The deflater is borrowed from the pool on first usage and
+   * returned as soon as the end of input was processed or upon
+   * {@link #reset()}.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferEncoder extends AbstractByteBufferTranscoder implements IByteBufferEncoder
+  {
+    private final int m_nLevel;
+    private final int m_nStrategy;
+    private final byte [] m_aInBuf;
+    private final byte [] m_aOutBuf;
+    private Deflater m_aDeflater;
+    private final CRC32 m_aCRC = new CRC32 ();
+    private boolean m_bAnyInput = false;
+    private boolean m_bFinishCalled = false;
+
+    ByteBufferEncoder (final int nLevel, final int nStrategy, @Nonnegative final int nBufferSize)
+    {
+      m_nLevel = nLevel;
+      m_nStrategy = nStrategy;
+      m_aInBuf = new byte [nBufferSize];
+      m_aOutBuf = new byte [nBufferSize];
+    }
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      if (m_aDeflater == null && !isFinished ())
+        m_aDeflater = DeflaterPool.getDefaultInstance (true).borrowDeflater (m_nLevel, m_nStrategy);
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected boolean hasInternalOutput ()
+    {
+      return !m_aDeflater.needsInput ();
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      if (m_aDeflater.needsInput ())
+      {
+        if (!m_bAnyInput)
+        {
+          write (GZIP_HEADER, 0, GZIP_HEADER.length);
+          m_bAnyInput = true;
+        }
+        final int nCount = Math.min (aIn.remaining (), m_aInBuf.length);
+        aIn.get (m_aInBuf, 0, nCount);
+        m_aDeflater.setInput (m_aInBuf, 0, nCount);
+        m_aCRC.update (m_aInBuf, 0, nCount);
+      }
+      final int nDeflated = m_aDeflater.deflate (m_aOutBuf);
+      write (m_aOutBuf, 0, nDeflated);
+    }
+
+    private void _writeIntLE (final long nValue)
+    {
+      write ((int) nValue);
+      write ((int) (nValue >> 8));
+      write ((int) (nValue >> 16));
+      write ((int) (nValue >> 24));
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (!m_bAnyInput)
+        return true;
+      if (!m_bFinishCalled)
+      {
+        m_aDeflater.finish ();
+        m_bFinishCalled = true;
+      }
+      final int nDeflated = m_aDeflater.deflate (m_aOutBuf);
+      write (m_aOutBuf, 0, nDeflated);
+      if (!m_aDeflater.finished ())
+        return false;
+
+      // Trailer
+      _writeIntLE (m_aCRC.getValue ());
+      _writeIntLE (m_aDeflater.getBytesRead ());
+      return true;
+    }
+
+    private void _returnDeflater ()
+    {
+      DeflaterPool.getDefaultInstance (true).returnObject (m_aDeflater);
+      m_aDeflater = null;
+    }
+
+    @Override
+    protected void onFinished ()
+    {
+      _returnDeflater ();
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      _returnDeflater ();
+      m_aCRC.reset ();
+      m_bAnyInput = false;
+      m_bFinishCalled = false;
+    }
+  }
+
+  /**
+   * Incremental GZIP decoder. Like {@link java.util.zip.GZIPInputStream}
+   * concatenated members are supported and trailing garbage after a complete
+   * member is ignored. The inflater is borrowed from the pool on first usage
+   * and returned as soon as the end of input was processed or upon
+   * {@link #reset()}.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferDecoder extends AbstractByteBufferTranscoder implements IByteBufferDecoder
+  {
+    private static final int STATE_HEADER = 0;
+    private static final int STATE_EXTRA_LEN = 1;
+    private static final int STATE_EXTRA = 2;
+    private static final int STATE_NAME = 3;
+    private static final int STATE_COMMENT = 4;
+    private static final int STATE_HCRC = 5;
+    private static final int STATE_DATA = 6;
+    private static final int STATE_TRAILER = 7;
+    private static final int STATE_IGNORE = 8;
+
+    // Input not yet consumed - e.g. the trailer after the deflated data
+    private final byte [] m_aInBuf;
+    private int m_nInOfs = 0;
+    private int m_nInEnd = 0;
+    private final byte [] m_aOutBuf;
+    private Inflater m_aInflater;
+    private final CRC32 m_aCRC = new CRC32 ();
+    private final byte [] m_aFixed = new byte [10];
+    private int m_nState = STATE_HEADER;
+    // Number of bytes read in the current state
+    private int m_nStateCount = 0;
+    private int m_nFlags = 0;
+    private int m_nExtraLen = 0;
+    private int m_nMemberCount = 0;
+    private boolean m_bAnyInput = false;
+
+    ByteBufferDecoder (@Nonnegative final int nBufferSize)
+    {
+      m_aInBuf = new byte [nBufferSize];
+      m_aOutBuf = new byte [nBufferSize];
+    }
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      if (m_aInflater == null && !isFinished ())
+        m_aInflater = InflaterPool.getDefaultInstance (true).borrowInflater ();
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected boolean hasInternalOutput ()
+    {
+      if (m_nState == STATE_IGNORE)
+        return false;
+      if (m_nInOfs < m_nInEnd)
+        return true;
+      return m_nState == STATE_DATA && !m_aInflater.needsInput () && !m_aInflater.finished ();
+    }
+
+    private void _fillInBuf (@Nonnull final ByteBuffer aIn)
+    {
+      final int nCount = Math.min (aIn.remaining (), m_aInBuf.length);
+      aIn.get (m_aInBuf, 0, nCount);
+      m_nInOfs = 0;
+      m_nInEnd = nCount;
+      if (nCount > 0)
+        m_bAnyInput = true;
+    }
+
+    private void _nextState ()
+    {
+      m_nStateCount = 0;
+      if (m_nState < STATE_EXTRA_LEN && (m_nFlags & GZIP_FEXTRA) != 0)
+        m_nState = STATE_EXTRA_LEN;
+      else
+        if (m_nState < STATE_NAME && (m_nFlags & GZIP_FNAME) != 0)
+          m_nState = STATE_NAME;
+        else
+          if (m_nState < STATE_COMMENT && (m_nFlags & GZIP_FCOMMENT) != 0)
+            m_nState = STATE_COMMENT;
+          else
+            if (m_nState < STATE_HCRC && (m_nFlags & GZIP_FHCRC) != 0)
+              m_nState = STATE_HCRC;
+            else
+              m_nState = STATE_DATA;
+    }
+
+    private void _invalidHeader (@Nonnull final String sMsg)
+    {
+      if (m_nMemberCount == 0)
+        throw new DecodeException ("Failed to GZIP decode: " + sMsg);
+      // Same as GZIPInputStream: ignore trailing garbage
+      m_nState = STATE_IGNORE;
+      m_nInOfs = m_nInEnd = 0;
+    }
+
+    private void _processHeaderByte (final int nByte)
+    {
+      switch (m_nState)
+      {
+        case STATE_HEADER:
+          m_aFixed[m_nStateCount++] = (byte) nByte;
+          if (m_nStateCount == 2 && ((m_aFixed[0] & 0xff) | ((m_aFixed[1] & 0xff) << 8)) != GZIP_MAGIC)
+            _invalidHeader ("Not in GZIP format");
+          else
+            if (m_nStateCount == 3 && m_aFixed[2] != Deflater.DEFLATED)
+              _invalidHeader ("Unsupported compression method " + m_aFixed[2]);
+            else
+              if (m_nStateCount == m_aFixed.length)
+              {
+                m_nFlags = m_aFixed[3] & 0xff;
+                _nextState ();
+              }
+          break;
+        case STATE_EXTRA_LEN:
+          if (m_nStateCount++ == 0)
+            m_nExtraLen = nByte;
+          else
+          {
+            m_nExtraLen |= nByte << 8;
+            m_nStateCount = 0;
+            m_nState = STATE_EXTRA;
+            if (m_nExtraLen == 0)
+              _nextState ();
+          }
+          break;
+        case STATE_EXTRA:
+          if (++m_nStateCount == m_nExtraLen)
+            _nextState ();
+          break;
+        case STATE_NAME:
+        case STATE_COMMENT:
+          if (nByte == 0)
+            _nextState ();
+          break;
+        case STATE_HCRC:
+          if (++m_nStateCount == 2)
+            _nextState ();
+          break;
+        default:
+          throw new IllegalStateException ("Unexpected state " + m_nState);
+      }
+    }
+
+    private static int _getIntLE (@Nonnull final byte [] aBuf, final int nOfs)
+    {
+      return (aBuf[nOfs] & 0xff) |
+             ((aBuf[nOfs + 1] & 0xff) << 8) |
+             ((aBuf[nOfs + 2] & 0xff) << 16) |
+             ((aBuf[nOfs + 3] & 0xff) << 24);
+    }
+
+    private void _processTrailerByte (final int nByte)
+    {
+      // Reuse the header buffer
+      m_aFixed[m_nStateCount++] = (byte) nByte;
+      if (m_nStateCount == 8)
+      {
+        if (_getIntLE (m_aFixed, 0) != (int) m_aCRC.getValue () ||
+            _getIntLE (m_aFixed, 4) != (int) m_aInflater.getBytesWritten ())
+          throw new DecodeException ("Failed to GZIP decode: corrupt GZIP trailer");
+
+        // Another member may follow
+        m_nMemberCount++;
+        m_aInflater.reset ();
+        m_aCRC.reset ();
+        m_nState = STATE_HEADER;
+        m_nStateCount = 0;
+      }
+    }
+
+    private void _processData ()
+    {
+      if (m_aInflater.needsInput ())
+      {
+        m_aInflater.setInput (m_aInBuf, m_nInOfs, m_nInEnd - m_nInOfs);
+        m_nInOfs = m_nInEnd;
+      }
+
+      try
+      {
+        final int nInflated = m_aInflater.inflate (m_aOutBuf);
+        if (nInflated == 0 && m_aInflater.needsDictionary ())
+          throw new DecodeException ("Failed to GZIP decode: preset dictionaries are not supported");
+        m_aCRC.update (m_aOutBuf, 0, nInflated);
+        write (m_aOutBuf, 0, nInflated);
+      }
+      catch (final DataFormatException ex)
+      {
+        throw new DecodeException ("Failed to GZIP decode", ex);
+      }
+
+      if (m_aInflater.finished ())
+      {
+        // Give back what the inflater did not need
+        m_nInOfs = m_nInEnd - m_aInflater.getRemaining ();
+        m_nState = STATE_TRAILER;
+        m_nStateCount = 0;
+      }
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      if (m_nState == STATE_IGNORE)
+      {
+        aIn.position (aIn.limit ());
+        return;
+      }
+
+      if (m_nInOfs == m_nInEnd && aIn.hasRemaining () && (m_nState != STATE_DATA || m_aInflater.needsInput ()))
+        _fillInBuf (aIn);
+
+      if (m_nState == STATE_DATA)
+        _processData ();
+      else
+        while (m_nInOfs < m_nInEnd && m_nState != STATE_DATA && m_nState != STATE_IGNORE)
+        {
+          final int nByte = m_aInBuf[m_nInOfs++] & 0xff;
+          if (m_nState == STATE_TRAILER)
+            _processTrailerByte (nByte);
+          else
+            _processHeaderByte (nByte);
+        }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (m_nState == STATE_IGNORE || !m_bAnyInput)
+        return true;
+      // An incomplete header after a complete member is ignored
+      if (m_nMemberCount > 0 && m_nState < STATE_DATA)
+        return true;
+      throw new DecodeException ("Failed to GZIP decode: unexpected end of input");
+    }
+
+    private void _returnInflater ()
+    {
+      InflaterPool.getDefaultInstance (true).returnObject (m_aInflater);
+      m_aInflater = null;
+    }
+
+    @Override
+    protected void onFinished ()
+    {
+      _returnInflater ();
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_nInOfs = 0;
+      m_nInEnd = 0;
+      _returnInflater ();
+      m_aCRC.reset ();
+      m_nState = STATE_HEADER;
+      m_nStateCount = 0;
+      m_nFlags = 0;
+      m_nExtraLen = 0;
+      m_nMemberCount = 0;
+      m_bAnyInput = false;
+    }
+  }
+
+  @Nonnull
+  public IByteBufferEncoder createByteBufferEncoder ()
+  {
+    return new ByteBufferEncoder (m_nLevel, m_nStrategy, m_nBufferSize);
+  }
+
+  @Nonnull
+  public IByteBufferDecoder createByteBufferDecoder ()
+  {
+    return new ByteBufferDecoder (m_nBufferSize);
   }
 }
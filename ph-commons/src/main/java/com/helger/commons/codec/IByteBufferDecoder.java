@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.WillNotClose;
+
+/**
+ * A stateful incremental decoder working on {@link ByteBuffer}s. In contrast
+ * to {@link IByteArrayDecoder} the input can be provided in arbitrary pieces
+ * and the output is written into a caller provided buffer that may also be a
+ * direct buffer. Instances are not thread-safe and must not be shared.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ * @see IByteBufferDecoderProvider
+ */
+public interface IByteBufferDecoder
+{
+  /**
+   * Decode as much of the input as possible into the output buffer. Call
+   * repeatedly until the end of input is reached and {@link ECodecResult#UNDERFLOW}
+   * is returned. If {@link ECodecResult#UNDERFLOW} is returned, all input was
+   * consumed.
+   *
+   * @param aIn
+   *        The input buffer to read from. May not be <code>null</code>.
+   * @param aOut
+   *        The output buffer to write to. May not be <code>null</code>.
+   * @param bEndOfInput
+   *        <code>true</code> if the input buffer contains the last part of
+   *        the input, <code>false</code> if more input may follow.
+   * @return {@link ECodecResult#OVERFLOW} if the output buffer needs to be
+   *         drained and this method needs to be called again,
+   *         {@link ECodecResult#UNDERFLOW} otherwise.
+   * @throws DecodeException
+   *         In case something goes wrong
+   */
+  @Nonnull
+  ECodecResult decode (@Nonnull ByteBuffer aIn, @Nonnull ByteBuffer aOut, boolean bEndOfInput);
+
+  /**
+   * Reset this decoder so that it can be used for new input.
+   */
+  void reset ();
+
+  /**
+   * Decode the content of an {@link InputStream} to an {@link OutputStream}
+   * without reading it completely into memory. This decoder is reset
+   * afterwards.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         In case of read or write error
+   * @throws DecodeException
+   *         In case something goes wrong
+   */
+  default void decode (@Nonnull @WillNotClose final InputStream aIS,
+                       @Nonnull @WillNotClose final OutputStream aOS) throws IOException
+  {
+    ByteBufferCodecHelper.transcode (this::decode, this::reset, aIS, aOS);
+  }
+}
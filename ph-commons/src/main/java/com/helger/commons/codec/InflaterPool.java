@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import java.util.zip.Inflater;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.pool.AbstractBoundedPool;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A pool of {@link Inflater} objects to avoid the costly creation and
+ * destruction of the native zlib state for every decompression.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public final class InflaterPool extends AbstractBoundedPool <Inflater>
+{
+  private static final InflaterPool DEFAULT_ZLIB = new InflaterPool (false, DEFAULT_MAX_SIZE);
+  private static final InflaterPool DEFAULT_NOWRAP = new InflaterPool (true, DEFAULT_MAX_SIZE);
+
+  private final boolean m_bNoWrap;
+
+  /**
+   * Constructor
+   *
+   * @param bNoWrap
+   *        <code>true</code> to read raw deflate data (e.g. for GZIP),
+   *        <code>false</code> to read the ZLIB format.
+   * @param nMaxSize
+   *        The maximum number of pooled objects. Must be &ge; 0.
+   */
+  public InflaterPool (final boolean bNoWrap, @Nonnegative final int nMaxSize)
+  {
+    super (InflaterPool.class.getName () + (bNoWrap ? "$nowrap" : "$zlib"), nMaxSize);
+    m_bNoWrap = bNoWrap;
+  }
+
+  /**
+   * @return <code>true</code> if raw deflate data is read, <code>false</code>
+   *         if the ZLIB format is read.
+   */
+  public boolean isNoWrap ()
+  {
+    return m_bNoWrap;
+  }
+
+  @Override
+  @Nonnull
+  protected Inflater createObject ()
+  {
+    return new Inflater (m_bNoWrap);
+  }
+
+  @Override
+  protected boolean resetObject (@Nonnull final Inflater aInflater)
+  {
+    aInflater.reset ();
+    return true;
+  }
+
+  @Override
+  protected void discardObject (@Nonnull final Inflater aInflater)
+  {
+    aInflater.end ();
+  }
+
+  /**
+   * Borrow an {@link Inflater} from the pool. It must be returned with
+   * {@link #returnObject(Object)} after usage.
+   *
+   * @return A reset inflater. Never <code>null</code>.
+   */
+  @Nonnull
+  public Inflater borrowInflater ()
+  {
+    return borrowObject ();
+  }
+
+  /**
+   * Get the shared default pool.
+   *
+   * @param bNoWrap
+   *        <code>true</code> for the pool of raw inflaters, <code>false</code>
+   *        for the pool of ZLIB inflaters.
+   * @return The default pool. Never <code>null</code>.
+   */
+  @Nonnull
+  public static InflaterPool getDefaultInstance (final boolean bNoWrap)
+  {
+    return bNoWrap ? DEFAULT_NOWRAP : DEFAULT_ZLIB;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return ToStringGenerator.getDerived (super.toString ()).append ("NoWrap", m_bNoWrap).getToString ();
+  }
+}
@@ -20,7 +20,9 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -45,7 +47,7 @@ import com.helger.commons.string.ToStringGenerator;
  *
  * @author Philip Helger
  */
-public class LZWCodec implements IByteArrayCodec
+public class LZWCodec implements IByteArrayCodec, IByteBufferEncoderProvider, IByteBufferDecoderProvider
 {
   /**
    * A single LZW node
@@ -433,4 +435,324 @@ public class LZWCodec implements IByteArrayCodec
       decode (aIS, aOS);
     }
   }
+
+  /**
+   * Incremental LZW encoder. It creates the same output as
+   * {@link #encode(byte[], int, int, OutputStream)}. Because of the one byte
+   * look ahead of the algorithm, the last byte is only encoded when the end of
+   * the input is signalled.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferEncoder extends AbstractByteBufferTranscoder implements IByteBufferEncoder
+  {
+    private static final int QUEUE_SIZE = 1024;
+
+    private final LZWEncodeDictionary m_aDict = new LZWEncodeDictionary ();
+    // Bytes to be encoded - contains the look ahead byte
+    private byte [] m_aQueue = new byte [QUEUE_SIZE];
+    private int m_nQueueOfs = 0;
+    private int m_nQueueLen = 0;
+    // The current byte sequence and its node in the dictionary
+    private byte [] m_aByteSeq = new byte [16];
+    private int m_nByteSeqLen = 0;
+    private LZWNode m_aCurNode;
+    // Pending output bits
+    private int m_nBits = 0;
+    private int m_nBitCount = 0;
+    private boolean m_bStarted = false;
+
+    ByteBufferEncoder ()
+    {
+      m_aDict.reset ();
+    }
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    private void _writeBits (final int nValue, final int nNumBits)
+    {
+      m_nBits = (m_nBits << nNumBits) | (nValue & ((1 << nNumBits) - 1));
+      m_nBitCount += nNumBits;
+      while (m_nBitCount >= 8)
+      {
+        m_nBitCount -= 8;
+        write (m_nBits >>> m_nBitCount);
+      }
+      m_nBits &= (1 << m_nBitCount) - 1;
+    }
+
+    private void _ensureStarted ()
+    {
+      if (!m_bStarted)
+      {
+        // Always the same
+        _writeBits (AbstractLZWDictionary.CODE_CLEARTABLE, m_aDict.getCodeLength ());
+        m_bStarted = true;
+      }
+    }
+
+    private void _encodeNextByte ()
+    {
+      final byte nByteToEncode = m_aQueue[m_nQueueOfs++];
+      m_nQueueLen--;
+      if (m_nQueueLen == 0)
+        m_nQueueOfs = 0;
+
+      // Append current byte
+      if (m_nByteSeqLen == m_aByteSeq.length)
+        m_aByteSeq = Arrays.copyOf (m_aByteSeq, m_nByteSeqLen * 2);
+      m_aByteSeq[m_nByteSeqLen++] = nByteToEncode;
+      m_aDict.visit (nByteToEncode);
+      final int nCodeLength = m_aDict.getCodeLength ();
+
+      // The node of the previous sequence always has a child for this byte
+      m_aCurNode = m_nByteSeqLen == 1 ? m_aDict.getNode (new byte [] { nByteToEncode })
+                                      : m_aCurNode.getChildNode (nByteToEncode);
+      if (m_nQueueLen == 0)
+      {
+        // last byte
+        _writeBits (m_aCurNode.getTableIndex (), nCodeLength);
+        return;
+      }
+
+      // Is there a node for the following byte?
+      if (m_aCurNode.getChildNode (m_aQueue[m_nQueueOfs]) == null)
+      {
+        // No -> write down
+        _writeBits (m_aCurNode.getTableIndex (), nCodeLength);
+        m_nByteSeqLen = 0;
+      }
+
+      if (m_aDict.getNextFreeCode () == AbstractLZWDictionary.MAX_CODE - 1)
+      {
+        _writeBits (AbstractLZWDictionary.CODE_CLEARTABLE, nCodeLength);
+        m_aDict.reset ();
+
+        // Encode the current byte sequence again
+        if (m_nByteSeqLen > 0)
+        {
+          final byte [] aNewQueue = new byte [Math.max (m_aQueue.length, m_nByteSeqLen + m_nQueueLen)];
+          System.arraycopy (m_aByteSeq, 0, aNewQueue, 0, m_nByteSeqLen);
+          System.arraycopy (m_aQueue, m_nQueueOfs, aNewQueue, m_nByteSeqLen, m_nQueueLen);
+          m_aQueue = aNewQueue;
+          m_nQueueOfs = 0;
+          m_nQueueLen += m_nByteSeqLen;
+          m_nByteSeqLen = 0;
+        }
+      }
+    }
+
+    @Override
+    protected boolean hasInternalOutput ()
+    {
+      // The last byte in the queue needs the next byte or the end of input
+      return m_nQueueLen >= 2;
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      _ensureStarted ();
+
+      if (aIn.hasRemaining () && m_nQueueLen < m_aQueue.length)
+      {
+        if (m_nQueueOfs + m_nQueueLen == m_aQueue.length)
+        {
+          System.arraycopy (m_aQueue, m_nQueueOfs, m_aQueue, 0, m_nQueueLen);
+          m_nQueueOfs = 0;
+        }
+        final int nCount = Math.min (aIn.remaining (), m_aQueue.length - m_nQueueOfs - m_nQueueLen);
+        aIn.get (m_aQueue, m_nQueueOfs + m_nQueueLen, nCount);
+        m_nQueueLen += nCount;
+      }
+
+      while (m_nQueueLen >= 2 && !isOutputFull ())
+        _encodeNextByte ();
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      _ensureStarted ();
+
+      while (m_nQueueLen > 0 && !isOutputFull ())
+        _encodeNextByte ();
+      if (m_nQueueLen > 0)
+        return false;
+
+      int nCodeLength = m_aDict.getCodeLength ();
+      switch (m_aDict.getNextFreeCode ())
+      {
+        case 511:
+        case 1023:
+        case 2047:
+          nCodeLength++;
+          break;
+        default:
+          break;
+      }
+      _writeBits (AbstractLZWDictionary.CODE_EOF, nCodeLength);
+
+      // Flush the remaining bits
+      if (m_nBitCount > 0)
+      {
+        write (m_nBits << (8 - m_nBitCount));
+        m_nBits = 0;
+        m_nBitCount = 0;
+      }
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_aDict.reset ();
+      m_nQueueOfs = 0;
+      m_nQueueLen = 0;
+      m_nByteSeqLen = 0;
+      m_aCurNode = null;
+      m_nBits = 0;
+      m_nBitCount = 0;
+      m_bStarted = false;
+    }
+  }
+
+  /**
+   * Incremental LZW decoder. Data after the EOF code is ignored.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferDecoder extends AbstractByteBufferTranscoder implements IByteBufferDecoder
+  {
+    private static final int STATE_INIT = 0;
+    private static final int STATE_NORMAL = 1;
+    private static final int STATE_AFTER_CLEAR = 2;
+    private static final int STATE_DONE = 3;
+
+    private final LZWDecodeDictionary m_aDict = new LZWDecodeDictionary ();
+    private int m_nBits = 0;
+    private int m_nBitCount = 0;
+    private int m_nState = STATE_INIT;
+    private byte [] m_aPrevByteSeq;
+
+    ByteBufferDecoder ()
+    {
+      m_aDict.reset ();
+    }
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    private void _processCode (final int nCode)
+    {
+      if (nCode == AbstractLZWDictionary.CODE_EOF)
+      {
+        m_nState = STATE_DONE;
+        return;
+      }
+
+      byte [] aByteSeq;
+      switch (m_nState)
+      {
+        case STATE_INIT:
+          if (nCode == AbstractLZWDictionary.CODE_CLEARTABLE)
+            return;
+          aByteSeq = m_aDict.directGetAllBytes (nCode);
+          if (aByteSeq == null)
+            throw new DecodeException ("Failed to resolve initial code " + nCode);
+          break;
+        case STATE_AFTER_CLEAR:
+          // upon clear table, don't add something to the table
+          aByteSeq = m_aDict.directGetAllBytes (nCode);
+          if (aByteSeq == null)
+            throw new DecodeException ("Failed to resolve code " + nCode + " after clearing the table");
+          break;
+        default:
+          if (nCode == AbstractLZWDictionary.CODE_CLEARTABLE)
+          {
+            m_aDict.reset ();
+            m_nState = STATE_AFTER_CLEAR;
+            return;
+          }
+
+          final int nNextFreeCode = m_aDict.getNextFreeCode ();
+          if (nCode < nNextFreeCode)
+            aByteSeq = m_aDict.directGetAllBytes (nCode);
+          else
+            if (nCode == nNextFreeCode)
+              aByteSeq = ArrayHelper.getConcatenated (m_aPrevByteSeq, m_aPrevByteSeq[0]);
+            else
+              throw new DecodeException ("Error decoding LZW: unexpected code " +
+                                         nCode +
+                                         " while next free code is " +
+                                         nNextFreeCode);
+          m_aDict.addEntry (ArrayHelper.getConcatenated (m_aPrevByteSeq, aByteSeq[0]), false);
+          break;
+      }
+      write (aByteSeq, 0, aByteSeq.length);
+      m_aPrevByteSeq = aByteSeq;
+      m_nState = STATE_NORMAL;
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        if (m_nState == STATE_DONE)
+        {
+          // Ignore everything after EOF
+          aIn.position (aIn.limit ());
+          return;
+        }
+
+        m_nBits = (m_nBits << 8) | (aIn.get () & 0xff);
+        m_nBitCount += 8;
+        while (m_nState != STATE_DONE && m_nBitCount >= m_aDict.m_nCodeBits)
+        {
+          m_nBitCount -= m_aDict.m_nCodeBits;
+          final int nCode = m_nBits >>> m_nBitCount;
+          m_nBits &= (1 << m_nBitCount) - 1;
+          _processCode (nCode);
+        }
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (m_nState != STATE_DONE)
+        throw new DecodeException ("Unexpected EOF decoding LZW");
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_aDict.reset ();
+      m_nBits = 0;
+      m_nBitCount = 0;
+      m_nState = STATE_INIT;
+      m_aPrevByteSeq = null;
+    }
+  }
+
+  @Nonnull
+  public IByteBufferEncoder createByteBufferEncoder ()
+  {
+    return new ByteBufferEncoder ();
+  }
+
+  @Nonnull
+  public IByteBufferDecoder createByteBufferDecoder ()
+  {
+    return new ByteBufferDecoder ();
+  }
 }
@@ -18,6 +18,7 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -31,7 +32,7 @@ import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
  *
  * @author Philip Helger
  */
-public class RunLengthCodec implements IByteArrayStreamDecoder
+public class RunLengthCodec implements IByteArrayStreamDecoder, IByteBufferDecoderProvider
 {
   protected static final int RUN_LENGTH_EOD = 0x80;
 
@@ -84,4 +85,93 @@ public class RunLengthCodec implements IByteArrayStreamDecoder
       throw new DecodeException ("Failed to decode RunLength", ex);
     }
   }
+
+  /**
+   * Incremental run length decoder.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferDecoder extends AbstractByteBufferTranscoder implements IByteBufferDecoder
+  {
+    // Number of literal bytes still to copy
+    private int m_nAmountToCopy = 0;
+    // Number of repetitions of the next byte or 0
+    private int m_nDupAmount = 0;
+    private boolean m_bEOD = false;
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      if (m_bEOD)
+      {
+        // Ignore everything after the end of data
+        aIn.position (aIn.limit ());
+        return;
+      }
+
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        final int nByte = aIn.get () & 0xff;
+        if (m_nAmountToCopy > 0)
+        {
+          write (nByte);
+          m_nAmountToCopy--;
+        }
+        else
+          if (m_nDupAmount > 0)
+          {
+            for (int i = 0; i < m_nDupAmount; i++)
+              write (nByte);
+            m_nDupAmount = 0;
+          }
+          else
+            if (nByte == RUN_LENGTH_EOD)
+            {
+              m_bEOD = true;
+              aIn.position (aIn.limit ());
+            }
+            else
+              if (nByte <= 0x7f)
+              {
+                // no duplicates present
+                m_nAmountToCopy = nByte;
+              }
+              else
+              {
+                // The next byte is repeated for 257-nByte times
+                m_nDupAmount = 257 - nByte;
+              }
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (m_nAmountToCopy > 0)
+        throw new DecodeException ("Unexpected EOF in RunLengthCodec - " + m_nAmountToCopy + " elements left");
+      if (m_nDupAmount > 0)
+        throw new DecodeException ("Unexpected EOF in RunLengthCodec");
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_nAmountToCopy = 0;
+      m_nDupAmount = 0;
+      m_bEOD = false;
+    }
+  }
+
+  @Nonnull
+  public IByteBufferDecoder createByteBufferDecoder ()
+  {
+    return new ByteBufferDecoder ();
+  }
 }
@@ -18,6 +18,7 @@ package com.helger.commons.codec;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.BitSet;
 
 import javax.annotation.Nonnegative;
@@ -35,7 +36,7 @@ import com.helger.commons.string.StringHelper;
  * @author Philip Helger
  */
 @ThreadSafe
-public class URLCodec implements IByteArrayCodec
+public class URLCodec implements IByteArrayCodec, IByteBufferEncoderProvider, IByteBufferDecoderProvider
 {
   private static final byte ESCAPE_CHAR = '%';
   private static final byte SPACE = ' ';
@@ -199,4 +200,136 @@ public class URLCodec implements IByteArrayCodec
       throw new DecodeException ("Failed to decode URL", ex);
     }
   }
+
+  /**
+   * Incremental URL encoder.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferEncoder extends AbstractByteBufferTranscoder implements IByteBufferEncoder
+  {
+    private final BitSet m_aPrintableChars;
+
+    ByteBufferEncoder (@Nonnull final BitSet aPrintableChars)
+    {
+      m_aPrintableChars = aPrintableChars;
+    }
+
+    @Nonnull
+    public ECodecResult encode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        final int b = aIn.get () & 0xff;
+        if (m_aPrintableChars.get (b))
+        {
+          if (b == SPACE)
+            write (PLUS);
+          else
+            write (b);
+        }
+        else
+        {
+          write (ESCAPE_CHAR);
+          write (StringHelper.getHexCharUpperCase ((b >> 4) & 0xF));
+          write (StringHelper.getHexCharUpperCase (b & 0xF));
+        }
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {}
+  }
+
+  /**
+   * Incremental URL decoder.
+   *
+   * @author Philip Helger
+   */
+  private static final class ByteBufferDecoder extends AbstractByteBufferTranscoder implements IByteBufferDecoder
+  {
+    // 0 = regular; 1 = after escape char; 2 = after first hex char
+    private int m_nState = 0;
+    private char m_cHigh;
+
+    @Nonnull
+    public ECodecResult decode (@Nonnull final ByteBuffer aIn, @Nonnull final ByteBuffer aOut, final boolean bEndOfInput)
+    {
+      return transcode (aIn, aOut, bEndOfInput);
+    }
+
+    @Override
+    protected void processInput (@Nonnull final ByteBuffer aIn)
+    {
+      while (aIn.hasRemaining () && !isOutputFull ())
+      {
+        final byte b = aIn.get ();
+        switch (m_nState)
+        {
+          case 1:
+            m_cHigh = (char) b;
+            m_nState = 2;
+            break;
+          case 2:
+          {
+            final char cLow = (char) b;
+            final int nDecodedValue = StringHelper.getHexByte (m_cHigh, cLow);
+            if (nDecodedValue < 0)
+              throw new DecodeException ("Invalid URL encoding for " + (int) m_cHigh + " and " + (int) cLow);
+            write (nDecodedValue);
+            m_nState = 0;
+            break;
+          }
+          default:
+            if (b == PLUS)
+              write (SPACE);
+            else
+              if (b == ESCAPE_CHAR)
+                m_nState = 1;
+              else
+                write (b);
+            break;
+        }
+      }
+    }
+
+    @Override
+    protected boolean processEndOfInput ()
+    {
+      if (m_nState != 0)
+        throw new DecodeException ("Invalid URL encoding. Premature end of input after escape char");
+      return true;
+    }
+
+    @Override
+    protected void onReset ()
+    {
+      m_nState = 0;
+    }
+  }
+
+  @Nonnull
+  public IByteBufferEncoder createByteBufferEncoder ()
+  {
+    return new ByteBufferEncoder (m_aPrintableChars);
+  }
+
+  @Nonnull
+  public IByteBufferDecoder createByteBufferDecoder ()
+  {
+    return new ByteBufferDecoder ();
+  }
 }
@@ -23,6 +23,9 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.state.EChange;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.commons.typeconvert.ConvertedValueCache;
 
 /**
  * Base class for all kind of string-object mapping container. This
@@ -36,6 +39,9 @@ import com.helger.commons.annotation.ReturnsMutableCopy;
 public class AttributeContainerAny <KEYTYPE> extends AttributeContainer <KEYTYPE, Object> implements
                                    IAttributeContainerAny <KEYTYPE>
 {
+  private final ConvertedValueCacheHolder <KEYTYPE> m_aConvertedValueCacheHolder =
+                                                                new ConvertedValueCacheHolder <> (afterSetValueCallbacks ());
+
   public AttributeContainerAny ()
   {
     super ();
@@ -46,6 +52,51 @@ public class AttributeContainerAny <KEYTYPE> extends AttributeContainer <KEYTYPE
     super (aMap);
   }
 
+  /**
+   * Enable the cache for converted values. Afterwards the results of the typed
+   * getters are cached per key and destination class. The cache is
+   * invalidated on all changes via {@link #putIn(Object, Object)}. Values
+   * changed in other ways are detected on access.
+   *
+   * @return {@link EChange#CHANGED} if the cache was enabled,
+   *         {@link EChange#UNCHANGED} if it was already enabled.
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final EChange enableConvertedValueCache ()
+  {
+    return m_aConvertedValueCacheHolder.enable ();
+  }
+
+  /**
+   * Disable the cache for converted values and drop all cached values.
+   *
+   * @return {@link EChange#CHANGED} if the cache was disabled,
+   *         {@link EChange#UNCHANGED} if it was not enabled.
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final EChange disableConvertedValueCache ()
+  {
+    return m_aConvertedValueCacheHolder.disable ();
+  }
+
+  /**
+   * @return <code>true</code> if the cache for converted values is enabled.
+   * @since 9.4.3
+   */
+  public final boolean isConvertedValueCacheEnabled ()
+  {
+    return m_aConvertedValueCacheHolder.isEnabled ();
+  }
+
+  @Override
+  @Nullable
+  public final ConvertedValueCache <KEYTYPE> getConvertedValueCache ()
+  {
+    return m_aConvertedValueCacheHolder.getCache ();
+  }
+
   @Override
   @Nonnull
   @ReturnsMutableCopy
@@ -53,4 +104,12 @@ public class AttributeContainerAny <KEYTYPE> extends AttributeContainer <KEYTYPE
   {
     return new AttributeContainerAny <> (this);
   }
+
+  @Override
+  public String toString ()
+  {
+    return ToStringGenerator.getDerived (super.toString ())
+                            .appendIfNotNull ("ConvertedValueCache", m_aConvertedValueCacheHolder.getCache ())
+                            .getToString ();
+  }
 }
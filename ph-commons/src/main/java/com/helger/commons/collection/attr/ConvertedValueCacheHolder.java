@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.collection.attr;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.callback.CallbackList;
+import com.helger.commons.collection.attr.IAttributeContainer.IAfterSetValueCallback;
+import com.helger.commons.state.EChange;
+import com.helger.commons.typeconvert.ConvertedValueCache;
+
+/**
+ * The optional {@link ConvertedValueCache} of {@link AttributeContainerAny}
+ * and {@link AttributeContainerAnyConcurrent}. While enabled, it is registered
+ * as an after-set-value callback of the owning container to invalidate the
+ * changed keys.
+ *
+ * @author Philip Helger
+ * @param <KEYTYPE>
+ *        Key type
+ * @since 9.4.3
+ */
+@ThreadSafe
+final class ConvertedValueCacheHolder <KEYTYPE> implements IAfterSetValueCallback <KEYTYPE, Object>
+{
+  private final CallbackList <IAfterSetValueCallback <KEYTYPE, Object>> m_aCallbacks;
+  private transient volatile ConvertedValueCache <KEYTYPE> m_aCache;
+
+  ConvertedValueCacheHolder (@Nonnull final CallbackList <IAfterSetValueCallback <KEYTYPE, Object>> aCallbacks)
+  {
+    ValueEnforcer.notNull (aCallbacks, "Callbacks");
+    m_aCallbacks = aCallbacks;
+  }
+
+  public void afterSetValue (@Nonnull final KEYTYPE aName,
+                             @Nullable final Object aOldValue,
+                             @Nullable final Object aNewValue)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = m_aCache;
+    if (aCache != null)
+      aCache.invalidate (aName);
+  }
+
+  @Nonnull
+  synchronized EChange enable ()
+  {
+    if (m_aCache != null)
+      return EChange.UNCHANGED;
+    m_aCache = new ConvertedValueCache <> ();
+    // Still registered if the cache was enabled before serialization
+    if (!m_aCallbacks.getAllCallbacks ().contains (this))
+      m_aCallbacks.add (this);
+    return EChange.CHANGED;
+  }
+
+  @Nonnull
+  synchronized EChange disable ()
+  {
+    if (m_aCache == null)
+      return EChange.UNCHANGED;
+    m_aCache = null;
+    m_aCallbacks.removeObject (this);
+    return EChange.CHANGED;
+  }
+
+  boolean isEnabled ()
+  {
+    return m_aCache != null;
+  }
+
+  @Nullable
+  ConvertedValueCache <KEYTYPE> getCache ()
+  {
+    return m_aCache;
+  }
+
+  @Override
+  public String toString ()
+  {
+    // Avoid a cycle via the callback list of the owning container
+    return String.valueOf (m_aCache);
+  }
+}
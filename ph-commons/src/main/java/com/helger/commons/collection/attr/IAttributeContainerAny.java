@@ -17,9 +17,12 @@
 package com.helger.commons.collection.attr;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.state.EChange;
+import com.helger.commons.typeconvert.ConvertedValueCache;
+import com.helger.commons.typeconvert.TypeConverter;
 
 /**
  * This is the writable extension of the {@link IAttributeContainer &lt;String,
@@ -134,6 +137,175 @@ public interface IAttributeContainerAny <KEYTYPE> extends IAttributeContainer <K
     return putIn (aName, Double.valueOf (dValue));
   }
 
+  /**
+   * @return The optional cache for converted values. If it is present, the
+   *         results of the typed getters are cached per key and destination
+   *         class. <code>null</code> by default.
+   * @since 9.4.3
+   */
+  @Nullable
+  default ConvertedValueCache <KEYTYPE> getConvertedValueCache ()
+  {
+    return null;
+  }
+
+  @Override
+  @Nullable
+  default <T> T getConvertedValue (@Nullable final KEYTYPE aKey, @Nonnull final Class <T> aClass)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getConvertedValue (aKey, aClass);
+
+    final Object aValue = getValue (aKey);
+    final T ret = aCache.getConvertedValue (aKey, aValue, aClass);
+    if (ret != null || aValue == null)
+      return ret;
+    // Conversion failed - throws TypeConverterException
+    return TypeConverter.convert (aValue, aClass);
+  }
+
+  @Override
+  @Nullable
+  default <T> T getConvertedValue (@Nullable final KEYTYPE aKey,
+                                   @Nullable final T aDefault,
+                                   @Nonnull final Class <T> aClass)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getConvertedValue (aKey, aDefault, aClass);
+
+    final T ret = aCache.getConvertedValue (aKey, getValue (aKey), aClass);
+    return ret != null ? ret : aDefault;
+  }
+
+  @Override
+  default boolean getAsBoolean (@Nullable final KEYTYPE aKey, final boolean bDefault)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsBoolean (aKey, bDefault);
+
+    final Boolean ret = aCache.getConvertedValue (aKey, getValue (aKey), Boolean.class);
+    return ret != null ? ret.booleanValue () : bDefault;
+  }
+
+  @Override
+  default byte getAsByte (@Nullable final KEYTYPE aKey)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsByte (aKey);
+
+    final Object aValue = getValue (aKey);
+    final Byte ret = aCache.getConvertedValue (aKey, aValue, Byte.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.byteValue () : TypeConverter.convertToByte (aValue);
+  }
+
+  @Override
+  default byte getAsByte (@Nullable final KEYTYPE aKey, final byte nDefault)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsByte (aKey, nDefault);
+
+    final Byte ret = aCache.getConvertedValue (aKey, getValue (aKey), Byte.class);
+    return ret != null ? ret.byteValue () : nDefault;
+  }
+
+  @Override
+  default char getAsChar (@Nullable final KEYTYPE aKey)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsChar (aKey);
+
+    final Object aValue = getValue (aKey);
+    final Character ret = aCache.getConvertedValue (aKey, aValue, Character.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.charValue () : TypeConverter.convertToChar (aValue);
+  }
+
+  @Override
+  default char getAsChar (@Nullable final KEYTYPE aKey, final char cDefault)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsChar (aKey, cDefault);
+
+    final Character ret = aCache.getConvertedValue (aKey, getValue (aKey), Character.class);
+    return ret != null ? ret.charValue () : cDefault;
+  }
+
+  @Override
+  default double getAsDouble (@Nullable final KEYTYPE aKey, final double dDefault)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsDouble (aKey, dDefault);
+
+    final Double ret = aCache.getConvertedValue (aKey, getValue (aKey), Double.class);
+    return ret != null ? ret.doubleValue () : dDefault;
+  }
+
+  @Override
+  default float getAsFloat (@Nullable final KEYTYPE aKey, final float fDefault)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsFloat (aKey, fDefault);
+
+    final Float ret = aCache.getConvertedValue (aKey, getValue (aKey), Float.class);
+    return ret != null ? ret.floatValue () : fDefault;
+  }
+
+  @Override
+  default int getAsInt (@Nullable final KEYTYPE aKey, final int nDefault)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsInt (aKey, nDefault);
+
+    final Integer ret = aCache.getConvertedValue (aKey, getValue (aKey), Integer.class);
+    return ret != null ? ret.intValue () : nDefault;
+  }
+
+  @Override
+  default long getAsLong (@Nullable final KEYTYPE aKey, final long nDefault)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsLong (aKey, nDefault);
+
+    final Long ret = aCache.getConvertedValue (aKey, getValue (aKey), Long.class);
+    return ret != null ? ret.longValue () : nDefault;
+  }
+
+  @Override
+  default short getAsShort (@Nullable final KEYTYPE aKey)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsShort (aKey);
+
+    final Object aValue = getValue (aKey);
+    final Short ret = aCache.getConvertedValue (aKey, aValue, Short.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.shortValue () : TypeConverter.convertToShort (aValue);
+  }
+
+  @Override
+  default short getAsShort (@Nullable final KEYTYPE aKey, final short nDefault)
+  {
+    final ConvertedValueCache <KEYTYPE> aCache = getConvertedValueCache ();
+    if (aCache == null)
+      return IAttributeContainer.super.getAsShort (aKey, nDefault);
+
+    final Short ret = aCache.getConvertedValue (aKey, getValue (aKey), Short.class);
+    return ret != null ? ret.shortValue () : nDefault;
+  }
+
   /**
    * Atomic operation to set a flag to <code>true</code> if it was previously
    * set to <code>false</code> (meaning not existing). There is no possibility
@@ -0,0 +1,976 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Read a large CSV file with multiple threads. The file is memory mapped and
+ * split into chunks that each start at a record boundary. The chunks are then
+ * decoded and parsed concurrently with {@link CSVRecordReader}, so the same
+ * rules as for {@link CSVReader} apply.<br>
+ * Because a line break inside a quoted field does not end a record, the record
+ * boundaries are found by a scan that only tracks the quoting state. The file
+ * is split into segments at line breaks and each segment is scanned in
+ * parallel twice: once assuming the line break ended a record and once
+ * assuming it is inside a quoted field. Afterwards the results of the matching
+ * assumptions are chained. Only segments where neither assumption holds are
+ * scanned again sequentially.<br>
+ * Because the scan works on bytes, the charset must be ASCII compatible (e.g.
+ * UTF-8, US-ASCII, ISO-8859-x or windows-125x), and the separator, quote and
+ * escape characters must be ASCII characters.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class CSVParallelReader
+{
+  public static final long DEFAULT_CHUNK_SIZE = 8L * CGlobal.BYTES_PER_MEGABYTE;
+  /** The largest chunk that fits into an array */
+  public static final long DEFAULT_MAX_CHUNK_SIZE = Integer.MAX_VALUE - 8;
+  private static final long SCAN_SEGMENT_SIZE = 256L * CGlobal.BYTES_PER_MEGABYTE;
+  private static final int SCAN_SEGMENTS_PER_THREAD = 4;
+
+  /**
+   * A single chunk of the file.
+   *
+   * @author Philip Helger
+   */
+  private static final class Chunk
+  {
+    private final long m_nStart;
+    private final long m_nEnd;
+
+    Chunk (final long nStart, final long nEnd)
+    {
+      m_nStart = nStart;
+      m_nEnd = nEnd;
+    }
+  }
+
+  /**
+   * Sequential access to the bytes of a file via memory mapped segments. The
+   * bytes are copied in blocks into a heap array, because array access is
+   * considerably cheaper than single byte access on the mapped buffer.
+   *
+   * @author Philip Helger
+   */
+  private static final class MappedByteSource
+  {
+    private static final int WINDOW_SIZE = 64 * CGlobal.BYTES_PER_KILOBYTE;
+
+    private final FileChannel m_aChannel;
+    private final long m_nSize;
+    private MappedByteBuffer m_aSegment;
+    private long m_nSegmentStart = 0;
+    private long m_nSegmentEnd = 0;
+    private final byte [] m_aWindow = new byte [WINDOW_SIZE];
+    private long m_nWindowStart = 0;
+    private int m_nWindowLen = 0;
+
+    MappedByteSource (@Nonnull final FileChannel aChannel) throws IOException
+    {
+      m_aChannel = aChannel;
+      m_nSize = aChannel.size ();
+    }
+
+    private void _fillWindow (final long nPos) throws IOException
+    {
+      if (nPos < m_nSegmentStart || nPos >= m_nSegmentEnd)
+      {
+        m_nSegmentStart = nPos;
+        m_nSegmentEnd = Math.min (m_nSize, nPos + SCAN_SEGMENT_SIZE);
+        m_aSegment = m_aChannel.map (FileChannel.MapMode.READ_ONLY, m_nSegmentStart, m_nSegmentEnd - m_nSegmentStart);
+      }
+      m_nWindowStart = nPos;
+      m_nWindowLen = (int) Math.min (WINDOW_SIZE, m_nSegmentEnd - nPos);
+      m_aSegment.position ((int) (nPos - m_nSegmentStart));
+      m_aSegment.get (m_aWindow, 0, m_nWindowLen);
+    }
+
+    /**
+     * @param nPos
+     *        absolute position
+     * @return the byte at the position or -1 at EOF
+     */
+    int get (final long nPos) throws IOException
+    {
+      long nIndex = nPos - m_nWindowStart;
+      if (nIndex < 0 || nIndex >= m_nWindowLen)
+      {
+        if (nPos >= m_nSize)
+          return -1;
+        _fillWindow (nPos);
+        nIndex = 0;
+      }
+      return m_aWindow[(int) nIndex] & 0xff;
+    }
+
+    /**
+     * Skip all bytes that are not marked as special.
+     *
+     * @param nPos
+     *        absolute start position
+     * @param aSpecial
+     *        lookup table with 256 entries
+     * @return the position of the first special byte or the file size
+     */
+    long skipPlain (final long nPos, @Nonnull final boolean [] aSpecial) throws IOException
+    {
+      long nCur = nPos;
+      while (get (nCur) >= 0)
+      {
+        int nIndex = (int) (nCur - m_nWindowStart);
+        final int nWindowLen = m_nWindowLen;
+        final byte [] aWindow = m_aWindow;
+        while (nIndex < nWindowLen && !aSpecial[aWindow[nIndex] & 0xff])
+          nIndex++;
+        nCur = m_nWindowStart + nIndex;
+        if (nIndex < nWindowLen)
+          break;
+      }
+      return nCur;
+    }
+  }
+
+  /**
+   * The result of scanning a part of the file for record boundaries.
+   *
+   * @author Philip Helger
+   */
+  private static final class ScanResult
+  {
+    // Positions where a chunk may start
+    private final ICommonsList <Long> m_aBoundaries;
+    private final long m_nEnd;
+    private final boolean m_bInQuotes;
+    private final boolean m_bInField;
+
+    ScanResult (@Nonnull final ICommonsList <Long> aBoundaries,
+                final long nEnd,
+                final boolean bInQuotes,
+                final boolean bInField)
+    {
+      m_aBoundaries = aBoundaries;
+      m_nEnd = nEnd;
+      m_bInQuotes = bInQuotes;
+      m_bInField = bInField;
+    }
+  }
+
+  /**
+   * A segment of the file that starts directly after a line break, scanned
+   * with the two possible states at the start.
+   *
+   * @author Philip Helger
+   */
+  private static final class Segment
+  {
+    private final long m_nStart;
+    private final long m_nEnd;
+    // The line break before the start ended a record
+    private final ScanResult m_aAtRecordStart;
+    // The line break before the start is inside a quoted field
+    private final ScanResult m_aInQuotes;
+
+    Segment (final long nStart,
+             final long nEnd,
+             @Nullable final ScanResult aAtRecordStart,
+             @Nullable final ScanResult aInQuotes)
+    {
+      m_nStart = nStart;
+      m_nEnd = nEnd;
+      m_aAtRecordStart = aAtRecordStart;
+      m_aInQuotes = aInQuotes;
+    }
+  }
+
+  /**
+   * The state machine to find record boundaries. It is the same state machine
+   * as in {@link CSVRecordReader}, but only the quoting state is tracked.
+   *
+   * @author Philip Helger
+   */
+  private static final class BoundaryScanner
+  {
+    private final char m_cSeparator;
+    private final char m_cQuote;
+    private final char m_cEscape;
+    private final boolean m_bStrictQuotes;
+    private final boolean m_bQuotationsActive;
+    private final boolean [] m_aSpecial = new boolean [256];
+    private final long m_nChunkSize;
+
+    BoundaryScanner (@Nonnull final CSVParser aParser, final long nChunkSize)
+    {
+      m_cSeparator = aParser.getSeparatorChar ();
+      m_cQuote = aParser.getQuoteChar ();
+      m_cEscape = aParser.getEscapeChar ();
+      _checkASCII (m_cSeparator, "separator");
+      _checkASCII (m_cQuote, "quote");
+      _checkASCII (m_cEscape, "escape");
+      m_bStrictQuotes = aParser.isStrictQuotes ();
+      m_bQuotationsActive = !aParser.isIgnoreQuotations ();
+      m_aSpecial['\n'] = true;
+      m_aSpecial['\r'] = true;
+      m_aSpecial[m_cSeparator] = true;
+      m_aSpecial[m_cQuote] = true;
+      m_aSpecial[m_cEscape] = true;
+      m_nChunkSize = nChunkSize;
+    }
+
+    /**
+     * Scan a part of the file.
+     *
+     * @param aSrc
+     *        The byte source to use.
+     * @param nStart
+     *        The absolute start position.
+     * @param nEnd
+     *        The absolute position to scan to. The scan may end slightly after
+     *        it, if a line break or an escape sequence crosses it.
+     * @param bStartInQuotes
+     *        The quoting state at the start.
+     * @param bStartInField
+     *        The field state at the start.
+     * @return The boundaries after each record that ends at least chunk size
+     *         bytes after the previous boundary, and the state at the end. The
+     *         start position is contained if it is a record start. Never
+     *         <code>null</code>.
+     * @throws IOException
+     *         On read error
+     */
+    @Nonnull
+    ScanResult scan (@Nonnull final MappedByteSource aSrc,
+                     final long nStart,
+                     final long nEnd,
+                     final boolean bStartInQuotes,
+                     final boolean bStartInField) throws IOException
+    {
+      final ICommonsList <Long> aBoundaries = new CommonsArrayList <> ();
+      long nLastBoundary;
+      if (!bStartInQuotes && !bStartInField)
+      {
+        aBoundaries.add (Long.valueOf (nStart));
+        nLastBoundary = nStart;
+      }
+      else
+      {
+        // The first record end is always a boundary
+        nLastBoundary = Long.MIN_VALUE / 2;
+      }
+
+      long nPos = nStart;
+      boolean bInQuotes = bStartInQuotes;
+      boolean bInField = bStartInField;
+      while (nPos < nEnd)
+      {
+        // Fast path for all bytes without special meaning
+        final long nPlainEnd = aSrc.skipPlain (nPos, m_aSpecial);
+        if (nPlainEnd > nPos)
+        {
+          if (!m_bStrictQuotes || (bInQuotes && m_bQuotationsActive))
+            bInField = true;
+          nPos = nPlainEnd;
+        }
+        final int b = aSrc.get (nPos);
+        if (b < 0)
+          break;
+
+        if (b == '\n' || b == '\r')
+        {
+          nPos++;
+          if (b == '\r' && aSrc.get (nPos) == '\n')
+            nPos++;
+          if (!(bInQuotes && m_bQuotationsActive))
+          {
+            // End of record
+            bInQuotes = false;
+            bInField = false;
+            if (nPos - nLastBoundary >= m_nChunkSize)
+            {
+              aBoundaries.add (Long.valueOf (nPos));
+              nLastBoundary = nPos;
+            }
+          }
+        }
+        else
+          if (b == m_cEscape)
+          {
+            if ((bInQuotes && m_bQuotationsActive) || bInField)
+            {
+              final int nNext = aSrc.get (nPos + 1);
+              if (nNext == m_cQuote || nNext == m_cEscape)
+                nPos++;
+            }
+            nPos++;
+          }
+          else
+            if (b == m_cQuote)
+            {
+              if (((bInQuotes && m_bQuotationsActive) || bInField) && aSrc.get (nPos + 1) == m_cQuote)
+                nPos++;
+              else
+                bInQuotes = !bInQuotes;
+              nPos++;
+              bInField = !bInField;
+            }
+            else
+            {
+              if (b == m_cSeparator && !(bInQuotes && m_bQuotationsActive))
+                bInField = false;
+              else
+                if (!m_bStrictQuotes || (bInQuotes && m_bQuotationsActive))
+                  bInField = true;
+              nPos++;
+            }
+      }
+      return new ScanResult (aBoundaries, nPos, bInQuotes, bInField);
+    }
+  }
+
+  private final Path m_aPath;
+  private final Charset m_aCharset;
+  private CSVParser m_aParser = new CSVParser ();
+  private int m_nSkipLines = CCSV.DEFAULT_SKIP_LINES;
+  private long m_nChunkSize = DEFAULT_CHUNK_SIZE;
+  private long m_nMaxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
+  private int m_nThreadCount = Runtime.getRuntime ().availableProcessors ();
+
+  public CSVParallelReader (@Nonnull final File aFile, @Nonnull final Charset aCharset)
+  {
+    this (ValueEnforcer.notNull (aFile, "File").toPath (), aCharset);
+  }
+
+  public CSVParallelReader (@Nonnull final Path aPath, @Nonnull final Charset aCharset)
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    ValueEnforcer.notNull (aCharset, "Charset");
+    ValueEnforcer.isTrue (isSupportedCharset (aCharset), () -> "Charset " + aCharset + " is not ASCII compatible");
+    m_aPath = aPath;
+    m_aCharset = aCharset;
+  }
+
+  /**
+   * Check if the provided charset can be used with this class.
+   *
+   * @param aCharset
+   *        The charset to check. May be <code>null</code>.
+   * @return <code>true</code> if the charset is ASCII compatible in a way that
+   *         all bytes &lt; 0x80 always represent the respective ASCII
+   *         character.
+   */
+  public static boolean isSupportedCharset (@Nullable final Charset aCharset)
+  {
+    if (aCharset == null)
+      return false;
+    if (aCharset.equals (StandardCharsets.UTF_8) ||
+        aCharset.equals (StandardCharsets.US_ASCII) ||
+        aCharset.equals (StandardCharsets.ISO_8859_1))
+      return true;
+    final String sName = aCharset.name ();
+    return sName.startsWith ("ISO-8859-") || sName.startsWith ("windows-125");
+  }
+
+  @Nonnull
+  public final Path getPath ()
+  {
+    return m_aPath;
+  }
+
+  @Nonnull
+  public final Charset getCharset ()
+  {
+    return m_aCharset;
+  }
+
+  /**
+   * @return The parser providing the settings. Never <code>null</code>.
+   */
+  @Nonnull
+  public final CSVParser getParser ()
+  {
+    return m_aParser;
+  }
+
+  /**
+   * Set the parser providing the settings.
+   *
+   * @param aParser
+   *        The parser to use. May not be <code>null</code>. The separator,
+   *        quote and escape characters must be ASCII characters.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CSVParallelReader setParser (@Nonnull final CSVParser aParser)
+  {
+    ValueEnforcer.notNull (aParser, "Parser");
+    m_aParser = aParser;
+    return this;
+  }
+
+  @Nonnegative
+  public final int getSkipLines ()
+  {
+    return m_nSkipLines;
+  }
+
+  @Nonnull
+  public final CSVParallelReader setSkipLines (@Nonnegative final int nSkipLines)
+  {
+    ValueEnforcer.isGE0 (nSkipLines, "SkipLines");
+    m_nSkipLines = nSkipLines;
+    return this;
+  }
+
+  @Nonnegative
+  public final long getChunkSize ()
+  {
+    return m_nChunkSize;
+  }
+
+  /**
+   * Set the approximate number of bytes per chunk. A chunk always starts at
+   * the start of a record, so chunks may be smaller or larger.
+   *
+   * @param nChunkSize
+   *        The chunk size in bytes. Must be &gt; 0 and &lt; 1GB.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CSVParallelReader setChunkSize (@Nonnegative final long nChunkSize)
+  {
+    ValueEnforcer.isBetweenInclusive (nChunkSize, "ChunkSize", 1, CGlobal.BYTES_PER_GIGABYTE - 1);
+    m_nChunkSize = nChunkSize;
+    return this;
+  }
+
+  @Nonnegative
+  public final long getMaxChunkSize ()
+  {
+    return m_nMaxChunkSize;
+  }
+
+  /**
+   * Set the maximum number of bytes per chunk. If no record ends within this
+   * number of bytes, e.g. because of a quoted field that is not terminated,
+   * reading fails with an {@link IOException}. This should be a lot larger
+   * than the chunk size.
+   *
+   * @param nMaxChunkSize
+   *        The maximum chunk size in bytes. Must be &gt; 0 and &le;
+   *        {@link #DEFAULT_MAX_CHUNK_SIZE}.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CSVParallelReader setMaxChunkSize (@Nonnegative final long nMaxChunkSize)
+  {
+    ValueEnforcer.isBetweenInclusive (nMaxChunkSize, "MaxChunkSize", 1, DEFAULT_MAX_CHUNK_SIZE);
+    m_nMaxChunkSize = nMaxChunkSize;
+    return this;
+  }
+
+  @Nonnegative
+  public final int getThreadCount ()
+  {
+    return m_nThreadCount;
+  }
+
+  /**
+   * @param nThreadCount
+   *        The number of threads to use for the consumer based methods. Must
+   *        be &gt; 0.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CSVParallelReader setThreadCount (@Nonnegative final int nThreadCount)
+  {
+    ValueEnforcer.isGT0 (nThreadCount, "ThreadCount");
+    m_nThreadCount = nThreadCount;
+    return this;
+  }
+
+  private static void _checkASCII (final char c, @Nonnull final String sName)
+  {
+    if (c >= 0x80)
+      throw new IllegalStateException ("The " + sName + " character must be an ASCII character");
+  }
+
+  /**
+   * Get the position after the next line break.
+   *
+   * @param aSrc
+   *        The byte source to use.
+   * @param nPos
+   *        The absolute position to start searching.
+   * @return The position after the next line break or the file size.
+   * @throws IOException
+   *         On read error
+   */
+  private static long _getNextLineStart (@Nonnull final MappedByteSource aSrc, final long nPos) throws IOException
+  {
+    long nCur = nPos;
+    int b;
+    while ((b = aSrc.get (nCur)) >= 0)
+    {
+      nCur++;
+      if (b == '\n')
+        break;
+      if (b == '\r')
+      {
+        if (aSrc.get (nCur) == '\n')
+          nCur++;
+        break;
+      }
+    }
+    return nCur;
+  }
+
+  private void _addChunk (@Nonnull final ICommonsList <Chunk> aChunks, final long nStart, final long nEnd) throws IOException
+  {
+    if (nEnd - nStart > m_nMaxChunkSize)
+      throw new IOException ("No CSV record ends between byte offsets " +
+                             nStart +
+                             " and " +
+                             nEnd +
+                             ", which exceeds the maximum chunk size of " +
+                             m_nMaxChunkSize +
+                             " bytes - probably a quoted field is not terminated");
+    aChunks.add (new Chunk (nStart, nEnd));
+  }
+
+  /**
+   * Determine the chunks of the file. All chunks start at a record boundary.
+   *
+   * @param aES
+   *        The executor service used to scan the segments of the file.
+   * @param aChannel
+   *        The open channel of the file. It is not closed by this method.
+   * @return The list of chunks. Never <code>null</code>.
+   * @throws IOException
+   *         On read error or if a chunk would exceed the maximum chunk size
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  private ICommonsList <Chunk> _getChunks (@Nonnull final ExecutorService aES,
+                                           @Nonnull final FileChannel aChannel) throws IOException
+  {
+    final BoundaryScanner aScanner = new BoundaryScanner (m_aParser, m_nChunkSize);
+
+    final ICommonsList <Chunk> ret = new CommonsArrayList <> ();
+    try
+    {
+      final MappedByteSource aSrc = new MappedByteSource (aChannel);
+      final long nSize = aChannel.size ();
+      long nDataStart = 0;
+      for (int i = 0; i < m_nSkipLines; ++i)
+        nDataStart = _getNextLineStart (aSrc, nDataStart);
+
+      // Scan the segments speculatively in parallel
+      final long nFirstStart = nDataStart;
+      final long nSegmentSize = Math.max (m_nChunkSize,
+                                          (nSize - nDataStart) / ((long) m_nThreadCount * SCAN_SEGMENTS_PER_THREAD) + 1);
+      final ICommonsList <Future <Segment>> aFutures = new CommonsArrayList <> ();
+      for (long nApprox = nDataStart; nApprox < nSize; nApprox += nSegmentSize)
+      {
+        final long nApproxStart = nApprox;
+        aFutures.add (aES.submit ( () -> {
+          final MappedByteSource aSegmentSrc = new MappedByteSource (aChannel);
+          final long nStart = nApproxStart == nFirstStart ? nFirstStart : _getNextLineStart (aSegmentSrc, nApproxStart);
+          final long nEnd = nApproxStart + nSegmentSize >= nSize ? nSize
+                                                                 : _getNextLineStart (aSegmentSrc,
+                                                                                      nApproxStart + nSegmentSize);
+          if (nStart >= nEnd)
+            return new Segment (nStart, nEnd, null, null);
+          return new Segment (nStart,
+                              nEnd,
+                              aScanner.scan (aSegmentSrc, nStart, nEnd, false, false),
+                              aScanner.scan (aSegmentSrc, nStart, nEnd, true, true));
+        }));
+      }
+
+      // Chain the segments in order
+      long nPos = nDataStart;
+      boolean bInQuotes = false;
+      boolean bInField = false;
+      long nChunkStart = nDataStart;
+      for (final Future <Segment> aFuture : aFutures)
+      {
+        final Segment aSegment = aFuture.get ();
+        if (nPos >= aSegment.m_nEnd)
+          continue;
+
+        final ScanResult aResult;
+        if (nPos == aSegment.m_nStart && !bInQuotes && !bInField)
+          aResult = aSegment.m_aAtRecordStart;
+        else
+          if (nPos == aSegment.m_nStart && bInQuotes && bInField)
+            aResult = aSegment.m_aInQuotes;
+          else
+          {
+            // Neither assumption holds - scan again with the real state
+            aResult = aScanner.scan (aSrc, nPos, aSegment.m_nEnd, bInQuotes, bInField);
+          }
+
+        for (final Long aBoundary : aResult.m_aBoundaries)
+        {
+          final long nBoundary = aBoundary.longValue ();
+          if (nBoundary > nChunkStart)
+          {
+            _addChunk (ret, nChunkStart, nBoundary);
+            nChunkStart = nBoundary;
+          }
+        }
+        nPos = aResult.m_nEnd;
+        bInQuotes = aResult.m_bInQuotes;
+        bInField = aResult.m_bInField;
+      }
+      if (nSize > nChunkStart)
+        _addChunk (ret, nChunkStart, nSize);
+    }
+    catch (final ExecutionException ex)
+    {
+      throw _unwrap (ex);
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new IOException ("Interrupted", ex);
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private CSVRecordReader _createChunkReader (@Nonnull final FileChannel aChannel,
+                                              @Nonnull final Chunk aChunk) throws IOException
+  {
+    // The maximum chunk size was checked when creating the chunks
+    final byte [] aBytes = new byte [(int) (aChunk.m_nEnd - aChunk.m_nStart)];
+    // Copy to the heap, because the decoders are a lot faster on arrays
+    aChannel.map (FileChannel.MapMode.READ_ONLY, aChunk.m_nStart, aBytes.length).get (aBytes);
+    final CharBuffer aChars;
+    try
+    {
+      aChars = m_aCharset.newDecoder ()
+                         .onMalformedInput (CodingErrorAction.REPLACE)
+                         .onUnmappableCharacter (CodingErrorAction.REPLACE)
+                         .decode (ByteBuffer.wrap (aBytes));
+    }
+    catch (final CharacterCodingException ex)
+    {
+      // Cannot happen because of REPLACE
+      throw new IOException ("Failed to decode chunk", ex);
+    }
+    return new CSVRecordReader (aChars.array (), aChars.limit (), m_aParser);
+  }
+
+  @Nonnull
+  private ICommonsList <ICommonsList <String>> _readChunk (@Nonnull final FileChannel aChannel,
+                                                          @Nonnull final Chunk aChunk) throws IOException
+  {
+    final ICommonsList <ICommonsList <String>> ret = new CommonsArrayList <> ();
+    _createChunkReader (aChannel, aChunk).readAll (x -> ret.add (x.getAllFieldsAsList ()));
+    return ret;
+  }
+
+  @Nonnull
+  private ExecutorService _createExecutor ()
+  {
+    return Executors.newFixedThreadPool (m_nThreadCount,
+                                         new BasicThreadFactory.Builder ().setNamingPattern ("ph-csv-reader-%d")
+                                                                          .setDaemon (true)
+                                                                          .build ());
+  }
+
+  @Nonnull
+  private static IOException _unwrap (@Nonnull final ExecutionException ex)
+  {
+    final Throwable aCause = ex.getCause ();
+    if (aCause instanceof IOException)
+      return (IOException) aCause;
+    if (aCause instanceof UncheckedIOException)
+      return ((UncheckedIOException) aCause).getCause ();
+    if (aCause instanceof RuntimeException)
+      throw (RuntimeException) aCause;
+    if (aCause instanceof Error)
+      throw (Error) aCause;
+    return new IOException ("Error reading CSV chunk", aCause);
+  }
+
+  /**
+   * Read all records and pass them to the provided consumer. The consumer is
+   * invoked concurrently from multiple threads, without any particular order.
+   * The record view passed in is only valid within the callback.
+   *
+   * @param aRecordConsumer
+   *        The thread-safe record consumer. May not be <code>null</code>.
+   * @throws IOException
+   *         On read error
+   */
+  public void readAllUnordered (@Nonnull final Consumer <? super CSVRecordView> aRecordConsumer) throws IOException
+  {
+    ValueEnforcer.notNull (aRecordConsumer, "RecordConsumer");
+
+    final ExecutorService aES = _createExecutor ();
+    // The channel is shared by all chunks
+    try (final FileChannel aChannel = FileChannel.open (m_aPath, StandardOpenOption.READ))
+    {
+      final ICommonsList <Chunk> aChunks = _getChunks (aES, aChannel);
+      final ICommonsList <Future <?>> aFutures = new CommonsArrayList <> (aChunks.size ());
+      for (final Chunk aChunk : aChunks)
+        aFutures.add (aES.submit ( () -> {
+          _createChunkReader (aChannel, aChunk).readAll (aRecordConsumer);
+          return null;
+        }));
+      for (final Future <?> aFuture : aFutures)
+        aFuture.get ();
+    }
+    catch (final ExecutionException ex)
+    {
+      throw _unwrap (ex);
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new IOException ("Interrupted", ex);
+    }
+    finally
+    {
+      aES.shutdownNow ();
+      ExecutorServiceHelper.waitUntilAllTasksAreFinished (aES);
+    }
+  }
+
+  /**
+   * Read all records and pass them to the provided consumer in the order of
+   * the file. The chunks are parsed concurrently, but the consumer is only
+   * invoked from the calling thread. At most twice the thread count chunks are
+   * held in memory.
+   *
+   * @param aRecordConsumer
+   *        The record consumer. May not be <code>null</code>.
+   * @throws IOException
+   *         On read error
+   */
+  public void readAllOrdered (@Nonnull final Consumer <? super ICommonsList <String>> aRecordConsumer) throws IOException
+  {
+    ValueEnforcer.notNull (aRecordConsumer, "RecordConsumer");
+
+    final ExecutorService aES = _createExecutor ();
+    // The channel is shared by all chunks
+    try (final FileChannel aChannel = FileChannel.open (m_aPath, StandardOpenOption.READ))
+    {
+      final ICommonsList <Chunk> aChunks = _getChunks (aES, aChannel);
+      final int nMaxInFlight = m_nThreadCount * 2;
+      final Deque <Future <ICommonsList <ICommonsList <String>>>> aInFlight = new ArrayDeque <> (nMaxInFlight);
+      int nNextChunk = 0;
+      while (nNextChunk < aChunks.size () || !aInFlight.isEmpty ())
+      {
+        while (nNextChunk < aChunks.size () && aInFlight.size () < nMaxInFlight)
+        {
+          final Chunk aChunk = aChunks.get (nNextChunk++);
+          aInFlight.addLast (aES.submit ( () -> _readChunk (aChannel, aChunk)));
+        }
+        aInFlight.removeFirst ().get ().forEach (aRecordConsumer);
+      }
+    }
+    catch (final ExecutionException ex)
+    {
+      throw _unwrap (ex);
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new IOException ("Interrupted", ex);
+    }
+    finally
+    {
+      aES.shutdownNow ();
+      ExecutorServiceHelper.waitUntilAllTasksAreFinished (aES);
+    }
+  }
+
+  /**
+   * A spliterator over a range of chunks. Each chunk is parsed when it is
+   * traversed.
+   *
+   * @author Philip Helger
+   */
+  private final class ChunkSpliterator implements Spliterator <ICommonsList <String>>
+  {
+    private final FileChannel m_aChannel;
+    private final ICommonsList <Chunk> m_aChunks;
+    private int m_nNext;
+    private final int m_nEnd;
+    private CSVRecordReader m_aCurrent;
+
+    ChunkSpliterator (@Nonnull final FileChannel aChannel,
+                      @Nonnull final ICommonsList <Chunk> aChunks,
+                      final int nStart,
+                      final int nEnd)
+    {
+      m_aChannel = aChannel;
+      m_aChunks = aChunks;
+      m_nNext = nStart;
+      m_nEnd = nEnd;
+    }
+
+    public boolean tryAdvance (@Nonnull final Consumer <? super ICommonsList <String>> aAction)
+    {
+      try
+      {
+        while (true)
+        {
+          if (m_aCurrent == null)
+          {
+            if (m_nNext >= m_nEnd)
+              return false;
+            m_aCurrent = _createChunkReader (m_aChannel, m_aChunks.get (m_nNext++));
+          }
+          final ICommonsList <String> aRecord = m_aCurrent.readNext ();
+          if (aRecord != null)
+          {
+            aAction.accept (aRecord);
+            return true;
+          }
+          m_aCurrent = null;
+        }
+      }
+      catch (final IOException ex)
+      {
+        throw new UncheckedIOException (ex);
+      }
+    }
+
+    @Nullable
+    public Spliterator <ICommonsList <String>> trySplit ()
+    {
+      final int nRemaining = m_nEnd - m_nNext;
+      if (nRemaining < 2)
+        return null;
+      if (m_aCurrent != null)
+      {
+        // The chunk in progress must stay before the split off part
+        return null;
+      }
+      // Hand out the first half, because the order must be kept
+      final int nMid = m_nNext + nRemaining / 2;
+      final ChunkSpliterator ret = new ChunkSpliterator (m_aChannel, m_aChunks, m_nNext, nMid);
+      m_nNext = nMid;
+      return ret;
+    }
+
+    public long estimateSize ()
+    {
+      // Unknown number of records
+      return Long.MAX_VALUE;
+    }
+
+    public int characteristics ()
+    {
+      return ORDERED | NONNULL;
+    }
+  }
+
+  /**
+   * Get a stream of all records. If the stream is used in parallel, the chunks
+   * are parsed concurrently in the common fork join pool. The order of the
+   * records is kept, unless {@link Stream#unordered()} is used. The file
+   * stays open until the stream is closed, so use it in a try-with-resources
+   * block.
+   *
+   * @param bParallel
+   *        <code>true</code> for a parallel stream.
+   * @return The stream. Never <code>null</code>.
+   * @throws IOException
+   *         If the chunks could not be determined. Errors while reading the
+   *         chunks are thrown as {@link UncheckedIOException}.
+   */
+  @Nonnull
+  public Stream <ICommonsList <String>> stream (final boolean bParallel) throws IOException
+  {
+    final FileChannel aChannel = FileChannel.open (m_aPath, StandardOpenOption.READ);
+    final ICommonsList <Chunk> aChunks;
+    final ExecutorService aES = _createExecutor ();
+    try
+    {
+      aChunks = _getChunks (aES, aChannel);
+    }
+    catch (final IOException | RuntimeException ex)
+    {
+      StreamHelper.close (aChannel);
+      throw ex;
+    }
+    finally
+    {
+      aES.shutdownNow ();
+      ExecutorServiceHelper.waitUntilAllTasksAreFinished (aES);
+    }
+    return StreamSupport.stream (new ChunkSpliterator (aChannel, aChunks, 0, aChunks.size ()), bParallel)
+                        .onClose ( () -> StreamHelper.close (aChannel));
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Path", m_aPath)
+                                       .append ("Charset", m_aCharset)
+                                       .append ("SkipLines", m_nSkipLines)
+                                       .append ("ChunkSize", m_nChunkSize)
+                                       .append ("MaxChunkSize", m_nMaxChunkSize)
+                                       .append ("ThreadCount", m_nThreadCount)
+                                       .getToString ();
+  }
+}
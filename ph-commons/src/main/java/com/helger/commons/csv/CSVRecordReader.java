@@ -0,0 +1,499 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillCloseWhenClosed;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.ICommonsList;
+
+/**
+ * A CSV reader that scans a reused character buffer instead of reading line by
+ * line into Strings. The fields of each record are unescaped in place inside
+ * that buffer and are exposed via the reusable {@link CSVRecordView}, so
+ * reading a record does not allocate any objects as long as no Strings are
+ * requested.<br>
+ * The separator, quote, escape, strict quotes, leading whitespace and ignore
+ * quotations settings are taken from the provided {@link CSVParser} and are
+ * interpreted exactly as by {@link CSVReader} without "keep CR" mode: lines are
+ * terminated by "\n", "\r" or "\r\n" and a line break inside a quoted field is
+ * returned as "\n". Overridden methods of a {@link CSVParser} sub class are not
+ * considered.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class CSVRecordReader implements Closeable
+{
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private final Reader m_aReader;
+  private final CSVParser m_aParser;
+  private int m_nSkipLines = CCSV.DEFAULT_SKIP_LINES;
+  private boolean m_bLinesSkipped = false;
+
+  private char [] m_aBuf;
+  // Number of valid chars in the buffer
+  private int m_nLimit = 0;
+  // Next char to read
+  private int m_nPos = 0;
+  private boolean m_bEOF = false;
+  // Previous line ended with CR - skip a following LF
+  private boolean m_bSkipLF = false;
+
+  // Current record state
+  private final CSVRecordView m_aRecord;
+  private int m_nRecordStart = 0;
+  private int m_nLineStart = 0;
+  private int m_nFieldStart = 0;
+  private int m_nWrite = 0;
+  private boolean m_bInField = false;
+
+  /**
+   * Constructor using a default {@link CSVParser}.
+   *
+   * @param aReader
+   *        The reader to read from. May not be <code>null</code>.
+   */
+  public CSVRecordReader (@Nonnull @WillCloseWhenClosed final Reader aReader)
+  {
+    this (aReader, new CSVParser ());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param aReader
+   *        The reader to read from. May not be <code>null</code>.
+   * @param aParser
+   *        The parser with the settings to use. May not be <code>null</code>.
+   */
+  public CSVRecordReader (@Nonnull @WillCloseWhenClosed final Reader aReader, @Nonnull final CSVParser aParser)
+  {
+    this (aReader, aParser, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param aReader
+   *        The reader to read from. May not be <code>null</code>. No additional
+   *        buffering is needed.
+   * @param aParser
+   *        The parser with the settings to use. May not be <code>null</code>.
+   * @param nInitialBufferSize
+   *        The initial size of the character buffer. It grows automatically if
+   *        a single record does not fit. Must be &gt; 0.
+   */
+  public CSVRecordReader (@Nonnull @WillCloseWhenClosed final Reader aReader,
+                          @Nonnull final CSVParser aParser,
+                          @Nonnegative final int nInitialBufferSize)
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.notNull (aParser, "Parser");
+    ValueEnforcer.isGT0 (nInitialBufferSize, "InitialBufferSize");
+    m_aReader = aReader;
+    m_aParser = aParser;
+    m_aBuf = new char [nInitialBufferSize];
+    m_aRecord = new CSVRecordView (m_aBuf);
+  }
+
+  /**
+   * Internal constructor to parse an already decoded character buffer without
+   * copying it. The content of the buffer is modified while parsing.
+   *
+   * @param aBuf
+   *        The buffer to parse. May not be <code>null</code>.
+   * @param nLength
+   *        The number of chars to use, starting at index 0.
+   * @param aParser
+   *        The parser with the settings to use. May not be <code>null</code>.
+   */
+  CSVRecordReader (@Nonnull final char [] aBuf, @Nonnegative final int nLength, @Nonnull final CSVParser aParser)
+  {
+    ValueEnforcer.isArrayOfsLen (aBuf, 0, nLength);
+    ValueEnforcer.notNull (aParser, "Parser");
+    m_aReader = null;
+    m_aParser = aParser;
+    m_aBuf = aBuf;
+    m_nLimit = nLength;
+    m_bEOF = true;
+    m_aRecord = new CSVRecordView (m_aBuf);
+  }
+
+  /**
+   * @return the CSVParser providing the settings. Never <code>null</code>.
+   */
+  @Nonnull
+  public CSVParser getParser ()
+  {
+    return m_aParser;
+  }
+
+  /**
+   * @return the number of lines in the CSV file to skip before processing.
+   */
+  @Nonnegative
+  public int getSkipLines ()
+  {
+    return m_nSkipLines;
+  }
+
+  /**
+   * Sets the number of lines to skip before reading the first record.
+   *
+   * @param nSkipLines
+   *        the number of lines to skip.
+   * @return this
+   */
+  @Nonnull
+  public CSVRecordReader setSkipLines (@Nonnegative final int nSkipLines)
+  {
+    ValueEnforcer.isGE0 (nSkipLines, "SkipLines");
+    m_nSkipLines = nSkipLines;
+    return this;
+  }
+
+  /**
+   * Read more data into the buffer. Everything from the start of the current
+   * record is kept. This may move the buffer content, so all offsets are
+   * adjusted.
+   *
+   * @return <code>false</code> if EOF was reached and no more data was read.
+   */
+  private boolean _fill () throws IOException
+  {
+    if (m_bEOF)
+      return false;
+
+    if (m_nLimit == m_aBuf.length)
+    {
+      final int nShift = m_nRecordStart;
+      if (nShift > 0)
+      {
+        // Move current record to the front
+        System.arraycopy (m_aBuf, nShift, m_aBuf, 0, m_nLimit - nShift);
+        m_nLimit -= nShift;
+        m_nPos -= nShift;
+        m_nRecordStart = 0;
+        m_nLineStart -= nShift;
+        m_nFieldStart -= nShift;
+        m_nWrite -= nShift;
+        m_aRecord.internalShift (nShift);
+      }
+      else
+      {
+        // The record does not fit into the buffer
+        m_aBuf = Arrays.copyOf (m_aBuf, m_aBuf.length * 2);
+        m_aRecord.internalSetBuffer (m_aBuf);
+      }
+    }
+
+    int nRead;
+    do
+    {
+      nRead = m_aReader.read (m_aBuf, m_nLimit, m_aBuf.length - m_nLimit);
+    } while (nRead == 0);
+    if (nRead < 0)
+    {
+      m_bEOF = true;
+      return false;
+    }
+    m_nLimit += nRead;
+    return true;
+  }
+
+  /**
+   * Start a new line - skip a LF following a CR.
+   *
+   * @return <code>true</code> if a line is available, <code>false</code> on
+   *         EOF.
+   */
+  private boolean _startLine () throws IOException
+  {
+    if (m_bSkipLF)
+    {
+      m_bSkipLF = false;
+      if (m_nPos < m_nLimit || _fill ())
+        if (m_aBuf[m_nPos] == '\n')
+          m_nPos++;
+    }
+    return m_nPos < m_nLimit || _fill ();
+  }
+
+  private void _skipLine () throws IOException
+  {
+    m_nRecordStart = m_nPos;
+    if (_startLine ())
+      while (true)
+      {
+        if (m_nPos >= m_nLimit)
+        {
+          m_nRecordStart = m_nPos;
+          if (!_fill ())
+            break;
+        }
+        final char c = m_aBuf[m_nPos++];
+        if (c == '\n')
+          break;
+        if (c == '\r')
+        {
+          m_bSkipLF = true;
+          break;
+        }
+      }
+  }
+
+  /**
+   * @return <code>true</code> if the next character exists and is part of the
+   *         current line.
+   */
+  private boolean _hasNextInLine () throws IOException
+  {
+    if (m_nPos + 1 >= m_nLimit && !_fill ())
+      return false;
+    final char c = m_aBuf[m_nPos + 1];
+    return c != '\n' && c != '\r';
+  }
+
+  private boolean _isAllWhitespace (final int nStart, final int nEnd)
+  {
+    for (int i = nStart; i < nEnd; ++i)
+      if (!Character.isWhitespace (m_aBuf[i]))
+        return false;
+    return true;
+  }
+
+  private void _addField ()
+  {
+    m_aRecord.internalAddField (m_nFieldStart, m_nWrite);
+    m_nFieldStart = m_nWrite;
+  }
+
+  /**
+   * Read the next record.
+   *
+   * @return <code>true</code> if a record was read and is available via
+   *         {@link #getCurrentRecord()}, <code>false</code> if the end of the
+   *         input was reached.
+   * @throws IOException
+   *         on read error
+   */
+  public boolean readNextRecord () throws IOException
+  {
+    if (!m_bLinesSkipped)
+    {
+      // Perform skip of lines exactly once
+      for (int i = 0; i < m_nSkipLines; i++)
+        _skipLine ();
+      m_bLinesSkipped = true;
+    }
+
+    // The previous record is no longer needed
+    m_nRecordStart = m_nPos;
+    m_aRecord.internalReset (m_aBuf);
+    if (!_startLine ())
+      return false;
+
+    final char cSeparator = m_aParser.getSeparatorChar ();
+    final char cQuote = m_aParser.getQuoteChar ();
+    final char cEscape = m_aParser.getEscapeChar ();
+    final boolean bStrictQuotes = m_aParser.isStrictQuotes ();
+    final boolean bIgnoreLeadingWhiteSpace = m_aParser.isIgnoreLeadingWhiteSpace ();
+    final boolean bQuotationsActive = !m_aParser.isIgnoreQuotations ();
+
+    m_nRecordStart = m_nPos;
+    m_nFieldStart = m_nPos;
+    m_nWrite = m_nPos;
+    boolean bInQuotes = false;
+    while (true)
+    {
+      // For each line
+      m_nLineStart = m_nPos;
+      boolean bLineTerminated = false;
+      while (m_nPos < m_nLimit || _fill ())
+      {
+        final char c = m_aBuf[m_nPos];
+        if (c == '\n' || c == '\r')
+        {
+          m_nPos++;
+          if (c == '\r')
+            m_bSkipLF = true;
+          bLineTerminated = true;
+          break;
+        }
+
+        if (c == cEscape)
+        {
+          if (((bInQuotes && bQuotationsActive) || m_bInField) && _hasNextInLine ())
+          {
+            final char cNext = m_aBuf[m_nPos + 1];
+            if (cNext == cQuote || cNext == cEscape)
+            {
+              m_aBuf[m_nWrite++] = cNext;
+              m_nPos++;
+            }
+          }
+          m_nPos++;
+        }
+        else
+          if (c == cQuote)
+          {
+            if (((bInQuotes && bQuotationsActive) || m_bInField) &&
+                _hasNextInLine () &&
+                m_aBuf[m_nPos + 1] == cQuote)
+            {
+              // Escaped quote
+              m_aBuf[m_nWrite++] = cQuote;
+              m_nPos++;
+            }
+            else
+            {
+              bInQuotes = !bInQuotes;
+
+              // the tricky case of an embedded quote in the middle: a,bc"d"ef,g
+              if (!bStrictQuotes &&
+                  m_nPos - m_nLineStart > 2 &&
+                  m_aBuf[m_nPos - 1] != cSeparator &&
+                  _hasNextInLine () &&
+                  m_aBuf[m_nPos + 1] != cSeparator)
+              {
+                if (bIgnoreLeadingWhiteSpace && m_nWrite > m_nFieldStart && _isAllWhitespace (m_nFieldStart, m_nWrite))
+                  m_nWrite = m_nFieldStart;
+                else
+                  m_aBuf[m_nWrite++] = c;
+              }
+            }
+            m_nPos++;
+            m_bInField = !m_bInField;
+          }
+          else
+            if (c == cSeparator && !(bInQuotes && bQuotationsActive))
+            {
+              _addField ();
+              m_nPos++;
+              m_bInField = false;
+            }
+            else
+              if (!bStrictQuotes || (bInQuotes && bQuotationsActive))
+              {
+                // Copy a run of regular characters in bulk
+                final char [] aBuf = m_aBuf;
+                final int nLimit = m_nLimit;
+                int nPos = m_nPos;
+                int nWrite = m_nWrite;
+                char cCur = c;
+                while (true)
+                {
+                  aBuf[nWrite++] = cCur;
+                  if (++nPos >= nLimit)
+                    break;
+                  cCur = aBuf[nPos];
+                  if (cCur == cSeparator ||
+                      cCur == cQuote ||
+                      cCur == cEscape ||
+                      cCur == '\n' ||
+                      cCur == '\r')
+                    break;
+                }
+                m_nPos = nPos;
+                m_nWrite = nWrite;
+                m_bInField = true;
+              }
+              else
+              {
+                // Ignore character
+                m_nPos++;
+              }
+      }
+
+      if (bInQuotes && bQuotationsActive)
+      {
+        // Quoted field continues on the next line
+        if (bLineTerminated && _startLine ())
+        {
+          m_aBuf[m_nWrite++] = '\n';
+          continue;
+        }
+        // EOF inside a quoted field - the incomplete field is dropped like in
+        // CSVReader
+        return true;
+      }
+
+      m_bInField = false;
+      _addField ();
+      return true;
+    }
+  }
+
+  /**
+   * @return The current record as read by the last successful call to
+   *         {@link #readNextRecord()}. The object is reused for all records.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  public CSVRecordView getCurrentRecord ()
+  {
+    return m_aRecord;
+  }
+
+  /**
+   * Read the next record and return it as a list of Strings.
+   *
+   * @return <code>null</code> if the end of the input was reached.
+   * @throws IOException
+   *         on read error
+   */
+  @Nullable
+  public ICommonsList <String> readNext () throws IOException
+  {
+    return readNextRecord () ? m_aRecord.getAllFieldsAsList () : null;
+  }
+
+  /**
+   * Read all remaining records and invoke the provided consumer for each of
+   * them. The record passed to the consumer is only valid inside the callback.
+   *
+   * @param aRecordConsumer
+   *        The consumer to invoke. May not be <code>null</code>.
+   * @throws IOException
+   *         on read error
+   */
+  public void readAll (@Nonnull final Consumer <? super CSVRecordView> aRecordConsumer) throws IOException
+  {
+    ValueEnforcer.notNull (aRecordConsumer, "RecordConsumer");
+    while (readNextRecord ())
+      aRecordConsumer.accept (m_aRecord);
+  }
+
+  public void close () throws IOException
+  {
+    if (m_aReader != null)
+      m_aReader.close ();
+  }
+}
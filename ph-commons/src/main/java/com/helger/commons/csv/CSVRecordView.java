@@ -0,0 +1,279 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A single CSV record as read by {@link CSVRecordReader}. The record and the
+ * field views returned by {@link #getField(int)} are reused for all records of
+ * a reader and point directly into the character buffer of the reader. They
+ * are therefore only valid until the next record is read. Use
+ * {@link #getFieldAsString(int)} or {@link #getAllFieldsAsList()} to keep the
+ * content.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public final class CSVRecordView
+{
+  /**
+   * The reusable {@link CharSequence} view on a single field.
+   *
+   * @author Philip Helger
+   */
+  private static final class FieldView implements CharSequence
+  {
+    private final CSVRecordView m_aRecord;
+    private final int m_nIndex;
+
+    FieldView (@Nonnull final CSVRecordView aRecord, @Nonnegative final int nIndex)
+    {
+      m_aRecord = aRecord;
+      m_nIndex = nIndex;
+    }
+
+    public int length ()
+    {
+      return m_aRecord.getFieldLength (m_nIndex);
+    }
+
+    public char charAt (final int nIndex)
+    {
+      final int nLength = length ();
+      if (nIndex < 0 || nIndex >= nLength)
+        throw new IndexOutOfBoundsException ("Index " + nIndex + " is invalid for length " + nLength);
+      return m_aRecord.m_aBuf[m_aRecord.m_aStarts[m_nIndex] + nIndex];
+    }
+
+    @Nonnull
+    public CharSequence subSequence (final int nStart, final int nEnd)
+    {
+      final int nLength = length ();
+      if (nStart < 0 || nEnd > nLength || nStart > nEnd)
+        throw new IndexOutOfBoundsException ("Range " + nStart + "-" + nEnd + " is invalid for length " + nLength);
+      return new String (m_aRecord.m_aBuf, m_aRecord.m_aStarts[m_nIndex] + nStart, nEnd - nStart);
+    }
+
+    @Override
+    @Nonnull
+    public String toString ()
+    {
+      return m_aRecord.getFieldAsString (m_nIndex);
+    }
+  }
+
+  private char [] m_aBuf;
+  private int [] m_aStarts = new int [16];
+  private int [] m_aEnds = new int [16];
+  private String [] m_aStrings = new String [16];
+  private FieldView [] m_aViews = new FieldView [16];
+  private int m_nFieldCount = 0;
+
+  CSVRecordView (@Nonnull final char [] aBuf)
+  {
+    m_aBuf = aBuf;
+  }
+
+  // Internal API used by the reader
+
+  void internalReset (@Nonnull final char [] aBuf)
+  {
+    m_aBuf = aBuf;
+    if (m_nFieldCount > 0)
+    {
+      Arrays.fill (m_aStrings, 0, m_nFieldCount, null);
+      m_nFieldCount = 0;
+    }
+  }
+
+  void internalSetBuffer (@Nonnull final char [] aBuf)
+  {
+    m_aBuf = aBuf;
+  }
+
+  void internalAddField (final int nStart, final int nEnd)
+  {
+    if (m_nFieldCount == m_aStarts.length)
+    {
+      final int nNewLen = m_nFieldCount * 2;
+      m_aStarts = Arrays.copyOf (m_aStarts, nNewLen);
+      m_aEnds = Arrays.copyOf (m_aEnds, nNewLen);
+      m_aStrings = Arrays.copyOf (m_aStrings, nNewLen);
+      m_aViews = Arrays.copyOf (m_aViews, nNewLen);
+    }
+    m_aStarts[m_nFieldCount] = nStart;
+    m_aEnds[m_nFieldCount] = nEnd;
+    m_nFieldCount++;
+  }
+
+  void internalShift (final int nDelta)
+  {
+    for (int i = 0; i < m_nFieldCount; ++i)
+    {
+      m_aStarts[i] -= nDelta;
+      m_aEnds[i] -= nDelta;
+    }
+  }
+
+  // Public API
+
+  /**
+   * @return The number of fields in this record. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getFieldCount ()
+  {
+    return m_nFieldCount;
+  }
+
+  private void _checkIndex (final int nIndex)
+  {
+    if (nIndex < 0 || nIndex >= m_nFieldCount)
+      throw new IndexOutOfBoundsException ("Field index " + nIndex + " is invalid for " + m_nFieldCount + " fields");
+  }
+
+  /**
+   * Get the length of the field with the provided index.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @return The length of the field. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getFieldLength (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    return m_aEnds[nIndex] - m_aStarts[nIndex];
+  }
+
+  /**
+   * Get a view on the field with the provided index. The returned object is
+   * reused and is only valid until the next record is read.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @return The field view. Never <code>null</code>.
+   */
+  @Nonnull
+  public CharSequence getField (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    FieldView ret = m_aViews[nIndex];
+    if (ret == null)
+    {
+      ret = new FieldView (this, nIndex);
+      m_aViews[nIndex] = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * Get the field with the provided index as a {@link String}. The String is
+   * created on the first call and cached for the current record.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @return The field value. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getFieldAsString (final int nIndex)
+  {
+    _checkIndex (nIndex);
+    String ret = m_aStrings[nIndex];
+    if (ret == null)
+    {
+      ret = new String (m_aBuf, m_aStarts[nIndex], m_aEnds[nIndex] - m_aStarts[nIndex]);
+      m_aStrings[nIndex] = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * Check if the field with the provided index has the provided content,
+   * without creating a String.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @param aCS
+   *        The content to compare to. May be <code>null</code>.
+   * @return <code>true</code> if the content is equal.
+   */
+  public boolean isFieldEqual (final int nIndex, @Nullable final CharSequence aCS)
+  {
+    if (aCS == null)
+      return false;
+    final int nLength = getFieldLength (nIndex);
+    if (aCS.length () != nLength)
+      return false;
+    final int nStart = m_aStarts[nIndex];
+    for (int i = 0; i < nLength; ++i)
+      if (m_aBuf[nStart + i] != aCS.charAt (i))
+        return false;
+    return true;
+  }
+
+  /**
+   * Append the field with the provided index to the provided
+   * {@link StringBuilder}, without creating a String.
+   *
+   * @param nIndex
+   *        The 0-based field index.
+   * @param aSB
+   *        The string builder to append to. May not be <code>null</code>.
+   * @return The passed string builder.
+   */
+  @Nonnull
+  public StringBuilder appendField (final int nIndex, @Nonnull final StringBuilder aSB)
+  {
+    ValueEnforcer.notNull (aSB, "StringBuilder");
+    final int nLength = getFieldLength (nIndex);
+    return aSB.append (m_aBuf, m_aStarts[nIndex], nLength);
+  }
+
+  /**
+   * @return All fields of this record as a new list of Strings, the same as
+   *         {@link CSVReader#readNext()} returns. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllFieldsAsList ()
+  {
+    final ICommonsList <String> ret = new CommonsArrayList <> (m_nFieldCount);
+    for (int i = 0; i < m_nFieldCount; ++i)
+      ret.add (getFieldAsString (i));
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Fields", getAllFieldsAsList ()).getToString ();
+  }
+}
@@ -0,0 +1,780 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillCloseWhenClosed;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+
+/**
+ * A high throughput CSV writer that builds the output in a reused character
+ * buffer. Special characters are detected with a lookup table, runs without
+ * special characters are copied in bulk and numeric columns are rendered
+ * directly into the buffer without boxing. The output can either go to a
+ * {@link Writer} or be encoded as UTF-8 directly into an {@link OutputStream}.
+ * <br>
+ * Records are created field by field:
+ *
+ * <pre>
+ * aWriter.addField ("abc").addField (4711L).addField (3.14, 2).endRecord ();
+ * </pre>
+ *
+ * Text fields are quoted and escaped exactly as by {@link CSVWriter} with the
+ * same settings. In contrast to {@link CSVWriter} errors are not swallowed but
+ * thrown as {@link IOException}.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class CSVRecordWriter implements Closeable, Flushable
+{
+  public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+  private static final long [] POW10 = { 1L,
+                                         10L,
+                                         100L,
+                                         1_000L,
+                                         10_000L,
+                                         100_000L,
+                                         1_000_000L,
+                                         10_000_000L,
+                                         100_000_000L,
+                                         1_000_000_000L };
+  // Maximum scaled value that can be represented exactly as a long
+  private static final double MAX_EXACT_DOUBLE = 9.0e15;
+  // Relative distance of a scaled value from a rounding tie, below which the
+  // binary value and its decimal representation may round differently
+  private static final double TIE_TOLERANCE = 1e-14;
+
+  private final Writer m_aWriter;
+  private final OutputStream m_aOS;
+  private final char [] m_aBuf;
+  private int m_nBufLen = 0;
+  private final byte [] m_aByteBuf;
+  private final char [] m_aNumBuf = new char [32];
+
+  private char m_cSeparatorChar = CCSV.DEFAULT_SEPARATOR;
+  private char m_cQuoteChar = CCSV.DEFAULT_QUOTE_CHARACTER;
+  private char m_cEscapeChar = CCSV.DEFAULT_ESCAPE_CHARACTER;
+  private String m_sLineEnd = CSVWriter.DEFAULT_LINE_END;
+  private boolean m_bAvoidFinalLineEnd = CSVWriter.DEFAULT_AVOID_FINAL_LINE_END;
+  private boolean m_bApplyQuotesToAll = CSVWriter.DEFAULT_QUOTE_ALL;
+
+  // Lookup table for all special characters < 128
+  private final boolean [] m_aSpecial = new boolean [128];
+  private boolean m_bHasNonASCIISpecial;
+
+  private int m_nWrittenLines = 0;
+  private boolean m_bInRecord = false;
+
+  /**
+   * Constructor writing to a {@link Writer} with the default buffer size.
+   *
+   * @param aWriter
+   *        The writer to write to. May not be <code>null</code>.
+   */
+  public CSVRecordWriter (@Nonnull @WillCloseWhenClosed final Writer aWriter)
+  {
+    this (aWriter, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructor writing to a {@link Writer}.
+   *
+   * @param aWriter
+   *        The writer to write to. May not be <code>null</code>.
+   * @param nBufferSize
+   *        The number of characters to buffer. Must be &ge; 2.
+   */
+  public CSVRecordWriter (@Nonnull @WillCloseWhenClosed final Writer aWriter, @Nonnegative final int nBufferSize)
+  {
+    ValueEnforcer.notNull (aWriter, "Writer");
+    ValueEnforcer.isTrue (nBufferSize >= 2, "BufferSize must be >= 2");
+    m_aWriter = aWriter;
+    m_aOS = null;
+    m_aBuf = new char [nBufferSize];
+    m_aByteBuf = null;
+    _updateSpecialChars ();
+  }
+
+  /**
+   * Constructor writing UTF-8 encoded bytes to an {@link OutputStream} with
+   * the default buffer size. No additional buffering of the stream is
+   * necessary.
+   *
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>.
+   */
+  public CSVRecordWriter (@Nonnull @WillCloseWhenClosed final OutputStream aOS)
+  {
+    this (aOS, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructor writing UTF-8 encoded bytes to an {@link OutputStream}. No
+   * additional buffering of the stream is necessary.
+   *
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>.
+   * @param nBufferSize
+   *        The number of characters to buffer. Must be &ge; 2.
+   */
+  public CSVRecordWriter (@Nonnull @WillCloseWhenClosed final OutputStream aOS, @Nonnegative final int nBufferSize)
+  {
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    ValueEnforcer.isTrue (nBufferSize >= 2, "BufferSize must be >= 2");
+    m_aWriter = null;
+    m_aOS = aOS;
+    m_aBuf = new char [nBufferSize];
+    // Each char results in at most 3 bytes
+    m_aByteBuf = new byte [nBufferSize * 3];
+    _updateSpecialChars ();
+  }
+
+  private void _updateSpecialChars ()
+  {
+    final boolean [] aSpecial = m_aSpecial;
+    for (int i = 0; i < aSpecial.length; ++i)
+      aSpecial[i] = false;
+    aSpecial['\r'] = true;
+    aSpecial['\n'] = true;
+    m_bHasNonASCIISpecial = false;
+    for (final char c : new char [] { m_cSeparatorChar, m_cQuoteChar, m_cEscapeChar })
+      if (c < aSpecial.length)
+        aSpecial[c] = true;
+      else
+        m_bHasNonASCIISpecial = true;
+  }
+
+  /**
+   * @return The separator char. The default is
+   *         {@link CCSV#DEFAULT_SEPARATOR}.
+   */
+  public final char getSeparatorChar ()
+  {
+    return m_cSeparatorChar;
+  }
+
+  /**
+   * Sets the delimiter to use for separating entries.
+   *
+   * @param cSeparator
+   *        the delimiter to use for separating entries
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CSVRecordWriter setSeparatorChar (final char cSeparator)
+  {
+    if (cSeparator == CCSV.NULL_CHARACTER)
+      throw new UnsupportedOperationException ("The separator character must be defined!");
+    m_cSeparatorChar = cSeparator;
+    _updateSpecialChars ();
+    return this;
+  }
+
+  /**
+   * @return The quotation character. The default is
+   *         {@link CCSV#DEFAULT_QUOTE_CHARACTER}.
+   */
+  public final char getQuoteChar ()
+  {
+    return m_cQuoteChar;
+  }
+
+  /**
+   * Sets the character to use for quoted elements.
+   *
+   * @param cQuoteChar
+   *        the character to use for quoted element. Use
+   *        {@link CSVWriter#NO_QUOTE_CHARACTER} to disable quoting.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CSVRecordWriter setQuoteChar (final char cQuoteChar)
+  {
+    m_cQuoteChar = cQuoteChar;
+    _updateSpecialChars ();
+    return this;
+  }
+
+  /**
+   * @return The escape character. The default is
+   *         {@link CCSV#DEFAULT_ESCAPE_CHARACTER}.
+   */
+  public final char getEscapeChar ()
+  {
+    return m_cEscapeChar;
+  }
+
+  /**
+   * Sets the character to use for escaping a separator or quote.
+   *
+   * @param cEscapeChar
+   *        the character to use for escaping a separator or quote. Use
+   *        {@link CSVWriter#NO_ESCAPE_CHARACTER} to disable escaping.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CSVRecordWriter setEscapeChar (final char cEscapeChar)
+  {
+    m_cEscapeChar = cEscapeChar;
+    _updateSpecialChars ();
+    return this;
+  }
+
+  /**
+   * @return the line delimiting string. Neither <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  public final String getLineEnd ()
+  {
+    return m_sLineEnd;
+  }
+
+  /**
+   * Set the line delimiting string.
+   *
+   * @param sLineEnd
+   *        The line end. May neither be <code>null</code> nor empty.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CSVRecordWriter setLineEnd (@Nonnull @Nonempty final String sLineEnd)
+  {
+    ValueEnforcer.notEmpty (sLineEnd, "LineEnd");
+    m_sLineEnd = sLineEnd;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if the output should not end with a new-line,
+   *         <code>false</code> otherwise.
+   */
+  public final boolean isAvoidFinalLineEnd ()
+  {
+    return m_bAvoidFinalLineEnd;
+  }
+
+  /**
+   * Set whether the output should end with a new line or not.
+   *
+   * @param bAvoidFinalLineEnd
+   *        <code>true</code> to avoid the output ending with a new line.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CSVRecordWriter setAvoidFinalLineEnd (final boolean bAvoidFinalLineEnd)
+  {
+    m_bAvoidFinalLineEnd = bAvoidFinalLineEnd;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if all fields should always be quoted,
+   *         <code>false</code> otherwise. The default is
+   *         {@link CSVWriter#DEFAULT_QUOTE_ALL}.
+   */
+  public final boolean isApplyQuotesToAll ()
+  {
+    return m_bApplyQuotesToAll;
+  }
+
+  /**
+   * Set whether all fields should be quoted or not.
+   *
+   * @param bApplyQuotesToAll
+   *        <code>true</code> to quote all fields, <code>false</code> to quote
+   *        only the ones where it is necessary
+   * @return this for chaining
+   */
+  @Nonnull
+  public final CSVRecordWriter setApplyQuotesToAll (final boolean bApplyQuotesToAll)
+  {
+    m_bApplyQuotesToAll = bApplyQuotesToAll;
+    return this;
+  }
+
+  private boolean _isSpecial (final char c)
+  {
+    if (c < 128)
+      return m_aSpecial[c];
+    return m_bHasNonASCIISpecial && (c == m_cSeparatorChar || c == m_cQuoteChar || c == m_cEscapeChar);
+  }
+
+  private void _flushBuffer () throws IOException
+  {
+    if (m_aWriter != null)
+    {
+      m_aWriter.write (m_aBuf, 0, m_nBufLen);
+      m_nBufLen = 0;
+    }
+    else
+    {
+      int nEnd = m_nBufLen;
+      // Keep a trailing high surrogate until the low surrogate is available
+      if (nEnd > 0 && Character.isHighSurrogate (m_aBuf[nEnd - 1]))
+        nEnd--;
+      _writeUTF8 (nEnd);
+      if (nEnd < m_nBufLen)
+        m_aBuf[0] = m_aBuf[nEnd];
+      m_nBufLen -= nEnd;
+    }
+  }
+
+  private void _writeUTF8 (final int nEnd) throws IOException
+  {
+    final char [] aBuf = m_aBuf;
+    final byte [] aBytes = m_aByteBuf;
+    int nOut = 0;
+    int i = 0;
+    while (i < nEnd)
+    {
+      final char c = aBuf[i++];
+      if (c < 0x80)
+        aBytes[nOut++] = (byte) c;
+      else
+        if (c < 0x800)
+        {
+          aBytes[nOut++] = (byte) (0xc0 | (c >> 6));
+          aBytes[nOut++] = (byte) (0x80 | (c & 0x3f));
+        }
+        else
+          if (Character.isSurrogate (c))
+          {
+            if (Character.isHighSurrogate (c) && i < nEnd && Character.isLowSurrogate (aBuf[i]))
+            {
+              final int nCP = Character.toCodePoint (c, aBuf[i++]);
+              aBytes[nOut++] = (byte) (0xf0 | (nCP >> 18));
+              aBytes[nOut++] = (byte) (0x80 | ((nCP >> 12) & 0x3f));
+              aBytes[nOut++] = (byte) (0x80 | ((nCP >> 6) & 0x3f));
+              aBytes[nOut++] = (byte) (0x80 | (nCP & 0x3f));
+            }
+            else
+            {
+              // Malformed - same replacement as String.getBytes
+              aBytes[nOut++] = '?';
+            }
+          }
+          else
+          {
+            aBytes[nOut++] = (byte) (0xe0 | (c >> 12));
+            aBytes[nOut++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            aBytes[nOut++] = (byte) (0x80 | (c & 0x3f));
+          }
+    }
+    m_aOS.write (aBytes, 0, nOut);
+  }
+
+  private void _append (final char c) throws IOException
+  {
+    if (m_nBufLen == m_aBuf.length)
+      _flushBuffer ();
+    m_aBuf[m_nBufLen++] = c;
+  }
+
+  private void _append (@Nonnull final CharSequence aCS, final int nStart, final int nEnd) throws IOException
+  {
+    int nPos = nStart;
+    while (nPos < nEnd)
+    {
+      if (m_nBufLen == m_aBuf.length)
+        _flushBuffer ();
+      final int nCount = Math.min (nEnd - nPos, m_aBuf.length - m_nBufLen);
+      if (aCS instanceof String)
+        ((String) aCS).getChars (nPos, nPos + nCount, m_aBuf, m_nBufLen);
+      else
+        if (aCS instanceof StringBuilder)
+          ((StringBuilder) aCS).getChars (nPos, nPos + nCount, m_aBuf, m_nBufLen);
+        else
+          for (int i = 0; i < nCount; ++i)
+            m_aBuf[m_nBufLen + i] = aCS.charAt (nPos + i);
+      m_nBufLen += nCount;
+      nPos += nCount;
+    }
+  }
+
+  private void _append (@Nonnull final char [] aChars, final int nStart, final int nEnd) throws IOException
+  {
+    int nPos = nStart;
+    while (nPos < nEnd)
+    {
+      if (m_nBufLen == m_aBuf.length)
+        _flushBuffer ();
+      final int nCount = Math.min (nEnd - nPos, m_aBuf.length - m_nBufLen);
+      System.arraycopy (aChars, nPos, m_aBuf, m_nBufLen, nCount);
+      m_nBufLen += nCount;
+      nPos += nCount;
+    }
+  }
+
+  private void _startField () throws IOException
+  {
+    if (m_bInRecord)
+      _append (m_cSeparatorChar);
+    else
+    {
+      if (m_bAvoidFinalLineEnd && m_nWrittenLines > 0)
+      {
+        // End previous line
+        _append (m_sLineEnd, 0, m_sLineEnd.length ());
+      }
+      m_bInRecord = true;
+    }
+  }
+
+  /**
+   * Add a text field to the current record.
+   *
+   * @param aValue
+   *        The value to write. May be <code>null</code> in which case an empty
+   *        unquoted field is written.
+   * @return this for chaining
+   * @throws IOException
+   *         on write error
+   */
+  @Nonnull
+  public CSVRecordWriter addField (@Nullable final CharSequence aValue) throws IOException
+  {
+    _startField ();
+    if (aValue != null)
+    {
+      final int nLen = aValue.length ();
+      int nFirstSpecial = 0;
+      while (nFirstSpecial < nLen && !_isSpecial (aValue.charAt (nFirstSpecial)))
+        nFirstSpecial++;
+      final boolean bContainsSpecialChars = nFirstSpecial < nLen;
+      final boolean bDoQuote = m_cQuoteChar != CSVWriter.NO_QUOTE_CHARACTER &&
+                               (m_bApplyQuotesToAll || bContainsSpecialChars);
+      if (bDoQuote)
+        _append (m_cQuoteChar);
+
+      if (bContainsSpecialChars && m_cEscapeChar != CSVWriter.NO_ESCAPE_CHARACTER)
+      {
+        // Copy the runs between the chars to be escaped in bulk
+        final char cQuote = m_cQuoteChar;
+        final char cEscape = m_cEscapeChar;
+        int nRunStart = 0;
+        for (int i = nFirstSpecial; i < nLen; ++i)
+        {
+          final char c = aValue.charAt (i);
+          if (c == cQuote || c == cEscape)
+          {
+            _append (aValue, nRunStart, i);
+            _append (cEscape);
+            nRunStart = i;
+          }
+        }
+        _append (aValue, nRunStart, nLen);
+      }
+      else
+        _append (aValue, 0, nLen);
+
+      if (bDoQuote)
+        _append (m_cQuoteChar);
+    }
+    return this;
+  }
+
+  private void _addNumber (final int nStart) throws IOException
+  {
+    final char [] aNum = m_aNumBuf;
+    final int nEnd = aNum.length;
+    for (int i = nStart; i < nEnd; ++i)
+      if (_isSpecial (aNum[i]))
+      {
+        // Rare case of a separator like '.' or '-'
+        addField (new String (aNum, nStart, nEnd - nStart));
+        return;
+      }
+
+    _startField ();
+    final boolean bDoQuote = m_bApplyQuotesToAll && m_cQuoteChar != CSVWriter.NO_QUOTE_CHARACTER;
+    if (bDoQuote)
+      _append (m_cQuoteChar);
+    _append (aNum, nStart, nEnd);
+    if (bDoQuote)
+      _append (m_cQuoteChar);
+  }
+
+  /**
+   * Render the provided non-negative number backwards into the number buffer.
+   *
+   * @param nValue
+   *        value to render. Must be &ge; 0.
+   * @param nEnd
+   *        exclusive end index
+   * @param nMinDigits
+   *        minimum number of digits, padded with zeros
+   * @return the start index
+   */
+  private int _renderDigits (final long nValue, final int nEnd, final int nMinDigits)
+  {
+    final char [] aNum = m_aNumBuf;
+    long n = nValue;
+    int nPos = nEnd;
+    do
+    {
+      aNum[--nPos] = (char) ('0' + (int) (n % 10));
+      n /= 10;
+    } while (n != 0);
+    while (nEnd - nPos < nMinDigits)
+      aNum[--nPos] = '0';
+    return nPos;
+  }
+
+  /**
+   * Add a numeric field to the current record. The result is identical to
+   * adding {@link Long#toString(long)} as a text field, but no objects are
+   * created.
+   *
+   * @param nValue
+   *        The value to write.
+   * @return this for chaining
+   * @throws IOException
+   *         on write error
+   */
+  @Nonnull
+  public CSVRecordWriter addField (final long nValue) throws IOException
+  {
+    final char [] aNum = m_aNumBuf;
+    int nStart;
+    if (nValue == Long.MIN_VALUE)
+    {
+      // Cannot be negated
+      nStart = _renderDigits (-(nValue / 10), aNum.length - 1, 1);
+      aNum[aNum.length - 1] = (char) ('0' - (int) (nValue % 10));
+    }
+    else
+      nStart = _renderDigits (Math.abs (nValue), aNum.length, 1);
+    if (nValue < 0)
+      aNum[--nStart] = '-';
+    _addNumber (nStart);
+    return this;
+  }
+
+  /**
+   * Add a numeric field to the current record. The result is identical to
+   * adding {@link Double#toString(double)} as a text field. Integral values
+   * with an absolute value &lt; 10<sup>7</sup> are rendered without creating
+   * objects. For all other values {@link Double#toString(double)} is used.
+   *
+   * @param dValue
+   *        The value to write.
+   * @return this for chaining
+   * @throws IOException
+   *         on write error
+   * @see #addField(double, int)
+   */
+  @Nonnull
+  public CSVRecordWriter addField (final double dValue) throws IOException
+  {
+    if (dValue > -1e7 && dValue < 1e7 && dValue == (long) dValue)
+    {
+      final char [] aNum = m_aNumBuf;
+      aNum[aNum.length - 1] = '0';
+      aNum[aNum.length - 2] = '.';
+      int nStart = _renderDigits (Math.abs ((long) dValue), aNum.length - 2, 1);
+      // Also handles negative zero
+      if (Double.doubleToRawLongBits (dValue) < 0)
+        aNum[--nStart] = '-';
+      _addNumber (nStart);
+    }
+    else
+      addField (Double.toString (dValue));
+    return this;
+  }
+
+  /**
+   * Add a numeric field with a fixed number of fraction digits to the current
+   * record, e.g. "3.14" for 3.14159 and 2 digits. The result is always the
+   * same as
+   * <code>BigDecimal.valueOf (dValue).setScale (nFractionDigits, RoundingMode.HALF_UP)</code>,
+   * so the decimal value as printed by {@link Double#toString(double)} is
+   * rounded half up and e.g. 1.005 with 2 digits results in "1.01". Values
+   * that are not close to a rounding tie and where the value multiplied by
+   * 10<sup>nFractionDigits</sup> is &lt; 9*10<sup>15</sup> are rendered without
+   * creating objects. NaN and infinite values are written as by
+   * {@link Double#toString(double)}.
+   *
+   * @param dValue
+   *        The value to write.
+   * @param nFractionDigits
+   *        The number of fraction digits. Must be between 0 and 9.
+   * @return this for chaining
+   * @throws IOException
+   *         on write error
+   */
+  @Nonnull
+  public CSVRecordWriter addField (final double dValue, @Nonnegative final int nFractionDigits) throws IOException
+  {
+    ValueEnforcer.isBetweenInclusive (nFractionDigits, "FractionDigits", 0, POW10.length - 1);
+
+    if (Double.isNaN (dValue) || Double.isInfinite (dValue))
+      return addField (Double.toString (dValue));
+
+    final long nFactor = POW10[nFractionDigits];
+    final double dScaled = Math.abs (dValue) * nFactor;
+    final double dFloor = Math.floor (dScaled);
+    // Near a tie the binary value may be just below the half while its decimal
+    // representation is exactly on it (e.g. 1.005) - decide via BigDecimal
+    if (dScaled >= MAX_EXACT_DOUBLE || Math.abs (dScaled - dFloor - 0.5) <= dScaled * TIE_TOLERANCE)
+      return addField (BigDecimal.valueOf (dValue).setScale (nFractionDigits, RoundingMode.HALF_UP).toPlainString ());
+
+    final long nScaled = (long) dFloor + (dScaled - dFloor > 0.5 ? 1 : 0);
+    final char [] aNum = m_aNumBuf;
+    int nStart;
+    if (nFractionDigits == 0)
+      nStart = _renderDigits (nScaled, aNum.length, 1);
+    else
+    {
+      nStart = _renderDigits (nScaled % nFactor, aNum.length, nFractionDigits);
+      aNum[--nStart] = '.';
+      nStart = _renderDigits (nScaled / nFactor, nStart, 1);
+    }
+    if (dValue < 0 && nScaled != 0)
+      aNum[--nStart] = '-';
+    _addNumber (nStart);
+    return this;
+  }
+
+  /**
+   * Finish the current record. If no field was added, an empty record is
+   * written.
+   *
+   * @return this for chaining
+   * @throws IOException
+   *         on write error
+   */
+  @Nonnull
+  public CSVRecordWriter endRecord () throws IOException
+  {
+    if (m_bAvoidFinalLineEnd)
+    {
+      if (!m_bInRecord && m_nWrittenLines > 0)
+        _append (m_sLineEnd, 0, m_sLineEnd.length ());
+    }
+    else
+      _append (m_sLineEnd, 0, m_sLineEnd.length ());
+    m_bInRecord = false;
+    m_nWrittenLines++;
+    return this;
+  }
+
+  /**
+   * Write a complete record of text fields.
+   *
+   * @param aFields
+   *        The fields of the record. May not be <code>null</code>.
+   * @return this for chaining
+   * @throws IOException
+   *         on write error
+   */
+  @Nonnull
+  public CSVRecordWriter writeRecord (@Nonnull final CharSequence... aFields) throws IOException
+  {
+    ValueEnforcer.notNull (aFields, "Fields");
+    for (final CharSequence aField : aFields)
+      addField (aField);
+    return endRecord ();
+  }
+
+  /**
+   * Write a complete record of text fields.
+   *
+   * @param aFields
+   *        The fields of the record. May not be <code>null</code>.
+   * @return this for chaining
+   * @throws IOException
+   *         on write error
+   */
+  @Nonnull
+  public CSVRecordWriter writeRecord (@Nonnull final Iterable <? extends CharSequence> aFields) throws IOException
+  {
+    ValueEnforcer.notNull (aFields, "Fields");
+    for (final CharSequence aField : aFields)
+      addField (aField);
+    return endRecord ();
+  }
+
+  /**
+   * @return The number of completed records. Always &ge; 0.
+   */
+  @Nonnegative
+  public final int getWrittenLines ()
+  {
+    return m_nWrittenLines;
+  }
+
+  /**
+   * Write all buffered content to the underlying writer or stream and flush
+   * it.
+   *
+   * @throws IOException
+   *         on write error
+   */
+  public void flush () throws IOException
+  {
+    _flushBuffer ();
+    if (m_aWriter != null)
+      m_aWriter.flush ();
+    else
+      m_aOS.flush ();
+  }
+
+  /**
+   * Write all buffered content and close the underlying writer or stream. An
+   * unfinished record is not terminated.
+   *
+   * @throws IOException
+   *         on write error
+   */
+  public void close () throws IOException
+  {
+    try
+    {
+      _flushBuffer ();
+      if (m_nBufLen > 0)
+      {
+        // Unpaired high surrogate at the end
+        m_aBuf[0] = '?';
+        _flushBuffer ();
+      }
+    }
+    finally
+    {
+      if (m_aWriter != null)
+        m_aWriter.close ();
+      else
+        m_aOS.close ();
+    }
+  }
+}
@@ -0,0 +1,565 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.datetime;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.PresentForCodeCoverage;
+
+/**
+ * Formatter for the date time formats created by {@link PDTWebDateHelper},
+ * that writes the characters directly into a byte array, a
+ * {@link StringBuilder} or an {@link Appendable}. No
+ * {@link DateTimeFormatter} lookup is performed and besides the resulting
+ * {@link String} in the <code>getAsString</code> methods nothing is
+ * allocated.<br>
+ * The rendering of the current date time in RFC 822 and W3C format is cached
+ * for the current second.<br>
+ * The output is identical to the {@link DateTimeFormatter} based formatting
+ * of the previous versions of {@link PDTWebDateHelper}.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public final class PDTWebDateFormatter
+{
+  /** Maximum number of bytes written by the RFC 822 methods */
+  public static final int MAX_LENGTH_RFC822 = 35;
+  /** Maximum number of bytes written by the W3C methods */
+  public static final int MAX_LENGTH_W3C = 31;
+  /**
+   * Maximum number of bytes written by the XSD date time methods, excluding
+   * the length of a zone region ID
+   */
+  public static final int MAX_LENGTH_XSD_DATE_TIME_WITHOUT_REGION = 40;
+  /** Maximum number of bytes written by the XSD date methods */
+  public static final int MAX_LENGTH_XSD_DATE = 16;
+
+  private static final byte [] [] RFC822_DAYS = { _ascii ("Mon, "),
+                                                  _ascii ("Tue, "),
+                                                  _ascii ("Wed, "),
+                                                  _ascii ("Thu, "),
+                                                  _ascii ("Fri, "),
+                                                  _ascii ("Sat, "),
+                                                  _ascii ("Sun, ") };
+  private static final byte [] [] RFC822_MONTHS = { _ascii (" Jan "),
+                                                    _ascii (" Feb "),
+                                                    _ascii (" Mar "),
+                                                    _ascii (" Apr "),
+                                                    _ascii (" May "),
+                                                    _ascii (" Jun "),
+                                                    _ascii (" Jul "),
+                                                    _ascii (" Aug "),
+                                                    _ascii (" Sep "),
+                                                    _ascii (" Oct "),
+                                                    _ascii (" Nov "),
+                                                    _ascii (" Dec ") };
+  private static final byte [] RFC822_GMT = _ascii (" GMT");
+
+  /** Scratch buffer for the StringBuilder and Appendable variants */
+  private static final ThreadLocal <byte []> SCRATCH = ThreadLocal.withInitial ( () -> new byte [128]);
+
+  /**
+   * The rendering of a single second.
+   */
+  @Immutable
+  private static final class CachedSecond
+  {
+    private final long m_nEpochSecond;
+    private final ZoneId m_aZoneID;
+    private final String m_sValue;
+    private final byte [] m_aBytes;
+
+    CachedSecond (final long nEpochSecond,
+                  @Nonnull final ZoneId aZoneID,
+                  @Nonnull final byte [] aBuf,
+                  @Nonnegative final int nLen)
+    {
+      m_nEpochSecond = nEpochSecond;
+      m_aZoneID = aZoneID;
+      m_aBytes = new byte [nLen];
+      System.arraycopy (aBuf, 0, m_aBytes, 0, nLen);
+      m_sValue = _toString (aBuf, nLen);
+    }
+
+    boolean isValid (final long nEpochSecond, @Nonnull final ZoneId aZoneID)
+    {
+      return m_nEpochSecond == nEpochSecond && m_aZoneID.equals (aZoneID);
+    }
+  }
+
+  private static volatile CachedSecond s_aCurrentRFC822;
+  private static volatile CachedSecond s_aCurrentW3C;
+
+  @PresentForCodeCoverage
+  private static final PDTWebDateFormatter s_aInstance = new PDTWebDateFormatter ();
+
+  private PDTWebDateFormatter ()
+  {}
+
+  @Nonnull
+  private static byte [] _ascii (@Nonnull final String s)
+  {
+    final byte [] ret = new byte [s.length ()];
+    for (int i = 0; i < ret.length; ++i)
+      ret[i] = (byte) s.charAt (i);
+    return ret;
+  }
+
+  @Nonnull
+  static String _toString (@Nonnull final byte [] aBuf, @Nonnegative final int nLen)
+  {
+    // Only US-ASCII is written
+    return new String (aBuf, 0, nLen, StandardCharsets.ISO_8859_1);
+  }
+
+  @Nonnull
+  private static byte [] _getScratch (@Nonnegative final int nMinLength)
+  {
+    final byte [] ret = SCRATCH.get ();
+    return ret.length >= nMinLength ? ret : new byte [nMinLength];
+  }
+
+  private static void _append (@Nonnull final byte [] aBuf, @Nonnegative final int nLen, @Nonnull final StringBuilder aSB)
+  {
+    aSB.ensureCapacity (aSB.length () + nLen);
+    for (int i = 0; i < nLen; ++i)
+      aSB.append ((char) aBuf[i]);
+  }
+
+  private static void _append (@Nonnull final byte [] aBuf,
+                               @Nonnegative final int nLen,
+                               @Nonnull final Appendable aAppendable) throws IOException
+  {
+    for (int i = 0; i < nLen; ++i)
+      aAppendable.append ((char) aBuf[i]);
+  }
+
+  private static int _put (@Nonnull final byte [] aSrc, @Nonnull final byte [] aBuf, final int nOfs)
+  {
+    System.arraycopy (aSrc, 0, aBuf, nOfs, aSrc.length);
+    return nOfs + aSrc.length;
+  }
+
+  private static int _put2 (final int nValue, @Nonnull final byte [] aBuf, final int nOfs)
+  {
+    aBuf[nOfs] = (byte) ('0' + nValue / 10);
+    aBuf[nOfs + 1] = (byte) ('0' + nValue % 10);
+    return nOfs + 2;
+  }
+
+  private static int _put3 (final int nValue, @Nonnull final byte [] aBuf, final int nOfs)
+  {
+    aBuf[nOfs] = (byte) ('0' + nValue / 100);
+    return _put2 (nValue % 100, aBuf, nOfs + 1);
+  }
+
+  /**
+   * Write the year the way "uuuu" does: at least 4 digits, a leading '+' if it
+   * has more than 4 digits and a leading '-' if it is negative.
+   */
+  private static int _putYear (final int nYear, @Nonnull final byte [] aBuf, final int nOfs)
+  {
+    int nPos = nOfs;
+    if (nYear >= 0 && nYear <= 9999)
+    {
+      nPos = _put2 (nYear / 100, aBuf, nPos);
+      return _put2 (nYear % 100, aBuf, nPos);
+    }
+
+    aBuf[nPos++] = (byte) (nYear < 0 ? '-' : '+');
+    // Avoid overflow on negation
+    final long nAbs = Math.abs ((long) nYear);
+    int nDigits = 1;
+    for (long n = nAbs / 10; n > 0; n /= 10)
+      nDigits++;
+    for (int i = nDigits; i < 4; ++i)
+      aBuf[nPos++] = '0';
+    long n = nAbs;
+    for (int i = nDigits - 1; i >= 0; --i)
+    {
+      aBuf[nPos + i] = (byte) ('0' + n % 10);
+      n /= 10;
+    }
+    return nPos + nDigits;
+  }
+
+  /**
+   * Write an offset. Zero is written as "Z", otherwise as "+HH:MM" and if
+   * requested ":ss" is added if the seconds are not zero.
+   */
+  private static int _putOffset (final int nTotalSeconds,
+                                 final boolean bWithSeconds,
+                                 @Nonnull final byte [] aBuf,
+                                 final int nOfs)
+  {
+    int nPos = nOfs;
+    if (nTotalSeconds == 0)
+    {
+      aBuf[nPos++] = 'Z';
+      return nPos;
+    }
+    final int nAbs = Math.abs (nTotalSeconds);
+    aBuf[nPos++] = (byte) (nTotalSeconds < 0 ? '-' : '+');
+    nPos = _put2 (nAbs / 3600, aBuf, nPos);
+    aBuf[nPos++] = ':';
+    nPos = _put2 ((nAbs / 60) % 60, aBuf, nPos);
+    if (bWithSeconds && (nAbs % 60) != 0)
+    {
+      aBuf[nPos++] = ':';
+      nPos = _put2 (nAbs % 60, aBuf, nPos);
+    }
+    return nPos;
+  }
+
+  private static int _putDate (@Nonnull final LocalDate aDate, @Nonnull final byte [] aBuf, final int nOfs)
+  {
+    int nPos = _putYear (aDate.getYear (), aBuf, nOfs);
+    aBuf[nPos++] = '-';
+    nPos = _put2 (aDate.getMonthValue (), aBuf, nPos);
+    aBuf[nPos++] = '-';
+    return _put2 (aDate.getDayOfMonth (), aBuf, nPos);
+  }
+
+  private static int _putTime (@Nonnull final LocalDateTime aLDT, @Nonnull final byte [] aBuf, final int nOfs)
+  {
+    int nPos = _put2 (aLDT.getHour (), aBuf, nOfs);
+    aBuf[nPos++] = ':';
+    nPos = _put2 (aLDT.getMinute (), aBuf, nPos);
+    aBuf[nPos++] = ':';
+    return _put2 (aLDT.getSecond (), aBuf, nPos);
+  }
+
+  // RFC 822
+
+  /**
+   * Write the passed date time in the RFC 822 format "EEE, dd MMM uuuu
+   * HH:mm:ss 'GMT'". The local date time of the passed object is used as is.
+   *
+   * @param aDT
+   *        The date time to write. May not be <code>null</code>.
+   * @param aBuf
+   *        The buffer to write to. Must have at least
+   *        {@link #MAX_LENGTH_RFC822} bytes available.
+   * @param nOfs
+   *        The offset into the buffer to start writing.
+   * @return The offset after the last written byte.
+   */
+  public static int writeRFC822 (@Nonnull final ZonedDateTime aDT, @Nonnull final byte [] aBuf, @Nonnegative final int nOfs)
+  {
+    final LocalDateTime aLDT = aDT.toLocalDateTime ();
+    int nPos = _put (RFC822_DAYS[aLDT.getDayOfWeek ().ordinal ()], aBuf, nOfs);
+    nPos = _put2 (aLDT.getDayOfMonth (), aBuf, nPos);
+    nPos = _put (RFC822_MONTHS[aLDT.getMonthValue () - 1], aBuf, nPos);
+    nPos = _putYear (aLDT.getYear (), aBuf, nPos);
+    aBuf[nPos++] = ' ';
+    nPos = _putTime (aLDT, aBuf, nPos);
+    return _put (RFC822_GMT, aBuf, nPos);
+  }
+
+  @Nonnull
+  public static StringBuilder appendRFC822 (@Nonnull final ZonedDateTime aDT, @Nonnull final StringBuilder aSB)
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_RFC822);
+    _append (aBuf, writeRFC822 (aDT, aBuf, 0), aSB);
+    return aSB;
+  }
+
+  public static void appendRFC822 (@Nonnull final ZonedDateTime aDT, @Nonnull final Appendable aAppendable) throws IOException
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_RFC822);
+    _append (aBuf, writeRFC822 (aDT, aBuf, 0), aAppendable);
+  }
+
+  @Nonnull
+  @Nonempty
+  public static String getAsStringRFC822 (@Nonnull final ZonedDateTime aDT)
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_RFC822);
+    return _toString (aBuf, writeRFC822 (aDT, aBuf, 0));
+  }
+
+  @Nonnull
+  private static CachedSecond _getCurrentRFC822 ()
+  {
+    final long nEpochSecond = Clock.systemUTC ().millis () / CGlobal.MILLISECONDS_PER_SECOND;
+    CachedSecond ret = s_aCurrentRFC822;
+    if (ret == null || !ret.isValid (nEpochSecond, ZoneOffset.UTC))
+    {
+      final byte [] aBuf = _getScratch (MAX_LENGTH_RFC822);
+      final ZonedDateTime aNow = ZonedDateTime.ofInstant (Instant.ofEpochSecond (nEpochSecond), ZoneOffset.UTC);
+      ret = new CachedSecond (nEpochSecond, ZoneOffset.UTC, aBuf, writeRFC822 (aNow, aBuf, 0));
+      s_aCurrentRFC822 = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * @return The current date time in UTC formatted using RFC 822. The value is
+   *         cached for the current second.
+   */
+  @Nonnull
+  @Nonempty
+  public static String getCurrentDateTimeAsStringRFC822 ()
+  {
+    return _getCurrentRFC822 ().m_sValue;
+  }
+
+  /**
+   * Write the current date time in UTC formatted using RFC 822. The value is
+   * cached for the current second.
+   *
+   * @param aBuf
+   *        The buffer to write to. Must have at least
+   *        {@link #MAX_LENGTH_RFC822} bytes available.
+   * @param nOfs
+   *        The offset into the buffer to start writing.
+   * @return The offset after the last written byte.
+   */
+  public static int writeCurrentDateTimeRFC822 (@Nonnull final byte [] aBuf, @Nonnegative final int nOfs)
+  {
+    return _put (_getCurrentRFC822 ().m_aBytes, aBuf, nOfs);
+  }
+
+  // W3C
+
+  /**
+   * Write the passed date time in the W3C format "uuuu-MM-dd'T'HH:mm:ssXXX".
+   *
+   * @param aDT
+   *        The date time to write. May not be <code>null</code>.
+   * @param aBuf
+   *        The buffer to write to. Must have at least {@link #MAX_LENGTH_W3C}
+   *        bytes available.
+   * @param nOfs
+   *        The offset into the buffer to start writing.
+   * @return The offset after the last written byte.
+   */
+  public static int writeW3C (@Nonnull final ZonedDateTime aDT, @Nonnull final byte [] aBuf, @Nonnegative final int nOfs)
+  {
+    final LocalDateTime aLDT = aDT.toLocalDateTime ();
+    int nPos = _putDate (aLDT.toLocalDate (), aBuf, nOfs);
+    aBuf[nPos++] = 'T';
+    nPos = _putTime (aLDT, aBuf, nPos);
+    return _putOffset (aDT.getOffset ().getTotalSeconds (), false, aBuf, nPos);
+  }
+
+  @Nonnull
+  public static StringBuilder appendW3C (@Nonnull final ZonedDateTime aDT, @Nonnull final StringBuilder aSB)
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_W3C);
+    _append (aBuf, writeW3C (aDT, aBuf, 0), aSB);
+    return aSB;
+  }
+
+  public static void appendW3C (@Nonnull final ZonedDateTime aDT, @Nonnull final Appendable aAppendable) throws IOException
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_W3C);
+    _append (aBuf, writeW3C (aDT, aBuf, 0), aAppendable);
+  }
+
+  @Nonnull
+  @Nonempty
+  public static String getAsStringW3C (@Nonnull final ZonedDateTime aDT)
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_W3C);
+    return _toString (aBuf, writeW3C (aDT, aBuf, 0));
+  }
+
+  /**
+   * @return The current date time in the default zone of {@link PDTConfig}
+   *         formatted using W3C format. The value is cached for the current
+   *         second.
+   */
+  @Nonnull
+  @Nonempty
+  public static String getCurrentDateTimeAsStringW3C ()
+  {
+    final ZoneId aZoneID = PDTConfig.getDefaultZoneId ();
+    final long nEpochSecond = Clock.systemUTC ().millis () / CGlobal.MILLISECONDS_PER_SECOND;
+    CachedSecond ret = s_aCurrentW3C;
+    if (ret == null || !ret.isValid (nEpochSecond, aZoneID))
+    {
+      final byte [] aBuf = _getScratch (MAX_LENGTH_W3C);
+      final ZonedDateTime aNow = ZonedDateTime.ofInstant (Instant.ofEpochSecond (nEpochSecond), aZoneID);
+      ret = new CachedSecond (nEpochSecond, aZoneID, aBuf, writeW3C (aNow, aBuf, 0));
+      s_aCurrentW3C = ret;
+    }
+    return ret.m_sValue;
+  }
+
+  // XSD
+
+  /**
+   * Write the passed date time in the layout of
+   * {@link PDTWebDateHelper#XSD_DATE_TIME}:
+   * "uuuu-MM-dd'T'HH:mm:ss.SSS[offset][[region]]". The region is only written
+   * if the zone is not a {@link ZoneOffset}.
+   *
+   * @param aDT
+   *        The date time to write. May not be <code>null</code>.
+   * @param aBuf
+   *        The buffer to write to. Must have at least
+   *        {@link #MAX_LENGTH_XSD_DATE_TIME_WITHOUT_REGION} bytes plus the
+   *        length of the zone ID available.
+   * @param nOfs
+   *        The offset into the buffer to start writing.
+   * @return The offset after the last written byte.
+   */
+  public static int writeXSD (@Nonnull final ZonedDateTime aDT, @Nonnull final byte [] aBuf, @Nonnegative final int nOfs)
+  {
+    int nPos = writeXSD (aDT.toLocalDateTime (), aBuf, nOfs);
+    nPos = _putOffset (aDT.getOffset ().getTotalSeconds (), true, aBuf, nPos);
+    final ZoneId aZoneID = aDT.getZone ();
+    if (!(aZoneID instanceof ZoneOffset))
+    {
+      final String sRegion = aZoneID.getId ();
+      aBuf[nPos++] = '[';
+      for (int i = 0; i < sRegion.length (); ++i)
+        aBuf[nPos++] = (byte) sRegion.charAt (i);
+      aBuf[nPos++] = ']';
+    }
+    return nPos;
+  }
+
+  /**
+   * Write the passed local date time in the layout of
+   * {@link PDTWebDateHelper#XSD_DATE_TIME}: "uuuu-MM-dd'T'HH:mm:ss.SSS".
+   *
+   * @param aLDT
+   *        The date time to write. May not be <code>null</code>.
+   * @param aBuf
+   *        The buffer to write to. Must have at least
+   *        {@link #MAX_LENGTH_XSD_DATE_TIME_WITHOUT_REGION} bytes available.
+   * @param nOfs
+   *        The offset into the buffer to start writing.
+   * @return The offset after the last written byte.
+   */
+  public static int writeXSD (@Nonnull final LocalDateTime aLDT, @Nonnull final byte [] aBuf, @Nonnegative final int nOfs)
+  {
+    int nPos = _putDate (aLDT.toLocalDate (), aBuf, nOfs);
+    aBuf[nPos++] = 'T';
+    nPos = _putTime (aLDT, aBuf, nPos);
+    aBuf[nPos++] = '.';
+    return _put3 (aLDT.getNano () / 1_000_000, aBuf, nPos);
+  }
+
+  /**
+   * Write the passed date in the XSD format "uuuu-MM-dd".
+   *
+   * @param aLD
+   *        The date to write. May not be <code>null</code>.
+   * @param aBuf
+   *        The buffer to write to. Must have at least
+   *        {@link #MAX_LENGTH_XSD_DATE} bytes available.
+   * @param nOfs
+   *        The offset into the buffer to start writing.
+   * @return The offset after the last written byte.
+   */
+  public static int writeXSD (@Nonnull final LocalDate aLD, @Nonnull final byte [] aBuf, @Nonnegative final int nOfs)
+  {
+    return _putDate (aLD, aBuf, nOfs);
+  }
+
+  private static int _getMaxLengthXSD (@Nonnull final ZonedDateTime aDT)
+  {
+    return MAX_LENGTH_XSD_DATE_TIME_WITHOUT_REGION + aDT.getZone ().getId ().length ();
+  }
+
+  @Nonnull
+  public static StringBuilder appendXSD (@Nonnull final ZonedDateTime aDT, @Nonnull final StringBuilder aSB)
+  {
+    final byte [] aBuf = _getScratch (_getMaxLengthXSD (aDT));
+    _append (aBuf, writeXSD (aDT, aBuf, 0), aSB);
+    return aSB;
+  }
+
+  public static void appendXSD (@Nonnull final ZonedDateTime aDT, @Nonnull final Appendable aAppendable) throws IOException
+  {
+    final byte [] aBuf = _getScratch (_getMaxLengthXSD (aDT));
+    _append (aBuf, writeXSD (aDT, aBuf, 0), aAppendable);
+  }
+
+  @Nonnull
+  @Nonempty
+  public static String getAsStringXSD (@Nonnull final ZonedDateTime aDT)
+  {
+    final byte [] aBuf = _getScratch (_getMaxLengthXSD (aDT));
+    return _toString (aBuf, writeXSD (aDT, aBuf, 0));
+  }
+
+  @Nonnull
+  public static StringBuilder appendXSD (@Nonnull final LocalDateTime aLDT, @Nonnull final StringBuilder aSB)
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_XSD_DATE_TIME_WITHOUT_REGION);
+    _append (aBuf, writeXSD (aLDT, aBuf, 0), aSB);
+    return aSB;
+  }
+
+  public static void appendXSD (@Nonnull final LocalDateTime aLDT, @Nonnull final Appendable aAppendable) throws IOException
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_XSD_DATE_TIME_WITHOUT_REGION);
+    _append (aBuf, writeXSD (aLDT, aBuf, 0), aAppendable);
+  }
+
+  @Nonnull
+  @Nonempty
+  public static String getAsStringXSD (@Nonnull final LocalDateTime aLDT)
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_XSD_DATE_TIME_WITHOUT_REGION);
+    return _toString (aBuf, writeXSD (aLDT, aBuf, 0));
+  }
+
+  @Nonnull
+  public static StringBuilder appendXSD (@Nonnull final LocalDate aLD, @Nonnull final StringBuilder aSB)
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_XSD_DATE);
+    _append (aBuf, writeXSD (aLD, aBuf, 0), aSB);
+    return aSB;
+  }
+
+  public static void appendXSD (@Nonnull final LocalDate aLD, @Nonnull final Appendable aAppendable) throws IOException
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_XSD_DATE);
+    _append (aBuf, writeXSD (aLD, aBuf, 0), aAppendable);
+  }
+
+  @Nonnull
+  @Nonempty
+  public static String getAsStringXSD (@Nonnull final LocalDate aLD)
+  {
+    final byte [] aBuf = _getScratch (MAX_LENGTH_XSD_DATE);
+    return _toString (aBuf, writeXSD (aLD, aBuf, 0));
+  }
+}
@@ -21,7 +21,6 @@ import static java.time.temporal.ChronoField.MILLI_OF_SECOND;
 import static java.time.temporal.ChronoField.MINUTE_OF_HOUR;
 import static java.time.temporal.ChronoField.SECOND_OF_MINUTE;
 
-import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
@@ -53,8 +52,11 @@ import com.helger.commons.typeconvert.TypeConverter;
  * A helper class that parses Dates out of Strings with date time in RFC822 and
  * W3CDateTime formats plus the variants Atom (0.3) and RSS (0.9, 0.91, 0.92,
  * 0.93, 0.94, 1.0 and 2.0) specificators added to those formats.<br>
- * It uses the JDK java.text.SimpleDateFormat class attempting the parse using a
- * mask for each one of the possible formats.<br>
+ * The parsing methods use the single pass {@link PDTWebDateParser}. The mask
+ * based parsing, attempting the parse using a mask for each one of the possible
+ * formats, is still available via
+ * {@link #parseOffsetDateTimeUsingMask(PDTMask[], String)} and
+ * {@link #parseZonedDateTimeUsingMask(PDTMask[], String, ZoneId)}.<br>
  * Original work Copyright 2004 Sun Microsystems, Inc.
  *
  * @author Alejandro Abdelnur (original; mainly the formatting masks)
@@ -280,6 +282,28 @@ public final class PDTWebDateHelper
    */
   @Nullable
   public static ZonedDateTime getDateTimeFromRFC822 (@Nullable final String sDate)
+  {
+    if (StringHelper.hasNoText (sDate))
+      return null;
+
+    return PDTWebDateParser.parseRFC822 (sDate);
+  }
+
+  /**
+   * Parses a Date out of a String with a date in RFC822 format by trying all
+   * RFC822 masks one after another. This is the previous implementation of
+   * {@link #getDateTimeFromRFC822(String)} and much slower.
+   *
+   * @param sDate
+   *        string to parse for a date. May be <code>null</code>.
+   * @return the Date represented by the given RFC822 string. It returns
+   *         <b>null</b> if it was not possible to parse the given string into a
+   *         {@link ZonedDateTime} or if the passed {@link String} was
+   *         <code>null</code>.
+   * @since 9.4.3
+   */
+  @Nullable
+  public static ZonedDateTime getDateTimeFromRFC822UsingMasks (@Nullable final String sDate)
   {
     if (StringHelper.hasNoText (sDate))
       return null;
@@ -311,6 +335,27 @@ public final class PDTWebDateHelper
    */
   @Nullable
   public static OffsetDateTime getDateTimeFromW3C (@Nullable final String sDate)
+  {
+    if (StringHelper.hasNoText (sDate))
+      return null;
+
+    return PDTWebDateParser.parseW3C (sDate);
+  }
+
+  /**
+   * Parses a Date out of a String with a date in W3C date-time format by trying
+   * all W3C masks one after another. This is the previous implementation of
+   * {@link #getDateTimeFromW3C(String)} and much slower.
+   *
+   * @param sDate
+   *        string to parse for a date. May be <code>null</code>.
+   * @return the Date represented by the given W3C date-time string. It returns
+   *         <b>null</b> if it was not possible to parse the given string into a
+   *         {@link ZonedDateTime} or if the input string was <code>null</code>.
+   * @since 9.4.3
+   */
+  @Nullable
+  public static OffsetDateTime getDateTimeFromW3CUsingMasks (@Nullable final String sDate)
   {
     if (StringHelper.hasNoText (sDate))
       return null;
@@ -368,7 +413,7 @@ public final class PDTWebDateHelper
   {
     if (aDateTime == null)
       return null;
-    return PDTFormatter.getForPattern (FORMAT_RFC822, LOCALE_TO_USE).format (aDateTime);
+    return PDTWebDateFormatter.getAsStringRFC822 (aDateTime);
   }
 
   /**
@@ -416,8 +461,7 @@ public final class PDTWebDateHelper
   {
     if (aDateTime == null)
       return null;
-    final DateTimeFormatter aFormatter = PDTFormatter.getForPattern (FORMAT_W3C, LOCALE_TO_USE);
-    return aFormatter.format (aDateTime);
+    return PDTWebDateFormatter.getAsStringW3C (aDateTime);
   }
 
   /**
@@ -459,9 +503,7 @@ public final class PDTWebDateHelper
   {
     // Important to use date time zone GMT as this is what the standard
     // printer emits!
-    // Use no milliseconds as the standard printer does not print them!
-    final ZonedDateTime aNow = ZonedDateTime.now (Clock.systemUTC ()).withNano (0);
-    return getAsStringRFC822 (aNow);
+    return PDTWebDateFormatter.getCurrentDateTimeAsStringRFC822 ();
   }
 
   /**
@@ -470,9 +512,7 @@ public final class PDTWebDateHelper
   @Nonnull
   public static String getCurrentDateTimeAsStringW3C ()
   {
-    // Use no milli seconds as the standard printer does not print them!
-    final ZonedDateTime aNow = PDTFactory.getCurrentZonedDateTime ().withNano (0);
-    return getAsStringW3C (aNow);
+    return PDTWebDateFormatter.getCurrentDateTimeAsStringW3C ();
   }
 
   public static final DateTimeFormatter XSD_DATE_TIME;
@@ -521,14 +561,13 @@ public final class PDTWebDateHelper
   @Nullable
   public static ZonedDateTime getDateTimeFromXSD (@Nullable final String sValue, @Nonnull final ZoneId aZoneID)
   {
-    return PDTFromString.getZonedDateTimeFromString (sValue, getXSDFormatterDateTime (aZoneID));
+    return PDTWebDateParser.parseXSDDateTime (sValue, aZoneID);
   }
 
   @Nullable
   public static LocalDateTime getLocalDateTimeFromXSD (@Nullable final String sValue)
   {
-    // For LocalDateTime always use the default chronology
-    return PDTFromString.getLocalDateTimeFromString (sValue, getXSDFormatterDateTime (ZoneOffset.UTC));
+    return PDTWebDateParser.parseXSDLocalDateTime (sValue);
   }
 
   @Nullable
@@ -540,14 +579,17 @@ public final class PDTWebDateHelper
   @Nullable
   public static String getAsStringXSD (@Nonnull final ZoneId aZoneID, @Nullable final ZonedDateTime aZDT)
   {
-    return aZDT == null ? null : getXSDFormatterDateTime (aZoneID).format (aZDT);
+    if (aZDT == null)
+      return null;
+    // Same as the override zone of the formatter
+    final ZonedDateTime aRealZDT = aZDT.getZone ().equals (aZoneID) ? aZDT : aZDT.withZoneSameInstant (aZoneID);
+    return PDTWebDateFormatter.getAsStringXSD (aRealZDT);
   }
 
   @Nullable
   public static String getAsStringXSD (@Nullable final LocalDateTime aLDT)
   {
-    // For LocalDateTime always use the default zone ID
-    return aLDT == null ? null : getXSDFormatterDateTime (PDTConfig.getDefaultZoneId ()).format (aLDT);
+    return aLDT == null ? null : PDTWebDateFormatter.getAsStringXSD (aLDT);
   }
 
   @Nonnull
@@ -559,12 +601,12 @@ public final class PDTWebDateHelper
   @Nullable
   public static LocalDate getLocalDateFromXSD (@Nullable final String sValue)
   {
-    return PDTFromString.getLocalDateFromString (sValue, getXSDFormatterDate ());
+    return PDTWebDateParser.parseXSDDate (sValue);
   }
 
   @Nullable
   public static String getAsStringXSD (@Nullable final LocalDate aLD)
   {
-    return aLD == null ? null : getXSDFormatterDate ().format (aLD);
+    return aLD == null ? null : PDTWebDateFormatter.getAsStringXSD (aLD);
   }
 }
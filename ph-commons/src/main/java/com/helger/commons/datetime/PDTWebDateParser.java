@@ -0,0 +1,697 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.datetime;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.PresentForCodeCoverage;
+
+/**
+ * A single pass parser for the date time formats handled by
+ * {@link PDTWebDateHelper}. Instead of trying a list of
+ * {@link DateTimeFormatter} masks one after another (where each failed attempt
+ * creates an exception), the variant is detected from the character layout
+ * and the fields are read directly. No exceptions are thrown or caught and
+ * apart from the result object nothing is allocated.<br>
+ * The results are identical to the mask based parsing in
+ * {@link PDTWebDateHelper#parseOffsetDateTimeUsingMask(PDTMask[], String)}
+ * and
+ * {@link PDTWebDateHelper#parseZonedDateTimeUsingMask(PDTMask[], String, ZoneId)}
+ * with the following extensions: in W3C date times the fractional seconds may
+ * have 1 to 9 digits and in RFC 822 date times a numeric zone offset is
+ * accepted in all variants.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@Immutable
+public final class PDTWebDateParser
+{
+  /** The result of a parse method if the input cannot be parsed */
+  private static final int ERROR = -1;
+  private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+
+  private static final String [] RFC822_DAYS = { "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun" };
+  private static final String [] RFC822_MONTHS = { "Jan",
+                                                   "Feb",
+                                                   "Mar",
+                                                   "Apr",
+                                                   "May",
+                                                   "Jun",
+                                                   "Jul",
+                                                   "Aug",
+                                                   "Sep",
+                                                   "Oct",
+                                                   "Nov",
+                                                   "Dec" };
+
+  @PresentForCodeCoverage
+  private static final PDTWebDateParser s_aInstance = new PDTWebDateParser ();
+
+  private PDTWebDateParser ()
+  {}
+
+  private static boolean _isDigit (final char c)
+  {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Read exactly two digits.
+   *
+   * @return The numeric value or {@link #ERROR}
+   */
+  private static int _get2Digits (@Nonnull final CharSequence s, final int nIndex, final int nEnd)
+  {
+    if (nIndex + 2 > nEnd)
+      return ERROR;
+    final char c1 = s.charAt (nIndex);
+    final char c2 = s.charAt (nIndex + 1);
+    if (!_isDigit (c1) || !_isDigit (c2))
+      return ERROR;
+    return (c1 - '0') * 10 + (c2 - '0');
+  }
+
+  /**
+   * Read exactly four digits.
+   *
+   * @return The numeric value or {@link #ERROR}
+   */
+  private static int _get4Digits (@Nonnull final CharSequence s, final int nIndex, final int nEnd)
+  {
+    final int nHigh = _get2Digits (s, nIndex, nEnd);
+    if (nHigh == ERROR)
+      return ERROR;
+    final int nLow = _get2Digits (s, nIndex + 2, nEnd);
+    if (nLow == ERROR)
+      return ERROR;
+    return nHigh * 100 + nLow;
+  }
+
+  private static boolean _isChar (@Nonnull final CharSequence s, final int nIndex, final int nEnd, final char c)
+  {
+    return nIndex < nEnd && s.charAt (nIndex) == c;
+  }
+
+  private static boolean _isCharIgnoreCase (@Nonnull final CharSequence s,
+                                            final int nIndex,
+                                            final int nEnd,
+                                            final char cUpper)
+  {
+    if (nIndex >= nEnd)
+      return false;
+    final char c = s.charAt (nIndex);
+    return c == cUpper || c == Character.toLowerCase (cUpper);
+  }
+
+  private static boolean _regionMatches (@Nonnull final CharSequence s,
+                                         final int nIndex,
+                                         final int nEnd,
+                                         @Nonnull final String sSearch)
+  {
+    final int nLen = sSearch.length ();
+    if (nIndex < 0 || nIndex + nLen > nEnd)
+      return false;
+    for (int i = 0; i < nLen; ++i)
+      if (s.charAt (nIndex + i) != sSearch.charAt (i))
+        return false;
+    return true;
+  }
+
+  private static boolean _isValidDate (final int nYear, final int nMonth, final int nDay)
+  {
+    if (nMonth < 1 || nMonth > 12 || nDay < 1)
+      return false;
+    return nDay <= Month.of (nMonth).length (Year.isLeap (nYear));
+  }
+
+  private static boolean _isValidTime (final int nHour, final int nMinute, final int nSecond)
+  {
+    return nHour >= 0 && nHour <= 23 && nMinute >= 0 && nMinute <= 59 && nSecond >= 0 && nSecond <= 59;
+  }
+
+  private static int _getTrimmedStart (@Nonnull final CharSequence s)
+  {
+    final int nLen = s.length ();
+    int ret = 0;
+    while (ret < nLen && s.charAt (ret) <= ' ')
+      ret++;
+    return ret;
+  }
+
+  private static int _getTrimmedEnd (@Nonnull final CharSequence s, final int nStart)
+  {
+    int ret = s.length ();
+    while (ret > nStart && s.charAt (ret - 1) <= ' ')
+      ret--;
+    return ret;
+  }
+
+  /**
+   * Parse the fractional seconds.
+   *
+   * @param s
+   *        Source
+   * @param nIndex
+   *        Index of the first digit
+   * @param nEnd
+   *        End index
+   * @param nMinDigits
+   *        Minimum number of digits
+   * @param nMaxDigits
+   *        Maximum number of digits
+   * @param aNanos
+   *        Array of length 1 to retrieve the nano seconds.
+   * @return The index after the fraction or {@link #ERROR}.
+   */
+  private static int _parseFraction (@Nonnull final CharSequence s,
+                                     final int nIndex,
+                                     final int nEnd,
+                                     final int nMinDigits,
+                                     final int nMaxDigits,
+                                     @Nonnull final int [] aNanos)
+  {
+    int nPos = nIndex;
+    int nNanos = 0;
+    while (nPos < nEnd && _isDigit (s.charAt (nPos)) && nPos - nIndex < nMaxDigits)
+    {
+      nNanos = nNanos * 10 + (s.charAt (nPos) - '0');
+      nPos++;
+    }
+    final int nDigits = nPos - nIndex;
+    if (nDigits < nMinDigits)
+      return ERROR;
+    for (int i = nDigits; i < 9; ++i)
+      nNanos *= 10;
+    aNanos[0] = nNanos;
+    return nPos;
+  }
+
+  /**
+   * Parse a numeric zone offset starting with a '+' or '-' sign.
+   *
+   * @param s
+   *        Source
+   * @param nIndex
+   *        Index of the sign
+   * @param nEnd
+   *        End index
+   * @param bColon
+   *        <code>true</code> for "+HH:MM", <code>false</code> for "+HHMM"
+   * @param bOptionalSeconds
+   *        <code>true</code> to allow an optional ":SS" suffix
+   * @param aOffsetSeconds
+   *        Array of length 1 to retrieve the total offset in seconds.
+   * @return The index after the offset or {@link #ERROR}.
+   */
+  private static int _parseOffset (@Nonnull final CharSequence s,
+                                   final int nIndex,
+                                   final int nEnd,
+                                   final boolean bColon,
+                                   final boolean bOptionalSeconds,
+                                   @Nonnull final int [] aOffsetSeconds)
+  {
+    if (nIndex >= nEnd)
+      return ERROR;
+    final char cSign = s.charAt (nIndex);
+    if (cSign != '+' && cSign != '-')
+      return ERROR;
+    int nPos = nIndex + 1;
+    final int nHours = _get2Digits (s, nPos, nEnd);
+    if (nHours == ERROR || nHours > 23)
+      return ERROR;
+    nPos += 2;
+    if (bColon)
+    {
+      if (!_isChar (s, nPos, nEnd, ':'))
+        return ERROR;
+      nPos++;
+    }
+    final int nMinutes = _get2Digits (s, nPos, nEnd);
+    if (nMinutes == ERROR || nMinutes > 59)
+      return ERROR;
+    nPos += 2;
+    int nSeconds = 0;
+    if (bOptionalSeconds && _isChar (s, nPos, nEnd, ':'))
+    {
+      nSeconds = _get2Digits (s, nPos + 1, nEnd);
+      if (nSeconds == ERROR || nSeconds > 59)
+        return ERROR;
+      nPos += 3;
+    }
+    final int nTotal = nHours * 3600 + nMinutes * 60 + nSeconds;
+    if (nTotal > MAX_OFFSET_SECONDS)
+      return ERROR;
+    aOffsetSeconds[0] = cSign == '-' ? -nTotal : nTotal;
+    return nPos;
+  }
+
+  /**
+   * Parse a W3C date time string. Supported are "uuuu", "uuuu-MM",
+   * "uuuu-MM-dd" and "uuuu-MM-dd'T'HH:mm[:ss[.S]][zone]" where the zone is
+   * either "Z", "+HH:MM" or "+HHMM". Leading and trailing whitespaces are
+   * ignored. Values without a zone are interpreted in the default zone of
+   * {@link PDTConfig}.
+   *
+   * @param aText
+   *        The text to parse. May be <code>null</code>.
+   * @return <code>null</code> if the text could not be parsed.
+   * @see PDTWebDateHelper#getDateTimeFromW3C(String)
+   */
+  @Nullable
+  public static OffsetDateTime parseW3C (@Nullable final CharSequence aText)
+  {
+    if (aText == null)
+      return null;
+
+    final CharSequence s = aText;
+    final int nStart = _getTrimmedStart (s);
+    final int nEnd = _getTrimmedEnd (s, nStart);
+
+    // Year
+    final int nYear = _get4Digits (s, nStart, nEnd);
+    if (nYear == ERROR)
+      return null;
+    int nPos = nStart + 4;
+    if (nPos == nEnd)
+      return PDTFactory.createOffsetDateTime (Year.of (nYear));
+
+    // Month
+    if (!_isChar (s, nPos, nEnd, '-'))
+      return null;
+    final int nMonth = _get2Digits (s, nPos + 1, nEnd);
+    if (nMonth < 1 || nMonth > 12)
+      return null;
+    nPos += 3;
+    if (nPos == nEnd)
+      return PDTFactory.createOffsetDateTime (YearMonth.of (nYear, nMonth));
+
+    // Day
+    if (!_isChar (s, nPos, nEnd, '-'))
+      return null;
+    final int nDay = _get2Digits (s, nPos + 1, nEnd);
+    if (!_isValidDate (nYear, nMonth, nDay))
+      return null;
+    nPos += 3;
+    if (nPos == nEnd)
+      return PDTFactory.createOffsetDateTime (LocalDate.of (nYear, nMonth, nDay));
+
+    // Time
+    if (!_isCharIgnoreCase (s, nPos, nEnd, 'T'))
+      return null;
+    final int nHour = _get2Digits (s, nPos + 1, nEnd);
+    if (!_isChar (s, nPos + 3, nEnd, ':'))
+      return null;
+    final int nMinute = _get2Digits (s, nPos + 4, nEnd);
+    nPos += 6;
+    int nSecond = 0;
+    final int [] aTmp = new int [1];
+    int nNanos = 0;
+    if (_isChar (s, nPos, nEnd, ':'))
+    {
+      nSecond = _get2Digits (s, nPos + 1, nEnd);
+      nPos += 3;
+      if (_isChar (s, nPos, nEnd, '.'))
+      {
+        nPos = _parseFraction (s, nPos + 1, nEnd, 1, 9, aTmp);
+        if (nPos == ERROR)
+          return null;
+        nNanos = aTmp[0];
+      }
+    }
+    if (!_isValidTime (nHour, nMinute, nSecond))
+      return null;
+    final LocalDateTime aLDT = LocalDateTime.of (nYear, nMonth, nDay, nHour, nMinute, nSecond, nNanos);
+    if (nPos == nEnd)
+      return PDTFactory.createOffsetDateTime (aLDT);
+
+    // Zone
+    final ZoneOffset aOffset;
+    if (s.charAt (nPos) == 'Z')
+    {
+      aOffset = ZoneOffset.UTC;
+      nPos++;
+    }
+    else
+    {
+      final boolean bColon = _isChar (s, nPos + 3, nEnd, ':');
+      nPos = _parseOffset (s, nPos, nEnd, bColon, false, aTmp);
+      if (nPos == ERROR)
+        return null;
+      aOffset = ZoneOffset.ofTotalSeconds (aTmp[0]);
+    }
+    if (nPos != nEnd)
+      return null;
+    return OffsetDateTime.of (aLDT, aOffset);
+  }
+
+  private static int _indexOf (@Nonnull final String [] aNames,
+                               @Nonnull final CharSequence s,
+                               final int nIndex,
+                               final int nEnd)
+  {
+    if (nIndex + 3 > nEnd)
+      return ERROR;
+    for (int i = 0; i < aNames.length; ++i)
+      if (_regionMatches (s, nIndex, nEnd, aNames[i]))
+        return i;
+    return ERROR;
+  }
+
+  /**
+   * Parse a RFC 822 date time string in the form "[EEE, ]dd MMM uu[uu]
+   * HH:mm[:ss][ zone]", where the zone is either a numeric offset "+HHMM" or
+   * one of the zone names of {@link PDTZoneID#getDefaultZoneIDs()}. Leading and
+   * trailing whitespaces are ignored. Day and month names must be English.
+   *
+   * @param aText
+   *        The text to parse. May be <code>null</code>.
+   * @return <code>null</code> if the text could not be parsed.
+   * @see PDTWebDateHelper#getDateTimeFromRFC822(String)
+   */
+  @Nullable
+  public static ZonedDateTime parseRFC822 (@Nullable final CharSequence aText)
+  {
+    if (aText == null)
+      return null;
+
+    final CharSequence s = aText;
+    final int nStart = _getTrimmedStart (s);
+    int nEnd = _getTrimmedEnd (s, nStart);
+    if (nStart == nEnd)
+      return null;
+
+    // Zone name at the end (same logic as
+    // PDTWebDateHelper.extractDateTimeZone)
+    ZoneId aZoneID = null;
+    for (final PDTZoneID aSupp : PDTZoneID.getDefaultZoneIDs ())
+    {
+      final String sDTZ = aSupp.getZoneIDString ();
+      final int nZoneStart = nEnd - sDTZ.length ();
+      if (_regionMatches (s, nZoneStart, nEnd, sDTZ) && nZoneStart >= nStart)
+      {
+        aZoneID = aSupp.getZoneID ();
+        nEnd = nZoneStart;
+        if (nEnd > nStart && s.charAt (nEnd - 1) == ' ')
+          nEnd--;
+        break;
+      }
+    }
+
+    int nPos = nStart;
+    // Optional day of week
+    int nDayOfWeek = ERROR;
+    if (nPos + 3 <= nEnd && !_isDigit (s.charAt (nPos)))
+    {
+      nDayOfWeek = _indexOf (RFC822_DAYS, s, nPos, nEnd);
+      if (nDayOfWeek == ERROR || !_isChar (s, nPos + 3, nEnd, ',') || !_isChar (s, nPos + 4, nEnd, ' '))
+        return null;
+      nPos += 5;
+    }
+
+    // Day and month
+    final int nDay = _get2Digits (s, nPos, nEnd);
+    if (nDay == ERROR || !_isChar (s, nPos + 2, nEnd, ' '))
+      return null;
+    nPos += 3;
+    final int nMonthIndex = _indexOf (RFC822_MONTHS, s, nPos, nEnd);
+    if (nMonthIndex == ERROR || !_isChar (s, nPos + 3, nEnd, ' '))
+      return null;
+    final int nMonth = nMonthIndex + 1;
+    nPos += 4;
+
+    // Year with 4 or 2 digits
+    int nYear;
+    if (_isChar (s, nPos + 2, nEnd, ' '))
+    {
+      nYear = _get2Digits (s, nPos, nEnd);
+      if (nYear == ERROR)
+        return null;
+      nYear += 2000;
+      nPos += 3;
+    }
+    else
+    {
+      nYear = _get4Digits (s, nPos, nEnd);
+      if (nYear == ERROR || !_isChar (s, nPos + 4, nEnd, ' '))
+        return null;
+      nPos += 5;
+    }
+    if (!_isValidDate (nYear, nMonth, nDay))
+      return null;
+
+    // Time
+    final int nHour = _get2Digits (s, nPos, nEnd);
+    if (!_isChar (s, nPos + 2, nEnd, ':'))
+      return null;
+    final int nMinute = _get2Digits (s, nPos + 3, nEnd);
+    nPos += 5;
+    int nSecond = 0;
+    if (_isChar (s, nPos, nEnd, ':'))
+    {
+      nSecond = _get2Digits (s, nPos + 1, nEnd);
+      nPos += 3;
+    }
+    if (!_isValidTime (nHour, nMinute, nSecond))
+      return null;
+    final LocalDateTime aLDT = LocalDateTime.of (nYear, nMonth, nDay, nHour, nMinute, nSecond);
+    if (nDayOfWeek != ERROR && aLDT.getDayOfWeek () != DayOfWeek.of (nDayOfWeek + 1))
+      return null;
+
+    if (nPos == nEnd)
+    {
+      // The masks without an offset parse a LocalDateTime, so an extracted zone
+      // name is not used
+      return PDTFactory.createZonedDateTime (aLDT);
+    }
+
+    // Numeric offset
+    if (!_isChar (s, nPos, nEnd, ' '))
+      return null;
+    final int [] aOffsetSeconds = new int [1];
+    nPos = _parseOffset (s, nPos + 1, nEnd, false, false, aOffsetSeconds);
+    if (nPos != nEnd)
+      return null;
+    final ZoneOffset aOffset = ZoneOffset.ofTotalSeconds (aOffsetSeconds[0]);
+    if (aZoneID != null)
+      return aLDT.atOffset (aOffset).atZoneSameInstant (aZoneID);
+    return ZonedDateTime.of (aLDT, aOffset);
+  }
+
+  /**
+   * Parse the common part of all XSD date times.
+   *
+   * @return The index after the offset or {@link #ERROR}. An index of
+   *         <code>Integer.MAX_VALUE</code> indicates that the layout is not
+   *         supported by this parser.
+   */
+  private static int _parseXSD (@Nonnull final CharSequence s,
+                                final boolean bWithTime,
+                                @Nonnull final int [] aFields,
+                                @Nonnull final boolean [] aHasOffset)
+  {
+    final int nEnd = s.length ();
+    // Extended years with sign or more than 4 digits
+    if (nEnd > 0 && (s.charAt (0) == '+' || s.charAt (0) == '-'))
+      return Integer.MAX_VALUE;
+    if (nEnd > 4 && _isDigit (s.charAt (4)))
+      return Integer.MAX_VALUE;
+
+    final int nYear = _get4Digits (s, 0, nEnd);
+    if (nYear == ERROR || !_isChar (s, 4, nEnd, '-'))
+      return ERROR;
+    final int nMonth = _get2Digits (s, 5, nEnd);
+    if (!_isChar (s, 7, nEnd, '-'))
+      return ERROR;
+    final int nDay = _get2Digits (s, 8, nEnd);
+    if (!_isValidDate (nYear, nMonth, nDay))
+      return ERROR;
+    int nPos = 10;
+    // The offset is only allowed after the fractional seconds
+    boolean bOffsetAllowed = !bWithTime;
+    aFields[0] = nYear;
+    aFields[1] = nMonth;
+    aFields[2] = nDay;
+
+    if (bWithTime)
+    {
+      if (!_isCharIgnoreCase (s, nPos, nEnd, 'T'))
+        return ERROR;
+      final int nHour = _get2Digits (s, nPos + 1, nEnd);
+      if (!_isChar (s, nPos + 3, nEnd, ':'))
+        return ERROR;
+      final int nMinute = _get2Digits (s, nPos + 4, nEnd);
+      nPos += 6;
+      int nSecond = 0;
+      int nNanos = 0;
+      if (_isChar (s, nPos, nEnd, ':'))
+      {
+        nSecond = _get2Digits (s, nPos + 1, nEnd);
+        nPos += 3;
+        if (_isChar (s, nPos, nEnd, '.'))
+        {
+          final int [] aNanos = new int [1];
+          nPos = _parseFraction (s, nPos + 1, nEnd, 3, 3, aNanos);
+          if (nPos == ERROR)
+            return ERROR;
+          nNanos = aNanos[0];
+          bOffsetAllowed = true;
+        }
+      }
+      if (!_isValidTime (nHour, nMinute, nSecond))
+        return ERROR;
+      aFields[3] = nHour;
+      aFields[4] = nMinute;
+      aFields[5] = nSecond;
+      aFields[6] = nNanos;
+    }
+
+    aHasOffset[0] = false;
+    if (nPos < nEnd && bOffsetAllowed)
+    {
+      if (_isCharIgnoreCase (s, nPos, nEnd, 'Z'))
+      {
+        aFields[7] = 0;
+        nPos++;
+      }
+      else
+      {
+        final int [] aOffsetSeconds = new int [1];
+        nPos = _parseOffset (s, nPos, nEnd, true, true, aOffsetSeconds);
+        if (nPos == ERROR)
+          return ERROR;
+        aFields[7] = aOffsetSeconds[0];
+      }
+      aHasOffset[0] = true;
+      // Zone region IDs are left to the formatter
+      if (bWithTime && _isChar (s, nPos, nEnd, '['))
+        return Integer.MAX_VALUE;
+    }
+    return nPos == nEnd ? nPos : ERROR;
+  }
+
+  /**
+   * Parse an XSD date time string in the layout
+   * "uuuu-MM-dd'T'HH:mm[:ss[.SSS[offset]]]". Values using a zone region ID or
+   * an extended year are passed on to {@link PDTWebDateHelper#XSD_DATE_TIME}.
+   *
+   * @param aText
+   *        The text to parse. May be <code>null</code>.
+   * @param aZoneID
+   *        The zone ID of the result. May not be <code>null</code>.
+   * @return <code>null</code> if the text could not be parsed.
+   * @see PDTWebDateHelper#getDateTimeFromXSD(String, ZoneId)
+   */
+  @Nullable
+  public static ZonedDateTime parseXSDDateTime (@Nullable final CharSequence aText, @Nonnull final ZoneId aZoneID)
+  {
+    ValueEnforcer.notNull (aZoneID, "ZoneID");
+    if (aText == null || aText.length () == 0)
+      return null;
+
+    final int [] aFields = new int [8];
+    final boolean [] aHasOffset = new boolean [1];
+    final int nRes = _parseXSD (aText, true, aFields, aHasOffset);
+    if (nRes == Integer.MAX_VALUE)
+      return PDTFromString.getZonedDateTimeFromString (aText.toString (),
+                                                       PDTWebDateHelper.getXSDFormatterDateTime (aZoneID));
+    if (nRes == ERROR)
+      return null;
+
+    final LocalDateTime aLDT = LocalDateTime.of (aFields[0],
+                                                 aFields[1],
+                                                 aFields[2],
+                                                 aFields[3],
+                                                 aFields[4],
+                                                 aFields[5],
+                                                 aFields[6]);
+    if (aHasOffset[0])
+    {
+      // Keep the instant. Note: Java 8 DateTimeFormatter ignores the offset if
+      // an override zone is present
+      return aLDT.atOffset (ZoneOffset.ofTotalSeconds (aFields[7])).atZoneSameInstant (aZoneID);
+    }
+    return ZonedDateTime.of (aLDT, aZoneID);
+  }
+
+  /**
+   * Parse an XSD date time string into a {@link LocalDateTime}. A contained
+   * offset is ignored.
+   *
+   * @param aText
+   *        The text to parse. May be <code>null</code>.
+   * @return <code>null</code> if the text could not be parsed.
+   * @see #parseXSDDateTime(CharSequence, ZoneId)
+   * @see PDTWebDateHelper#getLocalDateTimeFromXSD(String)
+   */
+  @Nullable
+  public static LocalDateTime parseXSDLocalDateTime (@Nullable final CharSequence aText)
+  {
+    if (aText == null || aText.length () == 0)
+      return null;
+
+    final int [] aFields = new int [8];
+    final boolean [] aHasOffset = new boolean [1];
+    final int nRes = _parseXSD (aText, true, aFields, aHasOffset);
+    if (nRes == Integer.MAX_VALUE)
+      return PDTFromString.getLocalDateTimeFromString (aText.toString (),
+                                                       PDTWebDateHelper.getXSDFormatterDateTime (ZoneOffset.UTC));
+    if (nRes == ERROR)
+      return null;
+    return LocalDateTime.of (aFields[0], aFields[1], aFields[2], aFields[3], aFields[4], aFields[5], aFields[6]);
+  }
+
+  /**
+   * Parse an XSD date string in the layout "uuuu-MM-dd[offset]". A contained
+   * offset is ignored.
+   *
+   * @param aText
+   *        The text to parse. May be <code>null</code>.
+   * @return <code>null</code> if the text could not be parsed.
+   * @see PDTWebDateHelper#getLocalDateFromXSD(String)
+   */
+  @Nullable
+  public static LocalDate parseXSDDate (@Nullable final CharSequence aText)
+  {
+    if (aText == null || aText.length () == 0)
+      return null;
+
+    final int [] aFields = new int [8];
+    final boolean [] aHasOffset = new boolean [1];
+    final int nRes = _parseXSD (aText, false, aFields, aHasOffset);
+    if (nRes == Integer.MAX_VALUE)
+      return PDTFromString.getLocalDateFromString (aText.toString (), PDTWebDateHelper.getXSDFormatterDate ());
+    if (nRes == ERROR)
+      return null;
+    return LocalDate.of (aFields[0], aFields[1], aFields[2]);
+  }
+}
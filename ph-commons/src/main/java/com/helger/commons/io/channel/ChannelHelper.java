@@ -19,6 +19,7 @@ package com.helger.commons.io.channel;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
+import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
@@ -32,11 +33,15 @@ import javax.annotation.concurrent.Immutable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.commons.CGlobal;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.PresentForCodeCoverage;
 import com.helger.commons.exception.mock.IMockException;
 import com.helger.commons.io.stream.StreamHelper;
 import com.helger.commons.state.ESuccess;
+import com.helger.commons.statistics.IMutableStatisticsHandlerSize;
+import com.helger.commons.statistics.IMutableStatisticsHandlerTimer;
+import com.helger.commons.statistics.StatisticsManager;
 
 /**
  * Some very basic NIO channel utility stuff.
@@ -52,6 +57,19 @@ public final class ChannelHelper
   // Use version 1 as it seems to be faster
   private static final boolean USE_COPY_V1 = true;
 
+  /**
+   * The maximum number of bytes per transferTo/transferFrom call. The loop
+   * version is much quicker than transferring the full size at once.
+   */
+  public static final long TRANSFER_CHUNK_SIZE = 8L * CGlobal.BYTES_PER_MEGABYTE;
+
+  private static final IMutableStatisticsHandlerSize s_aTransferSizeHdl = StatisticsManager.getSizeHandler (ChannelHelper.class.getName () +
+                                                                                                            "$TRANSFER");
+  private static final IMutableStatisticsHandlerTimer s_aTransferTimerHdl = StatisticsManager.getTimerHandler (ChannelHelper.class.getName () +
+                                                                                                               "$TRANSFER");
+  private static final IMutableStatisticsHandlerSize s_aTransferRateHdl = StatisticsManager.getSizeHandler (ChannelHelper.class.getName () +
+                                                                                                            "$TRANSFER.bytespersec");
+
   @PresentForCodeCoverage
   private static final ChannelHelper s_aInstance = new ChannelHelper ();
 
@@ -169,6 +187,183 @@ public final class ChannelHelper
     return nBytesWritten;
   }
 
+  private static void _addTransferStatistics (final long nBytes, final long nStartNanos)
+  {
+    final long nNanos = Math.max (1, System.nanoTime () - nStartNanos);
+    s_aTransferSizeHdl.addSize (nBytes);
+    s_aTransferTimerHdl.addTime (nNanos / CGlobal.NANOSECONDS_PER_MILLISECOND);
+    s_aTransferRateHdl.addSize ((long) (nBytes * (double) CGlobal.NANOSECONDS_PER_SECOND / nNanos));
+  }
+
+  private static boolean _isSeekable (@Nonnull final FileChannel aFC)
+  {
+    try
+    {
+      // Throws an exception for pipes and FIFOs
+      aFC.position ();
+      return true;
+    }
+    catch (final IOException ex)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Transfer up to the specified number of bytes from the current position of
+   * the source file channel to the destination channel using
+   * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. Depending
+   * on the operating system the data does not pass through user space at all.
+   * The position of the source channel is updated. If the source channel is
+   * not seekable (e.g. a pipe or FIFO), nothing is transferred and the caller
+   * needs to copy the data by other means.
+   *
+   * @param aSrc
+   *        Source channel. May not be <code>null</code>. Is not closed after
+   *        the operation.
+   * @param aDest
+   *        Destination channel. May not be <code>null</code>. Is not closed
+   *        after the operation.
+   * @param nMaxBytes
+   *        The maximum number of bytes to transfer. Must be &ge; 0. Use
+   *        {@link Long#MAX_VALUE} to transfer until the end of the file.
+   * @return The number of bytes transferred. Always 0 if the source channel
+   *         is not seekable.
+   * @throws IOException
+   *         In case of IO error
+   * @since 9.4.3
+   */
+  @Nonnegative
+  public static long transferFromFile (@Nonnull @WillNotClose final FileChannel aSrc,
+                                       @Nonnull @WillNotClose final WritableByteChannel aDest,
+                                       @Nonnegative final long nMaxBytes) throws IOException
+  {
+    ValueEnforcer.notNull (aSrc, "SourceChannel");
+    ValueEnforcer.notNull (aDest, "DestinationChannel");
+    ValueEnforcer.isGE0 (nMaxBytes, "MaxBytes");
+
+    if (!_isSeekable (aSrc))
+      return 0;
+
+    final long nStartNanos = System.nanoTime ();
+    final long nStartPos = aSrc.position ();
+    final long nBytesToTransfer = Math.min (nMaxBytes, Math.max (0, aSrc.size () - nStartPos));
+    long nBytesWritten = 0;
+    while (nBytesWritten < nBytesToTransfer)
+    {
+      final long nChunk = Math.min (TRANSFER_CHUNK_SIZE, nBytesToTransfer - nBytesWritten);
+      final long nWritten = aSrc.transferTo (nStartPos + nBytesWritten, nChunk, aDest);
+      if (nWritten <= 0)
+      {
+        // File was truncated in the meantime or the target cannot take more
+        break;
+      }
+      nBytesWritten += nWritten;
+    }
+    aSrc.position (nStartPos + nBytesWritten);
+    _addTransferStatistics (nBytesWritten, nStartNanos);
+    return nBytesWritten;
+  }
+
+  /**
+   * Transfer up to the specified number of bytes from the source channel into
+   * the destination file channel at its current position using
+   * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}. The
+   * position of the destination channel is updated.
+   *
+   * @param aSrc
+   *        Source channel. May not be <code>null</code>. Is not closed after
+   *        the operation.
+   * @param aDest
+   *        Destination channel. May not be <code>null</code>. Is not closed
+   *        after the operation.
+   * @param nMaxBytes
+   *        The maximum number of bytes to transfer. Must be &ge; 0. Use
+   *        {@link Long#MAX_VALUE} to transfer until the end of the source.
+   * @return The number of bytes transferred.
+   * @throws IOException
+   *         In case of IO error
+   * @since 9.4.3
+   */
+  @Nonnegative
+  public static long transferToFile (@Nonnull @WillNotClose final ReadableByteChannel aSrc,
+                                     @Nonnull @WillNotClose final FileChannel aDest,
+                                     @Nonnegative final long nMaxBytes) throws IOException
+  {
+    ValueEnforcer.notNull (aSrc, "SourceChannel");
+    ValueEnforcer.notNull (aDest, "DestinationChannel");
+    ValueEnforcer.isGE0 (nMaxBytes, "MaxBytes");
+
+    final long nStartNanos = System.nanoTime ();
+    final long nStartPos = aDest.position ();
+    long nBytesWritten = 0;
+    while (nBytesWritten < nMaxBytes)
+    {
+      final long nChunk = Math.min (TRANSFER_CHUNK_SIZE, nMaxBytes - nBytesWritten);
+      final long nWritten = aDest.transferFrom (aSrc, nStartPos + nBytesWritten, nChunk);
+      if (nWritten <= 0)
+      {
+        // Either EOF or a non-blocking source without data available
+        break;
+      }
+      nBytesWritten += nWritten;
+    }
+    aDest.position (nStartPos + nBytesWritten);
+    _addTransferStatistics (nBytesWritten, nStartNanos);
+    return nBytesWritten;
+  }
+
+  /**
+   * Copy all content from the source channel to the destination channel,
+   * preferring zero-copy transfers. If the source is a seekable
+   * {@link FileChannel}
+   * {@link FileChannel#transferTo(long, long, WritableByteChannel)} is used,
+   * if the destination is a {@link FileChannel}
+   * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)} is used.
+   * Otherwise, or for what is left after a transfer returned early, the data
+   * is pumped through a direct buffer via
+   * {@link #channelCopy(ReadableByteChannel, WritableByteChannel)}. The number
+   * of bytes and the throughput are recorded in the statistics.
+   *
+   * @param aSrc
+   *        Source channel. May not be <code>null</code>. Is not closed after
+   *        the operation.
+   * @param aDest
+   *        Destination channel. May not be <code>null</code>. Is not closed
+   *        after the operation.
+   * @return The number of bytes written.
+   * @throws IOException
+   *         In case of IO error
+   * @since 9.4.3
+   */
+  @Nonnegative
+  public static long transfer (@Nonnull @WillNotClose final ReadableByteChannel aSrc,
+                               @Nonnull @WillNotClose final WritableByteChannel aDest) throws IOException
+  {
+    ValueEnforcer.notNull (aSrc, "SourceChannel");
+    ValueEnforcer.isTrue (aSrc.isOpen (), "SourceChannel is not open!");
+    ValueEnforcer.notNull (aDest, "DestinationChannel");
+    ValueEnforcer.isTrue (aDest.isOpen (), "DestinationChannel is not open!");
+
+    if (aSrc instanceof FileChannel && _isSeekable ((FileChannel) aSrc))
+    {
+      // The source size is known - nothing left afterwards
+      return transferFromFile ((FileChannel) aSrc, aDest, Long.MAX_VALUE);
+    }
+
+    long nBytesWritten = 0;
+    final boolean bDestIsFile = aDest instanceof FileChannel;
+    if (bDestIsFile)
+      nBytesWritten = transferToFile (aSrc, (FileChannel) aDest, Long.MAX_VALUE);
+
+    // Copy the rest via a direct buffer
+    final long nStartNanos = System.nanoTime ();
+    final long nRest = channelCopy (aSrc, aDest);
+    if (nRest > 0 || !bDestIsFile)
+      _addTransferStatistics (nRest, nStartNanos);
+    return nBytesWritten + nRest;
+  }
+
   @Nonnull
   public static ESuccess close (@Nullable final Channel aChannel)
   {
@@ -0,0 +1,476 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.concurrent.SimpleReadWriteLock;
+import com.helger.commons.io.stream.ByteBufferInputStream;
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.WrappedInputStream;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCache;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A shared cache of the content of files. The content is reused as long as the
+ * size and the modification time of the file are unchanged - both are checked
+ * on every access. Files bigger than the configured maximum are not handled by
+ * this cache. If the total size exceeds the maximum, the entries that were
+ * added first are evicted.<br>
+ * By default the content is read into a heap byte array. Optionally the files
+ * can be memory mapped read-only instead, which keeps the content off the
+ * heap. Streams on a mapping are reference counted: a mapping that is evicted
+ * or outdated while streams are still open counts towards the maximum until
+ * the last of these streams is closed. Memory mapping has two caveats:
+ * <ul>
+ * <li>If a mapped file is truncated while it is read, the JVM crashes with a
+ * SIGBUS error. Only use it for files that are never modified in place, but
+ * e.g. replaced by renaming a new file.</li>
+ * <li>On Windows a mapped file cannot be deleted or replaced until the garbage
+ * collector releases the mapping.</li>
+ * </ul>
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public class FileContentCache
+{
+  /** The default maximum number of bytes held by the cache */
+  public static final long DEFAULT_MAX_CACHED_BYTES = 64L * CGlobal.BYTES_PER_MEGABYTE;
+  /** The default maximum number of bytes held by a memory mapping cache */
+  public static final long DEFAULT_MAX_MAPPED_BYTES = 256L * CGlobal.BYTES_PER_MEGABYTE;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (FileContentCache.class);
+  private static final IMutableStatisticsHandlerCache s_aStatsHdl = StatisticsManager.getCacheHandler (FileContentCache.class);
+
+  private static final FileContentCache DEFAULT_INSTANCE = new FileContentCache (DEFAULT_MAX_CACHED_BYTES, false);
+  private static final FileContentCache DEFAULT_MAPPED_INSTANCE = new FileContentCache (DEFAULT_MAX_MAPPED_BYTES, true);
+
+  /**
+   * A single cache entry. Either the content array or the read-only mapping is
+   * present.
+   */
+  private static final class Entry
+  {
+    private final byte [] m_aContent;
+    private final ByteBuffer m_aMapping;
+    private final long m_nSize;
+    private final long m_nLastModified;
+    // Number of open streams on the mapping
+    private final AtomicInteger m_aRefCount = new AtomicInteger (0);
+    // Removed from the cache while streams were open
+    @GuardedBy ("m_aRWLock")
+    private boolean m_bRetired = false;
+
+    Entry (@Nullable final byte [] aContent,
+           @Nullable final ByteBuffer aMapping,
+           final long nSize,
+           final long nLastModified)
+    {
+      m_aContent = aContent;
+      m_aMapping = aMapping;
+      m_nSize = nSize;
+      m_nLastModified = nLastModified;
+    }
+
+    boolean isUpToDate (final long nLastModified, final long nSize)
+    {
+      return m_nLastModified == nLastModified && m_nSize == nSize;
+    }
+  }
+
+  private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
+  private final long m_nMaxCachedBytes;
+  private final boolean m_bMemoryMapped;
+  // Insertion order, because cache hits only use the read lock
+  @GuardedBy ("m_aRWLock")
+  private final ICommonsOrderedMap <File, Entry> m_aMap = new CommonsLinkedHashMap <> ();
+  @GuardedBy ("m_aRWLock")
+  private long m_nCachedBytes = 0;
+  @GuardedBy ("m_aRWLock")
+  private long m_nRetiredBytes = 0;
+
+  /**
+   * Constructor for a cache that reads the content into the heap.
+   *
+   * @param nMaxCachedBytes
+   *        The maximum number of bytes of all cached files. Must be &ge; 0.
+   *        Files bigger than this are not handled by this cache.
+   */
+  public FileContentCache (@Nonnegative final long nMaxCachedBytes)
+  {
+    this (nMaxCachedBytes, false);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param nMaxCachedBytes
+   *        The maximum number of bytes of all cached files. Must be &ge; 0.
+   *        Files bigger than this are not handled by this cache.
+   * @param bMemoryMapped
+   *        <code>true</code> to memory map the files instead of reading them
+   *        into the heap. See the class description for the caveats.
+   */
+  public FileContentCache (@Nonnegative final long nMaxCachedBytes, final boolean bMemoryMapped)
+  {
+    ValueEnforcer.isGE0 (nMaxCachedBytes, "MaxCachedBytes");
+    m_nMaxCachedBytes = Math.min (nMaxCachedBytes, Integer.MAX_VALUE);
+    m_bMemoryMapped = bMemoryMapped;
+  }
+
+  /**
+   * @return The global default instance that reads the content into the heap.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  public static FileContentCache getDefaultInstance ()
+  {
+    return DEFAULT_INSTANCE;
+  }
+
+  /**
+   * @return The global default instance that memory maps the files. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public static FileContentCache getDefaultMappedInstance ()
+  {
+    return DEFAULT_MAPPED_INSTANCE;
+  }
+
+  /**
+   * @return <code>true</code> if the files are memory mapped,
+   *         <code>false</code> if they are read into the heap.
+   */
+  public final boolean isMemoryMapped ()
+  {
+    return m_bMemoryMapped;
+  }
+
+  /**
+   * @return The maximum number of bytes of all cached files.
+   */
+  @Nonnegative
+  public final long getMaxCachedBytes ()
+  {
+    return m_nMaxCachedBytes;
+  }
+
+  /**
+   * @return The number of bytes of all currently cached files.
+   */
+  @Nonnegative
+  public long getCachedBytes ()
+  {
+    return m_aRWLock.readLockedLong ( () -> m_nCachedBytes);
+  }
+
+  /**
+   * @return The number of bytes of mappings that were removed from the cache
+   *         but are still used by open streams. Always 0 if the files are not
+   *         memory mapped.
+   */
+  @Nonnegative
+  public long getRetiredBytes ()
+  {
+    return m_aRWLock.readLockedLong ( () -> m_nRetiredBytes);
+  }
+
+  /**
+   * @return The number of currently cached files.
+   */
+  @Nonnegative
+  public int getCachedFileCount ()
+  {
+    return m_aRWLock.readLockedInt (m_aMap::size);
+  }
+
+  @Nonnull
+  private static byte [] _readContent (@Nonnull final File aFile, final int nSize) throws IOException
+  {
+    final byte [] aContent = new byte [nSize];
+    final ByteBuffer aBB = ByteBuffer.wrap (aContent);
+    try (final FileChannel aFC = FileChannel.open (aFile.toPath (), StandardOpenOption.READ))
+    {
+      while (aBB.hasRemaining ())
+        if (aFC.read (aBB) < 0)
+        {
+          // File was truncated in the meantime
+          return Arrays.copyOf (aContent, aBB.position ());
+        }
+    }
+    return aContent;
+  }
+
+  @Nonnull
+  private static ByteBuffer _mapContent (@Nonnull final File aFile, final long nSize) throws IOException
+  {
+    try (final FileChannel aFC = FileChannel.open (aFile.toPath (), StandardOpenOption.READ))
+    {
+      // The mapping stays valid after the channel is closed
+      return aFC.map (FileChannel.MapMode.READ_ONLY, 0, nSize).asReadOnlyBuffer ();
+    }
+  }
+
+  @GuardedBy ("m_aRWLock")
+  private void _onRemoved (@Nonnull final Entry aEntry)
+  {
+    m_nCachedBytes -= aEntry.m_nSize;
+    if (aEntry.m_aRefCount.get () > 0)
+    {
+      // Still in use by open streams
+      aEntry.m_bRetired = true;
+      m_nRetiredBytes += aEntry.m_nSize;
+    }
+  }
+
+  @GuardedBy ("m_aRWLock")
+  private void _evict (final long nRequiredBytes)
+  {
+    // First added entries first - FIFO, because hits don't change the order
+    final Iterator <Entry> it = m_aMap.values ().iterator ();
+    while (it.hasNext () && m_nCachedBytes + m_nRetiredBytes + nRequiredBytes > m_nMaxCachedBytes)
+    {
+      _onRemoved (it.next ());
+      it.remove ();
+    }
+  }
+
+  private void _release (@Nonnull final Entry aEntry)
+  {
+    m_aRWLock.writeLocked ( () -> {
+      if (aEntry.m_aRefCount.decrementAndGet () == 0 && aEntry.m_bRetired)
+      {
+        aEntry.m_bRetired = false;
+        m_nRetiredBytes -= aEntry.m_nSize;
+      }
+    });
+  }
+
+  /**
+   * Get the up to date entry of the passed file, reading or mapping it if
+   * necessary.
+   *
+   * @param aFile
+   *        The file to use.
+   * @param bAcquire
+   *        <code>true</code> to increment the reference count of the returned
+   *        entry.
+   * @return <code>null</code> if the file cannot be handled by this cache.
+   */
+  @Nullable
+  private Entry _getEntry (@Nonnull final File aFile, final boolean bAcquire) throws IOException
+  {
+    ValueEnforcer.notNull (aFile, "File");
+
+    // Note: lastModified returns 0 if the file does not exist
+    final long nLastModified = aFile.lastModified ();
+    final long nSize = aFile.length ();
+    if (nLastModified == 0 || !aFile.isFile () || nSize > m_nMaxCachedBytes)
+      return null;
+
+    // Fast path - content is present and up to date
+    final Entry aEntry = m_aRWLock.readLockedGet ( () -> {
+      final Entry ret = m_aMap.get (aFile);
+      if (ret == null || !ret.isUpToDate (nLastModified, nSize))
+        return null;
+      // Removing an entry requires the write lock, so it cannot be retired
+      // concurrently
+      if (bAcquire)
+        ret.m_aRefCount.incrementAndGet ();
+      return ret;
+    });
+    if (aEntry != null)
+    {
+      s_aStatsHdl.cacheHit ();
+      return aEntry;
+    }
+
+    s_aStatsHdl.cacheMiss ();
+    // Read outside of the lock
+    final Entry aNewEntry;
+    if (m_bMemoryMapped)
+      aNewEntry = new Entry (null, _mapContent (aFile, nSize), nSize, nLastModified);
+    else
+    {
+      final byte [] aContent = _readContent (aFile, (int) nSize);
+      aNewEntry = new Entry (aContent, null, aContent.length, nLastModified);
+    }
+
+    // Only cache if the file was not modified while reading
+    if (aNewEntry.m_nSize != nSize || aFile.lastModified () != nLastModified || aFile.length () != nSize)
+    {
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Not caching content of '" + aFile + "' because it was modified while reading");
+      // Never hand out a mapping of a file that is being modified
+      return m_bMemoryMapped ? null : aNewEntry;
+    }
+
+    final boolean bCached = m_aRWLock.writeLockedBoolean ( () -> {
+      final Entry aOldEntry = m_aMap.remove (aFile);
+      if (aOldEntry != null)
+        _onRemoved (aOldEntry);
+      _evict (nSize);
+      // Mappings in use may prevent caching
+      if (m_nCachedBytes + m_nRetiredBytes + nSize > m_nMaxCachedBytes)
+        return false;
+      m_aMap.put (aFile, aNewEntry);
+      m_nCachedBytes += nSize;
+      if (bAcquire)
+        aNewEntry.m_aRefCount.incrementAndGet ();
+      return true;
+    });
+    if (!bCached && m_bMemoryMapped)
+      return null;
+    return aNewEntry;
+  }
+
+  @Nonnull
+  private static ByteBuffer _getContentBuffer (@Nonnull final Entry aEntry)
+  {
+    if (aEntry.m_aMapping != null)
+      return aEntry.m_aMapping.duplicate ();
+    return ByteBuffer.wrap (aEntry.m_aContent).asReadOnlyBuffer ();
+  }
+
+  /**
+   * Get the content of the passed file. If cached content is present and the
+   * file was not modified in the meantime it is reused.
+   *
+   * @param aFile
+   *        The file to be read. May not be <code>null</code>.
+   * @return A new read-only view on the file content with position 0. For
+   *         memory mapped files this is a {@link java.nio.MappedByteBuffer}
+   *         view that is not reference counted. <code>null</code> if the file
+   *         does not exist or is too large to be cached.
+   * @throws IOException
+   *         if reading fails
+   */
+  @Nullable
+  public ByteBuffer getContent (@Nonnull final File aFile) throws IOException
+  {
+    final Entry aEntry = _getEntry (aFile, false);
+    return aEntry == null ? null : _getContentBuffer (aEntry);
+  }
+
+  /**
+   * Get an input stream on the content of the passed file. The stream does not
+   * hold any file handle. For memory mapped files a
+   * {@link ByteBufferInputStream} is used and the mapping is referenced until
+   * the stream is closed.
+   *
+   * @param aFile
+   *        The file to be read. May not be <code>null</code>.
+   * @return <code>null</code> if the file does not exist or is too large to be
+   *         cached.
+   * @throws IOException
+   *         if reading fails
+   */
+  @Nullable
+  public InputStream getInputStream (@Nonnull final File aFile) throws IOException
+  {
+    final Entry aEntry = _getEntry (aFile, m_bMemoryMapped);
+    if (aEntry == null)
+      return null;
+    if (aEntry.m_aMapping == null)
+    {
+      // The stream never modifies the shared array
+      return new NonBlockingByteArrayInputStream (aEntry.m_aContent, false);
+    }
+    return new WrappedInputStream (new ByteBufferInputStream (aEntry.m_aMapping.duplicate ()))
+    {
+      private boolean m_bClosed = false;
+
+      @Override
+      public void close () throws IOException
+      {
+        super.close ();
+        if (!m_bClosed)
+        {
+          m_bClosed = true;
+          _release (aEntry);
+        }
+      }
+    };
+  }
+
+  /**
+   * Remove the content of the passed file from the cache.
+   *
+   * @param aFile
+   *        The file to be removed. May not be <code>null</code>.
+   * @return <code>true</code> if an entry was removed.
+   */
+  public boolean remove (@Nonnull final File aFile)
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    return m_aRWLock.writeLockedBoolean ( () -> {
+      final Entry aEntry = m_aMap.remove (aFile);
+      if (aEntry == null)
+        return false;
+      _onRemoved (aEntry);
+      return true;
+    });
+  }
+
+  /**
+   * Remove all entries from the cache.
+   */
+  public void clear ()
+  {
+    m_aRWLock.writeLocked ( () -> {
+      for (final Entry aEntry : m_aMap.values ())
+        _onRemoved (aEntry);
+      m_aMap.clear ();
+    });
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MaxCachedBytes", m_nMaxCachedBytes)
+                                       .append ("MemoryMapped", m_bMemoryMapped)
+                                       .append ("RetiredBytes", getRetiredBytes ())
+                                       .append ("CachedBytes", getCachedBytes ())
+                                       .append ("CachedFileCount", getCachedFileCount ())
+                                       .getToString ();
+  }
+}
@@ -653,7 +653,8 @@ public final class FileOperations
     }
     else
     {
-      // Streams are slower but more interoperable
+      // Streams are more interoperable. Since 9.4.3 the copying of file
+      // streams is internally done via FileChannel.transferTo as well
       eSuccess = _copyFileViaStreams (aSourceFile, aTargetFile);
     }
     final EFileIOErrorCode eError = eSuccess.isSuccess () ? EFileIOErrorCode.NO_ERROR
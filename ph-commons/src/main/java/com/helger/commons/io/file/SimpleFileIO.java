@@ -18,6 +18,7 @@ package com.helger.commons.io.file;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
@@ -30,8 +31,10 @@ import java.util.function.Consumer;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.WillClose;
 import javax.annotation.concurrent.Immutable;
 
+import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.PresentForCodeCoverage;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.io.stream.NonBlockingBufferedReader;
@@ -231,4 +234,31 @@ public final class SimpleFileIO
     final OutputStream aFOS = FileHelper.getOutputStream (aFile);
     return aFOS == null ? ESuccess.FAILURE : StreamHelper.writeStream (aFOS, sContent, aCharset);
   }
+
+  /**
+   * Write the content of the passed input stream to the passed file. If the
+   * input stream is a file input stream, the content is transferred via
+   * {@link java.nio.channels.FileChannel} and does not pass through user space.
+   *
+   * @param aFile
+   *        The file to write to. May not be <code>null</code>.
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>. Is
+   *        closed afterwards.
+   * @return {@link ESuccess}
+   * @since 9.4.3
+   */
+  @Nonnull
+  public static ESuccess writeFile (@Nonnull final File aFile, @Nonnull @WillClose final InputStream aIS)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+
+    final OutputStream aFOS = FileHelper.getOutputStream (aFile);
+    if (aFOS == null)
+    {
+      StreamHelper.close (aIS);
+      return ESuccess.FAILURE;
+    }
+    return StreamHelper.copyInputStreamToOutputStreamAndCloseOS (aIS, aFOS);
+  }
 }
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.hashcode.IHashCodeGenerator;
+import com.helger.commons.io.file.FileHelper;
+import com.helger.commons.io.file.FilenameHelper;
+import com.helger.commons.io.file.FileContentCache;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Implementation of the
+ * {@link com.helger.commons.io.resource.IReadableResource} interface for file
+ * system objects, that reads the content from a shared
+ * {@link FileContentCache}. This avoids opening the same file over and over
+ * again in read-heavy code paths. If the file is too large for the cache, it
+ * is read like {@link FileSystemResource} does.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class CachedFileSystemResource implements IReadableResource
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (CachedFileSystemResource.class);
+
+  private final File m_aFile;
+  private final String m_sPath;
+  private final FileContentCache m_aCache;
+  // Status var
+  private transient int m_nHashCode = IHashCodeGenerator.ILLEGAL_HASHCODE;
+
+  public CachedFileSystemResource (@Nonnull final String sFilename)
+  {
+    this (new File (sFilename));
+  }
+
+  public CachedFileSystemResource (@Nonnull final Path aPath)
+  {
+    this (aPath.toFile ());
+  }
+
+  public CachedFileSystemResource (@Nonnull final File aFile)
+  {
+    this (aFile, FileContentCache.getDefaultInstance ());
+  }
+
+  public CachedFileSystemResource (@Nonnull final File aFile, @Nonnull final FileContentCache aCache)
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    ValueEnforcer.notNull (aCache, "Cache");
+
+    // Same path normalization as in FileSystemResource
+    final String sPath = FilenameHelper.getCleanPath (aFile.getAbsolutePath ());
+    m_aFile = new File (sPath);
+    m_sPath = m_aFile.getAbsolutePath ();
+    m_aCache = aCache;
+  }
+
+  @Nonnull
+  public String getResourceID ()
+  {
+    return getPath ();
+  }
+
+  @Nonnull
+  public String getPath ()
+  {
+    return m_sPath;
+  }
+
+  /**
+   * @return The content cache used. Never <code>null</code>.
+   */
+  @Nonnull
+  public final FileContentCache getCache ()
+  {
+    return m_aCache;
+  }
+
+  @Nullable
+  public InputStream getInputStream ()
+  {
+    try
+    {
+      final InputStream ret = m_aCache.getInputStream (m_aFile);
+      if (ret != null)
+        return ret;
+    }
+    catch (final IOException ex)
+    {
+      if (LOGGER.isWarnEnabled ())
+        LOGGER.warn ("Failed to read file '" + m_aFile + "' via the cache - falling back to regular reading", ex);
+    }
+    return FileHelper.getInputStream (m_aFile);
+  }
+
+  public final boolean isReadMultiple ()
+  {
+    return true;
+  }
+
+  public boolean exists ()
+  {
+    return m_aFile.exists ();
+  }
+
+  @Nullable
+  public URL getAsURL ()
+  {
+    return FileHelper.getAsURL (m_aFile);
+  }
+
+  @Nonnull
+  public File getAsFile ()
+  {
+    return m_aFile;
+  }
+
+  @Nonnull
+  public CachedFileSystemResource getReadableCloneForPath (@Nonnull final String sPath)
+  {
+    return new CachedFileSystemResource (new File (sPath), m_aCache);
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final CachedFileSystemResource rhs = (CachedFileSystemResource) o;
+    return m_aFile.equals (rhs.m_aFile);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    // We need a cached one!
+    int ret = m_nHashCode;
+    if (ret == IHashCodeGenerator.ILLEGAL_HASHCODE)
+      ret = m_nHashCode = new HashCodeGenerator (this).append (m_aFile).getHashCode ();
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("file", m_aFile).getToString ();
+  }
+}
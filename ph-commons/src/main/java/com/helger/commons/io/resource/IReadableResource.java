@@ -16,10 +16,17 @@
  */
 package com.helger.commons.io.resource;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import javax.annotation.Nonnull;
 
+import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.MustImplementEqualsAndHashcode;
+import com.helger.commons.io.EAppend;
 import com.helger.commons.io.IHasInputStreamAndReader;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.state.ESuccess;
 
 /**
  * Base interface for an abstract readable resource.
@@ -40,4 +47,35 @@ public interface IReadableResource extends IHasInputStreamAndReader, IResourceBa
    */
   @Nonnull
   IReadableResource getReadableCloneForPath (@Nonnull String sPath);
+
+  /**
+   * Copy the content of this resource to the passed writable resource. If both
+   * resources are backed by files, the content is transferred via
+   * {@link java.nio.channels.FileChannel} and does not pass through user space.
+   *
+   * @param aTarget
+   *        The resource to write to. May not be <code>null</code>.
+   * @param eAppend
+   *        Appending mode for the target. May not be <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} if copying took place,
+   *         {@link ESuccess#FAILURE} otherwise.
+   * @since 9.4.3
+   */
+  @Nonnull
+  default ESuccess copyTo (@Nonnull final IWritableResource aTarget, @Nonnull final EAppend eAppend)
+  {
+    ValueEnforcer.notNull (aTarget, "Target");
+    ValueEnforcer.notNull (eAppend, "Append");
+
+    final InputStream aIS = getInputStream ();
+    if (aIS == null)
+      return ESuccess.FAILURE;
+    final OutputStream aOS = aTarget.getOutputStream (eAppend);
+    if (aOS == null)
+    {
+      StreamHelper.close (aIS);
+      return ESuccess.FAILURE;
+    }
+    return StreamHelper.copyInputStreamToOutputStreamAndCloseOS (aIS, aOS);
+  }
 }
@@ -35,6 +35,43 @@ public class DefaultResourceProvider extends WritableResourceProviderChain
 {
   public DefaultResourceProvider ()
   {
-    super (new URLResourceProvider (), new FileSystemResourceProvider (), new ClassPathResourceProvider ());
+    this (false);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param bUseContentCache
+   *        <code>true</code> to read file system resources from a shared
+   *        file content cache, <code>false</code> to use regular file
+   *        streams.
+   * @see FileSystemResourceProvider#setUseContentCache(boolean)
+   * @since 9.4.3
+   */
+  public DefaultResourceProvider (final boolean bUseContentCache)
+  {
+    this (bUseContentCache, false);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param bUseContentCache
+   *        <code>true</code> to read file system resources from a shared
+   *        file content cache, <code>false</code> to use regular file
+   *        streams.
+   * @param bUseMemoryMapping
+   *        <code>true</code> to memory map the files in the content cache,
+   *        <code>false</code> to read them into the heap.
+   * @see FileSystemResourceProvider#setUseContentCache(boolean)
+   * @see FileSystemResourceProvider#setUseMemoryMapping(boolean)
+   * @since 9.4.3
+   */
+  public DefaultResourceProvider (final boolean bUseContentCache, final boolean bUseMemoryMapping)
+  {
+    super (new URLResourceProvider (),
+           new FileSystemResourceProvider ().setUseContentCache (bUseContentCache)
+                                            .setUseMemoryMapping (bUseMemoryMapping),
+           new ClassPathResourceProvider ());
   }
 }
@@ -30,6 +30,8 @@ import com.helger.commons.ValueEnforcer;
 import com.helger.commons.concurrent.SimpleReadWriteLock;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.io.file.FileContentCache;
+import com.helger.commons.io.resource.CachedFileSystemResource;
 import com.helger.commons.io.resource.ClassPathResource;
 import com.helger.commons.io.resource.FileSystemResource;
 import com.helger.commons.io.resource.IReadableResource;
@@ -52,6 +54,10 @@ public class FileSystemResourceProvider implements IWritableResourceProvider
   private final File m_aBasePath;
   @GuardedBy ("m_aRWLock")
   private boolean m_bCanReadRelativePaths = false;
+  @GuardedBy ("m_aRWLock")
+  private boolean m_bUseContentCache = false;
+  @GuardedBy ("m_aRWLock")
+  private boolean m_bUseMemoryMapping = false;
 
   public FileSystemResourceProvider ()
   {
@@ -100,6 +106,65 @@ public class FileSystemResourceProvider implements IWritableResourceProvider
     return this;
   }
 
+  /**
+   * @return <code>true</code> if readable resources are read from a shared
+   *         file content cache, <code>false</code> if not. Default is
+   *         <code>false</code>.
+   * @since 9.4.3
+   */
+  public final boolean isUseContentCache ()
+  {
+    return m_aRWLock.readLockedBoolean ( () -> m_bUseContentCache);
+  }
+
+  /**
+   * Enable or disable the usage of {@link CachedFileSystemResource} for
+   * readable resources. This is beneficial for small files that are read very
+   * often.
+   *
+   * @param bUseContentCache
+   *        <code>true</code> to enable the content cache, <code>false</code>
+   *        to disable it.
+   * @return this for chaining
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final FileSystemResourceProvider setUseContentCache (final boolean bUseContentCache)
+  {
+    m_aRWLock.writeLockedBoolean ( () -> m_bUseContentCache = bUseContentCache);
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if the content cache memory maps the files,
+   *         <code>false</code> if it reads them into the heap. Only relevant
+   *         if the content cache is used. Default is <code>false</code>.
+   * @since 9.4.3
+   */
+  public final boolean isUseMemoryMapping ()
+  {
+    return m_aRWLock.readLockedBoolean ( () -> m_bUseMemoryMapping);
+  }
+
+  /**
+   * Use {@link FileContentCache#getDefaultMappedInstance()} instead of
+   * {@link FileContentCache#getDefaultInstance()} for the content cache. See
+   * {@link FileContentCache} for the caveats of memory mapping.
+   *
+   * @param bUseMemoryMapping
+   *        <code>true</code> to memory map the files, <code>false</code> to
+   *        read them into the heap.
+   * @return this for chaining
+   * @see #setUseContentCache(boolean)
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final FileSystemResourceProvider setUseMemoryMapping (final boolean bUseMemoryMapping)
+  {
+    m_aRWLock.writeLockedBoolean ( () -> m_bUseMemoryMapping = bUseMemoryMapping);
+    return this;
+  }
+
   @Nonnull
   private File _getFile (@Nonnull final String sName)
   {
@@ -140,6 +205,10 @@ public class FileSystemResourceProvider implements IWritableResourceProvider
   @Nonnull
   public IReadableResource getReadableResource (@Nonnull final String sName)
   {
+    if (isUseContentCache ())
+      return new CachedFileSystemResource (_getFile (sName),
+                                           isUseMemoryMapping () ? FileContentCache.getDefaultMappedInstance ()
+                                                                 : FileContentCache.getDefaultInstance ());
     return new FileSystemResource (_getFile (sName));
   }
 
@@ -157,13 +226,20 @@ public class FileSystemResourceProvider implements IWritableResourceProvider
     if (o == null || !getClass ().equals (o.getClass ()))
       return false;
     final FileSystemResourceProvider rhs = (FileSystemResourceProvider) o;
-    return EqualsHelper.equals (m_aBasePath, rhs.m_aBasePath) && m_bCanReadRelativePaths == rhs.m_bCanReadRelativePaths;
+    return EqualsHelper.equals (m_aBasePath, rhs.m_aBasePath) &&
+           m_bCanReadRelativePaths == rhs.m_bCanReadRelativePaths &&
+           m_bUseContentCache == rhs.m_bUseContentCache &&
+           m_bUseMemoryMapping == rhs.m_bUseMemoryMapping;
   }
 
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_aBasePath).append (m_bCanReadRelativePaths).getHashCode ();
+    return new HashCodeGenerator (this).append (m_aBasePath)
+                                       .append (m_bCanReadRelativePaths)
+                                       .append (m_bUseContentCache)
+                                       .append (m_bUseMemoryMapping)
+                                       .getHashCode ();
   }
 
   @Override
@@ -171,6 +247,8 @@ public class FileSystemResourceProvider implements IWritableResourceProvider
   {
     return new ToStringGenerator (this).appendIfNotNull ("BasePath", m_aBasePath)
                                        .append ("CanReadRelativePaths", m_bCanReadRelativePaths)
+                                       .append ("UseContentCache", m_bUseContentCache)
+                                       .append ("UseMemoryMapping", m_bUseMemoryMapping)
                                        .getToString ();
   }
 }
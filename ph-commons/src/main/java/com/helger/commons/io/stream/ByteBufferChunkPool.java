@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.stream;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.pool.AbstractBoundedPool;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A bounded pool of fixed size {@link ByteBuffer} chunks, either on-heap or
+ * direct. Borrowing never blocks: if the pool is empty a new chunk is
+ * allocated and if the pool is full a returned chunk is left to the garbage
+ * collector. Used by {@link SegmentedByteBufferOutputStream}.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public final class ByteBufferChunkPool extends AbstractBoundedPool <ByteBuffer>
+{
+  /** The default chunk size for heap chunks */
+  public static final int DEFAULT_HEAP_CHUNK_SIZE = 16 * CGlobal.BYTES_PER_KILOBYTE;
+  /** The default chunk size for direct chunks */
+  public static final int DEFAULT_DIRECT_CHUNK_SIZE = 64 * CGlobal.BYTES_PER_KILOBYTE;
+  /** The default maximum number of pooled chunks */
+  public static final int DEFAULT_MAX_POOLED_CHUNKS = 256;
+
+  private static final ByteBufferChunkPool DEFAULT_HEAP = new ByteBufferChunkPool (DEFAULT_HEAP_CHUNK_SIZE,
+                                                                                   false,
+                                                                                   DEFAULT_MAX_POOLED_CHUNKS);
+  private static final ByteBufferChunkPool DEFAULT_DIRECT = new ByteBufferChunkPool (DEFAULT_DIRECT_CHUNK_SIZE,
+                                                                                     true,
+                                                                                     DEFAULT_MAX_POOLED_CHUNKS);
+
+  private final int m_nChunkSize;
+  private final boolean m_bDirect;
+
+  /**
+   * Constructor
+   *
+   * @param nChunkSize
+   *        The size of each chunk in bytes. Must be &gt; 0.
+   * @param bDirect
+   *        <code>true</code> to allocate direct buffers, <code>false</code> to
+   *        allocate heap buffers.
+   * @param nMaxPooledChunks
+   *        The maximum number of chunks kept in the pool. Must be &ge; 0. If
+   *        it is 0, nothing is pooled.
+   */
+  public ByteBufferChunkPool (@Nonnegative final int nChunkSize,
+                              final boolean bDirect,
+                              @Nonnegative final int nMaxPooledChunks)
+  {
+    super (ByteBufferChunkPool.class.getName () + (bDirect ? "$direct" : "$heap"), nMaxPooledChunks);
+    ValueEnforcer.isGT0 (nChunkSize, "ChunkSize");
+    m_nChunkSize = nChunkSize;
+    m_bDirect = bDirect;
+  }
+
+  /**
+   * @return The global default pool for heap chunks. Never <code>null</code>.
+   */
+  @Nonnull
+  public static ByteBufferChunkPool getDefaultHeapInstance ()
+  {
+    return DEFAULT_HEAP;
+  }
+
+  /**
+   * @return The global default pool for direct chunks. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public static ByteBufferChunkPool getDefaultDirectInstance ()
+  {
+    return DEFAULT_DIRECT;
+  }
+
+  /**
+   * @return The size of each chunk in bytes. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getChunkSize ()
+  {
+    return m_nChunkSize;
+  }
+
+  /**
+   * @return <code>true</code> if direct buffers are used, <code>false</code>
+   *         for heap buffers.
+   */
+  public boolean isDirect ()
+  {
+    return m_bDirect;
+  }
+
+  @Override
+  @Nonnull
+  protected ByteBuffer createObject ()
+  {
+    return m_bDirect ? ByteBuffer.allocateDirect (m_nChunkSize) : ByteBuffer.allocate (m_nChunkSize);
+  }
+
+  @Override
+  protected boolean resetObject (@Nonnull final ByteBuffer aChunk)
+  {
+    // Chunks not created by this pool are not pooled
+    if (aChunk.capacity () != m_nChunkSize || aChunk.isDirect () != m_bDirect || aChunk.isReadOnly ())
+      return false;
+    aChunk.clear ();
+    return true;
+  }
+
+  /**
+   * @return A cleared chunk with position 0 and limit = capacity = chunk size.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  public ByteBuffer borrowChunk ()
+  {
+    return borrowObject ();
+  }
+
+  /**
+   * Return a chunk to the pool. The chunk and all views on it must not be used
+   * afterwards.
+   *
+   * @param aChunk
+   *        The chunk to return. May be <code>null</code> in which case nothing
+   *        happens. Chunks not created by this pool are not pooled.
+   */
+  public void returnChunk (@Nullable final ByteBuffer aChunk)
+  {
+    returnObject (aChunk);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return ToStringGenerator.getDerived (super.toString ())
+                            .append ("ChunkSize", m_nChunkSize)
+                            .append ("Direct", m_bDirect)
+                            .getToString ();
+  }
+}
@@ -21,6 +21,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
@@ -52,6 +53,18 @@ public class CountingFileInputStream extends FileInputStream
     s_aReadFilesHdl.increment ();
   }
 
+  /**
+   * Account for bytes that were read via the underlying channel and therefore
+   * bypassed this stream.
+   *
+   * @param nBytes
+   *        Number of bytes. Must be &ge; 0.
+   */
+  void onBytesTransferred (@Nonnegative final long nBytes)
+  {
+    s_aReadSizeHdl.addSize (nBytes);
+  }
+
   @Override
   public int read () throws IOException
   {
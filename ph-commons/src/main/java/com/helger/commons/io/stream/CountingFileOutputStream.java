@@ -70,6 +70,19 @@ public class CountingFileOutputStream extends FileOutputStream
     s_aWriteFilesHdl.increment ();
   }
 
+  /**
+   * Account for bytes that were written via the underlying channel and therefore
+   * bypassed this stream.
+   *
+   * @param nBytes
+   *        Number of bytes. Must be &ge; 0.
+   */
+  void onBytesTransferred (@Nonnegative final long nBytes)
+  {
+    s_aWriteSizeHdl.addSize (nBytes);
+    m_nBytesWritten += nBytes;
+  }
+
   @Override
   public void write (final int b) throws IOException
   {
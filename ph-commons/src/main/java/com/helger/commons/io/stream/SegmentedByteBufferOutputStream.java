@@ -0,0 +1,497 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.WillNotClose;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.IWriteToStream;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * An {@link OutputStream} that stores the written content in a list of fixed
+ * size chunks taken from a {@link ByteBufferChunkPool}. In contrast to
+ * {@link NonBlockingByteArrayOutputStream} the buffer is never enlarged by
+ * copying, so writing large payloads does not cause repeated copies or huge
+ * array allocations. The content can be written to a channel with a single
+ * gathering write, or read via {@link #getAsInputStream()} without flattening
+ * it into a single array.<br>
+ * Closing or resetting this stream returns all chunks to the pool, so all
+ * buffers and input streams retrieved from it before must not be used
+ * afterwards.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class SegmentedByteBufferOutputStream extends OutputStream implements WritableByteChannel, IWriteToStream
+{
+  private final ByteBufferChunkPool m_aPool;
+  private final ICommonsList <ByteBuffer> m_aChunks = new CommonsArrayList <> ();
+  // The last chunk - the one that is currently written to
+  private ByteBuffer m_aCurChunk;
+  private long m_nSize = 0;
+  private boolean m_bClosed = false;
+
+  /**
+   * Constructor using the default heap chunk pool.
+   */
+  public SegmentedByteBufferOutputStream ()
+  {
+    this (ByteBufferChunkPool.getDefaultHeapInstance ());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aPool
+   *        The chunk pool to use. May not be <code>null</code>.
+   */
+  public SegmentedByteBufferOutputStream (@Nonnull final ByteBufferChunkPool aPool)
+  {
+    ValueEnforcer.notNull (aPool, "Pool");
+    m_aPool = aPool;
+  }
+
+  /**
+   * @return The chunk pool used. Never <code>null</code>.
+   */
+  @Nonnull
+  public final ByteBufferChunkPool getPool ()
+  {
+    return m_aPool;
+  }
+
+  private void _checkOpen ()
+  {
+    if (m_bClosed)
+      throw new IllegalStateException ("Stream is already closed");
+  }
+
+  @Nonnull
+  private ByteBuffer _getWritableChunk ()
+  {
+    ByteBuffer ret = m_aCurChunk;
+    if (ret == null || !ret.hasRemaining ())
+    {
+      _checkOpen ();
+      ret = m_aPool.borrowChunk ();
+      m_aChunks.add (ret);
+      m_aCurChunk = ret;
+    }
+    return ret;
+  }
+
+  @Override
+  public void write (final int b)
+  {
+    _getWritableChunk ().put ((byte) b);
+    m_nSize++;
+  }
+
+  /*
+   * Just overloaded to avoid the IOException in the generic OutputStream.write
+   * method.
+   */
+  @Override
+  public void write (@Nonnull final byte [] aBuf)
+  {
+    write (aBuf, 0, aBuf.length);
+  }
+
+  @Override
+  public void write (@Nonnull final byte [] aBuf, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+  {
+    ValueEnforcer.isArrayOfsLen (aBuf, nOfs, nLen);
+
+    int nCurOfs = nOfs;
+    int nRest = nLen;
+    while (nRest > 0)
+    {
+      final ByteBuffer aChunk = _getWritableChunk ();
+      final int nPart = Math.min (nRest, aChunk.remaining ());
+      aChunk.put (aBuf, nCurOfs, nPart);
+      nCurOfs += nPart;
+      nRest -= nPart;
+    }
+    m_nSize += nLen;
+  }
+
+  /**
+   * Write all remaining bytes of the passed buffer. After the call the
+   * position of the source buffer equals its limit.
+   *
+   * @param aSrc
+   *        The source buffer. May not be <code>null</code>.
+   * @return The number of bytes written.
+   */
+  @Nonnegative
+  public int write (@Nonnull final ByteBuffer aSrc)
+  {
+    ValueEnforcer.notNull (aSrc, "Src");
+
+    final int nLen = aSrc.remaining ();
+    final int nSrcLimit = aSrc.limit ();
+    while (aSrc.hasRemaining ())
+    {
+      final ByteBuffer aChunk = _getWritableChunk ();
+      final int nPart = Math.min (aSrc.remaining (), aChunk.remaining ());
+      aSrc.limit (aSrc.position () + nPart);
+      aChunk.put (aSrc);
+      aSrc.limit (nSrcLimit);
+    }
+    m_nSize += nLen;
+    return nLen;
+  }
+
+  /**
+   * Reads the given {@link InputStream} completely into this stream. For heap
+   * chunks the data is read directly into the chunks.
+   *
+   * @param aIS
+   *        the InputStream to read from. May not be <code>null</code>. Is not
+   *        closed internally.
+   * @return The number of bytes read.
+   * @throws IOException
+   *         If reading fails
+   */
+  @Nonnegative
+  public long readFrom (@Nonnull @WillNotClose final InputStream aIS) throws IOException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+
+    long nTotal = 0;
+    if (m_aPool.isDirect ())
+    {
+      final byte [] aBuffer = new byte [Math.min (m_aPool.getChunkSize (), StreamHelper.DEFAULT_BUFSIZE)];
+      int nBytesRead;
+      while ((nBytesRead = aIS.read (aBuffer, 0, aBuffer.length)) > -1)
+      {
+        write (aBuffer, 0, nBytesRead);
+        nTotal += nBytesRead;
+      }
+    }
+    else
+    {
+      while (true)
+      {
+        final ByteBuffer aChunk = _getWritableChunk ();
+        final int nBytesRead = aIS.read (aChunk.array (),
+                                         aChunk.arrayOffset () + aChunk.position (),
+                                         aChunk.remaining ());
+        if (nBytesRead < 0)
+          break;
+        aChunk.position (aChunk.position () + nBytesRead);
+        m_nSize += nBytesRead;
+        nTotal += nBytesRead;
+      }
+    }
+    return nTotal;
+  }
+
+  /**
+   * Reads the given {@link ReadableByteChannel} completely into this stream.
+   * The data is read directly into the chunks. For a non-blocking channel
+   * reading stops as soon as no data is available.
+   *
+   * @param aChannel
+   *        the channel to read from. May not be <code>null</code>. Is not
+   *        closed internally.
+   * @return The number of bytes read.
+   * @throws IOException
+   *         If reading fails
+   */
+  @Nonnegative
+  public long readFrom (@Nonnull @WillNotClose final ReadableByteChannel aChannel) throws IOException
+  {
+    ValueEnforcer.notNull (aChannel, "Channel");
+
+    long nTotal = 0;
+    while (true)
+    {
+      final int nBytesRead = aChannel.read (_getWritableChunk ());
+      // 0 is only returned by a non-blocking channel without data
+      if (nBytesRead <= 0)
+        break;
+      m_nSize += nBytesRead;
+      nTotal += nBytesRead;
+    }
+    return nTotal;
+  }
+
+  /**
+   * Writes the complete content of this stream to the passed output stream.
+   * The content of this stream is not altered by calling this method.
+   *
+   * @param aOS
+   *        the output stream to which to write the data. May not be
+   *        <code>null</code>.
+   * @exception IOException
+   *            if an I/O error occurs.
+   */
+  public void writeTo (@Nonnull @WillNotClose final OutputStream aOS) throws IOException
+  {
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    _checkOpen ();
+
+    byte [] aBuffer = null;
+    for (final ByteBuffer aChunk : m_aChunks)
+    {
+      final int nLen = aChunk.position ();
+      if (aChunk.hasArray ())
+        aOS.write (aChunk.array (), aChunk.arrayOffset (), nLen);
+      else
+      {
+        if (aBuffer == null)
+          aBuffer = new byte [Math.min (m_aPool.getChunkSize (), StreamHelper.DEFAULT_BUFSIZE)];
+        final ByteBuffer aView = aChunk.duplicate ();
+        aView.flip ();
+        while (aView.hasRemaining ())
+        {
+          final int nPart = Math.min (aView.remaining (), aBuffer.length);
+          aView.get (aBuffer, 0, nPart);
+          aOS.write (aBuffer, 0, nPart);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the complete content of this stream to the passed channel. If the
+   * channel is a {@link GatheringByteChannel} (like file and socket channels)
+   * all chunks are passed at once, without copying them. The content of this
+   * stream is not altered by calling this method. For a non-blocking channel
+   * writing stops as soon as the channel does not accept more data, so the
+   * result may be less than {@link #getSize()}.
+   *
+   * @param aChannel
+   *        The channel to write to. May not be <code>null</code>. Is not
+   *        closed internally.
+   * @return The number of bytes written.
+   * @throws IOException
+   *         if an I/O error occurs.
+   */
+  @Nonnegative
+  public long writeTo (@Nonnull @WillNotClose final WritableByteChannel aChannel) throws IOException
+  {
+    ValueEnforcer.notNull (aChannel, "Channel");
+
+    final ByteBuffer [] aBuffers = getAsByteBuffers ();
+    long nTotal = 0;
+    if (aChannel instanceof GatheringByteChannel)
+    {
+      final GatheringByteChannel aGBC = (GatheringByteChannel) aChannel;
+      int nIndex = 0;
+      while (nIndex < aBuffers.length)
+      {
+        if (aBuffers[nIndex].hasRemaining ())
+        {
+          final long nWritten = aGBC.write (aBuffers, nIndex, aBuffers.length - nIndex);
+          if (nWritten <= 0)
+            break;
+          nTotal += nWritten;
+        }
+        else
+          nIndex++;
+      }
+    }
+    else
+    {
+      outer: for (final ByteBuffer aBuffer : aBuffers)
+        while (aBuffer.hasRemaining ())
+        {
+          final int nWritten = aChannel.write (aBuffer);
+          if (nWritten <= 0)
+            break outer;
+          nTotal += nWritten;
+        }
+    }
+    return nTotal;
+  }
+
+  /**
+   * @return A read-only view on every chunk, with position 0 and the limit set
+   *         to the number of bytes written into that chunk. The views must not
+   *         be used after this stream was reset or closed. Never
+   *         <code>null</code> but maybe empty.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ByteBuffer [] getAsByteBuffers ()
+  {
+    _checkOpen ();
+    final ByteBuffer [] ret = new ByteBuffer [m_aChunks.size ()];
+    int nIndex = 0;
+    for (final ByteBuffer aChunk : m_aChunks)
+    {
+      final ByteBuffer aView = aChunk.asReadOnlyBuffer ();
+      aView.flip ();
+      ret[nIndex++] = aView;
+    }
+    return ret;
+  }
+
+  /**
+   * Create a new InputStream on the chunks <b>WITHOUT COPYING</b> them. Any
+   * later modification to this stream is <b>NOT</b> reflected in the
+   * InputStream and the InputStream must not be used after this stream was
+   * reset or closed.
+   *
+   * @return A new {@link ByteBuffersInputStream}. Never <code>null</code>.
+   */
+  @Nonnull
+  public ByteBuffersInputStream getAsInputStream ()
+  {
+    final ByteBuffer [] aBuffers = getAsByteBuffers ();
+    if (aBuffers.length == 0)
+      return new ByteBuffersInputStream (ByteBuffer.allocate (0));
+    return new ByteBuffersInputStream (aBuffers);
+  }
+
+  /**
+   * @return A newly allocated byte array with the whole content. Never
+   *         <code>null</code>.
+   * @throws IllegalStateException
+   *         if the content is larger than the maximum array size
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public byte [] toByteArray ()
+  {
+    _checkOpen ();
+    if (m_nSize > Integer.MAX_VALUE)
+      throw new IllegalStateException ("Content does not fit into a byte array: " + m_nSize);
+
+    final byte [] ret = new byte [(int) m_nSize];
+    int nOfs = 0;
+    for (final ByteBuffer aChunk : m_aChunks)
+    {
+      final ByteBuffer aView = aChunk.duplicate ();
+      aView.flip ();
+      final int nLen = aView.remaining ();
+      aView.get (ret, nOfs, nLen);
+      nOfs += nLen;
+    }
+    return ret;
+  }
+
+  /**
+   * Converts the content into a string by decoding the bytes using the
+   * specified charset.
+   *
+   * @param aCharset
+   *        the charset to be used. May not be <code>null</code>.
+   * @return String decoded from the content.
+   */
+  @Nonnull
+  public String getAsString (@Nonnull final Charset aCharset)
+  {
+    ValueEnforcer.notNull (aCharset, "Charset");
+    return new String (toByteArray (), aCharset);
+  }
+
+  /**
+   * @return The number of bytes written. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getSize ()
+  {
+    return m_nSize;
+  }
+
+  public boolean isEmpty ()
+  {
+    return m_nSize == 0;
+  }
+
+  public boolean isNotEmpty ()
+  {
+    return m_nSize > 0;
+  }
+
+  /**
+   * @return The number of chunks currently in use. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getChunkCount ()
+  {
+    return m_aChunks.size ();
+  }
+
+  private void _releaseChunks ()
+  {
+    for (final ByteBuffer aChunk : m_aChunks)
+      m_aPool.returnChunk (aChunk);
+    m_aChunks.clear ();
+    m_aCurChunk = null;
+    m_nSize = 0;
+  }
+
+  /**
+   * Discard all written content and return all chunks to the pool. The stream
+   * can be used again afterwards.
+   */
+  public void reset ()
+  {
+    _checkOpen ();
+    _releaseChunks ();
+  }
+
+  public boolean isOpen ()
+  {
+    return !m_bClosed;
+  }
+
+  /**
+   * Return all chunks to the pool. Afterwards the content is no longer
+   * accessible.
+   */
+  @Override
+  public void close ()
+  {
+    if (!m_bClosed)
+    {
+      _releaseChunks ();
+      m_bClosed = true;
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Pool", m_aPool)
+                                       .append ("ChunkCount", m_aChunks.size ())
+                                       .append ("Size", m_nSize)
+                                       .append ("Closed", m_bClosed)
+                                       .getToString ();
+  }
+}
@@ -44,6 +44,7 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.exception.mock.IMockException;
 import com.helger.commons.io.IHasInputStream;
+import com.helger.commons.io.channel.ChannelHelper;
 import com.helger.commons.mutable.MutableLong;
 import com.helger.commons.state.ESuccess;
 import com.helger.commons.statistics.IMutableStatisticsHandlerSize;
@@ -257,6 +258,39 @@ public final class StreamHelper
     return nTotalBytesWritten;
   }
 
+  private static boolean _isPlainFileInputStream (@Nonnull final InputStream aIS)
+  {
+    // Other sub classes may modify the read data
+    final Class <?> aClass = aIS.getClass ();
+    return aClass == FileInputStream.class || aClass == CountingFileInputStream.class;
+  }
+
+  private static boolean _isPlainFileOutputStream (@Nonnull final OutputStream aOS)
+  {
+    // Other sub classes may modify the written data
+    final Class <?> aClass = aOS.getClass ();
+    return aClass == FileOutputStream.class || aClass == CountingFileOutputStream.class;
+  }
+
+  /*
+   * Copy between two file streams via FileChannel.transferTo, so that the data
+   * does not need to pass through user space. Only the length known at the
+   * beginning is transferred - the caller is responsible for copying anything
+   * that follows.
+   */
+  @Nonnegative
+  private static long _transferFileStreams (@Nonnull @WillNotClose final FileInputStream aFIS,
+                                            @Nonnull @WillNotClose final FileOutputStream aFOS,
+                                            @Nonnegative final long nLimit) throws IOException
+  {
+    final long ret = ChannelHelper.transferFromFile (aFIS.getChannel (), aFOS.getChannel (), nLimit);
+    if (aFIS instanceof CountingFileInputStream)
+      ((CountingFileInputStream) aFIS).onBytesTransferred (ret);
+    if (aFOS instanceof CountingFileOutputStream)
+      ((CountingFileOutputStream) aFOS).onBytesTransferred (ret);
+    return ret;
+  }
+
   /**
    * Pass the content of the given input stream to the given output stream. The
    * input stream is automatically closed, whereas the output stream stays open!
@@ -307,11 +341,23 @@ public final class StreamHelper
       if (aIS != null && aOS != null)
       {
         // both streams are not null
-        final long nTotalBytesCopied;
+        long nTotalBytesCopied = 0;
+        if (_isPlainFileInputStream (aIS) && _isPlainFileOutputStream (aOS))
+        {
+          // Zero-copy for the file part
+          nTotalBytesCopied = _transferFileStreams ((FileInputStream) aIS,
+                                                    (FileOutputStream) aOS,
+                                                    aLimit == null ? Long.MAX_VALUE : aLimit.longValue ());
+        }
+
+        // Copy the (remaining) content via the buffer
         if (aLimit == null)
-          nTotalBytesCopied = _copyInputStreamToOutputStream (aIS, aOS, aBuffer);
+          nTotalBytesCopied += _copyInputStreamToOutputStream (aIS, aOS, aBuffer);
         else
-          nTotalBytesCopied = _copyInputStreamToOutputStreamWithLimit (aIS, aOS, aBuffer, aLimit.longValue ());
+          nTotalBytesCopied += _copyInputStreamToOutputStreamWithLimit (aIS,
+                                                                         aOS,
+                                                                         aBuffer,
+                                                                         aLimit.longValue () - nTotalBytesCopied);
 
         // Add to statistics
         s_aByteSizeHdl.addSize (nTotalBytesCopied);
@@ -655,6 +701,65 @@ public final class StreamHelper
     return aBAOS;
   }
 
+  /**
+   * Get a segmented copy of all the available content of the passed input
+   * stream. In contrast to {@link #getCopy(InputStream)} the content is read
+   * directly into pooled chunks and no buffer enlargement copies are needed.
+   * The returned stream should be closed after usage, to return the chunks to
+   * the pool.
+   *
+   * @param aIS
+   *        The source input stream. May not be <code>null</code>.
+   * @param aPool
+   *        The chunk pool to use. May not be <code>null</code>.
+   * @return A new {@link SegmentedByteBufferOutputStream} with all available
+   *         content inside or <code>null</code> if copying fails.
+   * @since 9.4.3
+   */
+  @Nullable
+  public static SegmentedByteBufferOutputStream getSegmentedCopy (@Nonnull @WillClose final InputStream aIS,
+                                                                  @Nonnull final ByteBufferChunkPool aPool)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aPool, "Pool");
+
+    final SegmentedByteBufferOutputStream ret = new SegmentedByteBufferOutputStream (aPool);
+    try
+    {
+      final long nTotalBytesCopied = ret.readFrom (aIS);
+      s_aByteSizeHdl.addSize (nTotalBytesCopied);
+      return ret;
+    }
+    catch (final IOException ex)
+    {
+      ret.close ();
+      if (!isKnownEOFException (ex))
+        LOGGER.error ("Failed to copy from InputStream to SegmentedByteBufferOutputStream", _propagate (ex));
+      return null;
+    }
+    finally
+    {
+      close (aIS);
+    }
+  }
+
+  /**
+   * Get a segmented copy of all the available content of the passed input
+   * stream, using the default heap chunk pool.
+   *
+   * @param aIS
+   *        The source input stream. May not be <code>null</code>.
+   * @return A new {@link SegmentedByteBufferOutputStream} with all available
+   *         content inside or <code>null</code> if copying fails.
+   * @see #getSegmentedCopy(InputStream, ByteBufferChunkPool)
+   * @since 9.4.3
+   */
+  @Nullable
+  public static SegmentedByteBufferOutputStream getSegmentedCopy (@Nonnull @WillClose final InputStream aIS)
+  {
+    return getSegmentedCopy (aIS, ByteBufferChunkPool.getDefaultHeapInstance ());
+  }
+
   /**
    * Read all bytes from the passed input stream into a byte array.
    *
@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.watchdir;
+
+import java.nio.file.Path;
+
+import javax.annotation.Nonnull;
+
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.callback.ICallback;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+
+/**
+ * The callback interface to be implemented to get notified about a batch of
+ * coalesced changes in a directory in the {@link WatchDirManager} class.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@FunctionalInterface
+public interface IWatchDirBatchCallback extends ICallback
+{
+  /**
+   * Invoked once per debounce interval with all changes that happened in it.
+   * Each path is contained only once, with the resulting action of all events
+   * for that path (e.g. a file that was created and modified is reported as
+   * {@link EWatchDirAction#CREATE}, a file that was created and deleted again
+   * is not reported at all).
+   *
+   * @param aRootDir
+   *        The watched root directory as passed to the manager. Never
+   *        <code>null</code>.
+   * @param aChanges
+   *        The changed paths in the order of their first change. Never
+   *        <code>null</code> nor empty.
+   */
+  void onBatch (@Nonnull Path aRootDir, @Nonnull @Nonempty ICommonsOrderedMap <Path, EWatchDirAction> aChanges);
+}
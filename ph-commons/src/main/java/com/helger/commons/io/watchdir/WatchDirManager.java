@@ -0,0 +1,730 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.watchdir;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.concurrent.SimpleReadWriteLock;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A directory watching manager that serves an arbitrary number of watched
+ * directories with a single {@link WatchService} thread and a single dispatch
+ * thread. In contrast to {@link WatchDir} the events are not delivered one by
+ * one, but all events of a debounce interval are coalesced per path and
+ * delivered as one batch to an {@link IWatchDirBatchCallback}. For directories
+ * on file systems without native watch support (or if explicitly requested)
+ * a polling fallback is used, that compares the modification times of all
+ * files with the last run.<br>
+ * Note: the callbacks and the polling run on the dispatch thread, so
+ * callbacks should return quickly.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public class WatchDirManager implements AutoCloseable
+{
+  /** The default debounce interval in milliseconds */
+  public static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+  /** The default polling interval in milliseconds */
+  public static final long DEFAULT_POLLING_INTERVAL_MILLIS = 2_000;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (WatchDirManager.class);
+
+  /**
+   * A single watched directory tree.
+   *
+   * @author Philip Helger
+   */
+  public final class Registration implements AutoCloseable
+  {
+    private final Path m_aRootDir;
+    private final boolean m_bRecursive;
+    private final IWatchDirBatchCallback m_aCallback;
+    private final boolean m_bPolling;
+    // Native mode only
+    @GuardedBy ("WatchDirManager.this.m_aRWLock")
+    private final ICommonsList <WatchKey> m_aKeys = new CommonsArrayList <> ();
+    // Polling mode only
+    private ICommonsMap <Path, Long> m_aIndex;
+    private ScheduledFuture <?> m_aPollingFuture;
+    // Debouncing
+    @GuardedBy ("this")
+    private ICommonsOrderedMap <Path, EWatchDirAction> m_aPending = new CommonsLinkedHashMap <> ();
+    @GuardedBy ("this")
+    private boolean m_bFlushScheduled = false;
+    private volatile boolean m_bClosed = false;
+
+    Registration (@Nonnull final Path aRootDir,
+                  final boolean bRecursive,
+                  @Nonnull final IWatchDirBatchCallback aCallback,
+                  final boolean bPolling)
+    {
+      m_aRootDir = aRootDir;
+      m_bRecursive = bRecursive;
+      m_aCallback = aCallback;
+      m_bPolling = bPolling;
+    }
+
+    /**
+     * @return The watched root directory. Never <code>null</code>.
+     */
+    @Nonnull
+    public Path getRootDirectory ()
+    {
+      return m_aRootDir;
+    }
+
+    public boolean isRecursive ()
+    {
+      return m_bRecursive;
+    }
+
+    /**
+     * @return <code>true</code> if the polling fallback is used,
+     *         <code>false</code> if native watching is used.
+     */
+    public boolean isPolling ()
+    {
+      return m_bPolling;
+    }
+
+    public boolean isClosed ()
+    {
+      return m_bClosed;
+    }
+
+    void addEvent (@Nonnull final EWatchDirAction eAction, @Nonnull final Path aPath)
+    {
+      if (m_bClosed)
+        return;
+
+      synchronized (this)
+      {
+        final EWatchDirAction eOld = m_aPending.get (aPath);
+        if (eOld == null)
+          m_aPending.put (aPath, eAction);
+        else
+        {
+          final EWatchDirAction eNew = getCoalescedAction (eOld, eAction);
+          if (eNew == null)
+            m_aPending.remove (aPath);
+          else
+            m_aPending.put (aPath, eNew);
+        }
+
+        if (!m_bFlushScheduled)
+        {
+          m_bFlushScheduled = true;
+          m_aScheduler.schedule (this::_flush, m_nDebounceMillis, TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+
+    private void _flush ()
+    {
+      final ICommonsOrderedMap <Path, EWatchDirAction> aChanges;
+      synchronized (this)
+      {
+        aChanges = m_aPending;
+        m_aPending = new CommonsLinkedHashMap <> ();
+        m_bFlushScheduled = false;
+      }
+      if (aChanges.isNotEmpty () && !m_bClosed)
+      {
+        try
+        {
+          m_aCallback.onBatch (m_aRootDir, aChanges);
+        }
+        catch (final RuntimeException ex)
+        {
+          LOGGER.error ("Error in WatchDir batch callback for " + m_aRootDir, ex);
+        }
+      }
+    }
+
+    void poll ()
+    {
+      if (m_bClosed)
+        return;
+
+      final ICommonsMap <Path, Long> aNewIndex = _createIndex (m_aRootDir, m_bRecursive);
+      final ICommonsMap <Path, Long> aOldIndex = m_aIndex;
+      for (final Map.Entry <Path, Long> aEntry : aNewIndex.entrySet ())
+      {
+        final Long aOldModified = aOldIndex.get (aEntry.getKey ());
+        if (aOldModified == null)
+          addEvent (EWatchDirAction.CREATE, aEntry.getKey ());
+        else
+          if (!aOldModified.equals (aEntry.getValue ()))
+            addEvent (EWatchDirAction.MODIFY, aEntry.getKey ());
+      }
+      for (final Path aPath : aOldIndex.keySet ())
+        if (!aNewIndex.containsKey (aPath))
+          addEvent (EWatchDirAction.DELETE, aPath);
+      m_aIndex = aNewIndex;
+    }
+
+    /**
+     * Stop watching this directory. Pending changes are discarded.
+     */
+    public void close ()
+    {
+      _unregister (this);
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("RootDir", m_aRootDir)
+                                         .append ("Recursive", m_bRecursive)
+                                         .append ("Polling", m_bPolling)
+                                         .append ("Closed", m_bClosed)
+                                         .getToString ();
+    }
+  }
+
+  /**
+   * Maps a native watch key back to its directory and registration. Because
+   * all registrations share one watch service, overlapping registrations share
+   * the same watch key.
+   */
+  private static final class KeyInfo
+  {
+    private final Registration m_aRegistration;
+    private final Path m_aDir;
+
+    KeyInfo (@Nonnull final Registration aRegistration, @Nonnull final Path aDir)
+    {
+      m_aRegistration = aRegistration;
+      m_aDir = aDir;
+    }
+  }
+
+  private final long m_nDebounceMillis;
+  private final long m_nPollingIntervalMillis;
+  private final ScheduledExecutorService m_aScheduler;
+  private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
+  @GuardedBy ("m_aRWLock")
+  private final ICommonsList <Registration> m_aRegistrations = new CommonsArrayList <> ();
+  @GuardedBy ("m_aRWLock")
+  private final ICommonsMap <WatchKey, ICommonsList <KeyInfo>> m_aKeyMap = new CommonsHashMap <> ();
+  @GuardedBy ("m_aRWLock")
+  private WatchService m_aWatchService;
+  @GuardedBy ("m_aRWLock")
+  private boolean m_bNativeUnsupported = false;
+  private volatile boolean m_bClosed = false;
+
+  /**
+   * Constructor with the default debounce and polling intervals.
+   */
+  public WatchDirManager ()
+  {
+    this (DEFAULT_DEBOUNCE_MILLIS, DEFAULT_POLLING_INTERVAL_MILLIS);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param nDebounceMillis
+   *        The time in milliseconds after the first event of a batch, after
+   *        which the batch is delivered. Must be &ge; 0.
+   * @param nPollingIntervalMillis
+   *        The interval in milliseconds of the polling fallback. Must be &gt;
+   *        0.
+   */
+  public WatchDirManager (@Nonnegative final long nDebounceMillis, @Nonnegative final long nPollingIntervalMillis)
+  {
+    ValueEnforcer.isGE0 (nDebounceMillis, "DebounceMillis");
+    ValueEnforcer.isGT0 (nPollingIntervalMillis, "PollingIntervalMillis");
+    m_nDebounceMillis = nDebounceMillis;
+    m_nPollingIntervalMillis = nPollingIntervalMillis;
+    m_aScheduler = new ScheduledThreadPoolExecutor (1,
+                                                    new BasicThreadFactory.Builder ().setNamingPattern ("WatchDirManager-dispatch-%d")
+                                                                                     .setDaemon (true)
+                                                                                     .build ());
+  }
+
+  /**
+   * @return The debounce interval in milliseconds.
+   */
+  @Nonnegative
+  public final long getDebounceMillis ()
+  {
+    return m_nDebounceMillis;
+  }
+
+  /**
+   * @return The polling interval in milliseconds.
+   */
+  @Nonnegative
+  public final long getPollingIntervalMillis ()
+  {
+    return m_nPollingIntervalMillis;
+  }
+
+  /**
+   * Get the resulting action if two events for the same path happen within one
+   * batch.
+   *
+   * @param eOld
+   *        The previous action. May not be <code>null</code>.
+   * @param eNew
+   *        The new action. May not be <code>null</code>.
+   * @return <code>null</code> if the two actions cancel each other out.
+   */
+  @Nullable
+  public static EWatchDirAction getCoalescedAction (@Nonnull final EWatchDirAction eOld,
+                                                    @Nonnull final EWatchDirAction eNew)
+  {
+    switch (eOld)
+    {
+      case CREATE:
+        // Created and deleted again - nothing happened
+        return eNew == EWatchDirAction.DELETE ? null : EWatchDirAction.CREATE;
+      case DELETE:
+        // Deleted and created again - modified
+        return eNew == EWatchDirAction.DELETE ? EWatchDirAction.DELETE : EWatchDirAction.MODIFY;
+      default:
+        return eNew == EWatchDirAction.DELETE ? EWatchDirAction.DELETE : EWatchDirAction.MODIFY;
+    }
+  }
+
+  @Nonnull
+  static ICommonsMap <Path, Long> _createIndex (@Nonnull final Path aRootDir, final boolean bRecursive)
+  {
+    final ICommonsMap <Path, Long> ret = new CommonsHashMap <> ();
+    try
+    {
+      Files.walkFileTree (aRootDir,
+                          EnumSet.noneOf (FileVisitOption.class),
+                          bRecursive ? Integer.MAX_VALUE : 1,
+                          new SimpleFileVisitor <Path> ()
+                          {
+                            @Override
+                            public FileVisitResult preVisitDirectory (final Path aDir, final BasicFileAttributes aAttrs)
+                            {
+                              if (!aDir.equals (aRootDir))
+                                ret.put (aDir, Long.valueOf (aAttrs.lastModifiedTime ().toMillis ()));
+                              return FileVisitResult.CONTINUE;
+                            }
+
+                            @Override
+                            public FileVisitResult visitFile (final Path aFile, final BasicFileAttributes aAttrs)
+                            {
+                              ret.put (aFile, Long.valueOf (aAttrs.lastModifiedTime ().toMillis ()));
+                              return FileVisitResult.CONTINUE;
+                            }
+
+                            @Override
+                            public FileVisitResult visitFileFailed (final Path aFile, final IOException ex)
+                            {
+                              // E.g. deleted in the meantime
+                              return FileVisitResult.CONTINUE;
+                            }
+                          });
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to index directory " + aRootDir + ": " + ex.getMessage ());
+    }
+    return ret;
+  }
+
+  @GuardedBy ("m_aRWLock")
+  @Nullable
+  private WatchService _getOrCreateWatchService ()
+  {
+    if (m_aWatchService == null && !m_bNativeUnsupported)
+    {
+      try
+      {
+        m_aWatchService = FileSystems.getDefault ().newWatchService ();
+        final Thread aThread = new BasicThreadFactory.Builder ().setNamingPattern ("WatchDirManager-watcher-%d")
+                                                                .setDaemon (true)
+                                                                .build ()
+                                                                .newThread (this::_processEvents);
+        aThread.start ();
+      }
+      catch (final IOException | UnsupportedOperationException ex)
+      {
+        LOGGER.warn ("Native directory watching is not supported - using polling: " + ex.getMessage ());
+        m_bNativeUnsupported = true;
+      }
+    }
+    return m_aWatchService;
+  }
+
+  @GuardedBy ("m_aRWLock")
+  private void _registerDir (@Nonnull final WatchService aWatchService,
+                             @Nonnull final Registration aRegistration,
+                             @Nonnull final Path aDir) throws IOException
+  {
+    final WatchKey aKey = aDir.register (aWatchService,
+                                         StandardWatchEventKinds.ENTRY_CREATE,
+                                         StandardWatchEventKinds.ENTRY_DELETE,
+                                         StandardWatchEventKinds.ENTRY_MODIFY);
+    // The same directory may be reached twice within a registration
+    if (!aRegistration.m_aKeys.contains (aKey))
+    {
+      m_aKeyMap.computeIfAbsent (aKey, k -> new CommonsArrayList <> ()).add (new KeyInfo (aRegistration, aDir));
+      aRegistration.m_aKeys.add (aKey);
+    }
+  }
+
+  @GuardedBy ("m_aRWLock")
+  private void _unregisterKey (@Nonnull final WatchKey aKey, @Nonnull final Registration aRegistration)
+  {
+    final ICommonsList <KeyInfo> aInfos = m_aKeyMap.get (aKey);
+    if (aInfos != null)
+    {
+      aInfos.removeIf (x -> x.m_aRegistration == aRegistration);
+      if (aInfos.isEmpty ())
+      {
+        // Last registration using this key
+        m_aKeyMap.remove (aKey);
+        aKey.cancel ();
+      }
+    }
+  }
+
+  @GuardedBy ("m_aRWLock")
+  private void _registerDirTree (@Nonnull final WatchService aWatchService,
+                                 @Nonnull final Registration aRegistration,
+                                 @Nonnull final Path aStartDir) throws IOException
+  {
+    if (aRegistration.m_bRecursive)
+    {
+      Files.walkFileTree (aStartDir, new SimpleFileVisitor <Path> ()
+      {
+        @Override
+        public FileVisitResult preVisitDirectory (final Path aDir, final BasicFileAttributes aAttrs) throws IOException
+        {
+          _registerDir (aWatchService, aRegistration, aDir);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+    else
+      _registerDir (aWatchService, aRegistration, aStartDir);
+  }
+
+  private void _startPolling (@Nonnull final Registration aRegistration)
+  {
+    aRegistration.m_aIndex = _createIndex (aRegistration.m_aRootDir, aRegistration.m_bRecursive);
+    aRegistration.m_aPollingFuture = m_aScheduler.scheduleWithFixedDelay (aRegistration::poll,
+                                                                          m_nPollingIntervalMillis,
+                                                                          m_nPollingIntervalMillis,
+                                                                          TimeUnit.MILLISECONDS);
+  }
+
+  @Nonnull
+  private Registration _register (@Nonnull final Path aDir,
+                                  final boolean bRecursive,
+                                  @Nonnull final IWatchDirBatchCallback aCallback,
+                                  final boolean bForcePolling) throws IOException
+  {
+    ValueEnforcer.notNull (aDir, "Directory");
+    ValueEnforcer.isTrue (Files.isDirectory (aDir), () -> "Provided path is not a directory: " + aDir);
+    ValueEnforcer.notNull (aCallback, "Callback");
+    if (m_bClosed)
+      throw new IllegalStateException ("WatchDirManager is already closed");
+
+    final Path aRealDir = aDir.toRealPath ();
+    return m_aRWLock.writeLockedGetThrowing ( () -> {
+      WatchService aWatchService = null;
+      if (!bForcePolling && aRealDir.getFileSystem () == FileSystems.getDefault ())
+        aWatchService = _getOrCreateWatchService ();
+
+      Registration ret = null;
+      if (aWatchService != null)
+      {
+        ret = new Registration (aRealDir, bRecursive, aCallback, false);
+        try
+        {
+          _registerDirTree (aWatchService, ret, aRealDir);
+        }
+        catch (final IOException | UnsupportedOperationException ex)
+        {
+          LOGGER.warn ("Failed to natively watch " + aRealDir + " - using polling: " + ex.getMessage ());
+          for (final WatchKey aKey : ret.m_aKeys)
+            _unregisterKey (aKey, ret);
+          ret = null;
+        }
+      }
+      if (ret == null)
+      {
+        ret = new Registration (aRealDir, bRecursive, aCallback, true);
+        _startPolling (ret);
+      }
+      m_aRegistrations.add (ret);
+
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Registered " + ret);
+      return ret;
+    });
+  }
+
+  /**
+   * Start watching a directory. If native watching is not available, polling
+   * is used.
+   *
+   * @param aDir
+   *        The directory to be watched. May not be <code>null</code>.
+   * @param bRecursive
+   *        <code>true</code> to watch the directory recursive,
+   *        <code>false</code> to watch just this directory.
+   * @param aCallback
+   *        The callback to be invoked with the batched changes. May not be
+   *        <code>null</code>.
+   * @return The registration that can be closed to stop watching. Never
+   *         <code>null</code>.
+   * @throws IOException
+   *         In case the directory cannot be resolved.
+   */
+  @Nonnull
+  public Registration register (@Nonnull final Path aDir,
+                                final boolean bRecursive,
+                                @Nonnull final IWatchDirBatchCallback aCallback) throws IOException
+  {
+    return _register (aDir, bRecursive, aCallback, false);
+  }
+
+  /**
+   * Start watching a directory by polling for modification time changes. This
+   * is e.g. needed for network shares, where native watching does not report
+   * changes made by other machines.
+   *
+   * @param aDir
+   *        The directory to be watched. May not be <code>null</code>.
+   * @param bRecursive
+   *        <code>true</code> to watch the directory recursive,
+   *        <code>false</code> to watch just this directory.
+   * @param aCallback
+   *        The callback to be invoked with the batched changes. May not be
+   *        <code>null</code>.
+   * @return The registration that can be closed to stop watching. Never
+   *         <code>null</code>.
+   * @throws IOException
+   *         In case the directory cannot be resolved.
+   */
+  @Nonnull
+  public Registration registerPolling (@Nonnull final Path aDir,
+                                       final boolean bRecursive,
+                                       @Nonnull final IWatchDirBatchCallback aCallback) throws IOException
+  {
+    return _register (aDir, bRecursive, aCallback, true);
+  }
+
+  private void _unregister (@Nonnull final Registration aRegistration)
+  {
+    m_aRWLock.writeLocked ( () -> {
+      if (aRegistration.m_bClosed)
+        return;
+      aRegistration.m_bClosed = true;
+      for (final WatchKey aKey : aRegistration.m_aKeys)
+        _unregisterKey (aKey, aRegistration);
+      aRegistration.m_aKeys.clear ();
+      if (aRegistration.m_aPollingFuture != null)
+        aRegistration.m_aPollingFuture.cancel (false);
+      m_aRegistrations.remove (aRegistration);
+    });
+  }
+
+  /**
+   * @return A copy of all active registrations. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <Registration> getAllRegistrations ()
+  {
+    return m_aRWLock.readLockedGet (m_aRegistrations::getClone);
+  }
+
+  private void _processEvents ()
+  {
+    final WatchService aWatchService = m_aRWLock.readLockedGet ( () -> m_aWatchService);
+    if (aWatchService == null)
+    {
+      // Closed before the thread started
+      return;
+    }
+    while (!m_bClosed)
+    {
+      final WatchKey aKey;
+      try
+      {
+        aKey = aWatchService.poll (1, TimeUnit.SECONDS);
+      }
+      catch (final InterruptedException ex)
+      {
+        Thread.currentThread ().interrupt ();
+        break;
+      }
+      catch (final ClosedWatchServiceException ex)
+      {
+        break;
+      }
+      if (aKey == null)
+        continue;
+
+      final ICommonsList <KeyInfo> aInfos = m_aRWLock.readLockedGet ( () -> {
+        final ICommonsList <KeyInfo> ret = m_aKeyMap.get (aKey);
+        return ret == null ? null : ret.getClone ();
+      });
+      if (aInfos == null)
+      {
+        // Unregistered in the meantime
+        aKey.cancel ();
+        continue;
+      }
+
+      for (final WatchEvent <?> aEvent : aKey.pollEvents ())
+        for (final KeyInfo aInfo : aInfos)
+          _dispatchEvent (aWatchService, aInfo, aEvent);
+
+      if (!aKey.reset ())
+      {
+        // Directory no longer accessible
+        m_aRWLock.writeLocked ( () -> {
+          final ICommonsList <KeyInfo> aRemoved = m_aKeyMap.remove (aKey);
+          if (aRemoved != null)
+            for (final KeyInfo aInfo : aRemoved)
+              aInfo.m_aRegistration.m_aKeys.remove (aKey);
+        });
+      }
+    }
+  }
+
+  private void _dispatchEvent (@Nonnull final WatchService aWatchService,
+                               @Nonnull final KeyInfo aInfo,
+                               @Nonnull final WatchEvent <?> aEvent)
+  {
+    final Registration aRegistration = aInfo.m_aRegistration;
+    final WatchEvent.Kind <?> aKind = aEvent.kind ();
+    if (aKind == StandardWatchEventKinds.OVERFLOW)
+    {
+      // Events were lost - let the callback rescan the directory
+      LOGGER.warn ("Got an overflow event on directory " + aInfo.m_aDir);
+      aRegistration.addEvent (EWatchDirAction.MODIFY, aInfo.m_aDir);
+      return;
+    }
+
+    final Path aFullEventPath = aInfo.m_aDir.resolve ((Path) aEvent.context ());
+    final EWatchDirAction eAction;
+    if (aKind == StandardWatchEventKinds.ENTRY_CREATE)
+      eAction = EWatchDirAction.CREATE;
+    else
+      if (aKind == StandardWatchEventKinds.ENTRY_DELETE)
+        eAction = EWatchDirAction.DELETE;
+      else
+        eAction = EWatchDirAction.MODIFY;
+    aRegistration.addEvent (eAction, aFullEventPath);
+
+    // Watch newly created sub directories
+    if (aRegistration.m_bRecursive && eAction == EWatchDirAction.CREATE && Files.isDirectory (aFullEventPath))
+    {
+      try
+      {
+        m_aRWLock.writeLockedThrowing ( () -> {
+          if (!aRegistration.m_bClosed)
+            _registerDirTree (aWatchService, aRegistration, aFullEventPath);
+        });
+      }
+      catch (final IOException ex)
+      {
+        LOGGER.warn ("Failed to watch new directory " + aFullEventPath + ": " + ex.getMessage ());
+      }
+    }
+  }
+
+  /**
+   * Stop watching all directories and stop all threads.
+   */
+  public void close () throws IOException
+  {
+    if (m_bClosed)
+      return;
+    m_bClosed = true;
+
+    for (final Registration aRegistration : getAllRegistrations ())
+      aRegistration.close ();
+
+    final WatchService aWatchService = m_aRWLock.writeLockedGet ( () -> {
+      final WatchService ret = m_aWatchService;
+      m_aWatchService = null;
+      return ret;
+    });
+    try
+    {
+      if (aWatchService != null)
+        aWatchService.close ();
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (m_aScheduler);
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("DebounceMillis", m_nDebounceMillis)
+                                       .append ("PollingIntervalMillis", m_nPollingIntervalMillis)
+                                       .append ("Registrations", getAllRegistrations ())
+                                       .append ("Closed", m_bClosed)
+                                       .getToString ();
+  }
+}
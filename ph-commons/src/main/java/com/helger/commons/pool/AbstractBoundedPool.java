@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.pool;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Abstract base class for a bounded pool of objects that are expensive to
+ * create. In contrast to {@link ObjectPool} a borrow never blocks: if the pool
+ * is empty a new object is created and if the pool is full a returned object
+ * is discarded. The number of created, reused and discarded objects is
+ * recorded per pool and in the global {@link StatisticsManager}.
+ *
+ * @author Philip Helger
+ * @param <DATATYPE>
+ *        The pooled type
+ * @since 9.4.3
+ */
+@ThreadSafe
+public abstract class AbstractBoundedPool <DATATYPE>
+{
+  /** The default maximum number of pooled objects */
+  public static final int DEFAULT_MAX_SIZE = Math.max (4, Runtime.getRuntime ().availableProcessors () * 2);
+
+  private final int m_nMaxSize;
+  private final ConcurrentLinkedQueue <DATATYPE> m_aPool = new ConcurrentLinkedQueue <> ();
+  private final AtomicInteger m_aPoolSize = new AtomicInteger (0);
+  private final AtomicLong m_aBorrowed = new AtomicLong (0);
+  private final AtomicLong m_aReturned = new AtomicLong (0);
+  private final AtomicLong m_aCreated = new AtomicLong (0);
+  private final AtomicLong m_aReused = new AtomicLong (0);
+  private final AtomicLong m_aDiscarded = new AtomicLong (0);
+  private final IMutableStatisticsHandlerCounter m_aStatsCreated;
+  private final IMutableStatisticsHandlerCounter m_aStatsReused;
+  private final IMutableStatisticsHandlerCounter m_aStatsDiscarded;
+
+  /**
+   * Constructor
+   *
+   * @param sStatisticsName
+   *        The name prefix of the global statistics handler. May neither be
+   *        <code>null</code> nor empty.
+   * @param nMaxSize
+   *        The maximum number of pooled objects. Must be &ge; 0. If it is 0,
+   *        nothing is pooled.
+   */
+  protected AbstractBoundedPool (@Nonnull @Nonempty final String sStatisticsName, @Nonnegative final int nMaxSize)
+  {
+    ValueEnforcer.notEmpty (sStatisticsName, "StatisticsName");
+    ValueEnforcer.isGE0 (nMaxSize, "MaxSize");
+    m_nMaxSize = nMaxSize;
+    m_aStatsCreated = StatisticsManager.getCounterHandler (sStatisticsName + "$created");
+    m_aStatsReused = StatisticsManager.getCounterHandler (sStatisticsName + "$reused");
+    m_aStatsDiscarded = StatisticsManager.getCounterHandler (sStatisticsName + "$discarded");
+  }
+
+  /**
+   * @return A new object. May not be <code>null</code>.
+   */
+  @Nonnull
+  protected abstract DATATYPE createObject ();
+
+  /**
+   * Reset an object before it is put back into the pool. This implementation
+   * does nothing.
+   *
+   * @param aObject
+   *        The object to reset. Never <code>null</code>.
+   * @return <code>true</code> if the object may be pooled, <code>false</code>
+   *         if it should be discarded.
+   */
+  protected boolean resetObject (@Nonnull final DATATYPE aObject)
+  {
+    return true;
+  }
+
+  /**
+   * Release the resources of an object that is not pooled. This
+   * implementation does nothing.
+   *
+   * @param aObject
+   *        The object to discard. Never <code>null</code>.
+   */
+  protected void discardObject (@Nonnull final DATATYPE aObject)
+  {}
+
+  /**
+   * @return A pooled object or a new one if the pool is empty. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  protected final DATATYPE borrowObject ()
+  {
+    m_aBorrowed.incrementAndGet ();
+    final DATATYPE ret = m_aPool.poll ();
+    if (ret != null)
+    {
+      m_aPoolSize.decrementAndGet ();
+      m_aReused.incrementAndGet ();
+      m_aStatsReused.increment ();
+      return ret;
+    }
+    m_aCreated.incrementAndGet ();
+    m_aStatsCreated.increment ();
+    return createObject ();
+  }
+
+  /**
+   * Return an object to the pool. The object must not be used afterwards.
+   *
+   * @param aObject
+   *        The object to return. May be <code>null</code> in which case
+   *        nothing happens.
+   */
+  public final void returnObject (@Nullable final DATATYPE aObject)
+  {
+    if (aObject == null)
+      return;
+
+    m_aReturned.incrementAndGet ();
+    if (m_aPoolSize.incrementAndGet () <= m_nMaxSize && resetObject (aObject))
+      m_aPool.offer (aObject);
+    else
+    {
+      m_aPoolSize.decrementAndGet ();
+      m_aDiscarded.incrementAndGet ();
+      m_aStatsDiscarded.increment ();
+      discardObject (aObject);
+    }
+  }
+
+  /**
+   * Discard all pooled objects.
+   */
+  public final void clear ()
+  {
+    DATATYPE aObject;
+    while ((aObject = m_aPool.poll ()) != null)
+    {
+      m_aPoolSize.decrementAndGet ();
+      discardObject (aObject);
+    }
+  }
+
+  /**
+   * @return The maximum number of pooled objects.
+   */
+  @Nonnegative
+  public final int getMaxSize ()
+  {
+    return m_nMaxSize;
+  }
+
+  /**
+   * @return The number of objects currently available in the pool.
+   */
+  @Nonnegative
+  public final int getPooledCount ()
+  {
+    return Math.max (0, m_aPoolSize.get ());
+  }
+
+  /**
+   * @return The total number of borrowed objects.
+   */
+  @Nonnegative
+  public final long getBorrowedCount ()
+  {
+    return m_aBorrowed.get ();
+  }
+
+  /**
+   * @return The total number of returned objects, independent of whether they
+   *         were pooled or discarded.
+   */
+  @Nonnegative
+  public final long getReturnedCount ()
+  {
+    return m_aReturned.get ();
+  }
+
+  /**
+   * @return The number of objects created by this pool, because the pool was
+   *         empty.
+   */
+  @Nonnegative
+  public final long getCreatedCount ()
+  {
+    return m_aCreated.get ();
+  }
+
+  /**
+   * @return The number of objects taken from the pool.
+   */
+  @Nonnegative
+  public final long getReusedCount ()
+  {
+    return m_aReused.get ();
+  }
+
+  /**
+   * @return The number of returned objects that were discarded, because the
+   *         pool was full or the object could not be reset.
+   */
+  @Nonnegative
+  public final long getDiscardedCount ()
+  {
+    return m_aDiscarded.get ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("MaxSize", m_nMaxSize)
+                                       .append ("PooledCount", getPooledCount ())
+                                       .append ("Borrowed", m_aBorrowed.get ())
+                                       .append ("Returned", m_aReturned.get ())
+                                       .append ("Created", m_aCreated.get ())
+                                       .append ("Reused", m_aReused.get ())
+                                       .append ("Discarded", m_aDiscarded.get ())
+                                       .getToString ();
+  }
+}
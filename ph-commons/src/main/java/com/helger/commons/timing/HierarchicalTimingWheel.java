@@ -0,0 +1,331 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.timing;
+
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.lang.GenericReflection;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A hierarchical timing wheel for a large number of elements that expire at a
+ * certain point in time. Adding an element and expiring an element is O(1),
+ * independent of the number of contained elements.<br>
+ * The deadline of an element is always queried via the provided deadline
+ * function, so an element whose deadline was extended in the meantime (e.g.
+ * because of a new access) is simply re-scheduled when its slot fires. That
+ * allows for updating a deadline without touching the wheel at all. If the
+ * deadline function returns {@link #DEADLINE_CANCELLED} the element is silently
+ * dropped when its slot fires.<br>
+ * The time unit is defined by the caller - it must only be consistent between
+ * the tick duration, the start time, the deadlines and the values passed to
+ * {@link #advance(long, Consumer)}.
+ *
+ * @author Philip Helger
+ * @param <ELEMENTTYPE>
+ *        The element type
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class HierarchicalTimingWheel <ELEMENTTYPE>
+{
+  /** Special deadline value to indicate that an element is no longer needed */
+  public static final long DEADLINE_CANCELLED = Long.MIN_VALUE;
+  public static final int DEFAULT_SLOTS_PER_LEVEL = 64;
+  public static final int DEFAULT_LEVELS = 4;
+
+  private final long m_nTickDuration;
+  private final long m_nStartTime;
+  private final int m_nBitsPerLevel;
+  private final int m_nMask;
+  private final int m_nLevels;
+  private final ToLongFunction <? super ELEMENTTYPE> m_aDeadlineFunc;
+  // [level][slot] - lazily created
+  private final ICommonsList <ELEMENTTYPE> [] [] m_aSlots;
+  private long m_nCurrentTick = 0;
+  private int m_nSize = 0;
+
+  /**
+   * Constructor using {@link #DEFAULT_SLOTS_PER_LEVEL} and
+   * {@link #DEFAULT_LEVELS}.
+   *
+   * @param nTickDuration
+   *        The duration of a single tick. Must be &gt; 0.
+   * @param nStartTime
+   *        The start time of the wheel.
+   * @param aDeadlineFunc
+   *        The function to determine the current deadline of an element. May
+   *        not be <code>null</code>.
+   */
+  public HierarchicalTimingWheel (@Nonnegative final long nTickDuration,
+                                  final long nStartTime,
+                                  @Nonnull final ToLongFunction <? super ELEMENTTYPE> aDeadlineFunc)
+  {
+    this (nTickDuration, DEFAULT_SLOTS_PER_LEVEL, DEFAULT_LEVELS, nStartTime, aDeadlineFunc);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param nTickDuration
+   *        The duration of a single tick. Must be &gt; 0.
+   * @param nSlotsPerLevel
+   *        The number of slots per level. Must be a power of 2 and &ge; 2.
+   * @param nLevels
+   *        The number of levels. Must be &gt; 0. The wheel covers
+   *        <code>nSlotsPerLevel<sup>nLevels</sup></code> ticks - elements with
+   *        a later deadline are re-scheduled when the highest level comes
+   *        around.
+   * @param nStartTime
+   *        The start time of the wheel.
+   * @param aDeadlineFunc
+   *        The function to determine the current deadline of an element. May
+   *        not be <code>null</code>.
+   */
+  public HierarchicalTimingWheel (@Nonnegative final long nTickDuration,
+                                  @Nonnegative final int nSlotsPerLevel,
+                                  @Nonnegative final int nLevels,
+                                  final long nStartTime,
+                                  @Nonnull final ToLongFunction <? super ELEMENTTYPE> aDeadlineFunc)
+  {
+    ValueEnforcer.isGT0 (nTickDuration, "TickDuration");
+    ValueEnforcer.isTrue (nSlotsPerLevel >= 2 && Integer.bitCount (nSlotsPerLevel) == 1,
+                          () -> "SlotsPerLevel must be a power of 2: " + nSlotsPerLevel);
+    ValueEnforcer.isGT0 (nLevels, "Levels");
+    final int nBitsPerLevel = Integer.numberOfTrailingZeros (nSlotsPerLevel);
+    ValueEnforcer.isTrue (nBitsPerLevel * nLevels <= 62, "Too many levels for the number of slots");
+    ValueEnforcer.notNull (aDeadlineFunc, "DeadlineFunc");
+    m_nTickDuration = nTickDuration;
+    m_nStartTime = nStartTime;
+    m_nBitsPerLevel = nBitsPerLevel;
+    m_nMask = nSlotsPerLevel - 1;
+    m_nLevels = nLevels;
+    m_aDeadlineFunc = aDeadlineFunc;
+    m_aSlots = GenericReflection.uncheckedCast (new ICommonsList <?> [nLevels] [nSlotsPerLevel]);
+  }
+
+  /**
+   * @return The duration of a single tick as provided in the constructor.
+   */
+  @Nonnegative
+  public final long getTickDuration ()
+  {
+    return m_nTickDuration;
+  }
+
+  /**
+   * @return The time up to which the wheel was advanced.
+   */
+  public final long getCurrentTime ()
+  {
+    return m_nStartTime + m_nCurrentTick * m_nTickDuration;
+  }
+
+  /**
+   * @return The number of contained elements, including the ones that were
+   *         cancelled but whose slot did not fire yet. Always &ge; 0.
+   */
+  @Nonnegative
+  public final int size ()
+  {
+    return m_nSize;
+  }
+
+  public final boolean isEmpty ()
+  {
+    return m_nSize == 0;
+  }
+
+  private long _getDeadlineTick (final long nDeadline)
+  {
+    if (nDeadline <= m_nStartTime)
+      return 0;
+    final long nRel = nDeadline - m_nStartTime;
+    if (nRel < 0)
+    {
+      // Overflow - far in the future
+      return Long.MAX_VALUE;
+    }
+    return nRel / m_nTickDuration + (nRel % m_nTickDuration == 0 ? 0 : 1);
+  }
+
+  private void _schedule (@Nonnull final ELEMENTTYPE aElement, final long nDeadlineTick)
+  {
+    final long nTick = Math.max (nDeadlineTick, m_nCurrentTick + 1);
+    final long nDelta = nTick - m_nCurrentTick;
+    int nLevel = 0;
+    while (nLevel < m_nLevels - 1 && nDelta >= 1L << (m_nBitsPerLevel * (nLevel + 1)))
+      nLevel++;
+
+    long nSlotTick = nTick;
+    final long nMaxDelta = 1L << (m_nBitsPerLevel * m_nLevels);
+    if (nDelta >= nMaxDelta)
+    {
+      // Beyond the wheel - park it in the farthest slot of the highest level
+      nSlotTick = m_nCurrentTick + nMaxDelta - 1;
+    }
+    final int nSlot = (int) ((nSlotTick >>> (m_nBitsPerLevel * nLevel)) & m_nMask);
+
+    ICommonsList <ELEMENTTYPE> aList = m_aSlots[nLevel][nSlot];
+    if (aList == null)
+    {
+      aList = new CommonsArrayList <> ();
+      m_aSlots[nLevel][nSlot] = aList;
+    }
+    aList.add (aElement);
+  }
+
+  /**
+   * Add a new element. The deadline is determined via the deadline function.
+   * Elements whose deadline is already reached will expire with the next tick.
+   * Adding the same element more than once results in multiple expirations.
+   *
+   * @param aElement
+   *        The element to add. May not be <code>null</code>.
+   */
+  public void add (@Nonnull final ELEMENTTYPE aElement)
+  {
+    ValueEnforcer.notNull (aElement, "Element");
+
+    final long nDeadline = m_aDeadlineFunc.applyAsLong (aElement);
+    if (nDeadline != DEADLINE_CANCELLED)
+    {
+      _schedule (aElement, _getDeadlineTick (nDeadline));
+      m_nSize++;
+    }
+  }
+
+  private void _fire (final int nLevel, final int nSlot, @Nonnull final Consumer <? super ELEMENTTYPE> aExpiredConsumer)
+  {
+    final ICommonsList <ELEMENTTYPE> aList = m_aSlots[nLevel][nSlot];
+    if (aList != null)
+    {
+      m_aSlots[nLevel][nSlot] = null;
+      for (final ELEMENTTYPE aElement : aList)
+      {
+        final long nDeadline = m_aDeadlineFunc.applyAsLong (aElement);
+        if (nDeadline == DEADLINE_CANCELLED)
+          m_nSize--;
+        else
+        {
+          final long nDeadlineTick = _getDeadlineTick (nDeadline);
+          if (nDeadlineTick <= m_nCurrentTick)
+          {
+            m_nSize--;
+            aExpiredConsumer.accept (aElement);
+          }
+          else
+            _schedule (aElement, nDeadlineTick);
+        }
+      }
+    }
+  }
+
+  /**
+   * Advance the wheel up to the provided time and pass all elements whose
+   * deadline is reached to the provided consumer. The consumer must not modify
+   * this wheel.
+   *
+   * @param nNow
+   *        The current time. Times before the current time of the wheel are
+   *        ignored.
+   * @param aExpiredConsumer
+   *        The consumer for the expired elements. May not be
+   *        <code>null</code>.
+   */
+  public void advance (final long nNow, @Nonnull final Consumer <? super ELEMENTTYPE> aExpiredConsumer)
+  {
+    ValueEnforcer.notNull (aExpiredConsumer, "ExpiredConsumer");
+
+    if (nNow <= m_nStartTime)
+      return;
+    final long nTargetTick = (nNow - m_nStartTime) / m_nTickDuration;
+    while (m_nCurrentTick < nTargetTick)
+    {
+      if (m_nSize == 0)
+      {
+        // Fast forward
+        m_nCurrentTick = nTargetTick;
+        break;
+      }
+
+      m_nCurrentTick++;
+
+      // Cascade the elements of the higher levels down, when the lower level
+      // wrapped around
+      for (int nLevel = 1; nLevel < m_nLevels; ++nLevel)
+      {
+        final int nShift = m_nBitsPerLevel * nLevel;
+        if ((m_nCurrentTick & ((1L << nShift) - 1)) != 0)
+          break;
+        _fire (nLevel, (int) ((m_nCurrentTick >>> nShift) & m_nMask), aExpiredConsumer);
+      }
+
+      _fire (0, (int) (m_nCurrentTick & m_nMask), aExpiredConsumer);
+    }
+  }
+
+  /**
+   * Advance the wheel up to the provided time and return all elements whose
+   * deadline is reached.
+   *
+   * @param nNow
+   *        The current time.
+   * @return All expired elements. Never <code>null</code> but maybe empty.
+   * @see #advance(long, Consumer)
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <ELEMENTTYPE> advance (final long nNow)
+  {
+    final ICommonsList <ELEMENTTYPE> ret = new CommonsArrayList <> ();
+    advance (nNow, ret::add);
+    return ret;
+  }
+
+  /**
+   * Remove all elements from the wheel.
+   */
+  public void clear ()
+  {
+    for (final ICommonsList <ELEMENTTYPE> [] aLevel : m_aSlots)
+      for (int i = 0; i < aLevel.length; ++i)
+        aLevel[i] = null;
+    m_nSize = 0;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("TickDuration", m_nTickDuration)
+                                       .append ("StartTime", m_nStartTime)
+                                       .append ("SlotsPerLevel", m_nMask + 1)
+                                       .append ("Levels", m_nLevels)
+                                       .append ("CurrentTick", m_nCurrentTick)
+                                       .append ("Size", m_nSize)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.typeconvert;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsConcurrentHashMap;
+import com.helger.commons.collection.impl.CommonsHashSet;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.state.EChange;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCache;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A cache for the results of {@link TypeConverter} conversions per key and
+ * destination class. Each cached entry remembers the source value it was
+ * created from and is only used if the passed source value is the identical
+ * object, so the cache never returns stale results even if the underlying
+ * value was changed without invalidation.<br>
+ * Only conversions from and to immutable types (see
+ * {@link #isCacheableClass(Class)}) are cached, because the cached objects are
+ * shared between all callers.
+ *
+ * @author Philip Helger
+ * @param <KEYTYPE>
+ *        Key type
+ * @since 9.4.3
+ */
+@ThreadSafe
+public class ConvertedValueCache <KEYTYPE>
+{
+  private static final IMutableStatisticsHandlerCache STATS_CACHE = StatisticsManager.getCacheHandler (ConvertedValueCache.class.getName () +
+                                                                                                        "$CONVERSION");
+  private static final ICommonsSet <Class <?>> IMMUTABLE_CLASSES = new CommonsHashSet <> (String.class,
+                                                                                          Boolean.class,
+                                                                                          Byte.class,
+                                                                                          Character.class,
+                                                                                          Double.class,
+                                                                                          Float.class,
+                                                                                          Integer.class,
+                                                                                          Long.class,
+                                                                                          Short.class,
+                                                                                          BigDecimal.class,
+                                                                                          BigInteger.class,
+                                                                                          LocalDate.class,
+                                                                                          LocalTime.class,
+                                                                                          LocalDateTime.class,
+                                                                                          OffsetDateTime.class,
+                                                                                          ZonedDateTime.class,
+                                                                                          Duration.class,
+                                                                                          Period.class);
+  // Marker for a failed conversion
+  private static final Object CONVERSION_FAILED = new Object ();
+
+  private static final class Entry
+  {
+    private final Object m_aSrcValue;
+    private final ICommonsMap <Class <?>, Object> m_aConvertedValues = new CommonsConcurrentHashMap <> (4);
+
+    Entry (@Nonnull final Object aSrcValue)
+    {
+      m_aSrcValue = aSrcValue;
+    }
+  }
+
+  private final ICommonsMap <KEYTYPE, Entry> m_aMap = new CommonsConcurrentHashMap <> ();
+  private final LongAdder m_aHits = new LongAdder ();
+  private final LongAdder m_aMisses = new LongAdder ();
+
+  public ConvertedValueCache ()
+  {}
+
+  /**
+   * Check if objects of the passed class may be cached and shared.
+   *
+   * @param aClass
+   *        The class to check. May be <code>null</code>.
+   * @return <code>true</code> if the class is a known immutable class or an
+   *         enum.
+   */
+  public static boolean isCacheableClass (@Nullable final Class <?> aClass)
+  {
+    return aClass != null && (IMMUTABLE_CLASSES.contains (aClass) || aClass.isEnum ());
+  }
+
+  /**
+   * Get the passed source value converted to the destination class, using the
+   * cache if possible.
+   *
+   * @param aKey
+   *        The key the source value belongs to. May be <code>null</code> in
+   *        which case nothing is cached.
+   * @param aSrcValue
+   *        The source value to convert. May be <code>null</code>.
+   * @param aDstClass
+   *        The destination class. May not be <code>null</code>.
+   * @return <code>null</code> if the source value is <code>null</code> or if
+   *         the conversion failed.
+   * @param <T>
+   *        Destination type
+   */
+  @Nullable
+  public <T> T getConvertedValue (@Nullable final KEYTYPE aKey,
+                                  @Nullable final Object aSrcValue,
+                                  @Nonnull final Class <T> aDstClass)
+  {
+    ValueEnforcer.notNull (aDstClass, "DstClass");
+    if (aSrcValue == null)
+      return null;
+
+    // No conversion needed
+    if (aDstClass.isInstance (aSrcValue))
+      return aDstClass.cast (aSrcValue);
+
+    if (aKey == null || !isCacheableClass (aDstClass) || !isCacheableClass (aSrcValue.getClass ()))
+      return TypeConverter.convert (aSrcValue, aDstClass, null);
+
+    Entry aEntry = m_aMap.get (aKey);
+    if (aEntry == null || aEntry.m_aSrcValue != aSrcValue)
+    {
+      // New key or the value changed in the meantime
+      aEntry = new Entry (aSrcValue);
+      m_aMap.put (aKey, aEntry);
+    }
+
+    Object ret = aEntry.m_aConvertedValues.get (aDstClass);
+    if (ret == null)
+    {
+      m_aMisses.increment ();
+      STATS_CACHE.cacheMiss ();
+      ret = TypeConverter.convert (aSrcValue, aDstClass, null);
+      aEntry.m_aConvertedValues.put (aDstClass, ret == null ? CONVERSION_FAILED : ret);
+    }
+    else
+    {
+      m_aHits.increment ();
+      STATS_CACHE.cacheHit ();
+      if (ret == CONVERSION_FAILED)
+        return null;
+    }
+    return aDstClass.cast (ret);
+  }
+
+  /**
+   * Remove all cached conversions of the passed key.
+   *
+   * @param aKey
+   *        The key to invalidate. May be <code>null</code>.
+   * @return {@link EChange#CHANGED} if something was cached for the key.
+   */
+  @Nonnull
+  public EChange invalidate (@Nullable final KEYTYPE aKey)
+  {
+    if (aKey == null)
+      return EChange.UNCHANGED;
+    return EChange.valueOf (m_aMap.remove (aKey) != null);
+  }
+
+  /**
+   * Remove all cached conversions.
+   *
+   * @return {@link EChange#CHANGED} if something was cached.
+   */
+  @Nonnull
+  public EChange invalidateAll ()
+  {
+    return m_aMap.removeAll ();
+  }
+
+  /**
+   * @return The number of keys with cached conversions. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getCachedKeyCount ()
+  {
+    return m_aMap.size ();
+  }
+
+  /**
+   * @return The number of conversions served from the cache. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getHitCount ()
+  {
+    return m_aHits.sum ();
+  }
+
+  /**
+   * @return The number of conversions that were not cached yet. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getMissCount ()
+  {
+    return m_aMisses.sum ();
+  }
+
+  /**
+   * @return The ratio of cache hits to all cacheable conversions, between 0
+   *         and 1. 0 if no conversion happened so far.
+   */
+  @Nonnegative
+  public double getHitRate ()
+  {
+    final long nHits = m_aHits.sum ();
+    final long nTotal = nHits + m_aMisses.sum ();
+    return nTotal == 0 ? 0 : (double) nHits / nTotal;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("CachedKeyCount", m_aMap.size ())
+                                       .append ("Hits", m_aHits.sum ())
+                                       .append ("Misses", m_aMisses.sum ())
+                                       .getToString ();
+  }
+}
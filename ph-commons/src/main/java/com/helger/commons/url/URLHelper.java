@@ -28,14 +28,18 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.jar.JarEntry;
 
 import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
@@ -104,6 +108,23 @@ public final class URLHelper
 
   private static final URLCodec URL_CODEC = new URLCodec ();
 
+  // Character classes for the table driven encoding of ASCII chars
+  private static final byte CC_ESCAPE = 0;
+  private static final byte CC_UNCHANGED = 1;
+  private static final byte CC_SPACE = 2;
+  private static final byte [] URL_ENCODE_CHAR_CLASS = new byte [128];
+
+  static
+  {
+    // Same as the default URLCodec
+    final BitSet aPrintableChars = URLCodec.getDefaultPrintableChars ();
+    for (int i = 0; i < URL_ENCODE_CHAR_CLASS.length; ++i)
+      if (aPrintableChars.get (i))
+        URL_ENCODE_CHAR_CLASS[i] = i == ' ' ? CC_SPACE : CC_UNCHANGED;
+      else
+        URL_ENCODE_CHAR_CLASS[i] = CC_ESCAPE;
+  }
+
   @PresentForCodeCoverage
   private static final URLHelper s_aInstance = new URLHelper ();
 
@@ -144,9 +165,36 @@ public final class URLHelper
   public static String urlDecode (@Nonnull final String sValue, @Nonnull final Charset aCharset)
   {
     ValueEnforcer.notNull (sValue, "Value");
+    return urlDecode (sValue, 0, sValue.length (), aCharset);
+  }
+
+  /**
+   * URL-decode a part of the passed character sequence. If the part contains
+   * neither escaped characters nor '+' it is returned without decoding, so
+   * for a complete {@link String} the same object is returned.
+   *
+   * @param aValue
+   *        The value to be decoded. May not be <code>null</code>.
+   * @param nStart
+   *        The index of the first char to decode. Must be &ge; 0.
+   * @param nEnd
+   *        The index after the last char to decode. Must be &ge; nStart.
+   * @param aCharset
+   *        The charset to use. May not be <code>null</code>.
+   * @return The decoded value.
+   * @throws IllegalArgumentException
+   *         if something goes wrong
+   * @since 9.4.3
+   */
+  @Nonnull
+  public static String urlDecode (@Nonnull final CharSequence aValue,
+                                  @Nonnegative final int nStart,
+                                  @Nonnegative final int nEnd,
+                                  @Nonnull final Charset aCharset)
+  {
     try
     {
-      return URL_CODEC.getDecodedAsString (sValue, aCharset);
+      return _urlDecode (aValue, nStart, nEnd, aCharset);
     }
     catch (final DecodeException ex)
     {
@@ -154,6 +202,99 @@ public final class URLHelper
     }
   }
 
+  private static boolean _isASCIICompatible (@Nonnull final Charset aCharset)
+  {
+    return aCharset.equals (StandardCharsets.UTF_8) ||
+           aCharset.equals (StandardCharsets.ISO_8859_1) ||
+           aCharset.equals (StandardCharsets.US_ASCII);
+  }
+
+  @Nonnull
+  private static String _getAsString (@Nonnull final CharSequence aValue,
+                                      @Nonnegative final int nStart,
+                                      @Nonnegative final int nEnd)
+  {
+    // Avoids copying the whole String
+    if (nStart == 0 && nEnd == aValue.length ())
+      return aValue.toString ();
+    return aValue.subSequence (nStart, nEnd).toString ();
+  }
+
+  @Nonnull
+  private static String _urlDecode (@Nonnull final CharSequence aValue,
+                                    @Nonnegative final int nStart,
+                                    @Nonnegative final int nEnd,
+                                    @Nonnull final Charset aCharset)
+  {
+    ValueEnforcer.notNull (aValue, "Value");
+    ValueEnforcer.isBetweenInclusive (nStart, "Start", 0, aValue.length ());
+    ValueEnforcer.isBetweenInclusive (nEnd, "End", nStart, aValue.length ());
+    ValueEnforcer.notNull (aCharset, "Charset");
+
+    if (!_isASCIICompatible (aCharset))
+      return URL_CODEC.getDecodedAsString (_getAsString (aValue, nStart, nEnd), aCharset);
+
+    // Fast path: find the first char that needs decoding
+    int nIndex = nStart;
+    while (nIndex < nEnd)
+    {
+      final char c = aValue.charAt (nIndex);
+      if (c == '%' || c == '+')
+        break;
+      if (c >= 0x80)
+      {
+        // Non-ASCII chars are handled by the generic implementation
+        return URL_CODEC.getDecodedAsString (_getAsString (aValue, nStart, nEnd), aCharset);
+      }
+      nIndex++;
+    }
+    if (nIndex == nEnd)
+      return _getAsString (aValue, nStart, nEnd);
+
+    final StringBuilder aSB = new StringBuilder (nEnd - nStart);
+    aSB.append (aValue, nStart, nIndex);
+    byte [] aBytes = null;
+    while (nIndex < nEnd)
+    {
+      final char c = aValue.charAt (nIndex);
+      if (c == '+')
+      {
+        aSB.append (' ');
+        nIndex++;
+      }
+      else
+        if (c == '%')
+        {
+          // Collect all consecutive escaped bytes, as a single char may be
+          // encoded in multiple bytes
+          if (aBytes == null)
+            aBytes = new byte [(nEnd - nIndex) / 3 + 1];
+          int nByteCount = 0;
+          while (nIndex < nEnd && aValue.charAt (nIndex) == '%')
+          {
+            if (nIndex >= nEnd - 2)
+              throw new DecodeException ("Invalid URL encoding. Premature end of input after escape char");
+            final char cHigh = aValue.charAt (nIndex + 1);
+            final char cLow = aValue.charAt (nIndex + 2);
+            final int nDecodedValue = StringHelper.getHexByte (cHigh, cLow);
+            if (nDecodedValue < 0)
+              throw new DecodeException ("Invalid URL encoding for " + (int) cHigh + " and " + (int) cLow);
+            aBytes[nByteCount++] = (byte) nDecodedValue;
+            nIndex += 3;
+          }
+          aSB.append (new String (aBytes, 0, nByteCount, aCharset));
+        }
+        else
+        {
+          if (c >= 0x80)
+            return URL_CODEC.getDecodedAsString (_getAsString (aValue, nStart, nEnd), aCharset);
+          aSB.append (c);
+          nIndex++;
+        }
+    }
+    return aSB.toString ();
+  }
+
   /**
    * URL-decode the passed value automatically handling charset issues. The used
    * char set is determined by {@link #CHARSET_URL_OBJ}.
@@ -228,7 +369,7 @@ public final class URLHelper
     if (sValue != null)
       try
       {
-        return URL_CODEC.getDecodedAsString (sValue, aCharset);
+        return _urlDecode (sValue, 0, sValue.length (), aCharset);
       }
       catch (final DecodeException ex)
       {
@@ -266,7 +407,103 @@ public final class URLHelper
   public static String urlEncode (@Nonnull final String sValue, @Nonnull final Charset aCharset)
   {
     ValueEnforcer.notNull (sValue, "Value");
-    return URL_CODEC.getEncodedAsString (sValue, aCharset);
+    ValueEnforcer.notNull (aCharset, "Charset");
+
+    if (!_isASCIICompatible (aCharset))
+      return URL_CODEC.getEncodedAsString (sValue, aCharset);
+
+    // Fast path: nothing to encode
+    final int nLen = sValue.length ();
+    int nIndex = 0;
+    while (nIndex < nLen)
+    {
+      final char c = sValue.charAt (nIndex);
+      if (c >= 0x80 || URL_ENCODE_CHAR_CLASS[c] != CC_UNCHANGED)
+        break;
+      nIndex++;
+    }
+    if (nIndex == nLen)
+      return sValue;
+
+    final StringBuilder aSB = new StringBuilder (nLen + 16);
+    aSB.append (sValue, 0, nIndex);
+    _urlEncode (sValue, nIndex, aCharset, aSB);
+    return aSB.toString ();
+  }
+
+  /**
+   * URL-encode the passed value and append the result to the passed
+   * {@link StringBuilder}. This avoids the creation of intermediate objects.
+   *
+   * @param aValue
+   *        The value to be encoded. May not be <code>null</code>.
+   * @param aCharset
+   *        The charset to use. May not be <code>null</code>.
+   * @param aSB
+   *        The string builder to append to. May not be <code>null</code>.
+   * @since 9.4.3
+   */
+  public static void urlEncode (@Nonnull final CharSequence aValue,
+                                @Nonnull final Charset aCharset,
+                                @Nonnull final StringBuilder aSB)
+  {
+    ValueEnforcer.notNull (aValue, "Value");
+    ValueEnforcer.notNull (aCharset, "Charset");
+    ValueEnforcer.notNull (aSB, "StringBuilder");
+
+    if (_isASCIICompatible (aCharset))
+      _urlEncode (aValue, 0, aCharset, aSB);
+    else
+      aSB.append (URL_CODEC.getEncodedAsString (aValue.toString (), aCharset));
+  }
+
+  private static void _appendEscaped (@Nonnull final StringBuilder aSB, final int b)
+  {
+    // Hex chars should be upper case as defined in RFC 3986 section 2.1
+    aSB.append ('%')
+       .append (StringHelper.getHexCharUpperCase ((b >> 4) & 0xF))
+       .append (StringHelper.getHexCharUpperCase (b & 0xF));
+  }
+
+  private static void _urlEncode (@Nonnull final CharSequence aValue,
+                                  @Nonnegative final int nStart,
+                                  @Nonnull final Charset aCharset,
+                                  @Nonnull final StringBuilder aSB)
+  {
+    final int nLen = aValue.length ();
+    int nIndex = nStart;
+    while (nIndex < nLen)
+    {
+      final char c = aValue.charAt (nIndex);
+      if (c < 0x80)
+      {
+        switch (URL_ENCODE_CHAR_CLASS[c])
+        {
+          case CC_UNCHANGED:
+            aSB.append (c);
+            break;
+          case CC_SPACE:
+            aSB.append ('+');
+            break;
+          default:
+            _appendEscaped (aSB, c);
+            break;
+        }
+        nIndex++;
+      }
+      else
+      {
+        // Encode the whole run of non-ASCII chars at once, so that surrogate
+        // pairs are handled correctly
+        int nRunEnd = nIndex + 1;
+        while (nRunEnd < nLen && aValue.charAt (nRunEnd) >= 0x80)
+          nRunEnd++;
+        final ByteBuffer aBB = aCharset.encode (CharBuffer.wrap (aValue, nIndex, nRunEnd));
+        while (aBB.hasRemaining ())
+          _appendEscaped (aSB, aBB.get () & 0xff);
+        nIndex = nRunEnd;
+      }
+    }
   }
 
   private static void _initCleanURL ()
@@ -415,6 +652,13 @@ public final class URLHelper
   public static URLParameterList getParsedQueryParameters (@Nullable final String sQueryString,
                                                            @Nullable final IDecoder <String, String> aParameterDecoder)
   {
+    // Fast path without intermediate objects for the default decoder
+    if (aParameterDecoder == null || aParameterDecoder.getClass () == URLParameterDecoder.class)
+    {
+      final Charset aCharset = aParameterDecoder == null ? null : ((URLParameterDecoder) aParameterDecoder).getCharset ();
+      return new URLQueryParser (aCharset).parse (sQueryString).getAsURLParameterList ();
+    }
+
     final URLParameterList aMap = new URLParameterList ();
     if (StringHelper.hasText (sQueryString))
     {
@@ -0,0 +1,435 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.url;
+
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A reusable parser for URL query strings like <code>a=b&amp;c=d</code>.
+ * Parsing only remembers the positions of the parameter names and values, so
+ * no intermediate objects are created. Names and values can be accessed as raw
+ * (not decoded) {@link CharSequence} views or as decoded {@link String}s.
+ * Decoding returns the raw value without copying if nothing needs to be
+ * decoded.<br>
+ * As in {@link URLHelper#getParsedQueryParameters(String)} empty parameter
+ * names are ignored and parameters without a '=' have an empty value.<br>
+ * Instances are meant to be reused for multiple query strings (e.g. one per
+ * thread) and are not thread-safe.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class URLQueryParser
+{
+  private static final int FIELDS_PER_PARAM = 4;
+  private static final int DEFAULT_PARAM_CAPACITY = 8;
+
+  private final Charset m_aCharset;
+  private CharSequence m_aQuery = "";
+  private int m_nCount = 0;
+  // name start, name end, value start, value end - for each parameter
+  private int [] m_aPositions = new int [DEFAULT_PARAM_CAPACITY * FIELDS_PER_PARAM];
+
+  /**
+   * Constructor using {@link URLHelper#CHARSET_URL_OBJ} for decoding.
+   */
+  public URLQueryParser ()
+  {
+    this (URLHelper.CHARSET_URL_OBJ);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aCharset
+   *        The charset used for decoding. May be <code>null</code> in which
+   *        case names and values are not decoded.
+   */
+  public URLQueryParser (@Nullable final Charset aCharset)
+  {
+    m_aCharset = aCharset;
+  }
+
+  /**
+   * @return The charset used for decoding. May be <code>null</code>.
+   */
+  @Nullable
+  public final Charset getCharset ()
+  {
+    return m_aCharset;
+  }
+
+  /**
+   * Parse the passed query string. All previously parsed parameters are
+   * discarded.
+   *
+   * @param aQuery
+   *        The query string without the leading '?'. May be
+   *        <code>null</code>.
+   * @return this for chaining
+   */
+  @Nonnull
+  public URLQueryParser parse (@Nullable final CharSequence aQuery)
+  {
+    return aQuery == null ? parse ("", 0, 0) : parse (aQuery, 0, aQuery.length ());
+  }
+
+  /**
+   * Parse a part of the passed query string. All previously parsed parameters
+   * are discarded.
+   *
+   * @param aQuery
+   *        The char sequence containing the query string. May not be
+   *        <code>null</code>.
+   * @param nStart
+   *        The index of the first char of the query string. Must be &ge; 0.
+   * @param nEnd
+   *        The index after the last char of the query string. Must be &ge;
+   *        nStart.
+   * @return this for chaining
+   */
+  @Nonnull
+  public URLQueryParser parse (@Nonnull final CharSequence aQuery,
+                               @Nonnegative final int nStart,
+                               @Nonnegative final int nEnd)
+  {
+    ValueEnforcer.notNull (aQuery, "Query");
+    ValueEnforcer.isBetweenInclusive (nStart, "Start", 0, aQuery.length ());
+    ValueEnforcer.isBetweenInclusive (nEnd, "End", nStart, aQuery.length ());
+
+    m_aQuery = aQuery;
+    m_nCount = 0;
+
+    int nPairStart = nStart;
+    while (nPairStart < nEnd)
+    {
+      int nPairEnd = nPairStart;
+      int nEqualsIndex = -1;
+      char c;
+      while (nPairEnd < nEnd && (c = aQuery.charAt (nPairEnd)) != URLHelper.AMPERSAND)
+      {
+        if (c == URLHelper.EQUALS && nEqualsIndex < 0)
+          nEqualsIndex = nPairEnd;
+        nPairEnd++;
+      }
+
+      final int nNameEnd = nEqualsIndex < 0 ? nPairEnd : nEqualsIndex;
+      // Maybe empty when passing something like "url?=value"
+      if (nNameEnd > nPairStart)
+      {
+        final int nOfs = m_nCount * FIELDS_PER_PARAM;
+        if (nOfs + FIELDS_PER_PARAM > m_aPositions.length)
+          m_aPositions = Arrays.copyOf (m_aPositions, m_aPositions.length * 2);
+        m_aPositions[nOfs] = nPairStart;
+        m_aPositions[nOfs + 1] = nNameEnd;
+        // Empty value if no '=' is present
+        m_aPositions[nOfs + 2] = nEqualsIndex < 0 ? nPairEnd : nEqualsIndex + 1;
+        m_aPositions[nOfs + 3] = nPairEnd;
+        m_nCount++;
+      }
+      nPairStart = nPairEnd + 1;
+    }
+    return this;
+  }
+
+  /**
+   * Discard all parsed parameters and release the reference to the query
+   * string.
+   *
+   * @return this for chaining
+   */
+  @Nonnull
+  public URLQueryParser reset ()
+  {
+    m_aQuery = "";
+    m_nCount = 0;
+    return this;
+  }
+
+  /**
+   * @return The number of parsed parameters. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getParameterCount ()
+  {
+    return m_nCount;
+  }
+
+  public boolean hasParameters ()
+  {
+    return m_nCount > 0;
+  }
+
+  private int _getOffset (@Nonnegative final int nIndex)
+  {
+    ValueEnforcer.isBetweenInclusive (nIndex, "Index", 0, m_nCount - 1);
+    return nIndex * FIELDS_PER_PARAM;
+  }
+
+  /**
+   * Get the raw name of the parameter at the specified index. The returned
+   * object is a view on the parsed query string and is not decoded.
+   *
+   * @param nIndex
+   *        The 0-based parameter index.
+   * @return Never <code>null</code> nor empty.
+   */
+  @Nonnull
+  public CharSequence getRawName (@Nonnegative final int nIndex)
+  {
+    final int nOfs = _getOffset (nIndex);
+    return CharBuffer.wrap (m_aQuery, m_aPositions[nOfs], m_aPositions[nOfs + 1]);
+  }
+
+  /**
+   * Get the raw value of the parameter at the specified index. The returned
+   * object is a view on the parsed query string and is not decoded.
+   *
+   * @param nIndex
+   *        The 0-based parameter index.
+   * @return Never <code>null</code> but maybe empty.
+   */
+  @Nonnull
+  public CharSequence getRawValue (@Nonnegative final int nIndex)
+  {
+    final int nOfs = _getOffset (nIndex);
+    return CharBuffer.wrap (m_aQuery, m_aPositions[nOfs + 2], m_aPositions[nOfs + 3]);
+  }
+
+  @Nullable
+  private String _getDecoded (final int nStart, final int nEnd)
+  {
+    if (m_aCharset == null)
+      return m_aQuery.subSequence (nStart, nEnd).toString ();
+    try
+    {
+      return URLHelper.urlDecode (m_aQuery, nStart, nEnd, m_aCharset);
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // Same as URLParameterDecoder
+      return null;
+    }
+  }
+
+  /**
+   * Get the decoded name of the parameter at the specified index.
+   *
+   * @param nIndex
+   *        The 0-based parameter index.
+   * @return <code>null</code> if decoding failed.
+   */
+  @Nullable
+  public String getName (@Nonnegative final int nIndex)
+  {
+    final int nOfs = _getOffset (nIndex);
+    return _getDecoded (m_aPositions[nOfs], m_aPositions[nOfs + 1]);
+  }
+
+  /**
+   * Get the decoded value of the parameter at the specified index.
+   *
+   * @param nIndex
+   *        The 0-based parameter index.
+   * @return <code>null</code> if decoding failed.
+   */
+  @Nullable
+  public String getValue (@Nonnegative final int nIndex)
+  {
+    final int nOfs = _getOffset (nIndex);
+    return _getDecoded (m_aPositions[nOfs + 2], m_aPositions[nOfs + 3]);
+  }
+
+  private boolean _isRawEqual (final int nStart, final int nEnd, @Nonnull final String sName)
+  {
+    final int nLen = nEnd - nStart;
+    if (nLen != sName.length ())
+      return false;
+    for (int i = 0; i < nLen; ++i)
+      if (m_aQuery.charAt (nStart + i) != sName.charAt (i))
+        return false;
+    return true;
+  }
+
+  private boolean _needsDecoding (final int nStart, final int nEnd)
+  {
+    if (m_aCharset == null)
+      return false;
+    for (int i = nStart; i < nEnd; ++i)
+    {
+      final char c = m_aQuery.charAt (i);
+      if (c == '%' || c == '+' || c >= 0x80)
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Check if the parameter at the specified index has the passed (decoded)
+   * name. No objects are created if the name does not need decoding.
+   *
+   * @param nIndex
+   *        The 0-based parameter index.
+   * @param sName
+   *        The decoded name to check. May be <code>null</code>.
+   * @return <code>true</code> if the name matches.
+   */
+  public boolean hasName (@Nonnegative final int nIndex, @Nullable final String sName)
+  {
+    final int nOfs = _getOffset (nIndex);
+    if (sName == null)
+      return false;
+    final int nStart = m_aPositions[nOfs];
+    final int nEnd = m_aPositions[nOfs + 1];
+    if (_needsDecoding (nStart, nEnd))
+      return sName.equals (_getDecoded (nStart, nEnd));
+    return _isRawEqual (nStart, nEnd, sName);
+  }
+
+  /**
+   * Get the index of the first parameter with the passed (decoded) name.
+   *
+   * @param sName
+   *        The decoded name to search. May be <code>null</code>.
+   * @return -1 if no such parameter exists.
+   */
+  @CheckForSigned
+  public int getIndexOfName (@Nullable final String sName)
+  {
+    if (sName != null)
+      for (int i = 0; i < m_nCount; ++i)
+        if (hasName (i, sName))
+          return i;
+    return -1;
+  }
+
+  /**
+   * @param sName
+   *        The decoded name to search. May be <code>null</code>.
+   * @return <code>true</code> if at least one parameter with the passed name
+   *         exists.
+   */
+  public boolean containsName (@Nullable final String sName)
+  {
+    return getIndexOfName (sName) >= 0;
+  }
+
+  /**
+   * Get the decoded value of the first parameter with the passed name.
+   *
+   * @param sName
+   *        The decoded name to search. May be <code>null</code>.
+   * @return <code>null</code> if no such parameter exists or if decoding
+   *         failed.
+   */
+  @Nullable
+  public String getFirstValue (@Nullable final String sName)
+  {
+    final int nIndex = getIndexOfName (sName);
+    return nIndex < 0 ? null : getValue (nIndex);
+  }
+
+  /**
+   * Get the decoded values of all parameters with the passed name.
+   *
+   * @param sName
+   *        The decoded name to search. May be <code>null</code>.
+   * @return A new list and never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <String> getAllValues (@Nullable final String sName)
+  {
+    final ICommonsList <String> ret = new CommonsArrayList <> ();
+    if (sName != null)
+      for (int i = 0; i < m_nCount; ++i)
+        if (hasName (i, sName))
+          ret.add (getValue (i));
+    return ret;
+  }
+
+  /**
+   * Invoke the passed consumer for all decoded names and values in the order
+   * they occur in the query string.
+   *
+   * @param aConsumer
+   *        The consumer to invoke with name and value. May not be
+   *        <code>null</code>.
+   */
+  public void forEach (@Nonnull final BiConsumer <? super String, ? super String> aConsumer)
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    for (int i = 0; i < m_nCount; ++i)
+      aConsumer.accept (getName (i), getValue (i));
+  }
+
+  /**
+   * @return All parsed parameters as a new {@link URLParameterList}. Never
+   *         <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If a parameter name cannot be decoded
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public URLParameterList getAsURLParameterList ()
+  {
+    final URLParameterList ret = new URLParameterList ();
+    for (int i = 0; i < m_nCount; ++i)
+      ret.add (getName (i), getValue (i));
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Charset", m_aCharset)
+                                       .append ("Query", m_aQuery)
+                                       .append ("ParameterCount", m_nCount)
+                                       .getToString ();
+  }
+
+  /**
+   * Parse the passed query string with a new parser using
+   * {@link URLHelper#CHARSET_URL_OBJ}.
+   *
+   * @param aQuery
+   *        The query string without the leading '?'. May be
+   *        <code>null</code>.
+   * @return The parser. Never <code>null</code>.
+   */
+  @Nonnull
+  public static URLQueryParser parseQuery (@Nullable final CharSequence aQuery)
+  {
+    return new URLQueryParser ().parse (aQuery);
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.base64;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link FastBase64}.
+ *
+ * @author Philip Helger
+ */
+public final class FastBase64Test
+{
+  private static final int [] OPTIONS = { Base64.NO_OPTIONS,
+                                          Base64.URL_SAFE,
+                                          Base64.ORDERED,
+                                          Base64.DO_BREAK_LINES,
+                                          Base64.DO_BREAK_LINES | Base64.DO_NEWLINE_CRLF,
+                                          Base64.DO_BREAK_LINES | Base64.URL_SAFE,
+                                          Base64.URL_SAFE | Base64.ORDERED };
+
+  @Test
+  public void testBasic () throws IOException
+  {
+    final byte [] aSrc = "Hallo Welt! Ümläüte".getBytes (StandardCharsets.ISO_8859_1);
+    assertEquals (Base64.encodeBytes (aSrc), FastBase64.encodeBytes (aSrc));
+    assertArrayEquals (aSrc, FastBase64.decode (FastBase64.encodeBytes (aSrc)));
+    assertEquals ("", FastBase64.encodeBytes (new byte [0]));
+    assertEquals ("Zg==", FastBase64.encodeBytes (new byte [] { 'f' }));
+    assertEquals ("Zm8=", FastBase64.encodeBytes (new byte [] { 'f', 'o' }));
+    assertEquals ("Zm9v", FastBase64.encodeBytes (new byte [] { 'f', 'o', 'o' }));
+    assertEquals (0, FastBase64.decode ("").length);
+  }
+
+  @Test
+  public void testEncodeCompatible () throws IOException
+  {
+    final Random aRandom = new Random (1);
+    for (final int nOptions : OPTIONS)
+      for (int nLen = 0; nLen < 600; ++nLen)
+      {
+        final byte [] aSrc = new byte [nLen + 5];
+        aRandom.nextBytes (aSrc);
+        final byte [] aExpected = Base64.encodeBytesToBytes (aSrc, 2, nLen, nOptions);
+        assertArrayEquals ("Len " + nLen + " options " + nOptions,
+                           aExpected,
+                           FastBase64.encodeBytesToBytes (aSrc, 2, nLen, nOptions));
+        assertEquals (aExpected.length, FastBase64.getEncodedLength (nLen, nOptions));
+
+        // Decode again
+        assertArrayEquals (Base64.decode (aExpected, 0, aExpected.length, nOptions),
+                           FastBase64.decode (aExpected, 0, aExpected.length, nOptions));
+      }
+
+    // GZip is delegated
+    final byte [] aSrc = "abcabcabcabcabc".getBytes (StandardCharsets.ISO_8859_1);
+    assertArrayEquals (Base64.encodeBytesToBytes (aSrc, 0, aSrc.length, Base64.GZIP),
+                       FastBase64.encodeBytesToBytes (aSrc, 0, aSrc.length, Base64.GZIP));
+  }
+
+  @Nullable
+  private static String _getDecodeResult (@Nonnull final byte [] aEncoded, final int nOptions, final boolean bFast)
+  {
+    try
+    {
+      final byte [] aDecoded = bFast ? FastBase64.decode (aEncoded, 0, aEncoded.length, nOptions)
+                                     : Base64.decode (aEncoded, 0, aEncoded.length, nOptions);
+      return new String (aDecoded, StandardCharsets.ISO_8859_1);
+    }
+    catch (final IOException | RuntimeException ex)
+    {
+      return ex.getClass ().getName () + ": " + ex.getMessage ();
+    }
+  }
+
+  @Test
+  public void testDecodeCompatible () throws IOException
+  {
+    final Random aRandom = new Random (2);
+    final byte [] aSpecial = { ' ', '\t', '\r', '\n', '=', '+', '/', '-', '_', '*', (byte) 0xe4, 0 };
+    for (final int nOptions : OPTIONS)
+      for (int i = 0; i < 3000; ++i)
+      {
+        final byte [] aSrc = new byte [aRandom.nextInt (100)];
+        aRandom.nextBytes (aSrc);
+        final byte [] aEncoded = Base64.encodeBytesToBytes (aSrc, 0, aSrc.length, nOptions);
+
+        // Modify some bytes
+        final int nModifications = aEncoded.length == 0 ? 0 : aRandom.nextInt (3);
+        for (int j = 0; j < nModifications; ++j)
+          aEncoded[aRandom.nextInt (aEncoded.length)] = aRandom.nextInt (4) == 0 ? (byte) aRandom.nextInt (256)
+                                                                                 : aSpecial[aRandom.nextInt (aSpecial.length)];
+
+        final String sExpected = _getDecodeResult (aEncoded, nOptions, false);
+        assertNotNull (sExpected);
+        assertEquals ("Options " + nOptions, sExpected, _getDecodeResult (aEncoded, nOptions, true));
+      }
+  }
+
+  @Test
+  public void testDecodeIntoArray () throws IOException
+  {
+    final byte [] aEncoded = "  Zm9v\nYmFy  ".getBytes (StandardCharsets.ISO_8859_1);
+    final byte [] aDst = new byte [20];
+    final int nLen = FastBase64.decode (aEncoded, 0, aEncoded.length, aDst, 5, Base64.NO_OPTIONS);
+    assertEquals (6, nLen);
+    assertEquals ("foobar", new String (aDst, 5, nLen, StandardCharsets.ISO_8859_1));
+  }
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.codec.ByteBufferCodecHelper.ITranscoder;
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+
+/**
+ * Test class for the {@link IByteBufferEncoder} and {@link IByteBufferDecoder}
+ * implementations.
+ *
+ * @author Philip Helger
+ */
+public final class ByteBufferCodecTest
+{
+  private static final int [] SIZES = { 0, 1, 2, 3, 4, 5, 7, 100, 1000, 20_000 };
+
+  @Nonnull
+  private static ByteBuffer _allocate (final int nSize, final boolean bDirect)
+  {
+    return bDirect ? ByteBuffer.allocateDirect (nSize) : ByteBuffer.allocate (nSize);
+  }
+
+  /**
+   * Transcode with random small input and output chunks
+   */
+  @Nonnull
+  private static byte [] _transcodeChunked (@Nonnull final ITranscoder aTranscoder,
+                                            @Nonnull final byte [] aInput,
+                                            @Nonnull final Random aRandom,
+                                            final boolean bDirect)
+  {
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    final ByteBuffer aOut = _allocate (1 + aRandom.nextInt (7), bDirect);
+    int nPos = 0;
+    while (true)
+    {
+      final int nCount = Math.min (aRandom.nextInt (9), aInput.length - nPos);
+      final boolean bEndOfInput = nPos + nCount == aInput.length;
+      final ByteBuffer aIn = _allocate (nCount, bDirect);
+      aIn.put (aInput, nPos, nCount).flip ();
+      ECodecResult eResult;
+      do
+      {
+        eResult = aTranscoder.transcode (aIn, aOut, bEndOfInput);
+        aOut.flip ();
+        while (aOut.hasRemaining ())
+          aBAOS.write (aOut.get ());
+        aOut.clear ();
+      } while (eResult.isOverflow ());
+      assertFalse (aIn.hasRemaining ());
+      nPos += nCount;
+      if (bEndOfInput)
+        break;
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  @Nonnull
+  private static byte [] _createData (@Nonnull final Random aRandom, final int nSize)
+  {
+    // Mix of random and repeating data
+    final byte [] ret = new byte [nSize];
+    int i = 0;
+    while (i < nSize)
+    {
+      final int nRun = Math.min (1 + aRandom.nextInt (20), nSize - i);
+      if (aRandom.nextBoolean ())
+      {
+        final byte b = (byte) aRandom.nextInt (4);
+        for (int j = 0; j < nRun; ++j)
+          ret[i++] = b;
+      }
+      else
+        for (int j = 0; j < nRun; ++j)
+          ret[i++] = (byte) aRandom.nextInt (256);
+    }
+    return ret;
+  }
+
+  private static <T extends IByteArrayCodec & IByteBufferEncoderProvider & IByteBufferDecoderProvider> void _testRoundtrip (@Nonnull final T aCodec)
+  {
+    final Random aRandom = new Random (aCodec.getClass ().getName ().hashCode ());
+    final IByteBufferEncoder aEncoder = aCodec.createByteBufferEncoder ();
+    final IByteBufferDecoder aDecoder = aCodec.createByteBufferDecoder ();
+    for (final int nSize : SIZES)
+      for (int i = 0; i < 3; ++i)
+      {
+        final byte [] aData = _createData (aRandom, nSize);
+        final boolean bDirect = (i & 1) == 1;
+
+        // Encode
+        final byte [] aEncoded = _transcodeChunked (aEncoder::encode, aData, aRandom, bDirect);
+        aEncoder.reset ();
+        assertArrayEquals (aCodec.getClass ().getSimpleName () + " " + nSize, aCodec.getEncoded (aData), aEncoded);
+
+        // Decode
+        final byte [] aDecoded = _transcodeChunked (aDecoder::decode, aEncoded, aRandom, bDirect);
+        aDecoder.reset ();
+        assertArrayEquals (aCodec.getClass ().getSimpleName () + " " + nSize, aData, aDecoded);
+      }
+  }
+
+  @Test
+  public void testRoundtrip ()
+  {
+    _testRoundtrip (new Base16Codec ());
+    _testRoundtrip (new Base32Codec ());
+    _testRoundtrip (new Base64Codec ());
+    _testRoundtrip (new QuotedPrintableCodec ());
+    _testRoundtrip (new URLCodec ());
+    _testRoundtrip (new LZWCodec ());
+  }
+
+  @Test
+  public void testRoundtripCompressed ()
+  {
+    // The compressed bytes are identical, because the same Deflater settings
+    // are used
+    _testRoundtrip (new FlateCodec ());
+    _testRoundtrip (new GZIPCodec ());
+  }
+
+  private static long _getBorrowedNotReturned ()
+  {
+    long ret = 0;
+    for (final boolean bNoWrap : new boolean [] { false, true })
+    {
+      final DeflaterPool aDeflaterPool = DeflaterPool.getDefaultInstance (bNoWrap);
+      final InflaterPool aInflaterPool = InflaterPool.getDefaultInstance (bNoWrap);
+      ret += aDeflaterPool.getBorrowedCount () - aDeflaterPool.getReturnedCount ();
+      ret += aInflaterPool.getBorrowedCount () - aInflaterPool.getReturnedCount ();
+    }
+    return ret;
+  }
+
+  @Test
+  public void testPooledZlibReturnedWhenFinished ()
+  {
+    final Random aRandom = new Random (4711);
+    final byte [] aData = _createData (aRandom, 10_000);
+    final long nBefore = _getBorrowedNotReturned ();
+    for (final IByteArrayCodec aCodec : new IByteArrayCodec [] { new FlateCodec (), new GZIPCodec () })
+    {
+      final IByteBufferEncoderProvider aEncProvider = (IByteBufferEncoderProvider) aCodec;
+      final IByteBufferDecoderProvider aDecProvider = (IByteBufferDecoderProvider) aCodec;
+
+      // The encoder and decoder are dropped without reset
+      final byte [] aEncoded = _transcodeChunked (aEncProvider.createByteBufferEncoder ()::encode, aData, aRandom, false);
+      assertEquals (nBefore, _getBorrowedNotReturned ());
+      assertArrayEquals (aData,
+                         _transcodeChunked (aDecProvider.createByteBufferDecoder ()::decode, aEncoded, aRandom, false));
+      assertEquals (nBefore, _getBorrowedNotReturned ());
+
+      // Reset after finishing does not return the instance twice
+      final IByteBufferEncoder aEncoder = aEncProvider.createByteBufferEncoder ();
+      _transcodeChunked (aEncoder::encode, aData, aRandom, true);
+      aEncoder.reset ();
+      assertEquals (nBefore, _getBorrowedNotReturned ());
+    }
+  }
+
+  @Test
+  public void testLZWTableReset ()
+  {
+    // Enough data to trigger multiple table resets
+    final LZWCodec aCodec = new LZWCodec ();
+    final Random aRandom = new Random (4711);
+    final byte [] aData = _createData (aRandom, 100_000);
+    final byte [] aEncoded = _transcodeChunked (aCodec.createByteBufferEncoder ()::encode, aData, aRandom, false);
+    assertArrayEquals (aCodec.getEncoded (aData), aEncoded);
+    assertArrayEquals (aData, _transcodeChunked (aCodec.createByteBufferDecoder ()::decode, aEncoded, aRandom, true));
+  }
+
+  @Test
+  public void testGZIPConcatenatedMembers ()
+  {
+    final GZIPCodec aCodec = new GZIPCodec ();
+    final byte [] aPart1 = "Hello ".getBytes (StandardCharsets.ISO_8859_1);
+    final byte [] aPart2 = "World".getBytes (StandardCharsets.ISO_8859_1);
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    aBAOS.write (aCodec.getEncoded (aPart1));
+    aBAOS.write (aCodec.getEncoded (aPart2));
+    // Trailing garbage is ignored
+    aBAOS.write (new byte [] { 1, 2, 3 });
+    final byte [] aEncoded = aBAOS.toByteArray ();
+
+    final byte [] aDecoded = _transcodeChunked (aCodec.createByteBufferDecoder ()::decode,
+                                                aEncoded,
+                                                new Random (17),
+                                                false);
+    assertEquals ("Hello World", new String (aDecoded, StandardCharsets.ISO_8859_1));
+    assertArrayEquals (aCodec.getDecoded (aEncoded), aDecoded);
+
+    // Truncated
+    try
+    {
+      final byte [] aFull = aCodec.getEncoded (aPart1);
+      ByteBufferCodecHelper.getTranscoded (aCodec.createByteBufferDecoder ()::decode,
+                                           Arrays.copyOf (aFull, aFull.length - 3),
+                                           4);
+      fail ();
+    }
+    catch (final DecodeException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testDecodeOnly ()
+  {
+    final Random aRandom = new Random (1234);
+    final String sEncoded = "<~9jqo^BlbD-BleB1DJ+*+F(f,q/0JhKF<GL>Cj@.4Gp$d7F!,L7@<6@)/0JDEF<G%<+EV:2F!,\n" +
+                            "O<DJ+*.@<*K0@<6L(Df-\\0Ec5e;DffZ(EZee.Bl.9pF\"AGXBPCsi+DGm>@3BB/F*&OCAfu2/AKY~>";
+    final ASCII85Codec aASCII85 = new ASCII85Codec ();
+    final byte [] aASCII85Encoded = sEncoded.getBytes (StandardCharsets.US_ASCII);
+    for (int i = 0; i < 10; ++i)
+      assertArrayEquals (aASCII85.getDecoded (aASCII85Encoded),
+                         _transcodeChunked (aASCII85.createByteBufferDecoder ()::decode,
+                                            aASCII85Encoded,
+                                            aRandom,
+                                            (i & 1) == 1));
+
+    final RunLengthCodec aRunLength = new RunLengthCodec ();
+    final byte [] aRLEncoded = new byte [] { (byte) (257 - 12), 'W', 0x03, 'T', 'F', 'F', (byte) 0x80, 'x' };
+    for (int i = 0; i < 10; ++i)
+      assertArrayEquals ("WWWWWWWWWWWWTFF".getBytes (StandardCharsets.ISO_8859_1),
+                         _transcodeChunked (aRunLength.createByteBufferDecoder ()::decode,
+                                            aRLEncoded,
+                                            aRandom,
+                                            (i & 1) == 1));
+  }
+
+  @Test
+  public void testStreams () throws IOException
+  {
+    final Base64Codec aCodec = new Base64Codec ();
+    final byte [] aData = _createData (new Random (1), 100_000);
+    final NonBlockingByteArrayOutputStream aEncoded = new NonBlockingByteArrayOutputStream ();
+    aCodec.createByteBufferEncoder ().encode (new NonBlockingByteArrayInputStream (aData), aEncoded);
+    assertArrayEquals (aCodec.getEncoded (aData), aEncoded.toByteArray ());
+
+    final NonBlockingByteArrayOutputStream aDecoded = new NonBlockingByteArrayOutputStream ();
+    aCodec.createByteBufferDecoder ().decode (aEncoded.getAsInputStream (), aDecoded);
+    assertArrayEquals (aData, aDecoded.toByteArray ());
+  }
+}
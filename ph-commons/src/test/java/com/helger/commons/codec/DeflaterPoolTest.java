@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link DeflaterPool}.
+ *
+ * @author Philip Helger
+ */
+public final class DeflaterPoolTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final DeflaterPool aPool = new DeflaterPool (false, 1);
+    assertEquals (1, aPool.getMaxSize ());
+    assertEquals (0, aPool.getPooledCount ());
+
+    final Deflater d1 = aPool.borrowDeflater (Deflater.BEST_SPEED, Deflater.DEFAULT_STRATEGY);
+    final Deflater d2 = aPool.borrowDeflater (Deflater.BEST_SPEED, Deflater.DEFAULT_STRATEGY);
+    assertEquals (2, aPool.getCreatedCount ());
+    aPool.returnObject (d1);
+    // Pool is full - d2 is ended
+    aPool.returnObject (d2);
+    assertEquals (1, aPool.getPooledCount ());
+    assertEquals (1, aPool.getDiscardedCount ());
+
+    // Reused
+    final Deflater d3 = aPool.borrowDeflater (Deflater.BEST_COMPRESSION, Deflater.FILTERED);
+    assertSame (d1, d3);
+    assertEquals (1, aPool.getReusedCount ());
+    assertEquals (0, aPool.getPooledCount ());
+    aPool.returnObject (d3);
+    aPool.returnObject (null);
+    aPool.clear ();
+    assertEquals (0, aPool.getPooledCount ());
+    assertNotNull (aPool.toString ());
+  }
+
+  @Test
+  public void testCodecUsesPool ()
+  {
+    final DeflaterPool aDeflaterPool = DeflaterPool.getDefaultInstance (false);
+    final InflaterPool aInflaterPool = InflaterPool.getDefaultInstance (false);
+    final FlateCodec aCodec = new FlateCodec ();
+    final byte [] aData = "Hello pooled world".getBytes (StandardCharsets.UTF_8);
+    // Make sure the pools are filled
+    aCodec.getDecoded (aCodec.getEncoded (aData));
+
+    final long nDeflaterReused = aDeflaterPool.getReusedCount ();
+    final long nInflaterReused = aInflaterPool.getReusedCount ();
+    for (int i = 0; i < 10; ++i)
+      aCodec.getDecoded (aCodec.getEncoded (aData));
+    assertTrue (aDeflaterPool.getReusedCount () >= nDeflaterReused + 10);
+    assertTrue (aInflaterPool.getReusedCount () >= nInflaterReused + 10);
+  }
+}
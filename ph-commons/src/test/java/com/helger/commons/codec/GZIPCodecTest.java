@@ -17,12 +17,23 @@
 package com.helger.commons.codec;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.Test;
 
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.io.stream.StreamHelper;
+
 /**
  * Test class for class {@link GZIPCodec}
  *
@@ -44,4 +55,92 @@ public final class GZIPCodecTest
       assertArrayEquals (aDecoded, aDecoded2);
     }
   }
+
+  private static byte [] _getJDKEncoded (final byte [] aData, final int nLevel, final int nStrategy) throws IOException
+  {
+    final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    try (final GZIPOutputStream aOS = new GZIPOutputStream (aBAOS)
+    {
+      {
+        def.setLevel (nLevel);
+        def.setStrategy (nStrategy);
+      }
+    })
+    {
+      aOS.write (aData);
+    }
+    return aBAOS.toByteArray ();
+  }
+
+  @Test
+  public void testCompatibility () throws IOException
+  {
+    final Random aRandom = new Random (42);
+    final GZIPCodec aCodec = new GZIPCodec ();
+    for (final int nLevel : new int [] { Deflater.DEFAULT_COMPRESSION,
+                                         Deflater.NO_COMPRESSION,
+                                         Deflater.BEST_SPEED,
+                                         Deflater.BEST_COMPRESSION })
+      for (final int nStrategy : new int [] { Deflater.DEFAULT_STRATEGY, Deflater.FILTERED, Deflater.HUFFMAN_ONLY })
+      {
+        aCodec.setLevel (nLevel).setStrategy (nStrategy).setBufferSize (1 + aRandom.nextInt (100));
+        for (final int nLen : new int [] { 1, 10, 1000, 100_000 })
+        {
+          // Compressible data
+          final byte [] aData = new byte [nLen];
+          for (int i = 0; i < nLen; ++i)
+            aData[i] = (byte) (aRandom.nextInt (8) + 'a');
+
+          // Pooled deflaters must create the same output as new ones
+          final byte [] aEncoded = aCodec.getEncoded (aData);
+          assertArrayEquals (_getJDKEncoded (aData, nLevel, nStrategy), aEncoded);
+          assertArrayEquals (aData, aCodec.getDecoded (aEncoded));
+          try (final GZIPInputStream aIS = new GZIPInputStream (new NonBlockingByteArrayInputStream (aEncoded)))
+          {
+            assertArrayEquals (aData, StreamHelper.getAllBytes (aIS));
+          }
+        }
+      }
+  }
+
+  @Test
+  public void testInvalidSettings ()
+  {
+    final GZIPCodec aCodec = new GZIPCodec ();
+    assertEquals (Deflater.DEFAULT_COMPRESSION, aCodec.getLevel ());
+    try
+    {
+      aCodec.setLevel (10);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+    try
+    {
+      aCodec.setStrategy (3);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testTruncated ()
+  {
+    final GZIPCodec aCodec = new GZIPCodec ();
+    final byte [] aEncoded = aCodec.getEncoded ("abc".getBytes (CHARSET));
+    try
+    {
+      aCodec.getDecoded (aEncoded, 0, aEncoded.length - 5);
+      fail ();
+    }
+    catch (final DecodeException ex)
+    {
+      // expected
+    }
+  }
 }
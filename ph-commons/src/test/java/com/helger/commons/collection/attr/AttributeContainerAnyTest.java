@@ -37,6 +37,7 @@ import com.helger.commons.collection.impl.CommonsArrayList;
 import com.helger.commons.collection.impl.CommonsLinkedHashSet;
 import com.helger.commons.mock.CommonsAssert;
 import com.helger.commons.mock.CommonsTestHelper;
+import com.helger.commons.typeconvert.TypeConverterException;
 
 /**
  * Test class for class {@link AttributeContainerAny}.
@@ -187,4 +188,80 @@ public final class AttributeContainerAnyTest
     aCont.putIn ("a", 1381.2);
     assertEquals (1381, aCont.getAsInt ("a"));
   }
+
+  @Test
+  public void testConvertedValueCache ()
+  {
+    final AttributeContainerAny <String> aCont = new AttributeContainerAny <> ();
+    assertFalse (aCont.isConvertedValueCacheEnabled ());
+    assertNull (aCont.getConvertedValueCache ());
+    assertTrue (aCont.enableConvertedValueCache ().isChanged ());
+    assertFalse (aCont.enableConvertedValueCache ().isChanged ());
+    assertTrue (aCont.isConvertedValueCacheEnabled ());
+
+    aCont.putIn ("a", "1381");
+    for (int i = 0; i < 5; ++i)
+    {
+      assertEquals (1381, aCont.getAsInt ("a"));
+      assertEquals (1381L, aCont.getAsLong ("a", 0));
+      assertEquals (Integer.valueOf (1381), aCont.getAsIntObj ("a"));
+      assertEquals (BigDecimal.valueOf (1381), aCont.getAsBigDecimal ("a"));
+      assertEquals ((short) 1381, aCont.getAsShort ("a"));
+      assertEquals (17, aCont.getAsInt ("b", 17));
+    }
+    assertEquals (4, aCont.getConvertedValueCache ().getMissCount ());
+    assertEquals (21, aCont.getConvertedValueCache ().getHitCount ());
+
+    // Invalidated via callback
+    aCont.putIn ("a", "1382");
+    assertEquals (0, aCont.getConvertedValueCache ().getCachedKeyCount ());
+    assertEquals (1382, aCont.getAsInt ("a"));
+
+    // Changed without callback
+    aCont.put ("a", "1383");
+    assertEquals (1383, aCont.getAsInt ("a"));
+    aCont.remove ("a");
+    assertEquals (CGlobal.ILLEGAL_UINT, aCont.getAsInt ("a"));
+
+    // Conversion errors
+    aCont.putIn ("c", "abc");
+    assertEquals (-1, aCont.getAsInt ("c", -1));
+    assertEquals (-1, aCont.getAsInt ("c", -1));
+    try
+    {
+      aCont.getAsByte ("c");
+      fail ();
+    }
+    catch (final TypeConverterException ex)
+    {
+      // expected
+    }
+
+    assertTrue (aCont.disableConvertedValueCache ().isChanged ());
+    assertFalse (aCont.disableConvertedValueCache ().isChanged ());
+    assertTrue (aCont.afterSetValueCallbacks ().isEmpty ());
+    aCont.putIn ("a", "1");
+    assertEquals (1, aCont.getAsInt ("a"));
+
+    // Enabled after serialization
+    assertTrue (aCont.enableConvertedValueCache ().isChanged ());
+    final AttributeContainerAny <String> aCont2 = CommonsTestHelper.testDefaultSerialization (aCont);
+    assertFalse (aCont2.isConvertedValueCacheEnabled ());
+    assertTrue (aCont2.enableConvertedValueCache ().isChanged ());
+    assertEquals (1, aCont2.afterSetValueCallbacks ().size ());
+    assertEquals (1, aCont2.getAsInt ("a"));
+    aCont2.putIn ("a", "2");
+    assertEquals (2, aCont2.getAsInt ("a"));
+
+    // Same behaviour for the concurrent version
+    final AttributeContainerAnyConcurrent <String> aCont3 = new AttributeContainerAnyConcurrent <> ();
+    assertTrue (aCont3.enableConvertedValueCache ().isChanged ());
+    aCont3.putIn ("a", "3");
+    assertEquals (3, aCont3.getAsInt ("a"));
+    aCont3.putIn ("a", "4");
+    assertEquals (0, aCont3.getConvertedValueCache ().getCachedKeyCount ());
+    assertEquals (4, aCont3.getAsInt ("a"));
+    assertTrue (aCont3.disableConvertedValueCache ().isChanged ());
+    assertTrue (aCont3.afterSetValueCallbacks ().isEmpty ());
+  }
 }
@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.stream.NonBlockingStringReader;
+
+/**
+ * Test class for class {@link CSVParallelReader}.
+ *
+ * @author Philip Helger
+ */
+public final class CSVParallelReaderTest
+{
+  @Nonnull
+  private static ICommonsList <ICommonsList <String>> _readOld (@Nonnull final String sCSV,
+                                                               @Nonnull final CSVParser aParser,
+                                                               final int nSkipLines) throws IOException
+  {
+    try (final CSVReader aReader = new CSVReader (new NonBlockingStringReader (sCSV), aParser, false))
+    {
+      aReader.setSkipLines (nSkipLines);
+      return aReader.readAll ();
+    }
+  }
+
+  @Nonnull
+  private static ICommonsList <ICommonsList <String>> _readStream (@Nonnull final CSVParallelReader aReader,
+                                                                  final boolean bParallel) throws IOException
+  {
+    // Closing the stream closes the file
+    try (final Stream <ICommonsList <String>> aStream = aReader.stream (bParallel))
+    {
+      return aStream.collect (Collectors.toCollection (CommonsArrayList::new));
+    }
+  }
+
+  @Nonnull
+  private static File _createFile (@Nonnull final String sCSV, @Nonnull final Charset aCharset) throws IOException
+  {
+    final File aFile = File.createTempFile ("csvParallelReaderTest", ".csv");
+    aFile.deleteOnExit ();
+    Files.write (aFile.toPath (), sCSV.getBytes (aCharset));
+    return aFile;
+  }
+
+  @Test
+  public void testBasic () throws IOException
+  {
+    final String sCSV = "h1,h2\r\n" +
+                        "a,\"b,b,b\",c\r\n" +
+                        ",,\n" +
+                        "a,\"PO Box 123,\nKippax,ACT. 2615.\r\nAustralia\",d.\n" +
+                        "\"Glen \"\"The Man\"\" Smith\",Athlete,Developer\r" +
+                        "äöü,\"x\n\ny\",€\n";
+    final File aFile = _createFile (sCSV, StandardCharsets.UTF_8);
+    final ICommonsList <ICommonsList <String>> aExpected = _readOld (sCSV, new CSVParser (), 1);
+    assertEquals (5, aExpected.size ());
+
+    for (int nChunkSize = 1; nChunkSize < 30; ++nChunkSize)
+    {
+      final CSVParallelReader aReader = new CSVParallelReader (aFile, StandardCharsets.UTF_8).setSkipLines (1)
+                                                                                              .setChunkSize (nChunkSize)
+                                                                                              .setThreadCount (3);
+
+      final ICommonsList <ICommonsList <String>> aOrdered = new CommonsArrayList <> ();
+      aReader.readAllOrdered (aOrdered::add);
+      assertEquals (aExpected, aOrdered);
+
+      assertEquals (aExpected, _readStream (aReader, false));
+      assertEquals (aExpected, _readStream (aReader, true));
+
+      final AtomicInteger aCount = new AtomicInteger ();
+      aReader.readAllUnordered (x -> {
+        assertTrue (aExpected.contains (x.getAllFieldsAsList ()));
+        aCount.incrementAndGet ();
+      });
+      assertEquals (aExpected.size (), aCount.get ());
+    }
+  }
+
+  @Test
+  public void testQuotedLineBreaks () throws IOException
+  {
+    // Many segments start inside quoted fields
+    final Random aRandom = new Random (4711);
+    final String [] aFields = { "abc", "\"x\ny\"", "\"\n\n\"", "\"a\"\"\nb\"", "a\"\nb\"", "\"\r\n\"", "" };
+    final StringBuilder aSB = new StringBuilder ();
+    for (int i = 0; i < 2000; ++i)
+    {
+      final int nFields = 1 + aRandom.nextInt (4);
+      for (int j = 0; j < nFields; ++j)
+      {
+        if (j > 0)
+          aSB.append (',');
+        aSB.append (aFields[aRandom.nextInt (aFields.length)]);
+      }
+      aSB.append (aRandom.nextBoolean () ? "\n" : "\r\n");
+    }
+    final String sCSV = aSB.toString ();
+    final File aFile = _createFile (sCSV, StandardCharsets.UTF_8);
+    final ICommonsList <ICommonsList <String>> aExpected = _readOld (sCSV, new CSVParser (), 0);
+
+    for (final int nChunkSize : new int [] { 1, 7, 100, 5000 })
+    {
+      final CSVParallelReader aReader = new CSVParallelReader (aFile, StandardCharsets.UTF_8).setChunkSize (nChunkSize)
+                                                                                              .setThreadCount (4);
+      final ICommonsList <ICommonsList <String>> aOrdered = new CommonsArrayList <> ();
+      aReader.readAllOrdered (aOrdered::add);
+      assertEquals (aExpected, aOrdered);
+    }
+  }
+
+  @Test
+  public void testMaxChunkSize () throws IOException
+  {
+    final StringBuilder aSB = new StringBuilder ("a,b\n\"");
+    for (int i = 0; i < 100; ++i)
+      aSB.append ("unterminated\n");
+    final File aFile = _createFile (aSB.toString (), StandardCharsets.ISO_8859_1);
+    final CSVParallelReader aReader = new CSVParallelReader (aFile, StandardCharsets.ISO_8859_1).setChunkSize (10)
+                                                                                                 .setMaxChunkSize (1000)
+                                                                                                 .setThreadCount (2);
+    try
+    {
+      aReader.readAllOrdered (x -> {});
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      // expected
+    }
+    try
+    {
+      _readStream (aReader, true);
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      // expected
+    }
+
+    // Large enough
+    aReader.setMaxChunkSize (2000);
+    assertEquals (2, _readStream (aReader, false).size ());
+  }
+
+  @Test
+  public void testEmpty () throws IOException
+  {
+    final File aFile = _createFile ("", StandardCharsets.ISO_8859_1);
+    final CSVParallelReader aReader = new CSVParallelReader (aFile, StandardCharsets.ISO_8859_1);
+    assertEquals (0, _readStream (aReader, true).size ());
+    aReader.readAllOrdered (x -> fail ());
+    aReader.readAllUnordered (x -> fail ());
+  }
+
+  @Test
+  public void testSupportedCharset ()
+  {
+    assertTrue (CSVParallelReader.isSupportedCharset (StandardCharsets.UTF_8));
+    assertTrue (CSVParallelReader.isSupportedCharset (StandardCharsets.US_ASCII));
+    assertTrue (CSVParallelReader.isSupportedCharset (StandardCharsets.ISO_8859_1));
+    assertTrue (CSVParallelReader.isSupportedCharset (Charset.forName ("ISO-8859-15")));
+    assertTrue (CSVParallelReader.isSupportedCharset (Charset.forName ("windows-1252")));
+    assertFalse (CSVParallelReader.isSupportedCharset (StandardCharsets.UTF_16));
+    assertFalse (CSVParallelReader.isSupportedCharset (null));
+  }
+
+  @Test
+  public void testRandomCompatibility () throws IOException
+  {
+    final Random aRandom = new Random (4711);
+    final char [] aChars = { 'a', 'b', ' ', '\t', ',', ';', '"', '\'', '\\', '\n', '\r', 'ä' };
+    for (int nRun = 0; nRun < 300; ++nRun)
+    {
+      final CSVParser aParser = new CSVParser ();
+      switch (aRandom.nextInt (3))
+      {
+        case 1:
+          aParser.setSeparatorChar (';');
+          break;
+        case 2:
+          aParser.setSeparatorChar (';').setQuoteChar ('\'');
+          break;
+        default:
+          break;
+      }
+      if (aRandom.nextInt (4) == 0)
+        aParser.setEscapeChar (CCSV.NULL_CHARACTER);
+      aParser.setStrictQuotes (aRandom.nextInt (4) == 0);
+      aParser.setIgnoreLeadingWhiteSpace (aRandom.nextBoolean ());
+      aParser.setIgnoreQuotations (aRandom.nextInt (5) == 0);
+      final int nSkipLines = aRandom.nextInt (5) == 0 ? 1 : 0;
+
+      final int nLen = aRandom.nextInt (80);
+      final StringBuilder aSB = new StringBuilder (nLen);
+      for (int i = 0; i < nLen; ++i)
+        aSB.append (aChars[aRandom.nextInt (aChars.length)]);
+      final String sCSV = aSB.toString ();
+      final File aFile = _createFile (sCSV, StandardCharsets.UTF_8);
+
+      final ICommonsList <ICommonsList <String>> aExpected = _readOld (sCSV, aParser, nSkipLines);
+      final CSVParallelReader aReader = new CSVParallelReader (aFile, StandardCharsets.UTF_8).setParser (aParser)
+                                                                                              .setSkipLines (nSkipLines)
+                                                                                              .setChunkSize (1 +
+                                                                                                             aRandom.nextInt (10))
+                                                                                              .setThreadCount (2);
+      final ICommonsList <ICommonsList <String>> aOrdered = new CommonsArrayList <> ();
+      aReader.readAllOrdered (aOrdered::add);
+      assertEquals (sCSV, aExpected, aOrdered);
+      assertEquals (sCSV, aExpected, _readStream (aReader, true));
+      Files.delete (aFile.toPath ());
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.stream.NonBlockingStringReader;
+
+/**
+ * Test class for class {@link CSVRecordReader}.
+ *
+ * @author Philip Helger
+ */
+public final class CSVRecordReaderTest
+{
+  @Nonnull
+  private static ICommonsList <ICommonsList <String>> _readOld (@Nonnull final String sCSV,
+                                                               @Nonnull final CSVParser aParser) throws IOException
+  {
+    try (final CSVReader aReader = new CSVReader (new NonBlockingStringReader (sCSV), aParser, false))
+    {
+      return aReader.readAll ();
+    }
+  }
+
+  @Nonnull
+  private static ICommonsList <ICommonsList <String>> _readNew (@Nonnull final String sCSV,
+                                                               @Nonnull final CSVParser aParser,
+                                                               final int nBufferSize) throws IOException
+  {
+    final ICommonsList <ICommonsList <String>> ret = new CommonsArrayList <> ();
+    try (final CSVRecordReader aReader = new CSVRecordReader (new NonBlockingStringReader (sCSV), aParser, nBufferSize))
+    {
+      aReader.readAll (x -> ret.add (x.getAllFieldsAsList ()));
+    }
+    return ret;
+  }
+
+  @Test
+  public void testBasic () throws IOException
+  {
+    final String sCSV = "a,b,aReader\n" +
+                        "a,\"b,b,b\",aReader\n" +
+                        ",,\n" +
+                        "a,\"PO Box 123,\nKippax,ACT. 2615.\nAustralia\",d.\n" +
+                        "\"Glen \"\"The Man\"\" Smith\",Athlete,Developer\n" +
+                        "\"\"\"\"\"\",\"test\"\n" +
+                        "\"a\nb\",b,\"\nd\",e\n";
+    try (final CSVRecordReader aReader = new CSVRecordReader (new NonBlockingStringReader (sCSV)))
+    {
+      assertTrue (aReader.readNextRecord ());
+      final CSVRecordView aRecord = aReader.getCurrentRecord ();
+      assertEquals (3, aRecord.getFieldCount ());
+      assertEquals ("a", aRecord.getFieldAsString (0));
+      assertTrue (aRecord.isFieldEqual (2, "aReader"));
+      assertFalse (aRecord.isFieldEqual (2, "aReade"));
+      final CharSequence aField = aRecord.getField (2);
+      assertEquals (7, aField.length ());
+      assertEquals ('R', aField.charAt (1));
+      assertEquals ("Read", aField.subSequence (1, 5));
+      assertEquals ("aReader", aField.toString ());
+      assertEquals ("xaReader", aRecord.appendField (2, new StringBuilder ("x")).toString ());
+
+      assertEquals (new CommonsArrayList <> ("a", "b,b,b", "aReader"), aReader.readNext ());
+      assertEquals (new CommonsArrayList <> ("", "", ""), aReader.readNext ());
+      assertEquals (new CommonsArrayList <> ("a", "PO Box 123,\nKippax,ACT. 2615.\nAustralia", "d."),
+                    aReader.readNext ());
+      assertEquals ("Glen \"The Man\" Smith", aReader.readNext ().get (0));
+      assertEquals (new CommonsArrayList <> ("\"\"", "test"), aReader.readNext ());
+      assertEquals (new CommonsArrayList <> ("a\nb", "b", "\nd", "e"), aReader.readNext ());
+      assertNull (aReader.readNext ());
+      assertFalse (aReader.readNextRecord ());
+    }
+
+    // Same as old reader
+    for (final int nBufferSize : new int [] { 1, 2, 3, 7, 1024 })
+      assertEquals (_readOld (sCSV, new CSVParser ()), _readNew (sCSV, new CSVParser (), nBufferSize));
+  }
+
+  @Test
+  public void testSkipLines () throws IOException
+  {
+    final String sCSV = "header1\r\nheader2\rx,y\r\n\r\nz";
+    try (final CSVRecordReader aReader = new CSVRecordReader (new NonBlockingStringReader (sCSV)).setSkipLines (2))
+    {
+      assertEquals (new CommonsArrayList <> ("x", "y"), aReader.readNext ());
+      assertEquals (new CommonsArrayList <> (""), aReader.readNext ());
+      assertEquals (new CommonsArrayList <> ("z"), aReader.readNext ());
+      assertNull (aReader.readNext ());
+    }
+  }
+
+  @Test
+  public void testRandomCompatibility () throws IOException
+  {
+    final Random aRandom = new Random (4711);
+    final char [] aChars = { 'a', 'b', ' ', '\t', ',', ';', '"', '\'', '\\', '\n', '\r' };
+    for (int nRun = 0; nRun < 3000; ++nRun)
+    {
+      final CSVParser aParser = new CSVParser ();
+      switch (aRandom.nextInt (3))
+      {
+        case 1:
+          aParser.setSeparatorChar (';');
+          break;
+        case 2:
+          aParser.setSeparatorChar (';').setQuoteChar ('\'');
+          break;
+        default:
+          break;
+      }
+      if (aRandom.nextInt (4) == 0)
+        aParser.setEscapeChar (CCSV.NULL_CHARACTER);
+      aParser.setStrictQuotes (aRandom.nextInt (4) == 0);
+      aParser.setIgnoreLeadingWhiteSpace (aRandom.nextBoolean ());
+      aParser.setIgnoreQuotations (aRandom.nextInt (5) == 0);
+
+      final int nLen = aRandom.nextInt (60);
+      final StringBuilder aSB = new StringBuilder (nLen);
+      for (int i = 0; i < nLen; ++i)
+        aSB.append (aChars[aRandom.nextInt (aChars.length)]);
+      final String sCSV = aSB.toString ();
+
+      final ICommonsList <ICommonsList <String>> aExpected = _readOld (sCSV, aParser);
+      assertEquals (sCSV, aExpected, _readNew (sCSV, aParser, 1 + aRandom.nextInt (8)));
+      assertEquals (sCSV, aExpected, _readNew (sCSV, aParser, 1024));
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.csv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.io.stream.NonBlockingStringWriter;
+import com.helger.commons.string.StringHelper;
+
+/**
+ * Test class for class {@link CSVRecordWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class CSVRecordWriterTest
+{
+  @Nonnull
+  private static String _writeOld (@Nonnull final ICommonsList <ICommonsList <String>> aRecords,
+                                   final char cSeparator,
+                                   final char cQuote,
+                                   final char cEscape,
+                                   final boolean bQuoteAll,
+                                   final boolean bAvoidFinalLineEnd) throws IOException
+  {
+    final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+    try (final CSVWriter aWriter = new CSVWriter (aSW))
+    {
+      aWriter.setSeparatorChar (cSeparator)
+             .setQuoteChar (cQuote)
+             .setEscapeChar (cEscape)
+             .setApplyQuotesToAll (bQuoteAll)
+             .setAvoidFinalLineEnd (bAvoidFinalLineEnd)
+             .setLineEnd ("\r\n");
+      aWriter.writeAll (aRecords);
+    }
+    return aSW.getAsString ();
+  }
+
+  private static void _writeNew (@Nonnull final CSVRecordWriter aWriter,
+                                 @Nonnull final ICommonsList <ICommonsList <String>> aRecords,
+                                 final char cSeparator,
+                                 final char cQuote,
+                                 final char cEscape,
+                                 final boolean bQuoteAll,
+                                 final boolean bAvoidFinalLineEnd) throws IOException
+  {
+    aWriter.setSeparatorChar (cSeparator)
+           .setQuoteChar (cQuote)
+           .setEscapeChar (cEscape)
+           .setApplyQuotesToAll (bQuoteAll)
+           .setAvoidFinalLineEnd (bAvoidFinalLineEnd)
+           .setLineEnd ("\r\n");
+    for (final ICommonsList <String> aRecord : aRecords)
+      aWriter.writeRecord (aRecord);
+    aWriter.close ();
+  }
+
+  @Test
+  public void testBasic () throws IOException
+  {
+    final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+    try (final CSVRecordWriter aWriter = new CSVRecordWriter (aSW).setApplyQuotesToAll (false))
+    {
+      aWriter.addField ("a").addField ("b,c").addField ("d\"e").addField ((String) null).endRecord ();
+      aWriter.addField (4711).addField (-17L).addField (Long.MIN_VALUE).addField (Long.MAX_VALUE).endRecord ();
+      aWriter.addField (1.0).addField (-0.0).addField (0.5).addField (1e7).addField (Double.NaN).endRecord ();
+      aWriter.addField (3.14159, 2).addField (-0.001, 2).addField (0.125, 2).addField (1234.5, 0).endRecord ();
+      aWriter.endRecord ();
+    }
+    assertEquals ("a,\"b,c\",\"d\\\"e\",\n" +
+                  "4711,-17,-9223372036854775808,9223372036854775807\n" +
+                  "1.0,-0.0,0.5,1.0E7,NaN\n" +
+                  "3.14,0.00,0.13,1235\n" +
+                  "\n",
+                  aSW.getAsString ());
+
+    // Numbers containing the separator must be quoted
+    final NonBlockingStringWriter aSW2 = new NonBlockingStringWriter ();
+    try (final CSVRecordWriter aWriter = new CSVRecordWriter (aSW2).setApplyQuotesToAll (false).setSeparatorChar ('.'))
+    {
+      aWriter.addField (1).addField (1.5).addField (2.25, 1).endRecord ();
+    }
+    assertEquals ("1.\"1.5\".\"2.3\"\n", aSW2.getAsString ());
+  }
+
+  @Test
+  public void testNumbers () throws IOException
+  {
+    final Random aRandom = new Random (4711);
+    final long [] aLongs = { 0, 1, -1, 9, 10, 99, 100, Long.MAX_VALUE, Long.MIN_VALUE, Integer.MIN_VALUE };
+    final double [] aDoubles = { 0, -0.0, 1, -1, 9_999_999, -9_999_999, 1e7, 0.1, 1.0 / 3, 1e300, Double.MIN_VALUE };
+    final ICommonsList <String> aExpectedLongs = new CommonsArrayList <> ();
+    final ICommonsList <String> aExpectedDoubles = new CommonsArrayList <> ();
+    final ICommonsList <String> aExpectedFixed = new CommonsArrayList <> ();
+    final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+    try (final CSVRecordWriter aWriter = new CSVRecordWriter (aSW, 7).setApplyQuotesToAll (false))
+    {
+      for (final long n : aLongs)
+      {
+        aWriter.addField (n);
+        aExpectedLongs.add (Long.toString (n));
+      }
+      for (int i = 0; i < 1000; ++i)
+      {
+        final long n = aRandom.nextLong () >> aRandom.nextInt (64);
+        aWriter.addField (n);
+        aExpectedLongs.add (Long.toString (n));
+      }
+      aWriter.endRecord ();
+
+      for (final double d : aDoubles)
+      {
+        aWriter.addField (d);
+        aExpectedDoubles.add (Double.toString (d));
+      }
+      for (int i = 0; i < 1000; ++i)
+      {
+        final double d = i % 2 == 0 ? aRandom.nextInt (20_000_000) - 10_000_000 : aRandom.nextGaussian () * 1000;
+        aWriter.addField (d);
+        aExpectedDoubles.add (Double.toString (d));
+      }
+      aWriter.endRecord ();
+
+      for (int i = 0; i < 1000; ++i)
+      {
+        // Use values that are exactly representable when scaled
+        final int nDigits = aRandom.nextInt (4);
+        final double d = (aRandom.nextInt (2_000_000) - 1_000_000) / 8.0;
+        aWriter.addField (d, nDigits);
+        aExpectedFixed.add (BigDecimal.valueOf (d).setScale (nDigits, RoundingMode.HALF_UP).toPlainString ());
+      }
+      aWriter.endRecord ();
+    }
+    assertEquals (StringHelper.getImploded (',', aExpectedLongs) +
+                  "\n" +
+                  StringHelper.getImploded (',', aExpectedDoubles) +
+                  "\n" +
+                  StringHelper.getImploded (',', aExpectedFixed) +
+                  "\n",
+                  aSW.getAsString ());
+  }
+
+  @Test
+  public void testFractionDigitsRounding () throws IOException
+  {
+    final Random aRandom = new Random (4711);
+    final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+    final ICommonsList <String> aExpected = new CommonsArrayList <> ();
+    try (final CSVRecordWriter aWriter = new CSVRecordWriter (aSW).setApplyQuotesToAll (false))
+    {
+      // The binary values are all slightly below the tie
+      aWriter.addField (1.005, 2).addField (-1.005, 2).addField (2.675, 2).addField (0.285, 2).addField (1.0005, 3);
+      aWriter.addField (8.345, 2).addField (1.15, 1).addField (2.5, 0).addField (0.005, 2).addField (1.004999, 2).endRecord ();
+
+      for (int i = 0; i < 10_000; ++i)
+      {
+        // Decimal values with one digit more than rendered
+        final int nDigits = aRandom.nextInt (5);
+        final double d = (aRandom.nextInt (200_000_000) - 100_000_000) / Math.pow (10, nDigits + 1);
+        aWriter.addField (d, nDigits);
+        aExpected.add (BigDecimal.valueOf (d).setScale (nDigits, RoundingMode.HALF_UP).toPlainString ());
+      }
+      aWriter.endRecord ();
+    }
+    assertEquals ("1.01,-1.01,2.68,0.29,1.001,8.35,1.2,3,0.01,1.00\n" + StringHelper.getImploded (',', aExpected) + "\n",
+                  aSW.getAsString ());
+  }
+
+  @Test
+  public void testRandomCompatibility () throws IOException
+  {
+    final Random aRandom = new Random (4711);
+    final char [] aChars = { 'a', 'b', ' ', ',', ';', '"', '\'', '\\', '\n', '\r', 'ä', '€', '\ud83d', '\ude00' };
+    for (int nRun = 0; nRun < 2000; ++nRun)
+    {
+      final char cSeparator = aRandom.nextBoolean () ? ',' : ';';
+      final char cQuote = aRandom.nextInt (5) == 0 ? CSVWriter.NO_QUOTE_CHARACTER
+                                                   : aRandom.nextBoolean () ? '"' : '\'';
+      final char cEscape = aRandom.nextInt (5) == 0 ? CSVWriter.NO_ESCAPE_CHARACTER : aRandom.nextBoolean () ? '"' : '\\';
+      final boolean bQuoteAll = aRandom.nextBoolean ();
+      final boolean bAvoidFinalLineEnd = aRandom.nextBoolean ();
+
+      final ICommonsList <ICommonsList <String>> aRecords = new CommonsArrayList <> ();
+      final int nRecords = aRandom.nextInt (5);
+      for (int i = 0; i < nRecords; ++i)
+      {
+        final ICommonsList <String> aRecord = new CommonsArrayList <> ();
+        final int nFields = aRandom.nextInt (4);
+        for (int j = 0; j < nFields; ++j)
+        {
+          if (aRandom.nextInt (10) == 0)
+            aRecord.add (null);
+          else
+          {
+            final int nLen = aRandom.nextInt (12);
+            final StringBuilder aSB = new StringBuilder (nLen);
+            for (int k = 0; k < nLen; ++k)
+              aSB.append (aChars[aRandom.nextInt (aChars.length)]);
+            aRecord.add (aSB.toString ());
+          }
+        }
+        aRecords.add (aRecord);
+      }
+
+      final String sExpected = _writeOld (aRecords, cSeparator, cQuote, cEscape, bQuoteAll, bAvoidFinalLineEnd);
+      final int nBufferSize = 2 + aRandom.nextInt (10);
+
+      final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+      _writeNew (new CSVRecordWriter (aSW, nBufferSize),
+                 aRecords,
+                 cSeparator,
+                 cQuote,
+                 cEscape,
+                 bQuoteAll,
+                 bAvoidFinalLineEnd);
+      assertEquals (sExpected, aSW.getAsString ());
+
+      final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+      _writeNew (new CSVRecordWriter (aBAOS, nBufferSize),
+                 aRecords,
+                 cSeparator,
+                 cQuote,
+                 cEscape,
+                 bQuoteAll,
+                 bAvoidFinalLineEnd);
+      assertArrayEquals (sExpected, sExpected.getBytes (StandardCharsets.UTF_8), aBAOS.toByteArray ());
+    }
+  }
+}
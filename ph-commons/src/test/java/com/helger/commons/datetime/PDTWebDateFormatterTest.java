@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.datetime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import com.helger.commons.io.stream.NonBlockingStringWriter;
+
+/**
+ * Test class for class {@link PDTWebDateFormatter}.
+ *
+ * @author Philip Helger
+ */
+public final class PDTWebDateFormatterTest
+{
+  private static final DateTimeFormatter RFC822 = PDTFormatter.getForPattern ("EEE, dd MMM uuuu HH:mm:ss 'GMT'",
+                                                                              Locale.US);
+  private static final DateTimeFormatter W3C = PDTFormatter.getForPattern ("uuuu-MM-dd'T'HH:mm:ssXXX", Locale.US);
+
+  private static final ZonedDateTime [] VALUES = { ZonedDateTime.of (2011, 7, 6, 12, 34, 56, 789_123_456, ZoneOffset.UTC),
+                                                   ZonedDateTime.of (2016, 1, 3, 23, 15, 42, 0, ZoneOffset.ofHours (1)),
+                                                   ZonedDateTime.of (2000, 2, 29, 0, 0, 0, 1, ZoneOffset.ofHoursMinutes (-5, -30)),
+                                                   ZonedDateTime.of (1970, 12, 31, 9, 8, 7, 0, ZoneOffset.ofTotalSeconds (3600 + 125)),
+                                                   ZonedDateTime.of (2020, 6, 1, 1, 2, 3, 4_000_000, ZoneId.of ("Europe/Vienna")),
+                                                   ZonedDateTime.of (2020, 6, 1, 1, 2, 3, 4_000_000, ZoneId.of ("UTC")),
+                                                   ZonedDateTime.of (33, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                                                   ZonedDateTime.of (0, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                                                   ZonedDateTime.of (-12, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                                                   ZonedDateTime.of (12345, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                                                   ZonedDateTime.of (-123456789, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                                                   PDTFactory.getCurrentZonedDateTime () };
+
+  @Test
+  public void testSameAsDateTimeFormatter () throws IOException
+  {
+    for (final ZonedDateTime aDT : VALUES)
+    {
+      final String sRFC822 = RFC822.format (aDT);
+      assertEquals (sRFC822, PDTWebDateFormatter.getAsStringRFC822 (aDT));
+      assertEquals ("x" + sRFC822, PDTWebDateFormatter.appendRFC822 (aDT, new StringBuilder ("x")).toString ());
+
+      final String sW3C = W3C.format (aDT);
+      assertEquals (sW3C, PDTWebDateFormatter.getAsStringW3C (aDT));
+      final NonBlockingStringWriter aSW = new NonBlockingStringWriter ();
+      PDTWebDateFormatter.appendW3C (aDT, aSW);
+      assertEquals (sW3C, aSW.toString ());
+
+      final String sXSD = PDTWebDateHelper.XSD_DATE_TIME.withZone (aDT.getZone ()).format (aDT);
+      assertEquals (sXSD, PDTWebDateFormatter.getAsStringXSD (aDT));
+      assertEquals (sXSD, PDTWebDateFormatter.appendXSD (aDT, new StringBuilder ()).toString ());
+
+      final LocalDateTime aLDT = aDT.toLocalDateTime ();
+      assertEquals (PDTWebDateHelper.XSD_DATE_TIME.withZone (ZoneOffset.UTC).format (aLDT),
+                    PDTWebDateFormatter.getAsStringXSD (aLDT));
+      final LocalDate aLD = aDT.toLocalDate ();
+      assertEquals (DateTimeFormatter.ISO_DATE.withZone (ZoneOffset.UTC).format (aLD), PDTWebDateFormatter.getAsStringXSD (aLD));
+    }
+  }
+
+  @Test
+  public void testXSDOtherZone ()
+  {
+    final ZoneId aVienna = ZoneId.of ("Europe/Vienna");
+    for (final ZonedDateTime aDT : VALUES)
+      for (final ZoneId aZoneID : new ZoneId [] { ZoneOffset.UTC, aVienna, ZoneOffset.ofHours (2) })
+        assertEquals (PDTWebDateHelper.XSD_DATE_TIME.withZone (aZoneID).format (aDT),
+                      PDTWebDateHelper.getAsStringXSD (aZoneID, aDT));
+  }
+
+  @Test
+  public void testWriteBytes ()
+  {
+    final ZonedDateTime aDT = VALUES[0];
+    final byte [] aBuf = new byte [2 + PDTWebDateFormatter.MAX_LENGTH_RFC822];
+    final int nEnd = PDTWebDateFormatter.writeRFC822 (aDT, aBuf, 2);
+    assertEquals ("Wed, 06 Jul 2011 12:34:56 GMT", new String (aBuf, 2, nEnd - 2, StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testCurrent ()
+  {
+    final String sRFC822 = PDTWebDateFormatter.getCurrentDateTimeAsStringRFC822 ();
+    assertNotNull (PDTWebDateHelper.getDateTimeFromRFC822 (sRFC822));
+    final byte [] aBuf = new byte [PDTWebDateFormatter.MAX_LENGTH_RFC822];
+    final int nLen = PDTWebDateFormatter.writeCurrentDateTimeRFC822 (aBuf, 0);
+    assertEquals (sRFC822.length (), nLen);
+
+    final String sW3C = PDTWebDateFormatter.getCurrentDateTimeAsStringW3C ();
+    assertNotNull (PDTWebDateHelper.getDateTimeFromW3C (sW3C));
+  }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.datetime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link PDTWebDateParser}.
+ *
+ * @author Philip Helger
+ */
+public final class PDTWebDateParserTest
+{
+  private static final String [] W3C = { "1997",
+                                         "1997-07",
+                                         "1997-07-16",
+                                         "1997-07-16T19:20",
+                                         "1997-07-16t19:20",
+                                         "1997-07-16T19:20Z",
+                                         "1997-07-16T19:20+01:00",
+                                         "1997-07-16T19:20-0130",
+                                         "1997-07-16T19:20:30",
+                                         "1997-07-16T19:20:30Z",
+                                         "1997-07-16T19:20:30.145",
+                                         "1997-07-16T19:20:30.145Z",
+                                         "1997-07-16T19:20:30.145+0100",
+                                         "1997-07-16T19:20:30.145+01:00",
+                                         "1997-07-16T19:20:30+01:00",
+                                         "  1994-11-05T08:15:30-05:00 ",
+                                         "2000-02-29T00:00:00Z",
+                                         "2020-12-31T23:59:59+18:00",
+                                         // Invalid
+                                         "",
+                                         "abc",
+                                         "199",
+                                         "19970",
+                                         "1997-7",
+                                         "1997-00",
+                                         "1997-13",
+                                         "1997-07-32",
+                                         "1997-02-29",
+                                         "1997-07-16 19:20",
+                                         "1997-07-16T24:00",
+                                         "1997-07-16T19:60",
+                                         "1997-07-16T19:20:60Z",
+                                         "1997-07-16T19:20:30.145z",
+                                         "1997-07-16T19:20+19:00",
+                                         "1997-07-16T19:20+01",
+                                         "1997-07-16T19:20Zx",
+                                         "1997-07T19:20",
+                                         "1997T19:20" };
+
+  private static final String [] RFC822 = { "Sun, 03 Jan 2016 23:15:42",
+                                            "Sun, 03 Jan 2016 23:15",
+                                            "Sun, 03 Jan 16 23:15:42",
+                                            "Sun, 03 Jan 16 23:15",
+                                            "03 Jan 2016 23:15:42",
+                                            "03 Jan 2016 23:15",
+                                            "03 Jan 16 23:15:42",
+                                            "03 Jan 16 23:15",
+                                            "Sun, 03 Jan 2016 23:15:42 Z",
+                                            "Sun, 03 Jan 2016 23:15:42 UT",
+                                            "Sun, 03 Jan 2016 23:15:42 UTC",
+                                            "Sun, 03 Jan 2016 23:15:42 GMT",
+                                            "Sun, 03 Jan 2016 23:15:42GMT",
+                                            "Sun, 03 Jan 2016 23:15:42 EST",
+                                            "Sun, 03 Jan 2016 23:15:42 PDT",
+                                            "Sun, 03 Jan 2016 23:15:42 A",
+                                            "Sun, 03 Jan 2016 23:15:42 +0100",
+                                            "Sun, 03 Jan 2016 23:15:42 +0000",
+                                            "Sun, 03 Jan 2016 23:15:42 -0130",
+                                            " Tue, 29 Feb 2000 01:02:03 GMT  ",
+                                            // Invalid
+                                            "",
+                                            "abc",
+                                            "GMT",
+                                            "Mon, 03 Jan 2016 23:15:42",
+                                            "sun, 03 Jan 2016 23:15:42",
+                                            "Sun, 03 jan 2016 23:15:42",
+                                            "Sun, 3 Jan 2016 23:15:42",
+                                            "Sun 03 Jan 2016 23:15:42",
+                                            "Sun, 03 Jan 016 23:15:42",
+                                            "Sun, 03 Jan 20166 23:15:42",
+                                            "Sun, 03 Jan 2016 24:15:42",
+                                            "Sun, 03 Jan 2016 23:15:42  GMT",
+                                            "Sun, 03 Jan 2016 23:15:42 +01:00",
+                                            "Sun, 03 Jan 2016 23:15:42 XYZ",
+                                            "Mon, 29 Feb 2016 23:15",
+                                            "Sat, 29 Feb 2015 23:15" };
+
+  private static final String [] XSD_DATE_TIME = { "2011-07-06T12:34",
+                                                   "2011-07-06t12:34",
+                                                   "2011-07-06T12:34:56",
+                                                   "2011-07-06T12:34:56.789",
+                                                   "2011-07-06T12:34:56.789Z",
+                                                   "2011-07-06T12:34:56.789z",
+                                                   "2011-07-06T12:34:56.789+02:00[Europe/Vienna]",
+                                                   "+12011-07-06T12:34:56.789",
+                                                   // Invalid
+                                                   "",
+                                                   " 2011-07-06T12:34",
+                                                   "2011-07-06",
+                                                   "2011-07-06T12",
+                                                   "2011-07-06T12:34Z",
+                                                   "2011-07-06T12:34:56Z",
+                                                   "2011-07-06T12:34:56.7",
+                                                   "2011-07-06T12:34:56.7891",
+                                                   "2011-07-06T12:34:56.789+0200",
+                                                   "2011-07-06T12:34:56.789+02",
+                                                   "2011-13-06T12:34",
+                                                   "2011-02-29T12:34",
+                                                   "2011-07-06T12:34:56.789+02:00[Foo/Bar]" };
+
+  private static final String [] XSD_DATE = { "2011-07-06",
+                                              "2011-07-06Z",
+                                              "2011-07-06+02:00",
+                                              "+12011-07-06",
+                                              // Invalid
+                                              "",
+                                              "2011-07",
+                                              "2011-07-06T",
+                                              "2011-07-32",
+                                              "2011-07-06+2" };
+
+  @Test
+  public void testW3CSameAsMasks ()
+  {
+    for (final String s : W3C)
+      assertEquals (s, PDTWebDateHelper.getDateTimeFromW3CUsingMasks (s), PDTWebDateParser.parseW3C (s));
+  }
+
+  @Test
+  public void testW3CExtensions ()
+  {
+    // 1-9 fractional digits are allowed
+    assertEquals (OffsetDateTime.of (1997, 7, 16, 19, 20, 30, 100_000_000, ZoneOffset.UTC),
+                  PDTWebDateParser.parseW3C ("1997-07-16T19:20:30.1Z"));
+    assertEquals (OffsetDateTime.of (1997, 7, 16, 19, 20, 30, 123_456_789, ZoneOffset.ofHours (1)),
+                  PDTWebDateParser.parseW3C ("1997-07-16T19:20:30.123456789+01:00"));
+    assertNull (PDTWebDateParser.parseW3C ("1997-07-16T19:20:30.1234567891Z"));
+    assertNull (PDTWebDateParser.parseW3C ("1997-07-16T19:20:30.Z"));
+    assertNull (PDTWebDateParser.parseW3C (null));
+  }
+
+  @Test
+  public void testRFC822SameAsMasks ()
+  {
+    for (final String s : RFC822)
+      assertEquals (s, PDTWebDateHelper.getDateTimeFromRFC822UsingMasks (s), PDTWebDateParser.parseRFC822 (s));
+  }
+
+  @Test
+  public void testRFC822Extensions ()
+  {
+    // Offset without day of week
+    final ZonedDateTime aDT = PDTWebDateParser.parseRFC822 ("03 Jan 2016 23:15:42 +0100");
+    assertNotNull (aDT);
+    assertEquals (ZoneOffset.ofHours (1), aDT.getZone ());
+    assertNull (PDTWebDateParser.parseRFC822 (null));
+  }
+
+  @Test
+  public void testXSDSameAsFormatter ()
+  {
+    for (final String s : XSD_DATE_TIME)
+      assertEquals (s,
+                    PDTFromString.getZonedDateTimeFromString (s, PDTWebDateHelper.getXSDFormatterDateTime (ZoneOffset.UTC)),
+                    PDTWebDateParser.parseXSDDateTime (s, ZoneOffset.UTC));
+    final ZoneId aVienna = ZoneId.of ("Europe/Vienna");
+    assertEquals (ZonedDateTime.of (2011, 7, 6, 12, 34, 56, 789_000_000, aVienna),
+                  PDTWebDateParser.parseXSDDateTime ("2011-07-06T12:34:56.789", aVienna));
+
+    // The instant is kept, independent of the JDK version
+    assertEquals (ZonedDateTime.of (2011, 7, 6, 14, 34, 56, 789_000_000, aVienna),
+                  PDTWebDateParser.parseXSDDateTime ("2011-07-06T12:34:56.789Z", aVienna));
+    assertEquals (ZonedDateTime.of (2011, 7, 6, 10, 34, 56, 789_000_000, ZoneOffset.UTC),
+                  PDTWebDateParser.parseXSDDateTime ("2011-07-06T12:34:56.789+02:00", ZoneOffset.UTC));
+    assertEquals (ZonedDateTime.of (2011, 7, 6, 18, 5, 11, 789_000_000, ZoneOffset.UTC),
+                  PDTWebDateParser.parseXSDDateTime ("2011-07-06T12:34:56.789-05:30:15", ZoneOffset.UTC));
+    assertEquals (LocalDateTime.of (2011, 7, 6, 12, 34, 56, 789_000_000),
+                  PDTWebDateParser.parseXSDLocalDateTime ("2011-07-06T12:34:56.789+02:00"));
+
+    for (final String s : XSD_DATE_TIME)
+      assertEquals (s,
+                    PDTFromString.getLocalDateTimeFromString (s,
+                                                              PDTWebDateHelper.getXSDFormatterDateTime (ZoneOffset.UTC)),
+                    PDTWebDateParser.parseXSDLocalDateTime (s));
+
+    for (final String s : XSD_DATE)
+      assertEquals (s,
+                    PDTFromString.getLocalDateFromString (s, PDTWebDateHelper.getXSDFormatterDate ()),
+                    PDTWebDateParser.parseXSDDate (s));
+
+    assertNull (PDTWebDateParser.parseXSDDateTime (null, ZoneOffset.UTC));
+    assertNull (PDTWebDateParser.parseXSDLocalDateTime (null));
+    assertNull (PDTWebDateParser.parseXSDDate (null));
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.channel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+import com.helger.commons.io.file.FileOperations;
+import com.helger.commons.io.file.SimpleFileIO;
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+
+/**
+ * Test class for class {@link ChannelHelper}.
+ *
+ * @author Philip Helger
+ */
+public final class ChannelHelperTest
+{
+  @Test
+  public void testTransfer () throws IOException
+  {
+    final byte [] aInput = new byte [200_000];
+    ThreadLocalRandom.current ().nextBytes (aInput);
+
+    // Generic channels
+    NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+    assertEquals (aInput.length,
+                  ChannelHelper.transfer (Channels.newChannel (new NonBlockingByteArrayInputStream (aInput)),
+                                          Channels.newChannel (aBAOS)));
+    assertArrayEquals (aInput, aBAOS.toByteArray ());
+
+    final File aFile = new File ("channelhelper-test.bin");
+    try
+    {
+      // Generic to file
+      try (final FileChannel aFC = FileChannel.open (aFile.toPath (),
+                                                     StandardOpenOption.CREATE,
+                                                     StandardOpenOption.TRUNCATE_EXISTING,
+                                                     StandardOpenOption.WRITE))
+      {
+        aFC.write (ByteBuffer.wrap (new byte [] { 1, 2, 3 }));
+        assertEquals (aInput.length,
+                      ChannelHelper.transfer (Channels.newChannel (new NonBlockingByteArrayInputStream (aInput)), aFC));
+        // Position was updated
+        assertEquals (3 + aInput.length, aFC.position ());
+      }
+      final byte [] aRead = SimpleFileIO.getAllFileBytes (aFile);
+      assertEquals (3 + aInput.length, aRead.length);
+
+      // File to generic
+      try (final FileChannel aFC = FileChannel.open (aFile.toPath (), StandardOpenOption.READ))
+      {
+        aFC.position (3);
+        aBAOS = new NonBlockingByteArrayOutputStream ();
+        assertEquals (aInput.length, ChannelHelper.transfer (aFC, Channels.newChannel (aBAOS)));
+        assertEquals (3 + aInput.length, aFC.position ());
+        assertArrayEquals (aInput, aBAOS.toByteArray ());
+
+        // With limit
+        aFC.position (3);
+        aBAOS = new NonBlockingByteArrayOutputStream ();
+        assertEquals (10, ChannelHelper.transferFromFile (aFC, Channels.newChannel (aBAOS), 10));
+        assertEquals (13, aFC.position ());
+        assertEquals (10, aBAOS.size ());
+      }
+    }
+    finally
+    {
+      FileOperations.deleteFileIfExisting (aFile);
+    }
+  }
+}
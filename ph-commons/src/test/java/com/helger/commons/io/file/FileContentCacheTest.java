@@ -0,0 +1,259 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.helger.commons.io.resource.CachedFileSystemResource;
+import com.helger.commons.io.stream.ByteBufferInputStream;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.io.stream.WrappedInputStream;
+
+/**
+ * Test class for class {@link FileContentCache} and
+ * {@link CachedFileSystemResource}.
+ *
+ * @author Philip Helger
+ */
+public final class FileContentCacheTest
+{
+  @Test
+  public void testBasic () throws IOException
+  {
+    final FileContentCache aCache = new FileContentCache (100);
+    final File f1 = new File ("content-cache-test1.txt");
+    final File f2 = new File ("content-cache-test2.txt");
+    try
+    {
+      assertNull (aCache.getContent (f1));
+
+      SimpleFileIO.writeFile (f1, "Hello cached world", StandardCharsets.ISO_8859_1);
+      SimpleFileIO.writeFile (f2, new byte [60]);
+
+      final ByteBuffer aBB = aCache.getContent (f1);
+      assertNotNull (aBB);
+      assertTrue (aBB.isReadOnly ());
+      assertEquals (18, aBB.remaining ());
+      assertEquals ('H', aBB.get (0));
+      try
+      {
+        aBB.put (0, (byte) 'X');
+        fail ();
+      }
+      catch (final ReadOnlyBufferException ex)
+      {
+        // expected
+      }
+      assertEquals (1, aCache.getCachedFileCount ());
+      assertEquals (18, aCache.getCachedBytes ());
+
+      // Reused
+      assertEquals (18, aCache.getContent (f1).remaining ());
+      assertEquals (1, aCache.getCachedFileCount ());
+
+      // Both fit
+      assertEquals (60, aCache.getContent (f2).remaining ());
+      assertEquals (2, aCache.getCachedFileCount ());
+      assertEquals (78, aCache.getCachedBytes ());
+
+      assertTrue (aCache.remove (f2));
+      assertFalse (aCache.remove (f2));
+
+      // Replace the file - different size and modification time
+      assertTrue (f1.setLastModified (f1.lastModified () - 10_000));
+      assertEquals (18, aCache.getContent (f1).remaining ());
+      SimpleFileIO.writeFile (f1, "Changed", StandardCharsets.ISO_8859_1);
+      assertEquals (7, aCache.getContent (f1).remaining ());
+      assertEquals (1, aCache.getCachedFileCount ());
+      assertEquals (7, aCache.getCachedBytes ());
+
+      // Oldest entry is evicted
+      SimpleFileIO.writeFile (f2, new byte [95]);
+      assertEquals (95, aCache.getContent (f2).remaining ());
+      assertEquals (1, aCache.getCachedFileCount ());
+      assertEquals (95, aCache.getCachedBytes ());
+
+      // Too large
+      SimpleFileIO.writeFile (f2, new byte [101]);
+      assertNull (aCache.getContent (f2));
+      assertNull (aCache.getInputStream (f2));
+
+      aCache.clear ();
+      assertEquals (0, aCache.getCachedFileCount ());
+      assertEquals (0, aCache.getCachedBytes ());
+      assertNotNull (aCache.toString ());
+    }
+    finally
+    {
+      FileOperations.deleteFileIfExisting (f1);
+      FileOperations.deleteFileIfExisting (f2);
+    }
+  }
+
+  @Test
+  public void testMemoryMapped () throws IOException
+  {
+    final FileContentCache aCache = new FileContentCache (100, true);
+    assertTrue (aCache.isMemoryMapped ());
+    final File f1 = new File ("content-cache-test5.txt");
+    final File f2 = new File ("content-cache-test6.txt");
+    try
+    {
+      SimpleFileIO.writeFile (f1, new byte [60]);
+      SimpleFileIO.writeFile (f2, new byte [40]);
+
+      final ByteBuffer aBB = aCache.getContent (f1);
+      assertTrue (aBB instanceof MappedByteBuffer);
+      assertTrue (aBB.isReadOnly ());
+      assertEquals (60, aBB.remaining ());
+
+      try (final InputStream aIS = aCache.getInputStream (f1))
+      {
+        assertTrue (aIS instanceof WrappedInputStream);
+        assertTrue (((WrappedInputStream) aIS).getWrappedInputStream () instanceof ByteBufferInputStream);
+        assertEquals (1, aCache.getCachedFileCount ());
+
+        // Removing the mapping in use retires it
+        assertTrue (aCache.remove (f1));
+        assertEquals (0, aCache.getCachedBytes ());
+        assertEquals (60, aCache.getRetiredBytes ());
+        assertEquals (40, aCache.getContent (f2).remaining ());
+        assertEquals (1, aCache.getCachedFileCount ());
+
+        // Retired mappings count towards the maximum
+        SimpleFileIO.writeFile (f2, new byte [41]);
+        assertNull (aCache.getInputStream (f2));
+        assertEquals (0, aCache.getCachedFileCount ());
+
+        // The stream is still usable
+        assertEquals (60, StreamHelper.getAllBytes (aIS).length);
+      }
+      // Released on close
+      assertEquals (0, aCache.getRetiredBytes ());
+      assertNotNull (aCache.getInputStream (f2));
+      assertEquals (1, aCache.getCachedFileCount ());
+    }
+    finally
+    {
+      aCache.clear ();
+      FileOperations.deleteFileIfExisting (f1);
+      FileOperations.deleteFileIfExisting (f2);
+    }
+  }
+
+  @Test
+  public void testTruncateWhileReading () throws IOException
+  {
+    final FileContentCache aCache = new FileContentCache (FileContentCache.DEFAULT_MAX_CACHED_BYTES);
+    final File f1 = new File ("content-cache-test4.txt");
+    try
+    {
+      final byte [] aData = new byte [64 * 1024];
+      for (int i = 0; i < aData.length; ++i)
+        aData[i] = (byte) i;
+      SimpleFileIO.writeFile (f1, aData);
+
+      try (final InputStream aIS = aCache.getInputStream (f1))
+      {
+        assertNotNull (aIS);
+        assertEquals (0, aIS.read ());
+
+        // Truncate and rewrite in place
+        try (final OutputStream aOS = new FileOutputStream (f1))
+        {
+          aOS.write (1);
+        }
+
+        // The stream still delivers the previous content
+        final byte [] aRest = StreamHelper.getAllBytes (aIS);
+        assertEquals (aData.length - 1, aRest.length);
+        assertEquals (aData[aData.length - 1], aRest[aRest.length - 1]);
+      }
+
+      // New content is detected
+      assertEquals (1, aCache.getContent (f1).remaining ());
+    }
+    finally
+    {
+      aCache.clear ();
+      FileOperations.deleteFileIfExisting (f1);
+    }
+  }
+
+  @Test
+  public void testResource () throws IOException
+  {
+    final FileContentCache aCache = new FileContentCache (FileContentCache.DEFAULT_MAX_CACHED_BYTES);
+    final File f1 = new File ("content-cache-test3.txt");
+    try
+    {
+      final CachedFileSystemResource aRes = new CachedFileSystemResource (f1, aCache);
+      assertFalse (aRes.exists ());
+      assertNull (aRes.getInputStream ());
+
+      final byte [] aData = "Line1\nLine2\n".getBytes (StandardCharsets.ISO_8859_1);
+      SimpleFileIO.writeFile (f1, aData);
+      assertTrue (aRes.exists ());
+      for (int i = 0; i < 3; ++i)
+        assertArrayEquals (aData, StreamHelper.getAllBytes (aRes));
+      assertEquals (1, aCache.getCachedFileCount ());
+      assertEquals ("Line1\nLine2\n", StreamHelper.getAllBytesAsString (aRes, StandardCharsets.ISO_8859_1));
+
+      try (final InputStream aIS = aRes.getInputStream ())
+      {
+        assertEquals ('L', aIS.read ());
+        assertEquals (4, aIS.skip (4));
+        assertEquals ('\n', aIS.read ());
+      }
+
+      // Too large for the cache - regular reading
+      final CachedFileSystemResource aRes3 = new CachedFileSystemResource (f1, new FileContentCache (5));
+      assertArrayEquals (aData, StreamHelper.getAllBytes (aRes3));
+
+      final CachedFileSystemResource aRes2 = aRes.getReadableCloneForPath (f1.getAbsolutePath ());
+      assertEquals (aRes, aRes2);
+      assertEquals (aRes.hashCode (), aRes2.hashCode ());
+      assertNotSame (aRes, aRes2);
+      assertEquals (f1.getAbsoluteFile (), aRes.getAsFile ());
+      assertNotNull (aRes.getAsURL ());
+    }
+    finally
+    {
+      aCache.clear ();
+      FileOperations.deleteFileIfExisting (f1);
+    }
+  }
+}
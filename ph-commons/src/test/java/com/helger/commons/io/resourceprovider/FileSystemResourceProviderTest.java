@@ -16,6 +16,7 @@
  */
 package com.helger.commons.io.resourceprovider;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -27,7 +28,10 @@ import java.io.File;
 
 import org.junit.Test;
 
+import com.helger.commons.io.resource.FileSystemResource;
 import com.helger.commons.io.resource.IReadableResource;
+import com.helger.commons.io.resource.CachedFileSystemResource;
+import com.helger.commons.io.stream.StreamHelper;
 import com.helger.commons.mock.CommonsTestHelper;
 
 /**
@@ -78,5 +82,29 @@ public final class FileSystemResourceProviderTest
                                                                        new FileSystemResourceProvider ("src/test/resources"));
     CommonsTestHelper.testDefaultImplementationWithEqualContentObject (new FileSystemResourceProvider ("src/test/resources"),
                                                                        new FileSystemResourceProvider (new File ("src/test/resources")));
+    CommonsTestHelper.testDefaultImplementationWithDifferentContentObject (new FileSystemResourceProvider (),
+                                                                           new FileSystemResourceProvider ().setUseContentCache (true));
+  }
+
+  @Test
+  public void testContentCache ()
+  {
+    final FileSystemResourceProvider aFSRP = new FileSystemResourceProvider ("src/test/resources");
+    assertFalse (aFSRP.isUseContentCache ());
+    assertTrue (aFSRP.getReadableResource ("test1.txt") instanceof FileSystemResource);
+    aFSRP.setUseContentCache (true);
+    assertTrue (aFSRP.isUseContentCache ());
+    final IReadableResource aRes = aFSRP.getReadableResource ("test1.txt");
+    assertTrue (aRes instanceof CachedFileSystemResource);
+    assertArrayEquals (StreamHelper.getAllBytes (new FileSystemResource ("src/test/resources/test1.txt")),
+                       StreamHelper.getAllBytes (aRes));
+    // Writing is not affected
+    assertTrue (aFSRP.getWritableResource ("test1.txt") instanceof FileSystemResource);
+
+    aFSRP.setUseMemoryMapping (true);
+    assertTrue (aFSRP.isUseMemoryMapping ());
+    final IReadableResource aRes2 = aFSRP.getReadableResource ("test1.txt");
+    assertTrue (((CachedFileSystemResource) aRes2).getCache ().isMemoryMapped ());
+    assertArrayEquals (StreamHelper.getAllBytes (aRes), StreamHelper.getAllBytes (aRes2));
   }
 }
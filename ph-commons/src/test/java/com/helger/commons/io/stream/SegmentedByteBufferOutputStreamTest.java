@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.helger.commons.io.file.FileOperations;
+import com.helger.commons.io.file.SimpleFileIO;
+
+/**
+ * Test class for class {@link SegmentedByteBufferOutputStream}.
+ *
+ * @author Philip Helger
+ */
+public final class SegmentedByteBufferOutputStreamTest
+{
+  private static void _testWrite (final ByteBufferChunkPool aPool) throws IOException
+  {
+    final Random aRandom = new Random (4711);
+    final byte [] aData = new byte [10_000];
+    aRandom.nextBytes (aData);
+
+    try (final SegmentedByteBufferOutputStream aOS = new SegmentedByteBufferOutputStream (aPool))
+    {
+      assertTrue (aOS.isEmpty ());
+      assertEquals (0, aOS.toByteArray ().length);
+      assertEquals (-1, aOS.getAsInputStream ().read ());
+
+      // Mix all write methods with random lengths
+      int nOfs = 0;
+      while (nOfs < aData.length)
+      {
+        final int nLen = Math.min (aData.length - nOfs, aRandom.nextInt (300));
+        switch (aRandom.nextInt (3))
+        {
+          case 0:
+            for (int i = 0; i < nLen; ++i)
+              aOS.write (aData[nOfs + i]);
+            break;
+          case 1:
+            aOS.write (aData, nOfs, nLen);
+            break;
+          default:
+            final ByteBuffer aBB = aRandom.nextBoolean () ? ByteBuffer.allocate (nLen) : ByteBuffer.allocateDirect (nLen);
+            aBB.put (aData, nOfs, nLen).flip ();
+            assertEquals (nLen, aOS.write (aBB));
+            assertFalse (aBB.hasRemaining ());
+            break;
+        }
+        nOfs += nLen;
+      }
+      assertEquals (aData.length, aOS.getSize ());
+      assertEquals ((aData.length + aPool.getChunkSize () - 1) / aPool.getChunkSize (), aOS.getChunkCount ());
+      assertArrayEquals (aData, aOS.toByteArray ());
+      assertArrayEquals (aData, StreamHelper.getAllBytes (aOS.getAsInputStream ()));
+
+      // To stream
+      try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+      {
+        aOS.writeTo (aBAOS);
+        assertArrayEquals (aData, aBAOS.toByteArray ());
+      }
+
+      // To non-gathering channel
+      try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+      {
+        assertEquals (aData.length, aOS.writeTo (Channels.newChannel (aBAOS)));
+        assertArrayEquals (aData, aBAOS.toByteArray ());
+      }
+
+      // To gathering channel
+      final File f = new File ("segmented-test.bin");
+      try
+      {
+        try (final FileChannel aFC = FileChannel.open (f.toPath (),
+                                                       StandardOpenOption.CREATE,
+                                                       StandardOpenOption.TRUNCATE_EXISTING,
+                                                       StandardOpenOption.WRITE))
+        {
+          assertEquals (aData.length, aOS.writeTo (aFC));
+        }
+        assertArrayEquals (aData, SimpleFileIO.getAllFileBytes (f));
+
+        // And back in from the channel
+        try (final FileChannel aFC = FileChannel.open (f.toPath (), StandardOpenOption.READ);
+            final SegmentedByteBufferOutputStream aOS2 = new SegmentedByteBufferOutputStream (aPool))
+        {
+          assertEquals (aData.length, aOS2.readFrom (aFC));
+          assertArrayEquals (aData, aOS2.toByteArray ());
+        }
+      }
+      finally
+      {
+        FileOperations.deleteFileIfExisting (f);
+      }
+
+      // Read from stream
+      aOS.reset ();
+      assertTrue (aOS.isEmpty ());
+      assertEquals (0, aOS.getChunkCount ());
+      assertEquals (aData.length, aOS.readFrom (new NonBlockingByteArrayInputStream (aData)));
+      assertArrayEquals (aData, aOS.toByteArray ());
+      assertEquals ("abc".length (), aOS.readFrom (new StringInputStream ("abc", StandardCharsets.ISO_8859_1)));
+      assertTrue (aOS.getAsString (StandardCharsets.ISO_8859_1).endsWith ("abc"));
+      assertNotNull (aOS.toString ());
+    }
+  }
+
+  @Test
+  public void testHeap () throws IOException
+  {
+    _testWrite (new ByteBufferChunkPool (1000, false, 5));
+    _testWrite (ByteBufferChunkPool.getDefaultHeapInstance ());
+  }
+
+  @Test
+  public void testDirect () throws IOException
+  {
+    _testWrite (new ByteBufferChunkPool (1000, true, 5));
+    _testWrite (ByteBufferChunkPool.getDefaultDirectInstance ());
+  }
+
+  @Test
+  public void testPooling ()
+  {
+    final ByteBufferChunkPool aPool = new ByteBufferChunkPool (10, false, 2);
+    final SegmentedByteBufferOutputStream aOS = new SegmentedByteBufferOutputStream (aPool);
+    aOS.write (new byte [35]);
+    assertEquals (4, aOS.getChunkCount ());
+    assertEquals (4, aPool.getCreatedCount ());
+    aOS.reset ();
+    // Only 2 chunks are kept
+    assertEquals (2, aPool.getPooledCount ());
+    aOS.write (new byte [25]);
+    assertEquals (2, aPool.getReusedCount ());
+    assertEquals (5, aPool.getCreatedCount ());
+    assertEquals (0, aPool.getPooledCount ());
+
+    aOS.close ();
+    assertFalse (aOS.isOpen ());
+    assertEquals (2, aPool.getPooledCount ());
+    try
+    {
+      aOS.write (1);
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    try
+    {
+      aOS.toByteArray ();
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    // Closing twice is fine
+    aOS.close ();
+  }
+
+  @Test
+  public void testNonBlockingChannels () throws IOException
+  {
+    try (final SegmentedByteBufferOutputStream aOS = new SegmentedByteBufferOutputStream (new ByteBufferChunkPool (10,
+                                                                                                                 false,
+                                                                                                                 2)))
+    {
+      // A non-blocking channel without data
+      final ReadableByteChannel aEmpty = new ReadableByteChannel ()
+      {
+        public boolean isOpen ()
+        {
+          return true;
+        }
+
+        public void close ()
+        {}
+
+        public int read (final ByteBuffer aDst)
+        {
+          return 0;
+        }
+      };
+      assertEquals (0, aOS.readFrom (aEmpty));
+
+      aOS.write (new byte [25]);
+      // A non-blocking channel that takes only 12 bytes
+      final int [] aFree = { 12 };
+      final WritableByteChannel aFull = new WritableByteChannel ()
+      {
+        public boolean isOpen ()
+        {
+          return true;
+        }
+
+        public void close ()
+        {}
+
+        public int write (final ByteBuffer aSrc)
+        {
+          final int n = Math.min (aFree[0], aSrc.remaining ());
+          aSrc.position (aSrc.position () + n);
+          aFree[0] -= n;
+          return n;
+        }
+      };
+      assertEquals (12, aOS.writeTo (aFull));
+      assertEquals (25, aOS.getSize ());
+    }
+  }
+
+  @Test
+  public void testGetSegmentedCopy ()
+  {
+    final byte [] aData = new byte [100_000];
+    new Random ().nextBytes (aData);
+    try (final SegmentedByteBufferOutputStream aOS = StreamHelper.getSegmentedCopy (new NonBlockingByteArrayInputStream (aData)))
+    {
+      assertNotNull (aOS);
+      assertArrayEquals (aData, aOS.toByteArray ());
+    }
+  }
+}
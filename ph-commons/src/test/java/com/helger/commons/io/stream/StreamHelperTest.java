@@ -26,19 +26,29 @@ import static org.junit.Assert.fail;
 
 import java.io.Closeable;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilterOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
+import org.junit.Assume;
 import org.junit.Test;
 
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.exception.mock.MockIOException;
 import com.helger.commons.io.IHasInputStream;
+import com.helger.commons.io.file.FileHelper;
+import com.helger.commons.io.file.FileOperations;
+import com.helger.commons.io.file.SimpleFileIO;
 import com.helger.commons.io.resource.ClassPathResource;
 import com.helger.commons.io.resource.IReadableResource;
 import com.helger.commons.io.streamprovider.ByteArrayInputStreamProvider;
@@ -182,6 +192,119 @@ public final class StreamHelperTest
     {}
   }
 
+  @Test
+  public void testCopyFileStreams () throws IOException
+  {
+    final byte [] aInput = new byte [100_000];
+    ThreadLocalRandom.current ().nextBytes (aInput);
+    final File aSrc = new File ("streamhelper-src.bin");
+    final File aDst = new File ("streamhelper-dst.bin");
+    try
+    {
+      assertTrue (SimpleFileIO.writeFile (aSrc, aInput).isSuccess ());
+
+      // Full copy via channels
+      assertTrue (StreamHelper.copyInputStreamToOutputStreamAndCloseOS (FileHelper.getInputStream (aSrc),
+                                                                        FileHelper.getOutputStream (aDst))
+                              .isSuccess ());
+      assertArrayEquals (aInput, SimpleFileIO.getAllFileBytes (aDst));
+
+      // Start at the current position and respect the limit
+      final MutableLong aML = new MutableLong (0);
+      try (final FileInputStream aFIS = new FileInputStream (aSrc))
+      {
+        assertEquals (1000, aFIS.skip (1000));
+        assertTrue (StreamHelper.copyInputStreamToOutputStream (aFIS,
+                                                                false,
+                                                                new FileOutputStream (aDst),
+                                                                true,
+                                                                new byte [1024],
+                                                                Long.valueOf (5000),
+                                                                null,
+                                                                aML)
+                                .isSuccess ());
+        assertEquals (5000, aML.longValue ());
+        // The stream position was updated
+        assertEquals (aInput[6000] & 0xff, aFIS.read ());
+      }
+      assertArrayEquals (Arrays.copyOfRange (aInput, 1000, 6000), SimpleFileIO.getAllFileBytes (aDst));
+
+      // Append
+      try (final FileInputStream aFIS = new FileInputStream (aSrc))
+      {
+        assertTrue (StreamHelper.copyInputStreamToOutputStreamAndCloseOS (aFIS, new FileOutputStream (aDst, true))
+                                .isSuccess ());
+      }
+      assertEquals (5000 + aInput.length, aDst.length ());
+
+      // Via the file writing helper
+      assertTrue (SimpleFileIO.writeFile (aDst, FileHelper.getInputStream (aSrc)).isSuccess ());
+      assertArrayEquals (aInput, SimpleFileIO.getAllFileBytes (aDst));
+    }
+    finally
+    {
+      FileOperations.deleteFileIfExisting (aSrc);
+      FileOperations.deleteFileIfExisting (aDst);
+    }
+  }
+
+  @Test
+  public void testCopyFromPipe () throws Exception
+  {
+    final byte [] aInput = new byte [100_000];
+    ThreadLocalRandom.current ().nextBytes (aInput);
+    final File aFifo = new File ("streamhelper-fifo").getAbsoluteFile ();
+    final File aDst = new File ("streamhelper-dst-fifo.bin");
+    // Not a regular file, so FileOperations cannot delete it
+    aFifo.delete ();
+    try
+    {
+      // Named pipes are not available on all platforms
+      boolean bCreated;
+      try
+      {
+        bCreated = new ProcessBuilder ("mkfifo", aFifo.getPath ()).start ().waitFor () == 0;
+      }
+      catch (final IOException ex)
+      {
+        bCreated = false;
+      }
+      Assume.assumeTrue (bCreated);
+
+      final Thread aWriter = new Thread ( () -> {
+        try (final FileOutputStream aFOS = new FileOutputStream (aFifo))
+        {
+          aFOS.write (aInput);
+        }
+        catch (final IOException ex)
+        {
+          throw new UncheckedIOException (ex);
+        }
+      }, "fifo-writer");
+      aWriter.start ();
+
+      // A FileInputStream that is not seekable
+      final MutableLong aML = new MutableLong (0);
+      assertTrue (StreamHelper.copyInputStreamToOutputStream (new FileInputStream (aFifo),
+                                                              true,
+                                                              new FileOutputStream (aDst),
+                                                              true,
+                                                              new byte [1024],
+                                                              null,
+                                                              null,
+                                                              aML)
+                              .isSuccess ());
+      aWriter.join ();
+      assertEquals (aInput.length, aML.longValue ());
+      assertArrayEquals (aInput, SimpleFileIO.getAllFileBytes (aDst));
+    }
+    finally
+    {
+      aFifo.delete ();
+      FileOperations.deleteFileIfExisting (aDst);
+    }
+  }
+
   @Test
   @SuppressFBWarnings ("TQ_NEVER_VALUE_USED_WHERE_ALWAYS_REQUIRED")
   public void testCopyInputStreamToOutputStreamWithLimit ()
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.io.watchdir;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.io.file.FileOperationManager;
+
+/**
+ * Test class for class {@link WatchDirManager}.
+ *
+ * @author Philip Helger
+ */
+public final class WatchDirManagerTest
+{
+  @Test
+  public void testCoalescing ()
+  {
+    assertEquals (EWatchDirAction.CREATE, WatchDirManager.getCoalescedAction (EWatchDirAction.CREATE, EWatchDirAction.MODIFY));
+    assertNull (WatchDirManager.getCoalescedAction (EWatchDirAction.CREATE, EWatchDirAction.DELETE));
+    assertEquals (EWatchDirAction.MODIFY, WatchDirManager.getCoalescedAction (EWatchDirAction.DELETE, EWatchDirAction.CREATE));
+    assertEquals (EWatchDirAction.DELETE, WatchDirManager.getCoalescedAction (EWatchDirAction.MODIFY, EWatchDirAction.DELETE));
+    assertEquals (EWatchDirAction.MODIFY, WatchDirManager.getCoalescedAction (EWatchDirAction.MODIFY, EWatchDirAction.MODIFY));
+  }
+
+  @Test
+  public void testPolling () throws IOException, InterruptedException
+  {
+    final Path aDir = Files.createTempDirectory ("watchdirmgr");
+    try
+    {
+      final BlockingQueue <ICommonsOrderedMap <Path, EWatchDirAction>> aBatches = new LinkedBlockingQueue <> ();
+      try (final WatchDirManager aMgr = new WatchDirManager (50, 100))
+      {
+        final WatchDirManager.Registration aReg = aMgr.registerPolling (aDir, true, (aRoot, aChanges) -> aBatches.add (aChanges));
+        assertTrue (aReg.isPolling ());
+        assertEquals (1, aMgr.getAllRegistrations ().size ());
+
+        final Path aFile = aDir.resolve ("a.txt");
+        Files.write (aFile, "abc".getBytes (StandardCharsets.ISO_8859_1));
+        ICommonsOrderedMap <Path, EWatchDirAction> aBatch = aBatches.poll (10, TimeUnit.SECONDS);
+        assertEquals (EWatchDirAction.CREATE, aBatch.get (aFile.toRealPath ()));
+
+        final Path aRealFile = aFile.toRealPath ();
+        Files.delete (aFile);
+        aBatch = aBatches.poll (10, TimeUnit.SECONDS);
+        assertEquals (EWatchDirAction.DELETE, aBatch.get (aRealFile));
+
+        aReg.close ();
+        assertTrue (aReg.isClosed ());
+        assertTrue (aMgr.getAllRegistrations ().isEmpty ());
+      }
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (aDir.toFile ());
+    }
+  }
+
+  @Test
+  public void testNative () throws IOException, InterruptedException
+  {
+    final Path aDir = Files.createTempDirectory ("watchdirmgr");
+    try
+    {
+      final BlockingQueue <ICommonsOrderedMap <Path, EWatchDirAction>> aBatches = new LinkedBlockingQueue <> ();
+      try (final WatchDirManager aMgr = new WatchDirManager (100, 100))
+      {
+        final WatchDirManager.Registration aReg = aMgr.register (aDir, false, (aRoot, aChanges) -> aBatches.add (aChanges));
+        final Path aFile = aReg.getRootDirectory ().resolve ("b.txt");
+        Files.write (aFile, "abc".getBytes (StandardCharsets.ISO_8859_1));
+        Files.write (aFile, "def".getBytes (StandardCharsets.ISO_8859_1));
+
+        // Create and modify within one interval is reported as a single create
+        final ICommonsOrderedMap <Path, EWatchDirAction> aBatch = aBatches.poll (30, TimeUnit.SECONDS);
+        assertEquals (EWatchDirAction.CREATE, aBatch.get (aFile));
+        assertFalse (aReg.isClosed ());
+      }
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (aDir.toFile ());
+    }
+  }
+
+  @Test
+  public void testOverlappingRegistrations () throws IOException, InterruptedException
+  {
+    final Path aDir = Files.createTempDirectory ("watchdirmgr");
+    try
+    {
+      final Path aSubDir = Files.createDirectory (aDir.resolve ("sub"));
+      final BlockingQueue <ICommonsOrderedMap <Path, EWatchDirAction>> aTreeBatches = new LinkedBlockingQueue <> ();
+      final BlockingQueue <ICommonsOrderedMap <Path, EWatchDirAction>> aSubBatches = new LinkedBlockingQueue <> ();
+      try (final WatchDirManager aMgr = new WatchDirManager (100, 100))
+      {
+        final WatchDirManager.Registration aTreeReg = aMgr.register (aDir, true, (aRoot, aChanges) -> aTreeBatches.add (aChanges));
+        final WatchDirManager.Registration aSubReg = aMgr.register (aSubDir, false, (aRoot, aChanges) -> aSubBatches.add (aChanges));
+        if (aTreeReg.isPolling () || aSubReg.isPolling ())
+          return;
+
+        // Both registrations receive the event
+        final Path aFile = aSubReg.getRootDirectory ().resolve ("x.txt");
+        Files.write (aFile, "abc".getBytes (StandardCharsets.ISO_8859_1));
+        ICommonsOrderedMap <Path, EWatchDirAction> aBatch = aTreeBatches.poll (30, TimeUnit.SECONDS);
+        assertNotNull (aBatch);
+        assertEquals (EWatchDirAction.CREATE, aBatch.get (aFile));
+        aBatch = aSubBatches.poll (30, TimeUnit.SECONDS);
+        assertNotNull (aBatch);
+        assertEquals (EWatchDirAction.CREATE, aBatch.get (aFile));
+
+        // Closing one registration does not affect the other one
+        aSubReg.close ();
+        final Path aFile2 = aSubReg.getRootDirectory ().resolve ("y.txt");
+        Files.write (aFile2, "abc".getBytes (StandardCharsets.ISO_8859_1));
+        aBatch = aTreeBatches.poll (30, TimeUnit.SECONDS);
+        assertNotNull (aBatch);
+        assertEquals (EWatchDirAction.CREATE, aBatch.get (aFile2));
+        assertTrue (aSubBatches.isEmpty ());
+        assertFalse (aTreeReg.isClosed ());
+      }
+    }
+    finally
+    {
+      FileOperationManager.INSTANCE.deleteDirRecursiveIfExisting (aDir.toFile ());
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.helger.commons.mutable.MutableInt;
+
+/**
+ * Test class for class {@link AbstractBoundedPool}.
+ *
+ * @author Philip Helger
+ */
+public final class AbstractBoundedPoolTest
+{
+  private static final class MockPool extends AbstractBoundedPool <MutableInt>
+  {
+    private final AtomicInteger m_aDiscarded = new AtomicInteger (0);
+
+    MockPool (final int nMaxSize)
+    {
+      super (AbstractBoundedPoolTest.class.getName (), nMaxSize);
+    }
+
+    @Override
+    @Nonnull
+    protected MutableInt createObject ()
+    {
+      return new MutableInt (0);
+    }
+
+    @Override
+    protected boolean resetObject (@Nonnull final MutableInt aObject)
+    {
+      // Negative values cannot be reset
+      if (aObject.intValue () < 0)
+        return false;
+      aObject.set (0);
+      return true;
+    }
+
+    @Override
+    protected void discardObject (@Nonnull final MutableInt aObject)
+    {
+      m_aDiscarded.incrementAndGet ();
+    }
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final MockPool aPool = new MockPool (1);
+    final MutableInt a1 = aPool.borrowObject ();
+    final MutableInt a2 = aPool.borrowObject ();
+    assertEquals (2, aPool.getCreatedCount ());
+
+    a1.set (5);
+    aPool.returnObject (a1);
+    assertEquals (1, aPool.getPooledCount ());
+    // Pool is full
+    aPool.returnObject (a2);
+    assertEquals (1, aPool.getDiscardedCount ());
+    assertEquals (1, aPool.m_aDiscarded.get ());
+
+    // Reused and reset
+    final MutableInt a3 = aPool.borrowObject ();
+    assertSame (a1, a3);
+    assertEquals (0, a3.intValue ());
+    assertEquals (1, aPool.getReusedCount ());
+    assertEquals (0, aPool.getPooledCount ());
+
+    // Cannot be reset
+    a3.set (-1);
+    aPool.returnObject (a3);
+    assertEquals (0, aPool.getPooledCount ());
+    assertEquals (2, aPool.getDiscardedCount ());
+
+    aPool.returnObject (aPool.borrowObject ());
+    assertEquals (1, aPool.getPooledCount ());
+    aPool.clear ();
+    assertEquals (0, aPool.getPooledCount ());
+    assertEquals (3, aPool.m_aDiscarded.get ());
+    assertEquals (4, aPool.getBorrowedCount ());
+    assertEquals (4, aPool.getReturnedCount ());
+    assertNotNull (aPool.toString ());
+  }
+}
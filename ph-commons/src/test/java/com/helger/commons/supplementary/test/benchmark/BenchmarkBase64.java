@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+import com.helger.commons.base64.Base64;
+import com.helger.commons.base64.FastBase64;
+
+/**
+ * Compare the encoding and decoding speed of {@link Base64} and
+ * {@link FastBase64}.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkBase64 extends AbstractBenchmarkTask
+{
+  private static final int SIZE = 1024 * 1024;
+
+  private BenchmarkBase64 ()
+  {}
+
+  private interface IIOTask
+  {
+    void run () throws IOException;
+  }
+
+  private static void _run (final String sName, final IIOTask aTask)
+  {
+    final double dTime = benchmarkTask ( () -> {
+      try
+      {
+        aTask.run ();
+      }
+      catch (final IOException ex)
+      {
+        throw new UncheckedIOException (ex);
+      }
+    });
+    LOGGER.info (sName + String.format ("%.1f", Double.valueOf (SIZE / (dTime / 1e9) / 1024 / 1024)) + " MB/s");
+  }
+
+  public static void main (final String [] aArgs) throws IOException
+  {
+    logSystemInfo ();
+
+    final byte [] aData = new byte [SIZE];
+    new Random (0).nextBytes (aData);
+
+    for (final int nOptions : new int [] { Base64.NO_OPTIONS, Base64.DO_BREAK_LINES, Base64.URL_SAFE })
+    {
+      final byte [] aEncoded = Base64.encodeBytesToBytes (aData, 0, aData.length, nOptions);
+      LOGGER.info ("Options " + nOptions);
+      _run ("  Base64 encode:     ", () -> Base64.encodeBytesToBytes (aData, 0, aData.length, nOptions));
+      _run ("  FastBase64 encode: ", () -> FastBase64.encodeBytesToBytes (aData, 0, aData.length, nOptions));
+      _run ("  Base64 decode:     ", () -> Base64.decode (aEncoded, 0, aEncoded.length, nOptions));
+      _run ("  FastBase64 decode: ", () -> FastBase64.decode (aEncoded, 0, aEncoded.length, nOptions));
+    }
+  }
+}
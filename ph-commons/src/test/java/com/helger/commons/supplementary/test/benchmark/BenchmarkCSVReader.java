@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.helger.commons.csv.CSVParallelReader;
+import com.helger.commons.csv.CSVReader;
+import com.helger.commons.csv.CSVRecordReader;
+import com.helger.commons.io.stream.NonBlockingStringReader;
+
+/**
+ * Compare the line based {@link CSVReader} with the buffer based
+ * {@link CSVRecordReader} and the chunked {@link CSVParallelReader}.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkCSVReader extends AbstractBenchmarkTask
+{
+  private static final int ROWS = 20_000;
+
+  private BenchmarkCSVReader ()
+  {}
+
+  public static void main (final String [] aArgs) throws IOException
+  {
+    logSystemInfo ();
+
+    final Random aRandom = new Random (4711);
+    final StringBuilder aSB = new StringBuilder ();
+    for (int i = 0; i < ROWS; ++i)
+    {
+      aSB.append (i).append (',');
+      aSB.append ("name").append (aRandom.nextInt (1000)).append (',');
+      aSB.append ('"').append ("street ").append (aRandom.nextInt (100)).append (", city").append ('"').append (',');
+      aSB.append (aRandom.nextDouble ()).append (',');
+      aSB.append ("\"quoted \"\"text\"\"\"").append (',');
+      aSB.append ("plain text without special chars\n");
+    }
+    final String sCSV = aSB.toString ();
+    final double dMB = sCSV.length () / 1024d / 1024d;
+
+    final double dOld = benchmarkTask ( () -> {
+      try (final CSVReader aReader = new CSVReader (new NonBlockingStringReader (sCSV)))
+      {
+        final int [] aCount = { 0 };
+        aReader.readAll (x -> aCount[0] += x.size ());
+        if (aCount[0] != ROWS * 6)
+          throw new IllegalStateException ("" + aCount[0]);
+      }
+      catch (final IOException ex)
+      {
+        throw new UncheckedIOException (ex);
+      }
+    });
+    LOGGER.info ("CSVReader:                     " + String.format ("%.1f", Double.valueOf (dMB / (dOld / 1e9))) + " MB/s");
+
+    final double dNew = benchmarkTask ( () -> {
+      try (final CSVRecordReader aReader = new CSVRecordReader (new NonBlockingStringReader (sCSV)))
+      {
+        final int [] aCount = { 0 };
+        aReader.readAll (x -> aCount[0] += x.getFieldCount ());
+        if (aCount[0] != ROWS * 6)
+          throw new IllegalStateException ("" + aCount[0]);
+      }
+      catch (final IOException ex)
+      {
+        throw new UncheckedIOException (ex);
+      }
+    });
+    LOGGER.info ("CSVRecordReader (views):       " + String.format ("%.1f", Double.valueOf (dMB / (dNew / 1e9))) + " MB/s");
+
+    final double dNewString = benchmarkTask ( () -> {
+      try (final CSVRecordReader aReader = new CSVRecordReader (new NonBlockingStringReader (sCSV)))
+      {
+        final int [] aCount = { 0 };
+        aReader.readAll (x -> aCount[0] += x.getAllFieldsAsList ().size ());
+        if (aCount[0] != ROWS * 6)
+          throw new IllegalStateException ("" + aCount[0]);
+      }
+      catch (final IOException ex)
+      {
+        throw new UncheckedIOException (ex);
+      }
+    });
+    LOGGER.info ("CSVRecordReader (all Strings): " +
+                 String.format ("%.1f", Double.valueOf (dMB / (dNewString / 1e9))) +
+                 " MB/s");
+  
+    final File aFile = File.createTempFile ("benchmarkCSV", ".csv");
+    aFile.deleteOnExit ();
+    Files.write (aFile.toPath (), sCSV.getBytes (StandardCharsets.UTF_8));
+    final CSVParallelReader aParallelReader = new CSVParallelReader (aFile, StandardCharsets.UTF_8).setChunkSize (256 *
+                                                                                                                 1024);
+    final double dParallel = benchmarkTask ( () -> {
+      try
+      {
+        final AtomicInteger aCount = new AtomicInteger ();
+        aParallelReader.readAllUnordered (x -> aCount.addAndGet (x.getFieldCount ()));
+        if (aCount.get () != ROWS * 6)
+          throw new IllegalStateException ("" + aCount.get ());
+      }
+      catch (final IOException ex)
+      {
+        throw new UncheckedIOException (ex);
+      }
+    });
+    LOGGER.info ("CSVParallelReader (views):     " +
+                 String.format ("%.1f", Double.valueOf (dMB / (dParallel / 1e9))) +
+                 " MB/s with " +
+                 aParallelReader.getThreadCount () +
+                 " threads");
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import com.helger.commons.csv.CSVRecordWriter;
+import com.helger.commons.csv.CSVWriter;
+import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+
+/**
+ * Compare the {@link CSVWriter} with the buffer based {@link CSVRecordWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkCSVWriter extends AbstractBenchmarkTask
+{
+  private static final int ROWS = 20_000;
+
+  private BenchmarkCSVWriter ()
+  {}
+
+  public static void main (final String [] aArgs)
+  {
+    logSystemInfo ();
+
+    final double dOld = benchmarkTask ( () -> {
+      final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream (4 * 1024 * 1024);
+      try (final CSVWriter aWriter = new CSVWriter (new OutputStreamWriter (aBAOS, StandardCharsets.UTF_8)))
+      {
+        final String [] aRow = new String [5];
+        for (int i = 0; i < ROWS; ++i)
+        {
+          aRow[0] = Integer.toString (i);
+          aRow[1] = "name" + (i % 1000);
+          aRow[2] = "street " + (i % 100) + ", city";
+          aRow[3] = Double.toString (i * 0.25);
+          aRow[4] = "plain text without special chars";
+          aWriter.writeNext (aRow, false);
+        }
+      }
+      catch (final IOException ex)
+      {
+        throw new UncheckedIOException (ex);
+      }
+    });
+    LOGGER.info ("CSVWriter:                 " + String.format ("%.1f", Double.valueOf (ROWS / (dOld / 1e9))) + " rows/s");
+
+    final double dNew = benchmarkTask ( () -> {
+      final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream (4 * 1024 * 1024);
+      try (final CSVRecordWriter aWriter = new CSVRecordWriter (aBAOS).setApplyQuotesToAll (false))
+      {
+        final StringBuilder aSB = new StringBuilder ();
+        for (int i = 0; i < ROWS; ++i)
+        {
+          aWriter.addField (i);
+          aSB.setLength (0);
+          aWriter.addField (aSB.append ("name").append (i % 1000));
+          aSB.setLength (0);
+          aWriter.addField (aSB.append ("street ").append (i % 100).append (", city"));
+          aWriter.addField (i * 0.25, 2);
+          aWriter.addField ("plain text without special chars");
+          aWriter.endRecord ();
+        }
+      }
+      catch (final IOException ex)
+      {
+        throw new UncheckedIOException (ex);
+      }
+    });
+    LOGGER.info ("CSVRecordWriter (UTF-8):   " + String.format ("%.1f", Double.valueOf (ROWS / (dNew / 1e9))) + " rows/s");
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import java.nio.charset.StandardCharsets;
+
+import com.helger.commons.codec.URLCodec;
+import com.helger.commons.url.URLHelper;
+import com.helger.commons.url.URLParameterDecoder;
+import com.helger.commons.url.URLQueryParser;
+
+/**
+ * Compare the generic {@link URLCodec} with the {@link URLHelper} fast paths
+ * and the {@link URLQueryParser}.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkURLCoding extends AbstractBenchmarkTask
+{
+  private BenchmarkURLCoding ()
+  {}
+
+  private static void _run (final String sName, final Runnable aTask)
+  {
+    final double dTime = benchmarkTask (aTask);
+    LOGGER.info (sName + String.format ("%.0f", Double.valueOf (dTime)) + " ns/value");
+  }
+
+  public static void main (final String [] aArgs)
+  {
+    logSystemInfo ();
+
+    final URLCodec aCodec = new URLCodec ();
+    final String sPlain = "customerId";
+    final String sEncoded = "Hello+W%C3%B6rld%21+%E2%82%AC+5";
+    final String sDecoded = URLHelper.urlDecode (sEncoded);
+    final String sQuery = "page=2&size=50&sort=name%2Casc&filter=st%C3%A4tus%3Dactive&q=hello+world&lang=de";
+    final URLParameterDecoder aDecoder = new URLParameterDecoder (StandardCharsets.UTF_8);
+    final URLQueryParser aParser = new URLQueryParser ();
+
+    _run ("Decode plain URLCodec:     ", () -> aCodec.getDecodedAsString (sPlain, StandardCharsets.UTF_8));
+    _run ("Decode plain URLHelper:    ", () -> URLHelper.urlDecode (sPlain));
+    _run ("Decode escaped URLCodec:   ", () -> aCodec.getDecodedAsString (sEncoded, StandardCharsets.UTF_8));
+    _run ("Decode escaped URLHelper:  ", () -> URLHelper.urlDecode (sEncoded));
+    _run ("Encode plain URLCodec:     ", () -> aCodec.getEncodedAsString (sPlain, StandardCharsets.UTF_8));
+    _run ("Encode plain URLHelper:    ", () -> URLHelper.urlEncode (sPlain));
+    _run ("Encode special URLCodec:   ", () -> aCodec.getEncodedAsString (sDecoded, StandardCharsets.UTF_8));
+    _run ("Encode special URLHelper:  ", () -> URLHelper.urlEncode (sDecoded));
+    _run ("Query generic decoder:     ", () -> URLHelper.getParsedQueryParameters (sQuery, x -> aDecoder.getDecoded (x)));
+    _run ("Query URLParameterDecoder: ", () -> URLHelper.getParsedQueryParameters (sQuery, aDecoder));
+    _run ("Query parser lookup:       ", () -> aParser.parse (sQuery).getFirstValue ("filter"));
+  }
+}
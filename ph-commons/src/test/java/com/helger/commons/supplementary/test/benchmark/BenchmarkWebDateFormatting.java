@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import com.helger.commons.datetime.PDTFactory;
+import com.helger.commons.datetime.PDTFormatter;
+import com.helger.commons.datetime.PDTWebDateFormatter;
+
+/**
+ * Compare the {@link DateTimeFormatter} based formatting with
+ * {@link PDTWebDateFormatter}.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkWebDateFormatting extends AbstractBenchmarkTask
+{
+  private BenchmarkWebDateFormatting ()
+  {}
+
+  private static void _run (final String sName, final Runnable aTask)
+  {
+    final double dTime = benchmarkTask (aTask);
+    LOGGER.info (sName + String.format ("%.0f", Double.valueOf (dTime)) + " ns/value");
+  }
+
+  public static void main (final String [] aArgs)
+  {
+    logSystemInfo ();
+
+    final ZonedDateTime aDT = PDTFactory.getCurrentZonedDateTime ();
+    final StringBuilder aSB = new StringBuilder ();
+    final byte [] aBuf = new byte [PDTWebDateFormatter.MAX_LENGTH_RFC822];
+
+    _run ("RFC822 DateTimeFormatter:   ",
+          () -> PDTFormatter.getForPattern ("EEE, dd MMM uuuu HH:mm:ss 'GMT'", Locale.US).format (aDT));
+    _run ("RFC822 String:              ", () -> PDTWebDateFormatter.getAsStringRFC822 (aDT));
+    _run ("RFC822 StringBuilder:       ", () -> {
+      aSB.setLength (0);
+      PDTWebDateFormatter.appendRFC822 (aDT, aSB);
+    });
+    _run ("RFC822 byte[]:              ", () -> PDTWebDateFormatter.writeRFC822 (aDT, aBuf, 0));
+    _run ("RFC822 now byte[] (cached): ", () -> PDTWebDateFormatter.writeCurrentDateTimeRFC822 (aBuf, 0));
+    _run ("W3C DateTimeFormatter:      ",
+          () -> PDTFormatter.getForPattern ("uuuu-MM-dd'T'HH:mm:ssXXX", Locale.US).format (aDT));
+    _run ("W3C String:                 ", () -> PDTWebDateFormatter.getAsStringW3C (aDT));
+  }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.supplementary.test.benchmark;
+
+import com.helger.commons.datetime.PDTWebDateHelper;
+import com.helger.commons.datetime.PDTWebDateParser;
+
+/**
+ * Compare the mask based parsing of {@link PDTWebDateHelper} with the single
+ * pass {@link PDTWebDateParser}.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkWebDateParsing extends AbstractBenchmarkTask
+{
+  private static final String [] W3C = { "1997-07-16T19:20:30.145+01:00",
+                                         "1997-07-16T19:20:30+01:00",
+                                         "1997-07-16T19:20Z",
+                                         "1997-07-16",
+                                         "invalid" };
+  private static final String [] RFC822 = { "Sun, 03 Jan 2016 23:15:42 GMT",
+                                            "Sun, 03 Jan 2016 23:15:42 +0100",
+                                            "03 Jan 16 23:15",
+                                            "invalid" };
+
+  private BenchmarkWebDateParsing ()
+  {}
+
+  private static void _run (final String sName, final int nCount, final Runnable aTask)
+  {
+    final double dTime = benchmarkTask (aTask);
+    LOGGER.info (sName + String.format ("%.0f", Double.valueOf (dTime / nCount)) + " ns/value");
+  }
+
+  public static void main (final String [] aArgs)
+  {
+    logSystemInfo ();
+
+    _run ("W3C masks:     ", W3C.length, () -> {
+      for (final String s : W3C)
+        PDTWebDateHelper.getDateTimeFromW3CUsingMasks (s);
+    });
+    _run ("W3C parser:    ", W3C.length, () -> {
+      for (final String s : W3C)
+        PDTWebDateParser.parseW3C (s);
+    });
+    _run ("RFC822 masks:  ", RFC822.length, () -> {
+      for (final String s : RFC822)
+        PDTWebDateHelper.getDateTimeFromRFC822UsingMasks (s);
+    });
+    _run ("RFC822 parser: ", RFC822.length, () -> {
+      for (final String s : RFC822)
+        PDTWebDateParser.parseRFC822 (s);
+    });
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.timing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+
+/**
+ * Test class for class {@link HierarchicalTimingWheel}.
+ *
+ * @author Philip Helger
+ */
+public final class HierarchicalTimingWheelTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final HierarchicalTimingWheel <AtomicLong> aWheel = new HierarchicalTimingWheel <> (10, 4, 3, 1000, AtomicLong::get);
+    assertTrue (aWheel.isEmpty ());
+
+    final AtomicLong a = new AtomicLong (1005);
+    final AtomicLong b = new AtomicLong (1100);
+    final AtomicLong c = new AtomicLong (5000);
+    aWheel.add (a);
+    aWheel.add (b);
+    aWheel.add (c);
+    assertEquals (3, aWheel.size ());
+
+    assertTrue (aWheel.advance (1009).isEmpty ());
+    assertEquals (1, aWheel.advance (1010).size ());
+    assertEquals (2, aWheel.size ());
+
+    // Extend b
+    b.set (1300);
+    assertTrue (aWheel.advance (1200).isEmpty ());
+    assertEquals (2, aWheel.size ());
+    ICommonsList <AtomicLong> aExpired = aWheel.advance (1300);
+    assertEquals (1, aExpired.size ());
+    assertTrue (aExpired.get (0) == b);
+
+    // Cancel c
+    c.set (HierarchicalTimingWheel.DEADLINE_CANCELLED);
+    assertTrue (aWheel.advance (10_000).isEmpty ());
+    assertTrue (aWheel.isEmpty ());
+    assertEquals (10_000, aWheel.getCurrentTime ());
+
+    // Deadline in the past
+    aWheel.add (new AtomicLong (1));
+    assertEquals (1, aWheel.advance (10_010).size ());
+  }
+
+  @Test
+  public void testRandom ()
+  {
+    final Random aRandom = new Random (4711);
+    // Covers 8^3=512 ticks only, so long deadlines must be re-scheduled
+    final HierarchicalTimingWheel <AtomicLong> aWheel = new HierarchicalTimingWheel <> (1, 8, 3, 0, AtomicLong::get);
+    final ICommonsList <AtomicLong> aAll = new CommonsArrayList <> ();
+    for (int i = 0; i < 10_000; ++i)
+    {
+      final AtomicLong aDeadline = new AtomicLong (1 + aRandom.nextInt (5_000));
+      aAll.add (aDeadline);
+      aWheel.add (aDeadline);
+    }
+
+    int nExpired = 0;
+    for (long nNow = 0; nNow <= 5_000; nNow += 1 + aRandom.nextInt (20))
+    {
+      final long nFinalNow = nNow;
+      final long nPrevTime = aWheel.getCurrentTime ();
+      for (final AtomicLong aExpired : aWheel.advance (nNow))
+      {
+        // Must not be returned too early or too late
+        assertTrue (aExpired.get () <= nFinalNow);
+        assertTrue (aExpired.get () > nPrevTime);
+        nExpired++;
+      }
+    }
+    assertEquals (aAll.size (), nExpired + aWheel.size ());
+    nExpired += aWheel.advance (5_000_000).size ();
+    assertEquals (aAll.size (), nExpired);
+    assertTrue (aWheel.isEmpty ());
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.typeconvert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.helger.commons.mock.CommonsAssert;
+import com.helger.commons.mutable.MutableInt;
+import com.helger.commons.state.ETriState;
+
+/**
+ * Test class for class {@link ConvertedValueCache}.
+ *
+ * @author Philip Helger
+ */
+public final class ConvertedValueCacheTest
+{
+  @Test
+  public void testIsCacheableClass ()
+  {
+    assertTrue (ConvertedValueCache.isCacheableClass (String.class));
+    assertTrue (ConvertedValueCache.isCacheableClass (Integer.class));
+    assertTrue (ConvertedValueCache.isCacheableClass (BigDecimal.class));
+    assertTrue (ConvertedValueCache.isCacheableClass (LocalDate.class));
+    assertTrue (ConvertedValueCache.isCacheableClass (ETriState.class));
+    assertFalse (ConvertedValueCache.isCacheableClass (null));
+    assertFalse (ConvertedValueCache.isCacheableClass (Date.class));
+    assertFalse (ConvertedValueCache.isCacheableClass (char [].class));
+    assertFalse (ConvertedValueCache.isCacheableClass (MutableInt.class));
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final ConvertedValueCache <String> aCache = new ConvertedValueCache <> ();
+    assertEquals (0, aCache.getCachedKeyCount ());
+    CommonsAssert.assertEquals (0, aCache.getHitRate ());
+
+    final String sValue = "42";
+    assertEquals (Integer.valueOf (42), aCache.getConvertedValue ("a", sValue, Integer.class));
+    assertEquals (0, aCache.getHitCount ());
+    assertEquals (1, aCache.getMissCount ());
+    final Integer aFirst = aCache.getConvertedValue ("a", sValue, Integer.class);
+    assertSame (aFirst, aCache.getConvertedValue ("a", sValue, Integer.class));
+    assertEquals (Long.valueOf (42), aCache.getConvertedValue ("a", sValue, Long.class));
+    assertEquals (2, aCache.getHitCount ());
+    assertEquals (2, aCache.getMissCount ());
+    CommonsAssert.assertEquals (0.5, aCache.getHitRate ());
+    assertEquals (1, aCache.getCachedKeyCount ());
+
+    // No conversion needed - not counted
+    assertSame (sValue, aCache.getConvertedValue ("a", sValue, String.class));
+    assertNull (aCache.getConvertedValue ("a", null, Integer.class));
+    assertEquals (2, aCache.getHitCount ());
+    assertEquals (2, aCache.getMissCount ());
+
+    // Failed conversions are cached as well
+    assertNull (aCache.getConvertedValue ("b", "abc", Integer.class));
+    assertNull (aCache.getConvertedValue ("b", "abc", Integer.class));
+    assertEquals (3, aCache.getHitCount ());
+    assertEquals (3, aCache.getMissCount ());
+
+    // Different source value for the same key is detected
+    assertEquals (Integer.valueOf (17), aCache.getConvertedValue ("a", "17", Integer.class));
+    assertEquals (4, aCache.getMissCount ());
+
+    // Mutable destination types are not cached
+    final char [] aChars1 = aCache.getConvertedValue ("c", "abc", char [].class);
+    final char [] aChars2 = aCache.getConvertedValue ("c", "abc", char [].class);
+    assertArrayEquals ("abc".toCharArray (), aChars1);
+    assertArrayEquals (aChars1, aChars2);
+    assertNotSame (aChars1, aChars2);
+    assertEquals (4, aCache.getMissCount ());
+
+    assertTrue (aCache.invalidate ("a").isChanged ());
+    assertFalse (aCache.invalidate ("a").isChanged ());
+    assertFalse (aCache.invalidate (null).isChanged ());
+    assertTrue (aCache.invalidateAll ().isChanged ());
+    assertFalse (aCache.invalidateAll ().isChanged ());
+    assertEquals (0, aCache.getCachedKeyCount ());
+  }
+}
@@ -20,12 +20,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
 import org.junit.Ignore;
@@ -33,6 +35,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.commons.codec.URLCodec;
 import com.helger.commons.io.resource.FileSystemResource;
 import com.helger.commons.io.stream.StreamHelper;
 
@@ -106,6 +109,58 @@ public final class URLHelperTest
     assertNull (URLHelper.urlDecodeOrNull ("a%%%b", StandardCharsets.UTF_8));
   }
 
+  @Test
+  public void testUrlEncodeDecodeFastPath ()
+  {
+    final URLCodec aCodec = new URLCodec ();
+    for (final Charset aCharset : new Charset [] { StandardCharsets.UTF_8,
+                                                   StandardCharsets.ISO_8859_1,
+                                                   StandardCharsets.US_ASCII,
+                                                   StandardCharsets.UTF_16 })
+      for (final String sDec : new String [] { "",
+                                               "abc",
+                                               "a b+c",
+                                               "a&b=c/d?e#f",
+                                               "-_.~*'()!",
+                                               "äöü ß",
+                                               "x\uD83D\uDE00y",
+                                               "\u20AC 5",
+                                               "tab\tnewline\n" })
+      {
+        final String sEnc = URLHelper.urlEncode (sDec, aCharset);
+        assertEquals (aCodec.getEncodedAsString (sDec, aCharset), sEnc);
+        final StringBuilder aSB = new StringBuilder ("pre");
+        URLHelper.urlEncode (sDec, aCharset, aSB);
+        assertEquals ("pre" + sEnc, aSB.toString ());
+        assertEquals (aCodec.getDecodedAsString (sEnc, aCharset), URLHelper.urlDecode (sEnc, aCharset));
+      }
+
+    // Nothing to encode or decode returns the same object
+    final String s = "abc-def_123.txt";
+    assertSame (s, URLHelper.urlEncode (s));
+    assertSame (s, URLHelper.urlDecode (s));
+    assertSame (s, URLHelper.urlDecodeOrNull (s));
+
+    // Decode parts
+    assertEquals ("a b", URLHelper.urlDecode ("x=a+b&y", 2, 5, StandardCharsets.UTF_8));
+    assertEquals ("ä", URLHelper.urlDecode (new StringBuilder ("%C3%A4"), 0, 6, StandardCharsets.UTF_8));
+    assertEquals ("", URLHelper.urlDecode ("abc", 1, 1, StandardCharsets.UTF_8));
+    // Raw non-ASCII chars
+    assertEquals ("ä ö", URLHelper.urlDecode ("ä+ö"));
+
+    // Invalid
+    for (final String sInvalid : new String [] { "%", "%4", "a%4", "%zz", "%4z", "ab%" })
+      try
+      {
+        URLHelper.urlDecode (sInvalid);
+        fail (sInvalid);
+      }
+      catch (final IllegalArgumentException ex)
+      {
+        // expected
+      }
+  }
+
   @Test
   public void testGetURLData ()
   {
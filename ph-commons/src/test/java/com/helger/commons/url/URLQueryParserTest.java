@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.commons.url;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+
+/**
+ * Test class for class {@link URLQueryParser}.
+ *
+ * @author Philip Helger
+ */
+public final class URLQueryParserTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final URLQueryParser p = new URLQueryParser ();
+    assertEquals (StandardCharsets.UTF_8, p.getCharset ());
+    assertEquals (0, p.getParameterCount ());
+    assertFalse (p.hasParameters ());
+
+    p.parse ("a=b&c=%C3%A4+x&&=y&d&a=2&e=");
+    assertTrue (p.hasParameters ());
+    assertEquals (5, p.getParameterCount ());
+    assertEquals ("a", p.getRawName (0).toString ());
+    assertEquals ("b", p.getRawValue (0).toString ());
+    assertEquals ("%C3%A4+x", p.getRawValue (1).toString ());
+    assertEquals ("ä x", p.getValue (1));
+    assertEquals ("d", p.getName (2));
+    assertEquals ("", p.getValue (2));
+    assertEquals ("2", p.getValue (3));
+    assertEquals ("e", p.getName (4));
+    assertEquals ("", p.getValue (4));
+
+    assertTrue (p.hasName (0, "a"));
+    assertFalse (p.hasName (0, "b"));
+    assertFalse (p.hasName (0, null));
+    assertEquals (2, p.getIndexOfName ("d"));
+    assertEquals (-1, p.getIndexOfName ("x"));
+    assertTrue (p.containsName ("e"));
+    assertFalse (p.containsName (null));
+    assertEquals ("b", p.getFirstValue ("a"));
+    assertNull (p.getFirstValue ("x"));
+    assertEquals (new CommonsArrayList <> ("b", "2"), p.getAllValues ("a"));
+    assertTrue (p.getAllValues ("x").isEmpty ());
+
+    final ICommonsList <String> aList = new CommonsArrayList <> ();
+    p.forEach ( (n, v) -> aList.add (n + "=" + v));
+    assertEquals (new CommonsArrayList <> ("a=b", "c=ä x", "d=", "a=2", "e="), aList);
+
+    // Reuse
+    p.parse ("x%20y=1");
+    assertEquals (1, p.getParameterCount ());
+    assertTrue (p.hasName (0, "x y"));
+    assertEquals ("1", p.getFirstValue ("x y"));
+
+    p.parse (null);
+    assertEquals (0, p.getParameterCount ());
+    p.parse ("");
+    assertEquals (0, p.getParameterCount ());
+    p.parse ("a=b").reset ();
+    assertEquals (0, p.getParameterCount ());
+  }
+
+  @Test
+  public void testPartAndNoDecoding ()
+  {
+    final URLQueryParser p = new URLQueryParser (null);
+    p.parse ("http://x/y?a=%20&b=c#anchor", 11, 20);
+    assertEquals (2, p.getParameterCount ());
+    assertEquals ("%20", p.getValue (0));
+    assertEquals ("c", p.getFirstValue ("b"));
+  }
+
+  @Test
+  public void testManyParameters ()
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    for (int i = 0; i < 100; ++i)
+      aSB.append ("p").append (i).append ('=').append (i).append ('&');
+    final URLQueryParser p = URLQueryParser.parseQuery (aSB);
+    assertEquals (100, p.getParameterCount ());
+    assertEquals ("57", p.getFirstValue ("p57"));
+  }
+
+  @Test
+  public void testSameAsGenericImplementation ()
+  {
+    for (final String sQuery : new String [] { "",
+                                               "a",
+                                               "a=",
+                                               "=",
+                                               "&&",
+                                               "a=b=c",
+                                               "a=b&c=d",
+                                               "a+b=c+d&%C3%A4=%E2%82%AC",
+                                               "&a=1&&b=2&" })
+    {
+      // The generic implementation is used for decoders other than
+      // URLParameterDecoder
+      final URLParameterList aExpected = URLHelper.getParsedQueryParameters (sQuery,
+                                                                             x -> URLHelper.urlDecodeOrNull (x));
+      assertEquals (sQuery, aExpected, new URLQueryParser ().parse (sQuery).getAsURLParameterList ());
+      assertEquals (sQuery,
+                    aExpected,
+                    URLHelper.getParsedQueryParameters (sQuery, new URLParameterDecoder (StandardCharsets.UTF_8)));
+    }
+  }
+}
@@ -0,0 +1,459 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.config;
+
+import java.util.Map;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.callback.CallbackList;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsConcurrentHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.equals.EqualsHelper;
+import com.helger.commons.state.EChange;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCache;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.commons.typeconvert.ConvertedValueCache;
+import com.helger.commons.typeconvert.TypeConverter;
+import com.helger.config.source.IConfigurationSourceReloadCallback;
+import com.helger.config.source.IConfigurationSourceReloadable;
+import com.helger.config.value.IConfigurationValueProviderWithPriorityCallback;
+
+/**
+ * A memoizing decorator for an {@link IConfig}. Resolved raw values and the
+ * results of the type conversions are cached per key, so that repeated lookups
+ * don't need to query all configuration sources and don't need to parse the
+ * value again.<br>
+ * The cache is invalidated as a whole when one of the contained
+ * {@link IConfigurationSourceReloadable} sources is reloaded, when
+ * {@link #reload()} or {@link #reloadIfModified()} is called or manually via
+ * {@link #invalidateAll()} and {@link #invalidate(String)}. After invalidation
+ * all keys that were previously resolved via this cache are resolved again and
+ * the {@link #changeCallbacks()} are invoked for the ones that changed.<br>
+ * Note: the "found" and "not found" consumers of a wrapped {@link Config} are
+ * only invoked on cache misses.<br>
+ * Note: converted values are only cached for immutable target types. Other
+ * types are converted on each invocation.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public class CachingConfig implements IConfig, AutoCloseable
+{
+  private static final IMutableStatisticsHandlerCache STATS_CACHE = StatisticsManager.getCacheHandler (CachingConfig.class.getName () +
+                                                                                                        "$VALUE");
+  // Marker for a failed type conversion
+  private static final Object CONVERSION_FAILED = new Object ();
+
+  private static final class CachedValue
+  {
+    private final String m_sValue;
+    private final ICommonsMap <Class <?>, Object> m_aConvertedValues = new CommonsConcurrentHashMap <> (4);
+
+    CachedValue (@Nullable final String sValue)
+    {
+      m_sValue = sValue;
+    }
+  }
+
+  private final IConfig m_aDelegate;
+  private final CallbackList <IConfigValueChangeCallback> m_aChangeCallbacks = new CallbackList <> ();
+  private final ICommonsList <IConfigurationSourceReloadable> m_aReloadableSources = new CommonsArrayList <> ();
+  private final IConfigurationSourceReloadCallback m_aReloadCallback = x -> invalidateAll ();
+  // Replaced as a whole on invalidation so that concurrent lookups can never
+  // put stale values into the new map
+  private volatile ICommonsMap <String, CachedValue> m_aCache = new CommonsConcurrentHashMap <> ();
+
+  /**
+   * Constructor. Registers a reload callback on all contained
+   * {@link IConfigurationSourceReloadable} sources. Call {@link #close()} to
+   * unregister them again.
+   *
+   * @param aDelegate
+   *        The configuration to be cached. May not be <code>null</code>.
+   */
+  public CachingConfig (@Nonnull final IConfig aDelegate)
+  {
+    ValueEnforcer.notNull (aDelegate, "Delegate");
+    m_aDelegate = aDelegate;
+    aDelegate.forEachConfigurationValueProvider ( (cvp, prio) -> {
+      if (cvp instanceof IConfigurationSourceReloadable)
+        m_aReloadableSources.add ((IConfigurationSourceReloadable) cvp);
+    });
+    for (final IConfigurationSourceReloadable aSource : m_aReloadableSources)
+      aSource.reloadCallbacks ().add (m_aReloadCallback);
+  }
+
+  /**
+   * @return The wrapped configuration as provided in the constructor. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public final IConfig getDelegate ()
+  {
+    return m_aDelegate;
+  }
+
+  /**
+   * @return The callbacks to be invoked for changed configuration values after
+   *         an invalidation. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableObject
+  public final CallbackList <IConfigValueChangeCallback> changeCallbacks ()
+  {
+    return m_aChangeCallbacks;
+  }
+
+  @Nonnull
+  private CachedValue _getCachedValue (@Nullable final String sKey)
+  {
+    if (StringHelper.hasNoText (sKey))
+      return new CachedValue (m_aDelegate.getAsString (sKey));
+
+    final ICommonsMap <String, CachedValue> aCache = m_aCache;
+    CachedValue ret = aCache.get (sKey);
+    if (ret == null)
+    {
+      STATS_CACHE.cacheMiss ();
+      ret = new CachedValue (m_aDelegate.getAsString (sKey));
+      final CachedValue aOld = aCache.putIfAbsent (sKey, ret);
+      if (aOld != null)
+        ret = aOld;
+    }
+    else
+      STATS_CACHE.cacheHit ();
+    return ret;
+  }
+
+  /**
+   * Get the converted value from the cache.
+   *
+   * @return <code>null</code> if the value is <code>null</code> or if the
+   *         conversion failed.
+   */
+  @Nullable
+  private static <T> T _getConvertedValue (@Nonnull final CachedValue aCV, @Nonnull final Class <T> aClass)
+  {
+    if (aCV.m_sValue == null)
+      return null;
+
+    if (!ConvertedValueCache.isCacheableClass (aClass))
+      return TypeConverter.convert (aCV.m_sValue, aClass, null);
+
+    Object ret = aCV.m_aConvertedValues.get (aClass);
+    if (ret == null)
+    {
+      ret = TypeConverter.convert (aCV.m_sValue, aClass, null);
+      if (ret == null)
+        ret = CONVERSION_FAILED;
+      aCV.m_aConvertedValues.put (aClass, ret);
+    }
+    return ret == CONVERSION_FAILED ? null : aClass.cast (ret);
+  }
+
+  @Nullable
+  private <T> T _getConvertedValue (@Nullable final String sKey, @Nonnull final Class <T> aClass)
+  {
+    return _getConvertedValue (_getCachedValue (sKey), aClass);
+  }
+
+  @Nullable
+  public String getValue (@Nullable final String sKey)
+  {
+    return _getCachedValue (sKey).m_sValue;
+  }
+
+  @Override
+  @Nullable
+  public <T> T getConvertedValue (@Nullable final String sKey, @Nonnull final Class <T> aClass)
+  {
+    final CachedValue aCV = _getCachedValue (sKey);
+    final T ret = _getConvertedValue (aCV, aClass);
+    if (ret != null || aCV.m_sValue == null)
+      return ret;
+    // Conversion failed - throws TypeConverterException
+    return TypeConverter.convert (aCV.m_sValue, aClass);
+  }
+
+  @Override
+  @Nullable
+  public <T> T getConvertedValue (@Nullable final String sKey,
+                                  @Nullable final T aDefault,
+                                  @Nonnull final Class <T> aClass)
+  {
+    final T ret = _getConvertedValue (sKey, aClass);
+    return ret != null ? ret : aDefault;
+  }
+
+  @Override
+  public boolean getAsBoolean (@Nullable final String sKey)
+  {
+    final Boolean ret = _getConvertedValue (sKey, Boolean.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.booleanValue () : TypeConverter.convertToBoolean (getValue (sKey));
+  }
+
+  @Override
+  public boolean getAsBoolean (@Nullable final String sKey, final boolean bDefault)
+  {
+    final Boolean ret = _getConvertedValue (sKey, Boolean.class);
+    return ret != null ? ret.booleanValue () : bDefault;
+  }
+
+  @Override
+  public byte getAsByte (@Nullable final String sKey)
+  {
+    final Byte ret = _getConvertedValue (sKey, Byte.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.byteValue () : TypeConverter.convertToByte (getValue (sKey));
+  }
+
+  @Override
+  public byte getAsByte (@Nullable final String sKey, final byte nDefault)
+  {
+    final Byte ret = _getConvertedValue (sKey, Byte.class);
+    return ret != null ? ret.byteValue () : nDefault;
+  }
+
+  @Override
+  public char getAsChar (@Nullable final String sKey)
+  {
+    final Character ret = _getConvertedValue (sKey, Character.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.charValue () : TypeConverter.convertToChar (getValue (sKey));
+  }
+
+  @Override
+  public char getAsChar (@Nullable final String sKey, final char cDefault)
+  {
+    final Character ret = _getConvertedValue (sKey, Character.class);
+    return ret != null ? ret.charValue () : cDefault;
+  }
+
+  @Override
+  public double getAsDouble (@Nullable final String sKey)
+  {
+    final Double ret = _getConvertedValue (sKey, Double.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.doubleValue () : TypeConverter.convertToDouble (getValue (sKey));
+  }
+
+  @Override
+  public double getAsDouble (@Nullable final String sKey, final double dDefault)
+  {
+    final Double ret = _getConvertedValue (sKey, Double.class);
+    return ret != null ? ret.doubleValue () : dDefault;
+  }
+
+  @Override
+  public float getAsFloat (@Nullable final String sKey)
+  {
+    final Float ret = _getConvertedValue (sKey, Float.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.floatValue () : TypeConverter.convertToFloat (getValue (sKey));
+  }
+
+  @Override
+  public float getAsFloat (@Nullable final String sKey, final float fDefault)
+  {
+    final Float ret = _getConvertedValue (sKey, Float.class);
+    return ret != null ? ret.floatValue () : fDefault;
+  }
+
+  @Override
+  public int getAsInt (@Nullable final String sKey)
+  {
+    final Integer ret = _getConvertedValue (sKey, Integer.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.intValue () : TypeConverter.convertToInt (getValue (sKey));
+  }
+
+  @Override
+  public int getAsInt (@Nullable final String sKey, final int nDefault)
+  {
+    final Integer ret = _getConvertedValue (sKey, Integer.class);
+    return ret != null ? ret.intValue () : nDefault;
+  }
+
+  @Override
+  public long getAsLong (@Nullable final String sKey)
+  {
+    final Long ret = _getConvertedValue (sKey, Long.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.longValue () : TypeConverter.convertToLong (getValue (sKey));
+  }
+
+  @Override
+  public long getAsLong (@Nullable final String sKey, final long nDefault)
+  {
+    final Long ret = _getConvertedValue (sKey, Long.class);
+    return ret != null ? ret.longValue () : nDefault;
+  }
+
+  @Override
+  public short getAsShort (@Nullable final String sKey)
+  {
+    final Short ret = _getConvertedValue (sKey, Short.class);
+    // throws TypeConverterException if value is null
+    return ret != null ? ret.shortValue () : TypeConverter.convertToShort (getValue (sKey));
+  }
+
+  @Override
+  public short getAsShort (@Nullable final String sKey, final short nDefault)
+  {
+    final Short ret = _getConvertedValue (sKey, Short.class);
+    return ret != null ? ret.shortValue () : nDefault;
+  }
+
+  public void forEachConfigurationValueProvider (@Nonnull final IConfigurationValueProviderWithPriorityCallback aCallback)
+  {
+    m_aDelegate.forEachConfigurationValueProvider (aCallback);
+  }
+
+  /**
+   * @return The number of currently cached keys. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getCachedKeyCount ()
+  {
+    return m_aCache.size ();
+  }
+
+  private void _onInvalidated (@Nonnull final String sKey, @Nullable final String sOldValue)
+  {
+    // Resolve again - this also warms up the cache again
+    final String sNewValue = getValue (sKey);
+    if (!EqualsHelper.equals (sOldValue, sNewValue))
+      m_aChangeCallbacks.forEach (x -> x.onConfigValueChanged (sKey, sOldValue, sNewValue));
+  }
+
+  /**
+   * Remove a single key from the cache. If change callbacks are registered, the
+   * value is resolved again and the callbacks are invoked if it changed.
+   *
+   * @param sKey
+   *        The key to invalidate. May be <code>null</code>.
+   * @return {@link EChange#CHANGED} if the key was cached.
+   */
+  @Nonnull
+  public EChange invalidate (@Nullable final String sKey)
+  {
+    if (StringHelper.hasNoText (sKey))
+      return EChange.UNCHANGED;
+
+    final CachedValue aOld = m_aCache.remove (sKey);
+    if (aOld == null)
+      return EChange.UNCHANGED;
+
+    if (m_aChangeCallbacks.isNotEmpty ())
+      _onInvalidated (sKey, aOld.m_sValue);
+    return EChange.CHANGED;
+  }
+
+  /**
+   * Remove all keys from the cache. If change callbacks are registered, all
+   * previously cached keys are resolved again and the callbacks are invoked
+   * for the ones that changed.
+   */
+  public void invalidateAll ()
+  {
+    final ICommonsMap <String, CachedValue> aOldCache = m_aCache;
+    m_aCache = new CommonsConcurrentHashMap <> ();
+
+    if (m_aChangeCallbacks.isNotEmpty ())
+      for (final Map.Entry <String, CachedValue> aEntry : aOldCache.entrySet ())
+        _onInvalidated (aEntry.getKey (), aEntry.getValue ().m_sValue);
+  }
+
+  /**
+   * Explicitly reload all contained {@link IConfigurationSourceReloadable}
+   * sources. Changed sources invalidate the cache via their reload callback. If
+   * no source changed, the cache is invalidated explicitly, because e.g.
+   * environment variables or system properties may have changed.
+   *
+   * @return {@link EChange#CHANGED} if at least one source changed.
+   */
+  @Nonnull
+  public EChange reload ()
+  {
+    EChange ret = EChange.UNCHANGED;
+    for (final IConfigurationSourceReloadable aSource : m_aReloadableSources)
+      ret = ret.or (aSource.reload ());
+    if (ret.isUnchanged ())
+      invalidateAll ();
+    return ret;
+  }
+
+  /**
+   * Reload all contained {@link IConfigurationSourceReloadable} sources that
+   * were modified since the last load. The cache is invalidated via the reload
+   * callback of the sources.
+   *
+   * @return {@link EChange#CHANGED} if at least one source changed.
+   */
+  @Nonnull
+  public EChange reloadIfModified ()
+  {
+    EChange ret = EChange.UNCHANGED;
+    for (final IConfigurationSourceReloadable aSource : m_aReloadableSources)
+      ret = ret.or (aSource.reloadIfModified ());
+    return ret;
+  }
+
+  /**
+   * Unregister the reload callbacks from all contained sources. The cache
+   * itself stays usable but is no longer invalidated automatically.
+   */
+  public void close ()
+  {
+    for (final IConfigurationSourceReloadable aSource : m_aReloadableSources)
+      aSource.reloadCallbacks ().removeObject (m_aReloadCallback);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Delegate", m_aDelegate)
+                                       .append ("CachedKeyCount", m_aCache.size ())
+                                       .append ("ReloadableSources", m_aReloadableSources)
+                                       .getToString ();
+  }
+
+  /**
+   * Create a new {@link CachingConfig} for the passed configuration.
+   *
+   * @param aConfig
+   *        The configuration to be cached. May not be <code>null</code>.
+   * @return Never <code>null</code>.
+   */
+  @Nonnull
+  public static CachingConfig create (@Nonnull final IConfig aConfig)
+  {
+    return new CachingConfig (aConfig);
+  }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.config;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.callback.ICallback;
+
+/**
+ * Callback interface to be notified about changed configuration values of a
+ * {@link CachingConfig}.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@FunctionalInterface
+public interface IConfigValueChangeCallback extends ICallback
+{
+  /**
+   * Invoked for every changed configuration value.
+   *
+   * @param sKey
+   *        The configuration key that changed. Neither <code>null</code> nor
+   *        empty.
+   * @param sOldValue
+   *        The previous value. May be <code>null</code>.
+   * @param sNewValue
+   *        The new value. May be <code>null</code>.
+   */
+  void onConfigValueChanged (@Nonnull @Nonempty String sKey, @Nullable String sOldValue, @Nullable String sNewValue);
+}
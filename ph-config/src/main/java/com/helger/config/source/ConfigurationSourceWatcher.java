@@ -0,0 +1,341 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.config.source;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsCopyOnWriteArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.concurrent.SimpleLock;
+import com.helger.commons.state.EChange;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.config.IConfig;
+import com.helger.config.source.res.IConfigurationSourceResource;
+
+/**
+ * Watches {@link IConfigurationSourceReloadable} sources in the background and
+ * reloads them when they were modified. The check is based on polling the
+ * modification time, because that works for all file systems and also detects
+ * files that are replaced by editors or deployment tools.<br>
+ * Reloading happens on a single daemon thread. The sources swap their content
+ * atomically, so readers never block and never see partially read data. All
+ * dependent caches (like {@link com.helger.config.CachingConfig}) are notified
+ * via the reload callbacks of the sources.<br>
+ * To avoid reading half written files, a modified resource file is only
+ * reloaded after its modification time is at least the settle time old.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public class ConfigurationSourceWatcher implements AutoCloseable
+{
+  public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds (5);
+  public static final Duration DEFAULT_SETTLE_TIME = Duration.ofMillis (500);
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (ConfigurationSourceWatcher.class);
+  private static final IMutableStatisticsHandlerCounter STATS_RELOAD = StatisticsManager.getCounterHandler (ConfigurationSourceWatcher.class.getName () +
+                                                                                                            "$RELOAD");
+
+  private final ICommonsList <IConfigurationSourceReloadable> m_aSources = new CommonsCopyOnWriteArrayList <> ();
+  private final Duration m_aPollInterval;
+  private final Duration m_aSettleTime;
+  private final LongAdder m_aCheckCount = new LongAdder ();
+  private final LongAdder m_aReloadCount = new LongAdder ();
+  private final SimpleLock m_aLock = new SimpleLock ();
+  private ScheduledExecutorService m_aExecutor;
+
+  /**
+   * Constructor with default poll interval and default settle time.
+   */
+  public ConfigurationSourceWatcher ()
+  {
+    this (DEFAULT_POLL_INTERVAL, DEFAULT_SETTLE_TIME);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aPollInterval
+   *        The interval in which the sources are checked for modifications.
+   *        May not be <code>null</code> and must be positive.
+   * @param aSettleTime
+   *        The minimum age of a modification before the file is reloaded. May
+   *        not be <code>null</code> and must not be negative.
+   */
+  public ConfigurationSourceWatcher (@Nonnull final Duration aPollInterval, @Nonnull final Duration aSettleTime)
+  {
+    ValueEnforcer.notNull (aPollInterval, "PollInterval");
+    ValueEnforcer.isTrue (!aPollInterval.isNegative () && !aPollInterval.isZero (), "PollInterval must be positive");
+    ValueEnforcer.notNull (aSettleTime, "SettleTime");
+    ValueEnforcer.isFalse (aSettleTime.isNegative (), "SettleTime may not be negative");
+    m_aPollInterval = aPollInterval;
+    m_aSettleTime = aSettleTime;
+  }
+
+  @Nonnull
+  public final Duration getPollInterval ()
+  {
+    return m_aPollInterval;
+  }
+
+  @Nonnull
+  public final Duration getSettleTime ()
+  {
+    return m_aSettleTime;
+  }
+
+  /**
+   * Add a source to be watched.
+   *
+   * @param aSource
+   *        The source to be watched. May not be <code>null</code>.
+   * @return {@link EChange#CHANGED} if the source was added,
+   *         {@link EChange#UNCHANGED} if it is already watched.
+   */
+  @Nonnull
+  public EChange addSource (@Nonnull final IConfigurationSourceReloadable aSource)
+  {
+    ValueEnforcer.notNull (aSource, "Source");
+    return m_aLock.lockedGet ( () -> {
+      if (m_aSources.containsAny (x -> x == aSource))
+        return EChange.UNCHANGED;
+      m_aSources.add (aSource);
+      return EChange.CHANGED;
+    });
+  }
+
+  /**
+   * Add all {@link IConfigurationSourceReloadable} sources contained in the
+   * passed configuration.
+   *
+   * @param aConfig
+   *        The configuration to scan. May not be <code>null</code>.
+   * @return {@link EChange#CHANGED} if at least one source was added.
+   */
+  @Nonnull
+  public EChange addAllSources (@Nonnull final IConfig aConfig)
+  {
+    ValueEnforcer.notNull (aConfig, "Config");
+    final ICommonsList <IConfigurationSourceReloadable> aSources = new CommonsArrayList <> ();
+    aConfig.forEachConfigurationValueProvider ( (cvp, prio) -> {
+      if (cvp instanceof IConfigurationSourceReloadable)
+        aSources.add ((IConfigurationSourceReloadable) cvp);
+    });
+    EChange ret = EChange.UNCHANGED;
+    for (final IConfigurationSourceReloadable aSource : aSources)
+      ret = ret.or (addSource (aSource));
+    return ret;
+  }
+
+  /**
+   * Stop watching a source.
+   *
+   * @param aSource
+   *        The source to be removed. May be <code>null</code>.
+   * @return {@link EChange#CHANGED} if the source was removed.
+   */
+  @Nonnull
+  public EChange removeSource (@Nullable final IConfigurationSourceReloadable aSource)
+  {
+    if (aSource == null)
+      return EChange.UNCHANGED;
+    return m_aLock.lockedGet ( () -> m_aSources.removeIf (x -> x == aSource) ? EChange.CHANGED : EChange.UNCHANGED);
+  }
+
+  /**
+   * @return A copy of all watched sources. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsList <IConfigurationSourceReloadable> getAllSources ()
+  {
+    return m_aSources.getClone ();
+  }
+
+  private boolean _isSettled (@Nonnull final IConfigurationSourceReloadable aSource, final long nNow)
+  {
+    if (aSource instanceof IConfigurationSourceResource)
+    {
+      final File aFile = ((IConfigurationSourceResource) aSource).getResource ().getAsFile ();
+      if (aFile != null)
+      {
+        final long nLastModified = aFile.lastModified ();
+        // Deleted files and future modification times are treated as settled
+        return nLastModified == 0 || nLastModified > nNow || nNow - nLastModified >= m_aSettleTime.toMillis ();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Check all sources for modifications and reload the modified ones. This is
+   * called periodically after {@link #start()} but may also be called
+   * manually.
+   *
+   * @return The number of reloaded sources whose content changed. Always
+   *         &ge; 0.
+   */
+  @Nonnegative
+  public int checkNow ()
+  {
+    m_aCheckCount.increment ();
+    final long nNow = System.currentTimeMillis ();
+    int ret = 0;
+    for (final IConfigurationSourceReloadable aSource : m_aSources)
+    {
+      try
+      {
+        if (_isSettled (aSource, nNow) && aSource.reloadIfModified ().isChanged ())
+        {
+          ret++;
+          m_aReloadCount.increment ();
+          STATS_RELOAD.increment ();
+          if (LOGGER.isInfoEnabled ())
+            LOGGER.info ("Reloaded configuration source " + aSource);
+        }
+      }
+      catch (final RuntimeException ex)
+      {
+        // Never let an exception stop the background thread
+        LOGGER.error ("Failed to reload configuration source " + aSource, ex);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @return The number of modification checks performed so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getCheckCount ()
+  {
+    return m_aCheckCount.sum ();
+  }
+
+  /**
+   * @return The number of reloads that changed the content of a source so far.
+   *         Always &ge; 0.
+   */
+  @Nonnegative
+  public long getReloadCount ()
+  {
+    return m_aReloadCount.sum ();
+  }
+
+  /**
+   * @return <code>true</code> if the background checking is active.
+   */
+  public boolean isStarted ()
+  {
+    return m_aLock.lockedGet ( () -> m_aExecutor != null);
+  }
+
+  /**
+   * Start the background checking. Does nothing if it is already started.
+   *
+   * @return {@link EChange#CHANGED} if it was started.
+   */
+  @Nonnull
+  public EChange start ()
+  {
+    return m_aLock.lockedGet ( () -> {
+      if (m_aExecutor != null)
+        return EChange.UNCHANGED;
+      m_aExecutor = Executors.newSingleThreadScheduledExecutor (new BasicThreadFactory.Builder ().setNamingPattern ("ph-config-watcher-%d")
+                                                                                                 .setDaemon (true)
+                                                                                                 .build ());
+      final long nMillis = m_aPollInterval.toMillis ();
+      m_aExecutor.scheduleWithFixedDelay (this::checkNow, nMillis, nMillis, TimeUnit.MILLISECONDS);
+      return EChange.CHANGED;
+    });
+  }
+
+  /**
+   * Stop the background checking and wait until a running check is finished.
+   * Does nothing if it is not started.
+   *
+   * @return {@link EChange#CHANGED} if it was stopped.
+   */
+  @Nonnull
+  public EChange stop ()
+  {
+    final ScheduledExecutorService aExecutor = m_aLock.lockedGet ( () -> {
+      final ScheduledExecutorService ret = m_aExecutor;
+      m_aExecutor = null;
+      return ret;
+    });
+    if (aExecutor == null)
+      return EChange.UNCHANGED;
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aExecutor);
+    return EChange.CHANGED;
+  }
+
+  public void close ()
+  {
+    stop ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Sources", m_aSources)
+                                       .append ("PollInterval", m_aPollInterval)
+                                       .append ("SettleTime", m_aSettleTime)
+                                       .getToString ();
+  }
+
+  /**
+   * Create a new watcher for all reloadable sources of the passed configuration
+   * and start it.
+   *
+   * @param aConfig
+   *        The configuration to watch. May not be <code>null</code>.
+   * @param aPollInterval
+   *        The interval in which the sources are checked for modifications.
+   *        May not be <code>null</code> and must be positive.
+   * @return The started watcher. Never <code>null</code>.
+   */
+  @Nonnull
+  public static ConfigurationSourceWatcher createAndStart (@Nonnull final IConfig aConfig, @Nonnull final Duration aPollInterval)
+  {
+    final ConfigurationSourceWatcher ret = new ConfigurationSourceWatcher (aPollInterval, DEFAULT_SETTLE_TIME);
+    ret.addAllSources (aConfig);
+    ret.start ();
+    return ret;
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.config.source;
+
+import javax.annotation.Nonnull;
+
+import com.helger.commons.callback.ICallback;
+
+/**
+ * Callback interface to be notified after an
+ * {@link IConfigurationSourceReloadable} changed its content.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@FunctionalInterface
+public interface IConfigurationSourceReloadCallback extends ICallback
+{
+  /**
+   * Invoked after the content of the source was swapped.
+   *
+   * @param aSource
+   *        The source that was reloaded. Never <code>null</code>.
+   */
+  void onConfigurationSourceReloaded (@Nonnull IConfigurationSourceReloadable aSource);
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.config.source;
+
+import javax.annotation.Nonnull;
+
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.callback.CallbackList;
+import com.helger.commons.state.EChange;
+
+/**
+ * A configuration source whose content can be re-read at runtime. Reloading
+ * swaps the complete content at once, so that concurrent readers see either
+ * the old or the new state but never a mixture of both.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+public interface IConfigurationSourceReloadable extends IConfigurationSource
+{
+  /**
+   * Unconditionally re-read the underlying data. If the data cannot be read,
+   * the previous content is retained.
+   *
+   * @return {@link EChange#CHANGED} if the content changed,
+   *         {@link EChange#UNCHANGED} otherwise. Never <code>null</code>.
+   */
+  @Nonnull
+  EChange reload ();
+
+  /**
+   * Re-read the underlying data only if it was modified since the last load
+   * (e.g. based on the file modification time). If the modification cannot be
+   * determined, nothing happens.
+   *
+   * @return {@link EChange#CHANGED} if the content changed,
+   *         {@link EChange#UNCHANGED} otherwise. Never <code>null</code>.
+   */
+  @Nonnull
+  EChange reloadIfModified ();
+
+  /**
+   * @return The callbacks that are invoked after the content of this source
+   *         changed because of a reload. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableObject
+  CallbackList <IConfigurationSourceReloadCallback> reloadCallbacks ();
+}
@@ -19,27 +19,39 @@ package com.helger.config.source.res;
 import java.io.File;
 
 import javax.annotation.Nonnull;
-import javax.annotation.concurrent.Immutable;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.annotation.ReturnsMutableObject;
+import com.helger.commons.callback.CallbackList;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.concurrent.SimpleLock;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.hashcode.HashCodeGenerator;
 import com.helger.commons.io.resource.IReadableResource;
+import com.helger.commons.state.EChange;
 import com.helger.commons.string.ToStringGenerator;
 import com.helger.config.source.AbstractConfigurationSource;
 import com.helger.config.source.EConfigSourceType;
 import com.helger.config.source.IConfigurationSource;
+import com.helger.config.source.IConfigurationSourceReloadCallback;
 
 /**
  * Abstract implementation of {@link IConfigurationSource} for file based
- * configuration sources.
+ * configuration sources.<br>
+ * The parsed content is kept as an immutable snapshot that is replaced as a
+ * whole on {@link #reload()}, so readers never need to lock.
  *
  * @author Philip Helger
  */
-@Immutable
+@ThreadSafe
 public abstract class AbstractConfigurationSourceResource extends AbstractConfigurationSource implements
                                                           IConfigurationSourceResource
 {
@@ -48,12 +60,19 @@ public abstract class AbstractConfigurationSourceResource extends AbstractConfig
   private static final Logger LOGGER = LoggerFactory.getLogger (AbstractConfigurationSourceResource.class);
 
   private final IReadableResource m_aRes;
+  private final SimpleLock m_aReloadLock = new SimpleLock ();
+  private final CallbackList <IConfigurationSourceReloadCallback> m_aReloadCallbacks = new CallbackList <> ();
+  // The last modification time of the resource file at the last load
+  private volatile long m_nLastModification;
+  // Never modified after it was assigned
+  private volatile ICommonsOrderedMap <String, String> m_aConfigItems;
 
   protected AbstractConfigurationSourceResource (final int nPriority, @Nonnull final IReadableResource aRes)
   {
     super (SOURCE_TYPE, nPriority);
     ValueEnforcer.notNull (aRes, "Resource");
     m_aRes = aRes;
+    m_nLastModification = _getLastModification ();
 
     final File aFile = aRes.getAsFile ();
     if (aFile != null)
@@ -78,6 +97,101 @@ public abstract class AbstractConfigurationSourceResource extends AbstractConfig
     return m_aRes;
   }
 
+  private long _getLastModification ()
+  {
+    final File aFile = m_aRes.getAsFile ();
+    // 0 if the file does not exist
+    return aFile == null ? 0 : aFile.lastModified ();
+  }
+
+  /**
+   * Read and parse the underlying resource. This method is called once from the
+   * constructor of the implementation class via {@link #initConfigItems()} and
+   * on every reload.
+   *
+   * @return The parsed configuration items or <code>null</code> if the
+   *         resource could not be read or parsed. The returned map must not be
+   *         modified afterwards.
+   * @since 9.4.3
+   */
+  @Nullable
+  protected abstract ICommonsOrderedMap <String, String> readConfigItems ();
+
+  /**
+   * Perform the initial read of the resource. Must be called at the end of the
+   * constructor of the implementation class.
+   *
+   * @since 9.4.3
+   */
+  protected final void initConfigItems ()
+  {
+    m_aConfigItems = readConfigItems ();
+  }
+
+  public final boolean isInitializedAndUsable ()
+  {
+    return m_aConfigItems != null;
+  }
+
+  @Nullable
+  public final String getConfigurationValue (@Nonnull @Nonempty final String sKey)
+  {
+    final ICommonsOrderedMap <String, String> aConfigItems = m_aConfigItems;
+    return aConfigItems == null ? null : aConfigItems.get (sKey);
+  }
+
+  @Nonnull
+  @ReturnsMutableCopy
+  public final ICommonsOrderedMap <String, String> getAllConfigItems ()
+  {
+    return new CommonsLinkedHashMap <> (m_aConfigItems);
+  }
+
+  @Nonnull
+  public final EChange reload ()
+  {
+    final EChange eChange = m_aReloadLock.lockedGet ( () -> {
+      // Remember before reading, so that modifications while reading are
+      // detected by the next check
+      m_nLastModification = _getLastModification ();
+
+      final ICommonsOrderedMap <String, String> aNewConfigItems = readConfigItems ();
+      if (aNewConfigItems == null)
+      {
+        LOGGER.warn ("Failed to reload configuration resource '" + m_aRes.getPath () + "' - keeping the previous content");
+        return EChange.UNCHANGED;
+      }
+      if (aNewConfigItems.equals (m_aConfigItems))
+        return EChange.UNCHANGED;
+
+      m_aConfigItems = aNewConfigItems;
+      return EChange.CHANGED;
+    });
+
+    if (eChange.isChanged ())
+    {
+      if (LOGGER.isDebugEnabled ())
+        LOGGER.debug ("Reloaded configuration resource '" + m_aRes.getPath () + "'");
+      m_aReloadCallbacks.forEach (x -> x.onConfigurationSourceReloaded (this));
+    }
+    return eChange;
+  }
+
+  @Nonnull
+  public final EChange reloadIfModified ()
+  {
+    if (m_aRes.getAsFile () == null || _getLastModification () == m_nLastModification)
+      return EChange.UNCHANGED;
+    return reload ();
+  }
+
+  @Nonnull
+  @ReturnsMutableObject
+  public final CallbackList <IConfigurationSourceReloadCallback> reloadCallbacks ()
+  {
+    return m_aReloadCallbacks;
+  }
+
   @Override
   public boolean equals (final Object o)
   {
@@ -98,6 +212,9 @@ public abstract class AbstractConfigurationSourceResource extends AbstractConfig
   @Override
   public String toString ()
   {
-    return ToStringGenerator.getDerived (super.toString ()).append ("File", m_aRes).getToString ();
+    return ToStringGenerator.getDerived (super.toString ())
+                            .append ("File", m_aRes)
+                            .append ("ConfigItems", m_aConfigItems)
+                            .getToString ();
   }
 }
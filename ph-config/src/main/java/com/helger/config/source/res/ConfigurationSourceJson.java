@@ -21,13 +21,11 @@ import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.helger.commons.annotation.Nonempty;
-import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.collection.impl.CommonsLinkedHashMap;
 import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.io.resource.IReadableResource;
@@ -44,7 +42,7 @@ import com.helger.json.serialize.JsonReader;
  *
  * @author Philip Helger
  */
-@Immutable
+@ThreadSafe
 public class ConfigurationSourceJson extends AbstractConfigurationSourceResource
 {
   public static final char LEVEL_SEPARATOR = '.';
@@ -52,7 +50,7 @@ public class ConfigurationSourceJson extends AbstractConfigurationSourceResource
 
   private static final Logger LOGGER = LoggerFactory.getLogger (ConfigurationSourceJson.class);
 
-  private final ICommonsOrderedMap <String, String> m_aProps;
+  private final Charset m_aCharset;
 
   private static void _recursiveFlattenJson (@Nonnull final String sNamePrefix,
                                              @Nonnull final IJson aJson,
@@ -129,8 +127,17 @@ public class ConfigurationSourceJson extends AbstractConfigurationSourceResource
   public ConfigurationSourceJson (final int nPriority, @Nonnull final IReadableResource aRes, @Nullable final Charset aCharset)
   {
     super (nPriority, aRes);
+    m_aCharset = aCharset;
+    initConfigItems ();
+  }
+
+  @Override
+  @Nullable
+  protected ICommonsOrderedMap <String, String> readConfigItems ()
+  {
+    final IReadableResource aRes = getResource ();
     final JsonReader.Builder aBuilder = JsonReader.builder ()
-                                                  .setSource (aRes, aCharset != null ? aCharset : JsonReader.DEFAULT_CHARSET)
+                                                  .setSource (aRes, m_aCharset != null ? m_aCharset : JsonReader.DEFAULT_CHARSET)
                                                   .setCustomizeCallback (aParser -> aParser.setRequireStringQuotes (false)
                                                                                            .setAllowSpecialCharsInStrings (true)
                                                                                            .setAlwaysUseBigNumber (true)
@@ -140,32 +147,13 @@ public class ConfigurationSourceJson extends AbstractConfigurationSourceResource
                                                                                                    "' to JSON: " +
                                                                                                    ex.getMessage ()));
     final IJsonObject aProps = aBuilder.hasSource () ? aBuilder.readAsObject () : null;
-    if (aProps != null)
-    {
-      m_aProps = new CommonsLinkedHashMap <> ();
-      for (final Map.Entry <String, IJson> aEntry : aProps)
-        _recursiveFlattenJson (aEntry.getKey (), aEntry.getValue (), m_aProps);
-    }
-    else
-      m_aProps = null;
-  }
+    if (aProps == null)
+      return null;
 
-  public boolean isInitializedAndUsable ()
-  {
-    return m_aProps != null;
-  }
-
-  @Nullable
-  public String getConfigurationValue (@Nonnull @Nonempty final String sKey)
-  {
-    return m_aProps == null ? null : m_aProps.get (sKey);
-  }
-
-  @Nonnull
-  @ReturnsMutableCopy
-  public ICommonsOrderedMap <String, String> getAllConfigItems ()
-  {
-    return new CommonsLinkedHashMap <> (m_aProps);
+    final ICommonsOrderedMap <String, String> ret = new CommonsLinkedHashMap <> ();
+    for (final Map.Entry <String, IJson> aEntry : aProps)
+      _recursiveFlattenJson (aEntry.getKey (), aEntry.getValue (), ret);
+    return ret;
   }
 
   @Override
@@ -185,6 +173,6 @@ public class ConfigurationSourceJson extends AbstractConfigurationSourceResource
   @Override
   public String toString ()
   {
-    return ToStringGenerator.getDerived (super.toString ()).append ("Properties", m_aProps).getToString ();
+    return ToStringGenerator.getDerived (super.toString ()).append ("Charset", m_aCharset).getToString ();
   }
 }
@@ -20,14 +20,10 @@ import java.nio.charset.Charset;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
 
-import com.helger.commons.annotation.Nonempty;
-import com.helger.commons.annotation.ReturnsMutableCopy;
-import com.helger.commons.collection.impl.CommonsLinkedHashMap;
 import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.io.resource.IReadableResource;
-import com.helger.commons.lang.NonBlockingProperties;
 import com.helger.commons.lang.PropertiesHelper;
 import com.helger.commons.string.ToStringGenerator;
 import com.helger.config.source.IConfigurationSource;
@@ -38,10 +34,10 @@ import com.helger.config.source.IConfigurationSource;
  *
  * @author Philip Helger
  */
-@Immutable
+@ThreadSafe
 public class ConfigurationSourceProperties extends AbstractConfigurationSourceResource
 {
-  private final NonBlockingProperties m_aProps;
+  private final Charset m_aCharset;
 
   /**
    * Constructor with default priority and default charset
@@ -93,25 +89,16 @@ public class ConfigurationSourceProperties extends AbstractConfigurationSourceRe
   public ConfigurationSourceProperties (final int nPriority, @Nonnull final IReadableResource aRes, @Nullable final Charset aCharset)
   {
     super (nPriority, aRes);
-    m_aProps = aCharset == null ? PropertiesHelper.loadProperties (aRes) : PropertiesHelper.loadProperties (aRes, aCharset);
-  }
-
-  public boolean isInitializedAndUsable ()
-  {
-    return m_aProps != null;
+    m_aCharset = aCharset;
+    initConfigItems ();
   }
 
+  @Override
   @Nullable
-  public String getConfigurationValue (@Nonnull @Nonempty final String sKey)
-  {
-    return m_aProps == null ? null : m_aProps.get (sKey);
-  }
-
-  @Nonnull
-  @ReturnsMutableCopy
-  public ICommonsOrderedMap <String, String> getAllConfigItems ()
+  protected ICommonsOrderedMap <String, String> readConfigItems ()
   {
-    return new CommonsLinkedHashMap <> (m_aProps);
+    final IReadableResource aRes = getResource ();
+    return m_aCharset == null ? PropertiesHelper.loadProperties (aRes) : PropertiesHelper.loadProperties (aRes, m_aCharset);
   }
 
   @Override
@@ -131,6 +118,6 @@ public class ConfigurationSourceProperties extends AbstractConfigurationSourceRe
   @Override
   public String toString ()
   {
-    return ToStringGenerator.getDerived (super.toString ()).append ("Properties", m_aProps).getToString ();
+    return ToStringGenerator.getDerived (super.toString ()).append ("Charset", m_aCharset).getToString ();
   }
 }
@@ -21,14 +21,15 @@ import javax.annotation.Nonnull;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.collection.impl.ICommonsOrderedMap;
 import com.helger.commons.io.resource.IReadableResource;
-import com.helger.config.source.IConfigurationSource;
+import com.helger.config.source.IConfigurationSourceReloadable;
 
 /**
- * Specific configuration source based on a readable resource.
+ * Specific configuration source based on a readable resource. Since v9.4.3
+ * all resource based configuration sources are reloadable.
  *
  * @author Philip Helger
  */
-public interface IConfigurationSourceResource extends IConfigurationSource
+public interface IConfigurationSourceResource extends IConfigurationSourceReloadable
 {
   /**
    * @return The resource of this configuration source. Never <code>null</code>.
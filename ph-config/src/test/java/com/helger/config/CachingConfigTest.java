@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.io.file.FileOperations;
+import com.helger.commons.io.file.SimpleFileIO;
+import com.helger.commons.io.resource.FileSystemResource;
+import com.helger.commons.mutable.MutableInt;
+import com.helger.commons.typeconvert.TypeConverterException;
+import com.helger.config.source.MultiConfigurationValueProvider;
+import com.helger.config.source.appl.ConfigurationSourceFunction;
+import com.helger.config.source.res.ConfigurationSourceProperties;
+
+/**
+ * Test class for class {@link CachingConfig}.
+ *
+ * @author Philip Helger
+ */
+public final class CachingConfigTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final ICommonsMap <String, String> aValues = new CommonsHashMap <> ();
+    aValues.put ("int", "17");
+    aValues.put ("bool", "true");
+    aValues.put ("dec", "3.14");
+    aValues.put ("str", "abc");
+    final MutableInt aLookups = new MutableInt (0);
+    final IConfig aConfig = Config.create (new ConfigurationSourceFunction (k -> {
+      aLookups.inc ();
+      return aValues.get (k);
+    }));
+
+    final CachingConfig c = CachingConfig.create (aConfig);
+    assertSame (aConfig, c.getDelegate ());
+    assertEquals (0, c.getCachedKeyCount ());
+
+    for (int i = 0; i < 3; ++i)
+    {
+      assertEquals ("17", c.getValue ("int"));
+      assertEquals (17, c.getAsInt ("int"));
+      assertEquals (17L, c.getAsLong ("int", -1));
+      assertEquals (Integer.valueOf (17), c.getAsIntObj ("int"));
+      assertTrue (c.getAsBoolean ("bool"));
+      assertEquals (new BigDecimal ("3.14"), c.getAsBigDecimal ("dec"));
+      assertEquals ("abc", c.getAsString ("str"));
+      assertNull (c.getAsString ("none"));
+      assertEquals ("def", c.getAsString ("none", "def"));
+      assertEquals (5, c.getAsInt ("none", 5));
+      // Conversion error
+      assertEquals (-1, c.getAsInt ("str", -1));
+      assertNull (c.getAsIntObj ("str"));
+      assertNull (c.getValue (""));
+    }
+    // One lookup per key only
+    assertEquals (5, aLookups.intValue ());
+    assertEquals (5, c.getCachedKeyCount ());
+
+    try
+    {
+      c.getAsInt ("str");
+      fail ();
+    }
+    catch (final TypeConverterException ex)
+    {
+      // expected
+    }
+    try
+    {
+      c.getAsInt ("none");
+      fail ();
+    }
+    catch (final TypeConverterException ex)
+    {
+      // expected
+    }
+
+    // Invalidate single key
+    aValues.put ("int", "18");
+    assertEquals (17, c.getAsInt ("int"));
+    assertTrue (c.invalidate ("int").isChanged ());
+    assertFalse (c.invalidate ("int").isChanged ());
+    assertEquals (18, c.getAsInt ("int"));
+    assertEquals (6, aLookups.intValue ());
+
+    // Invalidate all
+    c.invalidateAll ();
+    assertEquals (0, c.getCachedKeyCount ());
+    assertEquals ("abc", c.getAsString ("str"));
+    assertEquals (7, aLookups.intValue ());
+  }
+
+  @Test
+  public void testChangeCallbacks ()
+  {
+    final ICommonsMap <String, String> aValues = new CommonsHashMap <> ();
+    aValues.put ("a", "1");
+    aValues.put ("b", "2");
+    final CachingConfig c = CachingConfig.create (Config.create (new ConfigurationSourceFunction (aValues::get)));
+    final ICommonsList <String> aChanges = new CommonsArrayList <> ();
+    c.changeCallbacks ().add ( (k, o, n) -> aChanges.add (k + ":" + o + "->" + n));
+
+    assertEquals ("1", c.getValue ("a"));
+    assertEquals ("2", c.getValue ("b"));
+    assertNull (c.getValue ("c"));
+
+    aValues.put ("a", "10");
+    aValues.put ("c", "3");
+    c.invalidateAll ();
+    aChanges.sort (String::compareTo);
+    assertEquals (new CommonsArrayList <> ("a:1->10", "c:null->3"), aChanges);
+    // Cache was warmed up again
+    assertEquals (3, c.getCachedKeyCount ());
+    assertEquals ("10", c.getValue ("a"));
+
+    aChanges.clear ();
+    aValues.remove ("b");
+    c.invalidate ("b");
+    assertEquals (new CommonsArrayList <> ("b:2->null"), aChanges);
+  }
+
+  @Test
+  public void testReloadableSource ()
+  {
+    final File aFile = new File ("target/test-caching-config.properties");
+    assertTrue (SimpleFileIO.writeFile (aFile, "key=a\n", StandardCharsets.ISO_8859_1).isSuccess ());
+    try
+    {
+      final ConfigurationSourceProperties aSource = new ConfigurationSourceProperties (new FileSystemResource (aFile));
+      final MultiConfigurationValueProvider aMCSVP = new MultiConfigurationValueProvider ();
+      aMCSVP.addConfigurationSource (aSource);
+      try (final CachingConfig c = CachingConfig.create (Config.create (aMCSVP)))
+      {
+        final ICommonsList <String> aChanges = new CommonsArrayList <> ();
+        c.changeCallbacks ().add ( (k, o, n) -> aChanges.add (k + ":" + o + "->" + n));
+        assertEquals (1, aSource.reloadCallbacks ().size ());
+
+        assertEquals ("a", c.getValue ("key"));
+        assertTrue (c.reloadIfModified ().isUnchanged ());
+        assertTrue (c.reload ().isUnchanged ());
+        assertTrue (aChanges.isEmpty ());
+
+        assertTrue (SimpleFileIO.writeFile (aFile, "key=b\n", StandardCharsets.ISO_8859_1).isSuccess ());
+        assertTrue (aFile.setLastModified (aFile.lastModified () + 2000));
+        assertEquals ("a", c.getValue ("key"));
+        assertTrue (c.reloadIfModified ().isChanged ());
+        assertEquals ("b", c.getValue ("key"));
+        assertEquals (new CommonsArrayList <> ("key:a->b"), aChanges);
+
+        // Reloading the source directly also invalidates the cache
+        assertTrue (SimpleFileIO.writeFile (aFile, "key=c\n", StandardCharsets.ISO_8859_1).isSuccess ());
+        assertTrue (aSource.reload ().isChanged ());
+        assertEquals ("c", c.getValue ("key"));
+
+        // Explicit reload of a changed source invalidates only once
+        assertTrue (SimpleFileIO.writeFile (aFile, "key=d\n", StandardCharsets.ISO_8859_1).isSuccess ());
+        assertTrue (c.reload ().isChanged ());
+        assertEquals ("d", c.getValue ("key"));
+        assertEquals (new CommonsArrayList <> ("key:a->b", "key:b->c", "key:c->d"), aChanges);
+      }
+      assertEquals (0, aSource.reloadCallbacks ().size ());
+    }
+    finally
+    {
+      FileOperations.deleteFileIfExisting (aFile);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.config.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.Test;
+
+import com.helger.commons.concurrent.ThreadHelper;
+import com.helger.commons.io.file.FileOperations;
+import com.helger.commons.io.file.SimpleFileIO;
+import com.helger.commons.io.resource.FileSystemResource;
+import com.helger.config.CachingConfig;
+import com.helger.config.Config;
+import com.helger.config.source.res.ConfigurationSourceJson;
+import com.helger.config.source.res.ConfigurationSourceProperties;
+
+/**
+ * Test class for class {@link ConfigurationSourceWatcher}.
+ *
+ * @author Philip Helger
+ */
+public final class ConfigurationSourceWatcherTest
+{
+  @Test
+  public void testCheckNow ()
+  {
+    final File aFile = new File ("target/test-watcher.json");
+    assertTrue (SimpleFileIO.writeFile (aFile, "{ \"key\": \"a\" }", StandardCharsets.UTF_8).isSuccess ());
+    try
+    {
+      final ConfigurationSourceJson aSource = new ConfigurationSourceJson (new FileSystemResource (aFile));
+      try (final ConfigurationSourceWatcher w = new ConfigurationSourceWatcher (Duration.ofSeconds (1), Duration.ZERO))
+      {
+        assertTrue (w.addSource (aSource).isChanged ());
+        assertFalse (w.addSource (aSource).isChanged ());
+        assertEquals (1, w.getAllSources ().size ());
+        assertFalse (w.isStarted ());
+
+        assertEquals (0, w.checkNow ());
+        assertEquals ("a", aSource.getConfigurationValue ("key"));
+
+        assertTrue (SimpleFileIO.writeFile (aFile, "{ \"key\": \"b\" }", StandardCharsets.UTF_8).isSuccess ());
+        assertTrue (aFile.setLastModified (aFile.lastModified () - 5000));
+        assertEquals (1, w.checkNow ());
+        assertEquals ("b", aSource.getConfigurationValue ("key"));
+        assertEquals (0, w.checkNow ());
+
+        // Broken JSON keeps the old content
+        assertTrue (SimpleFileIO.writeFile (aFile, "{ \"key\": ", StandardCharsets.UTF_8).isSuccess ());
+        assertTrue (aFile.setLastModified (aFile.lastModified () - 10000));
+        assertEquals (0, w.checkNow ());
+        assertEquals ("b", aSource.getConfigurationValue ("key"));
+
+        assertEquals (4, w.getCheckCount ());
+        assertEquals (1, w.getReloadCount ());
+        assertTrue (w.removeSource (aSource).isChanged ());
+        assertFalse (w.removeSource (aSource).isChanged ());
+      }
+    }
+    finally
+    {
+      FileOperations.deleteFileIfExisting (aFile);
+    }
+  }
+
+  @Test
+  public void testBackground ()
+  {
+    final File aFile = new File ("target/test-watcher.properties");
+    assertTrue (SimpleFileIO.writeFile (aFile, "key=a\n", StandardCharsets.ISO_8859_1).isSuccess ());
+    try
+    {
+      final MultiConfigurationValueProvider aMCSVP = new MultiConfigurationValueProvider ();
+      aMCSVP.addConfigurationSource (new ConfigurationSourceProperties (new FileSystemResource (aFile)));
+      try (final CachingConfig aConfig = CachingConfig.create (Config.create (aMCSVP));
+           final ConfigurationSourceWatcher w = new ConfigurationSourceWatcher (Duration.ofMillis (20), Duration.ZERO))
+      {
+        assertTrue (w.addAllSources (aConfig).isChanged ());
+        assertFalse (w.addAllSources (aConfig).isChanged ());
+        assertTrue (w.start ().isChanged ());
+        assertFalse (w.start ().isChanged ());
+        assertTrue (w.isStarted ());
+        assertEquals ("a", aConfig.getValue ("key"));
+
+        assertTrue (SimpleFileIO.writeFile (aFile, "key=b\n", StandardCharsets.ISO_8859_1).isSuccess ());
+        assertTrue (aFile.setLastModified (aFile.lastModified () - 5000));
+
+        // The cache is invalidated from the background thread
+        for (int i = 0; i < 250 && "a".equals (aConfig.getValue ("key")); ++i)
+          ThreadHelper.sleep (20);
+        assertEquals ("b", aConfig.getValue ("key"));
+
+        assertTrue (w.stop ().isChanged ());
+        assertFalse (w.stop ().isChanged ());
+        assertFalse (w.isStarted ());
+      }
+    }
+    finally
+    {
+      FileOperations.deleteFileIfExisting (aFile);
+    }
+  }
+}
@@ -27,9 +27,12 @@ import java.nio.charset.StandardCharsets;
 
 import org.junit.Test;
 
+import com.helger.commons.io.file.FileOperations;
+import com.helger.commons.io.file.SimpleFileIO;
 import com.helger.commons.io.resource.FileSystemResource;
 import com.helger.commons.io.resource.IReadableResource;
 import com.helger.commons.mock.CommonsTestHelper;
+import com.helger.commons.mutable.MutableInt;
 import com.helger.config.source.EConfigSourceType;
 
 /**
@@ -105,4 +108,46 @@ public final class ConfigurationSourcePropertiesTest
     assertSame (f2, c.getResource ());
     assertNull (c.getConfigurationValue ("element1"));
   }
+
+  @Test
+  public void testReload ()
+  {
+    final File aFile = new File ("target/test-reload.properties");
+    assertTrue (SimpleFileIO.writeFile (aFile, "key=a\nother=1\n", StandardCharsets.ISO_8859_1).isSuccess ());
+    try
+    {
+      final ConfigurationSourceProperties c = new ConfigurationSourceProperties (new FileSystemResource (aFile));
+      final MutableInt aReloadCount = new MutableInt (0);
+      c.reloadCallbacks ().add (x -> aReloadCount.inc ());
+      assertTrue (c.isInitializedAndUsable ());
+      assertEquals ("a", c.getConfigurationValue ("key"));
+
+      // Not modified
+      assertTrue (c.reloadIfModified ().isUnchanged ());
+      // Same content
+      assertTrue (c.reload ().isUnchanged ());
+      assertEquals (0, aReloadCount.intValue ());
+
+      assertTrue (SimpleFileIO.writeFile (aFile, "key=b\nother=1\n", StandardCharsets.ISO_8859_1).isSuccess ());
+      // Make sure the modification time differs
+      assertTrue (aFile.setLastModified (aFile.lastModified () + 2000));
+      assertEquals ("a", c.getConfigurationValue ("key"));
+      assertTrue (c.reloadIfModified ().isChanged ());
+      assertEquals ("b", c.getConfigurationValue ("key"));
+      assertEquals ("1", c.getConfigurationValue ("other"));
+      assertEquals (1, aReloadCount.intValue ());
+      assertTrue (c.reloadIfModified ().isUnchanged ());
+
+      // Previous content is retained if the file is gone
+      FileOperations.deleteFile (aFile);
+      assertTrue (c.reloadIfModified ().isUnchanged ());
+      assertTrue (c.isInitializedAndUsable ());
+      assertEquals ("b", c.getConfigurationValue ("key"));
+      assertEquals (1, aReloadCount.intValue ());
+    }
+    finally
+    {
+      FileOperations.deleteFileIfExisting (aFile);
+    }
+  }
 }
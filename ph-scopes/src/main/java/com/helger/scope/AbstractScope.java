@@ -50,12 +50,14 @@ public abstract class AbstractScope implements IScope
   protected final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
   /** ID of the scope */
   private final String m_sScopeID;
+  // The status flags are modified in the write lock only but are volatile so
+  // that they can be read without locking
   /** Is the scope currently in pre destruction? */
-  private boolean m_bInPreDestruction = false;
+  private volatile boolean m_bInPreDestruction = false;
   /** Is the scope currently in destruction? */
-  private boolean m_bInDestruction = false;
+  private volatile boolean m_bInDestruction = false;
   /** Is the scope already completely destroyed? */
-  private boolean m_bDestroyed = false;
+  private volatile boolean m_bDestroyed = false;
   private final AttributeContainerAnyConcurrent <String> m_aAttrs = new AttributeContainerAnyConcurrent <> ();
 
   /**
@@ -78,22 +80,24 @@ public abstract class AbstractScope implements IScope
 
   public final boolean isValid ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> !m_bInPreDestruction && !m_bInDestruction && !m_bDestroyed);
+    // The order of reads is important: the flags are set in the order
+    // "in pre destruction", "in destruction" and "destroyed"
+    return !m_bInPreDestruction && !m_bInDestruction && !m_bDestroyed;
   }
 
   public final boolean isInPreDestruction ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_bInPreDestruction);
+    return m_bInPreDestruction;
   }
 
   public final boolean isInDestruction ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_bInDestruction);
+    return m_bInDestruction;
   }
 
   public final boolean isDestroyed ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_bDestroyed);
+    return m_bDestroyed;
   }
 
   /**
@@ -247,17 +247,23 @@ public final class ScopeManager
 
       // Check if a matching session scope is present
       ISessionScope aSessionScope = aSSM.getSessionScopeOfID (sSessionID);
-      if (aSessionScope == null && bCreateIfNotExisting)
+      if (aSessionScope != null)
       {
-        if (sSessionID == null)
-          throw new IllegalStateException ("Cannot create a SessionScope without a known session ID!");
+        // Restart idle expiry
+        aSSM.touchSessionScope (aSessionScope);
+      }
+      else
+        if (bCreateIfNotExisting)
+        {
+          if (sSessionID == null)
+            throw new IllegalStateException ("Cannot create a SessionScope without a known session ID!");
 
-        // Create a new session scope
-        aSessionScope = aFactory.apply (sSessionID);
+          // Create a new session scope
+          aSessionScope = aFactory.apply (sSessionID);
 
-        // And register in the Session Manager
-        aSSM.onScopeBegin (aSessionScope);
-      }
+          // And register in the Session Manager
+          aSSM.onScopeBegin (aSessionScope);
+        }
 
       // We're done - maybe null
       return aSessionScope;
@@ -394,6 +400,32 @@ public final class ScopeManager
     s_aRequestScopeTL.remove ();
   }
 
+  /**
+   * Internal method to bind an already initialized request scope to the
+   * current thread. In contrast to
+   * {@link #internalSetAndInitRequestScope(IRequestScope)} the scope is neither
+   * initialized nor are any SPIs invoked. This is used to propagate a request
+   * scope to other threads.
+   *
+   * @param aRequestScope
+   *        The request scope to bind. May be <code>null</code> in which case
+   *        the request scope of the current thread is cleared.
+   * @return The request scope that was previously bound to the current thread.
+   *         May be <code>null</code>.
+   * @see ScopeSnapshot
+   * @since 9.4.3
+   */
+  @Nullable
+  public static IRequestScope internalBindRequestScope (@Nullable final IRequestScope aRequestScope)
+  {
+    final IRequestScope aPrevious = s_aRequestScopeTL.get ();
+    if (aRequestScope == null)
+      s_aRequestScopeTL.remove ();
+    else
+      s_aRequestScopeTL.set (aRequestScope);
+    return aPrevious;
+  }
+
   /**
    * To be called after a request finished.
    */
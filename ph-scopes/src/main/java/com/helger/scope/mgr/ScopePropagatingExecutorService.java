@@ -0,0 +1,155 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * An {@link ExecutorService} decorator that propagates the scopes of the
+ * submitting thread to the thread executing the task. The scopes are captured
+ * via {@link ScopeSnapshot#createFromCurrentThread()} upon submission and the
+ * executing thread is reset after each task. Because this is also an
+ * {@link java.util.concurrent.Executor} it can directly be used for
+ * {@link java.util.concurrent.CompletableFuture} stages.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public class ScopePropagatingExecutorService implements ExecutorService
+{
+  private final ExecutorService m_aDelegate;
+
+  public ScopePropagatingExecutorService (@Nonnull final ExecutorService aDelegate)
+  {
+    ValueEnforcer.notNull (aDelegate, "Delegate");
+    m_aDelegate = aDelegate;
+  }
+
+  /**
+   * @return The wrapped executor service. Never <code>null</code>.
+   */
+  @Nonnull
+  public final ExecutorService getDelegate ()
+  {
+    return m_aDelegate;
+  }
+
+  @Nonnull
+  private static <T> ICommonsList <Callable <T>> _wrapAll (@Nonnull final Collection <? extends Callable <T>> aTasks)
+  {
+    final ScopeSnapshot aSnapshot = ScopeSnapshot.createFromCurrentThread ();
+    return new CommonsArrayList <> (aTasks, aSnapshot::wrap);
+  }
+
+  public void execute (@Nonnull final Runnable aCommand)
+  {
+    m_aDelegate.execute (ScopeSnapshot.createFromCurrentThread ().wrap (aCommand));
+  }
+
+  @Nonnull
+  public <T> Future <T> submit (@Nonnull final Callable <T> aTask)
+  {
+    return m_aDelegate.submit (ScopeSnapshot.createFromCurrentThread ().wrap (aTask));
+  }
+
+  @Nonnull
+  public <T> Future <T> submit (@Nonnull final Runnable aTask, final T aResult)
+  {
+    return m_aDelegate.submit (ScopeSnapshot.createFromCurrentThread ().wrap (aTask), aResult);
+  }
+
+  @Nonnull
+  public Future <?> submit (@Nonnull final Runnable aTask)
+  {
+    return m_aDelegate.submit (ScopeSnapshot.createFromCurrentThread ().wrap (aTask));
+  }
+
+  @Nonnull
+  public <T> List <Future <T>> invokeAll (@Nonnull final Collection <? extends Callable <T>> aTasks) throws InterruptedException
+  {
+    return m_aDelegate.invokeAll (_wrapAll (aTasks));
+  }
+
+  @Nonnull
+  public <T> List <Future <T>> invokeAll (@Nonnull final Collection <? extends Callable <T>> aTasks,
+                                          final long nTimeout,
+                                          @Nonnull final TimeUnit aUnit) throws InterruptedException
+  {
+    return m_aDelegate.invokeAll (_wrapAll (aTasks), nTimeout, aUnit);
+  }
+
+  public <T> T invokeAny (@Nonnull final Collection <? extends Callable <T>> aTasks) throws InterruptedException,
+                                                                                      ExecutionException
+  {
+    return m_aDelegate.invokeAny (_wrapAll (aTasks));
+  }
+
+  public <T> T invokeAny (@Nonnull final Collection <? extends Callable <T>> aTasks,
+                          final long nTimeout,
+                          @Nonnull final TimeUnit aUnit) throws InterruptedException, ExecutionException, TimeoutException
+  {
+    return m_aDelegate.invokeAny (_wrapAll (aTasks), nTimeout, aUnit);
+  }
+
+  public void shutdown ()
+  {
+    m_aDelegate.shutdown ();
+  }
+
+  @Nonnull
+  public List <Runnable> shutdownNow ()
+  {
+    return m_aDelegate.shutdownNow ();
+  }
+
+  public boolean isShutdown ()
+  {
+    return m_aDelegate.isShutdown ();
+  }
+
+  public boolean isTerminated ()
+  {
+    return m_aDelegate.isTerminated ();
+  }
+
+  public boolean awaitTermination (final long nTimeout, @Nonnull final TimeUnit aUnit) throws InterruptedException
+  {
+    return m_aDelegate.awaitTermination (nTimeout, aUnit);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Delegate", m_aDelegate).getToString ();
+  }
+}
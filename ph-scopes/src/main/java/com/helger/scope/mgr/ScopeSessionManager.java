@@ -16,6 +16,14 @@
  */
 package com.helger.scope.mgr;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -25,20 +33,31 @@ import javax.annotation.concurrent.ThreadSafe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.helger.commons.CGlobal;
 import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.ELockType;
+import com.helger.commons.annotation.MustBeLocked;
 import com.helger.commons.annotation.ReturnsMutableCopy;
 import com.helger.commons.annotation.Singleton;
 import com.helger.commons.annotation.UsedViaReflection;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsConcurrentHashMap;
 import com.helger.commons.collection.impl.CommonsHashMap;
 import com.helger.commons.collection.impl.CommonsHashSet;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.collection.impl.ICommonsMap;
 import com.helger.commons.collection.impl.ICommonsSet;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.concurrent.SimpleLock;
 import com.helger.commons.equals.EqualsHelper;
 import com.helger.commons.state.EChange;
 import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.IMutableStatisticsHandlerTimer;
 import com.helger.commons.statistics.StatisticsManager;
 import com.helger.commons.string.StringHelper;
+import com.helger.commons.timing.HierarchicalTimingWheel;
+import com.helger.commons.timing.StopWatch;
 import com.helger.scope.IScope;
 import com.helger.scope.ISessionScope;
 import com.helger.scope.singleton.AbstractGlobalSingleton;
@@ -49,7 +68,9 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 /**
  * Internal manager class for session scopes.<br>
  * This class is only non-final so that the WebScopeSessionManager can be used
- * for web scopes!
+ * for web scopes!<br>
+ * Optionally idle sessions can be expired automatically - see
+ * {@link #enableSessionExpiry(Duration)}.
  *
  * @author Philip Helger
  */
@@ -62,6 +83,19 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   private static final Logger LOGGER = LoggerFactory.getLogger (ScopeSessionManager.class);
   private static final IMutableStatisticsHandlerCounter s_aUniqueSessionCounter = StatisticsManager.getCounterHandler (ScopeSessionManager.class.getName () +
                                                                                                                        "$UNIQUE_SESSIONS");
+  private static final IMutableStatisticsHandlerCounter s_aExpiredSessionCounter = StatisticsManager.getCounterHandler (ScopeSessionManager.class.getName () +
+                                                                                                                        "$EXPIRED_SESSIONS");
+  private static final IMutableStatisticsHandlerTimer s_aExpiryLagTimer = StatisticsManager.getTimerHandler (ScopeSessionManager.class.getName () +
+                                                                                                              "$EXPIRY_LAG");
+  private static final IMutableStatisticsHandlerTimer s_aExpiryDestructionTimer = StatisticsManager.getTimerHandler (ScopeSessionManager.class.getName () +
+                                                                                                                      "$EXPIRY_DESTRUCTION");
+
+  /** The default tick duration of the session expiry */
+  public static final Duration DEFAULT_EXPIRY_TICK = Duration.ofSeconds (1);
+  /** The default number of sessions destroyed in one background task */
+  public static final int DEFAULT_EXPIRY_BATCH_SIZE = 100;
+  /** The default number of threads for destroying expired sessions */
+  public static final int DEFAULT_EXPIRY_DESTRUCTION_THREADS = 1;
 
   private static ScopeSessionManager s_aInstance = null;
 
@@ -75,6 +109,36 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   @GuardedBy ("m_aRWLock")
   private boolean m_bEndAllSessionsOnScopeEnd = DEFAULT_END_ALL_SESSIONS_ON_SCOPE_END;
 
+  /**
+   * The last access of a single session scope, used for the idle expiry.
+   */
+  private static final class ExpiryEntry
+  {
+    private final ISessionScope m_aSessionScope;
+    private volatile long m_nLastAccess;
+    private volatile boolean m_bRemoved = false;
+
+    ExpiryEntry (@Nonnull final ISessionScope aSessionScope, final long nLastAccess)
+    {
+      m_aSessionScope = aSessionScope;
+      m_nLastAccess = nLastAccess;
+    }
+  }
+
+  // Session expiry - only used if enabled
+  private volatile boolean m_bExpiryEnabled = false;
+  private volatile long m_nExpiryMaxIdleMillis = 0;
+  private final ICommonsMap <String, ExpiryEntry> m_aExpiryEntries = new CommonsConcurrentHashMap <> ();
+  private final SimpleLock m_aExpiryLock = new SimpleLock ();
+  @GuardedBy ("m_aExpiryLock")
+  private HierarchicalTimingWheel <ExpiryEntry> m_aExpiryWheel;
+  @GuardedBy ("m_aExpiryLock")
+  private int m_nExpiryBatchSize;
+  @GuardedBy ("m_aExpiryLock")
+  private ScheduledExecutorService m_aExpiryTimer;
+  @GuardedBy ("m_aExpiryLock")
+  private ExecutorService m_aExpiryDestructionES;
+
   /**
    * Invoked internally.
    *
@@ -132,6 +196,9 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
         LOGGER.error ("Overwriting session scope with ID '" + sSessionID + "'");
     });
 
+    if (m_bExpiryEnabled)
+      m_aExpiryLock.locked ( () -> _registerForExpiry (aSessionScope, _getExpiryNow ()));
+
     // Init the scope after it was registered
     aSessionScope.initScope ();
 
@@ -159,36 +226,12 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
     {
       final String sSessionID = aSessionScope.getID ();
 
-      final boolean bCanDestroyScope = m_aRWLock.writeLockedBoolean ( () -> {
-        boolean bWLCanDestroyScope = false;
-        // Only if we're not just in destruction of exactly this session
-        if (m_aSessionsInDestruction.add (sSessionID))
-        {
-          // Remove from map
-          final ISessionScope aRemovedScope = m_aSessionScopes.remove (sSessionID);
-          if (!EqualsHelper.identityEqual (aRemovedScope, aSessionScope))
-          {
-            LOGGER.error ("Ending an unknown session with ID '" + sSessionID + "'");
-            LOGGER.error ("  Scope to be removed: " + aSessionScope);
-            LOGGER.error ("  Removed scope:       " + aRemovedScope);
-          }
-          bWLCanDestroyScope = true;
-        }
-        else
-          LOGGER.info ("Already destructing session '" + sSessionID + "'");
-        return bWLCanDestroyScope;
-      });
-
-      if (bCanDestroyScope)
+      if (m_aRWLock.writeLockedBoolean ( () -> _startDestruction (aSessionScope)))
       {
         // Destroy scope outside of write lock
         try
         {
-          // Invoke SPIs
-          ScopeSPIManager.getInstance ().onSessionScopeEnd (aSessionScope);
-
-          // Destroy the scope
-          aSessionScope.destroyScope ();
+          _destroyScope (aSessionScope);
         }
         finally
         {
@@ -199,6 +242,373 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
     }
   }
 
+  /**
+   * Close all passed session scopes gracefully. Compared to calling
+   * {@link #onScopeEnd(ISessionScope)} for each scope, the internal write lock
+   * is only acquired twice for all scopes. A failure while destroying a single
+   * scope does not prevent the other scopes from being destroyed.
+   *
+   * @param aSessionScopes
+   *        The session scopes to be ended. May not be <code>null</code>.
+   * @return The number of scopes that were ended by this call. Always &ge; 0.
+   * @since 9.4.3
+   */
+  @Nonnegative
+  public int onScopesEnd (@Nonnull final Collection <? extends ISessionScope> aSessionScopes)
+  {
+    ValueEnforcer.notNull (aSessionScopes, "SessionScopes");
+
+    final ICommonsList <ISessionScope> aToDestroy = m_aRWLock.writeLockedGet ( () -> {
+      final ICommonsList <ISessionScope> ret = new CommonsArrayList <> (aSessionScopes.size ());
+      for (final ISessionScope aSessionScope : aSessionScopes)
+        if (aSessionScope.isValid () && _startDestruction (aSessionScope))
+          ret.add (aSessionScope);
+      return ret;
+    });
+
+    if (aToDestroy.isNotEmpty ())
+    {
+      // Destroy scopes outside of write lock
+      try
+      {
+        for (final ISessionScope aSessionScope : aToDestroy)
+        {
+          try
+          {
+            _destroyScope (aSessionScope);
+          }
+          catch (final RuntimeException ex)
+          {
+            LOGGER.error ("Failed to destroy session scope '" + aSessionScope.getID () + "'", ex);
+          }
+        }
+      }
+      finally
+      {
+        // Remove from "in destruction" list
+        m_aRWLock.writeLocked ( () -> {
+          for (final ISessionScope aSessionScope : aToDestroy)
+            m_aSessionsInDestruction.remove (aSessionScope.getID ());
+        });
+      }
+    }
+    return aToDestroy.size ();
+  }
+
+  /**
+   * Mark the passed session scope as being in destruction and remove it from
+   * the map of active session scopes.
+   *
+   * @param aSessionScope
+   *        The session scope to be ended. May not be <code>null</code>.
+   * @return <code>true</code> if the scope can be destroyed by the caller,
+   *         <code>false</code> if it is already in destruction.
+   */
+  @MustBeLocked (ELockType.WRITE)
+  private boolean _startDestruction (@Nonnull final ISessionScope aSessionScope)
+  {
+    final String sSessionID = aSessionScope.getID ();
+    // Only if we're not just in destruction of exactly this session
+    if (!m_aSessionsInDestruction.add (sSessionID))
+    {
+      LOGGER.info ("Already destructing session '" + sSessionID + "'");
+      return false;
+    }
+
+    // Remove from map
+    final ISessionScope aRemovedScope = m_aSessionScopes.remove (sSessionID);
+    if (!EqualsHelper.identityEqual (aRemovedScope, aSessionScope))
+    {
+      LOGGER.error ("Ending an unknown session with ID '" + sSessionID + "'");
+      LOGGER.error ("  Scope to be removed: " + aSessionScope);
+      LOGGER.error ("  Removed scope:       " + aRemovedScope);
+    }
+    return true;
+  }
+
+  /**
+   * Invoke the SPIs for the passed session scope and destroy it. Must be called
+   * outside of the write lock.
+   *
+   * @param aSessionScope
+   *        The session scope to be destroyed. May not be <code>null</code>.
+   */
+  private void _destroyScope (@Nonnull final ISessionScope aSessionScope)
+  {
+    _unregisterFromExpiry (aSessionScope.getID ());
+
+    // Invoke SPIs
+    ScopeSPIManager.getInstance ().onSessionScopeEnd (aSessionScope);
+
+    // Destroy the scope
+    aSessionScope.destroyScope ();
+  }
+
+  private static long _getExpiryNow ()
+  {
+    return System.nanoTime () / CGlobal.NANOSECONDS_PER_MILLISECOND;
+  }
+
+  @GuardedBy ("m_aExpiryLock")
+  private void _registerForExpiry (@Nonnull final ISessionScope aSessionScope, final long nNow)
+  {
+    if (m_aExpiryWheel != null)
+    {
+      final ExpiryEntry aEntry = new ExpiryEntry (aSessionScope, nNow);
+      final ExpiryEntry aOld = m_aExpiryEntries.put (aSessionScope.getID (), aEntry);
+      if (aOld != null)
+        aOld.m_bRemoved = true;
+      m_aExpiryWheel.add (aEntry);
+    }
+  }
+
+  private void _unregisterFromExpiry (@Nonnull final String sSessionID)
+  {
+    final ExpiryEntry aEntry = m_aExpiryEntries.remove (sSessionID);
+    if (aEntry != null)
+      aEntry.m_bRemoved = true;
+  }
+
+  /**
+   * Mark the passed session scope as accessed, so that its idle expiry starts
+   * again. This method is cheap and does not acquire any lock. It does nothing
+   * if session expiry is disabled.
+   *
+   * @param aSessionScope
+   *        The accessed session scope. May not be <code>null</code>.
+   * @since 9.4.3
+   */
+  public void touchSessionScope (@Nonnull final ISessionScope aSessionScope)
+  {
+    ValueEnforcer.notNull (aSessionScope, "SessionScope");
+
+    if (m_bExpiryEnabled)
+    {
+      final ExpiryEntry aEntry = m_aExpiryEntries.get (aSessionScope.getID ());
+      if (aEntry != null)
+        aEntry.m_nLastAccess = _getExpiryNow ();
+    }
+  }
+
+  /**
+   * @return <code>true</code> if idle session scopes are automatically expired,
+   *         <code>false</code> if not.
+   * @since 9.4.3
+   */
+  public final boolean isSessionExpiryEnabled ()
+  {
+    return m_bExpiryEnabled;
+  }
+
+  /**
+   * @return The maximum idle time after which a session scope expires or
+   *         <code>null</code> if session expiry is disabled.
+   * @since 9.4.3
+   */
+  @Nullable
+  public final Duration getSessionExpiryMaxIdleTime ()
+  {
+    return m_bExpiryEnabled ? Duration.ofMillis (m_nExpiryMaxIdleMillis) : null;
+  }
+
+  /**
+   * Enable the automatic expiry of idle session scopes with the default
+   * settings.
+   *
+   * @param aMaxIdleTime
+   *        The maximum idle time. May not be <code>null</code>.
+   * @since 9.4.3
+   * @see #enableSessionExpiry(Duration, Duration, int, int)
+   */
+  public final void enableSessionExpiry (@Nonnull final Duration aMaxIdleTime)
+  {
+    enableSessionExpiry (aMaxIdleTime,
+                         DEFAULT_EXPIRY_TICK,
+                         DEFAULT_EXPIRY_BATCH_SIZE,
+                         DEFAULT_EXPIRY_DESTRUCTION_THREADS);
+  }
+
+  /**
+   * Enable the automatic expiry of idle session scopes. All session scopes
+   * (including the existing ones) that were not touched via
+   * {@link #touchSessionScope(ISessionScope)} for the provided maximum idle
+   * time are ended in the background. The deadlines are managed in a
+   * hierarchical timing wheel, so the expiry costs are independent of the
+   * number of sessions. Expired sessions are destroyed in batches via
+   * {@link #onScopesEnd(Collection)} on a dedicated executor.<br>
+   * The following statistics handlers are filled (the names are prefixed with
+   * the class name of this class):
+   * <ul>
+   * <li><code>$EXPIRED_SESSIONS</code> - counter of the expired sessions</li>
+   * <li><code>$EXPIRY_LAG</code> - timer with the milliseconds between the
+   * deadline of a session and its detection</li>
+   * <li><code>$EXPIRY_DESTRUCTION</code> - timer with the milliseconds needed
+   * to destroy a batch of sessions</li>
+   * </ul>
+   * The number of live sessions is available via {@link #getSessionCount()}.
+   *
+   * @param aMaxIdleTime
+   *        The maximum idle time. May not be <code>null</code>.
+   * @param aTickDuration
+   *        The resolution of the expiry. May not be <code>null</code>.
+   * @param nBatchSize
+   *        The maximum number of sessions to be destroyed in a single
+   *        background task. Must be &gt; 0.
+   * @param nDestructionThreads
+   *        The number of threads used to destroy the sessions. Must be &gt; 0.
+   * @throws IllegalStateException
+   *         If session expiry is already enabled
+   * @since 9.4.3
+   */
+  public final void enableSessionExpiry (@Nonnull final Duration aMaxIdleTime,
+                                         @Nonnull final Duration aTickDuration,
+                                         @Nonnegative final int nBatchSize,
+                                         @Nonnegative final int nDestructionThreads)
+  {
+    ValueEnforcer.notNull (aMaxIdleTime, "MaxIdleTime");
+    ValueEnforcer.isTrue (!aMaxIdleTime.isNegative () && !aMaxIdleTime.isZero (), "MaxIdleTime must be positive");
+    ValueEnforcer.notNull (aTickDuration, "TickDuration");
+    ValueEnforcer.isTrue (aTickDuration.toMillis () > 0, "TickDuration must be at least 1 millisecond");
+    ValueEnforcer.isGT0 (nBatchSize, "BatchSize");
+    ValueEnforcer.isGT0 (nDestructionThreads, "DestructionThreads");
+
+    final long nMaxIdleMillis = aMaxIdleTime.toMillis ();
+    final long nTickMillis = aTickDuration.toMillis ();
+    m_aExpiryLock.locked ( () -> {
+      if (m_aExpiryWheel != null)
+        throw new IllegalStateException ("Session expiry is already enabled");
+
+      final long nNow = _getExpiryNow ();
+      m_nExpiryMaxIdleMillis = nMaxIdleMillis;
+      m_nExpiryBatchSize = nBatchSize;
+      m_aExpiryWheel = new HierarchicalTimingWheel <> (nTickMillis,
+                                                       nNow,
+                                                       x -> x.m_bRemoved ? HierarchicalTimingWheel.DEADLINE_CANCELLED
+                                                                         : x.m_nLastAccess + nMaxIdleMillis);
+      // Must be set before the existing sessions are collected, so that no
+      // concurrently started session is missed
+      m_bExpiryEnabled = true;
+      for (final ISessionScope aSessionScope : getAllSessionScopes ())
+        if (!m_aExpiryEntries.containsKey (aSessionScope.getID ()))
+          _registerForExpiry (aSessionScope, nNow);
+
+      m_aExpiryDestructionES = Executors.newFixedThreadPool (nDestructionThreads,
+                                                             new BasicThreadFactory.Builder ().setNamingPattern ("ph-session-destruction-%d")
+                                                                                              .setDaemon (true)
+                                                                                              .build ());
+      m_aExpiryTimer = Executors.newSingleThreadScheduledExecutor (new BasicThreadFactory.Builder ().setNamingPattern ("ph-session-expiry-%d")
+                                                                                                   .setDaemon (true)
+                                                                                                   .build ());
+      m_aExpiryTimer.scheduleWithFixedDelay (this::_expireSessions, nTickMillis, nTickMillis, TimeUnit.MILLISECONDS);
+    });
+
+    if (LOGGER.isDebugEnabled ())
+      LOGGER.debug ("Enabled session expiry after " + nMaxIdleMillis + " ms idle time");
+  }
+
+  /**
+   * Disable the automatic expiry of idle session scopes. Already running
+   * destruction tasks are finished before this method returns.
+   *
+   * @return {@link EChange}
+   * @since 9.4.3
+   */
+  @Nonnull
+  public final EChange disableSessionExpiry ()
+  {
+    final ExecutorService [] aExecutors = m_aExpiryLock.lockedGet ( () -> {
+      if (m_aExpiryWheel == null)
+        return null;
+      m_bExpiryEnabled = false;
+      m_aExpiryWheel = null;
+      final ExecutorService [] ret = { m_aExpiryTimer, m_aExpiryDestructionES };
+      m_aExpiryTimer = null;
+      m_aExpiryDestructionES = null;
+      return ret;
+    });
+    if (aExecutors == null)
+      return EChange.UNCHANGED;
+
+    // Wait outside of the lock, because the tasks need the lock
+    for (final ExecutorService aES : aExecutors)
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    m_aExpiryEntries.clear ();
+    return EChange.CHANGED;
+  }
+
+  private void _expireSessions ()
+  {
+    try
+    {
+      final long nNow = _getExpiryNow ();
+      final long nMaxIdleMillis = m_nExpiryMaxIdleMillis;
+      m_aExpiryLock.locked ( () -> {
+        if (m_aExpiryWheel == null)
+          return;
+
+        final ICommonsList <ExpiryEntry> aExpired = m_aExpiryWheel.advance (nNow);
+        if (aExpired.isNotEmpty ())
+        {
+          for (final ExpiryEntry aEntry : aExpired)
+            s_aExpiryLagTimer.addTime (Math.max (0, nNow - (aEntry.m_nLastAccess + nMaxIdleMillis)));
+
+          // Destroy in batches in the background
+          for (int nStart = 0; nStart < aExpired.size (); nStart += m_nExpiryBatchSize)
+          {
+            final ICommonsList <ExpiryEntry> aBatch = new CommonsArrayList <> (aExpired.subList (nStart,
+                                                                                                 Math.min (nStart +
+                                                                                                           m_nExpiryBatchSize,
+                                                                                                           aExpired.size ())));
+            try
+            {
+              m_aExpiryDestructionES.submit ( () -> _destroyExpiredSessions (aBatch, nMaxIdleMillis));
+            }
+            catch (final RejectedExecutionException ex)
+            {
+              LOGGER.warn ("Failed to schedule the destruction of " + aBatch.size () + " expired sessions");
+            }
+          }
+        }
+      });
+    }
+    catch (final RuntimeException ex)
+    {
+      // Don't let the timer die
+      LOGGER.error ("Error expiring sessions", ex);
+    }
+  }
+
+  private void _destroyExpiredSessions (@Nonnull final ICommonsList <ExpiryEntry> aBatch, final long nMaxIdleMillis)
+  {
+    final StopWatch aSW = StopWatch.createdStarted ();
+    final long nNow = _getExpiryNow ();
+    final ICommonsList <ISessionScope> aToEnd = new CommonsArrayList <> (aBatch.size ());
+    for (final ExpiryEntry aEntry : aBatch)
+      if (!aEntry.m_bRemoved)
+      {
+        if (aEntry.m_nLastAccess + nMaxIdleMillis > nNow)
+        {
+          // Touched in the meantime
+          m_aExpiryLock.locked ( () -> {
+            if (m_aExpiryWheel != null)
+              m_aExpiryWheel.add (aEntry);
+          });
+        }
+        else
+          if (aEntry.m_aSessionScope.selfDestruct ().isContinue ())
+            aToEnd.add (aEntry.m_aSessionScope);
+          else
+          {
+            // The destruction was triggered otherwise
+            _unregisterFromExpiry (aEntry.m_aSessionScope.getID ());
+          }
+      }
+
+    final int nEnded = onScopesEnd (aToEnd);
+    s_aExpiredSessionCounter.increment (nEnded);
+    s_aExpiryDestructionTimer.addTime (aSW.stopAndGetMillis ());
+  }
+
   /**
    * @return <code>true</code> if at least one session is present,
    *         <code>false</code> otherwise
@@ -319,6 +729,7 @@ public class ScopeSessionManager extends AbstractGlobalSingleton
   @Override
   protected void onDestroy (@Nonnull final IScope aScopeInDestruction)
   {
+    disableSessionExpiry ();
     if (isDestroyAllSessionsOnScopeEnd ())
       destroyAllSessions ();
     else
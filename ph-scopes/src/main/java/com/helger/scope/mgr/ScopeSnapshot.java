@@ -0,0 +1,309 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.scope.IGlobalScope;
+import com.helger.scope.IRequestScope;
+import com.helger.scope.ISessionScope;
+
+/**
+ * An immutable snapshot of the scopes that are active in the thread that
+ * created it. It can be used to re-bind these scopes in another thread (e.g.
+ * inside an {@link java.util.concurrent.ExecutorService} or a
+ * {@link java.util.concurrent.CompletableFuture}) so that e.g. request
+ * singletons can be used there. The global scope is not thread bound and the
+ * session scope is always resolved via the request scope, so binding the
+ * request scope is sufficient to make all three scopes available.<br>
+ * Binding never initializes or destroys a scope - after the bound code ran, the
+ * previous state of the executing thread is restored. It is the responsibility
+ * of the creator to wait for all child tasks before ending the request.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ * @see ScopePropagatingExecutorService
+ */
+@Immutable
+public final class ScopeSnapshot
+{
+  /**
+   * The object returned by {@link ScopeSnapshot#bind()}. Closing it restores
+   * the previous state of the thread.
+   *
+   * @author Philip Helger
+   */
+  public static final class Binding implements AutoCloseable
+  {
+    private final Thread m_aThread;
+    private final IRequestScope m_aPreviousRequestScope;
+    private boolean m_bClosed = false;
+
+    private Binding (@Nullable final IRequestScope aPreviousRequestScope)
+    {
+      m_aThread = Thread.currentThread ();
+      m_aPreviousRequestScope = aPreviousRequestScope;
+    }
+
+    public void close ()
+    {
+      if (Thread.currentThread () != m_aThread)
+        throw new IllegalStateException ("The scope binding must be closed in the thread that created it");
+      if (!m_bClosed)
+      {
+        m_bClosed = true;
+        ScopeManager.internalBindRequestScope (m_aPreviousRequestScope);
+      }
+    }
+  }
+
+  private final IGlobalScope m_aGlobalScope;
+  private final IRequestScope m_aRequestScope;
+
+  private ScopeSnapshot (@Nullable final IGlobalScope aGlobalScope, @Nullable final IRequestScope aRequestScope)
+  {
+    m_aGlobalScope = aGlobalScope;
+    m_aRequestScope = aRequestScope;
+  }
+
+  /**
+   * @return The global scope that was active when the snapshot was created.
+   *         May be <code>null</code>.
+   */
+  @Nullable
+  public IGlobalScope getGlobalScope ()
+  {
+    return m_aGlobalScope;
+  }
+
+  /**
+   * @return The request scope that was active when the snapshot was created.
+   *         May be <code>null</code>.
+   */
+  @Nullable
+  public IRequestScope getRequestScope ()
+  {
+    return m_aRequestScope;
+  }
+
+  /**
+   * Resolve the session scope belonging to the contained request scope. No
+   * session scope is created.
+   *
+   * @return <code>null</code> if no request scope is contained or if no session
+   *         scope is present.
+   */
+  @Nullable
+  public ISessionScope getSessionScope ()
+  {
+    if (m_aRequestScope == null || m_aGlobalScope == null)
+      return null;
+    return ScopeSessionManager.getInstance ().getSessionScopeOfID (m_aRequestScope.getSessionID (false));
+  }
+
+  /**
+   * @return <code>true</code> if the contained scopes are still usable, meaning
+   *         that the global scope is still the current one and the request
+   *         scope was not yet destroyed.
+   */
+  public boolean isValid ()
+  {
+    if (m_aGlobalScope != null && ScopeManager.getGlobalScopeOrNull () != m_aGlobalScope)
+      return false;
+    return m_aRequestScope == null || m_aRequestScope.isValid ();
+  }
+
+  /**
+   * Bind the contained scopes to the current thread. The result must be closed
+   * in the same thread, preferably via try-with-resources.
+   *
+   * @return The binding to be closed. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the contained scopes are no longer valid
+   */
+  @Nonnull
+  public Binding bind ()
+  {
+    if (!isValid ())
+      throw new IllegalStateException ("The scopes of " + toString () + " are no longer valid");
+    return new Binding (ScopeManager.internalBindRequestScope (m_aRequestScope));
+  }
+
+  /**
+   * Wrap the passed runnable so that it is executed with the scopes of this
+   * snapshot.
+   *
+   * @param aRunnable
+   *        The runnable to wrap. May not be <code>null</code>.
+   * @return The wrapped runnable. Never <code>null</code>.
+   */
+  @Nonnull
+  public Runnable wrap (@Nonnull final Runnable aRunnable)
+  {
+    ValueEnforcer.notNull (aRunnable, "Runnable");
+    return () -> {
+      final Binding aBinding = bind ();
+      try
+      {
+        aRunnable.run ();
+      }
+      finally
+      {
+        aBinding.close ();
+      }
+    };
+  }
+
+  /**
+   * Wrap the passed callable so that it is executed with the scopes of this
+   * snapshot.
+   *
+   * @param aCallable
+   *        The callable to wrap. May not be <code>null</code>.
+   * @return The wrapped callable. Never <code>null</code>.
+   * @param <T>
+   *        Result type
+   */
+  @Nonnull
+  public <T> Callable <T> wrap (@Nonnull final Callable <T> aCallable)
+  {
+    ValueEnforcer.notNull (aCallable, "Callable");
+    return () -> {
+      final Binding aBinding = bind ();
+      try
+      {
+        return aCallable.call ();
+      }
+      finally
+      {
+        aBinding.close ();
+      }
+    };
+  }
+
+  /**
+   * Wrap the passed supplier so that it is executed with the scopes of this
+   * snapshot. This is e.g. meant for
+   * {@link java.util.concurrent.CompletableFuture#supplyAsync(Supplier, java.util.concurrent.Executor)}.
+   *
+   * @param aSupplier
+   *        The supplier to wrap. May not be <code>null</code>.
+   * @return The wrapped supplier. Never <code>null</code>.
+   * @param <T>
+   *        Result type
+   */
+  @Nonnull
+  public <T> Supplier <T> wrapSupplier (@Nonnull final Supplier <T> aSupplier)
+  {
+    ValueEnforcer.notNull (aSupplier, "Supplier");
+    return () -> {
+      final Binding aBinding = bind ();
+      try
+      {
+        return aSupplier.get ();
+      }
+      finally
+      {
+        aBinding.close ();
+      }
+    };
+  }
+
+  /**
+   * Wrap the passed function so that it is executed with the scopes of this
+   * snapshot.
+   *
+   * @param aFunction
+   *        The function to wrap. May not be <code>null</code>.
+   * @return The wrapped function. Never <code>null</code>.
+   * @param <T>
+   *        Source type
+   * @param <R>
+   *        Result type
+   */
+  @Nonnull
+  public <T, R> Function <T, R> wrapFunction (@Nonnull final Function <T, R> aFunction)
+  {
+    ValueEnforcer.notNull (aFunction, "Function");
+    return x -> {
+      final Binding aBinding = bind ();
+      try
+      {
+        return aFunction.apply (x);
+      }
+      finally
+      {
+        aBinding.close ();
+      }
+    };
+  }
+
+  /**
+   * Wrap the passed consumer so that it is executed with the scopes of this
+   * snapshot.
+   *
+   * @param aConsumer
+   *        The consumer to wrap. May not be <code>null</code>.
+   * @return The wrapped consumer. Never <code>null</code>.
+   * @param <T>
+   *        Value type
+   */
+  @Nonnull
+  public <T> Consumer <T> wrapConsumer (@Nonnull final Consumer <T> aConsumer)
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    return x -> {
+      final Binding aBinding = bind ();
+      try
+      {
+        aConsumer.accept (x);
+      }
+      finally
+      {
+        aBinding.close ();
+      }
+    };
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("GlobalScope", m_aGlobalScope == null ? null : m_aGlobalScope.getID ())
+                                       .append ("RequestScope",
+                                                m_aRequestScope == null ? null : m_aRequestScope.getID ())
+                                       .getToString ();
+  }
+
+  /**
+   * @return A snapshot of the scopes of the current thread. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public static ScopeSnapshot createFromCurrentThread ()
+  {
+    return new ScopeSnapshot (ScopeManager.getGlobalScopeOrNull (), ScopeManager.getRequestScopeOrNull ());
+  }
+}
@@ -21,10 +21,10 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.Constructor;
 import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.slf4j.Logger;
@@ -53,19 +53,33 @@ import com.helger.scope.IScopeDestructionAware;
 @ThreadSafe
 public abstract class AbstractSingleton implements IScopeDestructionAware
 {
-  private static final int STATUS_IN_INSTANTIATION = 0;
-  private static final int STATUS_INSTANTIATED = 1;
-  private static final int STATUS_IN_PRE_DESTRUCTION = 2;
-  private static final int STATUS_IN_DESTRUCTION = 3;
-  private static final int STATUS_DESTROYED = 4;
+  private static final int STATUS_IN_INSTANTIATION = 1 << 0;
+  private static final int STATUS_INSTANTIATED = 1 << 1;
+  private static final int STATUS_IN_PRE_DESTRUCTION = 1 << 2;
+  private static final int STATUS_IN_DESTRUCTION = 1 << 3;
+  private static final int STATUS_DESTROYED = 1 << 4;
 
-  private static final int DEFAULT_KEY_LENGTH = 255;
   private static final Logger LOGGER = LoggerFactory.getLogger (AbstractSingleton.class);
   private static final IMutableStatisticsHandlerKeyedCounter s_aStatsCounterInstantiate = StatisticsManager.getKeyedCounterHandler (AbstractSingleton.class);
+  private static final AtomicIntegerFieldUpdater <AbstractSingleton> s_aStatusUpdater = AtomicIntegerFieldUpdater.newUpdater (AbstractSingleton.class,
+                                                                                                                              "m_nStatus");
+
+  /** The scope key of each singleton class, created only once per class */
+  private static final ClassValue <String> s_aScopeKeys = new ClassValue <String> ()
+  {
+    @Override
+    protected String computeValue (@Nonnull final Class <?> aClass)
+    {
+      return "singleton." + aClass.getName ();
+    }
+  };
 
   protected final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
-  @GuardedBy ("m_aRWLock")
-  private BitSet m_aStatus = new BitSet (16);
+  /**
+   * The lifecycle status bits. Reading is lock-free, modifications are
+   * performed atomically via {@link #s_aStatusUpdater}.
+   */
+  private volatile int m_nStatus = 0;
 
   /**
    * Write the internal status variables to the passed
@@ -79,7 +93,8 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   protected final void writeAbstractSingletonFields (@Nonnull final ObjectOutputStream aOOS) throws IOException
   {
-    aOOS.writeObject (m_aStatus);
+    // Keep the BitSet for serialization compatibility
+    aOOS.writeObject (_getStatusAsBitSet ());
   }
 
   /**
@@ -97,7 +112,30 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
   protected final void readAbstractSingletonFields (@Nonnull final ObjectInputStream aOIS) throws IOException,
                                                                                            ClassNotFoundException
   {
-    m_aStatus = (BitSet) aOIS.readObject ();
+    final BitSet aStatus = (BitSet) aOIS.readObject ();
+    m_nStatus = aStatus.isEmpty () ? 0 : (int) aStatus.toLongArray ()[0];
+  }
+
+  @Nonnull
+  private BitSet _getStatusAsBitSet ()
+  {
+    return BitSet.valueOf (new long [] { m_nStatus });
+  }
+
+  private void _setStatus (final int nStatusBit, final boolean bSet)
+  {
+    int nOld;
+    int nNew;
+    do
+    {
+      nOld = m_nStatus;
+      nNew = bSet ? nOld | nStatusBit : nOld & ~nStatusBit;
+    } while (!s_aStatusUpdater.compareAndSet (this, nOld, nNew));
+  }
+
+  private boolean _isStatus (final int nStatusBit)
+  {
+    return (m_nStatus & nStatusBit) != 0;
   }
 
   /**
@@ -159,7 +197,7 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
 
   protected final void setInInstantiation (final boolean bInInstantiation)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_IN_INSTANTIATION, bInInstantiation));
+    _setStatus (STATUS_IN_INSTANTIATION, bInInstantiation);
   }
 
   /**
@@ -169,12 +207,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInInstantiation ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_aStatus.get (STATUS_IN_INSTANTIATION));
+    return _isStatus (STATUS_IN_INSTANTIATION);
   }
 
   protected final void setInstantiated (final boolean bInstantiated)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_INSTANTIATED, bInstantiated));
+    _setStatus (STATUS_INSTANTIATED, bInstantiated);
   }
 
   /**
@@ -183,12 +221,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInstantiated ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_aStatus.get (STATUS_INSTANTIATED));
+    return _isStatus (STATUS_INSTANTIATED);
   }
 
   protected final void setInPreDestruction (final boolean bInPreDestruction)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_IN_PRE_DESTRUCTION, bInPreDestruction));
+    _setStatus (STATUS_IN_PRE_DESTRUCTION, bInPreDestruction);
   }
 
   /**
@@ -198,12 +236,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInPreDestruction ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_aStatus.get (STATUS_IN_PRE_DESTRUCTION));
+    return _isStatus (STATUS_IN_PRE_DESTRUCTION);
   }
 
   protected final void setInDestruction (final boolean bInDestruction)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_IN_DESTRUCTION, bInDestruction));
+    _setStatus (STATUS_IN_DESTRUCTION, bInDestruction);
   }
 
   /**
@@ -213,12 +251,12 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isInDestruction ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_aStatus.get (STATUS_IN_DESTRUCTION));
+    return _isStatus (STATUS_IN_DESTRUCTION);
   }
 
   protected final void setDestroyed (final boolean bDestroyed)
   {
-    m_aRWLock.writeLocked ( () -> m_aStatus.set (STATUS_DESTROYED, bDestroyed));
+    _setStatus (STATUS_DESTROYED, bDestroyed);
   }
 
   /**
@@ -227,7 +265,7 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isDestroyed ()
   {
-    return m_aRWLock.readLockedBoolean ( () -> m_aStatus.get (STATUS_DESTROYED));
+    return _isStatus (STATUS_DESTROYED);
   }
 
   /**
@@ -373,11 +411,14 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
    */
   public final boolean isUsableObject ()
   {
-    return isInstantiated () && !isInDestruction () && !isDestroyed ();
+    // Read the status only once
+    final int nStatus = m_nStatus;
+    return (nStatus & (STATUS_INSTANTIATED | STATUS_IN_DESTRUCTION | STATUS_DESTROYED)) == STATUS_INSTANTIATED;
   }
 
   /**
    * Create the key which is used to reference the object within the scope.
+   * The key is created only once per class and cached afterwards.
    *
    * @param aClass
    *        The class for which the key is to be created. May not be
@@ -389,11 +430,15 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
   {
     ValueEnforcer.notNull (aClass, "Class");
 
-    // Preallocate some bytes
-    return new StringBuilder (DEFAULT_KEY_LENGTH).append ("singleton.").append (aClass.getName ()).toString ();
+    return s_aScopeKeys.get (aClass);
   }
 
-  private static SimpleReadWriteLock s_aRWLock = new SimpleReadWriteLock ();
+  /**
+   * Only used for the instantiation of singletons. Lookups of already
+   * instantiated singletons are lock-free, as the scope attributes are
+   * concurrent and the status of a singleton is volatile.
+   */
+  private static final SimpleReadWriteLock s_aRWLock = new SimpleReadWriteLock ();
 
   /**
    * Get the singleton object if it is already instantiated inside a scope or
@@ -418,7 +463,7 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
     if (aScope != null)
     {
       final String sSingletonScopeKey = getSingletonScopeKey (aClass);
-      final Object aObject = s_aRWLock.readLockedGet ( () -> aScope.attrs ().get (sSingletonScopeKey));
+      final Object aObject = aScope.attrs ().get (sSingletonScopeKey);
       if (aObject != null)
       {
         // Object is in the scope
@@ -538,8 +583,8 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
 
     final String sSingletonScopeKey = getSingletonScopeKey (aClass);
 
-    // check if already contained in passed scope
-    T aInstance = s_aRWLock.readLockedGet ( () -> aScope.attrs ().getCastedValue (sSingletonScopeKey));
+    // check if already contained in passed scope (lock-free fast path)
+    T aInstance = aScope.attrs ().getCastedValue (sSingletonScopeKey);
     if (aInstance == null || aInstance.isInInstantiation ())
     {
       // Not yet present or just in instantiation
@@ -555,13 +600,14 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
           // Main instantiation
           aInstance = _instantiateSingleton (aClass, aScope);
 
+          // Start the initialization process
+          // Do this before the instance is added to the scope, so that
+          // lock-free readers never see an uninitialized instance as usable
+          aInstance.setInInstantiation (true);
+
           // Set in scope so that recursive calls to the same singleton are
           // caught appropriately
           aScope.attrs ().putIn (sSingletonScopeKey, aInstance);
-
-          // Start the initialization process
-          // Do this after the instance was added to the scope
-          aInstance.setInInstantiation (true);
           try
           {
             // Invoke callback method
@@ -643,6 +689,6 @@ public abstract class AbstractSingleton implements IScopeDestructionAware
   @Nonnull
   public String toString ()
   {
-    return new ToStringGenerator (this).append ("Status", m_aStatus).getToString ();
+    return new ToStringGenerator (this).append ("Status", _getStatusAsBitSet ()).getToString ();
   }
 }
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.concurrent.ThreadHelper;
+import com.helger.commons.state.EChange;
+import com.helger.scope.ISessionScope;
+import com.helger.scope.SessionScope;
+import com.helger.scope.mock.ScopeTestRule;
+
+/**
+ * Test class for class {@link ScopeSessionManager}.
+ *
+ * @author Philip Helger
+ */
+public final class ScopeSessionManagerTest
+{
+  @Rule
+  public final TestRule m_aScopeRule = new ScopeTestRule ();
+
+  @Test
+  public void testBulkEnd ()
+  {
+    final ScopeSessionManager aSSM = ScopeSessionManager.getInstance ();
+    final int nBefore = aSSM.getSessionCount ();
+
+    final ICommonsList <ISessionScope> aScopes = new CommonsArrayList <> ();
+    for (int i = 0; i < 10; ++i)
+    {
+      final ISessionScope aScope = new SessionScope ("bulk" + i);
+      aSSM.onScopeBegin (aScope);
+      aScopes.add (aScope);
+    }
+    assertEquals (nBefore + 10, aSSM.getSessionCount ());
+
+    assertEquals (10, aSSM.onScopesEnd (aScopes));
+    assertEquals (nBefore, aSSM.getSessionCount ());
+    for (final ISessionScope aScope : aScopes)
+      assertTrue (aScope.isDestroyed ());
+
+    // Already ended
+    assertEquals (0, aSSM.onScopesEnd (aScopes));
+  }
+
+  @Test
+  public void testExpiry ()
+  {
+    final ScopeSessionManager aSSM = ScopeSessionManager.getInstance ();
+    assertFalse (aSSM.isSessionExpiryEnabled ());
+    assertNull (aSSM.getSessionExpiryMaxIdleTime ());
+
+    final ISessionScope aExisting = new SessionScope ("existing");
+    aSSM.onScopeBegin (aExisting);
+
+    aSSM.enableSessionExpiry (Duration.ofMillis (200), Duration.ofMillis (10), 3, 2);
+    try
+    {
+      assertTrue (aSSM.isSessionExpiryEnabled ());
+      assertEquals (Duration.ofMillis (200), aSSM.getSessionExpiryMaxIdleTime ());
+
+      final ICommonsList <ISessionScope> aScopes = new CommonsArrayList <> ();
+      for (int i = 0; i < 10; ++i)
+      {
+        final ISessionScope aScope = new SessionScope ("expire" + i);
+        aSSM.onScopeBegin (aScope);
+        aScopes.add (aScope);
+      }
+      final ISessionScope aTouched = new SessionScope ("touched");
+      aSSM.onScopeBegin (aTouched);
+
+      // Keep one session alive
+      for (int i = 0; i < 60; ++i)
+      {
+        aSSM.touchSessionScope (aTouched);
+        ThreadHelper.sleep (10);
+      }
+
+      // Wait for the background destruction
+      for (int i = 0; i < 100 && !aScopes.getLast ().isDestroyed (); ++i)
+        ThreadHelper.sleep (10);
+
+      assertTrue (aExisting.isDestroyed ());
+      for (final ISessionScope aScope : aScopes)
+      {
+        assertTrue (aScope.isDestroyed ());
+        assertNull (aSSM.getSessionScopeOfID (aScope.getID ()));
+      }
+      assertTrue (aTouched.isValid ());
+      assertSame (aTouched, aSSM.getSessionScopeOfID ("touched"));
+    }
+    finally
+    {
+      assertEquals (EChange.CHANGED, aSSM.disableSessionExpiry ());
+    }
+    assertEquals (EChange.UNCHANGED, aSSM.disableSessionExpiry ());
+    assertFalse (aSSM.isSessionExpiryEnabled ());
+    assertNotNull (aSSM.getSessionScopeOfID ("touched"));
+  }
+}
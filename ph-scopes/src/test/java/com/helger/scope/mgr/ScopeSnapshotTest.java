@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.mgr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.scope.IRequestScope;
+import com.helger.scope.mock.ScopeTestRule;
+
+/**
+ * Test class for class {@link ScopeSnapshot} and
+ * {@link ScopePropagatingExecutorService}.
+ *
+ * @author Philip Helger
+ */
+public final class ScopeSnapshotTest
+{
+  @Rule
+  public final TestRule m_aScopeRule = new ScopeTestRule ();
+
+  @Test
+  public void testBindInSameThread ()
+  {
+    final IRequestScope aRequestScope = ScopeManager.getRequestScope ();
+    final ScopeSnapshot aSnapshot = ScopeSnapshot.createFromCurrentThread ();
+    assertSame (ScopeManager.getGlobalScope (), aSnapshot.getGlobalScope ());
+    assertSame (aRequestScope, aSnapshot.getRequestScope ());
+    assertTrue (aSnapshot.isValid ());
+
+    // Temporarily remove the request scope
+    final IRequestScope aPrev = ScopeManager.internalBindRequestScope (null);
+    assertSame (aRequestScope, aPrev);
+    assertNull (ScopeManager.getRequestScopeOrNull ());
+    try (final ScopeSnapshot.Binding aBinding = aSnapshot.bind ())
+    {
+      assertSame (aRequestScope, ScopeManager.getRequestScopeOrNull ());
+    }
+    assertNull (ScopeManager.getRequestScopeOrNull ());
+    ScopeManager.internalBindRequestScope (aPrev);
+    assertSame (aRequestScope, ScopeManager.getRequestScopeOrNull ());
+  }
+
+  @Test
+  public void testPropagation () throws Exception
+  {
+    final IRequestScope aRequestScope = ScopeManager.getRequestScope ();
+    aRequestScope.attrs ().putIn ("key", "value");
+
+    final ExecutorService aES = new ScopePropagatingExecutorService (Executors.newFixedThreadPool (4));
+    try
+    {
+      final Future <IRequestScope> aFuture = aES.submit (ScopeManager::getRequestScopeOrNull);
+      assertSame (aRequestScope, aFuture.get ());
+
+      final CompletableFuture <String> aCF = CompletableFuture.supplyAsync ( () -> ScopeManager.getRequestScope ()
+                                                                                               .attrs ()
+                                                                                               .getAsString ("key"),
+                                                                            aES)
+                                                              .thenApplyAsync (x -> x +
+                                                                                    ScopeManager.getRequestScope ()
+                                                                                                .attrs ()
+                                                                                                .getAsString ("key"),
+                                                                               aES);
+      assertEquals ("valuevalue", aCF.get ());
+
+      // Tasks submitted without a request scope run without one
+      final IRequestScope aPrev = ScopeManager.internalBindRequestScope (null);
+      try
+      {
+        assertNull (aES.submit (ScopeManager::getRequestScopeOrNull).get ());
+      }
+      finally
+      {
+        ScopeManager.internalBindRequestScope (aPrev);
+      }
+
+      // The pooled threads are reset after each task
+      final ExecutorService aPlainES = ((ScopePropagatingExecutorService) aES).getDelegate ();
+      for (int i = 0; i < 8; ++i)
+        assertNull (aPlainES.submit (ScopeManager::getRequestScopeOrNull).get ());
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    }
+  }
+
+  @Test
+  public void testDestroyedScope ()
+  {
+    final ScopeSnapshot aSnapshot = ScopeSnapshot.createFromCurrentThread ();
+    assertNotNull (aSnapshot.getRequestScope ());
+    ScopeManager.onRequestEnd ();
+    assertFalse (aSnapshot.isValid ());
+    try
+    {
+      aSnapshot.bind ();
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    // For the test rule
+    ScopeManager.onRequestBegin ("dummy", "dummy");
+  }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.singleton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.scope.mock.ScopeTestRule;
+
+/**
+ * Test the concurrent access to global singletons.
+ *
+ * @author Philip Helger
+ */
+public final class GlobalSingletonConcurrencyFuncTest
+{
+  @Rule
+  public final TestRule m_aScopeRule = new ScopeTestRule ();
+
+  @Test
+  public void testConcurrentLookup ()
+  {
+    final int nThreads = 16;
+    final AtomicInteger aErrors = new AtomicInteger ();
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    for (int i = 0; i < nThreads; ++i)
+      aES.submit ( () -> {
+        for (int j = 0; j < 1000; ++j)
+        {
+          final MockGlobalSingletonSlowInit aInstance = MockGlobalSingletonSlowInit.getInstance ();
+          // Never return an instance that is not completely initialized
+          if (!aInstance.isInitialized () || !aInstance.isUsableObject ())
+            aErrors.incrementAndGet ();
+        }
+      });
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+
+    assertEquals (0, aErrors.get ());
+    assertEquals (1, MockGlobalSingletonSlowInit.CTOR_COUNT.get ());
+    assertTrue (AbstractGlobalSingleton.isGlobalSingletonInstantiated (MockGlobalSingletonSlowInit.class));
+  }
+}
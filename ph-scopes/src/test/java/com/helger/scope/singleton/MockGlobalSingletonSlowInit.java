@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.singleton;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import com.helger.commons.annotation.UsedViaReflection;
+import com.helger.commons.concurrent.ThreadHelper;
+import com.helger.scope.IScope;
+
+/**
+ * Mock implementation of {@link AbstractGlobalSingleton} with a slow
+ * initialization.
+ *
+ * @author Philip Helger
+ */
+public final class MockGlobalSingletonSlowInit extends AbstractGlobalSingleton
+{
+  static final AtomicInteger CTOR_COUNT = new AtomicInteger ();
+  private boolean m_bInitialized = false;
+
+  @Deprecated
+  @UsedViaReflection
+  public MockGlobalSingletonSlowInit ()
+  {
+    CTOR_COUNT.incrementAndGet ();
+  }
+
+  @Nonnull
+  public static MockGlobalSingletonSlowInit getInstance ()
+  {
+    return getGlobalSingleton (MockGlobalSingletonSlowInit.class);
+  }
+
+  @Override
+  protected void onAfterInstantiation (@Nonnull final IScope aScope)
+  {
+    ThreadHelper.sleep (50);
+    m_bInitialized = true;
+  }
+
+  public boolean isInitialized ()
+  {
+    return m_bInitialized;
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.scope.supplementary.test.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.system.SystemProperties;
+import com.helger.commons.timing.StopWatch;
+import com.helger.scope.mgr.ScopeManager;
+import com.helger.scope.singleton.MockGlobalSingletonSlowInit;
+
+/**
+ * Measure the lookup of an already instantiated global singleton with an
+ * increasing number of concurrent threads.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkSingletonLookup
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (BenchmarkSingletonLookup.class);
+  private static final int LOOKUPS_PER_THREAD = 2_000_000;
+
+  private BenchmarkSingletonLookup ()
+  {}
+
+  private static double _benchmark (final int nThreads) throws InterruptedException
+  {
+    final ExecutorService aES = Executors.newFixedThreadPool (nThreads);
+    final StopWatch aSW = StopWatch.createdStarted ();
+    for (int i = 0; i < nThreads; ++i)
+      aES.submit ( () -> {
+        int nFound = 0;
+        for (int j = 0; j < LOOKUPS_PER_THREAD; ++j)
+          if (MockGlobalSingletonSlowInit.getInstance ().isInitialized ())
+            nFound++;
+        if (nFound != LOOKUPS_PER_THREAD)
+          throw new IllegalStateException ();
+      });
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    final long nNanos = aSW.stopAndGetNanos ();
+    return nNanos / (double) LOOKUPS_PER_THREAD / nThreads;
+  }
+
+  public static void main (final String [] aArgs) throws InterruptedException
+  {
+    LOGGER.info ("Runtime: Java=" + SystemProperties.getJavaVersion () +
+                 "; CPUs=" +
+                 Runtime.getRuntime ().availableProcessors ());
+
+    ScopeManager.onGlobalBegin ("benchmark");
+    try
+    {
+      // Instantiate once
+      MockGlobalSingletonSlowInit.getInstance ();
+
+      // Warm up
+      _benchmark (1);
+      _benchmark (4);
+      TimeUnit.MILLISECONDS.sleep (100);
+
+      for (final int nThreads : new int [] { 1, 2, 4, 8, 16, 32 })
+      {
+        final double dTime = _benchmark (nThreads);
+        LOGGER.info ("Threads=" + nThreads + ": " + String.format ("%.2f", Double.valueOf (dTime)) + " ns/lookup");
+      }
+    }
+    finally
+    {
+      ScopeManager.onGlobalEnd ();
+    }
+  }
+}
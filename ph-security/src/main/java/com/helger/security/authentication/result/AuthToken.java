@@ -22,7 +22,7 @@ import java.time.LocalDateTime;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
 
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.datetime.PDTFactory;
@@ -35,15 +35,16 @@ import com.helger.commons.string.ToStringGenerator;
  *
  * @author Philip Helger
  */
-@NotThreadSafe
+@ThreadSafe
 public final class AuthToken implements IAuthToken
 {
   private final String m_sID;
   private final IAuthIdentification m_aIdentification;
   private final LocalDateTime m_aCreationDT;
-  private LocalDateTime m_aLastAccessDT;
+  private volatile LocalDateTime m_aLastAccessDT;
+  private volatile long m_nLastAccessMillis;
   private final int m_nExpirationSeconds;
-  private boolean m_bExpired;
+  private volatile boolean m_bExpired;
 
   public AuthToken (@Nonnull final IAuthIdentification aIdentification, @Nonnegative final int nExpirationSeconds)
   {
@@ -58,6 +59,7 @@ public final class AuthToken implements IAuthToken
     m_aIdentification = aIdentification;
     m_aCreationDT = PDTFactory.getCurrentLocalDateTime ();
     m_aLastAccessDT = m_aCreationDT;
+    m_nLastAccessMillis = System.currentTimeMillis ();
     m_nExpirationSeconds = nExpirationSeconds;
     m_bExpired = false;
   }
@@ -86,6 +88,15 @@ public final class AuthToken implements IAuthToken
     return m_aLastAccessDT;
   }
 
+  /**
+   * @return The last access as milliseconds since the epoch. Used for the
+   *         background expiry in {@link AuthTokenRegistry}.
+   */
+  long getLastAccessMillis ()
+  {
+    return m_nLastAccessMillis;
+  }
+
   @Nonnegative
   public int getExpirationSeconds ()
   {
@@ -138,6 +149,7 @@ public final class AuthToken implements IAuthToken
   void updateLastAccess ()
   {
     m_aLastAccessDT = PDTFactory.getCurrentLocalDateTime ();
+    m_nLastAccessMillis = System.currentTimeMillis ();
   }
 
   @Override
@@ -16,37 +16,133 @@
  */
 package com.helger.security.authentication.result;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+import javax.annotation.CheckForSigned;
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.CGlobal;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.collection.impl.CommonsArrayList;
-import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.CommonsConcurrentHashMap;
 import com.helger.commons.collection.impl.ICommonsList;
 import com.helger.commons.collection.impl.ICommonsMap;
-import com.helger.commons.concurrent.SimpleReadWriteLock;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.concurrent.SimpleLock;
+import com.helger.commons.state.EChange;
 import com.helger.commons.state.ESuccess;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCache;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.StatisticsManager;
 import com.helger.commons.string.StringHelper;
+import com.helger.commons.timing.HierarchicalTimingWheel;
 import com.helger.security.authentication.subject.IAuthSubject;
 
 /**
- * This class manages all the currently available authentications tokens.
+ * This class manages all the currently available authentications tokens.<br>
+ * The tokens are stored in a concurrent map, so validating a token does not
+ * require any global lock. A secondary index from subject to token IDs is
+ * maintained, so that querying the tokens of a subject does not need to scan
+ * all tokens. Expired tokens are removed lazily upon access and optionally in
+ * the background (see {@link #enableBackgroundExpiry(Duration)}).<br>
+ * The following statistics are maintained in the {@link StatisticsManager}:
+ * <ul>
+ * <li><code>$LOOKUP</code> - cache handler with hits for valid and misses for
+ * unknown or expired tokens</li>
+ * <li><code>$CREATED</code>, <code>$REMOVED</code> and <code>$EXPIRED</code>
+ * - counter handlers for the token lifecycle</li>
+ * </ul>
+ * The lookup latency is available via {@link #getAverageLookupNanos()}.
  *
  * @author Philip Helger
  */
 @ThreadSafe
 public final class AuthTokenRegistry
 {
-  private static final SimpleReadWriteLock s_aRWLock = new SimpleReadWriteLock ();
-  private static final ICommonsMap <String, AuthToken> s_aMap = new CommonsHashMap <> ();
+  /** The default tick duration of the background expiry */
+  public static final Duration DEFAULT_EXPIRY_TICK = Duration.ofSeconds (1);
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (AuthTokenRegistry.class);
+  private static final IMutableStatisticsHandlerCache s_aStatsLookup = StatisticsManager.getCacheHandler (AuthTokenRegistry.class.getName () +
+                                                                                                         "$LOOKUP");
+  private static final IMutableStatisticsHandlerCounter s_aStatsCreated = StatisticsManager.getCounterHandler (AuthTokenRegistry.class.getName () +
+                                                                                                              "$CREATED");
+  private static final IMutableStatisticsHandlerCounter s_aStatsRemoved = StatisticsManager.getCounterHandler (AuthTokenRegistry.class.getName () +
+                                                                                                              "$REMOVED");
+  private static final IMutableStatisticsHandlerCounter s_aStatsExpired = StatisticsManager.getCounterHandler (AuthTokenRegistry.class.getName () +
+                                                                                                              "$EXPIRED");
+  // Not using a timer handler, because it requires a write lock
+  private static final LongAdder s_aLookupCount = new LongAdder ();
+  private static final LongAdder s_aLookupNanos = new LongAdder ();
+
+  private static final ICommonsMap <String, AuthToken> s_aMap = new CommonsConcurrentHashMap <> ();
+  // Note: requires IAuthSubject to implement equals and hashCode!
+  private static final ICommonsMap <IAuthSubject, Set <String>> s_aSubjectIndex = new CommonsConcurrentHashMap <> ();
+
+  // Background expiry - only used if enabled
+  private static final SimpleLock s_aExpiryLock = new SimpleLock ();
+  @GuardedBy ("s_aExpiryLock")
+  private static HierarchicalTimingWheel <AuthToken> s_aExpiryWheel;
+  @GuardedBy ("s_aExpiryLock")
+  private static ScheduledExecutorService s_aExpiryTimer;
 
   private AuthTokenRegistry ()
   {}
 
+  private static long _getDeadlineMillis (@Nonnull final AuthToken aToken)
+  {
+    // Removed in the meantime?
+    if (s_aMap.get (aToken.getID ()) != aToken)
+      return HierarchicalTimingWheel.DEADLINE_CANCELLED;
+    // isExpired only considers full seconds
+    return aToken.getLastAccessMillis () +
+           (aToken.getExpirationSeconds () + 1L) * CGlobal.MILLISECONDS_PER_SECOND;
+  }
+
+  private static void _registerForExpiry (@Nonnull final AuthToken aToken)
+  {
+    if (aToken.isExpirationPossible ())
+      s_aExpiryLock.locked ( () -> {
+        if (s_aExpiryWheel != null)
+          s_aExpiryWheel.add (aToken);
+      });
+  }
+
+  private static void _addToIndex (@Nonnull final AuthToken aToken)
+  {
+    final IAuthSubject aSubject = aToken.getIdentification ().getAuthSubject ();
+    if (aSubject != null)
+      s_aSubjectIndex.compute (aSubject, (k, v) -> {
+        final Set <String> ret = v != null ? v : ConcurrentHashMap.newKeySet ();
+        ret.add (aToken.getID ());
+        return ret;
+      });
+  }
+
+  private static void _removeFromIndex (@Nonnull final AuthToken aToken)
+  {
+    final IAuthSubject aSubject = aToken.getIdentification ().getAuthSubject ();
+    if (aSubject != null)
+      s_aSubjectIndex.computeIfPresent (aSubject, (k, v) -> {
+        v.remove (aToken.getID ());
+        return v.isEmpty () ? null : v;
+      });
+  }
+
   @Nonnull
   public static IAuthToken createToken (@Nonnull final IAuthIdentification aIdentification,
                                         @Nonnegative final int nExpirationSeconds)
@@ -54,11 +150,11 @@ public final class AuthTokenRegistry
     final AuthToken aToken = new AuthToken (aIdentification, nExpirationSeconds);
     final String sTokenID = aToken.getID ();
 
-    s_aRWLock.writeLocked ( () -> {
-      if (s_aMap.containsKey (sTokenID))
-        throw new IllegalArgumentException ("Token '" + sTokenID + "' already contained");
-      s_aMap.put (sTokenID, aToken);
-    });
+    if (s_aMap.putIfAbsent (sTokenID, aToken) != null)
+      throw new IllegalArgumentException ("Token '" + sTokenID + "' already contained");
+    _addToIndex (aToken);
+    _registerForExpiry (aToken);
+    s_aStatsCreated.increment ();
 
     return aToken;
   }
@@ -66,16 +162,27 @@ public final class AuthTokenRegistry
   @Nonnull
   public static ESuccess removeToken (@Nonnull final String sTokenID)
   {
-    return s_aRWLock.writeLockedGet ( () -> {
-      final AuthToken aToken = s_aMap.remove (sTokenID);
-      if (aToken == null)
-        return ESuccess.FAILURE;
+    final AuthToken aToken = s_aMap.remove (sTokenID);
+    if (aToken == null)
+      return ESuccess.FAILURE;
 
-      // manually set token as expired to avoid further usage in case somebody
-      // has a reference to the token
-      aToken.setExpired ();
-      return ESuccess.SUCCESS;
-    });
+    // manually set token as expired to avoid further usage in case somebody
+    // has a reference to the token
+    aToken.setExpired ();
+    _removeFromIndex (aToken);
+    s_aStatsRemoved.increment ();
+    return ESuccess.SUCCESS;
+  }
+
+  private static boolean _removeExpiredToken (@Nonnull final AuthToken aToken)
+  {
+    if (!s_aMap.remove (aToken.getID (), aToken))
+      return false;
+
+    aToken.setExpired ();
+    _removeFromIndex (aToken);
+    s_aStatsExpired.increment ();
+    return true;
   }
 
   @Nullable
@@ -84,8 +191,24 @@ public final class AuthTokenRegistry
     if (StringHelper.hasNoText (sTokenID))
       return null;
 
-    final AuthToken aToken = s_aRWLock.readLockedGet ( () -> s_aMap.get (sTokenID));
-    return aToken != null && !aToken.isExpired () ? aToken : null;
+    final long nStart = System.nanoTime ();
+    final AuthToken aToken = s_aMap.get (sTokenID);
+    AuthToken ret = null;
+    if (aToken != null)
+    {
+      if (aToken.isExpired ())
+        _removeExpiredToken (aToken);
+      else
+        ret = aToken;
+    }
+    s_aLookupNanos.add (System.nanoTime () - nStart);
+    s_aLookupCount.increment ();
+
+    if (ret != null)
+      s_aStatsLookup.cacheHit ();
+    else
+      s_aStatsLookup.cacheMiss ();
+    return ret;
   }
 
   @Nullable
@@ -101,7 +224,8 @@ public final class AuthTokenRegistry
     if (aToken == null)
       return null;
 
-    s_aRWLock.writeLocked (aToken::updateLastAccess);
+    // Volatile write - no lock needed
+    aToken.updateLastAccess ();
     return aToken;
   }
 
@@ -118,9 +242,16 @@ public final class AuthTokenRegistry
   {
     ValueEnforcer.notNull (aSubject, "Subject");
 
-    return s_aRWLock.readLockedGet ( () -> CommonsArrayList.createFiltered (s_aMap.values (),
-                                                                         aToken -> aToken.getIdentification ()
-                                                                                         .hasAuthSubject (aSubject)));
+    final ICommonsList <IAuthToken> ret = new CommonsArrayList <> ();
+    final Set <String> aTokenIDs = s_aSubjectIndex.get (aSubject);
+    if (aTokenIDs != null)
+      for (final String sTokenID : aTokenIDs)
+      {
+        final AuthToken aToken = s_aMap.get (sTokenID);
+        if (aToken != null)
+          ret.add (aToken);
+      }
+    return ret;
   }
 
   /**
@@ -135,18 +266,178 @@ public final class AuthTokenRegistry
   {
     ValueEnforcer.notNull (aSubject, "Subject");
 
-    // get all token IDs matching a given subject
-    // Note: required IAuthSubject to implement equals!
-    final ICommonsList <String> aDelTokenIDs = new CommonsArrayList <> ();
-    s_aRWLock.readLocked ( () -> {
-      for (final Map.Entry <String, AuthToken> aEntry : s_aMap.entrySet ())
-        if (aEntry.getValue ().getIdentification ().hasAuthSubject (aSubject))
-          aDelTokenIDs.add (aEntry.getKey ());
+    final Set <String> aTokenIDs = s_aSubjectIndex.get (aSubject);
+    if (aTokenIDs == null)
+      return 0;
+
+    int ret = 0;
+    // Copy, because removing modifies the index
+    for (final String sDelTokenID : new CommonsArrayList <> (aTokenIDs))
+      if (removeToken (sDelTokenID).isSuccess ())
+        ret++;
+    return ret;
+  }
+
+  /**
+   * Remove all expired tokens by scanning all tokens. This is only needed if
+   * the background expiry is not enabled.
+   *
+   * @return The number of removed tokens. Always &ge; 0.
+   * @since 9.4.3
+   */
+  @Nonnegative
+  public static int removeAllExpiredTokens ()
+  {
+    int ret = 0;
+    for (final AuthToken aToken : s_aMap.copyOfValues ())
+      if (aToken.isExpired () && _removeExpiredToken (aToken))
+        ret++;
+    return ret;
+  }
+
+  /**
+   * @return The number of currently registered tokens, including the expired
+   *         ones not yet removed. Always &ge; 0.
+   * @since 9.4.3
+   */
+  @Nonnegative
+  public static int getTokenCount ()
+  {
+    return s_aMap.size ();
+  }
+
+  /**
+   * @return The number of token lookups since the start. Always &ge; 0.
+   * @since 9.4.3
+   */
+  @Nonnegative
+  public static long getLookupCount ()
+  {
+    return s_aLookupCount.sum ();
+  }
+
+  /**
+   * @return The average duration of a token lookup in nanoseconds or
+   *         {@link CGlobal#ILLEGAL_ULONG} if no lookup happened yet.
+   * @since 9.4.3
+   */
+  @CheckForSigned
+  public static long getAverageLookupNanos ()
+  {
+    final long nCount = s_aLookupCount.sum ();
+    return nCount == 0 ? CGlobal.ILLEGAL_ULONG : s_aLookupNanos.sum () / nCount;
+  }
+
+  /**
+   * @return <code>true</code> if the background expiry is enabled.
+   * @since 9.4.3
+   */
+  public static boolean isBackgroundExpiryEnabled ()
+  {
+    return s_aExpiryLock.lockedGet ( () -> s_aExpiryWheel != null);
+  }
+
+  /**
+   * Enable the background removal of expired tokens using
+   * {@link #DEFAULT_EXPIRY_TICK}.
+   *
+   * @throws IllegalStateException
+   *         If the background expiry is already enabled
+   * @since 9.4.3
+   */
+  public static void enableBackgroundExpiry ()
+  {
+    enableBackgroundExpiry (DEFAULT_EXPIRY_TICK);
+  }
+
+  /**
+   * Enable the background removal of expired tokens. All tokens that can
+   * expire are put into a hierarchical timing wheel which is advanced by a
+   * single daemon thread, so the costs are independent of the number of
+   * tokens. Tokens that were accessed in the meantime are simply re-scheduled.
+   *
+   * @param aTickDuration
+   *        The resolution of the expiry. May not be <code>null</code> and must
+   *        be at least 1 millisecond.
+   * @throws IllegalStateException
+   *         If the background expiry is already enabled
+   * @since 9.4.3
+   */
+  public static void enableBackgroundExpiry (@Nonnull final Duration aTickDuration)
+  {
+    ValueEnforcer.notNull (aTickDuration, "TickDuration");
+    ValueEnforcer.isTrue (aTickDuration.toMillis () > 0, "TickDuration must be at least 1 millisecond");
+
+    final long nTickMillis = aTickDuration.toMillis ();
+    s_aExpiryLock.locked ( () -> {
+      if (s_aExpiryWheel != null)
+        throw new IllegalStateException ("Background expiry is already enabled");
+
+      s_aExpiryWheel = new HierarchicalTimingWheel <> (nTickMillis,
+                                                       System.currentTimeMillis (),
+                                                       AuthTokenRegistry::_getDeadlineMillis);
+      // Tokens created concurrently may be added twice, which is harmless
+      for (final AuthToken aToken : s_aMap.values ())
+        if (aToken.isExpirationPossible ())
+          s_aExpiryWheel.add (aToken);
+
+      s_aExpiryTimer = Executors.newSingleThreadScheduledExecutor (new BasicThreadFactory.Builder ().setNamingPattern ("ph-authtoken-expiry-%d")
+                                                                                                   .setDaemon (true)
+                                                                                                   .build ());
+      s_aExpiryTimer.scheduleWithFixedDelay (AuthTokenRegistry::_expireTokens,
+                                             nTickMillis,
+                                             nTickMillis,
+                                             TimeUnit.MILLISECONDS);
     });
+  }
+
+  /**
+   * Disable the background removal of expired tokens.
+   *
+   * @return {@link EChange}
+   * @since 9.4.3
+   */
+  @Nonnull
+  public static EChange disableBackgroundExpiry ()
+  {
+    final ScheduledExecutorService aTimer = s_aExpiryLock.lockedGet ( () -> {
+      if (s_aExpiryWheel == null)
+        return null;
+      s_aExpiryWheel = null;
+      final ScheduledExecutorService ret = s_aExpiryTimer;
+      s_aExpiryTimer = null;
+      return ret;
+    });
+    if (aTimer == null)
+      return EChange.UNCHANGED;
 
-    for (final String sDelTokenID : aDelTokenIDs)
-      removeToken (sDelTokenID);
+    // Wait outside of the lock, because the task needs the lock
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aTimer);
+    return EChange.CHANGED;
+  }
 
-    return aDelTokenIDs.size ();
+  private static void _expireTokens ()
+  {
+    try
+    {
+      final long nNow = System.currentTimeMillis ();
+      final ICommonsList <AuthToken> aCandidates = s_aExpiryLock.lockedGet ( () -> s_aExpiryWheel == null ? null
+                                                                                                       : s_aExpiryWheel.advance (nNow));
+      if (aCandidates != null)
+        for (final AuthToken aToken : aCandidates)
+          if (aToken.isExpired ())
+            _removeExpiredToken (aToken);
+          else
+          {
+            // Deadline reached according to the millis but not yet according
+            // to the date time
+            _registerForExpiry (aToken);
+          }
+    }
+    catch (final RuntimeException ex)
+    {
+      // Don't let the timer die
+      LOGGER.error ("Error expiring auth tokens", ex);
+    }
   }
 }
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.certificate;
+
+import java.security.cert.X509Certificate;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.cache.MappedCache;
+import com.helger.commons.collection.ArrayHelper;
+import com.helger.commons.state.EChange;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.security.messagedigest.EMessageDigestAlgorithm;
+import com.helger.security.messagedigest.MessageDigestPool;
+
+/**
+ * A cache for X.509 certificates parsed via {@link CertificateHelper}. The
+ * certificates are identified by the SHA-256 fingerprint of the encoded
+ * certificate, so the source string or byte array is not kept. As
+ * certificates are immutable, no reloading is needed. The cache statistics
+ * are maintained by {@link MappedCache}.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public class CertificateCache
+{
+  /** The default maximum number of cached certificates per input type */
+  public static final int DEFAULT_MAX_SIZE = 1_000;
+
+  private static final CertificateCache DEFAULT_INSTANCE = new CertificateCache (DEFAULT_MAX_SIZE,
+                                                                                 CertificateCache.class.getName ());
+
+  private final MappedCache <String, String, X509Certificate> m_aStringCache;
+  private final MappedCache <byte [], String, X509Certificate> m_aBytesCache;
+
+  /**
+   * Constructor
+   *
+   * @param nMaxSize
+   *        The maximum number of certificates per input type. Must be &gt; 0.
+   * @param sCacheName
+   *        The name of the cache used for the statistics. May neither be
+   *        <code>null</code> nor empty.
+   */
+  public CertificateCache (@Nonnegative final int nMaxSize, @Nonnull final String sCacheName)
+  {
+    ValueEnforcer.isGT0 (nMaxSize, "MaxSize");
+    ValueEnforcer.notEmpty (sCacheName, "CacheName");
+    // Invalid certificates are cached as null as well
+    m_aStringCache = new MappedCache <> (s -> getFingerprint (s.getBytes (CertificateHelper.CERT_CHARSET)),
+                                         CertificateHelper::convertStringToCertficateOrNull,
+                                         nMaxSize,
+                                         sCacheName + "$string",
+                                         true);
+    m_aBytesCache = new MappedCache <> (CertificateCache::getFingerprint,
+                                        CertificateHelper::convertByteArrayToCertficateOrNull,
+                                        nMaxSize,
+                                        sCacheName + "$bytes",
+                                        true);
+  }
+
+  /**
+   * @return The global default instance. Never <code>null</code>.
+   */
+  @Nonnull
+  public static CertificateCache getDefaultInstance ()
+  {
+    return DEFAULT_INSTANCE;
+  }
+
+  /**
+   * Get the SHA-256 fingerprint of the passed bytes.
+   *
+   * @param aBytes
+   *        The bytes to digest. May not be <code>null</code>.
+   * @return The hex encoded fingerprint. Never <code>null</code>.
+   */
+  @Nonnull
+  public static String getFingerprint (@Nonnull final byte [] aBytes)
+  {
+    return StringHelper.getHexEncoded (MessageDigestPool.getDefaultInstance ()
+                                                        .getDigest (EMessageDigestAlgorithm.SHA_256, aBytes));
+  }
+
+  /**
+   * Get the certificate from the cache or parse it via
+   * {@link CertificateHelper#convertStringToCertficateOrNull(String)}.
+   *
+   * @param sCertString
+   *        The certificate string. May be <code>null</code>.
+   * @return <code>null</code> if the passed string is <code>null</code>, empty
+   *         or not a valid certificate.
+   */
+  @Nullable
+  public X509Certificate getCertificate (@Nullable final String sCertString)
+  {
+    if (StringHelper.hasNoText (sCertString))
+      return null;
+    return m_aStringCache.getFromCache (sCertString);
+  }
+
+  /**
+   * Get the certificate from the cache or parse it via
+   * {@link CertificateHelper#convertByteArrayToCertficateOrNull(byte[])}.
+   *
+   * @param aCertBytes
+   *        The certificate bytes. May be <code>null</code>.
+   * @return <code>null</code> if the passed bytes are <code>null</code>, empty
+   *         or not a valid certificate.
+   */
+  @Nullable
+  public X509Certificate getCertificate (@Nullable final byte [] aCertBytes)
+  {
+    if (ArrayHelper.isEmpty (aCertBytes))
+      return null;
+    return m_aBytesCache.getFromCache (aCertBytes);
+  }
+
+  /**
+   * Remove all cached certificates.
+   *
+   * @return {@link EChange#CHANGED} if at least one entry was removed.
+   */
+  @Nonnull
+  public EChange clear ()
+  {
+    return m_aStringCache.clearCache ().or (m_aBytesCache.clearCache ());
+  }
+
+  /**
+   * @return The number of cached certificates. Always &ge; 0.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return m_aStringCache.size () + m_aBytesCache.size ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("StringCache", m_aStringCache)
+                                       .append ("BytesCache", m_aBytesCache)
+                                       .getToString ();
+  }
+}
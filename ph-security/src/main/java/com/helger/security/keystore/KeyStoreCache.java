@@ -0,0 +1,546 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.keystore;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.crypto.SecretKey;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsConcurrentHashMap;
+import com.helger.commons.collection.impl.CommonsHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.concurrent.SimpleReadWriteLock;
+import com.helger.commons.hashcode.HashCodeGenerator;
+import com.helger.commons.io.resource.IReadableResource;
+import com.helger.commons.random.VerySecureRandom;
+import com.helger.commons.state.EChange;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCache;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.string.StringHelper;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.security.mac.EMacAlgorithm;
+import com.helger.security.mac.MacPool;
+
+/**
+ * A cache for key stores and keys loaded via {@link KeyStoreHelper}. Key
+ * stores are identified by path, key store type and the fingerprint of the
+ * password, so that the password itself is not kept. The fingerprint is an
+ * HMAC with a random secret per cache instance, so that it cannot be reversed
+ * with precomputed tables. If the key store
+ * resource resolves to a file, the modification time and the size of the
+ * file are checked at most once per check interval and the key store is
+ * reloaded if they changed. Key stores from other resources (e.g. inside a
+ * JAR) are only reloaded after {@link #remove(String)} or {@link #clear()}.
+ * <br>
+ * Note: the cached {@link KeyStore} objects are shared and must not be
+ * modified by the caller. Only successfully loaded key stores and keys are
+ * cached.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public class KeyStoreCache
+{
+  /** Default minimum interval between two file modification checks */
+  public static final long DEFAULT_CHECK_INTERVAL_MILLIS = 1_000;
+
+  private static final KeyStoreCache DEFAULT_INSTANCE = new KeyStoreCache ();
+
+  private static final IMutableStatisticsHandlerCache STATS_KEYSTORE = StatisticsManager.getCacheHandler (KeyStoreCache.class.getName () +
+                                                                                                         "$keystore");
+  private static final IMutableStatisticsHandlerCache STATS_KEY = StatisticsManager.getCacheHandler (KeyStoreCache.class.getName () +
+                                                                                                    "$key");
+  private static final IMutableStatisticsHandlerCounter STATS_RELOAD = StatisticsManager.getCounterHandler (KeyStoreCache.class.getName () +
+                                                                                                           "$reload");
+
+  /**
+   * The lookup key for key stores.
+   */
+  @Immutable
+  private static final class CacheKey
+  {
+    private final String m_sPath;
+    private final String m_sTypeID;
+    private final String m_sPasswordFingerprint;
+    private final int m_nHashCode;
+
+    CacheKey (@Nonnull final String sPath, @Nonnull final String sTypeID, @Nonnull final String sPasswordFingerprint)
+    {
+      m_sPath = sPath;
+      m_sTypeID = sTypeID;
+      m_sPasswordFingerprint = sPasswordFingerprint;
+      m_nHashCode = new HashCodeGenerator (this).append (sPath)
+                                                .append (sTypeID)
+                                                .append (sPasswordFingerprint)
+                                                .getHashCode ();
+    }
+
+    @Override
+    public boolean equals (final Object o)
+    {
+      if (o == this)
+        return true;
+      if (o == null || !getClass ().equals (o.getClass ()))
+        return false;
+      final CacheKey rhs = (CacheKey) o;
+      return m_sPath.equals (rhs.m_sPath) &&
+             m_sTypeID.equals (rhs.m_sTypeID) &&
+             m_sPasswordFingerprint.equals (rhs.m_sPasswordFingerprint);
+    }
+
+    @Override
+    public int hashCode ()
+    {
+      return m_nHashCode;
+    }
+  }
+
+  /**
+   * A single cached key store including all keys loaded from it.
+   */
+  private static final class CacheEntry
+  {
+    private final LoadedKeyStore m_aLoadedKeyStore;
+    private final File m_aFile;
+    private final long m_nLastModified;
+    private final long m_nFileSize;
+    private volatile long m_nLastCheck;
+    private final ICommonsMap <String, LoadedKey <?>> m_aKeys = new CommonsConcurrentHashMap <> ();
+
+    CacheEntry (@Nonnull final LoadedKeyStore aLoadedKeyStore,
+                @Nullable final File aFile,
+                final long nLastModified,
+                final long nFileSize,
+                final long nNow)
+    {
+      m_aLoadedKeyStore = aLoadedKeyStore;
+      m_aFile = aFile;
+      m_nLastModified = nLastModified;
+      m_nFileSize = nFileSize;
+      m_nLastCheck = nNow;
+    }
+
+    boolean isOutdated (final long nNow, final long nCheckIntervalMillis)
+    {
+      if (m_aFile == null)
+        return false;
+      if (nNow - m_nLastCheck < nCheckIntervalMillis)
+        return false;
+      m_nLastCheck = nNow;
+      return m_aFile.lastModified () != m_nLastModified || m_aFile.length () != m_nFileSize;
+    }
+  }
+
+  private final SimpleReadWriteLock m_aRWLock = new SimpleReadWriteLock ();
+  @GuardedBy ("m_aRWLock")
+  private final ICommonsMap <CacheKey, CacheEntry> m_aMap = new CommonsHashMap <> ();
+  private volatile long m_nCheckIntervalMillis = DEFAULT_CHECK_INTERVAL_MILLIS;
+  private final AtomicLong m_aHits = new AtomicLong ();
+  private final AtomicLong m_aMisses = new AtomicLong ();
+  private final AtomicLong m_aReloads = new AtomicLong ();
+  // The secret for the password fingerprints
+  private final SecretKey m_aFingerprintKey;
+
+  public KeyStoreCache ()
+  {
+    final byte [] aKeyBytes = new byte [32];
+    VerySecureRandom.getInstance ().nextBytes (aKeyBytes);
+    m_aFingerprintKey = EMacAlgorithm.HMAC_SHA256.createSecretKey (aKeyBytes);
+  }
+
+  /**
+   * @return The global default instance. Never <code>null</code>.
+   */
+  @Nonnull
+  public static KeyStoreCache getDefaultInstance ()
+  {
+    return DEFAULT_INSTANCE;
+  }
+
+  /**
+   * @return The minimum interval in milliseconds between two file modification
+   *         checks of the same key store. Always &ge; 0.
+   */
+  @Nonnegative
+  public final long getCheckIntervalMillis ()
+  {
+    return m_nCheckIntervalMillis;
+  }
+
+  /**
+   * @param nCheckIntervalMillis
+   *        The minimum interval in milliseconds between two file modification
+   *        checks of the same key store. Use 0 to check on every access. Must
+   *        be &ge; 0.
+   * @return this for chaining
+   */
+  @Nonnull
+  public final KeyStoreCache setCheckIntervalMillis (@Nonnegative final long nCheckIntervalMillis)
+  {
+    ValueEnforcer.isGE0 (nCheckIntervalMillis, "CheckIntervalMillis");
+    m_nCheckIntervalMillis = nCheckIntervalMillis;
+    return this;
+  }
+
+  /**
+   * Get the HMAC-SHA256 fingerprint of the passed password using the secret of
+   * this instance.
+   *
+   * @param aPassword
+   *        The password. May be <code>null</code>.
+   * @return The hex encoded fingerprint or an empty string for a
+   *         <code>null</code> password.
+   */
+  @Nonnull
+  private String _getPasswordFingerprint (@Nullable final char [] aPassword)
+  {
+    if (aPassword == null)
+      return "";
+    final ByteBuffer aBB = StandardCharsets.UTF_8.encode (CharBuffer.wrap (aPassword));
+    final byte [] aDigest = MacPool.getDefaultInstance ().getMac (EMacAlgorithm.HMAC_SHA256, m_aFingerprintKey, aBB);
+    // Don't keep the password in memory
+    if (aBB.hasArray ())
+      Arrays.fill (aBB.array (), (byte) 0);
+    return StringHelper.getHexEncoded (aDigest);
+  }
+
+  @Nullable
+  private static File _getFile (@Nonnull final String sKeyStorePath)
+  {
+    try
+    {
+      final IReadableResource aRes = KeyStoreHelper.getResourceProvider ().getReadableResource (sKeyStorePath);
+      final File aFile = aRes == null ? null : aRes.getAsFile ();
+      return aFile != null && aFile.isFile () ? aFile : null;
+    }
+    catch (final RuntimeException ex)
+    {
+      // No resource provider can handle it
+      return null;
+    }
+  }
+
+  /**
+   * Get the cache entry, loading or reloading the key store if necessary.
+   *
+   * @return Either a non-<code>null</code> {@link CacheEntry} or the failed
+   *         {@link LoadedKeyStore}.
+   */
+  @Nonnull
+  private Object _getEntry (@Nonnull final IKeyStoreType aKeyStoreType,
+                            @Nullable final String sKeyStorePath,
+                            @Nullable final String sKeyStorePassword)
+  {
+    ValueEnforcer.notNull (aKeyStoreType, "KeyStoreType");
+    if (StringHelper.hasNoText (sKeyStorePath))
+      return KeyStoreHelper.loadKeyStore (aKeyStoreType, sKeyStorePath, sKeyStorePassword);
+
+    final CacheKey aKey = new CacheKey (sKeyStorePath,
+                                        aKeyStoreType.getID (),
+                                        _getPasswordFingerprint (sKeyStorePassword == null ? null
+                                                                                          : sKeyStorePassword.toCharArray ()));
+    final long nNow = System.currentTimeMillis ();
+    final CacheEntry aOld = m_aRWLock.readLockedGet ( () -> m_aMap.get (aKey));
+    if (aOld != null && !aOld.isOutdated (nNow, m_nCheckIntervalMillis))
+    {
+      m_aHits.incrementAndGet ();
+      STATS_KEYSTORE.cacheHit ();
+      return aOld;
+    }
+
+    m_aMisses.incrementAndGet ();
+    STATS_KEYSTORE.cacheMiss ();
+    if (aOld != null)
+    {
+      m_aReloads.incrementAndGet ();
+      STATS_RELOAD.increment ();
+    }
+
+    // Determine the file state before loading, so that changes during loading
+    // trigger another reload
+    final File aFile = _getFile (sKeyStorePath);
+    final long nLastModified = aFile == null ? 0 : aFile.lastModified ();
+    final long nFileSize = aFile == null ? 0 : aFile.length ();
+
+    final LoadedKeyStore aLKS = KeyStoreHelper.loadKeyStore (aKeyStoreType, sKeyStorePath, sKeyStorePassword);
+    if (aLKS.isFailure ())
+    {
+      m_aRWLock.writeLocked ( () -> m_aMap.remove (aKey));
+      return aLKS;
+    }
+
+    final CacheEntry aNew = new CacheEntry (aLKS, aFile, nLastModified, nFileSize, nNow);
+    m_aRWLock.writeLocked ( () -> m_aMap.put (aKey, aNew));
+    return aNew;
+  }
+
+  /**
+   * Get the key store from the cache or load it via
+   * {@link KeyStoreHelper#loadKeyStore(IKeyStoreType, String, String)}.
+   *
+   * @param aKeyStoreType
+   *        Type of key store. May not be <code>null</code>.
+   * @param sKeyStorePath
+   *        Path to the key store. May not be <code>null</code> to succeed.
+   * @param sKeyStorePassword
+   *        Password for the key store. May not be <code>null</code> to succeed.
+   * @return The key store loading result. Never <code>null</code>.
+   */
+  @Nonnull
+  public LoadedKeyStore getKeyStore (@Nonnull final IKeyStoreType aKeyStoreType,
+                                     @Nullable final String sKeyStorePath,
+                                     @Nullable final String sKeyStorePassword)
+  {
+    final Object aEntry = _getEntry (aKeyStoreType, sKeyStorePath, sKeyStorePassword);
+    return aEntry instanceof CacheEntry ? ((CacheEntry) aEntry).m_aLoadedKeyStore : (LoadedKeyStore) aEntry;
+  }
+
+  @Nonnull
+  @SuppressWarnings ("unchecked")
+  private <T extends KeyStore.Entry> LoadedKey <T> _getKey (@Nonnull final IKeyStoreType aKeyStoreType,
+                                                            @Nullable final String sKeyStorePath,
+                                                            @Nullable final String sKeyStorePassword,
+                                                            @Nullable final String sKeyStoreKeyAlias,
+                                                            @Nullable final char [] aKeyStoreKeyPassword,
+                                                            @Nonnull final Class <T> aTargetClass,
+                                                            @Nonnull final Function <KeyStore, LoadedKey <T>> aLoader)
+  {
+    final Object aEntry = _getEntry (aKeyStoreType, sKeyStorePath, sKeyStorePassword);
+    if (!(aEntry instanceof CacheEntry))
+    {
+      final LoadedKeyStore aLKS = (LoadedKeyStore) aEntry;
+      return new LoadedKey <> (null, aLKS.getError (), aLKS.getErrorParams ());
+    }
+
+    final CacheEntry aCacheEntry = (CacheEntry) aEntry;
+    final String sKey = aTargetClass.getName () +
+                        '\0' +
+                        sKeyStoreKeyAlias +
+                        '\0' +
+                        _getPasswordFingerprint (aKeyStoreKeyPassword);
+    LoadedKey <T> ret = (LoadedKey <T>) aCacheEntry.m_aKeys.get (sKey);
+    if (ret != null)
+    {
+      STATS_KEY.cacheHit ();
+      return ret;
+    }
+
+    STATS_KEY.cacheMiss ();
+    ret = aLoader.apply (aCacheEntry.m_aLoadedKeyStore.getKeyStore ());
+    if (ret.isSuccess ())
+      aCacheEntry.m_aKeys.put (sKey, ret);
+    return ret;
+  }
+
+  /**
+   * Get a private key entry from a cached key store.
+   *
+   * @param aKeyStoreType
+   *        Type of key store. May not be <code>null</code>.
+   * @param sKeyStorePath
+   *        Path to the key store. May not be <code>null</code> to succeed.
+   * @param sKeyStorePassword
+   *        Password for the key store. May not be <code>null</code> to succeed.
+   * @param sKeyStoreKeyAlias
+   *        The alias to be resolved in the key store. Must be non-
+   *        <code>null</code> to succeed.
+   * @param aKeyStoreKeyPassword
+   *        The key password for the key store. Must be non-<code>null</code> to
+   *        succeed.
+   * @return The key loading result. Never <code>null</code>.
+   * @see KeyStoreHelper#loadPrivateKey(KeyStore, String, String, char[])
+   */
+  @Nonnull
+  public LoadedKey <KeyStore.PrivateKeyEntry> getPrivateKey (@Nonnull final IKeyStoreType aKeyStoreType,
+                                                             @Nullable final String sKeyStorePath,
+                                                             @Nullable final String sKeyStorePassword,
+                                                             @Nullable final String sKeyStoreKeyAlias,
+                                                             @Nullable final char [] aKeyStoreKeyPassword)
+  {
+    return _getKey (aKeyStoreType,
+                    sKeyStorePath,
+                    sKeyStorePassword,
+                    sKeyStoreKeyAlias,
+                    aKeyStoreKeyPassword,
+                    KeyStore.PrivateKeyEntry.class,
+                    aKS -> KeyStoreHelper.loadPrivateKey (aKS, sKeyStorePath, sKeyStoreKeyAlias, aKeyStoreKeyPassword));
+  }
+
+  /**
+   * Get a secret key entry from a cached key store.
+   *
+   * @param aKeyStoreType
+   *        Type of key store. May not be <code>null</code>.
+   * @param sKeyStorePath
+   *        Path to the key store. May not be <code>null</code> to succeed.
+   * @param sKeyStorePassword
+   *        Password for the key store. May not be <code>null</code> to succeed.
+   * @param sKeyStoreKeyAlias
+   *        The alias to be resolved in the key store. Must be non-
+   *        <code>null</code> to succeed.
+   * @param aKeyStoreKeyPassword
+   *        The key password for the key store. Must be non-<code>null</code> to
+   *        succeed.
+   * @return The key loading result. Never <code>null</code>.
+   * @see KeyStoreHelper#loadSecretKey(KeyStore, String, String, char[])
+   */
+  @Nonnull
+  public LoadedKey <KeyStore.SecretKeyEntry> getSecretKey (@Nonnull final IKeyStoreType aKeyStoreType,
+                                                           @Nullable final String sKeyStorePath,
+                                                           @Nullable final String sKeyStorePassword,
+                                                           @Nullable final String sKeyStoreKeyAlias,
+                                                           @Nullable final char [] aKeyStoreKeyPassword)
+  {
+    return _getKey (aKeyStoreType,
+                    sKeyStorePath,
+                    sKeyStorePassword,
+                    sKeyStoreKeyAlias,
+                    aKeyStoreKeyPassword,
+                    KeyStore.SecretKeyEntry.class,
+                    aKS -> KeyStoreHelper.loadSecretKey (aKS, sKeyStorePath, sKeyStoreKeyAlias, aKeyStoreKeyPassword));
+  }
+
+  /**
+   * Get a trusted certificate entry from a cached key store.
+   *
+   * @param aKeyStoreType
+   *        Type of key store. May not be <code>null</code>.
+   * @param sKeyStorePath
+   *        Path to the key store. May not be <code>null</code> to succeed.
+   * @param sKeyStorePassword
+   *        Password for the key store. May not be <code>null</code> to succeed.
+   * @param sKeyStoreKeyAlias
+   *        The alias to be resolved in the key store. Must be non-
+   *        <code>null</code> to succeed.
+   * @param aKeyStoreKeyPassword
+   *        The key password for the key store. Must be non-<code>null</code> to
+   *        succeed.
+   * @return The key loading result. Never <code>null</code>.
+   * @see KeyStoreHelper#loadTrustedCertificateKey(KeyStore, String, String,
+   *      char[])
+   */
+  @Nonnull
+  public LoadedKey <KeyStore.TrustedCertificateEntry> getTrustedCertificateKey (@Nonnull final IKeyStoreType aKeyStoreType,
+                                                                                @Nullable final String sKeyStorePath,
+                                                                                @Nullable final String sKeyStorePassword,
+                                                                                @Nullable final String sKeyStoreKeyAlias,
+                                                                                @Nullable final char [] aKeyStoreKeyPassword)
+  {
+    return _getKey (aKeyStoreType,
+                    sKeyStorePath,
+                    sKeyStorePassword,
+                    sKeyStoreKeyAlias,
+                    aKeyStoreKeyPassword,
+                    KeyStore.TrustedCertificateEntry.class,
+                    aKS -> KeyStoreHelper.loadTrustedCertificateKey (aKS,
+                                                                     sKeyStorePath,
+                                                                     sKeyStoreKeyAlias,
+                                                                     aKeyStoreKeyPassword));
+  }
+
+  /**
+   * Remove all cached key stores with the provided path, independent of type
+   * and password.
+   *
+   * @param sKeyStorePath
+   *        The path to remove. May be <code>null</code>.
+   * @return {@link EChange#CHANGED} if at least one entry was removed.
+   */
+  @Nonnull
+  public EChange remove (@Nullable final String sKeyStorePath)
+  {
+    if (sKeyStorePath == null)
+      return EChange.UNCHANGED;
+    return m_aRWLock.writeLockedGet ( () -> m_aMap.removeIfKey (k -> k.m_sPath.equals (sKeyStorePath)));
+  }
+
+  /**
+   * Remove all cached key stores.
+   *
+   * @return {@link EChange#CHANGED} if at least one entry was removed.
+   */
+  @Nonnull
+  public EChange clear ()
+  {
+    return m_aRWLock.writeLockedGet (m_aMap::removeAll);
+  }
+
+  /**
+   * @return The number of cached key stores. Always &ge; 0.
+   */
+  @Nonnegative
+  public int size ()
+  {
+    return m_aRWLock.readLockedInt (m_aMap::size);
+  }
+
+  /**
+   * @return The number of key store requests that were served from the cache.
+   */
+  @Nonnegative
+  public long getHitCount ()
+  {
+    return m_aHits.get ();
+  }
+
+  /**
+   * @return The number of key store requests that needed loading from the
+   *         resource, including reloads.
+   */
+  @Nonnegative
+  public long getMissCount ()
+  {
+    return m_aMisses.get ();
+  }
+
+  /**
+   * @return The number of key stores that were reloaded because the file
+   *         changed.
+   */
+  @Nonnegative
+  public long getReloadCount ()
+  {
+    return m_aReloads.get ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("Size", size ())
+                                       .append ("CheckIntervalMillis", m_nCheckIntervalMillis)
+                                       .append ("Hits", m_aHits.get ())
+                                       .append ("Misses", m_aMisses.get ())
+                                       .append ("Reloads", m_aReloads.get ())
+                                       .getToString ();
+  }
+}
@@ -79,6 +79,7 @@ public enum EMacAlgorithm
    *         security provider.
    * @throws IllegalStateException
    *         If this algorithm is not supported by this Java runtime.
+   * @see MacPool
    */
   @Nonnull
   public Mac createMac (@Nullable final Provider aSecurityProvider)
@@ -0,0 +1,401 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.mac;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.Provider;
+import java.util.function.Function;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillClose;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsConcurrentHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.functional.IThrowingFunction;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.pool.AbstractBoundedPool;
+import com.helger.commons.random.VerySecureRandom;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A non-blocking pool of {@link Mac} instances per algorithm and security
+ * provider. Resolving a {@link Mac} via {@link Mac#getInstance(String)}
+ * requires a provider lookup which is considerably more expensive than
+ * re-initializing an existing instance with a key.
+ * <p>
+ * Borrowed instances are always initialized with the provided key. If the pool
+ * for an algorithm is empty, a new instance is created; if it is full when an
+ * instance is returned, the instance is simply discarded. So borrowing never
+ * blocks. The pooled instances can be used together with
+ * {@link MacInputStream} and {@link MacOutputStream}. Each algorithm and
+ * provider uses an {@link AbstractBoundedPool}.
+ * <p>
+ * Note: {@link Mac#reset()} keeps the key. Therefore returned instances are
+ * re-initialized with a random throwaway key, so that idle instances never
+ * hold the key material of a caller.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public final class MacPool
+{
+  /** The default maximum number of idle instances per algorithm */
+  public static final int DEFAULT_MAX_IDLE = Math.max (4, Runtime.getRuntime ().availableProcessors () * 2);
+
+  private static final MacPool DEFAULT_INSTANCE = new MacPool (DEFAULT_MAX_IDLE);
+
+  /**
+   * The pool for a single algorithm and provider.
+   */
+  private static final class AlgorithmPool extends AbstractBoundedPool <Mac>
+  {
+    private final EMacAlgorithm m_eAlgorithm;
+    private final Provider m_aSecurityProvider;
+    private final SecretKey m_aThrowawayKey;
+
+    AlgorithmPool (@Nonnull final String sKey,
+                   @Nonnull final EMacAlgorithm eAlgorithm,
+                   @Nullable final Provider aSecurityProvider,
+                   @Nonnegative final int nMaxIdle)
+    {
+      super (MacPool.class.getName () + "$" + sKey, nMaxIdle);
+      m_eAlgorithm = eAlgorithm;
+      m_aSecurityProvider = aSecurityProvider;
+      final byte [] aKeyBytes = new byte [32];
+      VerySecureRandom.getInstance ().nextBytes (aKeyBytes);
+      m_aThrowawayKey = eAlgorithm.createSecretKey (aKeyBytes);
+    }
+
+    @Override
+    @Nonnull
+    protected Mac createObject ()
+    {
+      return m_eAlgorithm.createMac (m_aSecurityProvider);
+    }
+
+    @Override
+    protected boolean resetObject (@Nonnull final Mac aMac)
+    {
+      try
+      {
+        // Also resets the Mac
+        aMac.init (m_aThrowawayKey);
+        return true;
+      }
+      catch (final InvalidKeyException ex)
+      {
+        // The caller's key might still be present
+        return false;
+      }
+    }
+
+    @Nonnull
+    Mac borrow ()
+    {
+      return borrowObject ();
+    }
+  }
+
+  private final int m_nMaxIdle;
+  private final ICommonsMap <String, AlgorithmPool> m_aPools = new CommonsConcurrentHashMap <> ();
+
+  /**
+   * Constructor
+   *
+   * @param nMaxIdle
+   *        The maximum number of idle instances kept per algorithm and
+   *        provider. Must be &gt; 0.
+   */
+  public MacPool (@Nonnegative final int nMaxIdle)
+  {
+    ValueEnforcer.isGT0 (nMaxIdle, "MaxIdle");
+    m_nMaxIdle = nMaxIdle;
+  }
+
+  /**
+   * @return The global default instance. Never <code>null</code>.
+   */
+  @Nonnull
+  public static MacPool getDefaultInstance ()
+  {
+    return DEFAULT_INSTANCE;
+  }
+
+  /**
+   * @return The maximum number of idle instances per algorithm and provider.
+   *         Always &gt; 0.
+   */
+  @Nonnegative
+  public int getMaxIdle ()
+  {
+    return m_nMaxIdle;
+  }
+
+  @Nonnull
+  private static String _getKey (@Nonnull final EMacAlgorithm eAlgorithm, @Nullable final Provider aSecurityProvider)
+  {
+    return aSecurityProvider == null ? eAlgorithm.name () : eAlgorithm.name () + ':' + aSecurityProvider.getName ();
+  }
+
+  @Nonnull
+  private AlgorithmPool _getPool (@Nonnull final EMacAlgorithm eAlgorithm, @Nullable final Provider aSecurityProvider)
+  {
+    return m_aPools.computeIfAbsent (_getKey (eAlgorithm, aSecurityProvider),
+                                     k -> new AlgorithmPool (k, eAlgorithm, aSecurityProvider, m_nMaxIdle));
+  }
+
+  /**
+   * Borrow a Mac from the pool and initialize it with the provided key. Call
+   * {@link #returnMac(EMacAlgorithm, Provider, Mac)} with the same algorithm
+   * and provider when done.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aSecurityProvider
+   *        The security provider to use. May be <code>null</code> to use the
+   *        default security provider.
+   * @param aKey
+   *        The key to initialize the Mac with. May not be <code>null</code>.
+   * @return An initialized Mac. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the key is not suitable for the Mac
+   */
+  @Nonnull
+  public Mac borrowMac (@Nonnull final EMacAlgorithm eAlgorithm,
+                        @Nullable final Provider aSecurityProvider,
+                        @Nonnull final Key aKey)
+  {
+    ValueEnforcer.notNull (eAlgorithm, "Algorithm");
+    ValueEnforcer.notNull (aKey, "Key");
+
+    final AlgorithmPool aPool = _getPool (eAlgorithm, aSecurityProvider);
+    Mac aMac = aPool.borrow ();
+    // Providers are keyed by name - make sure it is really the same
+    if (aSecurityProvider != null && aMac.getProvider () != aSecurityProvider)
+    {
+      aPool.returnObject (aMac);
+      aMac = eAlgorithm.createMac (aSecurityProvider);
+    }
+
+    try
+    {
+      aMac.init (aKey);
+    }
+    catch (final InvalidKeyException ex)
+    {
+      // The Mac is not returned to the pool, as its key state is unknown
+      throw new IllegalArgumentException ("Failed to init Mac " + eAlgorithm + " with the provided key", ex);
+    }
+    return aMac;
+  }
+
+  /**
+   * Return a borrowed Mac to the pool.
+   *
+   * @param eAlgorithm
+   *        The algorithm the Mac was borrowed with. May not be
+   *        <code>null</code>.
+   * @param aSecurityProvider
+   *        The security provider the Mac was borrowed with. May be
+   *        <code>null</code>.
+   * @param aMac
+   *        The Mac to return. May not be <code>null</code>. It must not be
+   *        used by the caller afterwards.
+   */
+  public void returnMac (@Nonnull final EMacAlgorithm eAlgorithm,
+                         @Nullable final Provider aSecurityProvider,
+                         @Nonnull final Mac aMac)
+  {
+    ValueEnforcer.notNull (eAlgorithm, "Algorithm");
+    ValueEnforcer.notNull (aMac, "Mac");
+    ValueEnforcer.isTrue (aMac.getAlgorithm ().equals (eAlgorithm.getAlgorithm ()),
+                          () -> "Mac algorithm " + aMac.getAlgorithm () + " does not match " + eAlgorithm);
+
+    // Replace the key or discard if full
+    _getPool (eAlgorithm, aSecurityProvider).returnObject (aMac);
+  }
+
+  /**
+   * Borrow a Mac, invoke the provided function and return the Mac afterwards.
+   * The Mac must not escape the function.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aSecurityProvider
+   *        The security provider to use. May be <code>null</code>.
+   * @param aKey
+   *        The key to initialize the Mac with. May not be <code>null</code>.
+   * @param aFunction
+   *        The function to invoke. May not be <code>null</code>.
+   * @return The result of the function.
+   * @param <T>
+   *        result type
+   */
+  public <T> T withMac (@Nonnull final EMacAlgorithm eAlgorithm,
+                        @Nullable final Provider aSecurityProvider,
+                        @Nonnull final Key aKey,
+                        @Nonnull final Function <? super Mac, ? extends T> aFunction)
+  {
+    ValueEnforcer.notNull (aFunction, "Function");
+
+    final Mac aMac = borrowMac (eAlgorithm, aSecurityProvider, aKey);
+    try
+    {
+      return aFunction.apply (aMac);
+    }
+    finally
+    {
+      returnMac (eAlgorithm, aSecurityProvider, aMac);
+    }
+  }
+
+  /**
+   * Borrow a Mac, invoke the provided function that may throw an exception and
+   * return the Mac afterwards. The Mac must not escape the function.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aSecurityProvider
+   *        The security provider to use. May be <code>null</code>.
+   * @param aKey
+   *        The key to initialize the Mac with. May not be <code>null</code>.
+   * @param aFunction
+   *        The function to invoke. May not be <code>null</code>.
+   * @return The result of the function.
+   * @throws EXTYPE
+   *         If the function throws it
+   * @param <T>
+   *        result type
+   * @param <EXTYPE>
+   *        exception type
+   */
+  public <T, EXTYPE extends Exception> T withMacThrowing (@Nonnull final EMacAlgorithm eAlgorithm,
+                                                          @Nullable final Provider aSecurityProvider,
+                                                          @Nonnull final Key aKey,
+                                                          @Nonnull final IThrowingFunction <? super Mac, ? extends T, EXTYPE> aFunction) throws EXTYPE
+  {
+    ValueEnforcer.notNull (aFunction, "Function");
+
+    final Mac aMac = borrowMac (eAlgorithm, aSecurityProvider, aKey);
+    try
+    {
+      return aFunction.apply (aMac);
+    }
+    finally
+    {
+      returnMac (eAlgorithm, aSecurityProvider, aMac);
+    }
+  }
+
+  /**
+   * Calculate the Mac of the passed bytes with a pooled Mac of the default
+   * security provider.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aKey
+   *        The key to use. May not be <code>null</code>.
+   * @param aBytes
+   *        The bytes to process. May not be <code>null</code>.
+   * @return The Mac bytes. Never <code>null</code>.
+   */
+  @Nonnull
+  public byte [] getMac (@Nonnull final EMacAlgorithm eAlgorithm,
+                         @Nonnull final Key aKey,
+                         @Nonnull final byte [] aBytes)
+  {
+    ValueEnforcer.notNull (aBytes, "Bytes");
+    return withMac (eAlgorithm, null, aKey, aMac -> aMac.doFinal (aBytes));
+  }
+
+  /**
+   * Calculate the Mac of the remaining bytes of the passed buffer with a
+   * pooled Mac of the default security provider. Upon return the position of
+   * the buffer equals its limit.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aKey
+   *        The key to use. May not be <code>null</code>.
+   * @param aBB
+   *        The byte buffer to process. May not be <code>null</code>.
+   * @return The Mac bytes. Never <code>null</code>.
+   */
+  @Nonnull
+  public byte [] getMac (@Nonnull final EMacAlgorithm eAlgorithm,
+                         @Nonnull final Key aKey,
+                         @Nonnull final ByteBuffer aBB)
+  {
+    ValueEnforcer.notNull (aBB, "ByteBuffer");
+    return withMac (eAlgorithm, null, aKey, aMac -> {
+      aMac.update (aBB);
+      return aMac.doFinal ();
+    });
+  }
+
+  /**
+   * Calculate the Mac of the content of the passed input stream with a pooled
+   * Mac of the default security provider.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aKey
+   *        The key to use. May not be <code>null</code>.
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @return The Mac bytes. Never <code>null</code>.
+   * @throws IOException
+   *         In case reading fails
+   */
+  @Nonnull
+  public byte [] getMac (@Nonnull final EMacAlgorithm eAlgorithm,
+                         @Nonnull final Key aKey,
+                         @Nonnull @WillClose final InputStream aIS) throws IOException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    return withMacThrowing (eAlgorithm, null, aKey, aMac -> {
+      StreamHelper.readUntilEOF (aIS, (aBytes, nBytes) -> aMac.update (aBytes, 0, nBytes));
+      return aMac.doFinal ();
+    });
+  }
+
+  /**
+   * Remove all idle instances.
+   */
+  public void clear ()
+  {
+    m_aPools.forEach ( (k, v) -> v.clear ());
+    m_aPools.clear ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("MaxIdle", m_nMaxIdle).append ("Pools", m_aPools.keySet ()).getToString ();
+  }
+}
@@ -79,6 +79,7 @@ public enum EMessageDigestAlgorithm
    *         provided or the default security provider.
    * @throws IllegalStateException
    *         If this algorithm is not supported by this Java runtime.
+   * @see MessageDigestPool
    */
   @Nonnull
   public MessageDigest createMessageDigest (@Nullable final Provider aSecurityProvider)
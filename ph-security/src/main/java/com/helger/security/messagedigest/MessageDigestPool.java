@@ -0,0 +1,356 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.messagedigest;
+
+import java.security.MessageDigest;
+import java.security.Provider;
+import java.util.function.Function;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsConcurrentHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.functional.IThrowingFunction;
+import com.helger.commons.pool.AbstractBoundedPool;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A non-blocking pool of {@link MessageDigest} instances per algorithm and
+ * security provider. Resolving a {@link MessageDigest} via
+ * {@link MessageDigest#getInstance(String)} requires a provider lookup which
+ * is considerably more expensive than resetting an existing instance.
+ * <p>
+ * Borrowed instances are always in the reset state. If the pool for an
+ * algorithm is empty, a new instance is created; if it is full when an
+ * instance is returned, the instance is simply discarded. So borrowing never
+ * blocks. Each algorithm and provider uses an {@link AbstractBoundedPool}.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public final class MessageDigestPool
+{
+  /** The default maximum number of idle instances per algorithm */
+  public static final int DEFAULT_MAX_IDLE = Math.max (4, Runtime.getRuntime ().availableProcessors () * 2);
+
+  private static final MessageDigestPool DEFAULT_INSTANCE = new MessageDigestPool (DEFAULT_MAX_IDLE);
+
+  /**
+   * The pool for a single algorithm and provider.
+   */
+  private static final class DigestPool extends AbstractBoundedPool <MessageDigest>
+  {
+    private final EMessageDigestAlgorithm m_eAlgorithm;
+    private final Provider m_aSecurityProvider;
+
+    DigestPool (@Nonnull final String sKey,
+                @Nonnull final EMessageDigestAlgorithm eAlgorithm,
+                @Nullable final Provider aSecurityProvider,
+                @Nonnegative final int nMaxIdle)
+    {
+      super (MessageDigestPool.class.getName () + "$" + sKey, nMaxIdle);
+      m_eAlgorithm = eAlgorithm;
+      m_aSecurityProvider = aSecurityProvider;
+    }
+
+    @Override
+    @Nonnull
+    protected MessageDigest createObject ()
+    {
+      return m_eAlgorithm.createMessageDigest (m_aSecurityProvider);
+    }
+
+    @Override
+    protected boolean resetObject (@Nonnull final MessageDigest aMD)
+    {
+      aMD.reset ();
+      return true;
+    }
+
+    @Nonnull
+    MessageDigest borrow ()
+    {
+      return borrowObject ();
+    }
+  }
+
+  private final int m_nMaxIdle;
+  private final ICommonsMap <String, DigestPool> m_aPools = new CommonsConcurrentHashMap <> ();
+
+  /**
+   * Constructor
+   *
+   * @param nMaxIdle
+   *        The maximum number of idle instances kept per algorithm and
+   *        provider. Must be &gt; 0.
+   */
+  public MessageDigestPool (@Nonnegative final int nMaxIdle)
+  {
+    ValueEnforcer.isGT0 (nMaxIdle, "MaxIdle");
+    m_nMaxIdle = nMaxIdle;
+  }
+
+  /**
+   * @return The global default instance. Never <code>null</code>.
+   */
+  @Nonnull
+  public static MessageDigestPool getDefaultInstance ()
+  {
+    return DEFAULT_INSTANCE;
+  }
+
+  /**
+   * @return The maximum number of idle instances per algorithm and provider.
+   *         Always &gt; 0.
+   */
+  @Nonnegative
+  public int getMaxIdle ()
+  {
+    return m_nMaxIdle;
+  }
+
+  @Nonnull
+  private static String _getKey (@Nonnull final EMessageDigestAlgorithm eAlgorithm,
+                                 @Nullable final Provider aSecurityProvider)
+  {
+    return aSecurityProvider == null ? eAlgorithm.name () : eAlgorithm.name () + ':' + aSecurityProvider.getName ();
+  }
+
+  @Nonnull
+  private DigestPool _getPool (@Nonnull final EMessageDigestAlgorithm eAlgorithm,
+                               @Nullable final Provider aSecurityProvider)
+  {
+    return m_aPools.computeIfAbsent (_getKey (eAlgorithm, aSecurityProvider),
+                                     k -> new DigestPool (k, eAlgorithm, aSecurityProvider, m_nMaxIdle));
+  }
+
+  /**
+   * Borrow a message digest from the pool using the default security provider.
+   * Call {@link #returnMessageDigest(EMessageDigestAlgorithm, MessageDigest)}
+   * when done.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @return A message digest in the reset state. Never <code>null</code>.
+   */
+  @Nonnull
+  public MessageDigest borrowMessageDigest (@Nonnull final EMessageDigestAlgorithm eAlgorithm)
+  {
+    return borrowMessageDigest (eAlgorithm, null);
+  }
+
+  /**
+   * Borrow a message digest from the pool. Call
+   * {@link #returnMessageDigest(EMessageDigestAlgorithm, Provider, MessageDigest)}
+   * with the same algorithm and provider when done.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aSecurityProvider
+   *        The security provider to use. May be <code>null</code> to use the
+   *        default security provider.
+   * @return A message digest in the reset state. Never <code>null</code>.
+   */
+  @Nonnull
+  public MessageDigest borrowMessageDigest (@Nonnull final EMessageDigestAlgorithm eAlgorithm,
+                                            @Nullable final Provider aSecurityProvider)
+  {
+    ValueEnforcer.notNull (eAlgorithm, "Algorithm");
+
+    final DigestPool aPool = _getPool (eAlgorithm, aSecurityProvider);
+    final MessageDigest aMD = aPool.borrow ();
+    // Providers are keyed by name - make sure it is really the same
+    if (aSecurityProvider == null || aMD.getProvider () == aSecurityProvider)
+      return aMD;
+    aPool.returnObject (aMD);
+    return eAlgorithm.createMessageDigest (aSecurityProvider);
+  }
+
+  /**
+   * Return a message digest that was borrowed with the default security
+   * provider.
+   *
+   * @param eAlgorithm
+   *        The algorithm the message digest was borrowed with. May not be
+   *        <code>null</code>.
+   * @param aMD
+   *        The message digest to return. May not be <code>null</code>. It must
+   *        not be used by the caller afterwards.
+   */
+  public void returnMessageDigest (@Nonnull final EMessageDigestAlgorithm eAlgorithm, @Nonnull final MessageDigest aMD)
+  {
+    returnMessageDigest (eAlgorithm, null, aMD);
+  }
+
+  /**
+   * Return a borrowed message digest to the pool.
+   *
+   * @param eAlgorithm
+   *        The algorithm the message digest was borrowed with. May not be
+   *        <code>null</code>.
+   * @param aSecurityProvider
+   *        The security provider the message digest was borrowed with. May be
+   *        <code>null</code>.
+   * @param aMD
+   *        The message digest to return. May not be <code>null</code>. It must
+   *        not be used by the caller afterwards.
+   */
+  public void returnMessageDigest (@Nonnull final EMessageDigestAlgorithm eAlgorithm,
+                                   @Nullable final Provider aSecurityProvider,
+                                   @Nonnull final MessageDigest aMD)
+  {
+    ValueEnforcer.notNull (eAlgorithm, "Algorithm");
+    ValueEnforcer.notNull (aMD, "MessageDigest");
+    ValueEnforcer.isTrue (aMD.getAlgorithm ().equals (eAlgorithm.getAlgorithm ()),
+                          () -> "MessageDigest algorithm " + aMD.getAlgorithm () + " does not match " + eAlgorithm);
+
+    // Reset or discard if full
+    _getPool (eAlgorithm, aSecurityProvider).returnObject (aMD);
+  }
+
+  /**
+   * Borrow a message digest, invoke the provided function and return the
+   * message digest afterwards. The message digest must not escape the
+   * function.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aSecurityProvider
+   *        The security provider to use. May be <code>null</code>.
+   * @param aFunction
+   *        The function to invoke. May not be <code>null</code>.
+   * @return The result of the function.
+   * @param <T>
+   *        result type
+   */
+  public <T> T withMessageDigest (@Nonnull final EMessageDigestAlgorithm eAlgorithm,
+                                  @Nullable final Provider aSecurityProvider,
+                                  @Nonnull final Function <? super MessageDigest, ? extends T> aFunction)
+  {
+    ValueEnforcer.notNull (aFunction, "Function");
+
+    final MessageDigest aMD = borrowMessageDigest (eAlgorithm, aSecurityProvider);
+    try
+    {
+      return aFunction.apply (aMD);
+    }
+    finally
+    {
+      returnMessageDigest (eAlgorithm, aSecurityProvider, aMD);
+    }
+  }
+
+  /**
+   * Borrow a message digest, invoke the provided function that may throw an
+   * exception and return the message digest afterwards. The message digest
+   * must not escape the function.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aSecurityProvider
+   *        The security provider to use. May be <code>null</code>.
+   * @param aFunction
+   *        The function to invoke. May not be <code>null</code>.
+   * @return The result of the function.
+   * @throws EXTYPE
+   *         If the function throws it
+   * @param <T>
+   *        result type
+   * @param <EXTYPE>
+   *        exception type
+   */
+  public <T, EXTYPE extends Exception> T withMessageDigestThrowing (@Nonnull final EMessageDigestAlgorithm eAlgorithm,
+                                                                    @Nullable final Provider aSecurityProvider,
+                                                                    @Nonnull final IThrowingFunction <? super MessageDigest, ? extends T, EXTYPE> aFunction) throws EXTYPE
+  {
+    ValueEnforcer.notNull (aFunction, "Function");
+
+    final MessageDigest aMD = borrowMessageDigest (eAlgorithm, aSecurityProvider);
+    try
+    {
+      return aFunction.apply (aMD);
+    }
+    finally
+    {
+      returnMessageDigest (eAlgorithm, aSecurityProvider, aMD);
+    }
+  }
+
+  /**
+   * Calculate the digest of the passed byte array with a pooled message
+   * digest of the default security provider.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aBytes
+   *        The bytes to digest. May not be <code>null</code>.
+   * @return The digest bytes. Never <code>null</code>.
+   */
+  @Nonnull
+  public byte [] getDigest (@Nonnull final EMessageDigestAlgorithm eAlgorithm, @Nonnull final byte [] aBytes)
+  {
+    ValueEnforcer.notNull (aBytes, "Bytes");
+    return getDigest (eAlgorithm, aBytes, 0, aBytes.length);
+  }
+
+  /**
+   * Calculate the digest of a part of the passed byte array with a pooled
+   * message digest of the default security provider.
+   *
+   * @param eAlgorithm
+   *        The algorithm to use. May not be <code>null</code>.
+   * @param aBytes
+   *        The bytes to digest. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into the array. Must be &ge; 0.
+   * @param nLen
+   *        Number of bytes to digest. Must be &ge; 0.
+   * @return The digest bytes. Never <code>null</code>.
+   */
+  @Nonnull
+  public byte [] getDigest (@Nonnull final EMessageDigestAlgorithm eAlgorithm,
+                            @Nonnull final byte [] aBytes,
+                            @Nonnegative final int nOfs,
+                            @Nonnegative final int nLen)
+  {
+    ValueEnforcer.isArrayOfsLen (aBytes, nOfs, nLen);
+    return withMessageDigest (eAlgorithm, null, aMD -> {
+      aMD.update (aBytes, nOfs, nLen);
+      return aMD.digest ();
+    });
+  }
+
+  /**
+   * Remove all idle instances.
+   */
+  public void clear ()
+  {
+    m_aPools.forEach ( (k, v) -> v.clear ());
+    m_aPools.clear ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("MaxIdle", m_nMaxIdle).append ("Pools", m_aPools.keySet ()).getToString ();
+  }
+}
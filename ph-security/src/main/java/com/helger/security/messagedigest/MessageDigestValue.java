@@ -19,7 +19,6 @@ package com.helger.security.messagedigest;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
-import java.security.MessageDigest;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
@@ -153,10 +152,8 @@ public class MessageDigestValue implements IHasByteArray, Serializable
   public static MessageDigestValue create (@Nonnull final byte [] aBytes,
                                            @Nonnull final EMessageDigestAlgorithm eAlgorithm)
   {
-    final MessageDigest aMD = eAlgorithm.createMessageDigest ();
-    aMD.update (aBytes);
-    // aMD goes out of scope anyway, so no need to copy byte[]
-    return new MessageDigestValue (eAlgorithm, aMD.digest (), false);
+    // The digest bytes are a new array anyway, so no need to copy byte[]
+    return new MessageDigestValue (eAlgorithm, MessageDigestPool.getDefaultInstance ().getDigest (eAlgorithm, aBytes), false);
   }
 
   /**
@@ -175,9 +172,11 @@ public class MessageDigestValue implements IHasByteArray, Serializable
   public static MessageDigestValue create (@Nonnull @WillClose final InputStream aIS,
                                            @Nonnull final EMessageDigestAlgorithm eAlgorithm) throws IOException
   {
-    final MessageDigest aMD = eAlgorithm.createMessageDigest ();
-    StreamHelper.readUntilEOF (aIS, (aBytes, nBytes) -> aMD.update (aBytes, 0, nBytes));
-    // aMD goes out of scope anyway, so no need to copy byte[]
-    return new MessageDigestValue (eAlgorithm, aMD.digest (), false);
+    final byte [] aDigest = MessageDigestPool.getDefaultInstance ().withMessageDigestThrowing (eAlgorithm, null, aMD -> {
+      StreamHelper.readUntilEOF (aIS, (aBytes, nBytes) -> aMD.update (aBytes, 0, nBytes));
+      return aMD.digest ();
+    });
+    // The digest bytes are a new array anyway, so no need to copy byte[]
+    return new MessageDigestValue (eAlgorithm, aDigest, false);
   }
 }
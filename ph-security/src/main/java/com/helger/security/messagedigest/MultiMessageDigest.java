@@ -0,0 +1,464 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.messagedigest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.Provider;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillClose;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.annotation.Nonempty;
+import com.helger.commons.annotation.ReturnsMutableCopy;
+import com.helger.commons.collection.ArrayHelper;
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.CommonsLinkedHashMap;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.io.stream.StreamHelper;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * Calculate multiple message digests (e.g. SHA-256, SHA-512 and MD5) in a
+ * single pass over the input. The underlying {@link MessageDigest} instances
+ * are borrowed from the {@link MessageDigestPool} and returned upon
+ * {@link #close()}.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@NotThreadSafe
+public class MultiMessageDigest implements AutoCloseable
+{
+  /** The number of buffers used for pipelined hashing */
+  public static final int PIPELINE_BUFFER_COUNT = 4;
+  /** The size of each buffer used for pipelined hashing */
+  public static final int PIPELINE_BUFFER_SIZE = 64 * 1024;
+
+  private final MessageDigestPool m_aPool;
+  private final Provider m_aSecurityProvider;
+  private final EMessageDigestAlgorithm [] m_aAlgorithms;
+  private final MessageDigest [] m_aMDs;
+  private boolean m_bClosed = false;
+
+  /**
+   * Constructor using the default security provider.
+   *
+   * @param aAlgorithms
+   *        The algorithms to use. May neither be <code>null</code> nor empty
+   *        and may not contain duplicates.
+   */
+  public MultiMessageDigest (@Nonnull @Nonempty final EMessageDigestAlgorithm... aAlgorithms)
+  {
+    this (null, aAlgorithms);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aSecurityProvider
+   *        The security provider to use. May be <code>null</code> to use the
+   *        default security provider.
+   * @param aAlgorithms
+   *        The algorithms to use. May neither be <code>null</code> nor empty
+   *        and may not contain duplicates.
+   */
+  public MultiMessageDigest (@Nullable final Provider aSecurityProvider,
+                             @Nonnull @Nonempty final EMessageDigestAlgorithm... aAlgorithms)
+  {
+    ValueEnforcer.notEmptyNoNullValue (aAlgorithms, "Algorithms");
+    for (int i = 0; i < aAlgorithms.length; ++i)
+      for (int j = i + 1; j < aAlgorithms.length; ++j)
+        if (aAlgorithms[i] == aAlgorithms[j])
+          throw new IllegalArgumentException ("The algorithm " + aAlgorithms[i] + " is contained more than once");
+
+    m_aPool = MessageDigestPool.getDefaultInstance ();
+    m_aSecurityProvider = aSecurityProvider;
+    m_aAlgorithms = aAlgorithms.clone ();
+    m_aMDs = new MessageDigest [aAlgorithms.length];
+    for (int i = 0; i < aAlgorithms.length; ++i)
+      m_aMDs[i] = m_aPool.borrowMessageDigest (aAlgorithms[i], aSecurityProvider);
+  }
+
+  private void _checkOpen ()
+  {
+    if (m_bClosed)
+      throw new IllegalStateException ("This object was already closed");
+  }
+
+  /**
+   * @return A list of all algorithms in the order they were provided in the
+   *         constructor. Never <code>null</code> nor empty.
+   */
+  @Nonnull
+  @Nonempty
+  @ReturnsMutableCopy
+  public ICommonsList <EMessageDigestAlgorithm> getAllAlgorithms ()
+  {
+    return new CommonsArrayList <> (m_aAlgorithms);
+  }
+
+  /**
+   * Update all digests with a single byte.
+   *
+   * @param nByte
+   *        The byte to add.
+   */
+  public void update (final byte nByte)
+  {
+    _checkOpen ();
+    for (final MessageDigest aMD : m_aMDs)
+      aMD.update (nByte);
+  }
+
+  /**
+   * Update all digests with the passed bytes.
+   *
+   * @param aBytes
+   *        The bytes to add. May not be <code>null</code>.
+   */
+  public void update (@Nonnull final byte [] aBytes)
+  {
+    update (aBytes, 0, aBytes.length);
+  }
+
+  /**
+   * Update all digests with a part of the passed bytes.
+   *
+   * @param aBytes
+   *        The bytes to add. May not be <code>null</code>.
+   * @param nOfs
+   *        Offset into the array. Must be &ge; 0.
+   * @param nLen
+   *        The number of bytes to add. Must be &ge; 0.
+   */
+  public void update (@Nonnull final byte [] aBytes, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+  {
+    ValueEnforcer.isArrayOfsLen (aBytes, nOfs, nLen);
+    _checkOpen ();
+    for (final MessageDigest aMD : m_aMDs)
+      aMD.update (aBytes, nOfs, nLen);
+  }
+
+  /**
+   * Update all digests with the remaining bytes of the passed buffer. Upon
+   * return the position of the buffer equals its limit.
+   *
+   * @param aBB
+   *        The byte buffer to add. May not be <code>null</code>.
+   */
+  public void update (@Nonnull final ByteBuffer aBB)
+  {
+    ValueEnforcer.notNull (aBB, "ByteBuffer");
+    _checkOpen ();
+    final int nPos = aBB.position ();
+    for (final MessageDigest aMD : m_aMDs)
+    {
+      aBB.position (nPos);
+      aMD.update (aBB);
+    }
+  }
+
+  /**
+   * Reset all digests.
+   */
+  public void reset ()
+  {
+    _checkOpen ();
+    for (final MessageDigest aMD : m_aMDs)
+      aMD.reset ();
+  }
+
+  /**
+   * Complete the calculation of all digests. Afterwards all digests are reset
+   * and this object can be reused.
+   *
+   * @return A map from algorithm to digest value in the order of the
+   *         algorithms. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public ICommonsOrderedMap <EMessageDigestAlgorithm, MessageDigestValue> digest ()
+  {
+    _checkOpen ();
+    final ICommonsOrderedMap <EMessageDigestAlgorithm, MessageDigestValue> ret = new CommonsLinkedHashMap <> (m_aMDs.length);
+    for (int i = 0; i < m_aMDs.length; ++i)
+    {
+      // The digest bytes are a new array anyway
+      ret.put (m_aAlgorithms[i], new MessageDigestValue (m_aAlgorithms[i], m_aMDs[i].digest (), false));
+    }
+    return ret;
+  }
+
+  /**
+   * @return <code>true</code> if this object was closed, <code>false</code> if
+   *         not.
+   */
+  public boolean isClosed ()
+  {
+    return m_bClosed;
+  }
+
+  /**
+   * Return all message digests to the pool. Afterwards this object can no
+   * longer be used.
+   */
+  public void close ()
+  {
+    if (!m_bClosed)
+    {
+      m_bClosed = true;
+      for (int i = 0; i < m_aMDs.length; ++i)
+      {
+        m_aPool.returnMessageDigest (m_aAlgorithms[i], m_aSecurityProvider, m_aMDs[i]);
+        m_aMDs[i] = null;
+      }
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("SecurityProvider", m_aSecurityProvider)
+                                       .append ("Algorithms", m_aAlgorithms)
+                                       .append ("Closed", m_bClosed)
+                                       .getToString ();
+  }
+
+  /**
+   * Create multiple message digests of the passed byte array in one pass.
+   *
+   * @param aBytes
+   *        The bytes to digest. May not be <code>null</code>.
+   * @param aAlgorithms
+   *        The algorithms to use. May neither be <code>null</code> nor empty.
+   * @return A map from algorithm to digest value in the order of the
+   *         algorithms. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static ICommonsOrderedMap <EMessageDigestAlgorithm, MessageDigestValue> create (@Nonnull final byte [] aBytes,
+                                                                                         @Nonnull @Nonempty final EMessageDigestAlgorithm... aAlgorithms)
+  {
+    try (final MultiMessageDigest aMMD = new MultiMessageDigest (aAlgorithms))
+    {
+      aMMD.update (aBytes);
+      return aMMD.digest ();
+    }
+  }
+
+  /**
+   * Create multiple message digests of the remaining content of the passed
+   * byte buffer in one pass.
+   *
+   * @param aBB
+   *        The byte buffer to digest. May not be <code>null</code>.
+   * @param aAlgorithms
+   *        The algorithms to use. May neither be <code>null</code> nor empty.
+   * @return A map from algorithm to digest value in the order of the
+   *         algorithms. Never <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static ICommonsOrderedMap <EMessageDigestAlgorithm, MessageDigestValue> create (@Nonnull final ByteBuffer aBB,
+                                                                                         @Nonnull @Nonempty final EMessageDigestAlgorithm... aAlgorithms)
+  {
+    try (final MultiMessageDigest aMMD = new MultiMessageDigest (aAlgorithms))
+    {
+      aMMD.update (aBB);
+      return aMMD.digest ();
+    }
+  }
+
+  /**
+   * Create multiple message digests of the passed input stream in one pass.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @param aAlgorithms
+   *        The algorithms to use. May neither be <code>null</code> nor empty.
+   * @return A map from algorithm to digest value in the order of the
+   *         algorithms. Never <code>null</code>.
+   * @throws IOException
+   *         In case reading fails
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static ICommonsOrderedMap <EMessageDigestAlgorithm, MessageDigestValue> create (@Nonnull @WillClose final InputStream aIS,
+                                                                                         @Nonnull @Nonempty final EMessageDigestAlgorithm... aAlgorithms) throws IOException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+
+    try (final MultiMessageDigest aMMD = new MultiMessageDigest (aAlgorithms))
+    {
+      StreamHelper.readUntilEOF (aIS, (aBytes, nBytes) -> aMMD.update (aBytes, 0, nBytes));
+      return aMMD.digest ();
+    }
+  }
+
+  private static final class Chunk
+  {
+    private static final Chunk EOF = new Chunk (ArrayHelper.EMPTY_BYTE_ARRAY, -1);
+
+    private final byte [] m_aBuf;
+    private final int m_nLen;
+
+    Chunk (@Nonnull final byte [] aBuf, final int nLen)
+    {
+      m_aBuf = aBuf;
+      m_nLen = nLen;
+    }
+  }
+
+  @Nonnull
+  private static byte [] _takeFreeBuffer (@Nonnull final BlockingQueue <byte []> aFreeBuffers,
+                                          @Nonnull final Future <?> aHasher) throws InterruptedException,
+                                                                             ExecutionException
+  {
+    while (true)
+    {
+      final byte [] ret = aFreeBuffers.poll (100, TimeUnit.MILLISECONDS);
+      if (ret != null)
+        return ret;
+      if (aHasher.isDone ())
+      {
+        // Throws the hashing exception
+        aHasher.get ();
+        throw new IllegalStateException ("Hashing terminated unexpectedly");
+      }
+    }
+  }
+
+  /**
+   * Create multiple message digests of the passed input stream in one pass,
+   * where reading happens in the calling thread and hashing is performed in
+   * parallel in a task of the provided executor. This is beneficial if both
+   * reading and hashing are expensive, e.g. for large files on slow storage.
+   * {@value #PIPELINE_BUFFER_COUNT} buffers of {@value #PIPELINE_BUFFER_SIZE}
+   * bytes are used.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @param aExecutor
+   *        The executor to run the hashing task. May not be <code>null</code>.
+   * @param aAlgorithms
+   *        The algorithms to use. May neither be <code>null</code> nor empty.
+   * @return A map from algorithm to digest value in the order of the
+   *         algorithms. Never <code>null</code>.
+   * @throws IOException
+   *         In case reading or hashing fails or the calling thread was
+   *         interrupted
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public static ICommonsOrderedMap <EMessageDigestAlgorithm, MessageDigestValue> createPipelined (@Nonnull @WillClose final InputStream aIS,
+                                                                                                  @Nonnull final Executor aExecutor,
+                                                                                                  @Nonnull @Nonempty final EMessageDigestAlgorithm... aAlgorithms) throws IOException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aExecutor, "Executor");
+
+    try (final InputStream aRealIS = aIS; final MultiMessageDigest aMMD = new MultiMessageDigest (aAlgorithms))
+    {
+      // One more slot for the EOF marker so that put never blocks
+      final BlockingQueue <Chunk> aFullChunks = new ArrayBlockingQueue <> (PIPELINE_BUFFER_COUNT + 1);
+      final BlockingQueue <byte []> aFreeBuffers = new ArrayBlockingQueue <> (PIPELINE_BUFFER_COUNT);
+      for (int i = 0; i < PIPELINE_BUFFER_COUNT; ++i)
+        aFreeBuffers.add (new byte [PIPELINE_BUFFER_SIZE]);
+
+      final CompletableFuture <Void> aHasher = CompletableFuture.runAsync ( () -> {
+        try
+        {
+          while (true)
+          {
+            final Chunk aChunk = aFullChunks.take ();
+            if (aChunk == Chunk.EOF)
+              break;
+            aMMD.update (aChunk.m_aBuf, 0, aChunk.m_nLen);
+            aFreeBuffers.add (aChunk.m_aBuf);
+          }
+        }
+        catch (final InterruptedException ex)
+        {
+          Thread.currentThread ().interrupt ();
+          throw new IllegalStateException ("Hashing was interrupted", ex);
+        }
+      }, aExecutor);
+
+      boolean bEOFSent = false;
+      try
+      {
+        while (true)
+        {
+          final byte [] aBuf = _takeFreeBuffer (aFreeBuffers, aHasher);
+          final int nRead = aRealIS.read (aBuf, 0, aBuf.length);
+          if (nRead < 0)
+            break;
+          if (nRead > 0)
+            aFullChunks.add (new Chunk (aBuf, nRead));
+          else
+            aFreeBuffers.add (aBuf);
+        }
+        aFullChunks.add (Chunk.EOF);
+        bEOFSent = true;
+
+        aHasher.get ();
+        return aMMD.digest ();
+      }
+      catch (final InterruptedException ex)
+      {
+        Thread.currentThread ().interrupt ();
+        throw new InterruptedIOException ("Interrupted while hashing");
+      }
+      catch (final ExecutionException ex)
+      {
+        throw new IOException ("Failed to hash", ex.getCause ());
+      }
+      finally
+      {
+        if (!bEOFSent)
+          aFullChunks.offer (Chunk.EOF);
+        // Wait for the hasher before the digests are returned to the pool
+        try
+        {
+          aHasher.join ();
+        }
+        catch (final CompletionException | CancellationException ex)
+        {
+          // Ignore - the original exception is propagated
+        }
+      }
+    }
+  }
+}
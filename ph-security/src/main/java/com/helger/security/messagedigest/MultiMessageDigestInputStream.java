@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.messagedigest;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.io.stream.WrappedInputStream;
+import com.helger.commons.string.ToStringGenerator;
+
+/**
+ * A transparent stream that updates the associated {@link MultiMessageDigest}
+ * using the bytes read from the stream, so that multiple digests are computed
+ * in a single pass. Call {@link MultiMessageDigest#digest()} on
+ * {@link #getMultiMessageDigest()} after reading. Bytes that are skipped are
+ * not digested.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+public class MultiMessageDigestInputStream extends WrappedInputStream
+{
+  private final MultiMessageDigest m_aMMD;
+
+  /**
+   * Constructor
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @param aMMD
+   *        The multi message digest to update. May not be <code>null</code>.
+   *        It is not closed, when this stream is closed.
+   */
+  public MultiMessageDigestInputStream (@Nonnull final InputStream aIS, @Nonnull final MultiMessageDigest aMMD)
+  {
+    super (aIS);
+    ValueEnforcer.notNull (aMMD, "MultiMessageDigest");
+    m_aMMD = aMMD;
+  }
+
+  /**
+   * @return The multi message digest associated with this stream. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public final MultiMessageDigest getMultiMessageDigest ()
+  {
+    return m_aMMD;
+  }
+
+  @Override
+  public int read () throws IOException
+  {
+    final int ch = in.read ();
+    if (ch != -1)
+      m_aMMD.update ((byte) ch);
+    return ch;
+  }
+
+  @Override
+  public int read (@Nonnull final byte [] aBuf,
+                   @Nonnegative final int nOfs,
+                   @Nonnegative final int nLen) throws IOException
+  {
+    final int ret = in.read (aBuf, nOfs, nLen);
+    if (ret > 0)
+      m_aMMD.update (aBuf, nOfs, ret);
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return ToStringGenerator.getDerived (super.toString ()).append ("MultiMessageDigest", m_aMMD).getToString ();
+  }
+}
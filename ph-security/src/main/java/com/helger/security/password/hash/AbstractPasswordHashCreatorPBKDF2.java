@@ -87,6 +87,27 @@ public abstract class AbstractPasswordHashCreatorPBKDF2 extends AbstractPassword
     }
   }
 
+  /**
+   * {@inheritDoc} Additionally the iterations and hash bytes of a PBKDF2
+   * password hash are compared to the ones of this creator. A rehash is only
+   * needed if the existing password hash uses no higher value for both, so
+   * that a stronger existing password hash is never replaced by a weaker one.
+   */
+  @Override
+  public boolean isRehashNeeded (@Nonnull final PasswordHash aPasswordHash)
+  {
+    if (getAlgorithmName ().equals (aPasswordHash.getAlgorithmName ()))
+      return false;
+
+    final PasswordHashCreatorPBKDF2 aExisting = PasswordHashCreatorPBKDF2.createFromAlgorithmNameOrNull (aPasswordHash.getAlgorithmName ());
+    if (aExisting == null)
+    {
+      // A different algorithm
+      return true;
+    }
+    return aExisting.getIterations () <= m_nIterations && aExisting.getHashBytes () <= m_nHashBytes;
+  }
+
   @Nonnull
   public String createPasswordHash (@Nonnull final IPasswordSalt aSalt, @Nonnull final String sPlainTextPassword)
   {
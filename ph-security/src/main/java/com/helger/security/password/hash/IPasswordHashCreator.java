@@ -17,11 +17,15 @@
 package com.helger.security.password.hash;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.helger.commons.annotation.Nonempty;
 import com.helger.security.password.salt.IPasswordSalt;
+import com.helger.security.password.salt.PasswordSalt;
 
 /**
  * Interface for a password hash creator.
@@ -57,4 +61,53 @@ public interface IPasswordHashCreator extends Serializable
    */
   @Nonnull
   String createPasswordHash (IPasswordSalt aSalt, @Nonnull String sPlainTextPassword);
+
+  /**
+   * Create a new salt suitable for this creator.
+   *
+   * @return A new salt or <code>null</code> if this creator does not require a
+   *         salt.
+   * @since 9.4.3
+   */
+  @Nullable
+  default IPasswordSalt createSalt ()
+  {
+    return requiresSalt () ? new PasswordSalt () : null;
+  }
+
+  /**
+   * Check if the provided plain text password matches the provided password
+   * hash. The hash values are compared in constant time.
+   *
+   * @param aPasswordHash
+   *        The existing password hash that was created with this creator. May
+   *        not be <code>null</code>.
+   * @param sPlainTextPassword
+   *        Plain text password. May not be <code>null</code>.
+   * @return <code>true</code> if the password matches, <code>false</code> if
+   *         not.
+   * @since 9.4.3
+   */
+  default boolean isPasswordHashMatching (@Nonnull final PasswordHash aPasswordHash,
+                                          @Nonnull final String sPlainTextPassword)
+  {
+    final String sNewHash = createPasswordHash (aPasswordHash.getSalt (), sPlainTextPassword);
+    return MessageDigest.isEqual (sNewHash.getBytes (StandardCharsets.UTF_8),
+                                  aPasswordHash.getPasswordHashValue ().getBytes (StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Check if the provided password hash is weaker than what this creator would
+   * produce, e.g. because a different algorithm or a lower cost factor was
+   * used. If so, it should be re-created upon the next successful login.
+   *
+   * @param aPasswordHash
+   *        The existing password hash. May not be <code>null</code>.
+   * @return <code>true</code> if the password hash should be re-created.
+   * @since 9.4.3
+   */
+  default boolean isRehashNeeded (@Nonnull final PasswordHash aPasswordHash)
+  {
+    return !getAlgorithmName ().equals (aPasswordHash.getAlgorithmName ());
+  }
 }
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.password.hash;
+
+import java.time.Duration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.security.bcrypt.BCrypt;
+import com.helger.security.password.salt.PasswordSalt;
+
+/**
+ * Determine the cost factors of the password hash algorithms so that creating
+ * a single hash takes approximately a target duration on the current hardware.
+ * The result should be determined once at startup and be used to create the
+ * preferred {@link IPasswordHashCreator} of a {@link PasswordHashService}.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@Immutable
+public final class PasswordHashCalibrator
+{
+  /** The default target duration of a single password hash */
+  public static final Duration DEFAULT_TARGET_DURATION = Duration.ofMillis (250);
+  /** The minimum PBKDF2 iterations returned */
+  public static final int MIN_PBKDF2_ITERATIONS = 1000;
+
+  private static final int MEASUREMENTS = 3;
+  private static final int PBKDF2_PROBE_ITERATIONS = 10_000;
+  private static final String PASSWORD = "Calibration-Password";
+
+  private PasswordHashCalibrator ()
+  {}
+
+  private static long _getMinNanos (@Nonnull final Runnable aRunnable)
+  {
+    long ret = Long.MAX_VALUE;
+    for (int i = 0; i < MEASUREMENTS; ++i)
+    {
+      final long nStart = System.nanoTime ();
+      aRunnable.run ();
+      ret = Math.min (ret, System.nanoTime () - nStart);
+    }
+    return ret;
+  }
+
+  /**
+   * Get the highest BCrypt log2 rounds for which hashing a password takes at
+   * most the target duration.
+   *
+   * @param aTargetDuration
+   *        The target duration per hash. May not be <code>null</code>.
+   * @return A value between {@link PasswordHashCreatorBCrypt#MIN_LOG_ROUNDS}
+   *         and {@link PasswordHashCreatorBCrypt#MAX_LOG_ROUNDS}.
+   */
+  @Nonnegative
+  public static int getCalibratedBCryptLogRounds (@Nonnull final Duration aTargetDuration)
+  {
+    ValueEnforcer.notNull (aTargetDuration, "TargetDuration");
+    final long nTargetNanos = aTargetDuration.toNanos ();
+
+    // Warm up
+    BCrypt.hashpw (PASSWORD, BCrypt.gensalt (PasswordHashCreatorBCrypt.MIN_LOG_ROUNDS));
+
+    int ret = PasswordHashCreatorBCrypt.MIN_LOG_ROUNDS;
+    for (int nRounds = PasswordHashCreatorBCrypt.MIN_LOG_ROUNDS; nRounds <= PasswordHashCreatorBCrypt.MAX_LOG_ROUNDS; ++nRounds)
+    {
+      final String sSalt = BCrypt.gensalt (nRounds);
+      final long nNanos = _getMinNanos ( () -> BCrypt.hashpw (PASSWORD, sSalt));
+      if (nNanos > nTargetNanos)
+        break;
+      ret = nRounds;
+      // Each round doubles the effort - avoid measuring something way too slow
+      if (nNanos * 2 > nTargetNanos)
+        break;
+    }
+    return ret;
+  }
+
+  /**
+   * Get the PBKDF2 iterations so that hashing a password takes approximately
+   * the target duration. The iterations are rounded down to a multiple of
+   * {@value #MIN_PBKDF2_ITERATIONS}.
+   *
+   * @param aTargetDuration
+   *        The target duration per hash. May not be <code>null</code>.
+   * @param nHashBytes
+   *        The number of hash bytes to create. Must be &gt; 0.
+   * @return The number of iterations. Always &ge;
+   *         {@value #MIN_PBKDF2_ITERATIONS}.
+   */
+  @Nonnegative
+  public static int getCalibratedPBKDF2Iterations (@Nonnull final Duration aTargetDuration,
+                                                   @Nonnegative final int nHashBytes)
+  {
+    ValueEnforcer.notNull (aTargetDuration, "TargetDuration");
+    ValueEnforcer.isGT0 (nHashBytes, "HashBytes");
+
+    final PasswordHashCreatorPBKDF2 aCreator = new PasswordHashCreatorPBKDF2 (PBKDF2_PROBE_ITERATIONS, nHashBytes);
+    final PasswordSalt aSalt = new PasswordSalt ();
+    // Warm up
+    aCreator.createPasswordHash (aSalt, PASSWORD);
+
+    final long nNanos = Math.max (1, _getMinNanos ( () -> aCreator.createPasswordHash (aSalt, PASSWORD)));
+    final double dIterations = (double) PBKDF2_PROBE_ITERATIONS * aTargetDuration.toNanos () / nNanos;
+    final long nRounded = (long) (dIterations / MIN_PBKDF2_ITERATIONS) * MIN_PBKDF2_ITERATIONS;
+    return (int) Math.max (MIN_PBKDF2_ITERATIONS, Math.min (nRounded, Integer.MAX_VALUE / 2));
+  }
+}
@@ -16,9 +16,14 @@
  */
 package com.helger.security.password.hash;
 
+import javax.annotation.CheckForSigned;
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import com.helger.commons.CGlobal;
 import com.helger.commons.ValueEnforcer;
+import com.helger.commons.string.StringParser;
 import com.helger.security.bcrypt.BCrypt;
 import com.helger.security.password.salt.IPasswordSalt;
 import com.helger.security.password.salt.PasswordSaltBCrypt;
@@ -32,10 +37,42 @@ import com.helger.security.password.salt.PasswordSaltBCrypt;
 public final class PasswordHashCreatorBCrypt extends AbstractPasswordHashCreator
 {
   public static final String ALGORITHM = "BCrypt";
+  /** The minimum log2 rounds supported by BCrypt */
+  public static final int MIN_LOG_ROUNDS = 4;
+  /** The maximum log2 rounds supported by BCrypt */
+  public static final int MAX_LOG_ROUNDS = 30;
+
+  private final int m_nLogRounds;
 
   public PasswordHashCreatorBCrypt ()
+  {
+    this (BCrypt.GENSALT_DEFAULT_LOG2_ROUNDS);
+  }
+
+  /**
+   * Constructor with a custom cost factor. The cost factor is part of the salt
+   * and the hash, so the algorithm name is the same for all cost factors.
+   *
+   * @param nLogRounds
+   *        The log2 of the number of rounds used for new salts. Must be
+   *        between {@value #MIN_LOG_ROUNDS} and {@value #MAX_LOG_ROUNDS}.
+   * @since 9.4.3
+   */
+  public PasswordHashCreatorBCrypt (@Nonnegative final int nLogRounds)
   {
     super (ALGORITHM);
+    ValueEnforcer.isBetweenInclusive (nLogRounds, "LogRounds", MIN_LOG_ROUNDS, MAX_LOG_ROUNDS);
+    m_nLogRounds = nLogRounds;
+  }
+
+  /**
+   * @return The log2 of the number of rounds used for new salts.
+   * @since 9.4.3
+   */
+  @Nonnegative
+  public int getLogRounds ()
+  {
+    return m_nLogRounds;
   }
 
   public boolean requiresSalt ()
@@ -55,4 +92,65 @@ public final class PasswordHashCreatorBCrypt extends AbstractPasswordHashCreator
 
     return BCrypt.hashpw (sPlainTextPassword, aSalt.getSaltString ());
   }
+
+  @Override
+  @Nonnull
+  public PasswordSaltBCrypt createSalt ()
+  {
+    return new PasswordSaltBCrypt (m_nLogRounds);
+  }
+
+  /**
+   * {@inheritDoc} The salt is contained in the hash value, so the salt of the
+   * password hash is not used.
+   */
+  @Override
+  public boolean isPasswordHashMatching (@Nonnull final PasswordHash aPasswordHash,
+                                         @Nonnull final String sPlainTextPassword)
+  {
+    ValueEnforcer.notNull (aPasswordHash, "PasswordHash");
+    ValueEnforcer.notNull (sPlainTextPassword, "PlainTextPassword");
+
+    try
+    {
+      return BCrypt.checkpw (sPlainTextPassword, aPasswordHash.getPasswordHashValue ());
+    }
+    catch (final RuntimeException ex)
+    {
+      // Invalid hash value
+      return false;
+    }
+  }
+
+  /**
+   * {@inheritDoc} Additionally the number of rounds of the password hash is
+   * compared to the rounds of this creator.
+   */
+  @Override
+  public boolean isRehashNeeded (@Nonnull final PasswordHash aPasswordHash)
+  {
+    if (!ALGORITHM.equals (aPasswordHash.getAlgorithmName ()))
+      return true;
+    return getLogRounds (aPasswordHash.getPasswordHashValue ()) < m_nLogRounds;
+  }
+
+  /**
+   * Extract the log2 rounds from a BCrypt salt or hash value (e.g.
+   * <code>$2a$10$...</code>).
+   *
+   * @param sSaltOrHash
+   *        The salt or hash value. May be <code>null</code>.
+   * @return {@link CGlobal#ILLEGAL_UINT} if the rounds could not be determined.
+   * @since 9.4.3
+   */
+  @CheckForSigned
+  public static int getLogRounds (@Nullable final String sSaltOrHash)
+  {
+    if (sSaltOrHash == null || sSaltOrHash.length () < 7 || !sSaltOrHash.startsWith ("$2"))
+      return CGlobal.ILLEGAL_UINT;
+    final int nOfs = sSaltOrHash.charAt (2) == '$' ? 3 : 4;
+    if (sSaltOrHash.length () < nOfs + 3 || sSaltOrHash.charAt (nOfs + 2) != '$')
+      return CGlobal.ILLEGAL_UINT;
+    return StringParser.parseInt (sSaltOrHash.substring (nOfs, nOfs + 2), CGlobal.ILLEGAL_UINT);
+  }
 }
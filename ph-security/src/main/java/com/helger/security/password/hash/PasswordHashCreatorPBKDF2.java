@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.password.hash;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.helger.commons.CGlobal;
+import com.helger.commons.string.StringParser;
+
+/**
+ * PBKDF2 password hash creator with a customizable number of iterations and
+ * hash size. The algorithm name is <code>PBKDF2_&lt;iterations&gt;_&lt;hash
+ * bytes&gt;</code> so that the cost factor of an existing password hash can
+ * always be determined. {@link PasswordHashCreatorPBKDF2_1000_48} uses the same
+ * naming scheme.
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+public final class PasswordHashCreatorPBKDF2 extends AbstractPasswordHashCreatorPBKDF2
+{
+  private static final Pattern ALGORITHM_PATTERN = Pattern.compile ("PBKDF2_([0-9]+)_([0-9]+)");
+
+  public PasswordHashCreatorPBKDF2 (@Nonnegative final int nIterations, @Nonnegative final int nHashBytes)
+  {
+    super (getAlgorithmName (nIterations, nHashBytes), nIterations, nHashBytes);
+  }
+
+  @Nonnegative
+  public int getIterations ()
+  {
+    return m_nIterations;
+  }
+
+  @Nonnegative
+  public int getHashBytes ()
+  {
+    return m_nHashBytes;
+  }
+
+  @Nonnull
+  public static String getAlgorithmName (final int nIterations, final int nHashBytes)
+  {
+    return "PBKDF2_" + nIterations + "_" + nHashBytes;
+  }
+
+  /**
+   * Create a new PBKDF2 hash creator from an algorithm name.
+   *
+   * @param sAlgorithmName
+   *        The algorithm name in the format
+   *        <code>PBKDF2_&lt;iterations&gt;_&lt;hash bytes&gt;</code>. May be
+   *        <code>null</code>.
+   * @return <code>null</code> if the algorithm name is not a valid PBKDF2
+   *         algorithm name.
+   */
+  @Nullable
+  public static PasswordHashCreatorPBKDF2 createFromAlgorithmNameOrNull (@Nullable final String sAlgorithmName)
+  {
+    if (sAlgorithmName == null)
+      return null;
+    final Matcher aMatcher = ALGORITHM_PATTERN.matcher (sAlgorithmName);
+    if (!aMatcher.matches ())
+      return null;
+    final int nIterations = StringParser.parseInt (aMatcher.group (1), CGlobal.ILLEGAL_UINT);
+    final int nHashBytes = StringParser.parseInt (aMatcher.group (2), CGlobal.ILLEGAL_UINT);
+    if (nIterations <= 0 || nHashBytes <= 0)
+      return null;
+    return new PasswordHashCreatorPBKDF2 (nIterations, nHashBytes);
+  }
+}
@@ -0,0 +1,400 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.password.hash;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.helger.commons.ValueEnforcer;
+import com.helger.commons.collection.impl.CommonsConcurrentHashMap;
+import com.helger.commons.collection.impl.ICommonsMap;
+import com.helger.commons.concurrent.BasicThreadFactory;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.statistics.IMutableStatisticsHandlerCounter;
+import com.helger.commons.statistics.IMutableStatisticsHandlerTimer;
+import com.helger.commons.statistics.StatisticsManager;
+import com.helger.commons.string.ToStringGenerator;
+import com.helger.commons.timing.StopWatch;
+import com.helger.security.password.salt.IPasswordSalt;
+
+/**
+ * A service that creates and verifies password hashes asynchronously on a
+ * dedicated, bounded thread pool, so that a burst of logins cannot saturate
+ * the request threads. If the queue is full, the returned future fails with a
+ * {@link RejectedExecutionException}.<br>
+ * New hashes are always created with the preferred
+ * {@link IPasswordHashCreator}. Use {@link PasswordHashCalibrator} to
+ * determine its cost factor. Existing hashes are verified with the creator
+ * matching their algorithm name and are transparently upgraded via
+ * {@link #checkPassword(PasswordHash, String)} if they are weaker than the
+ * preferred creator.<br>
+ * The following statistics are maintained in the {@link StatisticsManager}:
+ * <code>$HASH</code> (timer of each hash operation in milliseconds),
+ * <code>$REJECTED</code> and <code>$REHASHED</code> (counters).
+ *
+ * @author Philip Helger
+ * @since 9.4.3
+ */
+@ThreadSafe
+public class PasswordHashService implements AutoCloseable
+{
+  /** The default maximum number of queued hash operations */
+  public static final int DEFAULT_MAX_QUEUE_SIZE = 256;
+
+  private static final IMutableStatisticsHandlerTimer s_aStatsHash = StatisticsManager.getTimerHandler (PasswordHashService.class.getName () +
+                                                                                                         "$HASH");
+  private static final IMutableStatisticsHandlerCounter s_aStatsRejected = StatisticsManager.getCounterHandler (PasswordHashService.class.getName () +
+                                                                                                               "$REJECTED");
+  private static final IMutableStatisticsHandlerCounter s_aStatsRehashed = StatisticsManager.getCounterHandler (PasswordHashService.class.getName () +
+                                                                                                               "$REHASHED");
+
+  /**
+   * The result of {@link PasswordHashService#checkPassword(PasswordHash, String)}.
+   */
+  @Immutable
+  public static final class PasswordCheckResult
+  {
+    private final boolean m_bMatching;
+    private final PasswordHash m_aNewPasswordHash;
+
+    PasswordCheckResult (final boolean bMatching, @Nullable final PasswordHash aNewPasswordHash)
+    {
+      m_bMatching = bMatching;
+      m_aNewPasswordHash = aNewPasswordHash;
+    }
+
+    /**
+     * @return <code>true</code> if the password matched the existing hash.
+     */
+    public boolean isMatching ()
+    {
+      return m_bMatching;
+    }
+
+    /**
+     * @return <code>true</code> if the password matched and the existing hash
+     *         was re-created with the preferred creator.
+     */
+    public boolean hasNewPasswordHash ()
+    {
+      return m_aNewPasswordHash != null;
+    }
+
+    /**
+     * @return The re-created password hash that should be stored instead of
+     *         the old one. May be <code>null</code>.
+     */
+    @Nullable
+    public PasswordHash getNewPasswordHash ()
+    {
+      return m_aNewPasswordHash;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("Matching", m_bMatching)
+                                         .appendIfNotNull ("NewPasswordHash", m_aNewPasswordHash)
+                                         .getToString ();
+    }
+  }
+
+  private final IPasswordHashCreator m_aPasswordHashCreator;
+  private final ICommonsMap <String, IPasswordHashCreator> m_aCreators = new CommonsConcurrentHashMap <> ();
+  private final int m_nMaxQueueSize;
+  private final ThreadPoolExecutor m_aExecutor;
+
+  /**
+   * Constructor using one thread per processor and
+   * {@link #DEFAULT_MAX_QUEUE_SIZE}.
+   *
+   * @param aPasswordHashCreator
+   *        The preferred password hash creator for new hashes. May not be
+   *        <code>null</code>.
+   */
+  public PasswordHashService (@Nonnull final IPasswordHashCreator aPasswordHashCreator)
+  {
+    this (aPasswordHashCreator, Runtime.getRuntime ().availableProcessors (), DEFAULT_MAX_QUEUE_SIZE);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aPasswordHashCreator
+   *        The preferred password hash creator for new hashes. May not be
+   *        <code>null</code>.
+   * @param nThreads
+   *        The number of hashing threads. Must be &gt; 0.
+   * @param nMaxQueueSize
+   *        The maximum number of waiting hash operations. Must be &gt; 0.
+   */
+  public PasswordHashService (@Nonnull final IPasswordHashCreator aPasswordHashCreator,
+                              @Nonnegative final int nThreads,
+                              @Nonnegative final int nMaxQueueSize)
+  {
+    ValueEnforcer.notNull (aPasswordHashCreator, "PasswordHashCreator");
+    ValueEnforcer.isGT0 (nThreads, "Threads");
+    ValueEnforcer.isGT0 (nMaxQueueSize, "MaxQueueSize");
+
+    m_aPasswordHashCreator = aPasswordHashCreator;
+    m_nMaxQueueSize = nMaxQueueSize;
+    // Default creators for verification
+    registerPasswordHashCreator (new PasswordHashCreatorSHA512 ());
+    registerPasswordHashCreator (new PasswordHashCreatorPBKDF2_1000_48 ());
+    registerPasswordHashCreator (new PasswordHashCreatorBCrypt ());
+    registerPasswordHashCreator (aPasswordHashCreator);
+
+    m_aExecutor = new ThreadPoolExecutor (nThreads,
+                                          nThreads,
+                                          0,
+                                          TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue <> (nMaxQueueSize),
+                                          new BasicThreadFactory.Builder ().setNamingPattern ("ph-password-hash-%d")
+                                                                           .setDaemon (true)
+                                                                           .build ());
+  }
+
+  /**
+   * @return The preferred password hash creator used for new hashes. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public final IPasswordHashCreator getPasswordHashCreator ()
+  {
+    return m_aPasswordHashCreator;
+  }
+
+  /**
+   * Register an additional password hash creator used to verify existing
+   * password hashes. An existing creator with the same algorithm name is
+   * replaced.
+   *
+   * @param aPasswordHashCreator
+   *        The creator to register. May not be <code>null</code>.
+   */
+  public final void registerPasswordHashCreator (@Nonnull final IPasswordHashCreator aPasswordHashCreator)
+  {
+    ValueEnforcer.notNull (aPasswordHashCreator, "PasswordHashCreator");
+    m_aCreators.put (aPasswordHashCreator.getAlgorithmName (), aPasswordHashCreator);
+  }
+
+  /**
+   * Get the password hash creator for the provided algorithm name. PBKDF2
+   * creators with arbitrary iterations are created on demand.
+   *
+   * @param sAlgorithmName
+   *        The algorithm name. May be <code>null</code>.
+   * @return <code>null</code> if no such creator is known.
+   */
+  @Nullable
+  public IPasswordHashCreator getPasswordHashCreatorOfAlgorithm (@Nullable final String sAlgorithmName)
+  {
+    if (sAlgorithmName == null)
+      return null;
+    IPasswordHashCreator ret = m_aCreators.get (sAlgorithmName);
+    if (ret == null)
+    {
+      ret = PasswordHashCreatorPBKDF2.createFromAlgorithmNameOrNull (sAlgorithmName);
+      if (ret != null)
+        m_aCreators.putIfAbsent (sAlgorithmName, ret);
+    }
+    return ret;
+  }
+
+  @Nonnegative
+  public final int getMaxQueueSize ()
+  {
+    return m_nMaxQueueSize;
+  }
+
+  /**
+   * @return The number of hash operations currently waiting for execution.
+   */
+  @Nonnegative
+  public int getQueueSize ()
+  {
+    return m_aExecutor.getQueue ().size ();
+  }
+
+  /**
+   * @return The approximate number of hash operations currently executing.
+   */
+  @Nonnegative
+  public int getActiveCount ()
+  {
+    return m_aExecutor.getActiveCount ();
+  }
+
+  @Nonnull
+  private <T> CompletableFuture <T> _submit (@Nonnull final Supplier <T> aSupplier)
+  {
+    final CompletableFuture <T> ret = new CompletableFuture <> ();
+    try
+    {
+      m_aExecutor.execute ( () -> {
+        if (ret.isDone ())
+          return;
+        final StopWatch aSW = StopWatch.createdStarted ();
+        try
+        {
+          ret.complete (aSupplier.get ());
+        }
+        catch (final RuntimeException ex)
+        {
+          ret.completeExceptionally (ex);
+        }
+        finally
+        {
+          s_aStatsHash.addTime (aSW.stopAndGetMillis ());
+        }
+      });
+    }
+    catch (final RejectedExecutionException ex)
+    {
+      s_aStatsRejected.increment ();
+      ret.completeExceptionally (ex);
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private PasswordHash _createPasswordHash (@Nonnull final String sPlainTextPassword)
+  {
+    final IPasswordSalt aSalt = m_aPasswordHashCreator.createSalt ();
+    final String sHash = m_aPasswordHashCreator.createPasswordHash (aSalt, sPlainTextPassword);
+    return new PasswordHash (m_aPasswordHashCreator.getAlgorithmName (), aSalt, sHash);
+  }
+
+  @Nonnull
+  private IPasswordHashCreator _getCreatorOf (@Nonnull final PasswordHash aPasswordHash)
+  {
+    final IPasswordHashCreator ret = getPasswordHashCreatorOfAlgorithm (aPasswordHash.getAlgorithmName ());
+    if (ret == null)
+      throw new IllegalArgumentException ("No password hash creator for algorithm '" +
+                                          aPasswordHash.getAlgorithmName () +
+                                          "' is registered");
+    return ret;
+  }
+
+  /**
+   * Asynchronously create a new password hash with the preferred creator and a
+   * new salt.
+   *
+   * @param sPlainTextPassword
+   *        The plain text password. May not be <code>null</code>.
+   * @return The future password hash. Never <code>null</code>.
+   */
+  @Nonnull
+  public CompletableFuture <PasswordHash> createPasswordHash (@Nonnull final String sPlainTextPassword)
+  {
+    ValueEnforcer.notNull (sPlainTextPassword, "PlainTextPassword");
+    return _submit ( () -> _createPasswordHash (sPlainTextPassword));
+  }
+
+  /**
+   * Asynchronously check if the plain text password matches the existing
+   * password hash.
+   *
+   * @param aPasswordHash
+   *        The existing password hash. May not be <code>null</code>.
+   * @param sPlainTextPassword
+   *        The plain text password. May not be <code>null</code>.
+   * @return The future result. Never <code>null</code>. Fails with an
+   *         {@link IllegalArgumentException} if the algorithm of the password
+   *         hash is unknown.
+   */
+  @Nonnull
+  public CompletableFuture <Boolean> isPasswordMatching (@Nonnull final PasswordHash aPasswordHash,
+                                                         @Nonnull final String sPlainTextPassword)
+  {
+    ValueEnforcer.notNull (aPasswordHash, "PasswordHash");
+    ValueEnforcer.notNull (sPlainTextPassword, "PlainTextPassword");
+    return _submit ( () -> Boolean.valueOf (_getCreatorOf (aPasswordHash).isPasswordHashMatching (aPasswordHash,
+                                                                                                  sPlainTextPassword)));
+  }
+
+  /**
+   * Check if the existing password hash should be re-created with the
+   * preferred creator.
+   *
+   * @param aPasswordHash
+   *        The existing password hash. May not be <code>null</code>.
+   * @return <code>true</code> if a rehash is needed.
+   */
+  public boolean isRehashNeeded (@Nonnull final PasswordHash aPasswordHash)
+  {
+    ValueEnforcer.notNull (aPasswordHash, "PasswordHash");
+    return m_aPasswordHashCreator.isRehashNeeded (aPasswordHash);
+  }
+
+  /**
+   * Asynchronously check the plain text password upon login. If it matches
+   * and the existing password hash is weaker than the preferred creator, a new
+   * password hash is created in the same task. The caller is responsible for
+   * storing the new password hash.
+   *
+   * @param aPasswordHash
+   *        The existing password hash. May not be <code>null</code>.
+   * @param sPlainTextPassword
+   *        The plain text password. May not be <code>null</code>.
+   * @return The future result. Never <code>null</code>. Fails with an
+   *         {@link IllegalArgumentException} if the algorithm of the password
+   *         hash is unknown.
+   */
+  @Nonnull
+  public CompletableFuture <PasswordCheckResult> checkPassword (@Nonnull final PasswordHash aPasswordHash,
+                                                                @Nonnull final String sPlainTextPassword)
+  {
+    ValueEnforcer.notNull (aPasswordHash, "PasswordHash");
+    ValueEnforcer.notNull (sPlainTextPassword, "PlainTextPassword");
+    return _submit ( () -> {
+      if (!_getCreatorOf (aPasswordHash).isPasswordHashMatching (aPasswordHash, sPlainTextPassword))
+        return new PasswordCheckResult (false, null);
+      if (!isRehashNeeded (aPasswordHash))
+        return new PasswordCheckResult (true, null);
+      s_aStatsRehashed.increment ();
+      return new PasswordCheckResult (true, _createPasswordHash (sPlainTextPassword));
+    });
+  }
+
+  /**
+   * Shutdown the executor and wait until all queued operations are finished.
+   */
+  public void close ()
+  {
+    ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (m_aExecutor);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("PasswordHashCreator", m_aPasswordHashCreator)
+                                       .append ("MaxQueueSize", m_nMaxQueueSize)
+                                       .append ("Executor", m_aExecutor)
+                                       .getToString ();
+  }
+}
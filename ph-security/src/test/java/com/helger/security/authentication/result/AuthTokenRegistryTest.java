@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.authentication.result;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+import com.helger.commons.concurrent.ThreadHelper;
+import com.helger.security.authentication.subject.AuthSubject;
+import com.helger.security.authentication.subject.IAuthSubject;
+
+/**
+ * Test class for class {@link AuthTokenRegistry}.
+ *
+ * @author Philip Helger
+ */
+public final class AuthTokenRegistryTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final IAuthSubject aSubject = new AuthSubject ("test-basic", "Test");
+    final IAuthSubject aOther = new AuthSubject ("test-other", "Other");
+
+    final IAuthToken aToken1 = AuthTokenRegistry.createToken (new AuthIdentification (aSubject),
+                                                              IAuthToken.EXPIRATION_SECONDS_INFINITE);
+    final IAuthToken aToken2 = AuthTokenRegistry.createToken (new AuthIdentification (aSubject), 100);
+    final IAuthToken aToken3 = AuthTokenRegistry.createToken (new AuthIdentification (aOther), 100);
+    // Failed identification
+    final IAuthToken aToken4 = AuthTokenRegistry.createToken (new AuthIdentification (null), 100);
+
+    assertSame (aToken1, AuthTokenRegistry.getValidToken (aToken1.getID ()));
+    assertSame (aToken2, AuthTokenRegistry.validateTokenAndUpdateLastAccess (aToken2.getID ()));
+    assertNull (AuthTokenRegistry.getValidToken ("bla"));
+    assertNull (AuthTokenRegistry.getValidToken (null));
+    assertTrue (AuthTokenRegistry.getLookupCount () >= 3);
+    assertTrue (AuthTokenRegistry.getAverageLookupNanos () >= 0);
+
+    assertEquals (2, AuthTokenRegistry.getAllTokensOfSubject (aSubject).size ());
+    assertTrue (AuthTokenRegistry.getAllTokensOfSubject (aSubject).contains (aToken1));
+    assertTrue (AuthTokenRegistry.getAllTokensOfSubject (aSubject).contains (aToken2));
+    assertEquals (1, AuthTokenRegistry.getAllTokensOfSubject (aOther).size ());
+    assertEquals (0, AuthTokenRegistry.getAllTokensOfSubject (new AuthSubject ("test-none", "None")).size ());
+
+    assertTrue (AuthTokenRegistry.removeToken (aToken1.getID ()).isSuccess ());
+    assertTrue (AuthTokenRegistry.removeToken (aToken1.getID ()).isFailure ());
+    assertTrue (aToken1.isExpired ());
+    assertNull (AuthTokenRegistry.getValidToken (aToken1.getID ()));
+    assertEquals (1, AuthTokenRegistry.getAllTokensOfSubject (aSubject).size ());
+
+    assertEquals (1, AuthTokenRegistry.removeAllTokensOfSubject (aSubject));
+    assertEquals (0, AuthTokenRegistry.getAllTokensOfSubject (aSubject).size ());
+    assertEquals (0, AuthTokenRegistry.removeAllTokensOfSubject (aSubject));
+    assertEquals (1, AuthTokenRegistry.removeAllTokensOfSubject (aOther));
+    assertNull (AuthTokenRegistry.getValidToken (aToken3.getID ()));
+
+    assertTrue (AuthTokenRegistry.removeToken (aToken4.getID ()).isSuccess ());
+  }
+
+  @Test
+  public void testBackgroundExpiry ()
+  {
+    final IAuthSubject aSubject = new AuthSubject ("test-expiry", "Test");
+    assertFalse (AuthTokenRegistry.isBackgroundExpiryEnabled ());
+    AuthTokenRegistry.enableBackgroundExpiry (Duration.ofMillis (50));
+    try
+    {
+      assertTrue (AuthTokenRegistry.isBackgroundExpiryEnabled ());
+      final IAuthToken aToken = AuthTokenRegistry.createToken (new AuthIdentification (aSubject), 1);
+      final IAuthToken aTouched = AuthTokenRegistry.createToken (new AuthIdentification (aSubject), 1);
+      final IAuthToken aRemoved = AuthTokenRegistry.createToken (new AuthIdentification (aSubject), 1);
+      assertTrue (AuthTokenRegistry.removeToken (aRemoved.getID ()).isSuccess ());
+
+      // Keep one token alive
+      for (int i = 0; i < 6; ++i)
+      {
+        ThreadHelper.sleep (500);
+        assertNotNull (AuthTokenRegistry.validateTokenAndUpdateLastAccess (aTouched.getID ()));
+      }
+
+      // The expired token was removed in the background, not upon access
+      assertEquals (1, AuthTokenRegistry.getAllTokensOfSubject (aSubject).size ());
+      assertSame (aTouched, AuthTokenRegistry.getAllTokensOfSubject (aSubject).getFirst ());
+      assertTrue (aToken.isExpired ());
+      assertEquals (1, AuthTokenRegistry.removeAllTokensOfSubject (aSubject));
+    }
+    finally
+    {
+      assertTrue (AuthTokenRegistry.disableBackgroundExpiry ().isChanged ());
+    }
+    assertTrue (AuthTokenRegistry.disableBackgroundExpiry ().isUnchanged ());
+  }
+
+  @Test
+  public void testRemoveAllExpiredTokens ()
+  {
+    final IAuthSubject aSubject = new AuthSubject ("test-manual", "Test");
+    final IAuthToken aToken = AuthTokenRegistry.createToken (new AuthIdentification (aSubject), 1);
+    ThreadHelper.sleep (2100);
+    assertTrue (AuthTokenRegistry.removeAllExpiredTokens () >= 1);
+    assertEquals (0, AuthTokenRegistry.getAllTokensOfSubject (aSubject).size ());
+    assertNull (AuthTokenRegistry.getValidToken (aToken.getID ()));
+  }
+}
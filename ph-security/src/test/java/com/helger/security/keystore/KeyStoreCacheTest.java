@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.keystore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.KeyStore;
+
+import org.junit.Test;
+
+import com.helger.commons.io.resource.ClassPathResource;
+
+/**
+ * Test class for class {@link KeyStoreCache}.
+ *
+ * @author Philip Helger
+ */
+public final class KeyStoreCacheTest
+{
+  @Test
+  public void testClassPath ()
+  {
+    final KeyStoreCache aCache = new KeyStoreCache ();
+    final LoadedKeyStore aLKS = aCache.getKeyStore (EKeyStoreType.JKS, "keystores/keystore-pw-peppol.jks", "peppol");
+    assertTrue (aLKS.isSuccess ());
+    assertSame (aLKS, aCache.getKeyStore (EKeyStoreType.JKS, "keystores/keystore-pw-peppol.jks", "peppol"));
+    assertEquals (1, aCache.getHitCount ());
+    assertEquals (1, aCache.getMissCount ());
+    assertEquals (1, aCache.size ());
+
+    // Different password - different entry
+    assertTrue (aCache.getKeyStore (EKeyStoreType.JKS, "keystores/keystore-pw-peppol.jks", null).isSuccess ());
+    assertEquals (2, aCache.size ());
+
+    // Errors are not cached
+    final LoadedKeyStore aError = aCache.getKeyStore (EKeyStoreType.JKS, "keystores/keystore-pw-peppol.jks", "wrong");
+    assertTrue (aError.isFailure ());
+    assertEquals (EKeyStoreLoadError.KEYSTORE_INVALID_PASSWORD, aError.getError ());
+    assertEquals (2, aCache.size ());
+
+    final LoadedKey <KeyStore.PrivateKeyEntry> aKey = aCache.getPrivateKey (EKeyStoreType.JKS,
+                                                                            "keystores/keystore-pw-peppol.jks",
+                                                                            "peppol",
+                                                                            "nonexisting",
+                                                                            "peppol".toCharArray ());
+    assertTrue (aKey.isFailure ());
+    assertEquals (EKeyStoreLoadError.KEY_INVALID_ALIAS, aKey.getError ());
+
+    // Key store errors are passed on
+    final LoadedKey <KeyStore.PrivateKeyEntry> aKey2 = aCache.getPrivateKey (EKeyStoreType.JKS,
+                                                                             "keystores/nonexisting.jks",
+                                                                             "peppol",
+                                                                             "1",
+                                                                             "peppol".toCharArray ());
+    assertEquals (EKeyStoreLoadError.KEYSTORE_LOAD_ERROR_NON_EXISTING, aKey2.getError ());
+
+    assertTrue (aCache.remove ("keystores/keystore-pw-peppol.jks").isChanged ());
+    assertEquals (0, aCache.size ());
+  }
+
+  @Test
+  public void testReloadOnChange () throws IOException
+  {
+    final File aFile = File.createTempFile ("keystorecache", ".jks");
+    try
+    {
+      try (final InputStream aIS = new ClassPathResource ("keystores/keystore-pw-peppol.jks").getInputStream ())
+      {
+        Files.copy (aIS, aFile.toPath (), StandardCopyOption.REPLACE_EXISTING);
+      }
+      final String sPath = aFile.getAbsolutePath ();
+
+      final KeyStoreCache aCache = new KeyStoreCache ().setCheckIntervalMillis (0);
+      final LoadedKeyStore aLKS = aCache.getKeyStore (EKeyStoreType.JKS, sPath, "peppol");
+      assertTrue (aLKS.isSuccess ());
+      assertSame (aLKS, aCache.getKeyStore (EKeyStoreType.JKS, sPath, "peppol"));
+
+      // Touch the file
+      assertTrue (aFile.setLastModified (aFile.lastModified () - 10_000));
+      final LoadedKeyStore aLKS2 = aCache.getKeyStore (EKeyStoreType.JKS, sPath, "peppol");
+      assertTrue (aLKS2.isSuccess ());
+      assertNotSame (aLKS, aLKS2);
+      assertEquals (1, aCache.getReloadCount ());
+      assertSame (aLKS2, aCache.getKeyStore (EKeyStoreType.JKS, sPath, "peppol"));
+
+      // Corrupt the file
+      Files.write (aFile.toPath (), new byte [] { 1, 2, 3 });
+      assertTrue (aCache.getKeyStore (EKeyStoreType.JKS, sPath, "peppol").isFailure ());
+      assertEquals (0, aCache.size ());
+    }
+    finally
+    {
+      Files.deleteIfExists (aFile.toPath ());
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.mac;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+import org.junit.Test;
+
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+
+/**
+ * Test class for class {@link MacPool}.
+ *
+ * @author Philip Helger
+ */
+public final class MacPoolTest
+{
+  @Test
+  public void testBasic () throws InvalidKeyException, IOException
+  {
+    final byte [] aBytes = "Hello world".getBytes (StandardCharsets.ISO_8859_1);
+    final MacPool aPool = new MacPool (2);
+    for (final EMacAlgorithm eAlgo : EMacAlgorithm.values ())
+    {
+      final SecretKey aKey1 = eAlgo.createSecretKey ("key1".getBytes (StandardCharsets.ISO_8859_1));
+      final SecretKey aKey2 = eAlgo.createSecretKey ("key2".getBytes (StandardCharsets.ISO_8859_1));
+
+      final Mac aExpected = eAlgo.createMac ();
+      aExpected.init (aKey1);
+      final byte [] aExpected1 = aExpected.doFinal (aBytes);
+      aExpected.init (aKey2);
+      final byte [] aExpected2 = aExpected.doFinal (aBytes);
+
+      final Mac aMac = aPool.borrowMac (eAlgo, null, aKey1);
+      aMac.update ((byte) 1);
+      aPool.returnMac (eAlgo, null, aMac);
+      // The pooled instance no longer holds the key
+      assertFalse (Arrays.equals (aExpected1, aMac.doFinal (aBytes)));
+      // Must be reset and re-keyed
+      assertSame (aMac, aPool.withMac (eAlgo, null, aKey2, x -> x));
+
+      assertArrayEquals (aExpected1, aPool.getMac (eAlgo, aKey1, aBytes));
+      assertArrayEquals (aExpected2, aPool.getMac (eAlgo, aKey2, aBytes));
+      assertArrayEquals (aExpected1, aPool.getMac (eAlgo, aKey1, ByteBuffer.wrap (aBytes)));
+      assertArrayEquals (aExpected2, aPool.getMac (eAlgo, aKey2, new NonBlockingByteArrayInputStream (aBytes)));
+    }
+  }
+}
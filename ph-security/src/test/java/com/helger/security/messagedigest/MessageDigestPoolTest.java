@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.messagedigest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link MessageDigestPool}.
+ *
+ * @author Philip Helger
+ */
+public final class MessageDigestPoolTest
+{
+  @Test
+  public void testBorrowReturn ()
+  {
+    final MessageDigestPool aPool = new MessageDigestPool (1);
+    assertEquals (1, aPool.getMaxIdle ());
+
+    final MessageDigest aMD1 = aPool.borrowMessageDigest (EMessageDigestAlgorithm.SHA_256);
+    final MessageDigest aMD2 = aPool.borrowMessageDigest (EMessageDigestAlgorithm.SHA_256);
+    assertNotSame (aMD1, aMD2);
+    aMD1.update ((byte) 1);
+    aPool.returnMessageDigest (EMessageDigestAlgorithm.SHA_256, aMD1);
+    // Pool is full - discarded
+    aPool.returnMessageDigest (EMessageDigestAlgorithm.SHA_256, aMD2);
+
+    final MessageDigest aMD3 = aPool.borrowMessageDigest (EMessageDigestAlgorithm.SHA_256);
+    assertSame (aMD1, aMD3);
+    // Must be reset
+    assertArrayEquals (EMessageDigestAlgorithm.SHA_256.createMessageDigest ().digest (), aMD3.digest ());
+
+    // Other provider - other pool
+    aPool.returnMessageDigest (EMessageDigestAlgorithm.SHA_256, aMD3);
+    assertNotSame (aMD3,
+                   aPool.borrowMessageDigest (EMessageDigestAlgorithm.SHA_256,
+                                              EMessageDigestAlgorithm.SHA_256.createMessageDigest ().getProvider ()));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testReturnWrongAlgorithm ()
+  {
+    new MessageDigestPool (1).returnMessageDigest (EMessageDigestAlgorithm.SHA_256,
+                                                   EMessageDigestAlgorithm.MD5.createMessageDigest ());
+  }
+
+  @Test
+  public void testGetDigest ()
+  {
+    final byte [] aBytes = "Hello world".getBytes (StandardCharsets.ISO_8859_1);
+    final MessageDigestPool aPool = MessageDigestPool.getDefaultInstance ();
+    for (final EMessageDigestAlgorithm eAlgo : EMessageDigestAlgorithm.values ())
+    {
+      final byte [] aExpected = eAlgo.createMessageDigest ().digest (aBytes);
+      assertArrayEquals (aExpected, aPool.getDigest (eAlgo, aBytes));
+      assertArrayEquals (aExpected, aPool.getDigest (eAlgo, aBytes));
+      assertArrayEquals (eAlgo.createMessageDigest ().digest ("world".getBytes (StandardCharsets.ISO_8859_1)),
+                         aPool.getDigest (eAlgo, aBytes, 6, 5));
+      assertArrayEquals (aExpected, MessageDigestValue.create (aBytes, eAlgo).bytes ());
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.messagedigest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.ICommonsOrderedMap;
+import com.helger.commons.concurrent.ExecutorServiceHelper;
+import com.helger.commons.io.stream.NonBlockingByteArrayInputStream;
+import com.helger.commons.io.stream.NullOutputStream;
+import com.helger.commons.io.stream.StreamHelper;
+
+/**
+ * Test class for class {@link MultiMessageDigest}.
+ *
+ * @author Philip Helger
+ */
+public final class MultiMessageDigestTest
+{
+  private static final EMessageDigestAlgorithm [] ALGOS = { EMessageDigestAlgorithm.SHA_256,
+                                                            EMessageDigestAlgorithm.SHA_512,
+                                                            EMessageDigestAlgorithm.MD5 };
+
+  private static void _check (final byte [] aBytes, final ICommonsOrderedMap <EMessageDigestAlgorithm, MessageDigestValue> aMap)
+  {
+    assertEquals (ALGOS.length, aMap.size ());
+    int i = 0;
+    for (final EMessageDigestAlgorithm eAlgo : aMap.keySet ())
+      assertEquals (ALGOS[i++], eAlgo);
+    for (final EMessageDigestAlgorithm eAlgo : ALGOS)
+      assertArrayEquals (eAlgo.createMessageDigest ().digest (aBytes), aMap.get (eAlgo).bytes ());
+  }
+
+  @Test
+  public void testBasic () throws IOException
+  {
+    final byte [] aBytes = new byte [300_000];
+    new Random (17).nextBytes (aBytes);
+
+    _check (aBytes, MultiMessageDigest.create (aBytes, ALGOS));
+    _check (aBytes, MultiMessageDigest.create (ByteBuffer.wrap (aBytes), ALGOS));
+    final ByteBuffer aDirect = ByteBuffer.allocateDirect (aBytes.length);
+    aDirect.put (aBytes).flip ();
+    _check (aBytes, MultiMessageDigest.create (aDirect, ALGOS));
+    assertEquals (aDirect.limit (), aDirect.position ());
+    _check (aBytes, MultiMessageDigest.create (new NonBlockingByteArrayInputStream (aBytes), ALGOS));
+
+    // Reuse after digest
+    try (final MultiMessageDigest aMMD = new MultiMessageDigest (ALGOS))
+    {
+      aMMD.update (new byte [] { 1, 2, 3 });
+      aMMD.digest ();
+      try (final InputStream aIS = new MultiMessageDigestInputStream (new NonBlockingByteArrayInputStream (aBytes),
+                                                                      aMMD))
+      {
+        StreamHelper.copyInputStreamToOutputStream (aIS, new NullOutputStream ());
+      }
+      _check (aBytes, aMMD.digest ());
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testDuplicate ()
+  {
+    new MultiMessageDigest (EMessageDigestAlgorithm.MD5, EMessageDigestAlgorithm.MD5).close ();
+  }
+
+  @Test (expected = IllegalStateException.class)
+  public void testClosed ()
+  {
+    final MultiMessageDigest aMMD = new MultiMessageDigest (ALGOS);
+    aMMD.close ();
+    assertTrue (aMMD.isClosed ());
+    aMMD.update ((byte) 0);
+  }
+
+  @Test
+  public void testPipelined () throws IOException
+  {
+    final byte [] aBytes = new byte [MultiMessageDigest.PIPELINE_BUFFER_SIZE * 10 + 17];
+    new Random (4711).nextBytes (aBytes);
+
+    final ExecutorService aES = Executors.newSingleThreadExecutor ();
+    try
+    {
+      for (int i = 0; i < 10; ++i)
+        _check (aBytes, MultiMessageDigest.createPipelined (new NonBlockingByteArrayInputStream (aBytes), aES, ALGOS));
+      _check (new byte [0], MultiMessageDigest.createPipelined (new NonBlockingByteArrayInputStream (new byte [0]), aES, ALGOS));
+
+      // Read error
+      try
+      {
+        MultiMessageDigest.createPipelined (new InputStream ()
+        {
+          private int m_nCount = 0;
+
+          @Override
+          public int read () throws IOException
+          {
+            throw new IOException ("not used");
+          }
+
+          @Override
+          public int read (final byte [] b, final int off, final int len) throws IOException
+          {
+            if (++m_nCount > 5)
+              throw new IOException ("Test error");
+            return len;
+          }
+        }, aES, ALGOS);
+        fail ();
+      }
+      catch (final IOException ex)
+      {
+        assertEquals ("Test error", ex.getMessage ());
+      }
+    }
+    finally
+    {
+      ExecutorServiceHelper.shutdownAndWaitUntilAllTasksAreFinished (aES);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.password.hash;
+
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link PasswordHashCalibrator}.
+ *
+ * @author Philip Helger
+ */
+public final class PasswordHashCalibratorTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final int nRounds = PasswordHashCalibrator.getCalibratedBCryptLogRounds (Duration.ofMillis (20));
+    assertTrue (nRounds >= PasswordHashCreatorBCrypt.MIN_LOG_ROUNDS);
+    assertTrue (nRounds < 12);
+    // Nothing is that fast
+    assertTrue (PasswordHashCalibrator.getCalibratedBCryptLogRounds (Duration.ZERO) ==
+                PasswordHashCreatorBCrypt.MIN_LOG_ROUNDS);
+
+    final int nIterations = PasswordHashCalibrator.getCalibratedPBKDF2Iterations (Duration.ofMillis (20), 48);
+    assertTrue (nIterations >= PasswordHashCalibrator.MIN_PBKDF2_ITERATIONS);
+    assertTrue (nIterations % PasswordHashCalibrator.MIN_PBKDF2_ITERATIONS == 0);
+    assertTrue (PasswordHashCalibrator.getCalibratedPBKDF2Iterations (Duration.ZERO,
+                                                                      48) == PasswordHashCalibrator.MIN_PBKDF2_ITERATIONS);
+  }
+}
@@ -18,9 +18,11 @@ package com.helger.security.password.hash;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import com.helger.commons.CGlobal;
 import com.helger.security.password.salt.IPasswordSalt;
 import com.helger.security.password.salt.PasswordSaltBCrypt;
 
@@ -61,4 +63,31 @@ public final class PasswordHashCreatorBCryptTest
     for (int i = 0; i < 20; ++i)
       a.createPasswordHash (aSalt, sPlainTextPassword);
   }
+
+  @Test
+  public void testRoundsAndRehash ()
+  {
+    final PasswordHashCreatorBCrypt a = new PasswordHashCreatorBCrypt (5);
+    assertEquals (5, a.getLogRounds ());
+    final IPasswordSalt aSalt = a.createSalt ();
+    assertEquals (5, PasswordHashCreatorBCrypt.getLogRounds (aSalt.getSaltString ()));
+    final PasswordHash aPH = new PasswordHash (a.getAlgorithmName (), aSalt, a.createPasswordHash (aSalt, "secret"));
+    assertEquals (5, PasswordHashCreatorBCrypt.getLogRounds (aPH.getPasswordHashValue ()));
+
+    assertTrue (a.isPasswordHashMatching (aPH, "secret"));
+    assertFalse (a.isPasswordHashMatching (aPH, "Secret"));
+    // Salt is not needed for verification
+    assertTrue (a.isPasswordHashMatching (new PasswordHash (a.getAlgorithmName (), null, aPH.getPasswordHashValue ()),
+                                          "secret"));
+    assertFalse (a.isPasswordHashMatching (new PasswordHash (a.getAlgorithmName (), null, "invalid"), "secret"));
+
+    assertFalse (a.isRehashNeeded (aPH));
+    assertFalse (new PasswordHashCreatorBCrypt (4).isRehashNeeded (aPH));
+    assertTrue (new PasswordHashCreatorBCrypt (6).isRehashNeeded (aPH));
+    assertTrue (a.isRehashNeeded (new PasswordHash ("other", aSalt, aPH.getPasswordHashValue ())));
+
+    assertEquals (CGlobal.ILLEGAL_UINT, PasswordHashCreatorBCrypt.getLogRounds (null));
+    assertEquals (CGlobal.ILLEGAL_UINT, PasswordHashCreatorBCrypt.getLogRounds ("abc"));
+    assertEquals (12, PasswordHashCreatorBCrypt.getLogRounds ("$2$12$abcdefgh"));
+  }
 }
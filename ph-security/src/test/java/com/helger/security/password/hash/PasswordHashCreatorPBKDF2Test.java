@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.password.hash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.helger.security.password.salt.IPasswordSalt;
+
+/**
+ * Test class for class {@link PasswordHashCreatorPBKDF2}.
+ *
+ * @author Philip Helger
+ */
+public final class PasswordHashCreatorPBKDF2Test
+{
+  @Test
+  public void testBasic ()
+  {
+    final PasswordHashCreatorPBKDF2 a = new PasswordHashCreatorPBKDF2 (2000, 32);
+    assertEquals ("PBKDF2_2000_32", a.getAlgorithmName ());
+    assertEquals (2000, a.getIterations ());
+    assertEquals (32, a.getHashBytes ());
+
+    final IPasswordSalt aSalt = a.createSalt ();
+    assertNotNull (aSalt);
+    final PasswordHash aPH = new PasswordHash (a.getAlgorithmName (), aSalt, a.createPasswordHash (aSalt, "secret"));
+    assertEquals (64, aPH.getPasswordHashValue ().length ());
+    assertTrue (a.isPasswordHashMatching (aPH, "secret"));
+    assertFalse (a.isPasswordHashMatching (aPH, "secreT"));
+    assertFalse (a.isRehashNeeded (aPH));
+    assertTrue (new PasswordHashCreatorPBKDF2 (3000, 32).isRehashNeeded (aPH));
+
+    // Same as the fixed version
+    final PasswordHashCreatorPBKDF2_1000_48 aFixed = new PasswordHashCreatorPBKDF2_1000_48 ();
+    final PasswordHashCreatorPBKDF2 aVar = PasswordHashCreatorPBKDF2.createFromAlgorithmNameOrNull (aFixed.getAlgorithmName ());
+    assertNotNull (aVar);
+    assertEquals (aFixed.createPasswordHash (aSalt, "secret"), aVar.createPasswordHash (aSalt, "secret"));
+  }
+
+  @Test
+  public void testCreateFromAlgorithmName ()
+  {
+    assertNull (PasswordHashCreatorPBKDF2.createFromAlgorithmNameOrNull (null));
+    assertNull (PasswordHashCreatorPBKDF2.createFromAlgorithmNameOrNull (""));
+    assertNull (PasswordHashCreatorPBKDF2.createFromAlgorithmNameOrNull ("BCrypt"));
+    assertNull (PasswordHashCreatorPBKDF2.createFromAlgorithmNameOrNull ("PBKDF2_0_48"));
+    assertNull (PasswordHashCreatorPBKDF2.createFromAlgorithmNameOrNull ("PBKDF2_1000"));
+    assertNull (PasswordHashCreatorPBKDF2.createFromAlgorithmNameOrNull ("PBKDF2_99999999999_48"));
+    assertEquals (5000, PasswordHashCreatorPBKDF2.createFromAlgorithmNameOrNull ("PBKDF2_5000_20").getIterations ());
+  }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.password.hash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.security.password.salt.PasswordSalt;
+
+/**
+ * Test class for class {@link PasswordHashService}.
+ *
+ * @author Philip Helger
+ */
+public final class PasswordHashServiceTest
+{
+  @Test
+  public void testCreateAndCheck () throws InterruptedException, ExecutionException
+  {
+    try (final PasswordHashService aService = new PasswordHashService (new PasswordHashCreatorBCrypt (5), 2, 10))
+    {
+      final PasswordHash aPH = aService.createPasswordHash ("secret").get ();
+      assertEquals (PasswordHashCreatorBCrypt.ALGORITHM, aPH.getAlgorithmName ());
+      assertEquals (5, PasswordHashCreatorBCrypt.getLogRounds (aPH.getPasswordHashValue ()));
+
+      assertTrue (aService.isPasswordMatching (aPH, "secret").get ().booleanValue ());
+      assertFalse (aService.isPasswordMatching (aPH, "secret2").get ().booleanValue ());
+      assertFalse (aService.isRehashNeeded (aPH));
+
+      PasswordHashService.PasswordCheckResult aRes = aService.checkPassword (aPH, "secret").get ();
+      assertTrue (aRes.isMatching ());
+      assertFalse (aRes.hasNewPasswordHash ());
+      aRes = aService.checkPassword (aPH, "wrong").get ();
+      assertFalse (aRes.isMatching ());
+      assertNull (aRes.getNewPasswordHash ());
+    }
+  }
+
+  @Test
+  public void testRehashOnLogin () throws InterruptedException, ExecutionException
+  {
+    // Legacy hash
+    final PasswordHashCreatorPBKDF2_1000_48 aOld = new PasswordHashCreatorPBKDF2_1000_48 ();
+    final PasswordSalt aSalt = new PasswordSalt ();
+    final PasswordHash aOldPH = new PasswordHash (aOld.getAlgorithmName (),
+                                                  aSalt,
+                                                  aOld.createPasswordHash (aSalt, "secret"));
+
+    try (final PasswordHashService aService = new PasswordHashService (new PasswordHashCreatorPBKDF2 (2000, 48)))
+    {
+      assertTrue (aService.isRehashNeeded (aOldPH));
+      assertFalse (aService.checkPassword (aOldPH, "wrong").get ().hasNewPasswordHash ());
+
+      final PasswordHashService.PasswordCheckResult aRes = aService.checkPassword (aOldPH, "secret").get ();
+      assertTrue (aRes.isMatching ());
+      final PasswordHash aNewPH = aRes.getNewPasswordHash ();
+      assertNotNull (aNewPH);
+      assertEquals ("PBKDF2_2000_48", aNewPH.getAlgorithmName ());
+      assertFalse (aService.isRehashNeeded (aNewPH));
+      assertTrue (aService.isPasswordMatching (aNewPH, "secret").get ().booleanValue ());
+
+      // Dynamically resolved PBKDF2 creator
+      final PasswordHashCreatorPBKDF2 aOther = new PasswordHashCreatorPBKDF2 (1500, 20);
+      final PasswordHash aOtherPH = new PasswordHash (aOther.getAlgorithmName (),
+                                                      aSalt,
+                                                      aOther.createPasswordHash (aSalt, "secret"));
+      assertTrue (aService.isPasswordMatching (aOtherPH, "secret").get ().booleanValue ());
+
+      // Unknown algorithm
+      try
+      {
+        aService.isPasswordMatching (new PasswordHash ("unknown", null, "abc"), "secret").get ();
+        fail ();
+      }
+      catch (final ExecutionException ex)
+      {
+        assertTrue (ex.getCause () instanceof IllegalArgumentException);
+      }
+    }
+  }
+
+  @Test
+  public void testNoRehashOfStrongerHash () throws InterruptedException, ExecutionException
+  {
+    final PasswordSalt aSalt = new PasswordSalt ();
+    final PasswordHashCreatorPBKDF2 aStrong = new PasswordHashCreatorPBKDF2 (2000, 48);
+    final PasswordHash aStrongPH = new PasswordHash (aStrong.getAlgorithmName (),
+                                                     aSalt,
+                                                     aStrong.createPasswordHash (aSalt, "secret"));
+
+    // E.g. the result of a calibration on a slower machine
+    try (final PasswordHashService aService = new PasswordHashService (new PasswordHashCreatorPBKDF2 (1000, 48)))
+    {
+      assertFalse (aService.isRehashNeeded (aStrongPH));
+      final PasswordHashService.PasswordCheckResult aRes = aService.checkPassword (aStrongPH, "secret").get ();
+      assertTrue (aRes.isMatching ());
+      assertFalse (aRes.hasNewPasswordHash ());
+
+      // More iterations but fewer hash bytes - would lower the iterations
+      final PasswordHashCreatorPBKDF2 aMixed = new PasswordHashCreatorPBKDF2 (1500, 20);
+      assertFalse (aService.isRehashNeeded (new PasswordHash (aMixed.getAlgorithmName (),
+                                                              aSalt,
+                                                              aMixed.createPasswordHash (aSalt, "secret"))));
+
+      // Weaker in both
+      final PasswordHashCreatorPBKDF2 aWeak = new PasswordHashCreatorPBKDF2 (500, 48);
+      assertTrue (aService.isRehashNeeded (new PasswordHash (aWeak.getAlgorithmName (),
+                                                             aSalt,
+                                                             aWeak.createPasswordHash (aSalt, "secret"))));
+    }
+  }
+
+  @Test
+  public void testQueueLimit () throws InterruptedException
+  {
+    try (final PasswordHashService aService = new PasswordHashService (new PasswordHashCreatorBCrypt (8), 1, 1))
+    {
+      final ICommonsList <CompletableFuture <PasswordHash>> aFutures = new CommonsArrayList <> ();
+      for (int i = 0; i < 10; ++i)
+        aFutures.add (aService.createPasswordHash ("secret" + i));
+
+      int nRejected = 0;
+      for (final CompletableFuture <PasswordHash> aFuture : aFutures)
+        try
+        {
+          assertNotNull (aFuture.get ());
+        }
+        catch (final ExecutionException ex)
+        {
+          assertTrue (ex.getCause () instanceof RejectedExecutionException);
+          nRejected++;
+        }
+      // At most 1 executing and 1 queued
+      assertTrue (nRejected >= 8);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2014-2020 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.security.supplementary.test.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.commons.collection.impl.CommonsArrayList;
+import com.helger.commons.collection.impl.ICommonsList;
+import com.helger.commons.system.SystemProperties;
+import com.helger.commons.timing.StopWatch;
+import com.helger.security.password.hash.IPasswordHashCreator;
+import com.helger.security.password.hash.PasswordHash;
+import com.helger.security.password.hash.PasswordHashCalibrator;
+import com.helger.security.password.hash.PasswordHashCreatorBCrypt;
+import com.helger.security.password.hash.PasswordHashCreatorPBKDF2;
+import com.helger.security.password.hash.PasswordHashService;
+
+/**
+ * Measure the password hash throughput of the {@link PasswordHashService}
+ * depending on the cost factor.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkPasswordHashing
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (BenchmarkPasswordHashing.class);
+  private static final int HASHES = 64;
+
+  private BenchmarkPasswordHashing ()
+  {}
+
+  private static void _benchmark (final IPasswordHashCreator aCreator, final String sCost) throws Exception
+  {
+    final int nThreads = Runtime.getRuntime ().availableProcessors ();
+    try (final PasswordHashService aService = new PasswordHashService (aCreator, nThreads, HASHES))
+    {
+      // Warm up
+      aService.createPasswordHash ("warmup").get ();
+
+      final StopWatch aSW = StopWatch.createdStarted ();
+      final ICommonsList <CompletableFuture <PasswordHash>> aFutures = new CommonsArrayList <> (HASHES);
+      for (int i = 0; i < HASHES; ++i)
+        aFutures.add (aService.createPasswordHash ("password" + i));
+      CompletableFuture.allOf (aFutures.toArray (new CompletableFuture <?> [0])).get ();
+      final long nMillis = Math.max (1, aSW.stopAndGetMillis ());
+
+      LOGGER.info (aCreator.getAlgorithmName () +
+                   " " +
+                   sCost +
+                   ": " +
+                   String.format ("%.1f", Double.valueOf (HASHES * 1000d / nMillis)) +
+                   " hashes/s with " +
+                   nThreads +
+                   " threads");
+    }
+  }
+
+  public static void main (final String [] aArgs) throws Exception
+  {
+    LOGGER.info ("Runtime: Java=" + SystemProperties.getJavaVersion () +
+                 "; CPUs=" +
+                 Runtime.getRuntime ().availableProcessors ());
+
+    for (int nRounds = 4; nRounds <= 12; ++nRounds)
+      _benchmark (new PasswordHashCreatorBCrypt (nRounds), "rounds=" + nRounds);
+    for (final int nIterations : new int [] { 1_000, 10_000, 50_000, 100_000 })
+      _benchmark (new PasswordHashCreatorPBKDF2 (nIterations, 48), "iterations=" + nIterations);
+
+    final Duration aTarget = PasswordHashCalibrator.DEFAULT_TARGET_DURATION;
+    LOGGER.info ("Calibrated for " +
+                 aTarget.toMillis () +
+                 " ms: BCrypt rounds=" +
+                 PasswordHashCalibrator.getCalibratedBCryptLogRounds (aTarget) +
+                 "; PBKDF2 iterations=" +
+                 PasswordHashCalibrator.getCalibratedPBKDF2Iterations (aTarget, 48));
+  }
+}
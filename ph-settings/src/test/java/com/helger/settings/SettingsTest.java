@@ -197,4 +197,31 @@ public final class SettingsTest
     assertTrue (s2.keySet ().contains (FIELD1));
     assertTrue (s2.keySet ().contains (FIELD2));
   }
+
+  @Test
+  public void testConvertedValueCache ()
+  {
+    final Settings aDefault = new Settings ("default");
+    aDefault.putIn (FIELD1, "5");
+    final SettingsWithDefault s = new SettingsWithDefault ("cached", aDefault);
+    assertTrue (s.enableConvertedValueCache ().isChanged ());
+    s.putIn (FIELD2, "true");
+
+    for (int i = 0; i < 3; ++i)
+    {
+      assertEquals (5, s.getAsInt (FIELD1));
+      assertTrue (s.getAsBoolean (FIELD2));
+    }
+    assertEquals (2, s.getConvertedValueCache ().getMissCount ());
+    assertEquals (4, s.getConvertedValueCache ().getHitCount ());
+
+    // Change in the default settings is detected
+    aDefault.putIn (FIELD1, "6");
+    assertEquals (6, s.getAsInt (FIELD1));
+    // Override
+    s.putIn (FIELD1, "7");
+    assertEquals (7, s.getAsInt (FIELD1));
+    s.putIn (FIELD2, "false");
+    assertFalse (s.getAsBoolean (FIELD2));
+  }
 }
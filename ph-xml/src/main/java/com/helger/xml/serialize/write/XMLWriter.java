@@ -32,8 +32,10 @@ import org.w3c.dom.Node;
 import com.helger.commons.CGlobal;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.PresentForCodeCoverage;
-import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.io.stream.ByteBufferChunkPool;
 import com.helger.commons.io.stream.NonBlockingStringWriter;
+import com.helger.commons.io.stream.NonClosingOutputStream;
+import com.helger.commons.io.stream.SegmentedByteBufferOutputStream;
 import com.helger.commons.io.stream.StreamHelper;
 import com.helger.commons.state.ESuccess;
 import com.helger.commons.statistics.IMutableStatisticsHandlerSize;
@@ -253,13 +255,11 @@ public final class XMLWriter
     ValueEnforcer.notNull (aNode, "Node");
     ValueEnforcer.notNull (aSettings, "Settings");
 
-    try (
-        final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream (50 *
-                                                                                               CGlobal.BYTES_PER_KILOBYTE))
+    try (final SegmentedByteBufferOutputStream aOS = new SegmentedByteBufferOutputStream ())
     {
-      // start serializing
-      if (writeToStream (aNode, aBAOS, aSettings).isSuccess ())
-        return aBAOS.toByteArray ();
+      // start serializing - closing the stream would release the chunks
+      if (writeToStream (aNode, new NonClosingOutputStream (aOS), aSettings).isSuccess ())
+        return aOS.toByteArray ();
     }
     catch (final Exception ex)
     {
@@ -285,4 +285,37 @@ public final class XMLWriter
   {
     return getNodeAsBytes (aNode, XMLWriterSettings.DEFAULT_XML_SETTINGS);
   }
+
+  /**
+   * Convert the passed node to XML using the provided settings and keep the
+   * result in pooled chunks. This avoids the buffer enlargement copies of
+   * {@link #getNodeAsBytes(Node, IXMLWriterSettings)} for large documents. The
+   * returned stream must be closed by the caller to return the chunks to the
+   * pool.
+   *
+   * @param aNode
+   *        The node to be converted. May not be <code>null</code>.
+   * @param aSettings
+   *        The XML writer settings to use. May not be <code>null</code>.
+   * @param aPool
+   *        The chunk pool to use. May not be <code>null</code>.
+   * @return The serialized node or <code>null</code> in case of error.
+   * @since 9.4.3
+   */
+  @Nullable
+  public static SegmentedByteBufferOutputStream getNodeAsSegmentedStream (@Nonnull final Node aNode,
+                                                                          @Nonnull final IXMLWriterSettings aSettings,
+                                                                          @Nonnull final ByteBufferChunkPool aPool)
+  {
+    ValueEnforcer.notNull (aNode, "Node");
+    ValueEnforcer.notNull (aSettings, "Settings");
+    ValueEnforcer.notNull (aPool, "Pool");
+
+    final SegmentedByteBufferOutputStream aOS = new SegmentedByteBufferOutputStream (aPool);
+    // Closing the stream would release the chunks
+    if (writeToStream (aNode, new NonClosingOutputStream (aOS), aSettings).isSuccess ())
+      return aOS;
+    aOS.close ();
+    return null;
+  }
 }
@@ -26,7 +26,7 @@ import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import com.helger.collection.multimap.IMultiMapListBased;
-import com.helger.collection.multimap.MultiTreeMapArrayListBased;
+import com.helger.collection.multimap.MultiTreeMapCompactListBased;
 import com.helger.commons.ValueEnforcer;
 import com.helger.commons.annotation.Nonempty;
 import com.helger.commons.annotation.ReturnsMutableCopy;
@@ -76,9 +76,9 @@ public class MimeTypeInfoManager
   @GuardedBy ("m_aRWLock")
   private final ICommonsList <MimeTypeInfo> m_aList = new CommonsArrayList <> ();
   @GuardedBy ("m_aRWLock")
-  private final IMultiMapListBased <IMimeType, MimeTypeInfo> m_aMapMimeType = new MultiTreeMapArrayListBased <> ();
+  private final IMultiMapListBased <IMimeType, MimeTypeInfo> m_aMapMimeType = new MultiTreeMapCompactListBased <> ();
   @GuardedBy ("m_aRWLock")
-  private final IMultiMapListBased <String, MimeTypeInfo> m_aMapExt = new MultiTreeMapArrayListBased <> ();
+  private final IMultiMapListBased <String, MimeTypeInfo> m_aMapExt = new MultiTreeMapCompactListBased <> ();
 
   /**
    * Create a new empty (!!) instance.
@@ -16,6 +16,7 @@
  */
 package com.helger.xml.microdom.serialize;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -26,7 +27,9 @@ import java.nio.charset.StandardCharsets;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.helger.commons.io.stream.ByteBufferChunkPool;
 import com.helger.commons.io.stream.NonBlockingByteArrayOutputStream;
+import com.helger.commons.io.stream.SegmentedByteBufferOutputStream;
 import com.helger.xml.EXMLVersion;
 import com.helger.xml.microdom.IMicroDocument;
 import com.helger.xml.microdom.IMicroElement;
@@ -187,6 +190,26 @@ public final class MicroWriterTest
     {}
   }
 
+  @Test
+  public void testGetNodeAsSegmentedStream ()
+  {
+    final IMicroDocument aDoc = new MicroDocument ();
+    final IMicroElement eRoot = aDoc.appendElement ("root");
+    for (int i = 0; i < 5000; ++i)
+      eRoot.appendElement ("child").setAttribute ("id", i).appendText ("Text " + i);
+
+    final byte [] aBytes = MicroWriter.getNodeAsBytes (aDoc);
+    assertNotNull (aBytes);
+    try (final SegmentedByteBufferOutputStream aOS = MicroWriter.getNodeAsSegmentedStream (aDoc,
+                                                                                          XMLWriterSettings.DEFAULT_XML_SETTINGS,
+                                                                                          ByteBufferChunkPool.getDefaultDirectInstance ()))
+    {
+      assertNotNull (aOS);
+      assertTrue (aOS.getChunkCount () > 1);
+      assertArrayEquals (aBytes, aOS.toByteArray ());
+    }
+  }
+
   @Test
   public void testXMLVersion ()
   {